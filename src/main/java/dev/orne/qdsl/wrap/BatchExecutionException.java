@@ -0,0 +1,171 @@
+package dev.orne.qdsl.wrap;
+
+/*-
+ * #%L
+ * Orne Querydsl Utils
+ * %%
+ * Copyright (C) 2022 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+import org.apiguardian.api.API;
+
+import com.querydsl.core.QueryException;
+
+/**
+ * Exception thrown when one or more chunks of a batched clause execution
+ * fail. The remaining chunks are executed before throwing this exception.
+ * <p>
+ * The cause of the exception is the cause of the first failed chunk.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2022-10
+ * @since 0.1
+ * @see ExtendedInsertClause#addBatch()
+ */
+@API(status=API.Status.EXPERIMENTAL, since="0.1")
+public class BatchExecutionException
+extends QueryException {
+
+    /** The serial version UID. */
+    private static final long serialVersionUID = 1L;
+
+    /** The affected rows count of the successful chunks. */
+    private final long affectedRows;
+    /** The failed chunks. */
+    private final @NotNull List<ChunkFailure> failures;
+
+    /**
+     * Creates a new instance.
+     * 
+     * @param message The detail message
+     * @param affectedRows The affected rows count of the successful chunks
+     * @param failures The failed chunks
+     */
+    public BatchExecutionException(
+            final String message,
+            final long affectedRows,
+            final @NotNull List<ChunkFailure> failures) {
+        super(message, firstCause(failures));
+        this.affectedRows = affectedRows;
+        this.failures = Collections.unmodifiableList(new ArrayList<>(failures));
+    }
+
+    /**
+     * Returns the affected rows count of the successful chunks.
+     * 
+     * @return The affected rows count of the successful chunks
+     */
+    public long getAffectedRows() {
+        return this.affectedRows;
+    }
+
+    /**
+     * Returns the failed chunks, in execution order.
+     * 
+     * @return The failed chunks
+     */
+    public @NotNull List<ChunkFailure> getFailures() {
+        return this.failures;
+    }
+
+    /**
+     * Returns the cause of the first failed chunk.
+     * 
+     * @param failures The failed chunks
+     * @return The cause of the first failed chunk
+     */
+    private static Throwable firstCause(
+            final @NotNull List<ChunkFailure> failures) {
+        Validate.notEmpty(failures);
+        Validate.noNullElements(failures);
+        return failures.get(0).getCause();
+    }
+
+    /**
+     * Failure of a chunk of a batched clause execution.
+     * 
+     * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+     * @version 1.0, 2022-10
+     * @since BatchExecutionException 1.0
+     */
+    public static class ChunkFailure
+    implements Serializable {
+
+        /** The serial version UID. */
+        private static final long serialVersionUID = 1L;
+
+        /** The index of the first row of the chunk. */
+        private final int offset;
+        /** The rows count of the chunk. */
+        private final int size;
+        /** The cause of the failure. */
+        private final @NotNull RuntimeException cause;
+
+        /**
+         * Creates a new instance.
+         * 
+         * @param offset The index of the first row of the chunk
+         * @param size The rows count of the chunk
+         * @param cause The cause of the failure
+         */
+        public ChunkFailure(
+                final int offset,
+                final int size,
+                final @NotNull RuntimeException cause) {
+            super();
+            this.offset = offset;
+            this.size = size;
+            this.cause = Validate.notNull(cause);
+        }
+
+        /**
+         * Returns the index of the first row of the chunk in the batch.
+         * 
+         * @return The index of the first row of the chunk
+         */
+        public int getOffset() {
+            return this.offset;
+        }
+
+        /**
+         * Returns the rows count of the chunk.
+         * 
+         * @return The rows count of the chunk
+         */
+        public int getSize() {
+            return this.size;
+        }
+
+        /**
+         * Returns the cause of the failure.
+         * 
+         * @return The cause of the failure
+         */
+        public @NotNull RuntimeException getCause() {
+            return this.cause;
+        }
+    }
+}
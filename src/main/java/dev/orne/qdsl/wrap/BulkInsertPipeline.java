@@ -0,0 +1,295 @@
+package dev.orne.qdsl.wrap;
+
+/*-
+ * #%L
+ * Orne Querydsl Utils
+ * %%
+ * Copyright (C) 2022 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+import org.apiguardian.api.API;
+
+import com.querydsl.core.types.EntityPath;
+
+/**
+ * Bulk insert of beans through wrapped insert clauses.
+ * <p>
+ * Beans are converted to the values to store with the configured binding
+ * and inserted in chunks, each chunk through a batch of a new wrapped
+ * insert clause. Only the chunk in execution and the chunk being built
+ * are held in memory, regardless of the number of beans.
+ * <p>
+ * If an executor is configured each chunk is executed in the executor
+ * while the next chunk is converted and translated in the calling thread.
+ * Otherwise chunks are built and executed sequentially in the calling
+ * thread. Chunks executed in the executor do not take part in resources
+ * bound to the calling thread, like its transaction.
+ * <p>
+ * Execution stops on the first chunk failure, propagating the failure.
+ * The rows of the chunks executed before the failure remain inserted.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2022-10
+ * @param <T> The bean type
+ * @since 0.1
+ * @see WrappedInsertClauseProvider#bulkInsert(EntityPath, Function)
+ * @see StoredValuesBinding
+ */
+@API(status=API.Status.EXPERIMENTAL, since="0.1")
+public class BulkInsertPipeline<T> {
+
+    /** The default beans count of the inserted chunks. */
+    public static final int DEFAULT_CHUNK_SIZE = 1000;
+
+    /** The insert clauses provider. */
+    private final @NotNull WrappedInsertClauseProvider provider;
+    /** The target entity path. */
+    private final @NotNull EntityPath<?> entity;
+    /** The beans to values to store binding. */
+    private final @NotNull Function<? super T, StoredValues> binding;
+    /** The beans count of the inserted chunks. */
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+    /** The executor to execute the chunks in. */
+    private Executor executor;
+
+    /**
+     * Creates a new instance.
+     * 
+     * @param provider The insert clauses provider
+     * @param entity The target entity path
+     * @param binding The beans to values to store binding
+     * @throws EntityPathNotSupportedException If the entity path is not
+     * supported by the provider
+     */
+    public BulkInsertPipeline(
+            final @NotNull WrappedInsertClauseProvider provider,
+            final @NotNull EntityPath<?> entity,
+            final @NotNull Function<? super T, StoredValues> binding) {
+        super();
+        this.provider = Validate.notNull(provider);
+        this.entity = Validate.notNull(entity);
+        this.binding = Validate.notNull(binding);
+        provider.validateSupported(entity);
+    }
+
+    /**
+     * Returns the insert clauses provider.
+     * 
+     * @return The insert clauses provider
+     */
+    public @NotNull WrappedInsertClauseProvider getProvider() {
+        return this.provider;
+    }
+
+    /**
+     * Returns the target entity path.
+     * 
+     * @return The target entity path
+     */
+    public @NotNull EntityPath<?> getEntity() {
+        return this.entity;
+    }
+
+    /**
+     * Returns the beans to values to store binding.
+     * 
+     * @return The beans to values to store binding
+     */
+    public @NotNull Function<? super T, StoredValues> getBinding() {
+        return this.binding;
+    }
+
+    /**
+     * Returns the beans count of the inserted chunks.
+     * 
+     * @return The beans count of the inserted chunks
+     */
+    public int getChunkSize() {
+        return this.chunkSize;
+    }
+
+    /**
+     * Sets the beans count of the inserted chunks.
+     * <p>
+     * Defaults to {@value #DEFAULT_CHUNK_SIZE}.
+     * 
+     * @param size The beans count of the inserted chunks
+     * @return This instance, for method chaining
+     */
+    public @NotNull BulkInsertPipeline<T> setChunkSize(
+            final int size) {
+        Validate.isTrue(size > 0, "Chunk size must be positive");
+        this.chunkSize = size;
+        return this;
+    }
+
+    /**
+     * Returns the executor to execute the chunks in, if any.
+     * 
+     * @return The executor to execute the chunks in
+     */
+    public Executor getExecutor() {
+        return this.executor;
+    }
+
+    /**
+     * Sets the executor to execute the chunks in. If {@code null} chunks
+     * are executed sequentially in the calling thread.
+     * <p>
+     * The insert clauses of the chunks are created in the calling thread
+     * but executed in the threads of the executor, so the provider clauses
+     * must not depend on resources bound to the calling thread. Chunks are
+     * not executed in the transaction of the calling thread, and clauses
+     * bound to a single connection or entity manager are used from other
+     * threads. Configure an executor only with providers whose clauses
+     * obtain their connections on execution, for example from a pooled
+     * data source, and when the chunks can be committed independently.
+     * 
+     * @param executor The executor to execute the chunks in
+     * @return This instance, for method chaining
+     */
+    public @NotNull BulkInsertPipeline<T> setExecutor(
+            final Executor executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * Inserts the specified beans.
+     * 
+     * @param beans The beans to insert
+     * @return The affected rows count
+     */
+    public long execute(
+            final @NotNull Iterable<? extends T> beans) {
+        Validate.notNull(beans);
+        return execute(beans.iterator());
+    }
+
+    /**
+     * Inserts the beans of the specified stream. The stream is consumed
+     * but not closed.
+     * 
+     * @param beans The beans to insert
+     * @return The affected rows count
+     */
+    public long execute(
+            final @NotNull Stream<? extends T> beans) {
+        Validate.notNull(beans);
+        return execute(beans.iterator());
+    }
+
+    /**
+     * Inserts the beans of the specified iterator.
+     * 
+     * @param beans The beans to insert
+     * @return The affected rows count
+     */
+    protected long execute(
+            final @NotNull Iterator<? extends T> beans) {
+        long result = 0;
+        CompletableFuture<Long> pending = null;
+        try {
+            while (beans.hasNext()) {
+                final ExtendedInsertClause<?> chunk = buildChunk(beans);
+                if (pending != null) {
+                    final CompletableFuture<Long> previous = pending;
+                    pending = null;
+                    result += await(previous);
+                }
+                pending = submit(chunk);
+            }
+            if (pending != null) {
+                final CompletableFuture<Long> previous = pending;
+                pending = null;
+                result += await(previous);
+            }
+        } finally {
+            if (pending != null) {
+                // Don't leave the chunk in execution running unobserved
+                pending.handle((value, error) -> null).join();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Builds the insert clause of the next chunk of beans, converting
+     * each bean to the values to store and adding them to the clause
+     * batch.
+     * 
+     * @param beans The beans to insert
+     * @return The insert clause of the chunk
+     */
+    protected @NotNull ExtendedInsertClause<?> buildChunk(
+            final @NotNull Iterator<? extends T> beans) {
+        final ExtendedInsertClause<?> clause = this.provider.insert(this.entity);
+        for (int i = 0; i < this.chunkSize && beans.hasNext(); i++) {
+            clause.set(this.binding.apply(beans.next()));
+            clause.addBatch();
+        }
+        return clause;
+    }
+
+    /**
+     * Executes the specified chunk insert clause, in the configured
+     * executor if any.
+     * 
+     * @param chunk The chunk insert clause
+     * @return The chunk execution
+     */
+    protected @NotNull CompletableFuture<Long> submit(
+            final @NotNull ExtendedInsertClause<?> chunk) {
+        if (this.executor == null) {
+            return CompletableFuture.completedFuture(chunk.execute());
+        }
+        return CompletableFuture.supplyAsync(chunk::execute, this.executor);
+    }
+
+    /**
+     * Waits for the specified chunk execution and returns its affected
+     * rows count.
+     * 
+     * @param execution The chunk execution
+     * @return The affected rows count
+     */
+    protected long await(
+            final @NotNull CompletableFuture<Long> execution) {
+        try {
+            return execution.join();
+        } catch (final CompletionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package dev.orne.qdsl.wrap;
+
+/*-
+ * #%L
+ * Orne Querydsl Utils
+ * %%
+ * Copyright (C) 2022 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+import org.apiguardian.api.API;
+
+/**
+ * Handle that allows cancelling the execution of wrapped clauses from
+ * another thread.
+ * <p>
+ * Clause executions register cancellation callbacks while they are running,
+ * such as cancelling the JDBC statement being executed. Cancelling the handle
+ * runs the registered callbacks and marks the handle as cancelled, so any
+ * further execution of the clauses that use it fails with a
+ * {@code QueryCancelledException}.
+ * <p>
+ * Instances are thread safe.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2022-10
+ * @since 0.1
+ * @see QueryCancelledException
+ */
+@API(status=API.Status.EXPERIMENTAL, since="0.1")
+public class CancelHandle {
+
+    /** If this handle has been cancelled. */
+    private volatile boolean cancelled;
+    /** The registered cancellation callbacks. */
+    private final @NotNull List<Runnable> callbacks = new CopyOnWriteArrayList<>();
+
+    /**
+     * Creates a new instance.
+     */
+    public CancelHandle() {
+        super();
+    }
+
+    /**
+     * Returns {@code true} if this handle has been cancelled.
+     * 
+     * @return If this handle has been cancelled
+     */
+    public boolean isCancelled() {
+        return this.cancelled;
+    }
+
+    /**
+     * Cancels the executions of the clauses that use this handle.
+     * Registered cancellation callbacks are run in the calling thread.
+     */
+    public void cancel() {
+        this.cancelled = true;
+        for (final Runnable callback : this.callbacks) {
+            callback.run();
+        }
+    }
+
+    /**
+     * Registers a cancellation callback for a running execution.
+     * If this handle has already been cancelled the callback is run
+     * immediately in the calling thread.
+     * 
+     * @param callback The cancellation callback
+     * @see #unregister(Runnable)
+     */
+    public void register(
+            final @NotNull Runnable callback) {
+        Validate.notNull(callback);
+        this.callbacks.add(callback);
+        if (this.cancelled) {
+            callback.run();
+        }
+    }
+
+    /**
+     * Unregisters a cancellation callback once the execution ends.
+     * 
+     * @param callback The cancellation callback
+     */
+    public void unregister(
+            final Runnable callback) {
+        this.callbacks.remove(callback);
+    }
+
+    /**
+     * Throws a {@code QueryCancelledException} if this handle has been
+     * cancelled.
+     * 
+     * @throws QueryCancelledException If this handle has been cancelled
+     */
+    public void checkCancelled() {
+        if (this.cancelled) {
+            throw new QueryCancelledException("Clause execution cancelled");
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package dev.orne.qdsl.wrap;
+
+/*-
+ * #%L
+ * Orne Querydsl Utils
+ * %%
+ * Copyright (C) 2022 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.util.concurrent.TimeUnit;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+import org.apiguardian.api.API;
+
+import com.querydsl.core.types.Path;
+
+/**
+ * Configuration of the chunked execution of delete and update clauses.
+ * <p>
+ * Chunked executions apply the clause filters in repeated bounded
+ * statements, so each statement holds its locks and undo records for a
+ * limited number of rows. Chunks are bounded either by a {@code LIMIT}
+ * modifier, if supported by the database, or by ranges of a key path.
+ * <p>
+ * In limit mode each chunk affects up to the configured number of rows
+ * and execution ends when a chunk affects fewer rows. Limit mode requires
+ * the affected rows to stop matching the clause filters, as deleted rows
+ * do. Updates that keep rows matching the filters must use key mode.
+ * <p>
+ * In key mode chunk boundaries are selected in ascending key order, each
+ * chunk affecting the rows with key in the next range of the configured
+ * number of matching rows. Rows with {@code null} key are affected in
+ * a last chunk.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2022-10
+ * @since 0.1
+ * @see ExtendedDeleteClause#executeChunked(ChunkedExecution)
+ * @see ExtendedUpdateClause#executeChunked(ChunkedExecution)
+ */
+@API(status=API.Status.EXPERIMENTAL, since="0.1")
+public class ChunkedExecution {
+
+    /** The rows count of each chunk. */
+    private final int chunkSize;
+    /** The key path of the chunk ranges. */
+    private Path<?> key;
+    /** The pause between chunks, in milliseconds. */
+    private long pause;
+    /** The progress listener. */
+    private Listener listener;
+
+    /**
+     * Creates a new instance in limit mode.
+     * 
+     * @param chunkSize The rows count of each chunk
+     * @throws IllegalArgumentException If the chunk size is not positive
+     */
+    public ChunkedExecution(
+            final int chunkSize) {
+        super();
+        Validate.isTrue(chunkSize > 0, "Chunk size must be positive");
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Returns the rows count of each chunk.
+     * 
+     * @return The rows count of each chunk
+     */
+    public int getChunkSize() {
+        return this.chunkSize;
+    }
+
+    /**
+     * Returns the key path of the chunk ranges.
+     * 
+     * @return The key path, or {@code null} in limit mode
+     */
+    public Path<?> getKey() {
+        return this.key;
+    }
+
+    /**
+     * Sets the key path of the chunk ranges. If {@code null} chunks are
+     * bounded with a {@code LIMIT} modifier.
+     * 
+     * @param key The key path
+     * @return This instance, for method chaining
+     * @throws IllegalArgumentException If the key type is not comparable
+     */
+    public @NotNull ChunkedExecution setKey(
+            final Path<? extends Comparable<?>> key) {
+        Validate.isTrue(key == null || Comparable.class.isAssignableFrom(key.getType()),
+                "Chunk key must be comparable: %s", key);
+        this.key = key;
+        return this;
+    }
+
+    /**
+     * Returns the pause between chunks, in milliseconds.
+     * 
+     * @return The pause between chunks
+     */
+    public long getPause() {
+        return this.pause;
+    }
+
+    /**
+     * Sets the pause between chunks. Zero means no pause.
+     * 
+     * @param pause The pause between chunks
+     * @param unit The pause unit
+     * @return This instance, for method chaining
+     * @throws IllegalArgumentException If the pause is negative
+     */
+    public @NotNull ChunkedExecution setPause(
+            final long pause,
+            final @NotNull TimeUnit unit) {
+        Validate.isTrue(pause >= 0, "Pause cannot be negative");
+        Validate.notNull(unit);
+        this.pause = unit.toMillis(pause);
+        return this;
+    }
+
+    /**
+     * Returns the progress listener.
+     * 
+     * @return The progress listener
+     */
+    public Listener getListener() {
+        return this.listener;
+    }
+
+    /**
+     * Sets the progress listener, notified after each chunk execution.
+     * 
+     * @param listener The progress listener
+     * @return This instance, for method chaining
+     */
+    public @NotNull ChunkedExecution setListener(
+            final Listener listener) {
+        this.listener = listener;
+        return this;
+    }
+
+    /**
+     * Listener of the progress of chunked executions.
+     * 
+     * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+     * @version 1.0, 2022-10
+     * @since 0.1
+     */
+    @FunctionalInterface
+    public interface Listener {
+
+        /**
+         * Called after each chunk execution, in the executing thread.
+         * 
+         * @param chunk The zero based index of the executed chunk
+         * @param affectedRows The affected rows count of the chunk
+         * @param totalAffectedRows The affected rows count of all the
+         * executed chunks
+         */
+        void chunkExecuted(
+                int chunk,
+                long affectedRows,
+                long totalAffectedRows);
+    }
+}
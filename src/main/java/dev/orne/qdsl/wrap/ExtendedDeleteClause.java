@@ -0,0 +1,58 @@
+package dev.orne.qdsl.wrap;
+
+/*-
+ * #%L
+ * Orne Querydsl Utils
+ * %%
+ * Copyright (C) 2022 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import javax.validation.constraints.NotNull;
+
+import org.apiguardian.api.API;
+
+import com.querydsl.core.dml.DeleteClause;
+
+/**
+ * Extension of {@code DeleteClause} that provides additional methods
+ * to execute the clause in bounded chunks.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2022-10
+ * @param <C> The clause type
+ * @since 0.1
+ */
+@API(status=API.Status.EXPERIMENTAL, since="0.1")
+public interface ExtendedDeleteClause<C extends ExtendedDeleteClause<C>>
+extends DeleteClause<C> {
+
+    /**
+     * Executes the clause in repeated bounded chunks, as configured by
+     * the specified chunked execution.
+     * 
+     * @param execution The chunked execution configuration
+     * @return The affected rows count of all the chunks
+     * @throws UnsupportedOperationException If the clause does not support
+     * chunked executions
+     * @throws QueryCancelledException If the execution is cancelled
+     * between chunks
+     * @see ChunkedExecution
+     */
+    long executeChunked(
+            @NotNull ChunkedExecution execution);
+}
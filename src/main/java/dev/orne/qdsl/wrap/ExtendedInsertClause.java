@@ -22,9 +22,14 @@ package dev.orne.qdsl.wrap;
  * #L%
  */
 
+import java.util.List;
+
+import javax.validation.constraints.NotNull;
+
 import org.apiguardian.api.API;
 
 import com.querydsl.core.dml.InsertClause;
+import com.querydsl.core.types.Path;
 
 /**
  * Extension of {@code InsertClause} that provides additional methods to bind
@@ -38,5 +43,55 @@ import com.querydsl.core.dml.InsertClause;
 @API(status=API.Status.EXPERIMENTAL, since="0.1")
 public interface ExtendedInsertClause<C extends ExtendedInsertClause<C>>
 extends InsertClause<C>, ExtendedStoreClause<C> {
-    // No extra methods
+
+    /**
+     * Adds the values set since the last call to the batch of rows to
+     * insert and starts a new row.
+     * <p>
+     * Once a row has been added to the batch {@code execute()} inserts
+     * all the rows in the batch, including the values set after the last
+     * call as a last row, and clears the batch.
+     * 
+     * @return This instance, for method chaining
+     * @throws IllegalStateException If no value has been set since the
+     * last call
+     * @see BatchExecutionException
+     */
+    @NotNull C addBatch();
+
+    /**
+     * Executes the clause and returns the generated key of the specified
+     * path of the first inserted row.
+     * <p>
+     * The key path is translated to the column of the delegated clause
+     * and the retrieved key is converted back to the key path type.
+     * 
+     * @param <K> The key type
+     * @param path The key path
+     * @return The generated key, or {@code null} if no key is generated
+     * @throws UnsupportedOperationException If the delegated clause
+     * does not support the retrieval of generated keys
+     * @see #executeWithKeys(Path)
+     */
+    <K> K executeWithKey(
+            @NotNull Path<K> path);
+
+    /**
+     * Executes the clause and returns the generated keys of the specified
+     * path of the inserted rows.
+     * <p>
+     * The key path is translated to the column of the delegated clause
+     * and the retrieved keys are converted back to the key path type.
+     * If rows have been added to the batch the keys of all the rows are
+     * returned, if supported by the JDBC driver.
+     * 
+     * @param <K> The key type
+     * @param path The key path
+     * @return The generated keys
+     * @throws UnsupportedOperationException If the delegated clause
+     * does not support the retrieval of generated keys
+     * @throws BatchExecutionException If any batch chunk fails
+     */
+    <K> @NotNull List<K> executeWithKeys(
+            @NotNull Path<K> path);
 }
@@ -0,0 +1,68 @@
+package dev.orne.qdsl.wrap;
+
+/*-
+ * #%L
+ * Orne Querydsl Utils
+ * %%
+ * Copyright (C) 2022 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import javax.validation.constraints.NotNull;
+
+import org.apiguardian.api.API;
+
+import com.querydsl.core.types.Path;
+
+/**
+ * Extension of {@code StoreClause} for clauses that insert rows or update
+ * the existing rows identified by a set of key columns in a single
+ * operation.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2022-10
+ * @param <C> The clause type
+ * @since 0.1
+ */
+@API(status=API.Status.EXPERIMENTAL, since="0.1")
+public interface ExtendedMergeClause<C extends ExtendedMergeClause<C>>
+extends ExtendedStoreClause<C> {
+
+    /**
+     * Sets the key columns that identify the existing rows to update.
+     * 
+     * @param paths The key columns
+     * @return This instance, for method chaining
+     */
+    @NotNull C keys(
+            @NotNull Path<?>... paths);
+
+    /**
+     * Adds the values set since the last call to the batch of rows to
+     * merge and starts a new row.
+     * <p>
+     * Once a row has been added to the batch {@code execute()} merges
+     * all the rows in the batch, including the values set after the last
+     * call as a last row, and clears the batch.
+     * 
+     * @return This instance, for method chaining
+     * @throws IllegalStateException If no value has been set since the
+     * last call
+     * @see BatchExecutionException
+     */
+    @NotNull C addBatch();
+}
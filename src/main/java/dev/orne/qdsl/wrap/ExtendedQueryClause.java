@@ -22,11 +22,17 @@ package dev.orne.qdsl.wrap;
  * #L%
  */
 
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
 import javax.validation.constraints.NotNull;
 
 import org.apiguardian.api.API;
 
 import com.querydsl.core.FetchableQuery;
+import com.querydsl.core.NonUniqueResultException;
 import com.querydsl.core.Tuple;
 import com.querydsl.core.support.ExtendedSubQuery;
 import com.querydsl.core.types.Expression;
@@ -59,10 +65,130 @@ extends FetchableQuery<T, C> {
     @NotNull ExtendedQueryClause<Tuple, ?> select(
             @NotNull Expression<?>... exprs);
 
+    /**
+     * Sets the execution timeout of this clause. Zero means no timeout.
+     * 
+     * @param timeout The execution timeout
+     * @param unit The timeout unit
+     * @return This instance, for method chaining
+     */
+    @NotNull C timeout(
+            long timeout,
+            @NotNull TimeUnit unit);
+
+    /**
+     * Sets the handle that allows cancelling the executions of this
+     * clause from another thread.
+     * 
+     * @param handle The cancel handle
+     * @return This instance, for method chaining
+     * @see CancelHandle
+     */
+    @NotNull C cancelHandle(
+            CancelHandle handle);
+
     /**
      * Returns a sub query expression usable in other clauses.
      * 
      * @return The sub query expression
      */
     @NotNull ExtendedSubQuery<T> asSubQuery();
+
+    /**
+     * Returns a publisher of the query results that retrieves them
+     * from the query results iterator only as demanded by the subscriber.
+     * <p>
+     * Results are emitted in the thread that requests them. The results
+     * iterator is closed when all results have been emitted or the
+     * subscription is cancelled.
+     * 
+     * @return The query results publisher
+     * @see #iterate()
+     */
+    @NotNull ResultPublisher<T> publish();
+
+    /**
+     * Returns a publisher of the query results that retrieves them
+     * from the query results iterator only as demanded by the subscriber.
+     * <p>
+     * Results are emitted in the specified executor. If {@code executor}
+     * is {@code null} results are emitted in the thread that requests them.
+     * The results iterator is closed when all results have been emitted or
+     * the subscription is cancelled.
+     * 
+     * @param executor The executor to emit the results in
+     * @return The query results publisher
+     * @see #iterate()
+     */
+    @NotNull ResultPublisher<T> publish(
+            Executor executor);
+
+    /**
+     * Checks if this query has any result.
+     * <p>
+     * The query is executed selecting a constant value with no ordering
+     * and a limit of one result, so the query projection is neither
+     * built nor transferred.
+     * 
+     * @return If this query has any result
+     */
+    boolean exists();
+
+    /**
+     * Fetches the results of this query identified by the specified
+     * references.
+     * <p>
+     * The query projection must be a {@code ReferenceProjection}. The
+     * references are fetched in chunks, restricting the query with an
+     * {@code IN} predicate over the reference expression of the
+     * projection. Chunks are fetched sequentially in the calling thread.
+     * <p>
+     * The returned map contains an entry for each reference with a
+     * matching result, keyed by the reference value retrieved from
+     * the query. Composed references are {@code Tuple} values.
+     * 
+     * @param <I> The reference type
+     * @param references The references of the results to fetch
+     * @return The results keyed by reference
+     * @throws IllegalStateException If the query projection is not a
+     * {@code ReferenceProjection}
+     * @throws NonUniqueResultException If more than one result is
+     * found for a reference
+     * @see ReferenceProjection
+     */
+    <I> @NotNull Map<I, T> fetchByReferences(
+            @NotNull Collection<? extends I> references);
+
+    /**
+     * Fetches the results of this query identified by the specified
+     * references.
+     * <p>
+     * The query projection must be a {@code ReferenceProjection}. The
+     * references are fetched in chunks, restricting the query with an
+     * {@code IN} predicate over the reference expression of the
+     * projection. Chunks are fetched concurrently in the specified
+     * executor if the underlying query supports concurrent execution of
+     * independent copies. If {@code executor} is {@code null}, or the
+     * underlying query does not support it, chunks are fetched
+     * sequentially in the calling thread.
+     * <p>
+     * The returned map contains an entry for each reference with a
+     * matching result, keyed by the reference value retrieved from
+     * the query, converted back to the query representation if the
+     * reference expression is translated. Composed references are
+     * {@code Tuple} values.
+     * 
+     * @param <I> The reference type
+     * @param references The references of the results to fetch
+     * @param executor The executor to fetch the chunks in
+     * @return The results keyed by reference
+     * @throws IllegalStateException If the query projection is not a
+     * {@code ReferenceProjection}
+     * @throws NonUniqueResultException If more than one result is
+     * found for a reference
+     * @see ReferenceProjection
+     */
+    <I> @NotNull Map<I, T> fetchByReferences(
+            @NotNull Collection<? extends I> references,
+            Executor executor);
 }
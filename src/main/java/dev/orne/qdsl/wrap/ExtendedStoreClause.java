@@ -22,6 +22,8 @@ package dev.orne.qdsl.wrap;
  * #L%
  */
 
+import java.util.concurrent.TimeUnit;
+
 import javax.validation.constraints.NotNull;
 
 import org.apiguardian.api.API;
@@ -58,4 +60,26 @@ extends StoreClause<C> {
      */
     @NotNull C set(
             @NotNull StoredValues assignments);
+
+    /**
+     * Sets the execution timeout of this clause. Zero means no timeout.
+     * 
+     * @param timeout The execution timeout
+     * @param unit The timeout unit
+     * @return This instance, for method chaining
+     */
+    @NotNull C timeout(
+            long timeout,
+            @NotNull TimeUnit unit);
+
+    /**
+     * Sets the handle that allows cancelling the executions of this
+     * clause from another thread.
+     * 
+     * @param handle The cancel handle
+     * @return This instance, for method chaining
+     * @see CancelHandle
+     */
+    @NotNull C cancelHandle(
+            CancelHandle handle);
 }
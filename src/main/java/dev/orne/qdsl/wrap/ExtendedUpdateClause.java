@@ -22,6 +22,8 @@ package dev.orne.qdsl.wrap;
  * #L%
  */
 
+import javax.validation.constraints.NotNull;
+
 import org.apiguardian.api.API;
 
 import com.querydsl.core.dml.UpdateClause;
@@ -38,5 +40,36 @@ import com.querydsl.core.dml.UpdateClause;
 @API(status=API.Status.EXPERIMENTAL, since="0.1")
 public interface ExtendedUpdateClause<C extends ExtendedUpdateClause<C>>
 extends UpdateClause<C>, ExtendedStoreClause<C> {
-    // No extra methods
+
+    /**
+     * Adds the values set and the filters added since the last call to
+     * the batch of rows to update and starts a new row.
+     * <p>
+     * Once a row has been added to the batch {@code execute()} updates
+     * all the rows in the batch, including the values set after the last
+     * call as a last row, and clears the batch.
+     * 
+     * @return This instance, for method chaining
+     * @throws IllegalStateException If no value has been set since the
+     * last call
+     * @throws UnsupportedOperationException If the clause does not support
+     * batch updates
+     */
+    @NotNull C addBatch();
+
+    /**
+     * Executes the clause in repeated bounded chunks, as configured by
+     * the specified chunked execution.
+     * 
+     * @param execution The chunked execution configuration
+     * @return The affected rows count of all the chunks
+     * @throws UnsupportedOperationException If the clause does not support
+     * chunked executions
+     * @throws IllegalStateException If rows have been added to the batch
+     * @throws QueryCancelledException If the execution is cancelled
+     * between chunks
+     * @see ChunkedExecution
+     */
+    long executeChunked(
+            @NotNull ChunkedExecution execution);
 }
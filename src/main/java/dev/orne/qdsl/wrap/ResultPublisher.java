@@ -0,0 +1,138 @@
+package dev.orne.qdsl.wrap;
+
+/*-
+ * #%L
+ * Orne Querydsl Utils
+ * %%
+ * Copyright (C) 2022 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import javax.validation.constraints.NotNull;
+
+import org.apiguardian.api.API;
+
+/**
+ * Publisher of query results with subscriber driven demand.
+ * <p>
+ * Mirrors the contract of {@code java.util.concurrent.Flow.Publisher}
+ * (Reactive Streams) while keeping the Java 8 baseline of the library.
+ * Adapting instances to {@code Flow} or Reactive Streams types only
+ * requires delegating each method to the equivalent one.
+ * <p>
+ * Results are retrieved from the underlying query only when requested
+ * through {@link Subscription#request(long)}, so slow subscribers never
+ * cause the full result set to be buffered in memory.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2022-10
+ * @param <T> The published results type
+ * @since 0.1
+ */
+@API(status=API.Status.EXPERIMENTAL, since="0.1")
+@FunctionalInterface
+public interface ResultPublisher<T> {
+
+    /**
+     * Adds the specified subscriber to this publisher.
+     * <p>
+     * Subscriber is notified of the subscription through
+     * {@link Subscriber#onSubscribe(Subscription)} before any other
+     * notification. If the subscription cannot be established the
+     * subscriber is notified through {@link Subscriber#onError(Throwable)}.
+     * 
+     * @param subscriber The subscriber
+     */
+    void subscribe(
+            @NotNull Subscriber<? super T> subscriber);
+
+    /**
+     * Receiver of published query results.
+     * 
+     * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+     * @version 1.0, 2022-10
+     * @param <T> The received results type
+     * @since 0.1
+     */
+    @API(status=API.Status.EXPERIMENTAL, since="0.1")
+    interface Subscriber<T> {
+
+        /**
+         * Called before any other notification for a new subscription.
+         * No results are received until
+         * {@link Subscription#request(long)} is called.
+         * 
+         * @param subscription The new subscription
+         */
+        void onSubscribe(
+                @NotNull Subscription subscription);
+
+        /**
+         * Called with the next query result of the subscription.
+         * 
+         * @param item The query result
+         */
+        void onNext(
+                T item);
+
+        /**
+         * Called when the subscription is terminated by an error.
+         * No further notifications are received.
+         * 
+         * @param error The error
+         */
+        void onError(
+                @NotNull Throwable error);
+
+        /**
+         * Called when all the query results have been received.
+         * No further notifications are received.
+         */
+        void onComplete();
+    }
+
+    /**
+     * Link between a {@code ResultPublisher} and a {@code Subscriber}.
+     * 
+     * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+     * @version 1.0, 2022-10
+     * @since 0.1
+     */
+    @API(status=API.Status.EXPERIMENTAL, since="0.1")
+    interface Subscription {
+
+        /**
+         * Adds the specified number of results to the unfulfilled demand
+         * of the subscription. Values of {@code Long.MAX_VALUE} or higher
+         * accumulated demands are considered unbounded.
+         * <p>
+         * Non positive values terminate the subscription with an
+         * {@code IllegalArgumentException}.
+         * 
+         * @param n The number of results to add to the demand
+         */
+        void request(
+                long n);
+
+        /**
+         * Cancels the subscription, releasing the underlying query
+         * resources. Results may still be received while the cancellation
+         * takes effect.
+         */
+        void cancel();
+    }
+}
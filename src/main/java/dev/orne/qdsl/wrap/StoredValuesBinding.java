@@ -0,0 +1,343 @@
+package dev.orne.qdsl.wrap;
+
+/*-
+ * #%L
+ * Orne Querydsl Utils
+ * %%
+ * Copyright (C) 2022 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.reflect.FieldUtils;
+import org.apiguardian.api.API;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Path;
+
+import dev.orne.qdsl.QBeanBuilder;
+
+/**
+ * Binding of bean properties to paths that converts beans to the
+ * {@code StoredValues} to store them.
+ * <p>
+ * The reverse of a {@code QBean} projection: each bound property value
+ * is read from the bean and assigned to the bound path. Property
+ * accessors are resolved on first conversion and reused for later
+ * conversions.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2022-10
+ * @param <T> The bean type
+ * @since 0.1
+ * @see QBeanBuilder
+ */
+@API(status=API.Status.EXPERIMENTAL, since="0.1")
+public class StoredValuesBinding<T>
+implements Function<T, StoredValues> {
+
+    /** The bean type. */
+    private final @NotNull Class<T> type;
+    /** The paths bound to each property. */
+    private final @NotNull LinkedHashMap<String, Path<?>> bindings =
+            new LinkedHashMap<>();
+    /** If direct field access must be used. */
+    private boolean fieldAccess;
+    /** The resolved property accessors. */
+    private volatile List<PropertyAccessor> accessors;
+
+    /**
+     * Creates a new instance.
+     * 
+     * @param type The bean type
+     */
+    public StoredValuesBinding(
+            final @NotNull Class<T> type) {
+        super();
+        this.type = Validate.notNull(type, "The type must not be null");
+    }
+
+    /**
+     * Utility factory method for clearer syntax.
+     * 
+     * @param <T> The bean type
+     * @param type The bean type
+     * @return The created instance
+     */
+    public static <T> @NotNull StoredValuesBinding<T> of(
+            final @NotNull Class<T> type) {
+        return new StoredValuesBinding<>(type);
+    }
+
+    /**
+     * Creates a new instance with the reverse bindings of the specified
+     * {@code QBean} builder.
+     * 
+     * @param <T> The bean type
+     * @param builder The {@code QBean} builder
+     * @return The created instance
+     * @throws IllegalArgumentException If any property is bound to an
+     * expression that is not a path
+     */
+    public static <T> @NotNull StoredValuesBinding<T> from(
+            final @NotNull QBeanBuilder<T> builder) {
+        Validate.notNull(builder);
+        final StoredValuesBinding<T> result = new StoredValuesBinding<>(builder.getType())
+                .withFieldAccess(builder.isFieldAccess());
+        for (final Map.Entry<String, Expression<?>> entry : builder.getBindings().entrySet()) {
+            final Expression<?> expr = entry.getValue();
+            Validate.isTrue(expr instanceof Path,
+                    "Property %s is bound to an expression that is not a path: %s",
+                    entry.getKey(),
+                    expr);
+            result.bind(entry.getKey(), (Path<?>) expr);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the bean type.
+     * 
+     * @return The bean type
+     */
+    public @NotNull Class<T> getType() {
+        return this.type;
+    }
+
+    /**
+     * Returns the paths bound to each property.
+     * 
+     * @return The paths bound to each property
+     */
+    public @NotNull Map<String, Path<?>> getBindings() {
+        return Collections.unmodifiableMap(this.bindings);
+    }
+
+    /**
+     * Returns {@code true} for field access and {@code false}, for property
+     * access.
+     * 
+     * @return If direct field access must be used
+     */
+    public boolean isFieldAccess() {
+        return this.fieldAccess;
+    }
+
+    /**
+     * Sets if direct field access must be used.
+     * 
+     * @param fieldAccess {@code true} for field access and
+     * {@code false} for property access
+     * @return This instance for method chaining
+     */
+    public @NotNull StoredValuesBinding<T> withFieldAccess(
+            final boolean fieldAccess) {
+        this.fieldAccess = fieldAccess;
+        this.accessors = null;
+        return this;
+    }
+
+    /**
+     * Binds the specified property with the specified path.
+     * 
+     * @param property The property to bind
+     * @param path The bound path
+     * @return This instance for method chaining
+     */
+    public @NotNull StoredValuesBinding<T> bind(
+            final @NotNull String property,
+            final @NotNull Path<?> path) {
+        this.bindings.put(
+                Validate.notNull(property, "The property must not be null"),
+                Validate.notNull(path, "The path must not be null"));
+        this.accessors = null;
+        return this;
+    }
+
+    /**
+     * Converts the specified bean to the values to store, assigning the
+     * value of each bound property to its bound path.
+     * 
+     * @param bean The bean to convert
+     * @return The values to store
+     * @throws IllegalArgumentException If a bound property cannot be read
+     * or its value is not of the type of the bound path
+     */
+    @Override
+    public @NotNull StoredValues apply(
+            final @NotNull T bean) {
+        Validate.notNull(bean);
+        List<PropertyAccessor> resolved = this.accessors;
+        if (resolved == null) {
+            resolved = resolveAccessors();
+            this.accessors = resolved;
+        }
+        final StoredValues result = new StoredValues(resolved.size() * 2);
+        for (final PropertyAccessor accessor : resolved) {
+            accessor.read(bean, result);
+        }
+        return result;
+    }
+
+    /**
+     * Resolves the accessors of the bound properties.
+     * 
+     * @return The accessors of the bound properties
+     * @throws IllegalArgumentException If a bound property has no accessor
+     */
+    protected @NotNull List<PropertyAccessor> resolveAccessors() {
+        final List<PropertyAccessor> result = new ArrayList<>(this.bindings.size());
+        final Map<String, Method> getters = this.fieldAccess ? null : findGetters();
+        for (final Map.Entry<String, Path<?>> entry : this.bindings.entrySet()) {
+            final String property = entry.getKey();
+            if (this.fieldAccess) {
+                final Field field = FieldUtils.getField(this.type, property, true);
+                Validate.isTrue(field != null, "No field %s found in %s", property, this.type);
+                result.add(new PropertyAccessor(property, entry.getValue(), null, field));
+            } else {
+                final Method getter = getters.get(property);
+                Validate.isTrue(getter != null, "No readable property %s found in %s", property, this.type);
+                result.add(new PropertyAccessor(property, entry.getValue(), getter, null));
+            }
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Finds the getters of the properties of the bean type.
+     * 
+     * @return The getters of the properties, by property name
+     */
+    protected @NotNull Map<String, Method> findGetters() {
+        final PropertyDescriptor[] descriptors;
+        try {
+            descriptors = Introspector.getBeanInfo(this.type).getPropertyDescriptors();
+        } catch (final IntrospectionException e) {
+            throw new IllegalArgumentException(String.format(
+                    "Cannot introspect bean type %s", this.type), e);
+        }
+        final Map<String, Method> result = new LinkedHashMap<>();
+        for (final PropertyDescriptor descriptor : descriptors) {
+            if (descriptor.getReadMethod() != null) {
+                result.put(descriptor.getName(), descriptor.getReadMethod());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Accessor of a bound property.
+     * 
+     * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+     * @version 1.0, 2022-10
+     * @since StoredValuesBinding 1.0
+     */
+    protected static class PropertyAccessor {
+
+        /** The property name. */
+        private final @NotNull String property;
+        /** The bound path. */
+        private final @NotNull Path<?> path;
+        /** The property getter, for property access. */
+        private final Method getter;
+        /** The property field, for field access. */
+        private final Field field;
+
+        /**
+         * Creates a new instance.
+         * 
+         * @param property The property name
+         * @param path The bound path
+         * @param getter The property getter, for property access
+         * @param field The property field, for field access
+         */
+        protected PropertyAccessor(
+                final @NotNull String property,
+                final @NotNull Path<?> path,
+                final Method getter,
+                final Field field) {
+            super();
+            this.property = Validate.notNull(property);
+            this.path = Validate.notNull(path);
+            this.getter = getter;
+            this.field = field;
+        }
+
+        /**
+         * Reads the property value of the specified bean and assigns it
+         * to the bound path in the specified values.
+         * 
+         * @param bean The bean
+         * @param values The values to store
+         * @throws IllegalArgumentException If the property cannot be read
+         * or its value is not of the type of the bound path
+         */
+        public void read(
+                final @NotNull Object bean,
+                final @NotNull StoredValues values) {
+            final Object value;
+            try {
+                if (this.getter == null) {
+                    value = this.field.get(bean);
+                } else {
+                    value = this.getter.invoke(bean);
+                }
+            } catch (final IllegalAccessException | InvocationTargetException e) {
+                throw new IllegalArgumentException(String.format(
+                        "Cannot read property %s of bean %s", this.property, bean), e);
+            }
+            assign(this.path, value, values);
+        }
+
+        /**
+         * Assigns the specified value to the specified path.
+         * 
+         * @param <V> The path type
+         * @param path The path
+         * @param value The value
+         * @param values The values to store
+         * @throws IllegalArgumentException If the value is not of the type
+         * of the path
+         */
+        private static <V> void assign(
+                final @NotNull Path<V> path,
+                final Object value,
+                final @NotNull StoredValues values) {
+            final Class<? extends V> pathType = path.getType();
+            Validate.isTrue(value == null || pathType.isInstance(value),
+                    "Value of type %s cannot be assigned to path %s of type %s",
+                    value == null ? null : value.getClass(),
+                    path,
+                    pathType);
+            values.add(path, pathType.cast(value));
+        }
+    }
+}
@@ -0,0 +1,391 @@
+package dev.orne.qdsl.wrap;
+
+/*-
+ * #%L
+ * Orne Querydsl Utils
+ * %%
+ * Copyright (C) 2022 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+import org.apiguardian.api.API;
+
+import com.querydsl.core.types.Constant;
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Predicate;
+
+/**
+ * Write-behind buffer of updates through wrapped update clauses that
+ * coalesces successive updates of the same rows.
+ * <p>
+ * Pending updates are keyed by target entity path and reference
+ * predicate, the filter that identifies the updated rows. Successive
+ * updates with the same key are merged in a single pending update, the
+ * last value set for each path replacing the previous ones. References
+ * are compared by expression equality, so the updates of a row must use
+ * the same reference predicate to be coalesced.
+ * <p>
+ * Only updates that set constant or {@code null} values are coalesced.
+ * Updates that set other expressions, like relative updates of counters
+ * ({@code counter = counter + 1}), depend on the current values of the
+ * row, so the pending update of the same row, if any, is executed before
+ * they are added to the buffer.
+ * <p>
+ * Pending updates are flushed when the count of pending updates reaches
+ * the configured maximum or the oldest pending update exceeds the
+ * configured maximum delay. Thresholds are checked only when updates are
+ * added or {@code flushIfDue()} is called, and flushes are executed in
+ * the calling thread, so they join the transaction of the caller. No
+ * background flush is ever executed: pending updates must be flushed
+ * explicitly before the transaction commits, or discarded if it rolls
+ * back.
+ * <p>
+ * Pending updates of each entity path are executed as a batch of a new
+ * wrapped update clause. If the clause does not support batch updates
+ * each pending update is executed with its own clause.
+ * <p>
+ * Queries don't observe pending updates. Instances are not thread safe
+ * and are intended to be used by a single unit of work.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2022-10
+ * @since 0.1
+ * @see WrappedUpdateClauseProvider#coalescingUpdates()
+ */
+@API(status=API.Status.EXPERIMENTAL, since="0.1")
+public class UpdateCoalescingBuffer {
+
+    /** The default maximum count of pending updates. */
+    public static final int DEFAULT_MAX_PENDING = 1000;
+
+    /** The update clauses provider. */
+    private final @NotNull WrappedUpdateClauseProvider provider;
+    /** The pending updates, by entity path and reference predicate. */
+    private final @NotNull Map<EntityPath<?>, Map<Predicate, StoredValues>> pending =
+            new LinkedHashMap<>();
+    /** The count of pending updates. */
+    private int pendingCount;
+    /** The time of the oldest pending update, in nanoseconds. */
+    private long oldestPending;
+    /** The maximum count of pending updates. */
+    private int maxPending = DEFAULT_MAX_PENDING;
+    /** The maximum delay of pending updates, in nanoseconds. */
+    private long maxDelay;
+
+    /**
+     * Creates a new instance.
+     * 
+     * @param provider The update clauses provider
+     */
+    public UpdateCoalescingBuffer(
+            final @NotNull WrappedUpdateClauseProvider provider) {
+        super();
+        this.provider = Validate.notNull(provider);
+    }
+
+    /**
+     * Returns the update clauses provider.
+     * 
+     * @return The update clauses provider
+     */
+    public @NotNull WrappedUpdateClauseProvider getProvider() {
+        return this.provider;
+    }
+
+    /**
+     * Returns the maximum count of pending updates.
+     * 
+     * @return The maximum count of pending updates
+     */
+    public int getMaxPending() {
+        return this.maxPending;
+    }
+
+    /**
+     * Sets the maximum count of pending updates. Pending updates are
+     * flushed when an added update reaches this count.
+     * <p>
+     * Defaults to {@value #DEFAULT_MAX_PENDING}.
+     * 
+     * @param maxPending The maximum count of pending updates
+     * @return This instance, for method chaining
+     * @throws IllegalArgumentException If the count is not positive
+     */
+    public @NotNull UpdateCoalescingBuffer setMaxPending(
+            final int maxPending) {
+        Validate.isTrue(maxPending > 0, "Maximum pending updates must be positive");
+        this.maxPending = maxPending;
+        return this;
+    }
+
+    /**
+     * Returns the maximum delay of pending updates, in milliseconds.
+     * 
+     * @return The maximum delay of pending updates
+     */
+    public long getMaxDelay() {
+        return TimeUnit.NANOSECONDS.toMillis(this.maxDelay);
+    }
+
+    /**
+     * Sets the maximum delay of pending updates. Pending updates are
+     * flushed when an update is added, or {@code flushIfDue()} is called,
+     * after the oldest pending update exceeds this delay. Zero means
+     * no maximum delay.
+     * 
+     * @param delay The maximum delay of pending updates
+     * @param unit The delay unit
+     * @return This instance, for method chaining
+     * @throws IllegalArgumentException If the delay is negative
+     */
+    public @NotNull UpdateCoalescingBuffer setMaxDelay(
+            final long delay,
+            final @NotNull TimeUnit unit) {
+        Validate.isTrue(delay >= 0, "Maximum delay cannot be negative");
+        Validate.notNull(unit);
+        this.maxDelay = unit.toNanos(delay);
+        return this;
+    }
+
+    /**
+     * Returns the count of pending updates, after coalescing.
+     * 
+     * @return The count of pending updates
+     */
+    public int getPendingCount() {
+        return this.pendingCount;
+    }
+
+    /**
+     * Adds an update of the rows of the specified entity path that match
+     * the specified reference predicate, merging it with the pending
+     * update of the same rows, if any. Flushes the pending updates if a
+     * threshold is reached.
+     * <p>
+     * If any of the values to set is not constant the pending update of
+     * the same rows, if any, is executed first instead of merged.
+     * 
+     * @param entity The target entity path
+     * @param reference The reference predicate of the updated rows
+     * @param values The values to set
+     * @return The affected rows count of the executed updates, or zero
+     * if no update has been executed
+     * @throws EntityPathNotSupportedException If the entity path is not
+     * supported by the provider
+     * @throws IllegalArgumentException If no value is set
+     */
+    public long update(
+            final @NotNull EntityPath<?> entity,
+            final @NotNull Predicate reference,
+            final @NotNull StoredValues values) {
+        Validate.notNull(entity);
+        Validate.notNull(reference);
+        Validate.notNull(values);
+        Validate.isTrue(!values.isEmpty(), "No values set for the update");
+        Map<Predicate, StoredValues> rows = this.pending.get(entity);
+        if (rows == null) {
+            this.provider.validateSupported(entity);
+            rows = new LinkedHashMap<>();
+            this.pending.put(entity, rows);
+        }
+        StoredValues merged = rows.get(reference);
+        long result = 0;
+        if (merged != null && !isConstant(values)) {
+            result += execute(entity, Collections.singletonMap(reference, merged));
+            rows.remove(reference);
+            this.pendingCount--;
+            merged = null;
+        }
+        if (merged == null) {
+            if (this.pendingCount == 0) {
+                this.oldestPending = nanoTime();
+            }
+            rows.put(reference, values.clone());
+            this.pendingCount++;
+        } else {
+            merged.addAll(values);
+        }
+        return result + flushIfDue();
+    }
+
+    /**
+     * Adds an update of the rows of the specified entity path that match
+     * the specified reference predicate, merging it with the pending
+     * update of the same rows, if any. Flushes the pending updates if a
+     * threshold is reached.
+     * 
+     * @param entity The target entity path
+     * @param reference The reference predicate of the updated rows
+     * @param assignments The values to set
+     * @return The affected rows count of the flush, or zero if the
+     * pending updates have not been flushed
+     * @throws EntityPathNotSupportedException If the entity path is not
+     * supported by the provider
+     * @throws IllegalArgumentException If no value is set
+     */
+    public long update(
+            final @NotNull EntityPath<?> entity,
+            final @NotNull Predicate reference,
+            final @NotNull StoredValue<?>... assignments) {
+        return update(entity, reference, StoredValues.with(assignments));
+    }
+
+    /**
+     * Returns {@code true} if all the specified values to set are
+     * constant or {@code null}, so they can replace the values of a
+     * pending update.
+     * 
+     * @param values The values to set
+     * @return If all the values are constant
+     */
+    protected static boolean isConstant(
+            final @NotNull StoredValues values) {
+        for (final StoredValue<?> value : values) {
+            final Expression<?> expr = value.getValue();
+            if (expr != null && !(ExpressionUtils.extract(expr) instanceof Constant)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns {@code true} if a threshold is reached and the pending
+     * updates must be flushed.
+     * 
+     * @return If the pending updates must be flushed
+     */
+    public boolean isFlushDue() {
+        if (this.pendingCount == 0) {
+            return false;
+        }
+        return this.pendingCount >= this.maxPending
+                || (this.maxDelay > 0 && nanoTime() - this.oldestPending >= this.maxDelay);
+    }
+
+    /**
+     * Flushes the pending updates if a threshold is reached. Intended to
+     * be called periodically by the owner of the buffer, within its
+     * transaction, to honour the maximum delay when no updates are added.
+     * 
+     * @return The affected rows count of the flush, or zero if the
+     * pending updates have not been flushed
+     */
+    public long flushIfDue() {
+        if (isFlushDue()) {
+            return flush();
+        }
+        return 0;
+    }
+
+    /**
+     * Executes the pending updates in the calling thread.
+     * <p>
+     * Pending updates are executed grouped by entity path, in order of
+     * first update. If an execution fails the pending updates of the
+     * failed and remaining entity paths are kept and the failure is
+     * propagated; they can be flushed again or discarded.
+     * 
+     * @return The affected rows count
+     */
+    public long flush() {
+        long result = 0;
+        final Iterator<Map.Entry<EntityPath<?>, Map<Predicate, StoredValues>>> it =
+                this.pending.entrySet().iterator();
+        while (it.hasNext()) {
+            final Map.Entry<EntityPath<?>, Map<Predicate, StoredValues>> entry = it.next();
+            result += execute(entry.getKey(), entry.getValue());
+            it.remove();
+            this.pendingCount -= entry.getValue().size();
+        }
+        return result;
+    }
+
+    /**
+     * Discards the pending updates without executing them, for example
+     * when the transaction of the caller is rolled back.
+     * 
+     * @return The count of discarded updates
+     */
+    public int discard() {
+        final int result = this.pendingCount;
+        this.pending.clear();
+        this.pendingCount = 0;
+        return result;
+    }
+
+    /**
+     * Executes the specified pending updates of the specified entity path.
+     * <p>
+     * Updates are added to the batch of a single new update clause. If the
+     * clause does not support batch updates each update is executed with
+     * a new update clause.
+     * 
+     * @param entity The target entity path
+     * @param rows The pending updates, by reference predicate
+     * @return The affected rows count
+     */
+    protected long execute(
+            final @NotNull EntityPath<?> entity,
+            final @NotNull Map<Predicate, StoredValues> rows) {
+        long result = 0;
+        boolean batched = rows.size() > 1;
+        ExtendedUpdateClause<?> clause = null;
+        for (final Map.Entry<Predicate, StoredValues> row : rows.entrySet()) {
+            if (clause == null) {
+                clause = this.provider.update(entity);
+            }
+            clause.set(row.getValue()).where(row.getKey());
+            if (batched) {
+                try {
+                    clause.addBatch();
+                    continue;
+                } catch (final UnsupportedOperationException e) {
+                    batched = false;
+                }
+            }
+            result += clause.execute();
+            clause = null;
+        }
+        if (clause != null) {
+            result += clause.execute();
+        }
+        return result;
+    }
+
+    /**
+     * Returns the current value of the time source used for the maximum
+     * delay, in nanoseconds.
+     * 
+     * @return The current time, in nanoseconds
+     * @see System#nanoTime()
+     */
+    protected long nanoTime() {
+        return System.nanoTime();
+    }
+}
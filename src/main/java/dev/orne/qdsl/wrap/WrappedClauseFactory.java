@@ -24,7 +24,10 @@ package dev.orne.qdsl.wrap;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
 
 import javax.validation.constraints.NotNull;
 
@@ -32,10 +35,11 @@ import org.apache.commons.lang3.Validate;
 import org.apiguardian.api.API;
 
 import com.querydsl.core.Tuple;
-import com.querydsl.core.dml.DeleteClause;
 import com.querydsl.core.types.EntityPath;
 import com.querydsl.core.types.Expression;
 
+import dev.orne.qdsl.wrap.impl.FederatedQueryClause;
+
 /**
  * Main entry point for wrapped clauses system.
  * Allows abstraction of underlying DB system to components based on public API
@@ -162,6 +166,53 @@ public final class WrappedClauseFactory {
         return findProvider(WrappedQueryClauseProvider.class, entity).query(entity);
     }
 
+    /**
+     * Creates a new wrapped Query clause for the specified entity path
+     * that queries all the available providers for the entity path type,
+     * merging their results.
+     * <p>
+     * The providers are queried sequentially in the calling thread.
+     * If only one provider is available its query clause is returned.
+     * 
+     * @param entity The target entity path
+     * @return The created wrapped Query clause
+     * @throws ClauseProviderNotFoundException If no provider is available
+     * for the requested entity path type
+     * @see FederatedQueryClause
+     */
+    public static @NotNull ExtendedQueryClause<?, ?> queryFederated(
+            final @NotNull EntityPath<?> entity) {
+        return queryFederated(entity, null);
+    }
+
+    /**
+     * Creates a new wrapped Query clause for the specified entity path
+     * that queries all the available providers for the entity path type,
+     * merging their results.
+     * <p>
+     * The providers are queried concurrently in the specified executor.
+     * If {@code executor} is {@code null} the providers are queried
+     * sequentially in the calling thread. If only one provider is
+     * available its query clause is returned.
+     * 
+     * @param entity The target entity path
+     * @param executor The executor to query the providers in
+     * @return The created wrapped Query clause
+     * @throws ClauseProviderNotFoundException If no provider is available
+     * for the requested entity path type
+     * @see FederatedQueryClause
+     */
+    public static @NotNull ExtendedQueryClause<?, ?> queryFederated(
+            final @NotNull EntityPath<?> entity,
+            final Executor executor) {
+        final List<WrappedQueryClauseProvider> providers = findProviders(
+                WrappedQueryClauseProvider.class, entity);
+        if (providers.size() == 1) {
+            return providers.get(0).query(entity);
+        }
+        return new FederatedQueryClause<>(entity, providers, executor);
+    }
+
     /**
      * Creates a new wrapped Query clause for the specified entity path
      * with support for grouping of results.
@@ -274,6 +325,19 @@ public final class WrappedClauseFactory {
         return findProvider(WrappedUpdateClauseProvider.class, entity).update(entity);
     }
 
+    /**
+     * Creates a new wrapped Merge clause for the specified entity path.
+     * 
+     * @param entity The target entity path
+     * @return The created wrapped Merge clause
+     * @throws ClauseProviderNotFoundException If no provider is available
+     * for the requested entity path type
+     */
+    public static @NotNull ExtendedMergeClause<?> merge(
+            final @NotNull EntityPath<?> entity) {
+        return findProvider(WrappedMergeClauseProvider.class, entity).merge(entity);
+    }
+
     /**
      * Creates a new wrapped Delete clause for the specified entity path.
      * 
@@ -282,7 +346,7 @@ public final class WrappedClauseFactory {
      * @throws ClauseProviderNotFoundException If no provider is available
      * for the requested entity path type
      */
-    public static @NotNull DeleteClause<?> delete(
+    public static @NotNull ExtendedDeleteClause<?> delete(
             final @NotNull EntityPath<?> entity) {
         return findProvider(WrappedDeleteClauseProvider.class, entity).delete(entity);
         
@@ -324,4 +388,40 @@ public final class WrappedClauseFactory {
         }
         return provider;
     }
+
+    /**
+     * Finds all the wrapped clause providers of the specified type that
+     * support the specified entity path in all the registries.
+     * 
+     * @param <T> The wrapped clause provider type
+     * @param type The wrapped clause provider type
+     * @param entity The target entity path
+     * @return The wrapped clause providers that support the entity path type,
+     * in registries order
+     * @throws ClauseProviderNotFoundException If no provider is available
+     * for the requested entity path type
+     */
+    private static <T extends WrappedClauseProvider> @NotNull List<T> findProviders(
+            final @NotNull Class<T> type,
+            final @NotNull EntityPath<?> entity) {
+        if (REGISTRIES.isEmpty()) {
+            throw new ClauseProviderNotFoundException(
+                    "No wrapped clause provider registry configured");
+        }
+        Validate.notNull(type, "The clause provider type is required");
+        Validate.notNull(entity, "The entity path is required");
+        final Class<? extends EntityPath<?>> entityType =
+                WrappedClauseProvider.getEntityPathType(entity);
+        final Set<T> providers = new LinkedHashSet<>();
+        for (final WrappedClauseProviderRegistry registry : REGISTRIES) {
+            providers.addAll(registry.findAll(type, entityType));
+        }
+        if (providers.isEmpty()) {
+            throw new ClauseProviderNotFoundException(String.format(
+                    "Clause provider of type %s not found for entity %s",
+                    type,
+                    entity));
+        }
+        return new ArrayList<>(providers);
+    }
 }
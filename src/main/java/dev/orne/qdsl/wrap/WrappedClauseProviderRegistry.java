@@ -22,6 +22,9 @@ package dev.orne.qdsl.wrap;
  * #L%
  */
 
+import java.util.Collections;
+import java.util.List;
+
 import javax.cache.annotation.CacheDefaults;
 import javax.cache.annotation.CachePut;
 import javax.cache.annotation.CacheResult;
@@ -61,6 +64,28 @@ public interface WrappedClauseProviderRegistry {
             @NotNull Class<T> type,
             @NotNull Class<? extends EntityPath<?>> entityType);
 
+    /**
+     * Finds all the wrapped clause providers of the specified type that
+     * support the specified entity path type.
+     * <p>
+     * Default implementation returns the provider returned by
+     * {@link #find(Class, Class)}, if any.
+     * 
+     * @param <T> The wrapped clause provider type
+     * @param type The wrapped clause provider type
+     * @param entityType The entity path type
+     * @return The registered wrapped clause providers that support the entity
+     * path type, in registration order
+     */
+    default <T extends WrappedClauseProvider> @NotNull List<T> findAll(
+            final @NotNull Class<T> type,
+            final @NotNull Class<? extends EntityPath<?>> entityType) {
+        final T provider = find(type, entityType);
+        return provider == null ?
+                Collections.emptyList() :
+                Collections.singletonList(provider);
+    }
+
     /**
      * Adds this registry to the registries used by {@code WrappedClauseFactory}
      * utility class.
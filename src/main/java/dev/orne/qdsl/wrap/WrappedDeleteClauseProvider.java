@@ -26,7 +26,6 @@ import javax.validation.constraints.NotNull;
 
 import org.apiguardian.api.API;
 
-import com.querydsl.core.dml.DeleteClause;
 import com.querydsl.core.types.EntityPath;
 
 /**
@@ -46,6 +45,6 @@ extends WrappedClauseProvider {
      * @param entity The target entity path
      * @return The created wrapped Delete clause
      */
-    @NotNull DeleteClause<?> delete(
+    @NotNull ExtendedDeleteClause<?> delete(
             @NotNull EntityPath<?> entity);
 }
@@ -22,6 +22,9 @@ package dev.orne.qdsl.wrap;
  * #L%
  */
 
+import java.util.function.Function;
+import java.util.stream.Stream;
+
 import javax.validation.constraints.NotNull;
 
 import org.apiguardian.api.API;
@@ -47,4 +50,57 @@ extends WrappedClauseProvider {
      */
     @NotNull ExtendedInsertClause<?> insert(
             @NotNull EntityPath<?> entity);
+
+    /**
+     * Creates a new bulk insert pipeline of beans into the specified
+     * entity path.
+     * 
+     * @param <T> The bean type
+     * @param entity The target entity path
+     * @param binding The beans to values to store binding
+     * @return The created bulk insert pipeline
+     * @see StoredValuesBinding
+     */
+    default <T> @NotNull BulkInsertPipeline<T> bulkInsert(
+            @NotNull EntityPath<?> entity,
+            @NotNull Function<? super T, StoredValues> binding) {
+        return new BulkInsertPipeline<>(this, entity, binding);
+    }
+
+    /**
+     * Inserts the specified beans into the specified entity path in
+     * chunks of the default size.
+     * 
+     * @param <T> The bean type
+     * @param entity The target entity path
+     * @param beans The beans to insert
+     * @param binding The beans to values to store binding
+     * @return The affected rows count
+     * @see #bulkInsert(EntityPath, Function)
+     */
+    default <T> long insertAll(
+            @NotNull EntityPath<?> entity,
+            @NotNull Iterable<? extends T> beans,
+            @NotNull Function<? super T, StoredValues> binding) {
+        return this.<T>bulkInsert(entity, binding).execute(beans);
+    }
+
+    /**
+     * Inserts the beans of the specified stream into the specified entity
+     * path in chunks of the default size. The stream is consumed but
+     * not closed.
+     * 
+     * @param <T> The bean type
+     * @param entity The target entity path
+     * @param beans The beans to insert
+     * @param binding The beans to values to store binding
+     * @return The affected rows count
+     * @see #bulkInsert(EntityPath, Function)
+     */
+    default <T> long insertAll(
+            @NotNull EntityPath<?> entity,
+            @NotNull Stream<? extends T> beans,
+            @NotNull Function<? super T, StoredValues> binding) {
+        return this.<T>bulkInsert(entity, binding).execute(beans);
+    }
 }
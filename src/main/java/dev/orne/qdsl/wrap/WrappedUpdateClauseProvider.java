@@ -47,4 +47,15 @@ extends WrappedClauseProvider {
      */
     @NotNull ExtendedUpdateClause<?> update(
             @NotNull EntityPath<?> entity);
+
+    /**
+     * Creates a new buffer of updates through this provider that
+     * coalesces successive updates of the same rows.
+     * 
+     * @return The created update coalescing buffer
+     * @see UpdateCoalescingBuffer
+     */
+    default @NotNull UpdateCoalescingBuffer coalescingUpdates() {
+        return new UpdateCoalescingBuffer(this);
+    }
 }
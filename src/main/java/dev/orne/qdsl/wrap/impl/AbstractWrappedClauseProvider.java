@@ -48,6 +48,7 @@ import com.querydsl.core.types.Expression;
 import com.querydsl.core.types.Visitor;
 
 import dev.orne.qdsl.NopReplaceVisitor;
+import dev.orne.qdsl.wrap.ExtendedDeleteClause;
 import dev.orne.qdsl.wrap.ExtendedInsertClause;
 import dev.orne.qdsl.wrap.ExtendedUpdateClause;
 import dev.orne.qdsl.wrap.ProjectionType;
@@ -57,6 +58,7 @@ import dev.orne.qdsl.wrap.WrappedInsertClauseProvider;
 import dev.orne.qdsl.wrap.WrappedQueryClauseProvider;
 import dev.orne.qdsl.wrap.WrappedUpdateClauseProvider;
 import dev.orne.qdsl.wrap.impl.transform.ChainedExpressionTransformer;
+import dev.orne.qdsl.wrap.impl.transform.InListBucketingTransformer;
 
 /**
  * Abstract base implementation for wrapped QueryDSL clause providers.
@@ -82,6 +84,18 @@ implements WrappedClauseProvider {
     private final @NotNull Map<Class<? extends EntityPath<?>>, EntityPath<?>> baseEntities;
     /** The registered projections, by entity and type. */
     private final @NotNull Map<ProjectionKey, Expression<?>> projections;
+    /** The query results cache. */
+    private QueryResultCache resultCache;
+    /** The {@code IN} conditions values bucketing transformer. */
+    private InListBucketingTransformer inListBucketing;
+    /** The single flight group of identical concurrent queries. */
+    private SingleFlightGroup singleFlight;
+    /** The default execution timeout of the created clauses, in milliseconds. */
+    private long defaultTimeout;
+    /** The concurrency limiter of the created clauses. */
+    private ConcurrencyLimiter concurrencyLimiter;
+    /** The translation templates cache of store clause assignments. */
+    private StoreShapeCache storeShapeCache;
 
     /**
      * Creates a new instance.
@@ -186,6 +200,193 @@ implements WrappedClauseProvider {
         return Collections.unmodifiableMap(this.projections);
     }
 
+    /**
+     * Returns the query results cache, if any.
+     * 
+     * @return The query results cache
+     */
+    public QueryResultCache getResultCache() {
+        return this.resultCache;
+    }
+
+    /**
+     * Sets the query results cache. If configured, the results of
+     * the query clauses created by this provider are cached and the
+     * store and delete clauses created by this provider invalidate
+     * the cached results of the supported entity types on execution.
+     * <p>
+     * Result caching is disabled by default.
+     * 
+     * @param cache The query results cache
+     */
+    public void setResultCache(
+            final QueryResultCache cache) {
+        this.resultCache = cache;
+    }
+
+    /**
+     * Returns the transformer used to bucket the values of {@code IN}
+     * conditions of the created clauses, if any.
+     * 
+     * @return The {@code IN} conditions values bucketing transformer
+     */
+    public InListBucketingTransformer getInListBucketing() {
+        return this.inListBucketing;
+    }
+
+    /**
+     * Sets the transformer used to bucket the values of {@code IN}
+     * conditions of the created clauses. If {@code null} the values
+     * of {@code IN} conditions are not modified.
+     * <p>
+     * Disabled by default.
+     * 
+     * @param transformer The {@code IN} conditions values bucketing
+     * transformer
+     * @see InListBucketingTransformer#DEFAULT
+     */
+    public void setInListBucketing(
+            final InListBucketingTransformer transformer) {
+        this.inListBucketing = transformer;
+    }
+
+    /**
+     * Returns the single flight group of identical concurrent queries,
+     * if any.
+     * 
+     * @return The single flight group
+     */
+    public SingleFlightGroup getSingleFlight() {
+        return this.singleFlight;
+    }
+
+    /**
+     * Sets the single flight group of identical concurrent queries.
+     * If configured, identical queries executed concurrently through
+     * the query clauses created by this provider share a single
+     * execution and its results.
+     * <p>
+     * Single flight deduplication is disabled by default.
+     * 
+     * @param group The single flight group
+     */
+    public void setSingleFlight(
+            final SingleFlightGroup group) {
+        this.singleFlight = group;
+    }
+
+    /**
+     * Returns the default execution timeout of the clauses created by
+     * this provider, in milliseconds. Zero means no timeout.
+     * 
+     * @return The default execution timeout
+     */
+    public long getDefaultTimeout() {
+        return this.defaultTimeout;
+    }
+
+    /**
+     * Sets the default execution timeout of the clauses created by
+     * this provider, in milliseconds. Zero means no timeout.
+     * Clauses can override it through {@code WrappedClause.timeout()}.
+     * <p>
+     * No timeout by default.
+     * 
+     * @param timeout The default execution timeout
+     * @see WrappedClause#timeout(long, java.util.concurrent.TimeUnit)
+     */
+    public void setDefaultTimeout(
+            final long timeout) {
+        Validate.isTrue(timeout >= 0, "Timeout cannot be negative");
+        this.defaultTimeout = timeout;
+    }
+
+    /**
+     * Returns the concurrency limiter of the executions of the clauses
+     * created by this provider, if any.
+     * 
+     * @return The concurrency limiter
+     */
+    public ConcurrencyLimiter getConcurrencyLimiter() {
+        return this.concurrencyLimiter;
+    }
+
+    /**
+     * Sets the concurrency limiter of the executions of the clauses
+     * created by this provider. If configured, the terminal operations
+     * of all the clauses created by this provider share the limiter
+     * permits, so a slow backend cannot exhaust the calling threads.
+     * <p>
+     * Query results iteration holds a permit only while the results
+     * iterator is created. Queries served from the results cache or
+     * from an identical query in flight do not take permits.
+     * <p>
+     * No concurrency limit by default.
+     * 
+     * @param limiter The concurrency limiter
+     */
+    public void setConcurrencyLimiter(
+            final ConcurrencyLimiter limiter) {
+        this.concurrencyLimiter = limiter;
+    }
+
+    /**
+     * Returns the translation templates cache of the assignments of the
+     * store clauses created by this provider, if any.
+     * 
+     * @return The store shape cache
+     */
+    public StoreShapeCache getStoreShapeCache() {
+        return this.storeShapeCache;
+    }
+
+    /**
+     * Sets the translation templates cache of the assignments of the
+     * store clauses created by this provider. If configured, repeated
+     * assignments of the same paths with constant values are translated
+     * converting only the values, without running the expression
+     * transformers again.
+     * <p>
+     * Disabled by default.
+     * 
+     * @param cache The store shape cache
+     */
+    public void setStoreShapeCache(
+            final StoreShapeCache cache) {
+        this.storeShapeCache = cache;
+    }
+
+    /**
+     * Configures the specified wrapped clause created by this provider
+     * for the specified entity.
+     * 
+     * @param <C> The wrapped clause type
+     * @param clause The wrapped clause
+     * @param entity The clause entity
+     * @return The configured wrapped clause
+     */
+    protected <C extends WrappedClause<?>> @NotNull C configureClause(
+            final @NotNull C clause,
+            final @NotNull EntityPath<?> entity) {
+        if (this.resultCache != null) {
+            clause.setResultCacheScope(this.resultCache.scope(
+                    WrappedClauseProvider.getEntityPathType(entity),
+                    this.baseEntities.keySet()));
+        }
+        if (this.singleFlight != null && clause instanceof WrappedQueryClause) {
+            ((WrappedQueryClause<?, ?>) clause).setSingleFlightScope(this.singleFlight.scope(
+                    WrappedClauseProvider.getEntityPathType(entity)));
+        }
+        if (this.storeShapeCache != null && clause instanceof WrappedStoreClause) {
+            ((WrappedStoreClause<?>) clause).setStoreShapeScope(this.storeShapeCache.scope(entity));
+        }
+        if (this.defaultTimeout > 0) {
+            clause.getExecutionBounds().setTimeout(this.defaultTimeout);
+        }
+        clause.setConcurrencyLimiter(this.concurrencyLimiter);
+        return clause;
+    }
+
     /**
      * Returns the transformer to apply to the expressions added to the
      * wrapped clauses before adding them to the delegated clauses.
@@ -312,22 +513,33 @@ implements WrappedClauseProvider {
     /**
      * Creates an expression transformer to apply to expressions passed to the
      * a wrapped clause over the specified entity.
+     * <p>
+     * If configured, the {@code IN} conditions values bucketing
+     * transformer is applied after the entity transformer.
      * 
      * @param entity The clause entity, potentially aliased
      * @return The expression transformer to apply
+     * @see #setInListBucketing(InListBucketingTransformer)
      */
     protected @NotNull ExpressionTransformer createTransformerForAlias(
             final @NotNull EntityPath<?> entity) {
         final EntityPath<?> base = getBaseEntity(entity.getClass());
+        final ExpressionTransformer result;
         if (entity.getMetadata().getName().equals(
                 base.getMetadata().getName())) {
-            return getTransformer(entity);
+            result = getTransformer(entity);
         } else {
-            return new ChainedExpressionTransformer(
+            result = new ChainedExpressionTransformer(
                     createAliasRemover(entity),
                     getTransformer(entity),
                     createAliasRestorer(entity));
         }
+        if (this.inListBucketing == null) {
+            return result;
+        }
+        return new ChainedExpressionTransformer(
+                result,
+                this.inListBucketing);
     }
 
     /**
@@ -368,9 +580,10 @@ implements WrappedClauseProvider {
     public @NotNull ExtendedInsertClause<?> insert(
             final @NotNull EntityPath<?> entity) {
         validateSupported(entity);
-        return new WrappedInsertClause(
+        return configureClause(new WrappedInsertClause(
                 createDelegatedInsertClause(entity),
-                createTransformerForAlias(entity));
+                createTransformerForAlias(entity)),
+                entity);
     }
 
     /**
@@ -398,9 +611,10 @@ implements WrappedClauseProvider {
     public @NotNull ExtendedUpdateClause<?> update(
             final @NotNull EntityPath<?> entity) {
         validateSupported(entity);
-        return new WrappedUpdateClause(
+        return configureClause(new WrappedUpdateClause(
                 createDelegatedUpdateClause(entity),
-                createTransformerForAlias(entity));
+                createTransformerForAlias(entity)),
+                entity);
     }
 
     /**
@@ -425,12 +639,13 @@ implements WrappedClauseProvider {
      * @return The created wrapped Delete clause
      * @see WrappedDeleteClauseProvider#delete(EntityPath)
      */
-    public @NotNull DeleteClause<?> delete(
+    public @NotNull ExtendedDeleteClause<?> delete(
             final @NotNull EntityPath<?> entity) {
         validateSupported(entity);
-        return new WrappedDeleteClause(
+        return configureClause(new WrappedDeleteClause(
                 createDelegatedDeleteClause(entity),
-                createTransformerForAlias(entity));
+                createTransformerForAlias(entity)),
+                entity);
     }
 
     /**
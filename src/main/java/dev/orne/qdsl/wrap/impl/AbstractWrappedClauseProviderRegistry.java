@@ -22,7 +22,9 @@ package dev.orne.qdsl.wrap.impl;
  * #L%
  */
 
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 
 import javax.validation.constraints.NotNull;
 
@@ -64,4 +66,22 @@ implements WrappedClauseProviderRegistry {
         }
         return null;
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T extends WrappedClauseProvider> @NotNull List<T> findAll(
+            final @NotNull Class<T> type,
+            final @NotNull Class<? extends EntityPath<?>> entityType) {
+        final List<T> result = new ArrayList<>();
+        final Iterator<WrappedClauseProvider> iterator = getProvidersIterator();
+        while (iterator.hasNext()) {
+            final WrappedClauseProvider provider = iterator.next();
+            if (type.isInstance(provider) && provider.supports(entityType)) {
+                result.add(type.cast(provider));
+            }
+        }
+        return result;
+    }
 }
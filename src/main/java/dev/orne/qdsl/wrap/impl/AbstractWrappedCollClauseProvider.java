@@ -51,8 +51,12 @@ import dev.orne.qdsl.wrap.WrappedQueryClauseProvider;
  * This allows creation of providers that expose only a subset of the CRUD
  * operations.
  * <p>
- * Note that collection based QueryDSL clauses does not support insert clauses,
- * so neither does this class.
+ * If the collection of source values of an entity is a
+ * {@code CollValueStore} insert, update and delete clauses are executed
+ * over the store, and queries are executed over a snapshot of the store.
+ * Otherwise insert clauses are not supported, as collection based QueryDSL
+ * clauses does not support them, and update and delete clauses modify the
+ * collection of source values in place.
  * 
  * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
  * @version 1.0, 2022-08
@@ -89,6 +93,9 @@ extends AbstractWrappedClauseProvider {
 
     /**
      * Returns the collection of source values for the specified entity path.
+     * <p>
+     * Implementations that accept writes through insert clauses return a
+     * {@code CollValueStore}.
      * 
      * @param <T> The entity type
      * @param entity The entity path
@@ -126,6 +133,10 @@ extends AbstractWrappedClauseProvider {
 
     /**
      * Creates a new wrapped query clause for the specified entity.
+     * <p>
+     * If the collection of source values is a {@code CollValueStore} the
+     * query is executed over its current snapshot, so all the executions
+     * of the query observe the same values.
      * 
      * @param <T> The target entity type
      * @param entity The target entity path
@@ -135,20 +146,35 @@ extends AbstractWrappedClauseProvider {
             final @NotNull EntityPath<T> entity) {
         @SuppressWarnings("unchecked")
         final EntityPath<T> target = (EntityPath<T>) getTargetEntity(entity);
-        return new WrappedCollQueryClause<>(
+        Collection<T> values = getValues(entity);
+        if (values instanceof CollValueStore) {
+            values = ((CollValueStore<T>) values).snapshot();
+        }
+        return configureClause(new WrappedCollQueryClause<>(
                 createTransformerForAlias(entity),
                 target,
                 getQueryEngine(),
-                getValues(entity));
+                values),
+                entity);
     }
 
     /**
      * {@inheritDoc}
+     * <p>
+     * Requires a {@code CollValueStore} as collection of source values.
+     * 
+     * @throws UnsupportedOperationException If the collection of source
+     * values is not a {@code CollValueStore}
      */
     @Override
     protected <T> @NotNull InsertClause<?> createDelegatedInsertClause(
             final @NotNull EntityPath<T> entity) {
-        throw new UnsupportedOperationException();
+        final Collection<T> values = getValues(entity);
+        if (!(values instanceof CollValueStore)) {
+            throw new UnsupportedOperationException(
+                    "Insert clauses require a CollValueStore of source values");
+        }
+        return createStoreClause((CollValueStore<T>) values, entity, CollStoreDmlClause.Type.INSERT);
     }
 
     /**
@@ -157,10 +183,14 @@ extends AbstractWrappedClauseProvider {
     @Override
     protected <T> @NotNull UpdateClause<?> createDelegatedUpdateClause(
             final @NotNull EntityPath<T> entity) {
+        final Collection<T> values = getValues(entity);
+        if (values instanceof CollValueStore) {
+            return createStoreClause((CollValueStore<T>) values, entity, CollStoreDmlClause.Type.UPDATE);
+        }
         return new CollUpdateClause<>(
                 getQueryEngine(),
                 entity,
-                getValues(entity));
+                values);
     }
 
     /**
@@ -169,9 +199,37 @@ extends AbstractWrappedClauseProvider {
     @Override
     protected <T> @NotNull DeleteClause<?> createDelegatedDeleteClause(
             final @NotNull EntityPath<T> entity) {
+        final Collection<T> values = getValues(entity);
+        if (values instanceof CollValueStore) {
+            return createStoreClause((CollValueStore<T>) values, entity, CollStoreDmlClause.Type.DELETE);
+        }
         return new CollDeleteClause<>(
                 getQueryEngine(),
                 entity,
-                getValues(entity));
+                values);
+    }
+
+    /**
+     * Creates a new DML clause of the specified type over the specified
+     * value store, targeting the target entity path of the specified
+     * entity path.
+     * 
+     * @param <T> The entity type
+     * @param store The value store
+     * @param entity The entity path
+     * @param type The clause type
+     * @return The created DML clause
+     */
+    protected <T> @NotNull CollStoreDmlClause<T> createStoreClause(
+            final @NotNull CollValueStore<T> store,
+            final @NotNull EntityPath<T> entity,
+            final @NotNull CollStoreDmlClause.Type type) {
+        @SuppressWarnings("unchecked")
+        final EntityPath<T> target = (EntityPath<T>) getTargetEntity(entity);
+        return new CollStoreDmlClause<>(
+                store,
+                target,
+                getQueryEngine(),
+                type);
     }
 }
@@ -104,9 +104,10 @@ extends AbstractWrappedClauseProvider {
     public @NotNull ExtendedGroupableQueryClause<?, ?> query(
             final @NotNull EntityPath<?> entity) {
         validateSupported(entity);
-        return new WrappedJpaQueryClause<>(
+        return configureClause(new WrappedJpaQueryClause<>(
                 createTransformerForAlias(entity),
-                createDelegatedQueryClause(entity));
+                createDelegatedQueryClause(entity)),
+                entity);
     }
 
     /**
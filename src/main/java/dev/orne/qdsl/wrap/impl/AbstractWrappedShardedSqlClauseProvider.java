@@ -0,0 +1,213 @@
+package dev.orne.qdsl.wrap.impl;
+
+/*-
+ * #%L
+ * Orne Querydsl Utils
+ * %%
+ * Copyright (C) 2022 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.util.Collection;
+
+import javax.validation.constraints.NotNull;
+
+import org.apiguardian.api.API;
+
+import com.querydsl.core.dml.DeleteClause;
+import com.querydsl.core.dml.InsertClause;
+import com.querydsl.core.dml.UpdateClause;
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.sql.ProjectableSQLQuery;
+import com.querydsl.sql.RelationalPath;
+import com.querydsl.sql.SQLCommonQueryFactory;
+
+import dev.orne.qdsl.wrap.ExtendedGroupableQueryClause;
+import dev.orne.qdsl.wrap.WrappedGroupableQueryClauseProvider;
+
+/**
+ * Abstract implementation for wrapped QueryDSL clause providers based on
+ * delegated SQL based QueryDSL clauses over a sharded entity.
+ * <p>
+ * The delegated clauses are routed to the shards of the shard key values
+ * in the translated clause filters and assignments. Queries that do not
+ * restrict the shard key are executed in all the shards and their results
+ * merged with the query ordering, limit and offset.
+ * <p>
+ * Replica routing is not supported: each shard query factory is used
+ * for both queries and modifications.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2022-10
+ * @since 0.1
+ * @see SqlShardRouter
+ * @see ShardedSqlQuery
+ * @see ShardedSqlDmlClause
+ */
+@API(status=API.Status.EXPERIMENTAL, since="0.1")
+public abstract class AbstractWrappedShardedSqlClauseProvider
+extends AbstractWrappedSqlClauseProvider {
+
+    /**
+     * Creates a new instance.
+     * 
+     * @param targetEntity The base target entity
+     * @param supportedEntities The supported base entities
+     */
+    @SafeVarargs
+    protected AbstractWrappedShardedSqlClauseProvider(
+            final @NotNull RelationalPath<?> targetEntity,
+            final @NotNull EntityPath<?>... supportedEntities) {
+        super(targetEntity, supportedEntities);
+    }
+
+    /**
+     * Creates a new instance.
+     * 
+     * @param targetEntity The base target entity
+     * @param supportedEntities The supported base entities
+     */
+    protected AbstractWrappedShardedSqlClauseProvider(
+            final @NotNull RelationalPath<?> targetEntity,
+            final @NotNull Collection<EntityPath<?>> supportedEntities) {
+        super(targetEntity, supportedEntities);
+    }
+
+    /**
+     * Returns the shard router to use. The shard key must be a property
+     * of the base target entity.
+     * 
+     * @return The shard router
+     */
+    protected abstract @NotNull SqlShardRouter getShardRouter();
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Returns the query factory of the first shard, used to build the
+     * template queries.
+     */
+    @Override
+    protected @NotNull SQLCommonQueryFactory<? extends ProjectableSQLQuery<?, ?>, ?, ?, ?, ?> getQueryFactory() {
+        return getShardRouter().getShard(0);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Adds to the delegate sharded SQL store and delete clauses a listener
+     * that applies the execution bounds of the wrapped clause to the JDBC
+     * statements of all the shard clauses.
+     * <p>
+     * Multi-row insert statements and chunk statements are not configured
+     * for sharded clauses, as they are created from the query factory of
+     * the first shard and would execute all the rows in that shard.
+     */
+    @Override
+    protected <C extends WrappedClause<?>> @NotNull C configureClause(
+            final @NotNull C clause,
+            final @NotNull EntityPath<?> entity) {
+        super.configureClause(clause, entity);
+        final Object delegate;
+        if (clause instanceof WrappedStoreClause) {
+            delegate = ((WrappedStoreClause<?>) clause).getDelegate();
+        } else if (clause instanceof WrappedDeleteClause) {
+            delegate = ((WrappedDeleteClause) clause).getDelegate();
+        } else {
+            delegate = null;
+        }
+        if (delegate instanceof ShardedSqlDmlClause) {
+            ((ShardedSqlDmlClause) delegate).addListener(
+                    new SqlExecutionBoundsListener(clause.getExecutionBounds()));
+        }
+        return clause;
+    }
+
+    /**
+     * Implementation of {@code WrappedGroupableQueryClauseProvider.query()}.
+     * <p>
+     * Note that {@code AbstractWrappedShardedSqlClauseProvider} does not
+     * inherit {@code WrappedGroupableQueryClauseProvider}.
+     * Implementations must declare which provider subtypes exposes inheriting
+     * appropriate interfaces.
+     * 
+     * @param entity The target entity path
+     * @return The created wrapped Query clause
+     * @see WrappedGroupableQueryClauseProvider#query(EntityPath)
+     */
+    @Override
+    public @NotNull ExtendedGroupableQueryClause<?, ?> query(
+            final @NotNull EntityPath<?> entity) {
+        validateSupported(entity);
+        return configureClause(new WrappedShardedSqlQueryClause<>(
+                createTransformerForAlias(entity),
+                createDelegatedShardedQuery(entity)),
+                entity);
+    }
+
+    /**
+     * Creates the delegated sharded SQL query for the specified entity.
+     * 
+     * @param <T> The target entity type
+     * @param entity The target entity path
+     * @return The created sharded SQL query
+     */
+    @SuppressWarnings("unchecked")
+    protected <T> @NotNull ShardedSqlQuery<?> createDelegatedShardedQuery(
+            final @NotNull EntityPath<T> entity) {
+        final SqlShardRouter router = getShardRouter();
+        return new ShardedSqlQuery<>(
+                router,
+                (ProjectableSQLQuery<Object, ?>) router.getShard(0).from(getTargetEntity(entity)));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected <T> @NotNull InsertClause<?> createDelegatedInsertClause(
+            final @NotNull EntityPath<T> entity) {
+        return new ShardedSqlDmlClause(
+                getShardRouter(),
+                (RelationalPath<?>) getTargetEntity(entity),
+                ShardedSqlDmlClause.Type.INSERT);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected <T> @NotNull UpdateClause<?> createDelegatedUpdateClause(
+            final @NotNull EntityPath<T> entity) {
+        return new ShardedSqlDmlClause(
+                getShardRouter(),
+                (RelationalPath<?>) getTargetEntity(entity),
+                ShardedSqlDmlClause.Type.UPDATE);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected <T> @NotNull DeleteClause<?> createDelegatedDeleteClause(
+            final @NotNull EntityPath<T> entity) {
+        return new ShardedSqlDmlClause(
+                getShardRouter(),
+                (RelationalPath<?>) getTargetEntity(entity),
+                ShardedSqlDmlClause.Type.DELETE);
+    }
+}
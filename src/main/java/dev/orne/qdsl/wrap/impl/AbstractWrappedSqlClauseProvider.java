@@ -22,22 +22,34 @@ package dev.orne.qdsl.wrap.impl;
  * #L%
  */
 
+import java.sql.Connection;
 import java.util.Collection;
+import java.util.function.Supplier;
 
 import javax.validation.constraints.NotNull;
 
+import org.apache.commons.lang3.Validate;
 import org.apiguardian.api.API;
 
 import com.querydsl.core.dml.DeleteClause;
 import com.querydsl.core.dml.InsertClause;
+import com.querydsl.core.dml.StoreClause;
 import com.querydsl.core.dml.UpdateClause;
 import com.querydsl.core.types.EntityPath;
+import com.querydsl.sql.AbstractSQLQuery;
+import com.querydsl.sql.AbstractSQLQueryFactory;
 import com.querydsl.sql.ProjectableSQLQuery;
 import com.querydsl.sql.RelationalPath;
 import com.querydsl.sql.SQLCommonQueryFactory;
+import com.querydsl.sql.dml.AbstractSQLClause;
+import com.querydsl.sql.dml.AbstractSQLDeleteClause;
+import com.querydsl.sql.dml.AbstractSQLInsertClause;
+import com.querydsl.sql.dml.AbstractSQLUpdateClause;
 
 import dev.orne.qdsl.wrap.ExtendedGroupableQueryClause;
+import dev.orne.qdsl.wrap.ExtendedMergeClause;
 import dev.orne.qdsl.wrap.WrappedGroupableQueryClauseProvider;
+import dev.orne.qdsl.wrap.WrappedMergeClauseProvider;
 
 /**
  * Abstract implementation for wrapped QueryDSL clause providers based on
@@ -58,6 +70,13 @@ import dev.orne.qdsl.wrap.WrappedGroupableQueryClauseProvider;
 public abstract class AbstractWrappedSqlClauseProvider
 extends AbstractWrappedClauseProvider {
 
+    /** The router of query clauses to read replicas. */
+    private SqlReplicaRouter replicaRouter;
+    /** The maximum parameters count of multi-row insert statements. */
+    private int multiRowMaxParameters;
+    /** If merge clauses use {@code ON CONFLICT} insert statements. */
+    private boolean onConflictMerges;
+
     /**
      * Creates a new instance.
      * 
@@ -90,6 +109,255 @@ extends AbstractWrappedClauseProvider {
      */
     protected abstract @NotNull SQLCommonQueryFactory<? extends ProjectableSQLQuery<?, ?>, ?, ?, ?, ?> getQueryFactory();
 
+    /**
+     * Returns the router of query clauses to read replicas, if any.
+     * 
+     * @return The replica router
+     */
+    public SqlReplicaRouter getReplicaRouter() {
+        return this.replicaRouter;
+    }
+
+    /**
+     * Sets the router of query clauses to read replicas. If configured,
+     * the query clauses created by this provider are routed to the
+     * replicas, while store and delete clauses are always created by
+     * the primary query factory returned by {@code getQueryFactory()}.
+     * <p>
+     * Routing to read replicas is disabled by default.
+     * 
+     * @param router The replica router
+     */
+    public void setReplicaRouter(
+            final SqlReplicaRouter router) {
+        this.replicaRouter = router;
+    }
+
+    /**
+     * Returns the maximum parameters count of the multi-row insert
+     * statements used by insert clauses to insert batch rows.
+     * Zero means multi-row inserts are disabled.
+     * 
+     * @return The maximum parameters count of multi-row insert statements
+     */
+    public int getMultiRowMaxParameters() {
+        return this.multiRowMaxParameters;
+    }
+
+    /**
+     * Sets the maximum parameters count of the multi-row insert statements
+     * used by insert clauses to insert batch rows. The limit must not
+     * exceed the maximum parameters count supported by the database,
+     * for example 999 or 32766 depending on the SQLite version.
+     * <p>
+     * Zero disables multi-row inserts, batch rows being inserted with JDBC
+     * batches. Multi-row inserts are disabled by default.
+     * 
+     * @param maxParameters The maximum parameters count of multi-row insert
+     * statements
+     * @see WrappedInsertClause#setMultiRowValues(int, java.util.function.Supplier)
+     */
+    public void setMultiRowMaxParameters(
+            final int maxParameters) {
+        Validate.isTrue(maxParameters >= 0, "Maximum parameters count cannot be negative");
+        this.multiRowMaxParameters = maxParameters;
+    }
+
+    /**
+     * Returns {@code true} if the merge clauses created by this provider
+     * use {@code INSERT ... ON CONFLICT} statements instead of
+     * {@code SQLMergeClause}.
+     * 
+     * @return If merge clauses use {@code ON CONFLICT} insert statements
+     */
+    public boolean isOnConflictMerges() {
+        return this.onConflictMerges;
+    }
+
+    /**
+     * Sets if the merge clauses created by this provider use
+     * {@code INSERT ... ON CONFLICT} statements, as supported by SQLite
+     * and PostgreSQL, instead of {@code SQLMergeClause}, that only uses
+     * native merges in H2 and emulates them otherwise.
+     * <p>
+     * Merge clauses use {@code SQLMergeClause} by default.
+     * 
+     * @param onConflict If merge clauses use {@code ON CONFLICT} insert
+     * statements
+     * @see WrappedMergeClause
+     */
+    public void setOnConflictMerges(
+            final boolean onConflict) {
+        this.onConflictMerges = onConflict;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Adds to the delegate SQL store and delete clauses a listener that
+     * applies the execution bounds of the wrapped clause to the JDBC
+     * statements. Wrapped SQL query clauses add it themselves on
+     * bounded executions.
+     * <p>
+     * If a replica router is configured the delegate SQL store and delete
+     * clauses register their writes in the open read your writes scope.
+     * <p>
+     * If multi-row inserts are enabled insert clauses which delegate is
+     * a SQL insert clause are configured to insert batch rows with
+     * multi-row insert statements created by
+     * {@code createMultiRowInsertClause()}.
+     * <p>
+     * Delete and update clauses which delegate is a SQL clause are
+     * configured to execute chunked executions with statements created
+     * by {@code createChunkDeleteClause()} and
+     * {@code createChunkUpdateClause()}, and key boundary queries created
+     * by {@code createChunkKeyQuery()}.
+     * 
+     * @see SqlExecutionBoundsListener
+     * @see SqlReplicaRouter#getWriteListener()
+     * @see #setMultiRowMaxParameters(int)
+     */
+    @Override
+    protected <C extends WrappedClause<?>> @NotNull C configureClause(
+            final @NotNull C clause,
+            final @NotNull EntityPath<?> entity) {
+        super.configureClause(clause, entity);
+        final Object delegate;
+        if (clause instanceof WrappedStoreClause) {
+            delegate = ((WrappedStoreClause<?>) clause).getDelegate();
+        } else if (clause instanceof WrappedDeleteClause) {
+            delegate = ((WrappedDeleteClause) clause).getDelegate();
+        } else {
+            delegate = null;
+        }
+        if (delegate instanceof AbstractSQLClause) {
+            addListeners((AbstractSQLClause<?>) delegate, clause);
+            configureStatements(clause, entity);
+        }
+        return clause;
+    }
+
+    /**
+     * Configures the suppliers of additional SQL statements of the
+     * specified wrapped clause, which delegate clause is a SQL clause.
+     * 
+     * @param clause The wrapped clause
+     * @param entity The target entity path
+     */
+    private void configureStatements(
+            final @NotNull WrappedClause<?> clause,
+            final @NotNull EntityPath<?> entity) {
+        if (clause instanceof WrappedInsertClause && this.multiRowMaxParameters > 0) {
+            final WrappedInsertClause insertClause = (WrappedInsertClause) clause;
+            insertClause.setMultiRowValues(
+                    this.multiRowMaxParameters,
+                    () -> createMultiRowInsertClause(insertClause, entity));
+        } else if (clause instanceof WrappedDeleteClause) {
+            final WrappedDeleteClause deleteClause = (WrappedDeleteClause) clause;
+            deleteClause.setChunkStatements(
+                    () -> createChunkDeleteClause(deleteClause, entity),
+                    () -> createChunkKeyQuery(deleteClause, entity));
+        } else if (clause instanceof WrappedUpdateClause) {
+            final WrappedUpdateClause updateClause = (WrappedUpdateClause) clause;
+            updateClause.setChunkStatements(
+                    () -> createChunkUpdateClause(updateClause, entity),
+                    () -> createChunkKeyQuery(updateClause, entity));
+        }
+    }
+
+    /**
+     * Adds to the specified delegate SQL clause the listeners that apply
+     * the execution bounds of the wrapped clause and, if a replica router
+     * is configured, register the writes in the open read your writes
+     * scope.
+     * 
+     * @param delegate The delegate SQL clause
+     * @param clause The wrapped clause
+     */
+    private void addListeners(
+            final @NotNull AbstractSQLClause<?> delegate,
+            final @NotNull WrappedClause<?> clause) {
+        delegate.addListener(new SqlExecutionBoundsListener(clause.getExecutionBounds()));
+        if (this.replicaRouter != null) {
+            delegate.addListener(this.replicaRouter.getWriteListener());
+        }
+    }
+
+    /**
+     * Creates a new multi-row SQL insert statement for the specified
+     * wrapped insert clause, with the same listeners as its delegate
+     * SQL insert clause.
+     * 
+     * @param clause The wrapped insert clause
+     * @param entity The target entity path
+     * @return The created SQL insert statement
+     */
+    protected @NotNull AbstractSQLInsertClause<?> createMultiRowInsertClause(
+            final @NotNull WrappedInsertClause clause,
+            final @NotNull EntityPath<?> entity) {
+        final AbstractSQLInsertClause<?> statement = getQueryFactory().insert(
+                (RelationalPath<?>) getTargetEntity(entity));
+        addListeners(statement, clause);
+        return statement;
+    }
+
+    /**
+     * Creates a new SQL delete statement for a chunk of the specified
+     * wrapped delete clause, with the same listeners as its delegate
+     * SQL delete clause.
+     * 
+     * @param clause The wrapped delete clause
+     * @param entity The target entity path
+     * @return The created SQL delete statement
+     */
+    protected @NotNull AbstractSQLDeleteClause<?> createChunkDeleteClause(
+            final @NotNull WrappedDeleteClause clause,
+            final @NotNull EntityPath<?> entity) {
+        final AbstractSQLDeleteClause<?> statement = getQueryFactory().delete(
+                (RelationalPath<?>) getTargetEntity(entity));
+        addListeners(statement, clause);
+        return statement;
+    }
+
+    /**
+     * Creates a new SQL update statement for a chunk of the specified
+     * wrapped update clause, with the same listeners as its delegate
+     * SQL update clause.
+     * 
+     * @param clause The wrapped update clause
+     * @param entity The target entity path
+     * @return The created SQL update statement
+     */
+    protected @NotNull AbstractSQLUpdateClause<?> createChunkUpdateClause(
+            final @NotNull WrappedUpdateClause clause,
+            final @NotNull EntityPath<?> entity) {
+        final AbstractSQLUpdateClause<?> statement = getQueryFactory().update(
+                (RelationalPath<?>) getTargetEntity(entity));
+        addListeners(statement, clause);
+        return statement;
+    }
+
+    /**
+     * Creates a new SQL query over the target table for the chunk key
+     * boundaries of the specified wrapped clause. The query is created by
+     * the primary query factory, ignoring the replica router, so the
+     * boundaries observe the rows affected by previous chunks.
+     * 
+     * @param clause The wrapped delete or update clause
+     * @param entity The target entity path
+     * @return The created SQL query
+     */
+    protected @NotNull ProjectableSQLQuery<?, ?> createChunkKeyQuery(
+            final @NotNull WrappedClause<?> clause,
+            final @NotNull EntityPath<?> entity) {
+        final ProjectableSQLQuery<?, ?> query = getQueryFactory().from(getTargetEntity(entity));
+        if (query instanceof AbstractSQLQuery) {
+            ((AbstractSQLQuery<?, ?>) query).addListener(
+                    new SqlExecutionBoundsListener(clause.getExecutionBounds()));
+        }
+        return query;
+    }
+
     /**
      * Implementation of {@code WrappedGroupableQueryClauseProvider.query()}.
      * <p>
@@ -105,23 +373,108 @@ extends AbstractWrappedClauseProvider {
     public @NotNull ExtendedGroupableQueryClause<?, ?> query(
             final @NotNull EntityPath<?> entity) {
         validateSupported(entity);
-        return new WrappedSqlQueryClause<>(
+        final SqlReplicaRouter.Replica replica = routeQuery();
+        final WrappedSqlQueryClause<?> clause = new WrappedSqlQueryClause<>(
                 createTransformerForAlias(entity),
-                createDelegatedQueryClause(entity));
+                createDelegatedQueryClause(entity, replica));
+        clause.setConnectionSource(resolveConnectionSource(
+                replica == null ? getQueryFactory() : replica.getFactory()));
+        return configureClause(clause, entity);
+    }
+
+    /**
+     * Chooses the replica to create the next query clause with.
+     * Returns {@code null} if no replica router is configured or the query
+     * must be created by the primary query factory.
+     * 
+     * @return The chosen replica, or {@code null} for the primary
+     * @see SqlReplicaRouter#route()
+     */
+    protected SqlReplicaRouter.Replica routeQuery() {
+        if (this.replicaRouter == null) {
+            return null;
+        }
+        return this.replicaRouter.route();
     }
 
     /**
      * Creates the delegated SQL query clause for the specified entity.
+     * <p>
+     * The query is created by the specified replica, or by the primary
+     * query factory if {@code null}.
      * 
      * @param <T> The target entity type
      * @param entity The target entity path
+     * @param replica The replica to create the query with, if any
      * @return The created SQL query clause
+     * @see #routeQuery()
      */
     protected <T> @NotNull ProjectableSQLQuery<?, ?> createDelegatedQueryClause(
-            final @NotNull EntityPath<T> entity) {
+            final @NotNull EntityPath<T> entity,
+            final SqlReplicaRouter.Replica replica) {
+        if (replica != null) {
+            return replica.from(getTargetEntity(entity));
+        }
         return getQueryFactory().from(getTargetEntity(entity));
     }
 
+    /**
+     * Returns the source of connections of the queries created by the
+     * specified query factory, if it can be determined.
+     * 
+     * @param factory The query factory
+     * @return The source of connections, or {@code null} if unknown
+     * @see WrappedSqlQueryClause#setConnectionSource(Supplier)
+     */
+    protected static Supplier<Connection> resolveConnectionSource(
+            final @NotNull SQLCommonQueryFactory<?, ?, ?, ?, ?> factory) {
+        if (factory instanceof AbstractSQLQueryFactory) {
+            return ((AbstractSQLQueryFactory<?>) factory)::getConnection;
+        }
+        return null;
+    }
+
+    /**
+     * Implementation of {@code WrappedMergeClauseProvider.merge()}.
+     * <p>
+     * Note that {@code AbstractWrappedSqlClauseProvider} does not
+     * inherit {@code WrappedMergeClauseProvider}.
+     * Implementations must declare which provider subtypes exposes inheriting
+     * appropriate interfaces.
+     * 
+     * @param entity The target entity path
+     * @return The created wrapped Merge clause
+     * @see WrappedMergeClauseProvider#merge(EntityPath)
+     */
+    public @NotNull ExtendedMergeClause<?> merge(
+            final @NotNull EntityPath<?> entity) {
+        validateSupported(entity);
+        return configureClause(new WrappedMergeClause(
+                createDelegatedMergeClause(entity),
+                createTransformerForAlias(entity)),
+                entity);
+    }
+
+    /**
+     * Creates the delegated SQL merge clause for the specified entity.
+     * <p>
+     * If {@code ON CONFLICT} merges are enabled a SQL insert clause is
+     * created instead.
+     * 
+     * @param <T> The target entity type
+     * @param entity The target entity path
+     * @return The created SQL merge or insert clause
+     * @see #setOnConflictMerges(boolean)
+     */
+    protected <T> @NotNull StoreClause<?> createDelegatedMergeClause(
+            final @NotNull EntityPath<T> entity) {
+        final RelationalPath<?> target = (RelationalPath<?>) getTargetEntity(entity);
+        if (this.onConflictMerges) {
+            return getQueryFactory().insert(target);
+        }
+        return getQueryFactory().merge(target);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -22,6 +22,8 @@ package dev.orne.qdsl.wrap.impl;
  * #L%
  */
 
+import java.util.List;
+
 import javax.cache.Cache;
 import javax.cache.annotation.CacheRemoveAll;
 import javax.cache.annotation.CacheResult;
@@ -131,6 +133,18 @@ implements WrappedClauseProviderRegistry {
         return result;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The providers lists are not cached.
+     */
+    @Override
+    public <T extends WrappedClauseProvider> @NotNull List<T> findAll(
+            final @NotNull Class<T> type,
+            final @NotNull Class<? extends EntityPath<?>> entityType) {
+        return this.delegated.findAll(type, entityType);
+    }
+
     /**
      * Cache key type for internally managed caches.
      * 
@@ -0,0 +1,479 @@
+package dev.orne.qdsl.wrap.impl;
+
+/*-
+ * #%L
+ * Orne Querydsl Utils
+ * %%
+ * Copyright (C) 2022 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+
+import com.querydsl.collections.CollQuery;
+import com.querydsl.collections.QueryEngine;
+import com.querydsl.core.dml.DeleteClause;
+import com.querydsl.core.dml.InsertClause;
+import com.querydsl.core.dml.UpdateClause;
+import com.querydsl.core.types.Constant;
+import com.querydsl.core.types.ConstantImpl;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.SubQueryExpression;
+import com.querydsl.core.util.BeanMap;
+
+/**
+ * QueryDSL DML clause over a concurrent collection value store.
+ * <p>
+ * Assigned paths must be direct properties of the target entity path,
+ * set as bean properties of the stored values.
+ * <ul>
+ * <li>Insert clauses add a new value created by the store, with the
+ * assigned constant values. The assignments are cleared after each
+ * execution, so the clause can be reused for several rows. Rows added
+ * to the batch with {@link #addBatch()} are inserted together with a
+ * single write of the store.</li>
+ * <li>Update clauses replace the values matching the clause filters with
+ * updated copies. Assigned expressions are evaluated against the value
+ * being updated.</li>
+ * <li>Delete clauses remove the values matching the clause filters.</li>
+ * </ul>
+ * Filters are evaluated with the configured collection query engine.
+ * Each execution is atomic with respect to other writes of the store.
+ * <p>
+ * As the store copies its snapshot on each write, each execution costs
+ * time proportional to the store size. Inserting {@code n} rows with
+ * independent executions costs time quadratic in {@code n}, so rows
+ * should be inserted in batches.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2022-10
+ * @param <T> The values type
+ * @since 0.1
+ * @see CollValueStore
+ */
+public class CollStoreDmlClause<T>
+implements InsertClause<CollStoreDmlClause<T>>,
+        UpdateClause<CollStoreDmlClause<T>>,
+        DeleteClause<CollStoreDmlClause<T>> {
+
+    /** The target value store. */
+    private final @NotNull CollValueStore<T> store;
+    /** The target entity path. */
+    private final @NotNull Path<T> entity;
+    /** The collection query engine. */
+    private final @NotNull QueryEngine engine;
+    /** The clause type. */
+    private final @NotNull Type type;
+    /** The assigned values, by path. */
+    private final @NotNull Map<Path<?>, Expression<?>> assignments = new LinkedHashMap<>();
+    /** The filters of the clause. */
+    private final @NotNull List<Predicate> filters = new ArrayList<>();
+    /** The columns to be populated by insert clauses. */
+    private Path<?>[] columns;
+    /** The batch of values to insert. */
+    private final @NotNull List<T> batch = new ArrayList<>();
+
+    /**
+     * Creates a new instance.
+     * 
+     * @param store The target value store
+     * @param entity The target entity path
+     * @param engine The collection query engine
+     * @param type The clause type
+     */
+    public CollStoreDmlClause(
+            final @NotNull CollValueStore<T> store,
+            final @NotNull Path<T> entity,
+            final @NotNull QueryEngine engine,
+            final @NotNull Type type) {
+        super();
+        this.store = Validate.notNull(store);
+        this.entity = Validate.notNull(entity);
+        this.engine = Validate.notNull(engine);
+        this.type = Validate.notNull(type);
+    }
+
+    /**
+     * Returns the target value store.
+     * 
+     * @return The target value store
+     */
+    public @NotNull CollValueStore<T> getStore() {
+        return this.store;
+    }
+
+    /**
+     * Returns the target entity path.
+     * 
+     * @return The target entity path
+     */
+    public @NotNull Path<T> getEntity() {
+        return this.entity;
+    }
+
+    /**
+     * Returns the clause type.
+     * 
+     * @return The clause type
+     */
+    public @NotNull Type getType() {
+        return this.type;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <U> CollStoreDmlClause<T> set(
+            final @NotNull Path<U> path,
+            final U value) {
+        return assign(path, value == null ? null : ConstantImpl.create(value));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <U> CollStoreDmlClause<T> set(
+            final @NotNull Path<U> path,
+            final Expression<? extends U> expression) {
+        return assign(path, expression);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <U> CollStoreDmlClause<T> setNull(
+            final @NotNull Path<U> path) {
+        return assign(path, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CollStoreDmlClause<T> set(
+            final @NotNull List<? extends Path<?>> paths,
+            final @NotNull List<?> values) {
+        Validate.isTrue(paths.size() == values.size());
+        for (int i = 0; i < paths.size(); i++) {
+            assignValue(paths.get(i), values.get(i));
+        }
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CollStoreDmlClause<T> columns(
+            final @NotNull Path<?>... columns) {
+        this.columns = columns.clone();
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CollStoreDmlClause<T> values(
+            final @NotNull Object... values) {
+        Validate.validState(this.columns != null, "Columns not defined");
+        Validate.isTrue(this.columns.length == values.length);
+        for (int i = 0; i < values.length; i++) {
+            assignValue(this.columns[i], values[i]);
+        }
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @throws UnsupportedOperationException Always
+     */
+    @Override
+    public CollStoreDmlClause<T> select(
+            final @NotNull SubQueryExpression<?> subQuery) {
+        throw new UnsupportedOperationException(
+                "Insertion of sub query results is not supported");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CollStoreDmlClause<T> where(
+            final @NotNull Predicate... o) {
+        for (final Predicate predicate : o) {
+            if (predicate != null) {
+                this.filters.add(predicate);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isEmpty() {
+        return this.assignments.isEmpty();
+    }
+
+    /**
+     * Adds a new value with the assigned values to the batch of values to
+     * insert and clears the assignments. The batch is added to the store
+     * on the next execution.
+     * 
+     * @return This instance, for method chaining
+     * @throws IllegalStateException If this is not an insert clause or no
+     * value has been assigned
+     * @throws UnsupportedOperationException If a non constant expression
+     * has been assigned
+     */
+    public CollStoreDmlClause<T> addBatch() {
+        Validate.validState(this.type == Type.INSERT, "Only insert clauses support batches");
+        Validate.validState(!this.assignments.isEmpty(), "No values assigned");
+        final T value = this.store.create();
+        assignProperties(value, null);
+        this.batch.add(value);
+        this.assignments.clear();
+        return this;
+    }
+
+    /**
+     * Returns the count of values in the batch of values to insert.
+     * 
+     * @return The count of values in the batch
+     */
+    public int getBatchCount() {
+        return this.batch.size();
+    }
+
+    /**
+     * Clears the assigned values and the batch of values to insert.
+     */
+    public void clear() {
+        this.assignments.clear();
+        this.batch.clear();
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @throws IllegalStateException If no value has been assigned to an
+     * insert clause
+     * @throws UnsupportedOperationException If a non constant expression
+     * has been assigned to an insert clause
+     */
+    @Override
+    public long execute() {
+        switch (this.type) {
+            case INSERT:
+                return executeInsert();
+            case UPDATE:
+                return executeUpdate();
+            case DELETE:
+            default:
+                return this.store.replaceMatching(this::match, value -> null);
+        }
+    }
+
+    /**
+     * Adds a new value with the assigned values to the store and clears
+     * the assignments.
+     * <p>
+     * If values have been added to the batch the assigned values, if any,
+     * are added to the batch and the whole batch is added to the store
+     * with a single write. The batch is cleared.
+     * 
+     * @return The affected values count
+     */
+    protected long executeInsert() {
+        if (!this.batch.isEmpty()) {
+            if (!this.assignments.isEmpty()) {
+                addBatch();
+            }
+            final List<T> values = new ArrayList<>(this.batch);
+            this.batch.clear();
+            this.store.addAll(values);
+            return values.size();
+        }
+        Validate.validState(!this.assignments.isEmpty(), "No values assigned");
+        final T value = this.store.create();
+        assignProperties(value, null);
+        this.store.add(value);
+        this.assignments.clear();
+        return 1;
+    }
+
+    /**
+     * Replaces the values matching the clause filters with copies with
+     * the assigned values.
+     * 
+     * @return The affected values count
+     */
+    protected long executeUpdate() {
+        if (this.assignments.isEmpty()) {
+            return 0;
+        }
+        return this.store.replaceMatching(this::match, value -> {
+            final T copy = this.store.copy(value);
+            assignProperties(copy, value);
+            return copy;
+        });
+    }
+
+    /**
+     * Returns the values of the specified snapshot that match the clause
+     * filters.
+     * 
+     * @param values The snapshot of the values
+     * @return The matching values
+     */
+    protected @NotNull List<T> match(
+            final @NotNull List<T> values) {
+        if (this.filters.isEmpty()) {
+            return values;
+        }
+        return new CollQuery<Void>(this.engine)
+                .from(this.entity, values)
+                .where(this.filters.toArray(new Predicate[this.filters.size()]))
+                .select(this.entity)
+                .fetch();
+    }
+
+    /**
+     * Sets the assigned values as bean properties of the specified target
+     * value. Assigned expressions are evaluated against the specified
+     * source value.
+     * 
+     * @param target The value to modify
+     * @param source The value the assigned expressions are evaluated
+     * against, or {@code null} for inserts
+     */
+    protected void assignProperties(
+            final @NotNull T target,
+            final T source) {
+        final Map<String, Object> values = new LinkedHashMap<>();
+        for (final Map.Entry<Path<?>, Expression<?>> entry : this.assignments.entrySet()) {
+            values.put(
+                    entry.getKey().getMetadata().getName(),
+                    evaluate(entry.getValue(), source));
+        }
+        new BeanMap(target).putAll(values);
+    }
+
+    /**
+     * Evaluates the specified assigned expression against the specified
+     * source value.
+     * 
+     * @param expression The assigned expression
+     * @param source The value the expression is evaluated against, or
+     * {@code null} for inserts
+     * @return The value to assign
+     * @throws UnsupportedOperationException If the expression is not
+     * constant and there is no source value
+     */
+    protected Object evaluate(
+            final Expression<?> expression,
+            final T source) {
+        if (expression == null) {
+            return null;
+        } else if (expression instanceof Constant) {
+            return ((Constant<?>) expression).getConstant();
+        } else if (source == null) {
+            throw new UnsupportedOperationException(String.format(
+                    "Only constant values can be inserted: %s",
+                    expression));
+        }
+        return new CollQuery<Void>(this.engine)
+                .from(this.entity, Collections.singletonList(source))
+                .select(expression)
+                .fetchFirst();
+    }
+
+    /**
+     * Assigns the specified value, constant or expression, to the
+     * specified path.
+     * 
+     * @param path The assigned path
+     * @param value The assigned value
+     */
+    private void assignValue(
+            final @NotNull Path<?> path,
+            final Object value) {
+        if (value == null || value instanceof Expression) {
+            assign(path, (Expression<?>) value);
+        } else {
+            assign(path, ConstantImpl.create(value));
+        }
+    }
+
+    /**
+     * Assigns the specified expression to the specified path.
+     * 
+     * @param path The assigned path
+     * @param expression The assigned expression, or {@code null}
+     * @return This instance, for method chaining
+     * @throws IllegalArgumentException If the path is not a direct
+     * property of the target entity path
+     */
+    private CollStoreDmlClause<T> assign(
+            final @NotNull Path<?> path,
+            final Expression<?> expression) {
+        Validate.notNull(path);
+        Validate.isTrue(this.entity.equals(path.getMetadata().getParent()),
+                "Path %s is not a property of %s", path, this.entity);
+        this.assignments.put(path, expression);
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return this.type + " " + this.entity;
+    }
+
+    /**
+     * The collection store DML clause types.
+     * 
+     * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+     * @version 1.0, 2022-10
+     * @since CollStoreDmlClause 1.0
+     */
+    public enum Type {
+        /** Insert clause. */
+        INSERT,
+        /** Update clause. */
+        UPDATE,
+        /** Delete clause. */
+        DELETE
+    }
+}
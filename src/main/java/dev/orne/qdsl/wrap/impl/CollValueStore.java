@@ -0,0 +1,261 @@
+package dev.orne.qdsl.wrap.impl;
+
+/*-
+ * #%L
+ * Orne Querydsl Utils
+ * %%
+ * Copyright (C) 2022 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+import org.apiguardian.api.API;
+
+import com.querydsl.core.util.BeanMap;
+
+/**
+ * Concurrent mutable collection of values, writable through wrapped
+ * clauses of collection based providers.
+ * <p>
+ * Values are held in an immutable snapshot that is replaced on each
+ * write. Writes are serialized and copy the snapshot, while readers
+ * access the current snapshot without copying or locking, so queries
+ * observe a consistent state of the collection regardless of concurrent
+ * writes. Updated values are replaced by updated copies instead of
+ * modified in place, so values already returned to readers are never
+ * modified by the store.
+ * <p>
+ * New values and copies of existing values are created with the
+ * configured factory, and their properties are accessed as bean
+ * properties.
+ * <p>
+ * Intended for in-memory caches and test doubles with moderate write
+ * rates, as each write copies the references to all the values: a write
+ * to a store of {@code n} values costs {@code O(n)} time and allocates a
+ * new array of {@code n} references, whatever the count of written
+ * values. Adding {@code n} values one by one costs quadratic time,
+ * so values should be added with {@link #addAll(Collection)}, or
+ * inserted with batches of {@code CollStoreDmlClause}, instead.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2022-10
+ * @param <T> The values type
+ * @since 0.1
+ * @see AbstractWrappedCollClauseProvider
+ * @see CollStoreDmlClause
+ */
+@API(status=API.Status.EXPERIMENTAL, since="0.1")
+public class CollValueStore<T>
+extends AbstractCollection<T> {
+
+    /** The factory of new values. */
+    private final @NotNull Supplier<? extends T> factory;
+    /** The write lock. */
+    private final @NotNull Object lock = new Object();
+    /** The current snapshot of the values. */
+    private volatile @NotNull List<T> snapshot = Collections.emptyList();
+
+    /**
+     * Creates a new empty instance.
+     * 
+     * @param factory The factory of new values
+     */
+    public CollValueStore(
+            final @NotNull Supplier<? extends T> factory) {
+        super();
+        this.factory = Validate.notNull(factory);
+    }
+
+    /**
+     * Creates a new instance with the specified initial values.
+     * 
+     * @param factory The factory of new values
+     * @param values The initial values
+     */
+    public CollValueStore(
+            final @NotNull Supplier<? extends T> factory,
+            final @NotNull Collection<? extends T> values) {
+        this(factory);
+        this.snapshot = freeze(new ArrayList<>(Validate.notNull(values)));
+    }
+
+    /**
+     * Returns the factory of new values.
+     * 
+     * @return The factory of new values
+     */
+    public @NotNull Supplier<? extends T> getFactory() {
+        return this.factory;
+    }
+
+    /**
+     * Returns the current snapshot of the values. The returned list is
+     * unmodifiable and is not affected by later writes.
+     * 
+     * @return The current snapshot of the values
+     */
+    public @NotNull List<T> snapshot() {
+        return this.snapshot;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The returned iterator traverses the current snapshot of the values
+     * and does not support removal.
+     */
+    @Override
+    public @NotNull Iterator<T> iterator() {
+        return this.snapshot.iterator();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        return this.snapshot.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean add(
+            final T value) {
+        return addAll(Collections.singletonList(value));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean addAll(
+            final @NotNull Collection<? extends T> values) {
+        Validate.notNull(values);
+        if (values.isEmpty()) {
+            return false;
+        }
+        synchronized (this.lock) {
+            final List<T> result = new ArrayList<>(this.snapshot.size() + values.size());
+            result.addAll(this.snapshot);
+            result.addAll(values);
+            this.snapshot = freeze(result);
+        }
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clear() {
+        synchronized (this.lock) {
+            this.snapshot = Collections.emptyList();
+        }
+    }
+
+    /**
+     * Replaces the values selected by the specified matcher from the
+     * current snapshot with the results of the specified replacement
+     * function, atomically with respect to other writes. Values replaced
+     * with {@code null} are removed.
+     * 
+     * @param matcher The function that selects the matching values
+     * from a snapshot
+     * @param replacement The replacement function of matching values
+     * @return The count of replaced values
+     */
+    public int replaceMatching(
+            final @NotNull Function<? super List<T>, ? extends Collection<? extends T>> matcher,
+            final @NotNull UnaryOperator<T> replacement) {
+        Validate.notNull(matcher);
+        Validate.notNull(replacement);
+        synchronized (this.lock) {
+            final List<T> current = this.snapshot;
+            final Set<Object> matches = Collections.newSetFromMap(new IdentityHashMap<>());
+            matches.addAll(matcher.apply(current));
+            if (matches.isEmpty()) {
+                return 0;
+            }
+            final List<T> result = new ArrayList<>(current.size());
+            int count = 0;
+            for (final T value : current) {
+                if (matches.contains(value)) {
+                    count++;
+                    final T replaced = replacement.apply(value);
+                    if (replaced != null) {
+                        result.add(replaced);
+                    }
+                } else {
+                    result.add(value);
+                }
+            }
+            this.snapshot = freeze(result);
+            return count;
+        }
+    }
+
+    /**
+     * Creates a new value with the configured factory.
+     * 
+     * @return The created value
+     */
+    public @NotNull T create() {
+        return Validate.notNull(this.factory.get(), "No value created by the factory");
+    }
+
+    /**
+     * Creates a copy of the specified value with the configured factory,
+     * copying its writable bean properties.
+     * 
+     * @param value The value to copy
+     * @return The created copy
+     */
+    public @NotNull T copy(
+            final @NotNull T value) {
+        final T result = create();
+        new BeanMap(result).putAllWriteable(new BeanMap(Validate.notNull(value)));
+        return result;
+    }
+
+    /**
+     * Returns an unmodifiable view of the specified new list, which must
+     * not be modified afterwards.
+     * 
+     * @param <T> The values type
+     * @param values The values
+     * @return The unmodifiable view
+     */
+    private static <T> @NotNull List<T> freeze(
+            final @NotNull List<T> values) {
+        return Collections.unmodifiableList(values);
+    }
+}
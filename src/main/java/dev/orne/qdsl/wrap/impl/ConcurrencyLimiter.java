@@ -0,0 +1,481 @@
+package dev.orne.qdsl.wrap.impl;
+
+/*-
+ * #%L
+ * Orne Querydsl Utils
+ * %%
+ * Copyright (C) 2022 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+
+import com.mysema.commons.lang.CloseableIterator;
+
+import dev.orne.qdsl.wrap.ConcurrencyLimitExceededException;
+import dev.orne.qdsl.wrap.QueryCancelledException;
+
+/**
+ * Bulkhead that limits the number of concurrent executions of the
+ * clauses created by a wrapped clause provider.
+ * <p>
+ * Executions that find the limit reached wait in a bounded queue for
+ * an execution permit. Executions are rejected with a
+ * {@code ConcurrencyLimitExceededException} if the queue is full or
+ * no permit becomes available before the queue timeout.
+ * <p>
+ * If a latency threshold is configured the limit adapts to the
+ * observed latency: it is reduced multiplicatively when an execution
+ * takes longer than the threshold and increased by one, up to the
+ * maximum concurrency, when a fast execution completes while the
+ * limit is reached.
+ * <p>
+ * Instances are thread safe.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2022-10
+ * @since 0.1
+ * @see AbstractWrappedClauseProvider#setConcurrencyLimiter(ConcurrencyLimiter)
+ */
+public class ConcurrencyLimiter {
+
+    /** The factor applied to the limit on slow executions. */
+    public static final double BACKOFF_RATIO = 0.75;
+
+    /** The maximum number of concurrent executions. */
+    private final int maxConcurrency;
+    /** The maximum number of executions waiting for a permit. */
+    private final int maxQueued;
+    /** The maximum time to wait for a permit, in milliseconds. */
+    private final long queueTimeout;
+    /** The lock guarding the permits state. */
+    private final @NotNull ReentrantLock lock = new ReentrantLock(true);
+    /** The condition signaled when permits are released. */
+    private final @NotNull Condition available = this.lock.newCondition();
+    /** The current concurrency limit. */
+    private int limit;
+    /** The number of executions in flight. */
+    private int inFlight;
+    /** The number of executions waiting for a permit. */
+    private int queued;
+    /** The number of rejected executions. */
+    private long rejectedCount;
+    /** The latency threshold for adaptive limits, in milliseconds. */
+    private long latencyThreshold;
+
+    /**
+     * Creates a new instance with no queue. Executions that find the
+     * limit reached are rejected immediately.
+     * 
+     * @param maxConcurrency The maximum number of concurrent executions
+     */
+    public ConcurrencyLimiter(
+            final int maxConcurrency) {
+        this(maxConcurrency, 0, 0);
+    }
+
+    /**
+     * Creates a new instance.
+     * <p>
+     * A queue timeout of zero means that queued executions wait for a
+     * permit without timeout.
+     * 
+     * @param maxConcurrency The maximum number of concurrent executions
+     * @param maxQueued The maximum number of executions waiting for a
+     * permit
+     * @param queueTimeout The maximum time to wait for a permit, in
+     * milliseconds
+     */
+    public ConcurrencyLimiter(
+            final int maxConcurrency,
+            final int maxQueued,
+            final long queueTimeout) {
+        super();
+        Validate.isTrue(maxConcurrency > 0, "Maximum concurrency must be positive");
+        Validate.isTrue(maxQueued >= 0, "Maximum queue size cannot be negative");
+        Validate.isTrue(queueTimeout >= 0, "Queue timeout cannot be negative");
+        this.maxConcurrency = maxConcurrency;
+        this.maxQueued = maxQueued;
+        this.queueTimeout = queueTimeout;
+        this.limit = maxConcurrency;
+    }
+
+    /**
+     * Returns the maximum number of concurrent executions.
+     * 
+     * @return The maximum number of concurrent executions
+     */
+    public int getMaxConcurrency() {
+        return this.maxConcurrency;
+    }
+
+    /**
+     * Returns the maximum number of executions waiting for a permit.
+     * 
+     * @return The maximum number of executions waiting for a permit
+     */
+    public int getMaxQueued() {
+        return this.maxQueued;
+    }
+
+    /**
+     * Returns the maximum time to wait for a permit, in milliseconds.
+     * Zero means no timeout.
+     * 
+     * @return The maximum time to wait for a permit
+     */
+    public long getQueueTimeout() {
+        return this.queueTimeout;
+    }
+
+    /**
+     * Returns the latency threshold for adaptive limits, in milliseconds.
+     * Zero means that the limit is not adaptive.
+     * 
+     * @return The latency threshold
+     */
+    public long getLatencyThreshold() {
+        this.lock.lock();
+        try {
+            return this.latencyThreshold;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Sets the latency threshold for adaptive limits, in milliseconds.
+     * Zero disables the adaptive limit and restores the maximum
+     * concurrency as limit.
+     * <p>
+     * Disabled by default.
+     * 
+     * @param threshold The latency threshold
+     */
+    public void setLatencyThreshold(
+            final long threshold) {
+        Validate.isTrue(threshold >= 0, "Latency threshold cannot be negative");
+        this.lock.lock();
+        try {
+            this.latencyThreshold = threshold;
+            if (threshold == 0) {
+                this.limit = this.maxConcurrency;
+                this.available.signalAll();
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the current concurrency limit.
+     * 
+     * @return The current concurrency limit
+     */
+    public int getLimit() {
+        this.lock.lock();
+        try {
+            return this.limit;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of executions in flight.
+     * 
+     * @return The number of executions in flight
+     */
+    public int getInFlightCount() {
+        this.lock.lock();
+        try {
+            return this.inFlight;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of executions waiting for a permit.
+     * 
+     * @return The number of executions waiting for a permit
+     */
+    public int getQueueDepth() {
+        this.lock.lock();
+        try {
+            return this.queued;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of executions rejected since the creation of
+     * this instance.
+     * 
+     * @return The number of rejected executions
+     */
+    public long getRejectedCount() {
+        this.lock.lock();
+        try {
+            return this.rejectedCount;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Executes the specified execution holding an execution permit.
+     * 
+     * @param <R> The execution result type
+     * @param execution The execution
+     * @return The execution result
+     * @throws ConcurrencyLimitExceededException If no permit is available
+     * @throws QueryCancelledException If the calling thread is
+     * interrupted while waiting for a permit
+     */
+    public <R> R execute(
+            final @NotNull Supplier<R> execution) {
+        Validate.notNull(execution);
+        acquire();
+        final long start = System.nanoTime();
+        try {
+            return execution.get();
+        } finally {
+            release(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Executes the specified iteration holding an execution permit until
+     * the returned iterator is closed, so the permit bounds the lifetime
+     * of the underlying cursor and not only its creation.
+     * <p>
+     * The latency of the iterator creation is used to adapt the limit,
+     * as the consumption of the results depends on the caller.
+     * 
+     * @param <E> The iterated elements type
+     * @param execution The iteration execution
+     * @return The iterator that releases the permit on close
+     * @throws ConcurrencyLimitExceededException If no permit is available
+     * @throws QueryCancelledException If the calling thread is
+     * interrupted while waiting for a permit
+     */
+    public <E> @NotNull CloseableIterator<E> iterate(
+            final @NotNull Supplier<? extends CloseableIterator<E>> execution) {
+        Validate.notNull(execution);
+        acquire();
+        final long start = System.nanoTime();
+        final CloseableIterator<E> iterator;
+        try {
+            iterator = execution.get();
+        } catch (final RuntimeException | Error e) {
+            release(System.nanoTime() - start);
+            throw e;
+        }
+        return new PermitIterator<>(this, iterator, System.nanoTime() - start);
+    }
+
+    /**
+     * Acquires an execution permit, waiting in the queue if the limit
+     * is reached.
+     * 
+     * @throws ConcurrencyLimitExceededException If no permit is available
+     * @throws QueryCancelledException If the calling thread is
+     * interrupted while waiting for a permit
+     */
+    protected void acquire() {
+        this.lock.lock();
+        try {
+            if (this.queued == 0 && this.inFlight < this.limit) {
+                this.inFlight++;
+                return;
+            }
+            if (this.queued >= this.maxQueued) {
+                throw reject("Concurrency limit of %d executions reached");
+            }
+            this.queued++;
+            try {
+                awaitPermit();
+            } finally {
+                this.queued--;
+            }
+            this.inFlight++;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Waits for an execution permit to be available. Must be called
+     * holding the lock.
+     * 
+     * @throws ConcurrencyLimitExceededException If the queue timeout
+     * is exceeded
+     * @throws QueryCancelledException If the calling thread is
+     * interrupted
+     */
+    private void awaitPermit() {
+        long remaining = TimeUnit.MILLISECONDS.toNanos(this.queueTimeout);
+        try {
+            while (this.inFlight >= this.limit) {
+                if (this.queueTimeout == 0) {
+                    this.available.await();
+                } else if (remaining <= 0) {
+                    throw reject("No execution permit available after "
+                            + this.queueTimeout + " ms with limit of %d executions");
+                } else {
+                    remaining = this.available.awaitNanos(remaining);
+                }
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new QueryCancelledException(
+                    "Interrupted while waiting for an execution permit", e);
+        }
+    }
+
+    /**
+     * Registers a rejected execution and creates the exception to throw.
+     * Must be called holding the lock.
+     * 
+     * @param message The exception message format, with the current
+     * limit as argument
+     * @return The exception to throw
+     */
+    private @NotNull ConcurrencyLimitExceededException reject(
+            final @NotNull String message) {
+        this.rejectedCount++;
+        return new ConcurrencyLimitExceededException(
+                String.format(message, this.limit));
+    }
+
+    /**
+     * Releases an execution permit, adapting the limit to the execution
+     * latency if a latency threshold is configured.
+     * 
+     * @param latency The execution latency, in nanoseconds
+     */
+    protected void release(
+            final long latency) {
+        this.lock.lock();
+        try {
+            final boolean saturated = this.inFlight >= this.limit;
+            this.inFlight--;
+            if (this.latencyThreshold > 0) {
+                if (latency > TimeUnit.MILLISECONDS.toNanos(this.latencyThreshold)) {
+                    this.limit = Math.max(1, (int) (this.limit * BACKOFF_RATIO));
+                } else if (saturated && this.limit < this.maxConcurrency) {
+                    this.limit++;
+                }
+            }
+            this.available.signalAll();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Closeable iterator that holds an execution permit of a concurrency
+     * limiter until closed.
+     * 
+     * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+     * @version 1.0, 2022-10
+     * @param <E> The iterated elements type
+     * @since ConcurrencyLimiter 1.0
+     */
+    protected static class PermitIterator<E>
+    implements CloseableIterator<E> {
+
+        /** The concurrency limiter that granted the permit. */
+        private final @NotNull ConcurrencyLimiter limiter;
+        /** The delegate iterator. */
+        private final @NotNull CloseableIterator<E> delegate;
+        /** The latency of the delegate iterator creation, in nanoseconds. */
+        private final long latency;
+        /** If the permit has been released. */
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        /**
+         * Creates a new instance.
+         * 
+         * @param limiter The concurrency limiter that granted the permit
+         * @param delegate The delegate iterator
+         * @param latency The latency of the delegate iterator creation,
+         * in nanoseconds
+         */
+        protected PermitIterator(
+                final @NotNull ConcurrencyLimiter limiter,
+                final @NotNull CloseableIterator<E> delegate,
+                final long latency) {
+            super();
+            this.limiter = limiter;
+            this.delegate = delegate;
+            this.latency = latency;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean hasNext() {
+            return this.delegate.hasNext();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public E next() {
+            return this.delegate.next();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void remove() {
+            this.delegate.remove();
+        }
+
+        /**
+         * {@inheritDoc}
+         * <p>
+         * Closes the delegate iterator and releases the permit. The permit
+         * is released only once, even if the delegate iterator fails to
+         * close.
+         */
+        @Override
+        public void close() {
+            try {
+                this.delegate.close();
+            } finally {
+                if (this.released.compareAndSet(false, true)) {
+                    this.limiter.release(this.latency);
+                }
+            }
+        }
+    }
+}
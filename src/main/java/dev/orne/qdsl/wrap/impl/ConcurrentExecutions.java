@@ -0,0 +1,149 @@
+package dev.orne.qdsl.wrap.impl;
+
+/*-
+ * #%L
+ * Orne Querydsl Utils
+ * %%
+ * Copyright (C) 2022 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+import javax.validation.constraints.NotNull;
+
+import com.mysema.commons.lang.CloseableIterator;
+import com.querydsl.core.QueryModifiers;
+
+/**
+ * Utility methods shared by the clauses that execute an operation over
+ * several sources, like shards, partitions or federated providers, and
+ * merge their results.
+ * <p>
+ * Used by the concurrent batch fetches by reference of wrapped query
+ * clauses, the shard fan-out of sharded SQL queries, the federated
+ * queries and the partitioned SQL scans.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2022-10
+ * @since 0.1
+ * @see WrappedQueryClause
+ * @see SqlShardRouter
+ * @see ShardedSqlQuery
+ * @see FederatedQueryClause
+ * @see SqlPartitionedScan
+ */
+final class ConcurrentExecutions {
+
+    /**
+     * Private constructor.
+     */
+    private ConcurrentExecutions() {
+        // Utility class
+    }
+
+    /**
+     * Executes the specified operation over each of the specified sources,
+     * concurrently in the specified executor if provided and there is more
+     * than one source.
+     * <p>
+     * Waits for all the operations to complete. The first failure is
+     * rethrown, unwrapped from the {@code CompletionException}.
+     * 
+     * @param <S> The sources type
+     * @param <R> The operation result type
+     * @param sources The sources
+     * @param operation The operation, receiving the source
+     * @param executor The executor, or {@code null} for sequential
+     * execution in the calling thread
+     * @return The operation results, in the order of the sources
+     */
+    static <S, R> @NotNull List<R> executeAll(
+            final @NotNull List<? extends S> sources,
+            final @NotNull Function<? super S, R> operation,
+            final Executor executor) {
+        final List<R> result = new ArrayList<>(sources.size());
+        if (executor == null || sources.size() < 2) {
+            for (final S source : sources) {
+                result.add(operation.apply(source));
+            }
+            return result;
+        }
+        final List<CompletableFuture<R>> futures = new ArrayList<>(sources.size());
+        for (final S source : sources) {
+            futures.add(CompletableFuture.supplyAsync(() -> operation.apply(source), executor));
+        }
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+        } catch (final CompletionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+        for (final CompletableFuture<R> future : futures) {
+            result.add(future.join());
+        }
+        return result;
+    }
+
+    /**
+     * Collects the specified results in a list, closing the iterator.
+     * 
+     * @param <E> The results type
+     * @param results The results
+     * @return The results list
+     */
+    static <E> @NotNull List<E> collect(
+            final @NotNull CloseableIterator<E> results) {
+        try {
+            final List<E> list = new ArrayList<>();
+            while (results.hasNext()) {
+                list.add(results.next());
+            }
+            return list;
+        } finally {
+            results.close();
+        }
+    }
+
+    /**
+     * Returns the specified modifiers restricted to the specified maximum
+     * limit, keeping the offset.
+     * 
+     * @param modifiers The modifiers to restrict
+     * @param limit The maximum limit
+     * @return The restricted modifiers
+     */
+    static @NotNull QueryModifiers restrictLimit(
+            final @NotNull QueryModifiers modifiers,
+            final long limit) {
+        final Long current = modifiers.getLimit();
+        return new QueryModifiers(
+                current == null ? limit : Math.min(current, limit),
+                modifiers.getOffset());
+    }
+}
@@ -0,0 +1,167 @@
+package dev.orne.qdsl.wrap.impl;
+
+/*-
+ * #%L
+ * Orne Querydsl Utils
+ * %%
+ * Copyright (C) 2022 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.Validate;
+
+import dev.orne.qdsl.wrap.CancelHandle;
+import dev.orne.qdsl.wrap.QueryCancelledException;
+
+/**
+ * Execution bounds of wrapped clauses: the execution timeout and
+ * the cancel handle.
+ * <p>
+ * Instances are shared by a wrapped query clause and the clauses derived
+ * from it, so bounds applied to the delegate clauses, as SQL listeners,
+ * observe later changes. Instances are thread safe.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2022-10
+ * @since 0.1
+ */
+public class ExecutionBounds {
+
+    /** The execution timeout, in milliseconds. Zero for no timeout. */
+    private volatile long timeout;
+    /** The cancel handle. */
+    private volatile CancelHandle cancelHandle;
+
+    /**
+     * Creates a new instance with no timeout and no cancel handle.
+     */
+    public ExecutionBounds() {
+        super();
+    }
+
+    /**
+     * Returns the execution timeout, in milliseconds.
+     * Zero means no timeout.
+     * 
+     * @return The execution timeout
+     */
+    public long getTimeout() {
+        return this.timeout;
+    }
+
+    /**
+     * Returns the execution timeout in whole seconds, rounded up,
+     * as expected by JDBC statements. Zero means no timeout.
+     * 
+     * @return The execution timeout, in seconds
+     */
+    public int getTimeoutSeconds() {
+        return (int) Math.min(
+                Integer.MAX_VALUE,
+                TimeUnit.MILLISECONDS.toSeconds(this.timeout + 999));
+    }
+
+    /**
+     * Sets the execution timeout, in milliseconds.
+     * Zero means no timeout.
+     * 
+     * @param timeout The execution timeout
+     */
+    public void setTimeout(
+            final long timeout) {
+        Validate.isTrue(timeout >= 0, "Timeout cannot be negative");
+        this.timeout = timeout;
+    }
+
+    /**
+     * Returns the cancel handle, if any.
+     * 
+     * @return The cancel handle
+     */
+    public CancelHandle getCancelHandle() {
+        return this.cancelHandle;
+    }
+
+    /**
+     * Sets the cancel handle.
+     * 
+     * @param handle The cancel handle
+     */
+    public void setCancelHandle(
+            final CancelHandle handle) {
+        this.cancelHandle = handle;
+    }
+
+    /**
+     * Returns {@code true} if a timeout or a cancel handle is configured.
+     * 
+     * @return If the executions are bounded
+     */
+    public boolean isBounded() {
+        return this.timeout > 0 || this.cancelHandle != null;
+    }
+
+    /**
+     * Returns the deadline of an execution started now, as a
+     * {@code System.nanoTime()} value, or {@code Long.MAX_VALUE}
+     * if no timeout is configured.
+     * 
+     * @return The execution deadline
+     */
+    public long getDeadline() {
+        final long current = this.timeout;
+        if (current <= 0) {
+            return Long.MAX_VALUE;
+        }
+        return System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(current);
+    }
+
+    /**
+     * Throws a {@code QueryCancelledException} if the cancel handle
+     * has been cancelled.
+     * 
+     * @throws QueryCancelledException If the cancel handle has been
+     * cancelled
+     */
+    public void checkCancelled() {
+        final CancelHandle handle = this.cancelHandle;
+        if (handle != null) {
+            handle.checkCancelled();
+        }
+    }
+
+    /**
+     * Throws a {@code QueryCancelledException} if the cancel handle
+     * has been cancelled or the specified deadline has passed.
+     * 
+     * @param deadline The execution deadline
+     * @throws QueryCancelledException If the cancel handle has been
+     * cancelled or the deadline has passed
+     * @see #getDeadline()
+     */
+    public void checkBounds(
+            final long deadline) {
+        checkCancelled();
+        if (deadline != Long.MAX_VALUE && System.nanoTime() - deadline > 0) {
+            throw new QueryCancelledException(String.format(
+                    "Clause execution timed out after %d ms",
+                    this.timeout));
+        }
+    }
+}
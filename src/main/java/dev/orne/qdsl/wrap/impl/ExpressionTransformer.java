@@ -28,6 +28,7 @@ import org.apiguardian.api.API;
 
 import com.querydsl.core.types.Expression;
 import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.Path;
 import com.querydsl.core.types.Predicate;
 import com.querydsl.core.types.Visitor;
 
@@ -63,6 +64,30 @@ extends Visitor<Expression<?>, Void> {
     @NotNull <U> Expression<U> translateProjection(
             @NotNull Expression<U> expr);
 
+    /**
+     * Transforms the specified path of generated keys to retrieve to the
+     * projection to retrieve from the delegated clause.
+     * <p>
+     * Also used to retrieve the reference values of batch fetches by
+     * reference, so the values of value mapped reference paths are
+     * returned in the source representation.
+     * <p>
+     * The resulting expression is a {@code Path} or a
+     * {@code ConvertedProjection} which source is a {@code Path}, that
+     * converts the retrieved values back to the original path type.
+     * Validates that the resulting expression type is assignable to the
+     * original path type.
+     * 
+     * @param <U> The type of the path
+     * @param path The key path to transform
+     * @return The resulting expression, transformed if required
+     * @throws ExpressionTransformationException If an exception occurs
+     * @see dev.orne.qdsl.wrap.impl.transform.ConvertedProjection
+     * @see WrappedQueryClause#fetchByReferences(java.util.Collection, java.util.concurrent.Executor)
+     */
+    @NotNull <U> Expression<U> translateKeyPath(
+            @NotNull Path<U> path);
+
     /**
      * Transforms the specified query projection expressions if required.
      * 
@@ -0,0 +1,691 @@
+package dev.orne.qdsl.wrap.impl;
+
+/*-
+ * #%L
+ * Orne Querydsl Utils
+ * %%
+ * Copyright (C) 2022 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+
+import com.mysema.commons.lang.CloseableIterator;
+import com.querydsl.core.NonUniqueResultException;
+import com.querydsl.core.QueryModifiers;
+import com.querydsl.core.QueryResults;
+import com.querydsl.core.ResultTransformer;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.support.ExtendedSubQuery;
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.Projections;
+import com.querydsl.core.types.QTuple;
+
+import dev.orne.qdsl.wrap.CancelHandle;
+import dev.orne.qdsl.wrap.ExtendedQueryClause;
+import dev.orne.qdsl.wrap.ReferenceProjection;
+import dev.orne.qdsl.wrap.ResultPublisher;
+import dev.orne.qdsl.wrap.WrappedQueryClauseProvider;
+
+/**
+ * Query clause that executes the same query over all the wrapped query
+ * clause providers that support an entity path, merging their results.
+ * <p>
+ * The clause records the query filters, ordering, modifiers and projection
+ * as public API expressions. On execution a query clause is created by each
+ * provider, that translates the expressions with its own transformer, and
+ * the queries are executed concurrently if an executor is configured.
+ * <ul>
+ * <li>Ordered results are merged lazily by the query order specifiers,
+ * whose targets are added to the projection of the provider queries.
+ * Ordered queries require a projection.</li>
+ * <li>The limit and offset are applied to the merged results. Each
+ * provider query fetches up to the limit plus the offset results.</li>
+ * <li>Unordered results are returned in providers order.</li>
+ * <li>Results counts are summed. Distinct results are distinct for each
+ * provider.</li>
+ * <li>Reference fetches are executed by each provider query and their
+ * results merged.</li>
+ * </ul>
+ * Aggregated queries and sub queries are not supported.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2022-10
+ * @param <T> The query results type
+ * @since 0.1
+ * @see dev.orne.qdsl.wrap.WrappedClauseFactory#queryFederated(EntityPath, Executor)
+ */
+public class FederatedQueryClause<T>
+implements ExtendedQueryClause<T, FederatedQueryClause<T>> {
+
+    /** The target entity path. */
+    private final @NotNull EntityPath<?> entity;
+    /** The providers to query. */
+    private final @NotNull List<WrappedQueryClauseProvider> providers;
+    /** The executor of the provider queries. */
+    private final Executor executor;
+    /** The query projection, if selected. */
+    private Expression<?>[] projection;
+    /** If the query projection is a tuple. */
+    private boolean tuple;
+    /** The query filters. */
+    private final @NotNull List<Predicate> filters;
+    /** The query order specifiers. */
+    private final @NotNull List<OrderSpecifier<?>> orders;
+    /** The query parameter bindings. */
+    private final @NotNull Map<ParamExpression<?>, Object> params;
+    /** If the query results must be distinct. */
+    private boolean distinct;
+    /** The query modifiers. */
+    private @NotNull QueryModifiers modifiers = QueryModifiers.EMPTY;
+    /** The execution timeout, in milliseconds. */
+    private long timeout;
+    /** The cancel handle. */
+    private CancelHandle cancelHandle;
+
+    /**
+     * Creates a new instance.
+     * <p>
+     * If {@code executor} is {@code null} the provider queries are
+     * executed sequentially in the calling thread.
+     * 
+     * @param entity The target entity path
+     * @param providers The providers to query
+     * @param executor The executor of the provider queries
+     */
+    public FederatedQueryClause(
+            final @NotNull EntityPath<?> entity,
+            final @NotNull Collection<? extends WrappedQueryClauseProvider> providers,
+            final Executor executor) {
+        super();
+        this.entity = Validate.notNull(entity);
+        Validate.notNull(providers);
+        Validate.noNullElements(providers);
+        Validate.isTrue(!providers.isEmpty(), "At least one provider is required");
+        this.providers = new ArrayList<>(providers);
+        this.executor = executor;
+        this.filters = new ArrayList<>();
+        this.orders = new ArrayList<>();
+        this.params = new LinkedHashMap<>();
+    }
+
+    /**
+     * Creates a new instance with the state of the specified clause.
+     * 
+     * @param copy The clause to copy
+     */
+    protected FederatedQueryClause(
+            final @NotNull FederatedQueryClause<?> copy) {
+        super();
+        this.entity = copy.entity;
+        this.providers = copy.providers;
+        this.executor = copy.executor;
+        this.projection = copy.projection;
+        this.tuple = copy.tuple;
+        this.filters = new ArrayList<>(copy.filters);
+        this.orders = new ArrayList<>(copy.orders);
+        this.params = new LinkedHashMap<>(copy.params);
+        this.distinct = copy.distinct;
+        this.modifiers = copy.modifiers;
+        this.timeout = copy.timeout;
+        this.cancelHandle = copy.cancelHandle;
+    }
+
+    /**
+     * Returns the target entity path.
+     * 
+     * @return The target entity path
+     */
+    public @NotNull EntityPath<?> getEntity() {
+        return this.entity;
+    }
+
+    /**
+     * Returns the providers to query.
+     * 
+     * @return The providers to query
+     */
+    public @NotNull List<WrappedQueryClauseProvider> getProviders() {
+        return new ArrayList<>(this.providers);
+    }
+
+    /**
+     * Returns the executor of the provider queries, if any.
+     * 
+     * @return The executor of the provider queries
+     */
+    public Executor getExecutor() {
+        return this.executor;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <U> @NotNull FederatedQueryClause<U> select(
+            final @NotNull Expression<U> expr) {
+        final FederatedQueryClause<U> result = new FederatedQueryClause<>(this);
+        result.projection = new Expression<?>[] { Validate.notNull(expr) };
+        result.tuple = false;
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull FederatedQueryClause<Tuple> select(
+            final @NotNull Expression<?>... exprs) {
+        Validate.notEmpty(exprs);
+        Validate.noNullElements(exprs);
+        final FederatedQueryClause<Tuple> result = new FederatedQueryClause<>(this);
+        result.projection = exprs.clone();
+        result.tuple = true;
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public FederatedQueryClause<T> where(
+            final Predicate... o) {
+        for (final Predicate predicate : o) {
+            if (predicate != null) {
+                this.filters.add(predicate);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public FederatedQueryClause<T> limit(
+            final long limit) {
+        this.modifiers = new QueryModifiers(limit, this.modifiers.getOffset());
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public FederatedQueryClause<T> offset(
+            final long offset) {
+        this.modifiers = new QueryModifiers(this.modifiers.getLimit(), offset);
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public FederatedQueryClause<T> restrict(
+            final QueryModifiers modifiers) {
+        this.modifiers = modifiers == null ? QueryModifiers.EMPTY : modifiers;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public FederatedQueryClause<T> orderBy(
+            final OrderSpecifier<?>... o) {
+        for (final OrderSpecifier<?> order : o) {
+            this.orders.add(Validate.notNull(order));
+        }
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <P> FederatedQueryClause<T> set(
+            final @NotNull ParamExpression<P> param,
+            final P value) {
+        this.params.put(Validate.notNull(param), value);
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public FederatedQueryClause<T> distinct() {
+        this.distinct = true;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The timeout applies to each provider query.
+     */
+    @Override
+    public @NotNull FederatedQueryClause<T> timeout(
+            final long timeout,
+            final @NotNull TimeUnit unit) {
+        Validate.notNull(unit);
+        Validate.isTrue(timeout >= 0, "Timeout cannot be negative");
+        this.timeout = unit.toMillis(timeout);
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The handle cancels all the provider queries.
+     */
+    @Override
+    public @NotNull FederatedQueryClause<T> cancelHandle(
+            final CancelHandle handle) {
+        this.cancelHandle = handle;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Federated queries cannot be used as sub queries.
+     * 
+     * @throws UnsupportedOperationException Always
+     */
+    @Override
+    public @NotNull ExtendedSubQuery<T> asSubQuery() {
+        throw new UnsupportedOperationException(
+                "Federated queries cannot be used as sub queries");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull ResultPublisher<T> publish() {
+        return publish(null);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull ResultPublisher<T> publish(
+            final Executor executor) {
+        return new IteratorResultPublisher<>(this::iterate, executor);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The provider queries are checked sequentially until one of them has
+     * any result.
+     */
+    @Override
+    public boolean exists() {
+        checkCancelled();
+        validateMergeable();
+        for (final WrappedQueryClauseProvider provider : this.providers) {
+            if (createQuery(provider, null).exists()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <I> @NotNull Map<I, T> fetchByReferences(
+            final @NotNull Collection<? extends I> references) {
+        return fetchByReferences(references, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The references are fetched by the query clause of each provider,
+     * with the specified executor, and the results merged in providers
+     * order. The provider queries are executed concurrently if an
+     * executor is configured in this query.
+     * 
+     * @throws NonUniqueResultException If more than one result is found
+     * for a reference, in the same or different providers
+     */
+    @Override
+    public <I> @NotNull Map<I, T> fetchByReferences(
+            final @NotNull Collection<? extends I> references,
+            final Executor executor) {
+        Validate.notNull(references);
+        Validate.noNullElements(references);
+        Validate.validState(
+                this.projection != null
+                    && !this.tuple
+                    && this.projection[0] instanceof ReferenceProjection,
+                "Query projection is not a reference projection");
+        checkCancelled();
+        final Map<I, T> result = new LinkedHashMap<>();
+        for (final Map<I, ?> providerResults : executeAll(
+                provider -> createQuery(provider, null).<I>fetchByReferences(references, executor))) {
+            for (final Map.Entry<I, ?> entry : providerResults.entrySet()) {
+                @SuppressWarnings("unchecked")
+                final T value = (T) entry.getValue();
+                if (result.put(entry.getKey(), value) != null) {
+                    throw new NonUniqueResultException(
+                            "More than one result found for reference " + entry.getKey());
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <S> S transform(
+            final @NotNull ResultTransformer<S> transformer) {
+        return transformer.transform(this);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<T> fetch() {
+        return ConcurrentExecutions.collect(fetchMerged(this.modifiers));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public T fetchFirst() {
+        final List<T> results = ConcurrentExecutions.collect(fetchMerged(restrictLimit(1)));
+        return results.isEmpty() ? null : results.get(0);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public T fetchOne()
+    throws NonUniqueResultException {
+        final List<T> results = ConcurrentExecutions.collect(fetchMerged(restrictLimit(2)));
+        if (results.size() > 1) {
+            throw new NonUniqueResultException();
+        }
+        return results.isEmpty() ? null : results.get(0);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The provider queries are opened, concurrently if an executor is
+     * configured, and their results merged lazily.
+     */
+    @Override
+    public CloseableIterator<T> iterate() {
+        checkCancelled();
+        validateMergeable();
+        final QueryModifiers merged = this.modifiers;
+        final List<CloseableIterator<?>> opened = new CopyOnWriteArrayList<>();
+        final List<CloseableIterator<?>> results;
+        try {
+            results = executeAll(provider -> {
+                final CloseableIterator<?> iterator = createQuery(provider, merged).iterate();
+                opened.add(iterator);
+                return iterator;
+            });
+        } catch (final RuntimeException | Error e) {
+            for (final CloseableIterator<?> iterator : opened) {
+                iterator.close();
+            }
+            throw e;
+        }
+        return merge(results, merged);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public QueryResults<T> fetchResults() {
+        final long total = fetchCount();
+        if (total == 0) {
+            return QueryResults.emptyResults();
+        }
+        return new QueryResults<>(fetch(), this.modifiers, total);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long fetchCount() {
+        checkCancelled();
+        validateMergeable();
+        long result = 0;
+        for (final Long count : executeAll(provider -> createQuery(provider, null).fetchCount())) {
+            result += count;
+        }
+        return result;
+    }
+
+    /**
+     * Checks that the cancel handle, if any, has not been cancelled.
+     */
+    protected void checkCancelled() {
+        if (this.cancelHandle != null) {
+            this.cancelHandle.checkCancelled();
+        }
+    }
+
+    /**
+     * Validates that the results of this query can be merged across
+     * providers.
+     * 
+     * @throws UnsupportedOperationException If the query is aggregated
+     * @throws IllegalStateException If the query is ordered and has no
+     * projection
+     */
+    protected void validateMergeable() {
+        if (this.projection != null) {
+            for (final Expression<?> expr : this.projection) {
+                if (PredicateAnalyzer.containsAggregate(expr)) {
+                    throw new UnsupportedOperationException(
+                            "Federated queries cannot be aggregated");
+                }
+            }
+        }
+        Validate.validState(this.orders.isEmpty() || this.projection != null,
+                "Ordered federated queries require a projection");
+    }
+
+    /**
+     * Returns the modifiers of this query restricted to the specified
+     * maximum limit.
+     * 
+     * @param limit The maximum limit
+     * @return The restricted modifiers
+     */
+    protected @NotNull QueryModifiers restrictLimit(
+            final long limit) {
+        return ConcurrentExecutions.restrictLimit(this.modifiers, limit);
+    }
+
+    /**
+     * Creates the query clause of the specified provider with the filters,
+     * ordering and settings of this query.
+     * <p>
+     * If {@code merged} is not {@code null} the provider query is prepared
+     * for merging: the offset is removed, the limit increased by it and,
+     * if the query is ordered, the order targets added to the projection.
+     * Otherwise the provider query has no modifiers.
+     * <p>
+     * Order specifiers with default null handling are applied with the
+     * explicit null handling of {@code TupleOrderComparator}, as SQL and
+     * collection providers sort nulls differently by default.
+     * 
+     * @param provider The provider
+     * @param merged The modifiers to apply to the merged results
+     * @return The provider query clause
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    protected @NotNull ExtendedQueryClause<?, ?> createQuery(
+            final @NotNull WrappedQueryClauseProvider provider,
+            final QueryModifiers merged) {
+        ExtendedQueryClause<?, ?> query = provider.query(this.entity);
+        query.where(this.filters.toArray(new Predicate[0]));
+        query.orderBy(TupleOrderComparator.withExplicitNullHandling(this.orders)
+                .toArray(new OrderSpecifier<?>[0]));
+        for (final Map.Entry<ParamExpression<?>, Object> param : this.params.entrySet()) {
+            query.set((ParamExpression) param.getKey(), param.getValue());
+        }
+        if (this.distinct) {
+            query.distinct();
+        }
+        if (this.timeout > 0) {
+            query.timeout(this.timeout, TimeUnit.MILLISECONDS);
+        }
+        query.cancelHandle(this.cancelHandle);
+        if (merged != null) {
+            final Long limit = merged.getLimit();
+            final Long offset = merged.getOffset();
+            if (limit != null) {
+                query.limit(limit + (offset == null ? 0 : offset));
+            }
+        }
+        if (this.projection != null) {
+            if (merged != null && !this.orders.isEmpty()) {
+                final Expression<?>[] exprs = Arrays.copyOf(
+                        this.projection,
+                        this.projection.length + this.orders.size());
+                for (int i = 0; i < this.orders.size(); i++) {
+                    exprs[this.projection.length + i] = this.orders.get(i).getTarget();
+                }
+                query = query.select(exprs);
+            } else if (this.tuple) {
+                query = query.select(this.projection);
+            } else {
+                query = query.select(this.projection[0]);
+            }
+        }
+        return query;
+    }
+
+    /**
+     * Fetches the results of the provider queries and merges them.
+     * 
+     * @param merged The modifiers to apply to the merged results
+     * @return The merged results
+     */
+    protected @NotNull CloseableIterator<T> fetchMerged(
+            final @NotNull QueryModifiers merged) {
+        checkCancelled();
+        validateMergeable();
+        final List<List<?>> results = executeAll(
+                provider -> createQuery(provider, merged).fetch());
+        final List<Iterator<?>> iterators = new ArrayList<>(results.size());
+        for (final List<?> providerResults : results) {
+            iterators.add(providerResults.iterator());
+        }
+        return merge(iterators, merged);
+    }
+
+    /**
+     * Merges the specified provider results, as returned by the queries
+     * created by {@code createQuery()}.
+     * 
+     * @param results The provider results
+     * @param merged The modifiers to apply to the merged results
+     * @return The merged results
+     */
+    @SuppressWarnings("unchecked")
+    protected @NotNull CloseableIterator<T> merge(
+            final @NotNull List<? extends Iterator<?>> results,
+            final @NotNull QueryModifiers merged) {
+        if (this.orders.isEmpty()) {
+            return new MergingIterator<>(
+                    (List<? extends Iterator<? extends T>>) results,
+                    null,
+                    merged);
+        }
+        final MergingIterator<Tuple> iterator = new MergingIterator<>(
+                (List<? extends Iterator<? extends Tuple>>) results,
+                new TupleOrderComparator(this.orders, this.projection.length),
+                merged);
+        final QTuple resultTuple = this.tuple ? Projections.tuple(this.projection) : null;
+        final int size = this.projection.length;
+        return new CloseableIterator<T>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+            @Override
+            public T next() {
+                final Tuple next = iterator.next();
+                if (resultTuple == null) {
+                    return (T) next.get(0, Object.class);
+                }
+                final Object[] values = new Object[size];
+                for (int i = 0; i < size; i++) {
+                    values[i] = next.get(i, Object.class);
+                }
+                return (T) resultTuple.newInstance(values);
+            }
+            @Override
+            public void close() {
+                iterator.close();
+            }
+        };
+    }
+
+    /**
+     * Executes the specified operation over each provider, concurrently
+     * if an executor is configured.
+     * 
+     * @param <R> The operation result type
+     * @param operation The operation
+     * @return The operation results, in providers order
+     */
+    protected <R> @NotNull List<R> executeAll(
+            final @NotNull Function<WrappedQueryClauseProvider, R> operation) {
+        return ConcurrentExecutions.executeAll(this.providers, operation, this.executor);
+    }
+}
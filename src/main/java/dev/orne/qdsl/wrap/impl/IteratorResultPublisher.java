@@ -0,0 +1,361 @@
+package dev.orne.qdsl.wrap.impl;
+
+/*-
+ * #%L
+ * Orne Querydsl Utils
+ * %%
+ * Copyright (C) 2022 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+
+import com.mysema.commons.lang.CloseableIterator;
+
+import dev.orne.qdsl.wrap.ResultPublisher;
+
+/**
+ * Implementation of {@code ResultPublisher} that pulls the results
+ * from a {@code CloseableIterator} only when demanded by the subscriber.
+ * <p>
+ * The iterator is not opened until the first result is requested and is
+ * closed when the iteration completes, fails or the subscription is
+ * cancelled. No threads are created: results are emitted in the thread
+ * that requests them or, if configured, in the provided executor.
+ * <p>
+ * Each instance supports a single subscription. Additional subscribers
+ * are notified with an {@code IllegalStateException}.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2022-10
+ * @param <T> The published results type
+ * @since 0.1
+ */
+public class IteratorResultPublisher<T>
+implements ResultPublisher<T> {
+
+    /** The subscription used to reject additional subscribers. */
+    private static final Subscription REJECTED = new Subscription() {
+        @Override
+        public void request(final long n) {
+            // Nothing to do
+        }
+        @Override
+        public void cancel() {
+            // Nothing to do
+        }
+    };
+
+    /** The results iterator supplier. */
+    private final @NotNull Supplier<? extends CloseableIterator<? extends T>> source;
+    /** The executor to emit the results in. */
+    private final Executor executor;
+    /** The subscribed flag. */
+    private final @NotNull AtomicBoolean subscribed = new AtomicBoolean();
+
+    /**
+     * Creates a new instance that emits the results in the requesting
+     * thread.
+     * 
+     * @param source The results iterator supplier
+     */
+    public IteratorResultPublisher(
+            final @NotNull Supplier<? extends CloseableIterator<? extends T>> source) {
+        this(source, null);
+    }
+
+    /**
+     * Creates a new instance that emits the results in the specified
+     * executor.
+     * <p>
+     * If {@code executor} is {@code null} results are emitted in the
+     * requesting thread.
+     * 
+     * @param source The results iterator supplier
+     * @param executor The executor to emit the results in
+     */
+    public IteratorResultPublisher(
+            final @NotNull Supplier<? extends CloseableIterator<? extends T>> source,
+            final Executor executor) {
+        super();
+        this.source = Validate.notNull(source);
+        this.executor = executor;
+    }
+
+    /**
+     * Returns the results iterator supplier.
+     * 
+     * @return The results iterator supplier
+     */
+    protected @NotNull Supplier<? extends CloseableIterator<? extends T>> getSource() {
+        return this.source;
+    }
+
+    /**
+     * Returns the executor to emit the results in, if any.
+     * 
+     * @return The executor to emit the results in
+     */
+    protected Executor getExecutor() {
+        return this.executor;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void subscribe(
+            final @NotNull Subscriber<? super T> subscriber) {
+        Validate.notNull(subscriber);
+        if (this.subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new IteratorSubscription<>(
+                    this.source,
+                    this.executor,
+                    subscriber));
+        } else {
+            subscriber.onSubscribe(REJECTED);
+            subscriber.onError(new IllegalStateException(
+                    "Query results publisher supports a single subscriber"));
+        }
+    }
+
+    /**
+     * Subscription that emits the results of a lazily opened iterator
+     * as demanded.
+     * <p>
+     * Emission is serialized through a work counter: the thread that
+     * increments it from zero drains the pending demand, while concurrent
+     * or reentrant calls only register additional work. The iterator is
+     * only accessed by the draining thread.
+     * 
+     * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+     * @version 1.0, 2022-10
+     * @param <T> The published results type
+     * @since 0.1
+     */
+    protected static class IteratorSubscription<T>
+    implements Subscription {
+
+        /** The results iterator supplier. */
+        private final @NotNull Supplier<? extends CloseableIterator<? extends T>> source;
+        /** The executor to emit the results in. */
+        private final Executor executor;
+        /** The subscriber. */
+        private final @NotNull Subscriber<? super T> subscriber;
+        /** The unfulfilled demand. */
+        private final @NotNull AtomicLong demand = new AtomicLong();
+        /** The pending work counter. */
+        private final @NotNull AtomicInteger pending = new AtomicInteger();
+        /** The cancellation flag. */
+        private volatile boolean cancelled;
+        /** The invalid request error, if any. */
+        private volatile Throwable requestError;
+        /** The results iterator, once opened. */
+        private CloseableIterator<? extends T> iterator;
+        /** The terminated flag. */
+        private boolean done;
+
+        /**
+         * Creates a new instance.
+         * 
+         * @param source The results iterator supplier
+         * @param executor The executor to emit the results in
+         * @param subscriber The subscriber
+         */
+        protected IteratorSubscription(
+                final @NotNull Supplier<? extends CloseableIterator<? extends T>> source,
+                final Executor executor,
+                final @NotNull Subscriber<? super T> subscriber) {
+            super();
+            this.source = source;
+            this.executor = executor;
+            this.subscriber = subscriber;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void request(
+                final long n) {
+            if (n <= 0) {
+                this.requestError = new IllegalArgumentException(
+                        "Requested results must be positive: " + n);
+            } else {
+                long current;
+                long next;
+                do {
+                    current = this.demand.get();
+                    next = current + n;
+                    if (next < 0) {
+                        next = Long.MAX_VALUE;
+                    }
+                } while (!this.demand.compareAndSet(current, next));
+            }
+            schedule();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void cancel() {
+            this.cancelled = true;
+            schedule();
+        }
+
+        /**
+         * Registers pending work, draining the subscription if no other
+         * thread is already doing it.
+         */
+        protected void schedule() {
+            if (this.pending.getAndIncrement() == 0) {
+                if (this.executor == null) {
+                    drain();
+                } else {
+                    try {
+                        this.executor.execute(this::drain);
+                    } catch (final RejectedExecutionException e) {
+                        // This thread owns the drain: no one else touches the state
+                        fail(e);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Drains the pending work until no more work is registered.
+         */
+        protected void drain() {
+            int missed = 1;
+            do {
+                emit();
+                missed = this.pending.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        /**
+         * Emits results to the subscriber until the current demand is
+         * fulfilled, the results are exhausted or the subscription is
+         * terminated.
+         * <p>
+         * The iterator is only probed for more results while there is
+         * outstanding demand, so no result is retrieved before it is
+         * requested. If the results are exhausted just when the demand
+         * is fulfilled completion is notified on the next request.
+         */
+        protected void emit() {
+            if (this.done) {
+                return;
+            }
+            try {
+                if (this.cancelled) {
+                    this.done = true;
+                    release();
+                    return;
+                }
+                final Throwable error = this.requestError;
+                if (error != null) {
+                    fail(error);
+                    return;
+                }
+                final long requested = this.demand.get();
+                long emitted = 0;
+                while (emitted != requested) {
+                    if (this.cancelled) {
+                        this.done = true;
+                        release();
+                        return;
+                    }
+                    final CloseableIterator<? extends T> it = open();
+                    if (!it.hasNext()) {
+                        complete();
+                        return;
+                    }
+                    this.subscriber.onNext(it.next());
+                    emitted++;
+                }
+                if (emitted != 0 && requested != Long.MAX_VALUE) {
+                    this.demand.addAndGet(-emitted);
+                }
+            } catch (final RuntimeException e) {
+                fail(e);
+            }
+        }
+
+        /**
+         * Returns the results iterator, opening it if required.
+         * 
+         * @return The results iterator
+         */
+        protected @NotNull CloseableIterator<? extends T> open() {
+            if (this.iterator == null) {
+                this.iterator = Validate.notNull(
+                        this.source.get(),
+                        "Query results iterator supplier returned null");
+            }
+            return this.iterator;
+        }
+
+        /**
+         * Closes the results iterator, if opened.
+         */
+        protected void release() {
+            final CloseableIterator<? extends T> it = this.iterator;
+            this.iterator = null;
+            if (it != null) {
+                it.close();
+            }
+        }
+
+        /**
+         * Terminates the subscription notifying the subscriber that all
+         * the results have been emitted.
+         */
+        protected void complete() {
+            this.done = true;
+            release();
+            this.subscriber.onComplete();
+        }
+
+        /**
+         * Terminates the subscription notifying the subscriber of the
+         * specified error.
+         * 
+         * @param error The error
+         */
+        protected void fail(
+                final @NotNull Throwable error) {
+            this.done = true;
+            try {
+                release();
+            } catch (final RuntimeException e) {
+                error.addSuppressed(e);
+            }
+            this.subscriber.onError(error);
+        }
+    }
+}
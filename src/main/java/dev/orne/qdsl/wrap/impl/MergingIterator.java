@@ -0,0 +1,250 @@
+package dev.orne.qdsl.wrap.impl;
+
+/*-
+ * #%L
+ * Orne Querydsl Utils
+ * %%
+ * Copyright (C) 2022 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+
+import com.mysema.commons.lang.CloseableIterator;
+import com.querydsl.core.QueryModifiers;
+
+/**
+ * Iterator that merges the elements of several source iterators.
+ * <p>
+ * If a comparator is provided the source iterators are expected to be
+ * sorted by it and are merged lazily through a k-way merge, keeping in
+ * memory only the next element of each source. Equal elements are
+ * returned in source order. Without comparator the source iterators are
+ * concatenated.
+ * <p>
+ * The optional query modifiers are applied to the merged elements,
+ * skipping the offset elements and stopping after the limit elements.
+ * Closing this iterator closes all the source iterators that are
+ * {@code CloseableIterator} instances.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2022-10
+ * @param <E> The elements type
+ * @since 0.1
+ */
+public class MergingIterator<E>
+implements CloseableIterator<E> {
+
+    /** The source iterators. */
+    private final @NotNull List<Iterator<? extends E>> sources;
+    /** The elements comparator. */
+    private final Comparator<? super E> comparator;
+    /** The pending source heads, when merging. */
+    private PriorityQueue<Head<E>> heads;
+    /** The current source index, when concatenating. */
+    private int current;
+    /** The number of elements to skip. */
+    private long skip;
+    /** The remaining number of elements to return, or negative if unlimited. */
+    private long remaining;
+
+    /**
+     * Creates a new instance.
+     * 
+     * @param sources The source iterators
+     * @param comparator The elements comparator, or {@code null} to
+     * concatenate the sources
+     */
+    public MergingIterator(
+            final @NotNull List<? extends Iterator<? extends E>> sources,
+            final Comparator<? super E> comparator) {
+        this(sources, comparator, null);
+    }
+
+    /**
+     * Creates a new instance.
+     * 
+     * @param sources The source iterators
+     * @param comparator The elements comparator, or {@code null} to
+     * concatenate the sources
+     * @param modifiers The limit and offset to apply to the merged
+     * elements, if any
+     */
+    public MergingIterator(
+            final @NotNull List<? extends Iterator<? extends E>> sources,
+            final Comparator<? super E> comparator,
+            final QueryModifiers modifiers) {
+        super();
+        Validate.notNull(sources);
+        Validate.noNullElements(sources);
+        this.sources = new ArrayList<>(sources);
+        this.comparator = comparator;
+        if (modifiers == null) {
+            this.skip = 0;
+            this.remaining = -1;
+        } else {
+            this.skip = modifiers.getOffset() == null ? 0 : modifiers.getOffset();
+            this.remaining = modifiers.getLimit() == null ? -1 : modifiers.getLimit();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean hasNext() {
+        while (this.skip > 0 && hasNextMerged()) {
+            nextMerged();
+            this.skip--;
+        }
+        return this.remaining != 0 && hasNextMerged();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public E next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        if (this.remaining > 0) {
+            this.remaining--;
+        }
+        return nextMerged();
+    }
+
+    /**
+     * Returns {@code true} if any source iterator has more elements.
+     * 
+     * @return If any source iterator has more elements
+     */
+    protected boolean hasNextMerged() {
+        if (this.comparator == null) {
+            while (this.current < this.sources.size()) {
+                if (this.sources.get(this.current).hasNext()) {
+                    return true;
+                }
+                this.current++;
+            }
+            return false;
+        }
+        return !getHeads().isEmpty();
+    }
+
+    /**
+     * Returns the next merged element, without applying the modifiers.
+     * 
+     * @return The next merged element
+     */
+    protected E nextMerged() {
+        if (this.comparator == null) {
+            return this.sources.get(this.current).next();
+        }
+        final Head<E> head = getHeads().poll();
+        final E result = head.value;
+        final Iterator<? extends E> source = this.sources.get(head.index);
+        if (source.hasNext()) {
+            this.heads.add(new Head<>(source.next(), head.index));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the pending source heads, reading the first element of each
+     * source iterator on first call.
+     * 
+     * @return The pending source heads
+     */
+    private @NotNull PriorityQueue<Head<E>> getHeads() {
+        if (this.heads == null) {
+            this.heads = new PriorityQueue<>(
+                    Math.max(1, this.sources.size()),
+                    (a, b) -> {
+                        final int result = this.comparator.compare(a.value, b.value);
+                        return result == 0 ? Integer.compare(a.index, b.index) : result;
+                    });
+            for (int i = 0; i < this.sources.size(); i++) {
+                final Iterator<? extends E> source = this.sources.get(i);
+                if (source.hasNext()) {
+                    this.heads.add(new Head<>(source.next(), i));
+                }
+            }
+        }
+        return this.heads;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Closes all the source iterators, rethrowing the first failure
+     * after trying to close all of them.
+     */
+    @Override
+    public void close() {
+        RuntimeException failure = null;
+        for (final Iterator<? extends E> source : this.sources) {
+            if (source instanceof CloseableIterator) {
+                try {
+                    ((CloseableIterator<? extends E>) source).close();
+                } catch (final RuntimeException e) {
+                    if (failure == null) {
+                        failure = e;
+                    }
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Next element of a source iterator.
+     * 
+     * @param <E> The elements type
+     */
+    private static class Head<E> {
+
+        /** The element. */
+        private final E value;
+        /** The source iterator index. */
+        private final int index;
+
+        /**
+         * Creates a new instance.
+         * 
+         * @param value The element
+         * @param index The source iterator index
+         */
+        Head(
+                final E value,
+                final int index) {
+            this.value = value;
+            this.index = index;
+        }
+    }
+}
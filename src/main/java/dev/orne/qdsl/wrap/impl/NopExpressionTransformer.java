@@ -29,6 +29,7 @@ import javax.validation.constraints.NotNull;
 
 import com.querydsl.core.types.Expression;
 import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.Path;
 import com.querydsl.core.types.Predicate;
 
 import dev.orne.qdsl.NopReplaceVisitor;
@@ -101,6 +102,15 @@ implements ExpressionTransformer,
         return expr;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <U> @NotNull Expression<U> translateKeyPath(
+            final @NotNull Path<U> path) {
+        return path;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -129,12 +129,17 @@ extends ReplaceVisitor<Void> {
      * Transforms the specified value assignment, replacing
      * {@code PreFetchedSubQueryExpression} instances in the value
      * with constant expression of the query result values.
+     * <p>
+     * Assignments of {@code null} values are returned as is.
      * 
      * @param exprs The original value assignment
      * @return The resulting value assignment
      */
     public <T> StoredValue<T> extract(
             final StoredValue<T> assignment) {
+        if (assignment.getValue() == null) {
+            return assignment;
+        }
         return StoredValue.ofUntyped(
                 assignment.getPath(),
                 extract(assignment.getValue()));
@@ -0,0 +1,501 @@
+package dev.orne.qdsl.wrap.impl;
+
+/*-
+ * #%L
+ * Orne Querydsl Utils
+ * %%
+ * Copyright (C) 2022 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import javax.validation.constraints.NotNull;
+
+import com.querydsl.core.types.Constant;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Operator;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.TemplateExpression;
+import com.querydsl.core.types.dsl.DslExpression;
+
+/**
+ * Static analyzer of translated predicates that detects predicates
+ * whose value is known without evaluating them against the data.
+ * <p>
+ * Supports boolean constants, constant boolean templates
+ * ({@code true}, {@code false}, {@code 1 = 1}, {@code 1 = 0}...),
+ * {@code IN} and {@code NOT IN} conditions over empty constant
+ * collections (as produced by empty prefetched subqueries),
+ * emptiness checks of constant collections, equality comparisons of
+ * constants of the same type and {@code null} checks of constants and
+ * their combinations through {@code AND}, {@code OR} and {@code NOT}.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2022-10
+ * @since 0.1
+ */
+public final class PredicateAnalyzer {
+
+    /** The normalized templates of tautological predicates. */
+    private static final Set<String> TRUE_TEMPLATES = Collections.unmodifiableSet(
+            new HashSet<>(Arrays.asList("true", "1=1", "0=0")));
+    /** The normalized templates of unsatisfiable predicates. */
+    private static final Set<String> FALSE_TEMPLATES = Collections.unmodifiableSet(
+            new HashSet<>(Arrays.asList("false", "1=0", "0=1", "1=2", "2=1")));
+
+    /**
+     * Private constructor.
+     */
+    private PredicateAnalyzer() {
+        // Utility class
+    }
+
+    /**
+     * Evaluates the specified predicate statically.
+     * 
+     * @param predicate The predicate to evaluate
+     * @return {@code TRUE} if the predicate is tautological, {@code FALSE}
+     * if the predicate is unsatisfiable or {@code null} if the predicate
+     * value depends on the data
+     */
+    public static Boolean evaluate(
+            final Expression<?> predicate) {
+        if (predicate == null) {
+            return Boolean.TRUE;
+        }
+        final Expression<?> expr = unwrap(predicate);
+        if (expr instanceof Constant) {
+            final Object value = ((Constant<?>) expr).getConstant();
+            return value instanceof Boolean ? (Boolean) value : null;
+        }
+        if (expr instanceof TemplateExpression) {
+            return evaluateTemplate((TemplateExpression<?>) expr);
+        }
+        if (expr instanceof Operation) {
+            return evaluateOperation((Operation<?>) expr);
+        }
+        return null;
+    }
+
+    /**
+     * Returns {@code true} if the specified predicate is statically
+     * known to be unsatisfiable.
+     * 
+     * @param predicate The predicate
+     * @return If the predicate is unsatisfiable
+     */
+    public static boolean isUnsatisfiable(
+            final Expression<?> predicate) {
+        return Boolean.FALSE.equals(evaluate(predicate));
+    }
+
+    /**
+     * Returns {@code true} if the specified predicate is statically
+     * known to be tautological.
+     * 
+     * @param predicate The predicate
+     * @return If the predicate is tautological
+     */
+    public static boolean isTautology(
+            final Expression<?> predicate) {
+        return Boolean.TRUE.equals(evaluate(predicate));
+    }
+
+    /**
+     * Simplifies the specified predicate removing its tautological
+     * conjuncts and unsatisfiable disjuncts.
+     * 
+     * @param predicate The predicate to simplify
+     * @return The simplified predicate, or {@code null} if the whole
+     * predicate is tautological
+     */
+    public static Predicate simplify(
+            final Predicate predicate) {
+        final Boolean value = evaluate(predicate);
+        if (Boolean.TRUE.equals(value)) {
+            return null;
+        }
+        if (value == null && predicate instanceof Operation) {
+            final Operation<?> operation = (Operation<?>) predicate;
+            final Operator operator = operation.getOperator();
+            if (operator == Ops.AND || operator == Ops.OR) {
+                final Boolean neutral = operator == Ops.AND;
+                final Predicate left = simplifyArg(operation.getArg(0), neutral);
+                final Predicate right = simplifyArg(operation.getArg(1), neutral);
+                if (left == null) {
+                    return right;
+                } else if (right == null) {
+                    return left;
+                } else if (left.equals(operation.getArg(0)) &&
+                        right.equals(operation.getArg(1))) {
+                    return predicate;
+                } else if (operator == Ops.AND) {
+                    return ExpressionUtils.and(left, right);
+                } else {
+                    return ExpressionUtils.or(left, right);
+                }
+            }
+        }
+        return predicate;
+    }
+
+    /**
+     * Simplifies the specified predicates removing the tautological ones
+     * and their tautological conjuncts.
+     * <p>
+     * Returns the same array instance if no predicate is simplified.
+     * 
+     * @param predicates The predicates to simplify
+     * @return The simplified predicates
+     */
+    public static @NotNull Predicate[] simplify(
+            final @NotNull Predicate... predicates) {
+        final List<Predicate> result = new ArrayList<>(predicates.length);
+        boolean changed = false;
+        for (final Predicate predicate : predicates) {
+            final Predicate simplified = simplify(predicate);
+            if (simplified != null) {
+                result.add(simplified);
+            }
+            changed |= simplified != predicate;
+        }
+        return changed ? result.toArray(new Predicate[0]) : predicates;
+    }
+
+    /**
+     * Simplifies the specified argument of an {@code AND} or {@code OR}
+     * operation, ignoring it if its value is neutral for the operation.
+     * 
+     * @param arg The operation argument
+     * @param neutral The neutral value of the operation
+     * @return The simplified argument, or {@code null} if ignored
+     */
+    private static Predicate simplifyArg(
+            final Expression<?> arg,
+            final Boolean neutral) {
+        if (neutral.equals(evaluate(arg))) {
+            return null;
+        }
+        if (neutral && arg instanceof Predicate) {
+            return simplify((Predicate) arg);
+        }
+        return (Predicate) arg;
+    }
+
+    /**
+     * Evaluates the specified template predicate statically.
+     * 
+     * @param template The template predicate
+     * @return The predicate value, if known
+     */
+    private static Boolean evaluateTemplate(
+            final @NotNull TemplateExpression<?> template) {
+        if (!template.getArgs().isEmpty()) {
+            return null;
+        }
+        String normalized = template.getTemplate().toString()
+                .replaceAll("\\s", "")
+                .toLowerCase(Locale.ROOT);
+        while (normalized.startsWith("(") && normalized.endsWith(")")) {
+            normalized = normalized.substring(1, normalized.length() - 1);
+        }
+        if (TRUE_TEMPLATES.contains(normalized)) {
+            return Boolean.TRUE;
+        } else if (FALSE_TEMPLATES.contains(normalized)) {
+            return Boolean.FALSE;
+        }
+        return null;
+    }
+
+    /**
+     * Evaluates the specified operation predicate statically.
+     * 
+     * @param operation The operation predicate
+     * @return The predicate value, if known
+     */
+    private static Boolean evaluateOperation(
+            final @NotNull Operation<?> operation) {
+        final Operator operator = operation.getOperator();
+        if (operator == Ops.AND) {
+            final Boolean left = evaluate(operation.getArg(0));
+            final Boolean right = evaluate(operation.getArg(1));
+            if (Boolean.FALSE.equals(left) || Boolean.FALSE.equals(right)) {
+                return Boolean.FALSE;
+            }
+            return left != null && right != null ? Boolean.TRUE : null;
+        } else if (operator == Ops.OR) {
+            final Boolean left = evaluate(operation.getArg(0));
+            final Boolean right = evaluate(operation.getArg(1));
+            if (Boolean.TRUE.equals(left) || Boolean.TRUE.equals(right)) {
+                return Boolean.TRUE;
+            }
+            return left != null && right != null ? Boolean.FALSE : null;
+        } else if (operator == Ops.NOT) {
+            final Boolean value = evaluate(operation.getArg(0));
+            return value == null ? null : !value;
+        } else if (operator == Ops.IN || operator == Ops.NOT_IN) {
+            final Collection<?> values = getConstantCollection(operation.getArg(1));
+            if (values != null && values.isEmpty()) {
+                return operator == Ops.NOT_IN;
+            }
+        } else if (operator == Ops.COL_IS_EMPTY) {
+            final Collection<?> values = getConstantCollection(operation.getArg(0));
+            if (values != null) {
+                return values.isEmpty();
+            }
+        } else if (operator == Ops.EQ || operator == Ops.NE) {
+            final Object left = getConstantValue(operation.getArg(0));
+            final Object right = getConstantValue(operation.getArg(1));
+            if (left != null && right != null) {
+                final Boolean equal = constantsEqual(left, right);
+                if (equal != null) {
+                    return equal == (operator == Ops.EQ);
+                }
+            }
+        } else if (operator == Ops.IS_NULL || operator == Ops.IS_NOT_NULL) {
+            if (getConstantValue(operation.getArg(0)) != null) {
+                return operator == Ops.IS_NOT_NULL;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Compares the specified constant values as the database would,
+     * if the result is known.
+     * <p>
+     * Only values of the same class are compared. Strings and characters,
+     * which equality depends on the database collation, decimal numbers,
+     * which equality depends on the scale, floating point numbers and
+     * arrays are never compared. Other numbers are compared by value.
+     * 
+     * @param left The left constant value
+     * @param right The right constant value
+     * @return If the values are equal, or {@code null} if unknown
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static Boolean constantsEqual(
+            final @NotNull Object left,
+            final @NotNull Object right) {
+        final Class<?> type = left.getClass();
+        if (!type.equals(right.getClass())
+                || type.isArray()
+                || left instanceof CharSequence
+                || left instanceof Character
+                || left instanceof BigDecimal
+                || left instanceof Float
+                || left instanceof Double) {
+            return null;
+        }
+        if (left instanceof Number && left instanceof Comparable) {
+            return ((Comparable) left).compareTo(right) == 0;
+        }
+        return left.equals(right);
+    }
+
+    /**
+     * Returns the value of the specified expression if it is a constant
+     * collection.
+     * 
+     * @param expr The expression
+     * @return The constant collection, or {@code null}
+     */
+    private static Collection<?> getConstantCollection(
+            final Expression<?> expr) {
+        final Object value = getConstantValue(expr);
+        return value instanceof Collection ? (Collection<?>) value : null;
+    }
+
+    /**
+     * Returns the value of the specified expression if it is a constant.
+     * 
+     * @param expr The expression
+     * @return The constant value, or {@code null}
+     */
+    private static Object getConstantValue(
+            final Expression<?> expr) {
+        final Expression<?> extracted = unwrap(expr);
+        if (extracted instanceof Constant) {
+            return ((Constant<?>) extracted).getConstant();
+        }
+        return null;
+    }
+
+    /**
+     * Returns the underlying expression of the specified DSL expression.
+     * 
+     * @param expr The expression
+     * @return The underlying expression
+     */
+    private static Expression<?> unwrap(
+            final Expression<?> expr) {
+        if (expr instanceof DslExpression) {
+            return ExpressionUtils.extract(expr);
+        }
+        return expr;
+    }
+
+    /**
+     * Extracts the values to which the specified path is restricted by the
+     * specified predicate through equality and {@code IN} conditions over
+     * constants or bound parameters, combined through {@code AND} and
+     * {@code OR}.
+     * <p>
+     * Used to route queries by the value of a key path, such as the shard
+     * key of sharded entities.
+     * 
+     * @param predicate The predicate
+     * @param path The restricted path
+     * @param params The parameter bindings, if any
+     * @return The values to which the path is restricted, or {@code null}
+     * if the predicate does not restrict the path to a known set of values
+     */
+    public static Set<Object> extractValues(
+            final Expression<?> predicate,
+            final @NotNull Path<?> path,
+            final Map<ParamExpression<?>, Object> params) {
+        final Expression<?> expr = unwrap(predicate);
+        if (!(expr instanceof Operation)) {
+            return null;
+        }
+        final Operation<?> operation = (Operation<?>) expr;
+        final Operator operator = operation.getOperator();
+        final List<Expression<?>> args = operation.getArgs();
+        if (Ops.AND.equals(operator)) {
+            Set<Object> result = null;
+            for (final Expression<?> arg : args) {
+                final Set<Object> values = extractValues(arg, path, params);
+                if (values != null) {
+                    if (result == null) {
+                        result = new HashSet<>(values);
+                    } else {
+                        result.retainAll(values);
+                    }
+                }
+            }
+            return result;
+        }
+        if (Ops.OR.equals(operator)) {
+            final Set<Object> result = new HashSet<>();
+            for (final Expression<?> arg : args) {
+                final Set<Object> values = extractValues(arg, path, params);
+                if (values == null) {
+                    return null;
+                }
+                result.addAll(values);
+            }
+            return result;
+        }
+        if (Ops.EQ.equals(operator)) {
+            Object value = null;
+            if (path.equals(unwrap(args.get(0)))) {
+                value = getBoundValue(args.get(1), params);
+            } else if (path.equals(unwrap(args.get(1)))) {
+                value = getBoundValue(args.get(0), params);
+            }
+            return value == null ? null : new HashSet<>(Collections.singleton(value));
+        }
+        if (Ops.IN.equals(operator) && path.equals(unwrap(args.get(0)))) {
+            final Object value = getBoundValue(args.get(1), params);
+            if (value instanceof Collection) {
+                final Set<Object> result = new HashSet<>((Collection<?>) value);
+                return result.contains(null) ? null : result;
+            }
+            return value == null ? null : new HashSet<>(Collections.singleton(value));
+        }
+        return null;
+    }
+
+    /**
+     * Returns the value of the specified expression if it is a constant
+     * or a bound parameter.
+     * 
+     * @param expr The expression
+     * @param params The parameter bindings, if any
+     * @return The constant or bound value, or {@code null}
+     */
+    private static Object getBoundValue(
+            final Expression<?> expr,
+            final Map<ParamExpression<?>, Object> params) {
+        final Expression<?> extracted = unwrap(expr);
+        if (extracted instanceof ParamExpression && params != null) {
+            return params.get(extracted);
+        }
+        return getConstantValue(extracted);
+    }
+
+    /**
+     * Returns {@code true} if the specified projection contains aggregate
+     * operations, which return a single row even if no row matches the
+     * query filters unless the query is grouped.
+     * 
+     * @param projection The query projection
+     * @return If the projection contains aggregate operations
+     */
+    public static boolean containsAggregate(
+            final Expression<?> projection) {
+        if (projection instanceof Operation) {
+            final Operation<?> operation = (Operation<?>) projection;
+            if (operation.getOperator() instanceof Ops.AggOps) {
+                return true;
+            }
+            return containsAggregate(operation.getArgs());
+        } else if (projection instanceof FactoryExpression) {
+            return containsAggregate(((FactoryExpression<?>) projection).getArgs());
+        } else if (projection instanceof TemplateExpression) {
+            for (final Object arg : ((TemplateExpression<?>) projection).getArgs()) {
+                if (arg instanceof Expression && containsAggregate((Expression<?>) arg)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns {@code true} if any of the specified expressions contains
+     * aggregate operations.
+     * 
+     * @param exprs The expressions
+     * @return If any expression contains aggregate operations
+     */
+    private static boolean containsAggregate(
+            final @NotNull List<Expression<?>> exprs) {
+        for (final Expression<?> expr : exprs) {
+            if (containsAggregate(expr)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
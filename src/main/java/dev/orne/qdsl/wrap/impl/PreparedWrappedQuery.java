@@ -0,0 +1,292 @@
+package dev.orne.qdsl.wrap.impl;
+
+/*-
+ * #%L
+ * Orne Querydsl Utils
+ * %%
+ * Copyright (C) 2022 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.util.List;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+
+import com.mysema.commons.lang.CloseableIterator;
+import com.querydsl.core.Fetchable;
+import com.querydsl.core.NonUniqueResultException;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.QueryResults;
+import com.querydsl.core.types.ParamExpression;
+
+import dev.orne.qdsl.wrap.ExtendedQueryClause;
+
+/**
+ * Wrapped query template, translated once and executed many times
+ * with different parameter values.
+ * <p>
+ * Built from a wrapped query clause which variable values are expressed
+ * as {@code ParamExpression} placeholders. The template keeps the
+ * translated delegate query, so each execution only copies the delegate
+ * query metadata and binds the parameter values, avoiding the expression
+ * translation of the wrapped query.
+ * <pre>
+ * Param&lt;String&gt; name = new Param&lt;&gt;(String.class, "name");
+ * PreparedWrappedQuery&lt;Bean&gt; query = PreparedWrappedQuery.of(
+ *         factory.query(QBean.bean)
+ *             .where(QBean.bean.name.eq(name)));
+ * ...
+ * List&lt;Bean&gt; result = query.bind(name, "value").fetch();
+ * </pre>
+ * <p>
+ * Values bound to parameters translated to {@code ConvertedParam}
+ * instances are converted before execution.
+ * <p>
+ * The template clause must not be modified or executed after
+ * the creation of the prepared query.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2022-10
+ * @param <T> The query results type
+ * @since 0.1
+ * @see dev.orne.qdsl.wrap.impl.transform.ConvertedParam
+ */
+public class PreparedWrappedQuery<T> {
+
+    /** The translated template clause. */
+    private final @NotNull WrappedQueryClause<T, ?> template;
+    /** The serialized delegate query. */
+    private volatile String serialized;
+
+    /**
+     * Creates a new instance.
+     * 
+     * @param template The translated template clause
+     * @throws UnsupportedOperationException If the template clause
+     * cannot be copied
+     */
+    public PreparedWrappedQuery(
+            final @NotNull WrappedQueryClause<T, ?> template) {
+        super();
+        this.template = Validate.notNull(template, "The template clause cannot be null");
+        // Fail fast for clauses that cannot be copied
+        template.copy();
+    }
+
+    /**
+     * Creates a new prepared query from the specified wrapped query clause.
+     * 
+     * @param <T> The query results type
+     * @param clause The wrapped query clause
+     * @return The prepared query
+     * @throws IllegalArgumentException If the clause is not a wrapped
+     * query clause
+     * @throws UnsupportedOperationException If the clause cannot be copied
+     */
+    public static <T> @NotNull PreparedWrappedQuery<T> of(
+            final @NotNull ExtendedQueryClause<T, ?> clause) {
+        Validate.notNull(clause, "The query clause cannot be null");
+        Validate.isInstanceOf(WrappedQueryClause.class, clause,
+                "Unsupported query clause type: %s", clause.getClass());
+        return new PreparedWrappedQuery<>((WrappedQueryClause<T, ?>) clause);
+    }
+
+    /**
+     * Returns the translated template clause.
+     * 
+     * @return The translated template clause
+     */
+    protected @NotNull WrappedQueryClause<T, ?> getTemplate() {
+        return this.template;
+    }
+
+    /**
+     * Returns a copy of the translated delegate query metadata.
+     * 
+     * @return The translated delegate query metadata
+     */
+    public @NotNull QueryMetadata getMetadata() {
+        return this.template.getMetadata().clone();
+    }
+
+    /**
+     * Returns the serialized form of the translated delegate query,
+     * the SQL or JPQL statement for SQL and JPA queries.
+     * <p>
+     * The serialized form is computed once and cached.
+     * 
+     * @return The serialized delegate query
+     */
+    public @NotNull String getSerialized() {
+        String result = this.serialized;
+        if (result == null) {
+            synchronized (this) {
+                result = this.serialized;
+                if (result == null) {
+                    result = this.template.getDelegate().toString();
+                    this.serialized = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Starts a new execution of this prepared query.
+     * 
+     * @return The execution binding, to set the parameter values
+     */
+    public @NotNull Binding<T> bind() {
+        return new Binding<>(this.template.copy());
+    }
+
+    /**
+     * Starts a new execution of this prepared query with the specified
+     * parameter value.
+     * 
+     * @param <P> The parameter type
+     * @param param The parameter
+     * @param value The parameter value
+     * @return The execution binding, to set other parameter values
+     */
+    public <P> @NotNull Binding<T> bind(
+            final @NotNull ParamExpression<P> param,
+            final P value) {
+        return bind().set(param, value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return getSerialized();
+    }
+
+    /**
+     * Single execution of a prepared wrapped query.
+     * <p>
+     * Instances are not thread safe and must be used for a single
+     * execution.
+     * 
+     * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+     * @version 1.0, 2022-10
+     * @param <T> The query results type
+     * @since PreparedWrappedQuery 1.0
+     */
+    public static class Binding<T>
+    implements Fetchable<T> {
+
+        /** The copy of the template clause. */
+        private final @NotNull WrappedQueryClause<T, ?> clause;
+
+        /**
+         * Creates a new instance.
+         * 
+         * @param clause The copy of the template clause
+         */
+        protected Binding(
+                final @NotNull WrappedQueryClause<T, ?> clause) {
+            super();
+            this.clause = Validate.notNull(clause);
+        }
+
+        /**
+         * Returns the copy of the template clause.
+         * 
+         * @return The copy of the template clause
+         */
+        protected @NotNull WrappedQueryClause<T, ?> getClause() {
+            return this.clause;
+        }
+
+        /**
+         * Sets the value of the specified parameter.
+         * 
+         * @param <P> The parameter type
+         * @param param The parameter
+         * @param value The parameter value
+         * @return This instance, for method chaining
+         */
+        public <P> @NotNull Binding<T> set(
+                final @NotNull ParamExpression<P> param,
+                final P value) {
+            this.clause.set(param, value);
+            return this;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public List<T> fetch() {
+            return this.clause.fetch();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public T fetchFirst() {
+            return this.clause.fetchFirst();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public T fetchOne() throws NonUniqueResultException {
+            return this.clause.fetchOne();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public CloseableIterator<T> iterate() {
+            return this.clause.iterate();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public QueryResults<T> fetchResults() {
+            return this.clause.fetchResults();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public long fetchCount() {
+            return this.clause.fetchCount();
+        }
+
+        /**
+         * Checks if the query has any result.
+         * 
+         * @return If the query has any result
+         * @see WrappedQueryClause#exists()
+         */
+        public boolean exists() {
+            return this.clause.exists();
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package dev.orne.qdsl.wrap.impl;
+
+/*-
+ * #%L
+ * Orne Querydsl Utils
+ * %%
+ * Copyright (C) 2022 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+import com.querydsl.core.JoinExpression;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.support.ReplaceVisitor;
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.SubQueryExpression;
+import com.querydsl.core.types.SubQueryExpressionImpl;
+
+/**
+ * Immutable identity of a translated query execution.
+ * <p>
+ * Composed of the wrapped entity type, the terminal operation and
+ * a snapshot of the translated delegate query metadata, which includes
+ * the projection, the filters, the modifiers and the bound parameters.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2022-10
+ * @since 0.1
+ */
+public class QueryKey
+implements Serializable {
+
+    /** The serial version UID. */
+    private static final long serialVersionUID = 1L;
+    /** The prefix of the normalized query source aliases. */
+    public static final String NORMALIZED_ALIAS_PREFIX = "qk_";
+
+    /** The wrapped entity type. */
+    private final Class<? extends EntityPath<?>> entityType;
+    /** The terminal operation. */
+    private final @NotNull Operation operation;
+    /** The translated query metadata snapshot. */
+    private final @NotNull QueryMetadata metadata;
+
+    /**
+     * Creates a new instance.
+     * <p>
+     * The metadata is copied, so further modifications of the query
+     * don't affect the key.
+     * 
+     * @param entityType The wrapped entity type
+     * @param operation The terminal operation
+     * @param metadata The translated query metadata
+     */
+    public QueryKey(
+            final Class<? extends EntityPath<?>> entityType,
+            final @NotNull Operation operation,
+            final @NotNull QueryMetadata metadata) {
+        super();
+        this.entityType = entityType;
+        this.operation = Validate.notNull(operation);
+        this.metadata = Validate.notNull(metadata).clone();
+    }
+
+    /**
+     * Returns the wrapped entity type.
+     * 
+     * @return The wrapped entity type
+     */
+    public Class<? extends EntityPath<?>> getEntityType() {
+        return this.entityType;
+    }
+
+    /**
+     * Returns the terminal operation.
+     * 
+     * @return The terminal operation
+     */
+    public @NotNull Operation getOperation() {
+        return this.operation;
+    }
+
+    /**
+     * Returns the translated query metadata snapshot.
+     * 
+     * @return The translated query metadata snapshot
+     */
+    public @NotNull QueryMetadata getMetadata() {
+        return this.metadata;
+    }
+
+    /**
+     * Creates a new instance with the query source aliases of the specified
+     * metadata normalized, so equivalent queries with differently aliased
+     * sources have equal keys.
+     * 
+     * @param entityType The wrapped entity type
+     * @param operation The terminal operation
+     * @param metadata The translated query metadata
+     * @return The created instance
+     * @see #normalizeAliases(QueryMetadata)
+     */
+    public static @NotNull QueryKey normalized(
+            final Class<? extends EntityPath<?>> entityType,
+            final @NotNull Operation operation,
+            final @NotNull QueryMetadata metadata) {
+        return new QueryKey(entityType, operation, normalizeAliases(metadata));
+    }
+
+    /**
+     * Returns a copy of the specified query metadata with the root paths
+     * of the query sources (joins) replaced with paths named by
+     * position ({@value #NORMALIZED_ALIAS_PREFIX}{@code 0},
+     * {@value #NORMALIZED_ALIAS_PREFIX}{@code 1}...).
+     * <p>
+     * The returned metadata is intended for query identity comparison
+     * only.
+     * 
+     * @param metadata The query metadata
+     * @return The normalized query metadata
+     */
+    public static @NotNull QueryMetadata normalizeAliases(
+            final @NotNull QueryMetadata metadata) {
+        Validate.notNull(metadata);
+        final Map<Path<?>, Path<?>> aliases = new HashMap<>();
+        for (final JoinExpression join : metadata.getJoins()) {
+            final Path<?> root = getSourceRoot(join.getTarget());
+            if (root != null && !aliases.containsKey(root)) {
+                aliases.put(root, ExpressionUtils.path(
+                        root.getType(),
+                        NORMALIZED_ALIAS_PREFIX + aliases.size()));
+            }
+        }
+        if (aliases.isEmpty()) {
+            return metadata;
+        }
+        final Expression<?> result = new SubQueryExpressionImpl<>(Object.class, metadata)
+                .accept(new AliasNormalizer(aliases), null);
+        return ((SubQueryExpression<?>) result).getMetadata();
+    }
+
+    /**
+     * Returns the root path of the specified query source, if any.
+     * 
+     * @param target The query source
+     * @return The root path of the query source
+     */
+    private static Path<?> getSourceRoot(
+            final Expression<?> target) {
+        if (target instanceof Path) {
+            return ((Path<?>) target).getRoot();
+        }
+        if (target instanceof com.querydsl.core.types.Operation) {
+            final com.querydsl.core.types.Operation<?> operation =
+                    (com.querydsl.core.types.Operation<?>) target;
+            if (operation.getOperator() == Ops.ALIAS) {
+                return getSourceRoot(operation.getArg(1));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder()
+                .append(this.entityType)
+                .append(this.operation)
+                .append(this.metadata)
+                .build();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(
+            final Object obj) {
+        if (!(obj instanceof QueryKey)) {
+            return false;
+        }
+        if (obj == this) {
+            return true;
+        }
+        final QueryKey other = (QueryKey) obj;
+        return new EqualsBuilder()
+                .append(this.entityType, other.entityType)
+                .append(this.operation, other.operation)
+                .append(this.metadata, other.metadata)
+                .build();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return ToStringBuilder.reflectionToString(this, ToStringStyle.NO_CLASS_NAME_STYLE);
+    }
+
+    /**
+     * The query terminal operations.
+     * 
+     * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+     * @version 1.0, 2022-10
+     * @since QueryKey 1.0
+     */
+    public enum Operation {
+        /** Fetch of all the results. */
+        FETCH,
+        /** Fetch of the first result. */
+        FETCH_FIRST,
+        /** Fetch of the unique result. */
+        FETCH_ONE,
+        /** Fetch of the results and total count. */
+        FETCH_RESULTS,
+        /** Count of the results. */
+        FETCH_COUNT,
+        /** Check of existence of results. */
+        EXISTS,
+    }
+
+    /**
+     * Replace visitor that replaces root paths with the configured
+     * normalized paths.
+     * 
+     * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+     * @version 1.0, 2022-10
+     * @since QueryKey 1.0
+     */
+    private static class AliasNormalizer
+    extends ReplaceVisitor<Void> {
+
+        /** The normalized paths, by original root path. */
+        private final @NotNull Map<Path<?>, Path<?>> aliases;
+
+        /**
+         * Creates a new instance.
+         * 
+         * @param aliases The normalized paths, by original root path
+         */
+        public AliasNormalizer(
+                final @NotNull Map<Path<?>, Path<?>> aliases) {
+            super();
+            this.aliases = aliases;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Expression<?> visit(
+                final Path<?> expr,
+                final Void context) {
+            if (expr.getMetadata().isRoot() &&
+                    this.aliases.containsKey(expr)) {
+                return this.aliases.get(expr);
+            }
+            return super.visit(expr, context);
+        }
+    }
+}
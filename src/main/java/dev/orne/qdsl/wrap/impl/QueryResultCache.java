@@ -0,0 +1,495 @@
+package dev.orne.qdsl.wrap.impl;
+
+/*-
+ * #%L
+ * Orne Querydsl Utils
+ * %%
+ * Copyright (C) 2022 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import javax.cache.Cache;
+import javax.cache.CacheException;
+import javax.cache.CacheManager;
+import javax.cache.configuration.MutableConfiguration;
+import javax.cache.expiry.CreatedExpiryPolicy;
+import javax.cache.expiry.Duration;
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+import org.apiguardian.api.API;
+
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.QueryResults;
+import com.querydsl.core.types.EntityPath;
+
+/**
+ * JCache (JSR-107) backed cache of wrapped query results.
+ * <p>
+ * Results are stored in a cache per wrapped entity type, created on demand
+ * through the configured {@code CacheManager} unless a cache with the
+ * same name already exists. Created caches store values by reference
+ * and expire entries after the TTL configured for the entity type,
+ * or the default TTL if none is configured.
+ * <p>
+ * Results are keyed by the translated query metadata (including
+ * projection, filters, modifiers and bound parameters) and the terminal
+ * operation. Wrapped store and delete clauses created by providers
+ * configured with this cache invalidate the results of the provider's
+ * entity types on execution.
+ * <p>
+ * Cached lists are copied on retrieval, but the results themselves are
+ * shared and must be treated as read only.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2022-10
+ * @since 0.1
+ * @see AbstractWrappedClauseProvider#setResultCache(QueryResultCache)
+ */
+@API(status=API.Status.EXPERIMENTAL, since="0.1")
+public class QueryResultCache {
+
+    /** The default prefix for cache names. */
+    public static final String DEFAULT_CACHE_PREFIX = "dev.orne.qdsl.wrap.results.";
+
+    /** The cache manager. */
+    private final @NotNull CacheManager cacheManager;
+    /** The prefix for cache names. */
+    private final @NotNull String cachePrefix;
+    /** The default results TTL. */
+    private @NotNull Duration defaultTtl = Duration.FIVE_MINUTES;
+    /** The results TTL by entity type. */
+    private final @NotNull Map<Class<? extends EntityPath<?>>, Duration> ttls =
+            new ConcurrentHashMap<>();
+    /** The results caches by entity type. */
+    private final @NotNull Map<Class<? extends EntityPath<?>>, Cache<QueryKey, CachedResult>> caches =
+            new ConcurrentHashMap<>();
+    /** The invalidation generations by entity type. */
+    private final @NotNull Map<Class<? extends EntityPath<?>>, AtomicLong> generations =
+            new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new instance with the default cache names prefix.
+     * 
+     * @param cacheManager The cache manager
+     */
+    public QueryResultCache(
+            final @NotNull CacheManager cacheManager) {
+        this(cacheManager, DEFAULT_CACHE_PREFIX);
+    }
+
+    /**
+     * Creates a new instance.
+     * 
+     * @param cacheManager The cache manager
+     * @param cachePrefix The prefix for cache names
+     */
+    public QueryResultCache(
+            final @NotNull CacheManager cacheManager,
+            final @NotNull String cachePrefix) {
+        super();
+        this.cacheManager = Validate.notNull(cacheManager);
+        this.cachePrefix = Validate.notNull(cachePrefix);
+    }
+
+    /**
+     * Returns the cache manager.
+     * 
+     * @return The cache manager
+     */
+    protected @NotNull CacheManager getCacheManager() {
+        return this.cacheManager;
+    }
+
+    /**
+     * Returns the prefix for cache names.
+     * 
+     * @return The prefix for cache names
+     */
+    public @NotNull String getCachePrefix() {
+        return this.cachePrefix;
+    }
+
+    /**
+     * Returns the results TTL for entity types without specific TTL.
+     * 
+     * @return The default results TTL
+     */
+    public @NotNull Duration getDefaultTtl() {
+        return this.defaultTtl;
+    }
+
+    /**
+     * Sets the results TTL for entity types without specific TTL.
+     * Only affects caches created after the call.
+     * 
+     * @param ttl The default results TTL
+     */
+    public void setDefaultTtl(
+            final @NotNull Duration ttl) {
+        this.defaultTtl = Validate.notNull(ttl);
+    }
+
+    /**
+     * Returns the results TTL for the specified entity type.
+     * 
+     * @param entityType The entity type
+     * @return The results TTL
+     */
+    public @NotNull Duration getTtl(
+            final @NotNull Class<? extends EntityPath<?>> entityType) {
+        return this.ttls.getOrDefault(Validate.notNull(entityType), this.defaultTtl);
+    }
+
+    /**
+     * Sets the results TTL for the specified entity type.
+     * Only affects caches created after the call.
+     * 
+     * @param entityType The entity type
+     * @param ttl The results TTL
+     */
+    public void setTtl(
+            final @NotNull Class<? extends EntityPath<?>> entityType,
+            final @NotNull Duration ttl) {
+        this.ttls.put(Validate.notNull(entityType), Validate.notNull(ttl));
+    }
+
+    /**
+     * Returns the name of the cache for the specified entity type.
+     * 
+     * @param entityType The entity type
+     * @return The cache name
+     */
+    protected @NotNull String getCacheName(
+            final @NotNull Class<? extends EntityPath<?>> entityType) {
+        return this.cachePrefix + entityType.getName();
+    }
+
+    /**
+     * Returns the results cache for the specified entity type,
+     * retrieving or creating it if required.
+     * 
+     * @param entityType The entity type
+     * @return The results cache
+     */
+    protected @NotNull Cache<QueryKey, CachedResult> getCache(
+            final @NotNull Class<? extends EntityPath<?>> entityType) {
+        return this.caches.computeIfAbsent(entityType, this::resolveCache);
+    }
+
+    /**
+     * Retrieves the existing cache for the specified entity type
+     * from the cache manager or creates a new one.
+     * 
+     * @param entityType The entity type
+     * @return The results cache
+     */
+    @SuppressWarnings("unchecked")
+    protected @NotNull Cache<QueryKey, CachedResult> resolveCache(
+            final @NotNull Class<? extends EntityPath<?>> entityType) {
+        final String name = getCacheName(entityType);
+        Cache<QueryKey, CachedResult> result = this.cacheManager.getCache(name);
+        if (result == null) {
+            try {
+                result = this.cacheManager.createCache(name, createConfiguration(entityType));
+            } catch (final CacheException e) {
+                // Concurrently created outside this instance
+                result = this.cacheManager.getCache(name);
+                if (result == null) {
+                    throw e;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Creates the configuration of the results cache for the specified
+     * entity type.
+     * 
+     * @param entityType The entity type
+     * @return The cache configuration
+     */
+    protected @NotNull MutableConfiguration<QueryKey, CachedResult> createConfiguration(
+            final @NotNull Class<? extends EntityPath<?>> entityType) {
+        return new MutableConfiguration<QueryKey, CachedResult>()
+                .setTypes(QueryKey.class, CachedResult.class)
+                .setStoreByValue(false)
+                .setExpiryPolicyFactory(CreatedExpiryPolicy.factoryOf(getTtl(entityType)));
+    }
+
+    /**
+     * Returns the current invalidation generation of the specified
+     * entity type.
+     * 
+     * @param entityType The entity type
+     * @return The invalidation generation counter
+     */
+    protected @NotNull AtomicLong getGeneration(
+            final @NotNull Class<? extends EntityPath<?>> entityType) {
+        return this.generations.computeIfAbsent(entityType, k -> new AtomicLong());
+    }
+
+    /**
+     * Returns the cached results of the specified query, executing it and
+     * caching the results if not cached.
+     * <p>
+     * Results of queries executed while an invalidation of the entity type
+     * occurs are not cached. Results are cached before the invalidation
+     * generation is checked again, and removed if it changed, so an
+     * invalidation concurrent with the caching is never lost.
+     * 
+     * @param <R> The results type
+     * @param entityType The entity type
+     * @param operation The terminal operation
+     * @param metadata The translated query metadata
+     * @param query The query execution
+     * @return The query results
+     */
+    public <R> R get(
+            final @NotNull Class<? extends EntityPath<?>> entityType,
+            final @NotNull QueryKey.Operation operation,
+            final @NotNull QueryMetadata metadata,
+            final @NotNull Supplier<R> query) {
+        Validate.notNull(entityType);
+        Validate.notNull(query);
+        final QueryKey key = new QueryKey(entityType, operation, metadata);
+        final Cache<QueryKey, CachedResult> cache = getCache(entityType);
+        final CachedResult cached = cache.get(key);
+        if (cached != null) {
+            return cached.getValue();
+        }
+        final AtomicLong generation = getGeneration(entityType);
+        final long expected = generation.get();
+        final R result = query.get();
+        if (generation.get() == expected) {
+            final CachedResult entry = new CachedResult(result);
+            cache.put(key, entry);
+            if (generation.get() != expected) {
+                // Invalidated between the check and the put
+                cache.remove(key, entry);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Removes all the cached results of the specified entity types.
+     * 
+     * @param entityTypes The entity types
+     */
+    public void invalidate(
+            final @NotNull Collection<Class<? extends EntityPath<?>>> entityTypes) {
+        Validate.notNull(entityTypes);
+        for (final Class<? extends EntityPath<?>> entityType : entityTypes) {
+            getGeneration(entityType).incrementAndGet();
+            final Cache<QueryKey, CachedResult> cache = this.caches.get(entityType);
+            if (cache != null) {
+                cache.clear();
+            }
+        }
+    }
+
+    /**
+     * Removes all the cached results.
+     */
+    public void invalidateAll() {
+        invalidate(new ArrayList<>(this.caches.keySet()));
+    }
+
+    /**
+     * Returns a results cache scope for clauses of the specified entity type
+     * that invalidates the results of the specified entity types on
+     * execution of store and delete clauses.
+     * 
+     * @param entityType The clause entity type
+     * @param invalidatedTypes The entity types to invalidate on writes
+     * @return The results cache scope
+     */
+    public @NotNull Scope scope(
+            final @NotNull Class<? extends EntityPath<?>> entityType,
+            final @NotNull Collection<Class<? extends EntityPath<?>>> invalidatedTypes) {
+        return new Scope(this, entityType, invalidatedTypes);
+    }
+
+    /**
+     * Results cache binding of a wrapped clause.
+     * 
+     * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+     * @version 1.0, 2022-10
+     * @since QueryResultCache 1.0
+     */
+    public static class Scope {
+
+        /** The results cache. */
+        private final @NotNull QueryResultCache cache;
+        /** The clause entity type. */
+        private final @NotNull Class<? extends EntityPath<?>> entityType;
+        /** The entity types to invalidate on writes. */
+        private final @NotNull Set<Class<? extends EntityPath<?>>> invalidatedTypes;
+
+        /**
+         * Creates a new instance.
+         * 
+         * @param cache The results cache
+         * @param entityType The clause entity type
+         * @param invalidatedTypes The entity types to invalidate on writes
+         */
+        protected Scope(
+                final @NotNull QueryResultCache cache,
+                final @NotNull Class<? extends EntityPath<?>> entityType,
+                final @NotNull Collection<Class<? extends EntityPath<?>>> invalidatedTypes) {
+            super();
+            this.cache = Validate.notNull(cache);
+            this.entityType = Validate.notNull(entityType);
+            Validate.notNull(invalidatedTypes);
+            Validate.noNullElements(invalidatedTypes);
+            this.invalidatedTypes = new HashSet<>(invalidatedTypes);
+            this.invalidatedTypes.add(entityType);
+        }
+
+        /**
+         * Returns the results cache.
+         * 
+         * @return The results cache
+         */
+        public @NotNull QueryResultCache getCache() {
+            return this.cache;
+        }
+
+        /**
+         * Returns the clause entity type.
+         * 
+         * @return The clause entity type
+         */
+        public @NotNull Class<? extends EntityPath<?>> getEntityType() {
+            return this.entityType;
+        }
+
+        /**
+         * Returns the entity types to invalidate on writes.
+         * 
+         * @return The entity types to invalidate on writes
+         */
+        public @NotNull Set<Class<? extends EntityPath<?>>> getInvalidatedTypes() {
+            return this.invalidatedTypes;
+        }
+
+        /**
+         * Returns the cached results of the specified query, executing it
+         * and caching the results if not cached.
+         * 
+         * @param <R> The results type
+         * @param operation The terminal operation
+         * @param metadata The translated query metadata
+         * @param query The query execution
+         * @return The query results
+         * @see QueryResultCache#get(Class, QueryKey.Operation, QueryMetadata, Supplier)
+         */
+        public <R> R get(
+                final @NotNull QueryKey.Operation operation,
+                final @NotNull QueryMetadata metadata,
+                final @NotNull Supplier<R> query) {
+            return this.cache.get(this.entityType, operation, metadata, query);
+        }
+
+        /**
+         * Removes the cached results of the entity types affected by
+         * writes of the clause entity type.
+         */
+        public void invalidate() {
+            this.cache.invalidate(this.invalidatedTypes);
+        }
+    }
+
+    /**
+     * Cache entry value holder, allowing caching of {@code null}
+     * results.
+     * 
+     * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+     * @version 1.0, 2022-10
+     * @since QueryResultCache 1.0
+     */
+    public static class CachedResult
+    implements Serializable {
+
+        /** The serial version UID. */
+        private static final long serialVersionUID = 1L;
+
+        /** The cached value. */
+        private final Object value;
+
+        /**
+         * Creates a new instance.
+         * <p>
+         * Lists and the results of {@code QueryResults} are copied to
+         * isolate the cached value from further modifications.
+         * 
+         * @param value The cached value
+         */
+        public CachedResult(
+                final Object value) {
+            super();
+            this.value = copy(value);
+        }
+
+        /**
+         * Returns a copy of the cached value.
+         * 
+         * @param <R> The value type
+         * @return The cached value
+         */
+        @SuppressWarnings("unchecked")
+        public <R> R getValue() {
+            return (R) copy(this.value);
+        }
+
+        /**
+         * Copies the specified value if it is a list or a
+         * {@code QueryResults}.
+         * 
+         * @param value The value
+         * @return The copied value
+         */
+        private static Object copy(
+                final Object value) {
+            if (value instanceof List) {
+                return new ArrayList<>((List<?>) value);
+            }
+            if (value instanceof QueryResults) {
+                final QueryResults<?> results = (QueryResults<?>) value;
+                return new QueryResults<>(
+                        new ArrayList<>(results.getResults()),
+                        results.getLimit(),
+                        results.getOffset(),
+                        results.getTotal());
+            }
+            return value;
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package dev.orne.qdsl.wrap.impl;
+
+/*-
+ * #%L
+ * Orne Querydsl Utils
+ * %%
+ * Copyright (C) 2022 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+
+import com.querydsl.core.types.EntityPath;
+
+import dev.orne.qdsl.wrap.ExtendedQueryClause;
+import dev.orne.qdsl.wrap.ProjectionType;
+import dev.orne.qdsl.wrap.ReferenceProjection;
+import dev.orne.qdsl.wrap.WrappedQueryClauseProvider;
+
+/**
+ * Loader of entities by reference that batches the lookups requested
+ * concurrently from different threads.
+ * <p>
+ * Requested references are collected until the batch window elapses or
+ * the maximum batch size is reached. Then a single query is issued
+ * for the whole batch through a wrapped query clause created by the
+ * configured provider, so the provider transformers apply, and the
+ * future of each requested reference is completed with its entity or
+ * {@code null} if not found.
+ * <p>
+ * The entity projection must be a {@code ReferenceProjection}. Results
+ * are matched with the requested references by the reference values
+ * retrieved from the query, so references must be expressed as the
+ * values of the translated reference expression. Composed references are
+ * {@code Tuple} values.
+ * <p>
+ * Batches are dispatched in the configured scheduler.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2022-10
+ * @param <T> The entity type
+ * @param <I> The reference type
+ * @since 0.1
+ * @see ExtendedQueryClause#fetchByReferences(java.util.Collection)
+ */
+public class ReferenceBatchLoader<T, I> {
+
+    /** The default maximum batch size. */
+    public static final int DEFAULT_MAX_BATCH_SIZE = 256;
+    /** The default batch window, in milliseconds. */
+    public static final long DEFAULT_BATCH_WINDOW = 5;
+
+    /** The wrapped query clause provider. */
+    private final @NotNull WrappedQueryClauseProvider provider;
+    /** The target entity path. */
+    private final @NotNull EntityPath<T> entity;
+    /** The entity projection type. */
+    private final @NotNull ProjectionType projectionType;
+    /** The scheduler to dispatch the batches in. */
+    private final @NotNull ScheduledExecutorService scheduler;
+    /** The maximum batch size. */
+    private final int maxBatchSize;
+    /** The batch window, in milliseconds. */
+    private final long batchWindow;
+    /** The pending lookups of the current batch. */
+    private @NotNull Map<I, CompletableFuture<T>> pending =
+            new LinkedHashMap<>();
+
+    /**
+     * Creates a new instance with the default maximum batch size and
+     * batch window that loads entities with the
+     * {@code ProjectionType.Basic.REFERENCE} projection.
+     * 
+     * @param provider The wrapped query clause provider
+     * @param entity The target entity path
+     * @param scheduler The scheduler to dispatch the batches in
+     */
+    public ReferenceBatchLoader(
+            final @NotNull WrappedQueryClauseProvider provider,
+            final @NotNull EntityPath<T> entity,
+            final @NotNull ScheduledExecutorService scheduler) {
+        this(provider, entity, ProjectionType.Basic.REFERENCE, scheduler,
+                DEFAULT_MAX_BATCH_SIZE, DEFAULT_BATCH_WINDOW);
+    }
+
+    /**
+     * Creates a new instance.
+     * 
+     * @param provider The wrapped query clause provider
+     * @param entity The target entity path
+     * @param projectionType The entity projection type
+     * @param scheduler The scheduler to dispatch the batches in
+     * @param maxBatchSize The maximum batch size
+     * @param batchWindow The batch window, in milliseconds
+     */
+    public ReferenceBatchLoader(
+            final @NotNull WrappedQueryClauseProvider provider,
+            final @NotNull EntityPath<T> entity,
+            final @NotNull ProjectionType projectionType,
+            final @NotNull ScheduledExecutorService scheduler,
+            final int maxBatchSize,
+            final long batchWindow) {
+        super();
+        this.provider = Validate.notNull(provider);
+        this.entity = Validate.notNull(entity);
+        this.projectionType = Validate.notNull(projectionType);
+        this.scheduler = Validate.notNull(scheduler);
+        Validate.isTrue(maxBatchSize > 0, "Maximum batch size must be positive");
+        Validate.isTrue(batchWindow >= 0, "Batch window cannot be negative");
+        this.maxBatchSize = maxBatchSize;
+        this.batchWindow = batchWindow;
+    }
+
+    /**
+     * Returns the wrapped query clause provider.
+     * 
+     * @return The wrapped query clause provider
+     */
+    public @NotNull WrappedQueryClauseProvider getProvider() {
+        return this.provider;
+    }
+
+    /**
+     * Returns the target entity path.
+     * 
+     * @return The target entity path
+     */
+    public @NotNull EntityPath<T> getEntity() {
+        return this.entity;
+    }
+
+    /**
+     * Returns the entity projection type.
+     * 
+     * @return The entity projection type
+     */
+    public @NotNull ProjectionType getProjectionType() {
+        return this.projectionType;
+    }
+
+    /**
+     * Returns the scheduler to dispatch the batches in.
+     * 
+     * @return The scheduler to dispatch the batches in
+     */
+    public @NotNull ScheduledExecutorService getScheduler() {
+        return this.scheduler;
+    }
+
+    /**
+     * Returns the maximum batch size.
+     * 
+     * @return The maximum batch size
+     */
+    public int getMaxBatchSize() {
+        return this.maxBatchSize;
+    }
+
+    /**
+     * Returns the batch window, in milliseconds.
+     * 
+     * @return The batch window, in milliseconds
+     */
+    public long getBatchWindow() {
+        return this.batchWindow;
+    }
+
+    /**
+     * Requests the entity with the specified reference.
+     * <p>
+     * Concurrent requests of the same reference in the same batch
+     * share the returned future.
+     * 
+     * @param reference The entity reference
+     * @return The future entity, completed with {@code null} if
+     * no entity with such reference exists
+     */
+    public @NotNull CompletableFuture<T> load(
+            final @NotNull I reference) {
+        Validate.notNull(reference);
+        final CompletableFuture<T> result;
+        final Map<I, CompletableFuture<T>> full;
+        boolean first = false;
+        synchronized (this) {
+            final CompletableFuture<T> existing = this.pending.get(reference);
+            if (existing != null) {
+                return existing;
+            }
+            result = new CompletableFuture<>();
+            first = this.pending.isEmpty();
+            this.pending.put(reference, result);
+            if (this.pending.size() >= this.maxBatchSize) {
+                full = takePending();
+            } else {
+                full = null;
+            }
+        }
+        if (full != null) {
+            this.scheduler.execute(() -> dispatch(full));
+        } else if (first) {
+            this.scheduler.schedule(() -> dispatch(), this.batchWindow, TimeUnit.MILLISECONDS);
+        }
+        return result;
+    }
+
+    /**
+     * Dispatches the pending lookups of the current batch in the calling
+     * thread without waiting for the batch window to elapse.
+     */
+    public void dispatch() {
+        final Map<I, CompletableFuture<T>> batch;
+        synchronized (this) {
+            batch = takePending();
+        }
+        dispatch(batch);
+    }
+
+    /**
+     * Returns the pending lookups of the current batch and starts
+     * a new batch. Must be called holding the lock of this instance.
+     * 
+     * @return The pending lookups of the current batch
+     */
+    private @NotNull Map<I, CompletableFuture<T>> takePending() {
+        final Map<I, CompletableFuture<T>> batch = this.pending;
+        this.pending = new LinkedHashMap<>();
+        return batch;
+    }
+
+    /**
+     * Fetches the entities of the specified batch of lookups and completes
+     * their futures.
+     * <p>
+     * Any failure completes all the futures of the batch exceptionally,
+     * so no lookup is left pending. Errors are rethrown after completing
+     * the futures.
+     * 
+     * @param batch The batch of lookups
+     */
+    protected void dispatch(
+            final @NotNull Map<I, CompletableFuture<T>> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            final Map<I, ? extends T> results = fetch(batch);
+            for (final Map.Entry<I, CompletableFuture<T>> entry : batch.entrySet()) {
+                entry.getValue().complete(results.get(entry.getKey()));
+            }
+        } catch (final Throwable e) {
+            for (final CompletableFuture<T> future : batch.values()) {
+                future.completeExceptionally(e);
+            }
+            if (e instanceof Error) {
+                throw (Error) e;
+            }
+        }
+    }
+
+    /**
+     * Fetches the entities with the references of the specified batch
+     * of lookups through a wrapped query clause.
+     * 
+     * @param batch The batch of lookups
+     * @return The fetched entities keyed by reference
+     * @throws IllegalStateException If the entity projection is not a
+     * {@code ReferenceProjection}
+     * @see ReferenceProjection
+     */
+    protected @NotNull Map<I, ? extends T> fetch(
+            final @NotNull Map<I, CompletableFuture<T>> batch) {
+        return this.provider.query(this.entity)
+                .select(this.provider.getProjection(this.entity, this.projectionType))
+                .fetchByReferences(batch.keySet());
+    }
+}
@@ -0,0 +1,405 @@
+package dev.orne.qdsl.wrap.impl;
+
+/*-
+ * #%L
+ * Orne Querydsl Utils
+ * %%
+ * Copyright (C) 2022 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+
+import com.querydsl.core.dml.DeleteClause;
+import com.querydsl.core.dml.InsertClause;
+import com.querydsl.core.dml.StoreClause;
+import com.querydsl.core.dml.UpdateClause;
+import com.querydsl.core.types.Constant;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.SubQueryExpression;
+import com.querydsl.sql.RelationalPath;
+import com.querydsl.sql.SQLCommonQueryFactory;
+import com.querydsl.sql.SQLListener;
+import com.querydsl.sql.dml.AbstractSQLClause;
+import com.querydsl.sql.dml.SQLDeleteClause;
+import com.querydsl.sql.dml.SQLInsertClause;
+import com.querydsl.sql.dml.SQLUpdateClause;
+
+/**
+ * QueryDSL SQL DML clause over a sharded entity.
+ * <p>
+ * The clause records the operations applied to it. On execution the
+ * shards of the clause are resolved and a SQL clause of the same type
+ * is created from the query factory of each shard and the recorded
+ * operations replayed on it.
+ * <ul>
+ * <li>Insert clauses are routed to the shard of the value assigned to
+ * the shard key, that must be a constant.</li>
+ * <li>Update and delete clauses are routed to the shards of the shard
+ * key values in the clause filters, or to all the shards if the filters
+ * do not restrict the shard key. The affected rows counts are summed.
+ * Update clauses cannot assign the shard key, as the updated rows would
+ * not be moved to the shards of the new values.</li>
+ * </ul>
+ * Executions over several shards are independent and not atomic.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2022-10
+ * @since 0.1
+ * @see SqlShardRouter
+ */
+public class ShardedSqlDmlClause
+implements InsertClause<ShardedSqlDmlClause>,
+        UpdateClause<ShardedSqlDmlClause>,
+        DeleteClause<ShardedSqlDmlClause> {
+
+    /** The shard router. */
+    private final @NotNull SqlShardRouter router;
+    /** The target entity. */
+    private final @NotNull RelationalPath<?> entity;
+    /** The clause type. */
+    private final @NotNull Type type;
+    /** The operations to replay on the shard clauses. */
+    private final @NotNull List<Consumer<AbstractSQLClause<?>>> operations = new ArrayList<>();
+    /** The filters of the clause. */
+    private final @NotNull List<Predicate> filters = new ArrayList<>();
+    /** The listeners to add to the shard clauses. */
+    private final @NotNull List<SQLListener> listeners = new CopyOnWriteArrayList<>();
+    /** The columns to be populated by insert clauses. */
+    private Path<?>[] columns;
+    /** If a value has been assigned to the shard key. */
+    private boolean keyAssigned;
+    /** The value assigned to the shard key. */
+    private Object keyValue;
+    /** If any value has been assigned. */
+    private boolean assigned;
+
+    /**
+     * Creates a new instance.
+     * 
+     * @param router The shard router
+     * @param entity The target entity
+     * @param type The clause type
+     */
+    public ShardedSqlDmlClause(
+            final @NotNull SqlShardRouter router,
+            final @NotNull RelationalPath<?> entity,
+            final @NotNull Type type) {
+        super();
+        this.router = Validate.notNull(router);
+        this.entity = Validate.notNull(entity);
+        this.type = Validate.notNull(type);
+    }
+
+    /**
+     * Returns the shard router.
+     * 
+     * @return The shard router
+     */
+    public @NotNull SqlShardRouter getRouter() {
+        return this.router;
+    }
+
+    /**
+     * Returns the target entity.
+     * 
+     * @return The target entity
+     */
+    public @NotNull RelationalPath<?> getEntity() {
+        return this.entity;
+    }
+
+    /**
+     * Returns the clause type.
+     * 
+     * @return The clause type
+     */
+    public @NotNull Type getType() {
+        return this.type;
+    }
+
+    /**
+     * Adds a listener to the shard clauses created by this clause.
+     * 
+     * @param listener The listener
+     */
+    public void addListener(
+            final @NotNull SQLListener listener) {
+        this.listeners.add(Validate.notNull(listener));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T> ShardedSqlDmlClause set(
+            final @NotNull Path<T> path,
+            final T value) {
+        registerAssignment(path, value);
+        this.operations.add(clause -> ops(clause).set(path, value));
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T> ShardedSqlDmlClause set(
+            final @NotNull Path<T> path,
+            final @NotNull Expression<? extends T> expression) {
+        registerAssignment(path, expression instanceof Constant
+                ? ((Constant<?>) expression).getConstant()
+                : expression);
+        this.operations.add(clause -> ops(clause).set(path, expression));
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T> ShardedSqlDmlClause setNull(
+            final @NotNull Path<T> path) {
+        registerAssignment(path, null);
+        this.operations.add(clause -> ops(clause).setNull(path));
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ShardedSqlDmlClause set(
+            final @NotNull List<? extends Path<?>> paths,
+            final @NotNull List<?> values) {
+        Validate.isTrue(paths.size() == values.size());
+        for (int i = 0; i < paths.size(); i++) {
+            registerAssignment(paths.get(i), values.get(i));
+        }
+        this.operations.add(clause -> ((SQLUpdateClause) clause).set(paths, values));
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ShardedSqlDmlClause columns(
+            final @NotNull Path<?>... columns) {
+        this.columns = columns.clone();
+        this.operations.add(clause -> ((SQLInsertClause) clause).columns(columns));
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ShardedSqlDmlClause values(
+            final @NotNull Object... values) {
+        Validate.validState(this.columns != null, "Columns not defined");
+        Validate.isTrue(this.columns.length == values.length);
+        for (int i = 0; i < values.length; i++) {
+            registerAssignment(this.columns[i], values[i] instanceof Constant
+                    ? ((Constant<?>) values[i]).getConstant()
+                    : values[i]);
+        }
+        this.operations.add(clause -> ((SQLInsertClause) clause).values(values));
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ShardedSqlDmlClause select(
+            final @NotNull SubQueryExpression<?> subQuery) {
+        this.assigned = true;
+        this.operations.add(clause -> ((SQLInsertClause) clause).select(subQuery));
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ShardedSqlDmlClause where(
+            final @NotNull Predicate... o) {
+        for (final Predicate predicate : o) {
+            if (predicate != null) {
+                this.filters.add(predicate);
+            }
+        }
+        this.operations.add(clause -> {
+            if (clause instanceof SQLUpdateClause) {
+                ((SQLUpdateClause) clause).where(o);
+            } else {
+                ((SQLDeleteClause) clause).where(o);
+            }
+        });
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isEmpty() {
+        return !this.assigned;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Over several shards the shard clauses are executed concurrently if
+     * the router has an executor.
+     * 
+     * @throws IllegalStateException If no constant value has been assigned
+     * to the shard key of an insert clause
+     */
+    @Override
+    public long execute() {
+        final int[] shards = route();
+        long result = 0;
+        for (final Long count : this.router.execute(shards,
+                shard -> createShardClause(shard).execute())) {
+            result += count;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the sorted indexes of the shards of this clause.
+     * 
+     * @return The shard indexes
+     * @throws IllegalStateException If no constant value has been assigned
+     * to the shard key of an insert clause
+     */
+    protected @NotNull int[] route() {
+        if (this.type == Type.INSERT) {
+            if (this.router.getShards().size() == 1) {
+                return new int[] { 0 };
+            }
+            Validate.validState(this.keyAssigned && !(this.keyValue instanceof Expression),
+                    "No constant value assigned to shard key %s", this.router.getShardKey());
+            return new int[] { this.router.shardOf(this.keyValue) };
+        }
+        return this.router.route(
+                this.entity,
+                ExpressionUtils.allOf(this.filters),
+                Collections.emptyMap());
+    }
+
+    /**
+     * Creates the SQL clause of the specified shard, replaying the
+     * recorded operations on it.
+     * 
+     * @param shard The shard index
+     * @return The shard clause
+     */
+    protected @NotNull AbstractSQLClause<?> createShardClause(
+            final int shard) {
+        final SQLCommonQueryFactory<?, ?, ?, ?, ?> factory = this.router.getShard(shard);
+        final AbstractSQLClause<?> clause;
+        switch (this.type) {
+            case INSERT:
+                clause = factory.insert(this.entity);
+                break;
+            case UPDATE:
+                clause = factory.update(this.entity);
+                break;
+            case DELETE:
+            default:
+                clause = factory.delete(this.entity);
+                break;
+        }
+        for (final SQLListener listener : this.listeners) {
+            clause.addListener(listener);
+        }
+        for (final Consumer<AbstractSQLClause<?>> operation : this.operations) {
+            operation.accept(clause);
+        }
+        return clause;
+    }
+
+    /**
+     * Registers the assignment of the specified value to the specified path.
+     * 
+     * @param path The assigned path
+     * @param value The assigned value
+     * @throws IllegalStateException If the shard key is assigned in an
+     * update clause
+     */
+    private void registerAssignment(
+            final @NotNull Path<?> path,
+            final Object value) {
+        final boolean key = path.equals(this.router.getShardKey(this.entity));
+        Validate.validState(!key || this.type != Type.UPDATE,
+                "Shard key %s cannot be updated", path);
+        this.assigned = true;
+        if (key) {
+            this.keyAssigned = true;
+            this.keyValue = value;
+        }
+    }
+
+    /**
+     * Returns the specified shard clause as store clause.
+     * 
+     * @param clause The shard clause
+     * @return The store clause
+     */
+    private static StoreClause<?> ops(
+            final AbstractSQLClause<?> clause) {
+        return (StoreClause<?>) clause;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return this.type + " " + this.entity;
+    }
+
+    /**
+     * The sharded SQL DML clause types.
+     * 
+     * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+     * @version 1.0, 2022-10
+     * @since ShardedSqlDmlClause 1.0
+     */
+    public enum Type {
+        /** Insert clause. */
+        INSERT,
+        /** Update clause. */
+        UPDATE,
+        /** Delete clause. */
+        DELETE
+    }
+}
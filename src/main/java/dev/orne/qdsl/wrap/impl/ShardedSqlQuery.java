@@ -0,0 +1,684 @@
+package dev.orne.qdsl.wrap.impl;
+
+/*-
+ * #%L
+ * Orne Querydsl Utils
+ * %%
+ * Copyright (C) 2022 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+
+import com.mysema.commons.lang.CloseableIterator;
+import com.querydsl.core.FetchableQuery;
+import com.querydsl.core.JoinExpression;
+import com.querydsl.core.JoinFlag;
+import com.querydsl.core.NonUniqueResultException;
+import com.querydsl.core.QueryFlag;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.QueryModifiers;
+import com.querydsl.core.QueryResults;
+import com.querydsl.core.ResultTransformer;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.FactoryExpressionUtils;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.Projections;
+import com.querydsl.sql.AbstractSQLQuery;
+import com.querydsl.sql.ProjectableSQLQuery;
+import com.querydsl.sql.SQLListener;
+
+/**
+ * QueryDSL SQL query over a sharded entity.
+ * <p>
+ * The query is built over a template SQL query that is never executed.
+ * On execution the shards of the query are resolved from the shard key
+ * values in the query filters and a SQL query with the same metadata is
+ * created from the query factory of each shard.
+ * <p>
+ * Queries over a single shard are executed directly. Queries over
+ * several shards are executed in each shard, concurrently if the router
+ * has an executor, and their results merged:
+ * <ul>
+ * <li>Ordered results are merged lazily by the query order specifiers,
+ * whose targets are added to the projection of the shard queries.</li>
+ * <li>The limit and offset are applied to the merged results. Each shard
+ * query fetches up to the limit plus the offset results.</li>
+ * <li>Results counts are summed.</li>
+ * <li>Distinct results are distinct in each shard, which is enough when
+ * the projection contains the shard key.</li>
+ * </ul>
+ * Grouped and aggregated queries are supported over a single shard only.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2022-10
+ * @param <T> The query results type
+ * @since 0.1
+ * @see SqlShardRouter
+ */
+public class ShardedSqlQuery<T>
+implements FetchableQuery<T, ShardedSqlQuery<T>> {
+
+    /** The shard router. */
+    private final @NotNull SqlShardRouter router;
+    /** The template SQL query. */
+    private final @NotNull ProjectableSQLQuery<T, ?> template;
+    /** The listeners to add to the shard queries. */
+    private final @NotNull List<SQLListener> listeners;
+
+    /**
+     * Creates a new instance.
+     * 
+     * @param router The shard router
+     * @param template The template SQL query
+     */
+    public ShardedSqlQuery(
+            final @NotNull SqlShardRouter router,
+            final @NotNull ProjectableSQLQuery<T, ?> template) {
+        this(router, template, new CopyOnWriteArrayList<>());
+    }
+
+    /**
+     * Creates a new instance.
+     * 
+     * @param router The shard router
+     * @param template The template SQL query
+     * @param listeners The listeners to add to the shard queries
+     */
+    protected ShardedSqlQuery(
+            final @NotNull SqlShardRouter router,
+            final @NotNull ProjectableSQLQuery<T, ?> template,
+            final @NotNull List<SQLListener> listeners) {
+        super();
+        this.router = Validate.notNull(router);
+        this.template = Validate.notNull(template);
+        this.listeners = Validate.notNull(listeners);
+    }
+
+    /**
+     * Returns the shard router.
+     * 
+     * @return The shard router
+     */
+    public @NotNull SqlShardRouter getRouter() {
+        return this.router;
+    }
+
+    /**
+     * Returns the template SQL query.
+     * 
+     * @return The template SQL query
+     */
+    public @NotNull ProjectableSQLQuery<T, ?> getTemplate() {
+        return this.template;
+    }
+
+    /**
+     * Returns the query metadata.
+     * 
+     * @return The query metadata
+     */
+    public @NotNull QueryMetadata getMetadata() {
+        return this.template.getMetadata();
+    }
+
+    /**
+     * Adds a listener to the shard queries created by this query.
+     * 
+     * @param listener The listener
+     */
+    public void addListener(
+            final @NotNull SQLListener listener) {
+        this.listeners.add(Validate.notNull(listener));
+    }
+
+    /**
+     * Creates an independent copy of this query, with a copy of the
+     * template query and the same listeners.
+     * 
+     * @return The query copy
+     */
+    @Override
+    public @NotNull ShardedSqlQuery<T> clone() {
+        return new ShardedSqlQuery<>(
+                this.router,
+                this.template.clone(),
+                new CopyOnWriteArrayList<>(this.listeners));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <U> ShardedSqlQuery<U> select(
+            final @NotNull Expression<U> expr) {
+        return new ShardedSqlQuery<>(
+                this.router,
+                (ProjectableSQLQuery<U, ?>) this.template.select(expr),
+                this.listeners);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public ShardedSqlQuery<Tuple> select(
+            final @NotNull Expression<?>... exprs) {
+        return new ShardedSqlQuery<>(
+                this.router,
+                (ProjectableSQLQuery<Tuple, ?>) this.template.select(exprs),
+                this.listeners);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ShardedSqlQuery<T> where(
+            final Predicate... o) {
+        this.template.where(o);
+        return this;
+    }
+
+    /**
+     * Adds grouping expressions.
+     * 
+     * @param o The grouping expressions
+     * @return This instance, for method chaining
+     */
+    public ShardedSqlQuery<T> groupBy(
+            final Expression<?>... o) {
+        this.template.groupBy(o);
+        return this;
+    }
+
+    /**
+     * Adds having filters.
+     * 
+     * @param o The having filters
+     * @return This instance, for method chaining
+     */
+    public ShardedSqlQuery<T> having(
+            final Predicate... o) {
+        this.template.having(o);
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ShardedSqlQuery<T> limit(
+            final long limit) {
+        this.template.limit(limit);
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ShardedSqlQuery<T> offset(
+            final long offset) {
+        this.template.offset(offset);
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ShardedSqlQuery<T> restrict(
+            final QueryModifiers modifiers) {
+        this.template.restrict(modifiers);
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ShardedSqlQuery<T> orderBy(
+            final OrderSpecifier<?>... o) {
+        this.template.orderBy(o);
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <P> ShardedSqlQuery<T> set(
+            final @NotNull ParamExpression<P> param,
+            final P value) {
+        this.template.set(param, value);
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ShardedSqlQuery<T> distinct() {
+        this.template.distinct();
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <S> S transform(
+            final @NotNull ResultTransformer<S> transformer) {
+        return transformer.transform(this);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<T> fetch() {
+        final int[] shards = route();
+        if (shards.length == 1) {
+            return (List<T>) createShardQuery(shards[0]).fetch();
+        }
+        return ConcurrentExecutions.collect(fetchMerged(shards, getMetadata().getModifiers()));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public T fetchFirst() {
+        final int[] shards = route();
+        if (shards.length == 1) {
+            return (T) createShardQuery(shards[0]).fetchFirst();
+        }
+        final List<T> results = ConcurrentExecutions.collect(fetchMerged(shards, restrictLimit(1)));
+        return results.isEmpty() ? null : results.get(0);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public T fetchOne()
+    throws NonUniqueResultException {
+        final int[] shards = route();
+        if (shards.length == 1) {
+            return (T) createShardQuery(shards[0]).fetchOne();
+        }
+        final List<T> results = ConcurrentExecutions.collect(fetchMerged(shards, restrictLimit(2)));
+        if (results.size() > 1) {
+            throw new NonUniqueResultException();
+        }
+        return results.isEmpty() ? null : results.get(0);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Over several shards the shard queries are opened, concurrently if
+     * the router has an executor, and their results merged lazily.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public CloseableIterator<T> iterate() {
+        final int[] shards = route();
+        if (shards.length == 1) {
+            return (CloseableIterator<T>) createShardQuery(shards[0]).iterate();
+        }
+        validateMergeable();
+        final QueryModifiers modifiers = getMetadata().getModifiers();
+        final List<CloseableIterator<?>> opened = new CopyOnWriteArrayList<>();
+        final List<CloseableIterator<?>> results;
+        try {
+            results = this.router.execute(shards, shard -> {
+                final CloseableIterator<?> iterator = createMergeQuery(shard, modifiers).iterate();
+                opened.add(iterator);
+                return iterator;
+            });
+        } catch (final RuntimeException | Error e) {
+            for (final CloseableIterator<?> iterator : opened) {
+                iterator.close();
+            }
+            throw e;
+        }
+        return merge(results, modifiers);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public QueryResults<T> fetchResults() {
+        final int[] shards = route();
+        if (shards.length == 1) {
+            return (QueryResults<T>) createShardQuery(shards[0]).fetchResults();
+        }
+        final long total = fetchCount(shards);
+        if (total == 0) {
+            return QueryResults.emptyResults();
+        }
+        final QueryModifiers modifiers = getMetadata().getModifiers();
+        return new QueryResults<>(
+                ConcurrentExecutions.collect(fetchMerged(shards, modifiers)),
+                modifiers,
+                total);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long fetchCount() {
+        final int[] shards = route();
+        if (shards.length == 1) {
+            return createShardQuery(shards[0]).fetchCount();
+        }
+        return fetchCount(shards);
+    }
+
+    /**
+     * Returns the sum of the results counts of the specified shards.
+     * 
+     * @param shards The shard indexes
+     * @return The results count
+     */
+    protected long fetchCount(
+            final @NotNull int[] shards) {
+        validateMergeable();
+        long result = 0;
+        for (final Long count : this.router.execute(shards,
+                shard -> createShardQuery(shard).fetchCount())) {
+            result += count;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the sorted indexes of the shards of this query.
+     * 
+     * @return The shard indexes
+     */
+    protected @NotNull int[] route() {
+        final QueryMetadata metadata = getMetadata();
+        return this.router.route(getSource(metadata), metadata.getWhere(), metadata.getParams());
+    }
+
+    /**
+     * Returns the sharded entity alias of the specified query metadata,
+     * the target of its first join.
+     * 
+     * @param metadata The query metadata
+     * @return The sharded entity alias
+     */
+    protected static @NotNull Path<?> getSource(
+            final @NotNull QueryMetadata metadata) {
+        Validate.validState(!metadata.getJoins().isEmpty(), "Query has no source");
+        Expression<?> target = metadata.getJoins().get(0).getTarget();
+        if (target instanceof Operation && ((Operation<?>) target).getOperator() == Ops.ALIAS) {
+            target = ((Operation<?>) target).getArg(1);
+        }
+        Validate.validState(target instanceof Path, "Query source is not an entity path");
+        return (Path<?>) target;
+    }
+
+    /**
+     * Creates the SQL query of the specified shard with the metadata of
+     * this query.
+     * 
+     * @param shard The shard index
+     * @return The shard query
+     */
+    protected @NotNull ProjectableSQLQuery<?, ?> createShardQuery(
+            final int shard) {
+        final QueryMetadata metadata = getMetadata();
+        return createShardQuery(shard, metadata.getProjection(), metadata.getModifiers());
+    }
+
+    /**
+     * Creates the SQL query of the specified shard with the metadata of
+     * this query and the specified projection and modifiers.
+     * <p>
+     * Factory expression projections are wrapped as the query projection
+     * setters do, so nested factory expressions, like the projection of
+     * this query in the ordered merge projections, are flattened.
+     * 
+     * @param shard The shard index
+     * @param projection The shard query projection
+     * @param modifiers The shard query modifiers
+     * @return The shard query
+     */
+    protected @NotNull ProjectableSQLQuery<?, ?> createShardQuery(
+            final int shard,
+            final Expression<?> projection,
+            final QueryModifiers modifiers) {
+        final ProjectableSQLQuery<?, ?> query = this.router.getShard(shard).query();
+        final QueryMetadata target = query.getMetadata();
+        copyMetadata(getMetadata(), target);
+        if (projection instanceof FactoryExpression) {
+            target.setProjection(FactoryExpressionUtils.wrap((FactoryExpression<?>) projection));
+        } else {
+            target.setProjection(projection);
+        }
+        target.setModifiers(modifiers == null ? QueryModifiers.EMPTY : modifiers);
+        if (query instanceof AbstractSQLQuery) {
+            for (final SQLListener listener : this.listeners) {
+                ((AbstractSQLQuery<?, ?>) query).addListener(listener);
+            }
+        }
+        return query;
+    }
+
+    /**
+     * Copies the sources, filters, grouping, ordering, flags and parameter
+     * bindings of the specified query metadata to the target metadata.
+     * <p>
+     * Order specifiers with default null handling are copied with the
+     * explicit null handling of {@code TupleOrderComparator}, so all the
+     * shards sort nulls as the merge of their results does, whatever the
+     * default of the database.
+     * 
+     * @param source The source metadata
+     * @param target The target metadata
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    protected static void copyMetadata(
+            final @NotNull QueryMetadata source,
+            final @NotNull QueryMetadata target) {
+        for (final JoinExpression join : source.getJoins()) {
+            target.addJoin(join.getType(), join.getTarget());
+            if (join.getCondition() != null) {
+                target.addJoinCondition(join.getCondition());
+            }
+            for (final JoinFlag flag : join.getFlags()) {
+                target.addJoinFlag(flag);
+            }
+        }
+        if (source.getWhere() != null) {
+            target.addWhere(source.getWhere());
+        }
+        for (final Expression<?> group : source.getGroupBy()) {
+            target.addGroupBy(group);
+        }
+        if (source.getHaving() != null) {
+            target.addHaving(source.getHaving());
+        }
+        for (final OrderSpecifier<?> order : TupleOrderComparator.withExplicitNullHandling(
+                source.getOrderBy())) {
+            target.addOrderBy(order);
+        }
+        for (final QueryFlag flag : source.getFlags()) {
+            target.addFlag(flag);
+        }
+        for (final Map.Entry<ParamExpression<?>, Object> param : source.getParams().entrySet()) {
+            target.setParam((ParamExpression) param.getKey(), param.getValue());
+        }
+        target.setDistinct(source.isDistinct());
+        target.setUnique(source.isUnique());
+    }
+
+    /**
+     * Validates that the results of this query can be merged across
+     * shards.
+     * 
+     * @throws UnsupportedOperationException If the query is grouped
+     * or aggregated
+     */
+    protected void validateMergeable() {
+        final QueryMetadata metadata = getMetadata();
+        if (!metadata.getGroupBy().isEmpty()
+                || metadata.getHaving() != null
+                || PredicateAnalyzer.containsAggregate(metadata.getProjection())) {
+            throw new UnsupportedOperationException(
+                    "Grouped and aggregated queries must target a single shard");
+        }
+    }
+
+    /**
+     * Returns the modifiers of this query restricted to the specified
+     * maximum limit.
+     * 
+     * @param limit The maximum limit
+     * @return The restricted modifiers
+     */
+    protected @NotNull QueryModifiers restrictLimit(
+            final long limit) {
+        return ConcurrentExecutions.restrictLimit(getMetadata().getModifiers(), limit);
+    }
+
+    /**
+     * Fetches the results of the specified shards and merges them.
+     * 
+     * @param shards The shard indexes
+     * @param modifiers The modifiers to apply to the merged results
+     * @return The merged results
+     */
+    protected @NotNull CloseableIterator<T> fetchMerged(
+            final @NotNull int[] shards,
+            final @NotNull QueryModifiers modifiers) {
+        validateMergeable();
+        final List<List<?>> results = this.router.execute(shards,
+                shard -> createMergeQuery(shard, modifiers).fetch());
+        final List<Iterator<?>> iterators = new ArrayList<>(results.size());
+        for (final List<?> shardResults : results) {
+            iterators.add(shardResults.iterator());
+        }
+        return merge(iterators, modifiers);
+    }
+
+    /**
+     * Creates the SQL query of the specified shard whose results are
+     * merged. The offset is removed and the limit increased by it. If the
+     * query is ordered the order targets are added to the projection.
+     * 
+     * @param shard The shard index
+     * @param modifiers The modifiers to apply to the merged results
+     * @return The shard query
+     */
+    protected @NotNull ProjectableSQLQuery<?, ?> createMergeQuery(
+            final int shard,
+            final @NotNull QueryModifiers modifiers) {
+        final QueryMetadata metadata = getMetadata();
+        final Long limit = modifiers.getLimit();
+        final Long offset = modifiers.getOffset();
+        final QueryModifiers shardModifiers = new QueryModifiers(
+                limit == null ? null : limit + (offset == null ? 0 : offset),
+                null);
+        final List<OrderSpecifier<?>> orders = metadata.getOrderBy();
+        if (orders.isEmpty()) {
+            return createShardQuery(shard, metadata.getProjection(), shardModifiers);
+        }
+        final Expression<?>[] projection = new Expression<?>[orders.size() + 1];
+        projection[0] = metadata.getProjection();
+        for (int i = 0; i < orders.size(); i++) {
+            projection[i + 1] = orders.get(i).getTarget();
+        }
+        return createShardQuery(shard, Projections.tuple(projection), shardModifiers);
+    }
+
+    /**
+     * Merges the specified shard results, as returned by the queries
+     * created by {@code createMergeQuery()}.
+     * 
+     * @param results The shard results
+     * @param modifiers The modifiers to apply to the merged results
+     * @return The merged results
+     */
+    @SuppressWarnings("unchecked")
+    protected @NotNull CloseableIterator<T> merge(
+            final @NotNull List<? extends Iterator<?>> results,
+            final @NotNull QueryModifiers modifiers) {
+        final List<OrderSpecifier<?>> orders = getMetadata().getOrderBy();
+        if (orders.isEmpty()) {
+            return new MergingIterator<>(
+                    (List<? extends Iterator<? extends T>>) results,
+                    null,
+                    modifiers);
+        }
+        final Comparator<Tuple> comparator = new TupleOrderComparator(orders, 1);
+        final MergingIterator<Tuple> merged = new MergingIterator<>(
+                (List<? extends Iterator<? extends Tuple>>) results,
+                comparator,
+                modifiers);
+        return new CloseableIterator<T>() {
+            @Override
+            public boolean hasNext() {
+                return merged.hasNext();
+            }
+            @Override
+            public T next() {
+                return (T) merged.next().get(0, Object.class);
+            }
+            @Override
+            public void close() {
+                merged.close();
+            }
+        };
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return this.template.toString();
+    }
+}
@@ -0,0 +1,367 @@
+package dev.orne.qdsl.wrap.impl;
+
+/*-
+ * #%L
+ * Orne Querydsl Utils
+ * %%
+ * Copyright (C) 2022 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.QueryResults;
+import com.querydsl.core.types.EntityPath;
+
+import dev.orne.qdsl.wrap.QueryCancelledException;
+
+/**
+ * Deduplicator of identical concurrent query executions.
+ * <p>
+ * When a query is executed while an identical query is in flight
+ * the execution waits for the in flight query and receives its
+ * results instead of executing the query again. Queries are identified
+ * by the entity type, the terminal operation and the translated query
+ * metadata with normalized source aliases, so equivalent but differently
+ * aliased queries share the execution.
+ * <p>
+ * Failures of the in flight query are propagated to all the waiting
+ * executions. Lists of results and the results of {@code QueryResults}
+ * are copied for each waiting execution.
+ * <p>
+ * Waiting executions honor their own execution bounds: they stop
+ * waiting with a {@code QueryCancelledException} when their timeout
+ * expires or their cancel handle is cancelled, without affecting the
+ * in flight query.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2022-10
+ * @since 0.1
+ * @see QueryKey#normalized(Class, QueryKey.Operation, QueryMetadata)
+ */
+public class SingleFlightGroup {
+
+    /** The interval between cancel handle checks of bounded waits, in milliseconds. */
+    public static final long POLL_INTERVAL = 50;
+
+    /** The in flight query executions. */
+    private final @NotNull ConcurrentMap<QueryKey, CompletableFuture<Object>> inFlight =
+            new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new instance.
+     */
+    public SingleFlightGroup() {
+        super();
+    }
+
+    /**
+     * Returns the number of queries in flight.
+     * 
+     * @return The number of queries in flight
+     */
+    public int getInFlightCount() {
+        return this.inFlight.size();
+    }
+
+    /**
+     * Executes the specified query, or waits for an identical query
+     * in flight and returns its results.
+     * 
+     * @param <R> The results type
+     * @param entityType The entity type
+     * @param operation The terminal operation
+     * @param metadata The translated query metadata
+     * @param query The query execution
+     * @return The query results
+     */
+    public <R> R execute(
+            final @NotNull Class<? extends EntityPath<?>> entityType,
+            final @NotNull QueryKey.Operation operation,
+            final @NotNull QueryMetadata metadata,
+            final @NotNull Supplier<R> query) {
+        return execute(entityType, operation, metadata, null, query);
+    }
+
+    /**
+     * Executes the specified query, or waits for an identical query
+     * in flight and returns its results.
+     * <p>
+     * If an identical query is in flight the wait is limited by the
+     * timeout and the cancel handle of the specified execution bounds.
+     * 
+     * @param <R> The results type
+     * @param entityType The entity type
+     * @param operation The terminal operation
+     * @param metadata The translated query metadata
+     * @param bounds The execution bounds of the waiting execution, if any
+     * @param query The query execution
+     * @return The query results
+     * @throws QueryCancelledException If the wait for an identical query
+     * in flight is cancelled or times out
+     */
+    public <R> R execute(
+            final @NotNull Class<? extends EntityPath<?>> entityType,
+            final @NotNull QueryKey.Operation operation,
+            final @NotNull QueryMetadata metadata,
+            final ExecutionBounds bounds,
+            final @NotNull Supplier<R> query) {
+        Validate.notNull(entityType);
+        Validate.notNull(query);
+        final QueryKey key = QueryKey.normalized(entityType, operation, metadata);
+        final CompletableFuture<Object> flight = new CompletableFuture<>();
+        final CompletableFuture<Object> existing = this.inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            return await(existing, bounds);
+        }
+        try {
+            final R result = query.get();
+            flight.complete(result);
+            return result;
+        } catch (final RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            this.inFlight.remove(key, flight);
+        }
+    }
+
+    /**
+     * Waits for the specified in flight query and returns its results.
+     * 
+     * @param <R> The results type
+     * @param flight The in flight query
+     * @return The query results
+     */
+    protected <R> R await(
+            final @NotNull CompletableFuture<Object> flight) {
+        return await(flight, null);
+    }
+
+    /**
+     * Waits for the specified in flight query and returns its results.
+     * <p>
+     * If the execution bounds are bounded the wait fails with a
+     * {@code QueryCancelledException} when the timeout expires or
+     * the cancel handle is cancelled. The cancel handle is checked
+     * every {@value #POLL_INTERVAL} milliseconds.
+     * 
+     * @param <R> The results type
+     * @param flight The in flight query
+     * @param bounds The execution bounds of the waiting execution, if any
+     * @return The query results
+     * @throws QueryCancelledException If the wait is cancelled or
+     * times out
+     */
+    @SuppressWarnings("unchecked")
+    protected <R> R await(
+            final @NotNull CompletableFuture<Object> flight,
+            final ExecutionBounds bounds) {
+        final Object result;
+        try {
+            if (bounds == null || !bounds.isBounded()) {
+                result = flight.join();
+            } else {
+                result = awaitBounded(flight, bounds);
+            }
+        } catch (final CompletionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+        return (R) copy(result);
+    }
+
+    /**
+     * Waits for the specified in flight query within the specified
+     * execution bounds.
+     * 
+     * @param flight The in flight query
+     * @param bounds The execution bounds of the waiting execution
+     * @return The query results
+     * @throws CompletionException If the in flight query failed
+     * @throws QueryCancelledException If the wait is cancelled, times
+     * out or is interrupted
+     */
+    private static Object awaitBounded(
+            final @NotNull CompletableFuture<Object> flight,
+            final @NotNull ExecutionBounds bounds) {
+        final long deadline = bounds.getDeadline();
+        while (true) {
+            bounds.checkBounds(deadline);
+            long wait = POLL_INTERVAL;
+            if (deadline != Long.MAX_VALUE) {
+                wait = Math.min(wait, Math.max(1, TimeUnit.NANOSECONDS.toMillis(
+                        deadline - System.nanoTime())));
+            }
+            try {
+                return flight.get(wait, TimeUnit.MILLISECONDS);
+            } catch (final TimeoutException e) {
+                // Check the bounds again
+            } catch (final ExecutionException e) {
+                throw new CompletionException(e.getCause());
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new QueryCancelledException(
+                        "Interrupted while waiting for an identical query in flight", e);
+            }
+        }
+    }
+
+    /**
+     * Copies the specified query results if they are a list or a
+     * {@code QueryResults}, so waiting executions don't share mutable
+     * results.
+     * 
+     * @param value The query results
+     * @return The copied query results
+     */
+    private static Object copy(
+            final Object value) {
+        if (value instanceof List) {
+            return new ArrayList<>((List<?>) value);
+        }
+        if (value instanceof QueryResults) {
+            final QueryResults<?> results = (QueryResults<?>) value;
+            return new QueryResults<>(
+                    new ArrayList<>(results.getResults()),
+                    results.getLimit(),
+                    results.getOffset(),
+                    results.getTotal());
+        }
+        return value;
+    }
+
+    /**
+     * Returns a single flight scope for clauses of the specified entity
+     * type.
+     * 
+     * @param entityType The clause entity type
+     * @return The single flight scope
+     */
+    public @NotNull Scope scope(
+            final @NotNull Class<? extends EntityPath<?>> entityType) {
+        return new Scope(this, entityType);
+    }
+
+    /**
+     * Single flight group binding of a wrapped query clause.
+     * 
+     * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+     * @version 1.0, 2022-10
+     * @since SingleFlightGroup 1.0
+     */
+    public static class Scope {
+
+        /** The single flight group. */
+        private final @NotNull SingleFlightGroup group;
+        /** The clause entity type. */
+        private final @NotNull Class<? extends EntityPath<?>> entityType;
+
+        /**
+         * Creates a new instance.
+         * 
+         * @param group The single flight group
+         * @param entityType The clause entity type
+         */
+        protected Scope(
+                final @NotNull SingleFlightGroup group,
+                final @NotNull Class<? extends EntityPath<?>> entityType) {
+            super();
+            this.group = Validate.notNull(group);
+            this.entityType = Validate.notNull(entityType);
+        }
+
+        /**
+         * Returns the single flight group.
+         * 
+         * @return The single flight group
+         */
+        public @NotNull SingleFlightGroup getGroup() {
+            return this.group;
+        }
+
+        /**
+         * Returns the clause entity type.
+         * 
+         * @return The clause entity type
+         */
+        public @NotNull Class<? extends EntityPath<?>> getEntityType() {
+            return this.entityType;
+        }
+
+        /**
+         * Executes the specified query, or waits for an identical query
+         * in flight and returns its results.
+         * 
+         * @param <R> The results type
+         * @param operation The terminal operation
+         * @param metadata The translated query metadata
+         * @param query The query execution
+         * @return The query results
+         * @see SingleFlightGroup#execute(Class, QueryKey.Operation, QueryMetadata, Supplier)
+         */
+        public <R> R execute(
+                final @NotNull QueryKey.Operation operation,
+                final @NotNull QueryMetadata metadata,
+                final @NotNull Supplier<R> query) {
+            return this.group.execute(this.entityType, operation, metadata, query);
+        }
+
+        /**
+         * Executes the specified query, or waits for an identical query
+         * in flight, within the specified execution bounds, and returns
+         * its results.
+         * 
+         * @param <R> The results type
+         * @param operation The terminal operation
+         * @param metadata The translated query metadata
+         * @param bounds The execution bounds of the waiting execution, if any
+         * @param query The query execution
+         * @return The query results
+         * @throws QueryCancelledException If the wait for an identical
+         * query in flight is cancelled or times out
+         * @see SingleFlightGroup#execute(Class, QueryKey.Operation, QueryMetadata, ExecutionBounds, Supplier)
+         */
+        public <R> R execute(
+                final @NotNull QueryKey.Operation operation,
+                final @NotNull QueryMetadata metadata,
+                final ExecutionBounds bounds,
+                final @NotNull Supplier<R> query) {
+            return this.group.execute(this.entityType, operation, metadata, bounds, query);
+        }
+    }
+}
@@ -0,0 +1,350 @@
+package dev.orne.qdsl.wrap.impl;
+
+/*-
+ * #%L
+ * Orne Querydsl Utils
+ * %%
+ * Copyright (C) 2022 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+
+import com.querydsl.core.FetchableQuery;
+import com.querydsl.core.types.ConstantImpl;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Order;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.sql.ProjectableSQLQuery;
+
+import dev.orne.qdsl.wrap.ChunkedExecution;
+import dev.orne.qdsl.wrap.QueryCancelledException;
+import dev.orne.qdsl.wrap.impl.transform.ConvertedProjection;
+
+/**
+ * Chunked execution of wrapped SQL delete and update clauses.
+ * <p>
+ * Each chunk is executed as a new SQL statement, restricted with the
+ * translated filters of the clause and a {@code LIMIT} modifier or a
+ * range of the translated key path. In key mode the upper boundary of
+ * each range is selected with a query that skips the configured number
+ * of matching rows in ascending key order.
+ * <p>
+ * The cancel handle of the clause is checked before each chunk.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2022-10
+ * @since 0.1
+ * @see ChunkedExecution
+ */
+public class SqlChunkedDml {
+
+    /** The chunked execution configuration. */
+    private final @NotNull ChunkedExecution execution;
+    /** The execution bounds of the clause. */
+    private final @NotNull ExecutionBounds bounds;
+    /** The translated filters of the clause. */
+    private final @NotNull Predicate[] filters;
+    /** The translated key path. */
+    private final Path<?> key;
+    /** The supplier of key boundary queries. */
+    private final Supplier<? extends ProjectableSQLQuery<?, ?>> queries;
+
+    /**
+     * Creates a new instance.
+     * 
+     * @param execution The chunked execution configuration
+     * @param bounds The execution bounds of the clause
+     * @param filters The translated filters of the clause
+     * @param key The translated key path, or {@code null} in limit mode
+     * @param queries The supplier of key boundary queries, required in
+     * key mode
+     */
+    public SqlChunkedDml(
+            final @NotNull ChunkedExecution execution,
+            final @NotNull ExecutionBounds bounds,
+            final @NotNull Predicate[] filters,
+            final Path<?> key,
+            final Supplier<? extends ProjectableSQLQuery<?, ?>> queries) {
+        super();
+        this.execution = Validate.notNull(execution);
+        this.bounds = Validate.notNull(bounds);
+        this.filters = Arrays.copyOf(Validate.notNull(filters), filters.length);
+        Validate.isTrue(key == null || queries != null,
+                "Key boundary queries are required in key mode");
+        this.key = key;
+        this.queries = queries;
+    }
+
+    /**
+     * Returns the chunked execution configuration.
+     * 
+     * @return The chunked execution configuration
+     */
+    public @NotNull ChunkedExecution getExecution() {
+        return this.execution;
+    }
+
+    /**
+     * Returns the translated key path.
+     * 
+     * @return The translated key path, or {@code null} in limit mode
+     */
+    public Path<?> getKey() {
+        return this.key;
+    }
+
+    /**
+     * Translates the key path of the specified chunked execution to the
+     * column of the delegated clauses. Value mapped key paths are
+     * translated to the column storing the values, as only the stored
+     * values are used to compute the chunk ranges.
+     * 
+     * @param transformer The expression transformer
+     * @param execution The chunked execution configuration
+     * @return The translated key path, or {@code null} in limit mode
+     * @throws ExpressionTransformationException If the key path is not
+     * translated to a path
+     */
+    public static Path<?> translateKey(
+            final @NotNull ExpressionTransformer transformer,
+            final @NotNull ChunkedExecution execution) {
+        if (execution.getKey() == null) {
+            return null;
+        }
+        Expression<?> result = transformer.translateKeyPath(execution.getKey());
+        if (result instanceof ConvertedProjection) {
+            result = ((ConvertedProjection<?, ?>) result).getSource();
+        }
+        if (!(result instanceof Path)) {
+            throw new ExpressionTransformationException(String.format(
+                    "Chunk key '%s' is not translated to a path: %s",
+                    execution.getKey(),
+                    result));
+        }
+        return (Path<?>) result;
+    }
+
+    /**
+     * Executes the chunks with the specified chunk statement.
+     * 
+     * @param statement The chunk statement
+     * @return The affected rows count of all the chunks
+     * @throws QueryCancelledException If the execution is cancelled
+     * between chunks
+     */
+    public long execute(
+            final @NotNull ChunkStatement statement) {
+        Validate.notNull(statement);
+        if (this.key == null) {
+            return executeLimited(statement);
+        } else {
+            return executeKeyed(statement);
+        }
+    }
+
+    /**
+     * Executes chunks bounded by a {@code LIMIT} modifier until a chunk
+     * affects fewer rows than the chunk size.
+     * 
+     * @param statement The chunk statement
+     * @return The affected rows count of all the chunks
+     */
+    protected long executeLimited(
+            final @NotNull ChunkStatement statement) {
+        final int chunkSize = this.execution.getChunkSize();
+        long total = 0;
+        int chunk = 0;
+        long affected;
+        do {
+            if (chunk > 0) {
+                pause();
+            }
+            this.bounds.checkCancelled();
+            affected = statement.execute(this.filters, chunkSize);
+            total += affected;
+            notifyProgress(chunk++, affected, total);
+        } while (affected >= chunkSize);
+        return total;
+    }
+
+    /**
+     * Executes chunks bounded by consecutive key ranges, and a last
+     * chunk for the rows with {@code null} key.
+     * 
+     * @param statement The chunk statement
+     * @return The affected rows count of all the chunks
+     */
+    protected long executeKeyed(
+            final @NotNull ChunkStatement statement) {
+        long total = 0;
+        int chunk = 0;
+        Object lower = null;
+        do {
+            if (chunk > 0) {
+                pause();
+            }
+            this.bounds.checkCancelled();
+            final Object upper = fetchUpperBoundary(lower);
+            final long affected = statement.execute(
+                    withFilter(createRange(lower, upper)), 0);
+            total += affected;
+            notifyProgress(chunk++, affected, total);
+            lower = upper;
+        } while (lower != null);
+        pause();
+        this.bounds.checkCancelled();
+        final long affected = statement.execute(
+                withFilter(ExpressionUtils.predicate(Ops.IS_NULL, this.key)), 0);
+        total += affected;
+        notifyProgress(chunk, affected, total);
+        return total;
+    }
+
+    /**
+     * Selects the upper key boundary of the chunk that starts after the
+     * specified lower key boundary. Rows with {@code null} key are
+     * excluded, as their position in the key order depends on the
+     * database.
+     * 
+     * @param lower The exclusive lower key boundary, or {@code null} for
+     * the first chunk
+     * @return The inclusive upper key boundary, or {@code null} if less
+     * than a chunk of rows remain
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    protected Object fetchUpperBoundary(
+            final Object lower) {
+        final ProjectableSQLQuery<?, ?> query = Validate.notNull(
+                this.queries.get(),
+                "No key boundary query supplied");
+        final FetchableQuery<?, ?> keyQuery = query.select(this.key)
+                .where(this.filters)
+                .where(ExpressionUtils.predicate(Ops.IS_NOT_NULL, this.key));
+        if (lower != null) {
+            keyQuery.where(ExpressionUtils.predicate(Ops.GT, this.key, ConstantImpl.create(lower)));
+        }
+        return keyQuery.orderBy(new OrderSpecifier(Order.ASC, this.key))
+                .offset(this.execution.getChunkSize() - 1L)
+                .fetchFirst();
+    }
+
+    /**
+     * Creates the key range predicate of a chunk.
+     * 
+     * @param lower The exclusive lower key boundary, or {@code null} for
+     * the first chunk
+     * @param upper The inclusive upper key boundary, or {@code null} for
+     * the last chunk
+     * @return The key range predicate
+     */
+    protected @NotNull Predicate createRange(
+            final Object lower,
+            final Object upper) {
+        if (lower == null && upper == null) {
+            return ExpressionUtils.predicate(Ops.IS_NOT_NULL, this.key);
+        }
+        Predicate result = null;
+        if (lower != null) {
+            result = ExpressionUtils.predicate(Ops.GT, this.key, ConstantImpl.create(lower));
+        }
+        if (upper != null) {
+            result = ExpressionUtils.and(result,
+                    ExpressionUtils.predicate(Ops.LOE, this.key, ConstantImpl.create(upper)));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the translated filters of the clause with the specified
+     * additional filter.
+     * 
+     * @param filter The additional filter
+     * @return The resulting filters
+     */
+    protected @NotNull Predicate[] withFilter(
+            final @NotNull Predicate filter) {
+        final Predicate[] result = Arrays.copyOf(this.filters, this.filters.length + 1);
+        result[this.filters.length] = filter;
+        return result;
+    }
+
+    /**
+     * Notifies the progress listener, if any, of a chunk execution.
+     * 
+     * @param chunk The zero based index of the executed chunk
+     * @param affected The affected rows count of the chunk
+     * @param total The affected rows count of all the executed chunks
+     */
+    protected void notifyProgress(
+            final int chunk,
+            final long affected,
+            final long total) {
+        final ChunkedExecution.Listener listener = this.execution.getListener();
+        if (listener != null) {
+            listener.chunkExecuted(chunk, affected, total);
+        }
+    }
+
+    /**
+     * Pauses the current thread the configured pause between chunks.
+     * 
+     * @throws QueryCancelledException If the thread is interrupted
+     */
+    protected void pause() {
+        final long pause = this.execution.getPause();
+        if (pause > 0) {
+            try {
+                Thread.sleep(pause);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new QueryCancelledException("Chunked execution interrupted", e);
+            }
+        }
+    }
+
+    /**
+     * Statement executed for each chunk.
+     * 
+     * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+     * @version 1.0, 2022-10
+     * @since 0.1
+     */
+    @FunctionalInterface
+    public interface ChunkStatement {
+
+        /**
+         * Executes a new statement for a chunk.
+         * 
+         * @param filters The translated filters of the chunk
+         * @param limit The limit of affected rows, or zero for no limit
+         * @return The affected rows count
+         */
+        long execute(
+                @NotNull Predicate[] filters,
+                long limit);
+    }
+}
@@ -0,0 +1,172 @@
+package dev.orne.qdsl.wrap.impl;
+
+/*-
+ * #%L
+ * Orne Querydsl Utils
+ * %%
+ * Copyright (C) 2022 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+
+import com.querydsl.core.QueryException;
+import com.querydsl.sql.SQLBaseListener;
+import com.querydsl.sql.SQLListenerContext;
+
+import dev.orne.qdsl.wrap.CancelHandle;
+
+/**
+ * SQL listener that applies the execution bounds of a wrapped clause to
+ * the JDBC statements of the delegate SQL clause.
+ * <p>
+ * The timeout is applied as the statements query timeout. While the
+ * statements are executed a cancellation callback is registered in the
+ * cancel handle that cancels them.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2022-10
+ * @since 0.1
+ * @see ExecutionBounds
+ */
+public class SqlExecutionBoundsListener
+extends SQLBaseListener {
+
+    /** The listener context data key of the cancellation callback. */
+    protected static final String CALLBACK_KEY =
+            SqlExecutionBoundsListener.class.getName() + ".callback";
+    /** The listener context data key of the cancel handle. */
+    protected static final String HANDLE_KEY =
+            SqlExecutionBoundsListener.class.getName() + ".handle";
+
+    /** The execution bounds. */
+    private final @NotNull ExecutionBounds bounds;
+
+    /**
+     * Creates a new instance.
+     * 
+     * @param bounds The execution bounds
+     */
+    public SqlExecutionBoundsListener(
+            final @NotNull ExecutionBounds bounds) {
+        super();
+        this.bounds = Validate.notNull(bounds);
+    }
+
+    /**
+     * Returns the execution bounds.
+     * 
+     * @return The execution bounds
+     */
+    public @NotNull ExecutionBounds getBounds() {
+        return this.bounds;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void start(
+            final SQLListenerContext context) {
+        this.bounds.checkCancelled();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void preExecute(
+            final SQLListenerContext context) {
+        if (context.getData(CALLBACK_KEY) != null) {
+            return;
+        }
+        final List<PreparedStatement> statements = getStatements(context);
+        final int timeout = this.bounds.getTimeoutSeconds();
+        try {
+            for (final PreparedStatement statement : statements) {
+                if (timeout > 0) {
+                    statement.setQueryTimeout(timeout);
+                }
+            }
+        } catch (final SQLException e) {
+            throw new QueryException("Error applying statement timeout", e);
+        }
+        final Runnable callback = () -> cancel(statements);
+        context.setData(CALLBACK_KEY, callback);
+        final CancelHandle handle = this.bounds.getCancelHandle();
+        if (handle != null) {
+            context.setData(HANDLE_KEY, handle);
+            handle.register(callback);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void end(
+            final SQLListenerContext context) {
+        final Object handle = context.getData(HANDLE_KEY);
+        if (handle instanceof CancelHandle) {
+            ((CancelHandle) handle).unregister((Runnable) context.getData(CALLBACK_KEY));
+        }
+    }
+
+    /**
+     * Returns the JDBC statements of the specified listener context.
+     * 
+     * @param context The listener context
+     * @return The JDBC statements
+     */
+    protected @NotNull List<PreparedStatement> getStatements(
+            final @NotNull SQLListenerContext context) {
+        final List<PreparedStatement> result = new ArrayList<>();
+        final Collection<PreparedStatement> statements = context.getPreparedStatements();
+        if (statements == null || statements.isEmpty()) {
+            if (context.getPreparedStatement() != null) {
+                result.add(context.getPreparedStatement());
+            }
+        } else {
+            result.addAll(statements);
+        }
+        return result;
+    }
+
+    /**
+     * Cancels the specified JDBC statements, ignoring errors.
+     * 
+     * @param statements The JDBC statements
+     */
+    protected void cancel(
+            final @NotNull List<PreparedStatement> statements) {
+        for (final PreparedStatement statement : statements) {
+            try {
+                statement.cancel();
+            } catch (final SQLException ignore) {
+                // Statement already closed or cancellation not supported
+            }
+        }
+    }
+}
@@ -0,0 +1,703 @@
+package dev.orne.qdsl.wrap.impl;
+
+/*-
+ * #%L
+ * Orne Querydsl Utils
+ * %%
+ * Copyright (C) 2022 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import javax.sql.DataSource;
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+
+import com.mysema.commons.lang.CloseableIterator;
+import com.querydsl.core.QueryException;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.QueryModifiers;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.ConstantImpl;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Order;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.Predicate;
+
+/**
+ * Scan of the results of a wrapped SQL query clause split in partitions
+ * by ranges of a numeric or temporal key expression.
+ * <p>
+ * The range boundaries are computed on first execution with the configured
+ * strategy, interpolating between the minimum and maximum key values or
+ * sampling the key values quantiles. Results with {@code null} key are
+ * included in the first partition.
+ * <p>
+ * If a data source is configured each partition query is executed on
+ * a new connection, closed when the partition results are consumed,
+ * and partitions are executed concurrently. Otherwise all the partition
+ * queries are executed sequentially on the connection of the scanned
+ * clause.
+ * <p>
+ * Partitions are returned in key order. If the scanned clause is ordered
+ * by ascending key the results are returned in key order.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2022-10
+ * @param <T> The query results type
+ * @since 0.1
+ * @see WrappedSqlQueryClause#partitionedScan(Expression, int, Strategy)
+ */
+public class SqlPartitionedScan<T> {
+
+    /** The scale of interpolated boundaries. */
+    private static final int INTERPOLATION_SCALE = 10;
+
+    /** The scanned clause. */
+    private final @NotNull WrappedSqlQueryClause<T> clause;
+    /** The translated partition key expression. */
+    private final @NotNull Expression<?> key;
+    /** The requested partitions count. */
+    private final int partitions;
+    /** The range boundaries computation strategy. */
+    private final @NotNull Strategy strategy;
+    /** The data source of the partition connections. */
+    private DataSource dataSource;
+    /** The executor of the partition queries. */
+    private Executor executor;
+    /** The computed range boundaries. */
+    private List<Object> boundaries;
+
+    /**
+     * Creates a new instance.
+     * 
+     * @param clause The scanned clause
+     * @param key The translated partition key expression
+     * @param partitions The requested partitions count
+     * @param strategy The range boundaries computation strategy
+     * @throws IllegalArgumentException If the key type is not supported
+     * by the strategy or the partitions count is not positive
+     * @throws IllegalStateException If the scanned clause is restricted,
+     * grouped or aggregated
+     */
+    public SqlPartitionedScan(
+            final @NotNull WrappedSqlQueryClause<T> clause,
+            final @NotNull Expression<?> key,
+            final int partitions,
+            final @NotNull Strategy strategy) {
+        super();
+        this.clause = Validate.notNull(clause);
+        this.key = Validate.notNull(key);
+        this.strategy = Validate.notNull(strategy);
+        Validate.isTrue(partitions > 0, "Partitions count must be positive");
+        Validate.isTrue(Comparable.class.isAssignableFrom(key.getType()),
+                "Partition key must be comparable: %s", key);
+        Validate.isTrue(strategy != Strategy.MIN_MAX || isInterpolable(key.getType()),
+                "Partition key type not supported by MIN_MAX strategy: %s", key.getType());
+        this.partitions = partitions;
+        final QueryMetadata metadata = clause.getMetadata();
+        Validate.validState(!metadata.getModifiers().isRestricting(),
+                "Partitioned scans cannot be limited");
+        Validate.validState(metadata.getGroupBy().isEmpty() && metadata.getHaving() == null,
+                "Partitioned scans cannot be grouped");
+        Validate.validState(!PredicateAnalyzer.containsAggregate(metadata.getProjection()),
+                "Partitioned scans cannot be aggregated");
+    }
+
+    /**
+     * Returns the scanned clause.
+     * 
+     * @return The scanned clause
+     */
+    public @NotNull WrappedSqlQueryClause<T> getClause() {
+        return this.clause;
+    }
+
+    /**
+     * Returns the translated partition key expression.
+     * 
+     * @return The translated partition key expression
+     */
+    public @NotNull Expression<?> getKey() {
+        return this.key;
+    }
+
+    /**
+     * Returns the requested partitions count.
+     * 
+     * @return The requested partitions count
+     */
+    public int getPartitions() {
+        return this.partitions;
+    }
+
+    /**
+     * Returns the range boundaries computation strategy.
+     * 
+     * @return The range boundaries computation strategy
+     */
+    public @NotNull Strategy getStrategy() {
+        return this.strategy;
+    }
+
+    /**
+     * Returns the data source of the partition connections, if any.
+     * 
+     * @return The data source of the partition connections
+     */
+    public DataSource getDataSource() {
+        return this.dataSource;
+    }
+
+    /**
+     * Sets the data source of the partition connections. If configured,
+     * each partition query is executed on a new connection obtained from
+     * it, closed when the partition results are consumed. The scanned
+     * clause delegate must extend {@code AbstractSQLQuery}.
+     * <p>
+     * By default partition queries are executed sequentially on the
+     * connection of the scanned clause.
+     * 
+     * @param dataSource The data source of the partition connections
+     * @return This instance, for method chaining
+     */
+    public @NotNull SqlPartitionedScan<T> setDataSource(
+            final DataSource dataSource) {
+        this.dataSource = dataSource;
+        return this;
+    }
+
+    /**
+     * Returns the executor of the partition queries, if any.
+     * 
+     * @return The executor of the partition queries
+     */
+    public Executor getExecutor() {
+        return this.executor;
+    }
+
+    /**
+     * Sets the executor of the partition queries. Used only if a data
+     * source is configured. If {@code null} the partition queries are
+     * executed sequentially in the calling thread.
+     * 
+     * @param executor The executor of the partition queries
+     * @return This instance, for method chaining
+     */
+    public @NotNull SqlPartitionedScan<T> setExecutor(
+            final Executor executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * Returns the range boundaries of the partitions, computing them
+     * on first call. The boundaries are strictly ascending. Empty if the
+     * query has no results with not {@code null} key.
+     * <p>
+     * If a data source is configured the boundaries are computed on
+     * a new connection, closed once computed.
+     * 
+     * @return The range boundaries of the partitions
+     */
+    public synchronized @NotNull List<Object> getBoundaries() {
+        if (this.boundaries == null) {
+            final List<Object> values;
+            if (this.partitions == 1) {
+                values = Collections.emptyList();
+            } else if (this.dataSource == null) {
+                values = computeBoundaries(null);
+            } else {
+                final Connection connection = openConnection();
+                try {
+                    values = computeBoundaries(connection);
+                } finally {
+                    closeConnection(connection);
+                }
+            }
+            this.boundaries = Collections.unmodifiableList(values);
+        }
+        return this.boundaries;
+    }
+
+    /**
+     * Computes the range boundaries with the configured strategy.
+     * 
+     * @param connection The connection to compute the boundaries on, or
+     * {@code null} to use copies of the scanned clause
+     * @return The range boundaries
+     */
+    protected @NotNull List<Object> computeBoundaries(
+            final Connection connection) {
+        if (this.strategy == Strategy.MIN_MAX) {
+            return computeMinMaxBoundaries(connection);
+        }
+        return computeQuantileBoundaries(connection);
+    }
+
+    /**
+     * Returns the range predicates of the partitions, based on the
+     * key expression and the range boundaries.
+     * 
+     * @return The range predicates of the partitions, in key order
+     */
+    public @NotNull List<Predicate> getRanges() {
+        final List<Object> values = getBoundaries();
+        final List<Predicate> result = new ArrayList<>(values.size() + 1);
+        if (values.isEmpty()) {
+            result.add(null);
+            return result;
+        }
+        result.add(ExpressionUtils.or(
+                ExpressionUtils.predicate(Ops.IS_NULL, this.key),
+                ExpressionUtils.predicate(Ops.LT, this.key, ConstantImpl.create(values.get(0)))));
+        for (int i = 1; i < values.size(); i++) {
+            result.add(ExpressionUtils.and(
+                    ExpressionUtils.predicate(Ops.GOE, this.key, ConstantImpl.create(values.get(i - 1))),
+                    ExpressionUtils.predicate(Ops.LT, this.key, ConstantImpl.create(values.get(i)))));
+        }
+        result.add(ExpressionUtils.predicate(Ops.GOE, this.key,
+                ConstantImpl.create(values.get(values.size() - 1))));
+        return result;
+    }
+
+    /**
+     * Fetches the results of all the partitions.
+     * 
+     * @return The query results, in partitions order
+     */
+    public @NotNull List<T> fetch() {
+        final List<T> result = new ArrayList<>();
+        for (final List<T> partition : executeAll(
+                range -> ConcurrentExecutions.collect(openPartition(range)))) {
+            result.addAll(partition);
+        }
+        return result;
+    }
+
+    /**
+     * Returns an iterator over the results of all the partitions.
+     * <p>
+     * All the partition queries are executed, concurrently if possible,
+     * before returning. The results are then retrieved lazily in
+     * partitions order.
+     * 
+     * @return The query results iterator
+     */
+    public @NotNull CloseableIterator<T> iterate() {
+        final List<CloseableIterator<T>> opened = new CopyOnWriteArrayList<>();
+        final List<CloseableIterator<T>> results;
+        try {
+            results = executeAll(range -> {
+                final CloseableIterator<T> iterator = openPartition(range);
+                opened.add(iterator);
+                return iterator;
+            });
+        } catch (final RuntimeException | Error e) {
+            for (final CloseableIterator<T> iterator : opened) {
+                iterator.close();
+            }
+            throw e;
+        }
+        return new MergingIterator<>(results, null, QueryModifiers.EMPTY);
+    }
+
+    /**
+     * Returns a stream of the results of all the partitions.
+     * <p>
+     * If a data source is configured the stream is parallel, each
+     * partition being a substream executed on its own connection.
+     * Otherwise the stream is sequential. The encounter order of the
+     * stream is the partitions order. The partition queries are executed
+     * lazily as the stream is consumed.
+     * 
+     * @return The query results stream
+     */
+    public @NotNull Stream<T> stream() {
+        final List<Predicate> ranges = getRanges();
+        final Stream<Predicate> source = this.dataSource == null ?
+                ranges.stream() :
+                ranges.parallelStream();
+        return source.flatMap(range -> {
+            final CloseableIterator<T> iterator = openPartition(range);
+            return StreamSupport.stream(
+                    Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED),
+                    false)
+                    .onClose(iterator::close);
+        });
+    }
+
+    /**
+     * Computes the range boundaries interpolating between the minimum and
+     * maximum key values. Duplicated boundaries, as produced for narrow
+     * integral key ranges, are removed.
+     * 
+     * @param connection The connection to compute the boundaries on, or
+     * {@code null} to use copies of the scanned clause
+     * @return The range boundaries
+     */
+    protected @NotNull List<Object> computeMinMaxBoundaries(
+            final Connection connection) {
+        final WrappedSqlQueryClause<T> copy = createBaseCopy(connection);
+        final Tuple range = copy.executeBounded(() -> copy.getDelegate()
+                .select(
+                        ExpressionUtils.operation(this.key.getType(), Ops.AggOps.MIN_AGG, this.key),
+                        ExpressionUtils.operation(this.key.getType(), Ops.AggOps.MAX_AGG, this.key))
+                .fetchFirst());
+        final List<Object> result = new ArrayList<>(this.partitions - 1);
+        if (range == null || range.get(0, Object.class) == null) {
+            return result;
+        }
+        final Object min = range.get(0, Object.class);
+        final Object max = range.get(1, Object.class);
+        final BigDecimal start = toOrdinal(min);
+        final BigDecimal span = toOrdinal(max).subtract(start);
+        Object previous = min;
+        for (int i = 1; i < this.partitions; i++) {
+            final BigDecimal ordinal = start.add(span
+                    .multiply(BigDecimal.valueOf(i))
+                    .divide(BigDecimal.valueOf(this.partitions), INTERPOLATION_SCALE, RoundingMode.FLOOR));
+            final Object value = fromOrdinal(ordinal, min.getClass());
+            if (compare(value, previous) > 0) {
+                result.add(value);
+                previous = value;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Computes the range boundaries sampling the key value at each
+     * quantile of the query results with not {@code null} key.
+     * Duplicated boundaries, as produced for skewed key distributions,
+     * are removed.
+     * 
+     * @param connection The connection to compute the boundaries on, or
+     * {@code null} to use copies of the scanned clause
+     * @return The range boundaries
+     */
+    protected @NotNull List<Object> computeQuantileBoundaries(
+            final Connection connection) {
+        final Predicate notNull = ExpressionUtils.predicate(Ops.IS_NOT_NULL, this.key);
+        final WrappedSqlQueryClause<T> counter = createBaseCopy(connection);
+        counter.getMetadata().addWhere(notNull);
+        final long count = counter.executeBounded(() -> counter.getDelegate().fetchCount());
+        final List<Object> result = new ArrayList<>(this.partitions - 1);
+        Object previous = null;
+        for (int i = 1; i < this.partitions; i++) {
+            final long offset = count * i / this.partitions;
+            if (offset == 0) {
+                continue;
+            }
+            final WrappedSqlQueryClause<T> sampler = createBaseCopy(connection);
+            sampler.getMetadata().addWhere(notNull);
+            final Object value = sampler.executeBounded(() -> sampler.getDelegate()
+                    .select(this.key)
+                    .orderBy(ascending(this.key))
+                    .offset(offset)
+                    .limit(1)
+                    .fetchFirst());
+            if (value != null && (previous == null || compare(value, previous) > 0)) {
+                result.add(value);
+                previous = value;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Creates a copy of the scanned clause, without ordering, for
+     * boundaries computation.
+     * 
+     * @param connection The connection of the copy, or {@code null} to
+     * use a plain copy of the scanned clause
+     * @return The copy of the scanned clause
+     */
+    protected @NotNull WrappedSqlQueryClause<T> createBaseCopy(
+            final Connection connection) {
+        final WrappedSqlQueryClause<T> copy = connection == null ?
+                this.clause.copy() :
+                this.clause.copy(connection);
+        copy.getMetadata().clearOrderBy();
+        return copy;
+    }
+
+    /**
+     * Executes the query of the partition with the specified range
+     * predicate.
+     * <p>
+     * If a data source is configured the query is executed on a new
+     * connection, closed when the returned iterator is closed.
+     * 
+     * @param range The range predicate of the partition
+     * @return The partition results iterator
+     */
+    protected @NotNull CloseableIterator<T> openPartition(
+            final Predicate range) {
+        if (this.dataSource == null) {
+            final WrappedSqlQueryClause<T> partition = this.clause.copy();
+            partition.getMetadata().addWhere(range);
+            return partition.iterate();
+        }
+        final Connection connection = openConnection();
+        final CloseableIterator<T> results;
+        try {
+            final WrappedSqlQueryClause<T> partition = this.clause.copy(connection);
+            partition.getMetadata().addWhere(range);
+            results = partition.iterate();
+        } catch (final RuntimeException | Error e) {
+            closeConnection(connection);
+            throw e;
+        }
+        return new CloseableIterator<T>() {
+            @Override
+            public boolean hasNext() {
+                return results.hasNext();
+            }
+            @Override
+            public T next() {
+                return results.next();
+            }
+            @Override
+            public void close() {
+                try {
+                    results.close();
+                } finally {
+                    closeConnection(connection);
+                }
+            }
+        };
+    }
+
+    /**
+     * Obtains a new connection from the configured data source.
+     * 
+     * @return The new connection
+     * @throws QueryException If the connection cannot be obtained
+     */
+    protected @NotNull Connection openConnection() {
+        try {
+            return this.dataSource.getConnection();
+        } catch (final SQLException e) {
+            throw new QueryException("Error obtaining partition connection", e);
+        }
+    }
+
+    /**
+     * Closes the specified partition connection.
+     * 
+     * @param connection The partition connection
+     */
+    protected void closeConnection(
+            final @NotNull Connection connection) {
+        try {
+            connection.close();
+        } catch (final SQLException e) {
+            throw new QueryException("Error closing partition connection", e);
+        }
+    }
+
+    /**
+     * Executes the specified operation over the range predicate of each
+     * partition, concurrently if a data source and an executor are
+     * configured.
+     * 
+     * @param <R> The operation result type
+     * @param operation The operation
+     * @return The operation results, in partitions order
+     */
+    protected <R> @NotNull List<R> executeAll(
+            final @NotNull Function<Predicate, R> operation) {
+        return ConcurrentExecutions.executeAll(
+                getRanges(),
+                operation,
+                this.dataSource == null ? null : this.executor);
+    }
+
+    /**
+     * Returns {@code true} if the range boundaries of the specified key
+     * type can be interpolated.
+     * 
+     * @param type The key type
+     * @return If the key type supports interpolation
+     */
+    public static boolean isInterpolable(
+            final @NotNull Class<?> type) {
+        return Byte.class.equals(type)
+                || Short.class.equals(type)
+                || Integer.class.equals(type)
+                || Long.class.equals(type)
+                || BigInteger.class.equals(type)
+                || Float.class.equals(type)
+                || Double.class.equals(type)
+                || BigDecimal.class.equals(type)
+                || Date.class.isAssignableFrom(type)
+                || Instant.class.equals(type)
+                || LocalDate.class.equals(type)
+                || LocalDateTime.class.equals(type);
+    }
+
+    /**
+     * Converts the specified key value to its ordinal position for
+     * interpolation.
+     * 
+     * @param value The key value
+     * @return The ordinal position
+     * @throws IllegalArgumentException If the value type is not supported
+     */
+    protected static @NotNull BigDecimal toOrdinal(
+            final @NotNull Object value) {
+        if (value instanceof BigDecimal) {
+            return (BigDecimal) value;
+        } else if (value instanceof BigInteger) {
+            return new BigDecimal((BigInteger) value);
+        } else if (value instanceof Double || value instanceof Float) {
+            return BigDecimal.valueOf(((Number) value).doubleValue());
+        } else if (value instanceof Number) {
+            return BigDecimal.valueOf(((Number) value).longValue());
+        } else if (value instanceof Date) {
+            return BigDecimal.valueOf(((Date) value).getTime());
+        } else if (value instanceof Instant) {
+            return BigDecimal.valueOf(((Instant) value).toEpochMilli());
+        } else if (value instanceof LocalDate) {
+            return BigDecimal.valueOf(((LocalDate) value).toEpochDay());
+        } else if (value instanceof LocalDateTime) {
+            return BigDecimal.valueOf(((LocalDateTime) value).toInstant(ZoneOffset.UTC).toEpochMilli());
+        }
+        throw new IllegalArgumentException("Unsupported partition key value: " + value);
+    }
+
+    /**
+     * Converts the specified ordinal position to a key value of the
+     * specified type. Integral ordinal values are rounded down.
+     * 
+     * @param ordinal The ordinal position
+     * @param type The key type
+     * @return The key value
+     * @throws IllegalArgumentException If the key type is not supported
+     */
+    protected static @NotNull Object fromOrdinal(
+            final @NotNull BigDecimal ordinal,
+            final @NotNull Class<?> type) {
+        if (BigDecimal.class.equals(type)) {
+            return ordinal.stripTrailingZeros();
+        } else if (Double.class.equals(type)) {
+            return ordinal.doubleValue();
+        } else if (Float.class.equals(type)) {
+            return ordinal.floatValue();
+        }
+        final BigDecimal integral = ordinal.setScale(0, RoundingMode.FLOOR);
+        if (BigInteger.class.equals(type)) {
+            return integral.toBigInteger();
+        } else if (Long.class.equals(type)) {
+            return integral.longValue();
+        } else if (Integer.class.equals(type)) {
+            return integral.intValue();
+        } else if (Short.class.equals(type)) {
+            return integral.shortValue();
+        } else if (Byte.class.equals(type)) {
+            return integral.byteValue();
+        } else if (Timestamp.class.equals(type)) {
+            return new Timestamp(integral.longValue());
+        } else if (java.sql.Date.class.equals(type)) {
+            return new java.sql.Date(integral.longValue());
+        } else if (Time.class.equals(type)) {
+            return new Time(integral.longValue());
+        } else if (Date.class.isAssignableFrom(type)) {
+            return new Date(integral.longValue());
+        } else if (Instant.class.equals(type)) {
+            return Instant.ofEpochMilli(integral.longValue());
+        } else if (LocalDate.class.equals(type)) {
+            return LocalDate.ofEpochDay(integral.longValue());
+        } else if (LocalDateTime.class.equals(type)) {
+            return LocalDateTime.ofInstant(Instant.ofEpochMilli(integral.longValue()), ZoneOffset.UTC);
+        }
+        throw new IllegalArgumentException("Unsupported partition key type: " + type);
+    }
+
+    /**
+     * Creates an ascending order specifier for the specified key expression.
+     * 
+     * @param key The key expression
+     * @return The ascending order specifier
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static @NotNull OrderSpecifier<?> ascending(
+            final @NotNull Expression<?> key) {
+        return new OrderSpecifier(Order.ASC, key);
+    }
+
+    /**
+     * Compares the specified key values.
+     * 
+     * @param value The first key value
+     * @param other The second key value
+     * @return The comparison result
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static int compare(
+            final @NotNull Object value,
+            final @NotNull Object other) {
+        return ((Comparable) value).compareTo(other);
+    }
+
+    /**
+     * Strategy of range boundaries computation.
+     * 
+     * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+     * @version 1.0, 2022-10
+     * @since SqlPartitionedScan 1.0
+     */
+    public enum Strategy {
+        /**
+         * Boundaries are interpolated between the minimum and maximum key
+         * values. Requires a single query. Only numeric and temporal keys
+         * are supported.
+         */
+        MIN_MAX,
+        /**
+         * Boundaries are the key values at each quantile of the results.
+         * Requires a query per partition. Balanced for skewed keys.
+         */
+        QUANTILES,
+    }
+}
@@ -0,0 +1,509 @@
+package dev.orne.qdsl.wrap.impl;
+
+/*-
+ * #%L
+ * Orne Querydsl Utils
+ * %%
+ * Copyright (C) 2022 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.sql.AbstractSQLQuery;
+import com.querydsl.sql.ProjectableSQLQuery;
+import com.querydsl.sql.SQLBaseListener;
+import com.querydsl.sql.SQLCommonQueryFactory;
+import com.querydsl.sql.SQLDetailedListener;
+import com.querydsl.sql.SQLListenerContext;
+
+/**
+ * Router of the SQL query clauses of wrapped SQL clause providers to
+ * a pool of read replica query factories.
+ * <p>
+ * Each routed query is created by a healthy replica chosen with the
+ * configured strategy. Replicas that fail with connection errors are
+ * excluded from routing during the retry delay. If no replica is healthy
+ * queries are created by the primary query factory of the provider.
+ * <p>
+ * Read your writes consistency is supported through scopes. Once a
+ * write is executed in the calling thread within an open scope the
+ * queries created in that thread are routed to the primary query
+ * factory until the scope is closed.
+ * <p>
+ * Instances are thread safe.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2022-10
+ * @since 0.1
+ * @see AbstractWrappedSqlClauseProvider#setReplicaRouter(SqlReplicaRouter)
+ */
+public class SqlReplicaRouter {
+
+    /** The default retry delay of failed replicas, in milliseconds. */
+    public static final long DEFAULT_RETRY_DELAY = 30000;
+    /** The SQL state class of connection exceptions. */
+    private static final String CONNECTION_SQL_STATE_CLASS = "08";
+
+    /** The read replicas. */
+    private final @NotNull List<Replica> replicas;
+    /** The replica selection strategy. */
+    private final @NotNull Strategy strategy;
+    /** The round robin counter. */
+    private final @NotNull AtomicInteger counter = new AtomicInteger();
+    /** The open read your writes scope of each thread. */
+    private final @NotNull ThreadLocal<Scope> currentScope = new ThreadLocal<>();
+    /** The listener that registers writes in the open scope. */
+    private final @NotNull SQLDetailedListener writeListener = new WriteListener();
+    /** The retry delay of failed replicas, in milliseconds. */
+    private volatile long retryDelay = DEFAULT_RETRY_DELAY;
+
+    /**
+     * Creates a new instance.
+     * 
+     * @param strategy The replica selection strategy
+     * @param replicas The read replica query factories
+     */
+    public SqlReplicaRouter(
+            final @NotNull Strategy strategy,
+            final @NotNull Collection<? extends SQLCommonQueryFactory<? extends ProjectableSQLQuery<?, ?>, ?, ?, ?, ?>> replicas) {
+        super();
+        this.strategy = Validate.notNull(strategy);
+        Validate.notNull(replicas);
+        Validate.noNullElements(replicas);
+        Validate.isTrue(!replicas.isEmpty(), "At least one replica is required");
+        final List<Replica> tmp = new ArrayList<>(replicas.size());
+        for (final SQLCommonQueryFactory<? extends ProjectableSQLQuery<?, ?>, ?, ?, ?, ?> factory : replicas) {
+            tmp.add(new Replica(this, factory));
+        }
+        this.replicas = Collections.unmodifiableList(tmp);
+    }
+
+    /**
+     * Returns the replica selection strategy.
+     * 
+     * @return The replica selection strategy
+     */
+    public @NotNull Strategy getStrategy() {
+        return this.strategy;
+    }
+
+    /**
+     * Returns the read replicas.
+     * 
+     * @return The read replicas
+     */
+    public @NotNull List<Replica> getReplicas() {
+        return this.replicas;
+    }
+
+    /**
+     * Returns the retry delay of failed replicas, in milliseconds.
+     * 
+     * @return The retry delay of failed replicas
+     */
+    public long getRetryDelay() {
+        return this.retryDelay;
+    }
+
+    /**
+     * Sets the retry delay of failed replicas, in milliseconds. Replicas
+     * that fail with connection errors are excluded from routing during
+     * this delay.
+     * <p>
+     * Defaults to {@value #DEFAULT_RETRY_DELAY} milliseconds.
+     * 
+     * @param delay The retry delay of failed replicas
+     */
+    public void setRetryDelay(
+            final long delay) {
+        Validate.isTrue(delay >= 0, "Retry delay cannot be negative");
+        this.retryDelay = delay;
+    }
+
+    /**
+     * Returns the listener to add to delegate SQL store and delete
+     * clauses that registers their writes in the open read your writes
+     * scope of the calling thread.
+     * 
+     * @return The write listener
+     */
+    public @NotNull SQLDetailedListener getWriteListener() {
+        return this.writeListener;
+    }
+
+    /**
+     * Opens a read your writes scope in the calling thread. Scopes can
+     * be nested; writes executed in a nested scope are registered in the
+     * enclosing scopes, and writes executed in the enclosing scopes also
+     * route the queries of the nested scope to the primary.
+     * <p>
+     * The scope must be closed in the same thread, usually through a
+     * try-with-resources statement.
+     * 
+     * @return The opened scope
+     */
+    public @NotNull Scope openScope() {
+        final Scope scope = new Scope(this, this.currentScope.get());
+        this.currentScope.set(scope);
+        return scope;
+    }
+
+    /**
+     * Returns the open read your writes scope of the calling thread,
+     * if any.
+     * 
+     * @return The open scope
+     */
+    public Scope getCurrentScope() {
+        return this.currentScope.get();
+    }
+
+    /**
+     * Registers a write in the open read your writes scope of the calling
+     * thread, if any.
+     */
+    public void registerWrite() {
+        final Scope scope = this.currentScope.get();
+        if (scope != null) {
+            scope.registerWrite();
+        }
+    }
+
+    /**
+     * Chooses the replica to route the next query to. Returns {@code null}
+     * if the query must be routed to the primary query factory because a
+     * write has been executed in the open scope or no replica is healthy.
+     * 
+     * @return The chosen replica, or {@code null} for the primary
+     */
+    public Replica route() {
+        final Scope scope = this.currentScope.get();
+        if (scope != null && scope.hasWrites()) {
+            return null;
+        }
+        final int size = this.replicas.size();
+        final int start = Math.floorMod(this.counter.getAndIncrement(), size);
+        Replica result = null;
+        for (int i = 0; i < size; i++) {
+            final Replica replica = this.replicas.get((start + i) % size);
+            if (!replica.isHealthy()) {
+                continue;
+            }
+            if (this.strategy == Strategy.ROUND_ROBIN) {
+                return replica;
+            }
+            if (result == null || replica.getInFlightCount() < result.getInFlightCount()) {
+                result = replica;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns {@code true} if the specified exception is caused by a
+     * connection error, so the replica that threw it should be excluded
+     * from routing.
+     * 
+     * @param exception The exception
+     * @return If the exception is caused by a connection error
+     */
+    protected boolean isReplicaFailure(
+            final Throwable exception) {
+        Throwable cause = exception;
+        while (cause != null) {
+            if (cause instanceof SQLTransientConnectionException
+                    || cause instanceof SQLNonTransientConnectionException
+                    || cause instanceof SQLRecoverableException) {
+                return true;
+            }
+            if (cause instanceof SQLException) {
+                final String state = ((SQLException) cause).getSQLState();
+                if (state != null && state.startsWith(CONNECTION_SQL_STATE_CLASS)) {
+                    return true;
+                }
+            }
+            cause = cause.getCause() == cause ? null : cause.getCause();
+        }
+        return false;
+    }
+
+    /**
+     * Replica selection strategy.
+     * 
+     * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+     * @version 1.0, 2022-10
+     * @since SqlReplicaRouter 1.0
+     */
+    public enum Strategy {
+        /** Queries are routed to each healthy replica in turn. */
+        ROUND_ROBIN,
+        /** Queries are routed to the healthy replica with less queries in flight. */
+        LEAST_LOADED,
+    }
+
+    /**
+     * Read replica of a SQL replica router.
+     * 
+     * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+     * @version 1.0, 2022-10
+     * @since SqlReplicaRouter 1.0
+     */
+    public static class Replica
+    extends SQLBaseListener {
+
+        /** The replica router. */
+        private final @NotNull SqlReplicaRouter router;
+        /** The replica query factory. */
+        private final @NotNull SQLCommonQueryFactory<? extends ProjectableSQLQuery<?, ?>, ?, ?, ?, ?> factory;
+        /** The number of queries in flight. */
+        private final @NotNull AtomicInteger inFlight = new AtomicInteger();
+        /** If the replica has been reported unhealthy by a health check. */
+        private volatile boolean down;
+        /** If the replica has failed with a connection error. */
+        private volatile boolean failed;
+        /** The end of the exclusion of the failed replica, in nanoseconds. */
+        private volatile long failedUntil;
+
+        /**
+         * Creates a new instance.
+         * 
+         * @param router The replica router
+         * @param factory The replica query factory
+         */
+        protected Replica(
+                final @NotNull SqlReplicaRouter router,
+                final @NotNull SQLCommonQueryFactory<? extends ProjectableSQLQuery<?, ?>, ?, ?, ?, ?> factory) {
+            super();
+            this.router = Validate.notNull(router);
+            this.factory = Validate.notNull(factory);
+        }
+
+        /**
+         * Returns the replica query factory.
+         * 
+         * @return The replica query factory
+         */
+        public @NotNull SQLCommonQueryFactory<? extends ProjectableSQLQuery<?, ?>, ?, ?, ?, ?> getFactory() {
+            return this.factory;
+        }
+
+        /**
+         * Returns the number of queries in flight in this replica.
+         * 
+         * @return The number of queries in flight
+         */
+        public int getInFlightCount() {
+            return this.inFlight.get();
+        }
+
+        /**
+         * Returns {@code true} if this replica is not excluded from
+         * routing.
+         * 
+         * @return If this replica is healthy
+         */
+        public boolean isHealthy() {
+            if (this.down) {
+                return false;
+            }
+            return !this.failed || System.nanoTime() - this.failedUntil >= 0;
+        }
+
+        /**
+         * Marks this replica as failed, excluding it from routing during
+         * the retry delay of the router.
+         */
+        public void markFailed() {
+            this.failedUntil = System.nanoTime()
+                    + TimeUnit.MILLISECONDS.toNanos(this.router.getRetryDelay());
+            this.failed = true;
+        }
+
+        /**
+         * Sets if this replica is healthy, as reported by an external
+         * health check. Unhealthy replicas are excluded from routing
+         * until marked as healthy again.
+         * 
+         * @param healthy If this replica is healthy
+         */
+        public void setHealthy(
+                final boolean healthy) {
+            this.down = !healthy;
+            if (healthy) {
+                this.failed = false;
+            }
+        }
+
+        /**
+         * Creates a new query from this replica for the specified source.
+         * Tracks the queries in flight and connection errors of queries
+         * that support listeners.
+         * 
+         * @param source The query source
+         * @return The created SQL query
+         */
+        public @NotNull ProjectableSQLQuery<?, ?> from(
+                final @NotNull Expression<?> source) {
+            final ProjectableSQLQuery<?, ?> query = this.factory.from(source);
+            if (query instanceof AbstractSQLQuery) {
+                ((AbstractSQLQuery<?, ?>) query).addListener(this);
+            }
+            return query;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void start(
+                final SQLListenerContext context) {
+            this.inFlight.incrementAndGet();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void exception(
+                final SQLListenerContext context) {
+            if (this.router.isReplicaFailure(context.getException())) {
+                markFailed();
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void end(
+                final SQLListenerContext context) {
+            this.inFlight.decrementAndGet();
+        }
+    }
+
+    /**
+     * Read your writes scope of a SQL replica router.
+     * 
+     * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+     * @version 1.0, 2022-10
+     * @since SqlReplicaRouter 1.0
+     */
+    public static class Scope
+    implements AutoCloseable {
+
+        /** The replica router. */
+        private final @NotNull SqlReplicaRouter router;
+        /** The enclosing scope. */
+        private final Scope parent;
+        /** If a write has been executed within the scope. */
+        private boolean writes;
+
+        /**
+         * Creates a new instance.
+         * 
+         * @param router The replica router
+         * @param parent The enclosing scope
+         */
+        protected Scope(
+                final @NotNull SqlReplicaRouter router,
+                final Scope parent) {
+            super();
+            this.router = Validate.notNull(router);
+            this.parent = parent;
+        }
+
+        /**
+         * Returns {@code true} if a write has been executed within this
+         * scope or any of the enclosing scopes, including writes executed
+         * before this scope was opened.
+         * 
+         * @return If a write has been executed within this scope
+         */
+        public boolean hasWrites() {
+            Scope scope = this;
+            while (scope != null) {
+                if (scope.writes) {
+                    return true;
+                }
+                scope = scope.parent;
+            }
+            return false;
+        }
+
+        /**
+         * Registers a write in this scope and the enclosing scopes.
+         */
+        protected void registerWrite() {
+            this.writes = true;
+            if (this.parent != null) {
+                this.parent.registerWrite();
+            }
+        }
+
+        /**
+         * Closes this scope, restoring the enclosing scope as the open
+         * scope of the calling thread.
+         */
+        @Override
+        public void close() {
+            if (this.router.currentScope.get() != this) {
+                return;
+            }
+            if (this.parent == null) {
+                this.router.currentScope.remove();
+            } else {
+                this.router.currentScope.set(this.parent);
+            }
+        }
+    }
+
+    /**
+     * Listener that registers the executed writes in the open read your
+     * writes scope of the calling thread.
+     * 
+     * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+     * @version 1.0, 2022-10
+     * @since SqlReplicaRouter 1.0
+     */
+    protected class WriteListener
+    extends SQLBaseListener {
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void executed(
+                final SQLListenerContext context) {
+            registerWrite();
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package dev.orne.qdsl.wrap.impl;
+
+/*-
+ * #%L
+ * Orne Querydsl Utils
+ * %%
+ * Copyright (C) 2022 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Executor;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.sql.ProjectableSQLQuery;
+import com.querydsl.sql.SQLCommonQueryFactory;
+
+/**
+ * Router of the clauses of sharded SQL entities, split across several
+ * databases by the value of a shard key path.
+ * <p>
+ * The shards are identified by their position in the list of shard
+ * query factories. The shard of each key value is computed by a
+ * resolver function; by default the key value hash modulo the number
+ * of shards.
+ * <p>
+ * Clauses are routed by the values of the shard key in their filters,
+ * as extracted by {@code PredicateAnalyzer}. Clauses with filters that
+ * do not restrict the shard key to known values are routed to all the
+ * shards. Operations over several shards are executed concurrently in
+ * the configured executor or, if none is configured, sequentially in
+ * the calling thread.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2022-10
+ * @since 0.1
+ * @see PredicateAnalyzer#extractValues(com.querydsl.core.types.Expression, Path, Map)
+ */
+public class SqlShardRouter {
+
+    /** The shard key path of the base entity. */
+    private final @NotNull Path<?> shardKey;
+    /** The shard query factories. */
+    private final @NotNull List<SQLCommonQueryFactory<? extends ProjectableSQLQuery<?, ?>, ?, ?, ?, ?>> shards;
+    /** The resolver of the shard of each key value. */
+    private final @NotNull ToIntFunction<Object> resolver;
+    /** The executor of the operations over several shards. */
+    private volatile Executor executor;
+
+    /**
+     * Creates a new instance that resolves the shard of each key value
+     * by its hash.
+     * 
+     * @param shardKey The shard key path of the base entity
+     * @param shards The shard query factories
+     */
+    public SqlShardRouter(
+            final @NotNull Path<?> shardKey,
+            final @NotNull List<? extends SQLCommonQueryFactory<? extends ProjectableSQLQuery<?, ?>, ?, ?, ?, ?>> shards) {
+        this(shardKey, shards, null);
+    }
+
+    /**
+     * Creates a new instance.
+     * <p>
+     * The resolver must return the index of the shard of the key values
+     * passed as argument. If {@code resolver} is {@code null} the key
+     * value hash modulo the number of shards is used.
+     * 
+     * @param shardKey The shard key path of the base entity
+     * @param shards The shard query factories
+     * @param resolver The resolver of the shard of each key value
+     */
+    public SqlShardRouter(
+            final @NotNull Path<?> shardKey,
+            final @NotNull List<? extends SQLCommonQueryFactory<? extends ProjectableSQLQuery<?, ?>, ?, ?, ?, ?>> shards,
+            final ToIntFunction<Object> resolver) {
+        super();
+        Validate.notNull(shardKey);
+        final Path<?> parent = shardKey.getMetadata().getParent();
+        Validate.isTrue(parent != null && parent.getMetadata().isRoot(),
+                "Shard key must be a property of the entity");
+        Validate.notNull(shards);
+        Validate.noNullElements(shards);
+        Validate.isTrue(!shards.isEmpty(), "At least one shard is required");
+        this.shardKey = shardKey;
+        this.shards = Collections.unmodifiableList(new ArrayList<>(shards));
+        if (resolver == null) {
+            final int count = shards.size();
+            this.resolver = value -> Math.floorMod(value.hashCode(), count);
+        } else {
+            this.resolver = resolver;
+        }
+    }
+
+    /**
+     * Returns the shard key path of the base entity.
+     * 
+     * @return The shard key path
+     */
+    public @NotNull Path<?> getShardKey() {
+        return this.shardKey;
+    }
+
+    /**
+     * Returns the shard key path of the specified entity alias.
+     * 
+     * @param entity The entity alias
+     * @return The shard key path of the entity alias
+     */
+    public @NotNull Path<?> getShardKey(
+            final @NotNull Path<?> entity) {
+        return ExpressionUtils.path(
+                this.shardKey.getType(),
+                entity,
+                this.shardKey.getMetadata().getName());
+    }
+
+    /**
+     * Returns the shard query factories.
+     * 
+     * @return The shard query factories
+     */
+    public @NotNull List<SQLCommonQueryFactory<? extends ProjectableSQLQuery<?, ?>, ?, ?, ?, ?>> getShards() {
+        return this.shards;
+    }
+
+    /**
+     * Returns the query factory of the specified shard.
+     * 
+     * @param shard The shard index
+     * @return The shard query factory
+     */
+    public @NotNull SQLCommonQueryFactory<? extends ProjectableSQLQuery<?, ?>, ?, ?, ?, ?> getShard(
+            final int shard) {
+        return this.shards.get(shard);
+    }
+
+    /**
+     * Returns the executor of the operations over several shards, if any.
+     * 
+     * @return The executor
+     */
+    public Executor getExecutor() {
+        return this.executor;
+    }
+
+    /**
+     * Sets the executor of the operations over several shards. If
+     * {@code null} the operations are executed sequentially in the
+     * calling thread.
+     * <p>
+     * No executor by default.
+     * 
+     * @param executor The executor
+     */
+    public void setExecutor(
+            final Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Returns the index of the shard of the specified key value.
+     * 
+     * @param key The shard key value
+     * @return The shard index
+     * @throws IllegalArgumentException If the key value is {@code null}
+     * or the resolver returns an invalid shard index
+     */
+    public int shardOf(
+            final Object key) {
+        Validate.notNull(key, "Shard key value is required");
+        final int result = this.resolver.applyAsInt(key);
+        Validate.isTrue(result >= 0 && result < this.shards.size(),
+                "Invalid shard %d for key %s", result, key);
+        return result;
+    }
+
+    /**
+     * Returns the indexes of the shards of the clauses over the specified
+     * entity alias with the specified translated filters.
+     * 
+     * @param entity The entity alias
+     * @param where The translated filters
+     * @param params The parameter bindings, if any
+     * @return The sorted indexes of the shards to route the clause to
+     */
+    public @NotNull int[] route(
+            final @NotNull Path<?> entity,
+            final Predicate where,
+            final Map<ParamExpression<?>, Object> params) {
+        final Set<Object> keys = PredicateAnalyzer.extractValues(
+                where, getShardKey(entity), params);
+        if (keys == null) {
+            final int[] result = new int[this.shards.size()];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = i;
+            }
+            return result;
+        }
+        final Set<Integer> indexes = new TreeSet<>();
+        for (final Object key : keys) {
+            indexes.add(shardOf(key));
+        }
+        return indexes.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Executes the specified operation in each of the specified shards,
+     * concurrently if an executor is configured.
+     * 
+     * @param <R> The operation result type
+     * @param shards The shard indexes
+     * @param operation The operation, receiving the shard index
+     * @return The operation results, in the order of the shard indexes
+     */
+    public <R> @NotNull List<R> execute(
+            final @NotNull int[] shards,
+            final @NotNull IntFunction<R> operation) {
+        Validate.notNull(operation);
+        final List<Integer> indexes = new ArrayList<>(shards.length);
+        for (final int shard : shards) {
+            indexes.add(shard);
+        }
+        return ConcurrentExecutions.executeAll(indexes, operation::apply, this.executor);
+    }
+}
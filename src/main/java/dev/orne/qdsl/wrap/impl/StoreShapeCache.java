@@ -0,0 +1,520 @@
+package dev.orne.qdsl.wrap.impl;
+
+/*-
+ * #%L
+ * Orne Querydsl Utils
+ * %%
+ * Copyright (C) 2022 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.UnaryOperator;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+
+import com.querydsl.core.types.Constant;
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.Param;
+
+import dev.orne.qdsl.wrap.StoredValue;
+import dev.orne.qdsl.wrap.StoredValues;
+import dev.orne.qdsl.wrap.impl.transform.ConvertedParam;
+
+/**
+ * Cache of translation templates of store clause assignments.
+ * <p>
+ * Bulk writes assign the same paths over and over with different
+ * constant values. The first time a shape of assignments (the entity,
+ * the assigned paths and the kind of each value) is translated the
+ * assignments are also translated with a parameter in place of each
+ * constant value. The translated assignments describe the target paths
+ * and, for each target, whether its value is a copy of a source constant,
+ * a conversion of a source constant through a {@code ValueTransformer}
+ * or a fixed constant. Later assignments with the same shape are
+ * translated by the template, converting only their constant values,
+ * without running the expression transformers.
+ * <p>
+ * The template is verified against the regular translation of the first
+ * assignments of the shape. Shapes which translations cannot be described
+ * by a template, or which template does not reproduce the regular
+ * translation, are always translated regularly. Shapes with values other
+ * than constants and {@code null} are not cached. Expression
+ * transformers must convert constant values only through
+ * {@code ValueTransformer} instances, without branching on the values.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2022-10
+ * @since 0.1
+ * @see StoredValuesTransformer#createValueTransformation(Class, ValueTransformer, SimpleExpressionTransformer)
+ * @see AbstractWrappedClauseProvider#setStoreShapeCache(StoreShapeCache)
+ */
+public class StoreShapeCache {
+
+    /** The default maximum number of cached shapes. */
+    public static final int DEFAULT_MAX_SHAPES = 1024;
+    /** The template of shapes that must be translated regularly. */
+    private static final ShapeTemplate NOT_TEMPLATABLE =
+            new ShapeTemplate(Collections.emptyList());
+
+    /** The maximum number of cached shapes. */
+    private final int maxShapes;
+    /** The translation templates by shape. */
+    private final @NotNull ConcurrentMap<ShapeKey, ShapeTemplate> templates =
+            new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new instance with the default maximum number of cached
+     * shapes.
+     */
+    public StoreShapeCache() {
+        this(DEFAULT_MAX_SHAPES);
+    }
+
+    /**
+     * Creates a new instance.
+     * 
+     * @param maxShapes The maximum number of cached shapes
+     */
+    public StoreShapeCache(
+            final int maxShapes) {
+        super();
+        Validate.isTrue(maxShapes > 0, "Maximum number of shapes must be positive");
+        this.maxShapes = maxShapes;
+    }
+
+    /**
+     * Returns the maximum number of cached shapes. Once reached new shapes
+     * are translated regularly.
+     * 
+     * @return The maximum number of cached shapes
+     */
+    public int getMaxShapes() {
+        return this.maxShapes;
+    }
+
+    /**
+     * Returns the number of cached shapes.
+     * 
+     * @return The number of cached shapes
+     */
+    public int size() {
+        return this.templates.size();
+    }
+
+    /**
+     * Removes all the cached shapes.
+     */
+    public void clear() {
+        this.templates.clear();
+    }
+
+    /**
+     * Translates the specified assignments to the specified entity,
+     * using the cached template of the assignments shape if available.
+     * <p>
+     * The regular translation receives a copy of the assignments.
+     * 
+     * @param entity The target entity
+     * @param assignments The assignments to translate
+     * @param translation The regular translation of the assignments
+     * @return The translated assignments
+     */
+    public @NotNull StoredValues translate(
+            final @NotNull EntityPath<?> entity,
+            final @NotNull StoredValues assignments,
+            final @NotNull UnaryOperator<StoredValues> translation) {
+        Validate.notNull(entity);
+        Validate.notNull(assignments);
+        Validate.notNull(translation);
+        final ShapeKey key = ShapeKey.of(entity, assignments);
+        if (key == null) {
+            return translation.apply(assignments.clone());
+        }
+        final ShapeTemplate template = this.templates.get(key);
+        if (template == NOT_TEMPLATABLE) {
+            return translation.apply(assignments.clone());
+        } else if (template != null) {
+            return template.apply(assignments);
+        }
+        final StoredValues result = translation.apply(assignments.clone());
+        if (this.templates.size() < this.maxShapes) {
+            ShapeTemplate created = createTemplate(assignments, translation);
+            if (created != NOT_TEMPLATABLE && !result.equals(created.apply(assignments))) {
+                created = NOT_TEMPLATABLE;
+            }
+            this.templates.putIfAbsent(key, created);
+        }
+        return result;
+    }
+
+    /**
+     * Creates the translation template of the shape of the specified
+     * assignments, translating the assignments with a parameter in place
+     * of each constant value.
+     * 
+     * @param assignments The assignments of the shape
+     * @param translation The regular translation of the assignments
+     * @return The translation template of the shape
+     */
+    protected static @NotNull ShapeTemplate createTemplate(
+            final @NotNull StoredValues assignments,
+            final @NotNull UnaryOperator<StoredValues> translation) {
+        final StoredValues probe = new StoredValues();
+        final Map<Expression<?>, Path<?>> sources = new IdentityHashMap<>();
+        for (final StoredValue<?> assignment : assignments) {
+            final Path<?> path = assignment.getPath();
+            if (assignment.getValue() == null) {
+                probe.add(assignment);
+            } else {
+                final Param<?> param = new Param<>(path.getType(), "shape" + sources.size());
+                sources.put(param, path);
+                probe.add(StoredValue.ofUntyped(path, param));
+            }
+        }
+        final StoredValues translated;
+        try {
+            translated = translation.apply(probe);
+        } catch (final RuntimeException e) {
+            return NOT_TEMPLATABLE;
+        }
+        final List<TargetTemplate> targets = new ArrayList<>(translated.size());
+        for (final StoredValue<?> assignment : translated) {
+            final Expression<?> value = assignment.getValue();
+            final TargetTemplate target;
+            if (value == null || value instanceof Constant) {
+                target = new TargetTemplate(assignment.getPath(), null, null, value);
+            } else if (sources.containsKey(value)) {
+                target = new TargetTemplate(assignment.getPath(), sources.get(value), null, null);
+            } else if (value instanceof ConvertedParam
+                    && sources.containsKey(((ConvertedParam<?, ?>) value).getSource())) {
+                final ConvertedParam<?, ?> conversion = (ConvertedParam<?, ?>) value;
+                target = new TargetTemplate(
+                        assignment.getPath(),
+                        sources.get(conversion.getSource()),
+                        conversion,
+                        null);
+            } else {
+                return NOT_TEMPLATABLE;
+            }
+            targets.add(target);
+        }
+        return new ShapeTemplate(targets);
+    }
+
+    /**
+     * Returns a store shape cache scope for clauses of the specified
+     * entity.
+     * 
+     * @param entity The clause entity
+     * @return The store shape cache scope
+     */
+    public @NotNull Scope scope(
+            final @NotNull EntityPath<?> entity) {
+        return new Scope(this, entity);
+    }
+
+    /**
+     * Kind of assigned value of a store shape.
+     * 
+     * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+     * @version 1.0, 2022-10
+     * @since StoreShapeCache 1.0
+     */
+    public enum ValueKind {
+        /** {@code null} value. */
+        NULL,
+        /** Constant value. */
+        CONSTANT,
+        /** Any other expression. */
+        EXPRESSION;
+
+        /**
+         * Returns the kind of the specified assigned value.
+         * 
+         * @param value The assigned value
+         * @return The kind of the value
+         */
+        public static @NotNull ValueKind of(
+                final Expression<?> value) {
+            if (value == null) {
+                return NULL;
+            } else if (value instanceof Constant) {
+                return CONSTANT;
+            } else {
+                return EXPRESSION;
+            }
+        }
+    }
+
+    /**
+     * Store shape cache binding of a wrapped store clause.
+     * 
+     * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+     * @version 1.0, 2022-10
+     * @since StoreShapeCache 1.0
+     */
+    public static class Scope {
+
+        /** The store shape cache. */
+        private final @NotNull StoreShapeCache cache;
+        /** The clause entity. */
+        private final @NotNull EntityPath<?> entity;
+
+        /**
+         * Creates a new instance.
+         * 
+         * @param cache The store shape cache
+         * @param entity The clause entity
+         */
+        protected Scope(
+                final @NotNull StoreShapeCache cache,
+                final @NotNull EntityPath<?> entity) {
+            super();
+            this.cache = Validate.notNull(cache);
+            this.entity = Validate.notNull(entity);
+        }
+
+        /**
+         * Returns the store shape cache.
+         * 
+         * @return The store shape cache
+         */
+        public @NotNull StoreShapeCache getCache() {
+            return this.cache;
+        }
+
+        /**
+         * Returns the clause entity.
+         * 
+         * @return The clause entity
+         */
+        public @NotNull EntityPath<?> getEntity() {
+            return this.entity;
+        }
+
+        /**
+         * Translates the specified assignments, using the cached template
+         * of the assignments shape if available.
+         * 
+         * @param assignments The assignments to translate
+         * @param translation The regular translation of the assignments
+         * @return The translated assignments
+         * @see StoreShapeCache#translate(EntityPath, StoredValues, UnaryOperator)
+         */
+        public @NotNull StoredValues translate(
+                final @NotNull StoredValues assignments,
+                final @NotNull UnaryOperator<StoredValues> translation) {
+            return this.cache.translate(this.entity, assignments, translation);
+        }
+    }
+
+    /**
+     * Key of a store shape.
+     * 
+     * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+     * @version 1.0, 2022-10
+     * @since StoreShapeCache 1.0
+     */
+    protected static final class ShapeKey {
+
+        /** The entity type. */
+        private final @NotNull Class<?> entityType;
+        /** The entity. */
+        private final @NotNull EntityPath<?> entity;
+        /** The kinds of the assigned values, by path. */
+        private final @NotNull Map<Path<?>, ValueKind> kinds;
+
+        /**
+         * Creates a new instance.
+         * 
+         * @param entity The entity
+         * @param kinds The kinds of the assigned values, by path
+         */
+        private ShapeKey(
+                final @NotNull EntityPath<?> entity,
+                final @NotNull Map<Path<?>, ValueKind> kinds) {
+            super();
+            this.entityType = entity.getClass();
+            this.entity = entity;
+            this.kinds = kinds;
+        }
+
+        /**
+         * Returns the key of the shape of the specified assignments,
+         * or {@code null} if the shape is not cacheable.
+         * 
+         * @param entity The entity
+         * @param assignments The assignments
+         * @return The shape key, or {@code null} if not cacheable
+         */
+        public static ShapeKey of(
+                final @NotNull EntityPath<?> entity,
+                final @NotNull StoredValues assignments) {
+            final Map<Path<?>, ValueKind> kinds = new HashMap<>(assignments.size() * 2);
+            for (final StoredValue<?> assignment : assignments) {
+                final ValueKind kind = ValueKind.of(assignment.getValue());
+                if (kind == ValueKind.EXPRESSION) {
+                    return null;
+                }
+                kinds.put(assignment.getPath(), kind);
+            }
+            return new ShapeKey(entity, kinds);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.entityType, this.entity, this.kinds);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean equals(
+                final Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (!(obj instanceof ShapeKey)) {
+                return false;
+            }
+            final ShapeKey other = (ShapeKey) obj;
+            return this.entityType.equals(other.entityType)
+                    && this.entity.equals(other.entity)
+                    && this.kinds.equals(other.kinds);
+        }
+    }
+
+    /**
+     * Translation template of a store shape.
+     * 
+     * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+     * @version 1.0, 2022-10
+     * @since StoreShapeCache 1.0
+     */
+    protected static class ShapeTemplate {
+
+        /** The templates of the target assignments. */
+        private final @NotNull List<TargetTemplate> targets;
+
+        /**
+         * Creates a new instance.
+         * 
+         * @param targets The templates of the target assignments
+         */
+        protected ShapeTemplate(
+                final @NotNull List<TargetTemplate> targets) {
+            super();
+            this.targets = Validate.notNull(targets);
+        }
+
+        /**
+         * Translates the specified assignments.
+         * 
+         * @param assignments The assignments to translate
+         * @return The translated assignments
+         */
+        public @NotNull StoredValues apply(
+                final @NotNull StoredValues assignments) {
+            final StoredValues result = new StoredValues(this.targets.size());
+            for (final TargetTemplate target : this.targets) {
+                result.add(target.apply(assignments));
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Translation template of a target assignment of a store shape.
+     * 
+     * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+     * @version 1.0, 2022-10
+     * @since StoreShapeCache 1.0
+     */
+    protected static class TargetTemplate {
+
+        /** The target path. */
+        private final @NotNull Path<?> target;
+        /** The source path, if the value is derived from a source value. */
+        private final Path<?> source;
+        /** The conversion of the source value, if any. */
+        private final ConvertedParam<?, ?> conversion;
+        /** The fixed value, if the value is not derived from a source value. */
+        private final Expression<?> fixed;
+
+        /**
+         * Creates a new instance.
+         * 
+         * @param target The target path
+         * @param source The source path, if the value is derived from a
+         * source value
+         * @param conversion The conversion of the source value, if any
+         * @param fixed The fixed value, if the value is not derived from
+         * a source value
+         */
+        protected TargetTemplate(
+                final @NotNull Path<?> target,
+                final Path<?> source,
+                final ConvertedParam<?, ?> conversion,
+                final Expression<?> fixed) {
+            super();
+            this.target = Validate.notNull(target);
+            this.source = source;
+            this.conversion = conversion;
+            this.fixed = fixed;
+        }
+
+        /**
+         * Returns the translated assignment of the target path for the
+         * specified source assignments.
+         * 
+         * @param assignments The source assignments
+         * @return The translated assignment
+         */
+        public @NotNull StoredValue<?> apply(
+                final @NotNull StoredValues assignments) {
+            if (this.source == null) {
+                return StoredValue.ofUntyped(this.target, this.fixed);
+            }
+            final Expression<?> value = assignments.get(this.source);
+            if (this.conversion == null) {
+                return StoredValue.ofUntyped(this.target, value);
+            }
+            final Object converted = this.conversion.convertUnchecked(
+                    ((Constant<?>) value).getConstant());
+            return StoredValue.ofUntyped(
+                    this.target,
+                    converted == null ? null : Expressions.constant(converted));
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package dev.orne.qdsl.wrap.impl;
+
+/*-
+ * #%L
+ * Orne Querydsl Utils
+ * %%
+ * Copyright (C) 2022 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Order;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.OrderSpecifier.NullHandling;
+
+/**
+ * Comparator of query result tuples that contain the values of the
+ * targets of a list of order specifiers, starting at a fixed position.
+ * <p>
+ * Used to merge the sorted results of several queries in memory with
+ * the same ordering that the database applies to each one. Values must
+ * be {@code Comparable}. Nulls are sorted as specified by the order
+ * specifiers; with default null handling nulls are sorted as greater
+ * than any value.
+ * <p>
+ * Databases do not agree on the default position of nulls: some sort
+ * them as greater than any value and others, like SQLite and MySQL, as
+ * lower than any value. The queries whose results are merged must be
+ * ordered with the order specifiers returned by
+ * {@link #withExplicitNullHandling(List)}, so each query sorts nulls
+ * as this comparator does.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2022-10
+ * @since 0.1
+ * @see MergingIterator
+ */
+public class TupleOrderComparator
+implements Comparator<Tuple> {
+
+    /** The order specifiers. */
+    private final @NotNull List<OrderSpecifier<?>> orders;
+    /** The position of the first order value in the tuples. */
+    private final int offset;
+
+    /**
+     * Creates a new instance.
+     * 
+     * @param orders The order specifiers
+     * @param offset The position of the first order value in the tuples
+     */
+    public TupleOrderComparator(
+            final @NotNull List<OrderSpecifier<?>> orders,
+            final int offset) {
+        super();
+        Validate.notNull(orders);
+        Validate.noNullElements(orders);
+        Validate.isTrue(offset >= 0, "Offset cannot be negative");
+        this.orders = new ArrayList<>(orders);
+        this.offset = offset;
+    }
+
+    /**
+     * Returns the order specifiers.
+     * 
+     * @return The order specifiers
+     */
+    public @NotNull List<OrderSpecifier<?>> getOrders() {
+        return new ArrayList<>(this.orders);
+    }
+
+    /**
+     * Returns the position of the first order value in the tuples.
+     * 
+     * @return The position of the first order value
+     */
+    public int getOffset() {
+        return this.offset;
+    }
+
+    /**
+     * Returns the specified order specifiers with default null handling
+     * replaced by the explicit null handling applied by this comparator:
+     * nulls last for ascending order and nulls first for descending order.
+     * 
+     * @param orders The order specifiers
+     * @return The order specifiers with explicit null handling
+     */
+    public static @NotNull List<OrderSpecifier<?>> withExplicitNullHandling(
+            final @NotNull List<OrderSpecifier<?>> orders) {
+        final List<OrderSpecifier<?>> result = new ArrayList<>(orders.size());
+        for (final OrderSpecifier<?> order : orders) {
+            result.add(withExplicitNullHandling(order));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the specified order specifier with default null handling
+     * replaced by the explicit null handling applied by this comparator:
+     * nulls last for ascending order and nulls first for descending order.
+     * 
+     * @param order The order specifier
+     * @return The order specifier with explicit null handling
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public static @NotNull OrderSpecifier<?> withExplicitNullHandling(
+            final @NotNull OrderSpecifier<?> order) {
+        if (order.getNullHandling() != NullHandling.Default) {
+            return order;
+        }
+        return new OrderSpecifier(
+                order.getOrder(),
+                order.getTarget(),
+                order.isAscending() ? NullHandling.NullsLast : NullHandling.NullsFirst);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int compare(
+            final Tuple a,
+            final Tuple b) {
+        for (int i = 0; i < this.orders.size(); i++) {
+            final OrderSpecifier<?> order = this.orders.get(i);
+            final int result = compare(
+                    order,
+                    a.get(this.offset + i, Object.class),
+                    b.get(this.offset + i, Object.class));
+            if (result != 0) {
+                return result;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Compares the specified values as sorted by the specified order
+     * specifier.
+     * 
+     * @param order The order specifier
+     * @param a The first value
+     * @param b The second value
+     * @return The comparison result
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    protected int compare(
+            final @NotNull OrderSpecifier<?> order,
+            final Object a,
+            final Object b) {
+        if (a == null || b == null) {
+            if (a == b) {
+                return 0;
+            }
+            final boolean nullsFirst;
+            switch (order.getNullHandling()) {
+                case NullsFirst:
+                    nullsFirst = true;
+                    break;
+                case NullsLast:
+                    nullsFirst = false;
+                    break;
+                default:
+                    nullsFirst = !order.isAscending();
+                    break;
+            }
+            return (a == null) == nullsFirst ? -1 : 1;
+        }
+        final int result = ((Comparable) a).compareTo(b);
+        return order.getOrder() == Order.ASC ? result : -result;
+    }
+}
@@ -22,13 +22,22 @@ package dev.orne.qdsl.wrap.impl;
  * #L%
  */
 
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
 import javax.validation.constraints.NotNull;
 
 import org.apache.commons.lang3.ObjectUtils;
+import org.apache.commons.lang3.Validate;
 
+import com.mysema.commons.lang.CloseableIterator;
 import com.querydsl.core.types.Expression;
 import com.querydsl.core.types.Predicate;
 
+import dev.orne.qdsl.wrap.CancelHandle;
+import dev.orne.qdsl.wrap.ConcurrencyLimitExceededException;
+import dev.orne.qdsl.wrap.QueryCancelledException;
 import dev.orne.qdsl.wrap.StoredValues;
 
 /**
@@ -43,6 +52,14 @@ public abstract class WrappedClause<C extends WrappedClause<C>> {
 
     /** The expression transformer. */
     private final @NotNull ExpressionTransformer transformer;
+    /** The query results cache scope. */
+    private QueryResultCache.Scope resultCacheScope;
+    /** If the translated filters are statically known to be unsatisfiable. */
+    private boolean unsatisfiable;
+    /** The execution bounds. */
+    private @NotNull ExecutionBounds executionBounds = new ExecutionBounds();
+    /** The concurrency limiter of the executions. */
+    private ConcurrencyLimiter concurrencyLimiter;
 
     /**
      * Creates a new instance.
@@ -67,6 +84,283 @@ public abstract class WrappedClause<C extends WrappedClause<C>> {
         return this.transformer;
     }
 
+    /**
+     * Returns the query results cache scope of this clause, if any.
+     * 
+     * @return The query results cache scope
+     */
+    protected QueryResultCache.Scope getResultCacheScope() {
+        return this.resultCacheScope;
+    }
+
+    /**
+     * Sets the query results cache scope of this clause.
+     * <p>
+     * Query clauses cache their results in the scope. Store and delete
+     * clauses invalidate the scope's cached results on execution.
+     * 
+     * @param scope The query results cache scope
+     */
+    protected void setResultCacheScope(
+            final QueryResultCache.Scope scope) {
+        this.resultCacheScope = scope;
+    }
+
+    /**
+     * Invalidates the cached query results affected by writes of this
+     * clause, if a query results cache scope is configured.
+     */
+    protected void invalidateCachedResults() {
+        if (this.resultCacheScope != null) {
+            this.resultCacheScope.invalidate();
+        }
+    }
+
+    /**
+     * Returns the execution bounds of this clause.
+     * 
+     * @return The execution bounds
+     */
+    protected @NotNull ExecutionBounds getExecutionBounds() {
+        return this.executionBounds;
+    }
+
+    /**
+     * Sets the execution bounds of this clause.
+     * 
+     * @param bounds The execution bounds
+     */
+    protected void setExecutionBounds(
+            final @NotNull ExecutionBounds bounds) {
+        this.executionBounds = Validate.notNull(bounds);
+    }
+
+    /**
+     * Returns the concurrency limiter of the executions of this clause,
+     * if any.
+     * 
+     * @return The concurrency limiter
+     */
+    protected ConcurrencyLimiter getConcurrencyLimiter() {
+        return this.concurrencyLimiter;
+    }
+
+    /**
+     * Sets the concurrency limiter of the executions of this clause.
+     * Usually shared by all the clauses created by a provider.
+     * 
+     * @param limiter The concurrency limiter
+     */
+    protected void setConcurrencyLimiter(
+            final ConcurrencyLimiter limiter) {
+        this.concurrencyLimiter = limiter;
+    }
+
+    /**
+     * Sets the execution timeout of this clause. Zero means no timeout.
+     * <p>
+     * SQL clauses apply the timeout as JDBC statement query timeout,
+     * rounded up to whole seconds. JPA query clauses apply the timeout as
+     * the {@code javax.persistence.query.timeout} query hint. Collection
+     * based query clauses check the deadline while iterating the source
+     * values.
+     * 
+     * @param timeout The execution timeout
+     * @param unit The timeout unit
+     * @return This instance, for method chaining
+     * @throws QueryCancelledException On execution, if the timeout is
+     * exceeded and checked by this library
+     */
+    public @NotNull C timeout(
+            final long timeout,
+            final @NotNull TimeUnit unit) {
+        Validate.notNull(unit);
+        this.executionBounds.setTimeout(unit.toMillis(timeout));
+        return self();
+    }
+
+    /**
+     * Sets the handle that allows cancelling the executions of this
+     * clause from another thread.
+     * <p>
+     * Executions started after the handle is cancelled fail with a
+     * {@code QueryCancelledException}. SQL clauses cancel the JDBC
+     * statements being executed. Collection based query clauses stop
+     * iterating the source values.
+     * 
+     * @param handle The cancel handle
+     * @return This instance, for method chaining
+     */
+    public @NotNull C cancelHandle(
+            final CancelHandle handle) {
+        this.executionBounds.setCancelHandle(handle);
+        return self();
+    }
+
+    /**
+     * Executes the specified delegate clause execution within the
+     * execution bounds of this clause.
+     * <p>
+     * Checks that the cancel handle has not been cancelled and applies
+     * the execution bounds to the delegate clause, if any is configured,
+     * before executing it. If a concurrency limiter is configured the
+     * delegate clause is executed holding one of its permits.
+     * 
+     * @param <R> The execution result type
+     * @param execution The delegate clause execution
+     * @return The execution result
+     * @throws QueryCancelledException If the cancel handle has been
+     * cancelled
+     * @throws ConcurrencyLimitExceededException If the concurrency
+     * limiter rejects the execution
+     * @see #applyExecutionBounds()
+     */
+    protected <R> R executeBounded(
+            final @NotNull Supplier<R> execution) {
+        final ExecutionBounds bounds = this.executionBounds;
+        bounds.checkCancelled();
+        if (bounds.isBounded()) {
+            applyExecutionBounds();
+        }
+        final ConcurrencyLimiter limiter = this.concurrencyLimiter;
+        if (limiter == null) {
+            return execution.get();
+        }
+        return limiter.execute(execution);
+    }
+
+    /**
+     * Executes the specified delegate clause execution within the
+     * execution bounds of this clause, without acquiring a permit of the
+     * concurrency limiter.
+     * <p>
+     * Used for executions of derived clauses performed on behalf of an
+     * execution that already holds a permit, as requesting a second
+     * permit for the same logical execution would be rejected, or
+     * deadlock, when the limiter is saturated.
+     * 
+     * @param <R> The execution result type
+     * @param execution The delegate clause execution
+     * @return The execution result
+     * @throws QueryCancelledException If the cancel handle has been
+     * cancelled
+     * @see #executeBounded(Supplier)
+     */
+    protected <R> R executeWithinPermit(
+            final @NotNull Supplier<R> execution) {
+        final ExecutionBounds bounds = this.executionBounds;
+        bounds.checkCancelled();
+        if (bounds.isBounded()) {
+            applyExecutionBounds();
+        }
+        return execution.get();
+    }
+
+    /**
+     * Executes the specified delegate clause iteration within the
+     * execution bounds of this clause.
+     * <p>
+     * Same as {@link #executeBounded(Supplier)}, but the permit of the
+     * concurrency limiter, if any is configured, is held until the
+     * returned iterator is closed.
+     * 
+     * @param <E> The iterated elements type
+     * @param execution The delegate clause iteration
+     * @return The iterator of the results
+     * @throws QueryCancelledException If the cancel handle has been
+     * cancelled
+     * @throws ConcurrencyLimitExceededException If the concurrency
+     * limiter rejects the execution
+     * @see ConcurrencyLimiter#iterate(Supplier)
+     */
+    protected <E> CloseableIterator<E> iterateBounded(
+            final @NotNull Supplier<? extends CloseableIterator<E>> execution) {
+        final ExecutionBounds bounds = this.executionBounds;
+        bounds.checkCancelled();
+        if (bounds.isBounded()) {
+            applyExecutionBounds();
+        }
+        final ConcurrencyLimiter limiter = this.concurrencyLimiter;
+        if (limiter == null) {
+            return execution.get();
+        }
+        return limiter.iterate(execution);
+    }
+
+    /**
+     * Applies the execution bounds of this clause to the delegate clause.
+     * Called before each bounded execution.
+     * <p>
+     * Default implementation does nothing.
+     */
+    protected void applyExecutionBounds() {
+        // No delegate clause bounds by default
+    }
+
+    /**
+     * Returns {@code true} if the translated filters of this clause are
+     * statically known to be unsatisfiable, so no row can match them.
+     * 
+     * @return If the translated filters are unsatisfiable
+     * @see PredicateAnalyzer
+     */
+    protected boolean isUnsatisfiable() {
+        return this.unsatisfiable;
+    }
+
+    /**
+     * Sets if the translated filters of this clause are statically known
+     * to be unsatisfiable.
+     * 
+     * @param unsatisfiable If the translated filters are unsatisfiable
+     */
+    protected void setUnsatisfiable(
+            final boolean unsatisfiable) {
+        this.unsatisfiable = unsatisfiable;
+    }
+
+    /**
+     * Analyzes the specified translated filters before adding them to the
+     * delegate clause. Tautological filters are removed and this clause
+     * is flagged as unsatisfiable if any filter is unsatisfiable.
+     * 
+     * @param predicates The translated filters
+     * @return The filters to add to the delegate clause
+     * @see PredicateAnalyzer#simplify(Predicate...)
+     */
+    protected Predicate[] analyzePredicates(
+            final Predicate... predicates) {
+        if (predicates == null) {
+            return null;
+        }
+        final Predicate[] result = PredicateAnalyzer.simplify(predicates);
+        for (final Predicate predicate : result) {
+            if (PredicateAnalyzer.isUnsatisfiable(predicate)) {
+                this.unsatisfiable = true;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Adds the specified translated predicates, ignoring {@code null}
+     * elements, to the specified filters list.
+     * 
+     * @param filters The filters list
+     * @param predicates The translated predicates
+     */
+    protected static void addFilters(
+            final @NotNull List<Predicate> filters,
+            final Predicate... predicates) {
+        if (predicates != null) {
+            for (final Predicate predicate : predicates) {
+                if (predicate != null) {
+                    filters.add(predicate);
+                }
+            }
+        }
+    }
+
     /**
      * Returns the prefetched subquery extractor.
      * 
@@ -24,19 +24,29 @@ package dev.orne.qdsl.wrap.impl;
 
 import java.io.Serializable;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.function.Supplier;
 
 import javax.validation.constraints.NotNull;
 
 import org.apache.commons.lang3.Validate;
 
+import com.mysema.commons.lang.CloseableIterator;
+import com.querydsl.codegen.utils.Evaluator;
 import com.querydsl.collections.CollQuery;
+import com.querydsl.collections.CollQueryTemplates;
+import com.querydsl.collections.DefaultEvaluatorFactory;
+import com.querydsl.collections.DefaultQueryEngine;
 import com.querydsl.collections.QueryEngine;
 import com.querydsl.core.DefaultQueryMetadata;
 import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.QueryModifiers;
 import com.querydsl.core.Tuple;
 import com.querydsl.core.support.ExtendedSubQuery;
 import com.querydsl.core.types.Expression;
 import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Predicate;
 
 /**
  * Wrapped QueryDSL update clause.
@@ -49,6 +59,10 @@ import com.querydsl.core.types.Path;
 public class WrappedCollQueryClause<T>
 extends WrappedQueryClause<T, WrappedCollQueryClause<T>> {
 
+    /** The evaluator factory for existence checks with the default query engine. */
+    private static final DefaultEvaluatorFactory EVALUATOR_FACTORY =
+            new DefaultEvaluatorFactory(CollQueryTemplates.DEFAULT);
+
     /** The delegate QueryDSL collection based query clause. */
     private final @NotNull CollQuery<T> delegate;
     /**
@@ -61,6 +75,21 @@ extends WrappedQueryClause<T, WrappedCollQueryClause<T>> {
      * For prefetched subquery creation.
      */
     private final @NotNull Class<? extends T> type;
+    /**
+     * The query engine of the delegate QueryDSL clause.
+     * For clause copy creation.
+     */
+    private QueryEngine engine;
+    /**
+     * The source path of the delegate QueryDSL clause.
+     * For clause copy creation.
+     */
+    private Path<?> source;
+    /**
+     * The source values of the delegate QueryDSL clause.
+     * For clause copy creation.
+     */
+    private Iterable<?> values;
 
     /**
      * Creates a new instance with no-operation transformer.
@@ -137,6 +166,9 @@ extends WrappedQueryClause<T, WrappedCollQueryClause<T>> {
         this.delegate = new CollQuery<Void>(this.metadata, engine)
                 .from(path, values)
                 .select(path);
+        this.engine = engine;
+        this.source = path;
+        this.values = values;
     }
 
     /**
@@ -186,21 +218,191 @@ extends WrappedQueryClause<T, WrappedCollQueryClause<T>> {
      * 
      * @return The metadata of the delegate QueryDSL clause
      */
+    @Override
     protected QueryMetadata getMetadata() {
         return this.metadata;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Copies the collection source of this clause to derived collection
+     * based query clauses.
+     */
+    @Override
+    protected <N extends WrappedQueryClause<?, ?>> @NotNull N configureDerived(
+            final @NotNull N derived) {
+        super.configureDerived(derived);
+        if (derived instanceof WrappedCollQueryClause) {
+            final WrappedCollQueryClause<?> collDerived = (WrappedCollQueryClause<?>) derived;
+            collDerived.engine = this.engine;
+            collDerived.source = this.source;
+            collDerived.values = this.values;
+        }
+        return derived;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Supported only for clauses created through the public constructors
+     * or derived from them.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    protected @NotNull WrappedCollQueryClause<T> copy() {
+        if (this.engine == null) {
+            return super.copy();
+        }
+        final QueryMetadata copyMetadata = this.metadata.clone();
+        final CollQuery<T> copyDelegate = new CollQuery<T>(copyMetadata, this.engine)
+                .bind((Path<Object>) this.source, this.values);
+        return configureDerived(changeProjection(
+                getTransformer(),
+                copyMetadata,
+                copyDelegate,
+                this.type));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Copies of collection query clauses only read the source values,
+     * so they can be executed concurrently as long as the source values
+     * are not modified.
+     */
+    @Override
+    protected boolean isConcurrentCopySupported() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Single source queries of clauses created through the public
+     * constructors, or derived from them, with the default query engine
+     * evaluate the query filter on each source value, stopping at the
+     * first match.
+     */
+    @Override
+    protected boolean fetchExists() {
+        if (this.values == null ||
+                !DefaultQueryEngine.getDefault().equals(this.engine) ||
+                this.metadata.getJoins().size() != 1) {
+            return super.fetchExists();
+        }
+        final QueryModifiers modifiers = this.metadata.getModifiers();
+        if (modifiers.getOffset() != null && modifiers.getOffset() > 0) {
+            return super.fetchExists();
+        }
+        final Predicate filter = this.metadata.getWhere();
+        if (filter == null) {
+            return this.values.iterator().hasNext();
+        }
+        final Evaluator<Boolean> evaluator = EVALUATOR_FACTORY.create(
+                this.metadata,
+                Collections.singletonList(this.source),
+                filter);
+        for (final Object value : boundedValues()) {
+            try {
+                if (Boolean.TRUE.equals(evaluator.evaluate(value))) {
+                    return true;
+                }
+            } catch (final NullPointerException npe) {
+                // Same as query engine: value does not match
+            }
+        }
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * For clauses created through the public constructors, or derived
+     * from them, the source values are bound to the delegate query
+     * clause during the execution through an iterable that checks the
+     * timeout deadline and the cancel handle on each value.
+     */
+    @Override
+    protected <R> R executeBounded(
+            final @NotNull Supplier<R> execution) {
+        return bindBoundedValues(() -> super.executeBounded(execution));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Source values are bound as in {@link #executeBounded(Supplier)}.
+     */
+    @Override
+    protected <R> R executeWithinPermit(
+            final @NotNull Supplier<R> execution) {
+        return bindBoundedValues(() -> super.executeWithinPermit(execution));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Source values are bound as in {@link #executeBounded(Supplier)}.
+     */
+    @Override
+    protected <E> CloseableIterator<E> iterateBounded(
+            final @NotNull Supplier<? extends CloseableIterator<E>> execution) {
+        return bindBoundedValues(() -> super.iterateBounded(execution));
+    }
+
+    /**
+     * Executes the specified execution with the source values bound to the
+     * delegate query clause through an iterable that checks the execution
+     * bounds, if any is configured and the clause has been created through
+     * the public constructors or derived from them.
+     * 
+     * @param <R> The execution result type
+     * @param execution The execution
+     * @return The execution result
+     */
+    @SuppressWarnings("unchecked")
+    private <R> R bindBoundedValues(
+            final @NotNull Supplier<R> execution) {
+        if (this.values == null || !getExecutionBounds().isBounded()) {
+            return execution.get();
+        }
+        this.delegate.bind((Path<Object>) this.source, boundedValues());
+        try {
+            return execution.get();
+        } finally {
+            this.delegate.bind((Path<Object>) this.source, this.values);
+        }
+    }
+
+    /**
+     * Returns the source values of this clause, wrapped to check the
+     * execution bounds on each value if any is configured. The timeout
+     * deadline starts on this call.
+     * 
+     * @return The source values
+     */
+    protected @NotNull Iterable<?> boundedValues() {
+        final ExecutionBounds bounds = getExecutionBounds();
+        if (!bounds.isBounded()) {
+            return this.values;
+        }
+        return new BoundedIterable<>(this.values, bounds, bounds.getDeadline());
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     public <U> WrappedCollQueryClause<U> select(
             final @NotNull Expression<U> expr) {
-        return changeProjection(
+        final Expression<U> proj = getTransformer().translateProjection(expr);
+        return configureDerived(changeProjection(
                 getTransformer(),
                 this.metadata,
-                this.delegate.select(getTransformer().translateProjection(expr)),
-                expr.getType());
+                this.delegate.select(proj),
+                expr.getType()),
+                expr);
     }
 
     /**
@@ -209,11 +411,12 @@ extends WrappedQueryClause<T, WrappedCollQueryClause<T>> {
     @Override
     public @NotNull WrappedCollQueryClause<Tuple> select(
             final @NotNull Expression<?>... exprs) {
-        return changeProjection(
+        return configureDerived(changeProjection(
                 getTransformer(),
                 this.metadata,
                 this.delegate.select(getTransformer().translateProjections(exprs)),
-                Tuple.class);
+                Tuple.class),
+                null);
     }
 
     /**
@@ -254,4 +457,61 @@ extends WrappedQueryClause<T, WrappedCollQueryClause<T>> {
                 sType,
                 this.delegate.fetch());
     }
+
+    /**
+     * Iterable of source values that checks the execution bounds
+     * on each value.
+     * 
+     * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+     * @version 1.0, 2022-10
+     * @param <E> The type of source values
+     * @since WrappedCollQueryClause 1.0
+     */
+    protected static class BoundedIterable<E>
+    implements Iterable<E> {
+
+        /** The source values. */
+        private final @NotNull Iterable<E> values;
+        /** The execution bounds. */
+        private final @NotNull ExecutionBounds bounds;
+        /** The execution deadline. */
+        private final long deadline;
+
+        /**
+         * Creates a new instance.
+         * 
+         * @param values The source values
+         * @param bounds The execution bounds
+         * @param deadline The execution deadline
+         * @see ExecutionBounds#getDeadline()
+         */
+        protected BoundedIterable(
+                final @NotNull Iterable<E> values,
+                final @NotNull ExecutionBounds bounds,
+                final long deadline) {
+            super();
+            this.values = Validate.notNull(values);
+            this.bounds = Validate.notNull(bounds);
+            this.deadline = deadline;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Iterator<E> iterator() {
+            final Iterator<E> delegate = this.values.iterator();
+            return new Iterator<E>() {
+                @Override
+                public boolean hasNext() {
+                    return delegate.hasNext();
+                }
+                @Override
+                public E next() {
+                    bounds.checkBounds(deadline);
+                    return delegate.next();
+                }
+            };
+        }
+    }
 }
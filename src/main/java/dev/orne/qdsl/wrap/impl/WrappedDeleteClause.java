@@ -22,12 +22,22 @@ package dev.orne.qdsl.wrap.impl;
  * #L%
  */
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
 import javax.validation.constraints.NotNull;
 
 import org.apache.commons.lang3.Validate;
 
 import com.querydsl.core.dml.DeleteClause;
+import com.querydsl.core.types.Path;
 import com.querydsl.core.types.Predicate;
+import com.querydsl.sql.ProjectableSQLQuery;
+import com.querydsl.sql.dml.AbstractSQLDeleteClause;
+
+import dev.orne.qdsl.wrap.ChunkedExecution;
+import dev.orne.qdsl.wrap.ExtendedDeleteClause;
 
 /**
  * Wrapped QueryDSL delete clause.
@@ -38,10 +48,16 @@ import com.querydsl.core.types.Predicate;
  */
 public class WrappedDeleteClause
 extends WrappedClause<WrappedDeleteClause>
-implements DeleteClause<WrappedDeleteClause> {
+implements ExtendedDeleteClause<WrappedDeleteClause> {
 
     /** The delegate QueryDSL delete clause. */
     private final @NotNull DeleteClause<?> delegate;
+    /** The translated filters. */
+    private final @NotNull List<Predicate> filters = new ArrayList<>();
+    /** The supplier of chunk SQL delete statements. */
+    private Supplier<? extends AbstractSQLDeleteClause<?>> chunkStatements;
+    /** The supplier of chunk key boundary queries. */
+    private Supplier<? extends ProjectableSQLQuery<?, ?>> chunkQueries;
 
     /**
      * Creates a new instance with no-operation transformer.
@@ -78,22 +94,112 @@ implements DeleteClause<WrappedDeleteClause> {
         return this.delegate;
     }
 
+    /**
+     * Returns the supplier of chunk SQL delete statements.
+     * 
+     * @return The supplier of chunk SQL delete statements
+     */
+    protected Supplier<? extends AbstractSQLDeleteClause<?>> getChunkStatements() {
+        return this.chunkStatements;
+    }
+
+    /**
+     * Returns the supplier of chunk key boundary queries.
+     * 
+     * @return The supplier of chunk key boundary queries
+     */
+    protected Supplier<? extends ProjectableSQLQuery<?, ?>> getChunkQueries() {
+        return this.chunkQueries;
+    }
+
+    /**
+     * Sets the suppliers of new SQL delete statements and key boundary
+     * queries over the target table used in chunked executions.
+     * If {@code null} chunked executions are not supported.
+     * 
+     * @param statements The supplier of chunk SQL delete statements
+     * @param queries The supplier of chunk key boundary queries
+     * @see #executeChunked(ChunkedExecution)
+     */
+    public void setChunkStatements(
+            final Supplier<? extends AbstractSQLDeleteClause<?>> statements,
+            final Supplier<? extends ProjectableSQLQuery<?, ?>> queries) {
+        this.chunkStatements = statements;
+        this.chunkQueries = queries;
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     public @NotNull WrappedDeleteClause where(
             final @NotNull Predicate... exprs) {
-        getDelegate().where(getTransformer().translatePredicates(
+        final Predicate[] translated = analyzePredicates(getTransformer().translatePredicates(
                 extractPreFetched(exprs)));
+        getDelegate().where(translated);
+        addFilters(this.filters, translated);
         return self();
     }
 
     /**
      * {@inheritDoc}
+     * <p>
+     * Returns 0 without executing the delegate clause if the translated
+     * filters are statically known to be unsatisfiable.
      */
     @Override
     public long execute() {
-        return getDelegate().execute();
+        if (isUnsatisfiable()) {
+            return 0;
+        }
+        final long result = executeBounded(getDelegate()::execute);
+        invalidateCachedResults();
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Requires the suppliers of chunk statements, configured by SQL
+     * clause providers. Each chunk is executed with a new SQL delete
+     * statement within the execution bounds of this clause. Returns 0
+     * without executing any chunk if the translated filters are
+     * statically known to be unsatisfiable.
+     * 
+     * @see #setChunkStatements(Supplier, Supplier)
+     */
+    @Override
+    public long executeChunked(
+            final @NotNull ChunkedExecution execution) {
+        Validate.notNull(execution);
+        final Supplier<? extends AbstractSQLDeleteClause<?>> statements = this.chunkStatements;
+        if (statements == null) {
+            throw new UnsupportedOperationException(
+                    "Chunked execution requires SQL delete statements");
+        }
+        if (isUnsatisfiable()) {
+            return 0;
+        }
+        final Path<?> key = SqlChunkedDml.translateKey(getTransformer(), execution);
+        final SqlChunkedDml chunked = new SqlChunkedDml(
+                execution,
+                getExecutionBounds(),
+                this.filters.toArray(new Predicate[this.filters.size()]),
+                key,
+                this.chunkQueries);
+        try {
+            return chunked.execute((chunkFilters, limit) -> executeBounded(() -> {
+                final AbstractSQLDeleteClause<?> statement = Validate.notNull(
+                        statements.get(),
+                        "No chunk delete statement supplied");
+                statement.where(chunkFilters);
+                if (limit > 0) {
+                    statement.limit(limit);
+                }
+                return statement.execute();
+            }));
+        } finally {
+            invalidateCachedResults();
+        }
     }
 }
@@ -24,26 +24,33 @@ package dev.orne.qdsl.wrap.impl;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.Supplier;
 
 import javax.validation.constraints.NotNull;
 
 import org.apache.commons.lang3.Validate;
 
+import com.querydsl.core.QueryFlag;
 import com.querydsl.core.QueryMetadata;
 import com.querydsl.core.Tuple;
 import com.querydsl.core.dml.InsertClause;
 import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.ExpressionUtils;
 import com.querydsl.core.types.FactoryExpression;
 import com.querydsl.core.types.Path;
 import com.querydsl.core.types.Projections;
 import com.querydsl.core.types.SubQueryExpression;
 import com.querydsl.core.types.SubQueryExpressionImpl;
 import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.sql.dml.AbstractSQLInsertClause;
 
+import dev.orne.qdsl.wrap.BatchExecutionException;
 import dev.orne.qdsl.wrap.ExtendedInsertClause;
 import dev.orne.qdsl.wrap.StoredValue;
 import dev.orne.qdsl.wrap.StoredValues;
+import dev.orne.qdsl.wrap.impl.transform.ConvertedProjection;
 
 /**
  * Wrapped QueryDSL insert clause.
@@ -56,10 +63,21 @@ public class WrappedInsertClause
 extends WrappedStoreClause<WrappedInsertClause>
 implements ExtendedInsertClause<WrappedInsertClause> {
 
+    /** The default rows count of batch execution chunks. */
+    public static final int DEFAULT_BATCH_CHUNK_SIZE = 1000;
+
     /** The delegate QueryDSL insert clause. */
     private final @NotNull InsertClause<?> delegate;
     /** The columns to be populated. */
     private Path<?>[] columns;
+    /** The batch of translated rows to insert. */
+    private final @NotNull List<StoredValues> batch = new ArrayList<>();
+    /** The rows count of batch execution chunks. */
+    private int batchChunkSize = DEFAULT_BATCH_CHUNK_SIZE;
+    /** The maximum parameters count of multi-row insert statements. */
+    private int multiRowMaxParameters;
+    /** The supplier of multi-row SQL insert statements. */
+    private Supplier<? extends AbstractSQLInsertClause<?>> multiRowClauses;
 
     /**
      * Creates a new instance with no-operation transformer.
@@ -106,6 +124,387 @@ implements ExtendedInsertClause<WrappedInsertClause> {
         return this.columns == null ? null : Arrays.copyOf(this.columns, this.columns.length);
     }
 
+    /**
+     * Returns the batch of translated rows to insert.
+     * 
+     * @return The batch of translated rows to insert
+     */
+    protected @NotNull List<StoredValues> getBatch() {
+        return Collections.unmodifiableList(this.batch);
+    }
+
+    /**
+     * Returns the rows count of batch execution chunks.
+     * 
+     * @return The rows count of batch execution chunks
+     */
+    public int getBatchChunkSize() {
+        return this.batchChunkSize;
+    }
+
+    /**
+     * Sets the rows count of batch execution chunks. Each chunk of rows
+     * is inserted in a single JDBC batch if the delegate clause is a
+     * SQL insert clause, or with a single write of the store if the
+     * delegate clause is a collection store clause.
+     * <p>
+     * Defaults to {@value #DEFAULT_BATCH_CHUNK_SIZE}.
+     * 
+     * @param size The rows count of batch execution chunks
+     */
+    public void setBatchChunkSize(
+            final int size) {
+        Validate.isTrue(size > 0, "Batch chunk size must be positive");
+        this.batchChunkSize = size;
+    }
+
+    /**
+     * Returns the maximum parameters count of multi-row insert statements.
+     * Zero means multi-row inserts are disabled.
+     * 
+     * @return The maximum parameters count of multi-row insert statements
+     */
+    public int getMultiRowMaxParameters() {
+        return this.multiRowMaxParameters;
+    }
+
+    /**
+     * Returns the supplier of multi-row SQL insert statements, if any.
+     * 
+     * @return The supplier of multi-row SQL insert statements
+     */
+    protected Supplier<? extends AbstractSQLInsertClause<?>> getMultiRowClauses() {
+        return this.multiRowClauses;
+    }
+
+    /**
+     * Enables the multi-row insertion of batch rows. Consecutive rows of
+     * each batch chunk that populate the same columns are inserted with a
+     * single {@code INSERT ... VALUES (...), (...)} statement, packing as
+     * many rows as allowed by the maximum parameters count, assuming a
+     * parameter per column.
+     * <p>
+     * Each statement is created by the specified supplier, that must
+     * return a new SQL insert clause for the target entity of this clause
+     * on each call. The delegate clause is not used for batch rows.
+     * <p>
+     * Multi-row inserts are disabled if {@code maxParameters} is zero or
+     * {@code clauses} is {@code null}, which is the default.
+     * 
+     * @param maxParameters The maximum parameters count of each statement
+     * @param clauses The supplier of SQL insert statements
+     */
+    public void setMultiRowValues(
+            final int maxParameters,
+            final Supplier<? extends AbstractSQLInsertClause<?>> clauses) {
+        Validate.isTrue(maxParameters >= 0, "Maximum parameters count cannot be negative");
+        this.multiRowMaxParameters = maxParameters;
+        this.multiRowClauses = clauses;
+    }
+
+    /**
+     * Returns {@code true} if multi-row insertion of batch rows is enabled.
+     * 
+     * @return If multi-row insertion of batch rows is enabled
+     */
+    protected boolean isMultiRowEnabled() {
+        return this.multiRowMaxParameters > 0 && this.multiRowClauses != null;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The values of the row are translated when added to the batch.
+     */
+    @Override
+    public @NotNull WrappedInsertClause addBatch() {
+        Validate.validState(!getAssignments().isEmpty(), "No values set for the batch row");
+        this.batch.add(translateAssignments(getAssignments()));
+        getAssignments().clear();
+        return self();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * If rows have been added to the batch they are inserted in chunks of
+     * the configured size. Each chunk is executed even if previous chunks
+     * fail. The batch is cleared before execution.
+     * 
+     * @throws BatchExecutionException If any chunk fails
+     * @see #setBatchChunkSize(int)
+     */
+    @Override
+    public long execute() {
+        if (this.batch.isEmpty()) {
+            return super.execute();
+        }
+        if (!getAssignments().isEmpty()) {
+            addBatch();
+        }
+        final List<StoredValues> rows = new ArrayList<>(this.batch);
+        this.batch.clear();
+        return executeBounded(() -> executeBatch(rows));
+    }
+
+    /**
+     * Inserts the specified translated rows in chunks of the configured
+     * size.
+     * 
+     * @param rows The translated rows to insert
+     * @return The affected rows count
+     * @throws BatchExecutionException If any chunk fails
+     */
+    protected long executeBatch(
+            final @NotNull List<StoredValues> rows) {
+        return executeChunks(rows, this.batchChunkSize, this::executeChunk);
+    }
+
+    /**
+     * Inserts the specified chunk of translated rows.
+     * <p>
+     * If multi-row insertion is enabled the rows are inserted with
+     * multi-row insert statements. Otherwise, if the delegate clause is a
+     * SQL insert clause the rows are inserted in a single JDBC batch.
+     * If the delegate clause is a collection store clause the rows are
+     * added to the store with a single write. Otherwise each row is
+     * inserted independently.
+     * 
+     * @param chunk The chunk of translated rows to insert
+     * @return The affected rows count
+     * @see #setMultiRowValues(int, Supplier)
+     */
+    protected long executeChunk(
+            final @NotNull List<StoredValues> chunk) {
+        if (isMultiRowEnabled()) {
+            return executeMultiRowChunk(chunk);
+        }
+        if (this.delegate instanceof AbstractSQLInsertClause) {
+            final AbstractSQLInsertClause<?> sqlDelegate = (AbstractSQLInsertClause<?>) this.delegate;
+            try {
+                for (final StoredValues row : chunk) {
+                    row.apply(sqlDelegate);
+                    sqlDelegate.addBatch();
+                }
+                return sqlDelegate.execute();
+            } finally {
+                sqlDelegate.clear();
+            }
+        }
+        if (this.delegate instanceof CollStoreDmlClause) {
+            final CollStoreDmlClause<?> collDelegate = (CollStoreDmlClause<?>) this.delegate;
+            try {
+                for (final StoredValues row : chunk) {
+                    row.apply(collDelegate);
+                    collDelegate.addBatch();
+                }
+                return collDelegate.execute();
+            } finally {
+                collDelegate.clear();
+            }
+        }
+        long result = 0;
+        for (final StoredValues row : chunk) {
+            row.apply(this.delegate);
+            result += this.delegate.execute();
+        }
+        return result;
+    }
+
+    /**
+     * Inserts the specified chunk of translated rows with multi-row insert
+     * statements. Consecutive rows that populate the same columns are
+     * packed in the same statement up to the configured maximum parameters
+     * count.
+     * 
+     * @param chunk The chunk of translated rows to insert
+     * @return The affected rows count
+     */
+    protected long executeMultiRowChunk(
+            final @NotNull List<StoredValues> chunk) {
+        long result = 0;
+        int offset = 0;
+        while (offset < chunk.size()) {
+            final StoredValues first = chunk.get(offset);
+            final int maxRows = Math.max(1,
+                    this.multiRowMaxParameters / Math.max(1, first.size()));
+            int end = offset + 1;
+            while (end < chunk.size()
+                    && end - offset < maxRows
+                    && first.paths().equals(chunk.get(end).paths())) {
+                end++;
+            }
+            getExecutionBounds().checkCancelled();
+            result += executeMultiRow(chunk.subList(offset, end));
+            offset = end;
+        }
+        return result;
+    }
+
+    /**
+     * Inserts the specified translated rows, that populate the same
+     * columns, with a single multi-row insert statement.
+     * <p>
+     * The values of the first row are set in the statement as usual.
+     * The values of the rest of the rows are appended after them as a
+     * statement flag, so rows other than the first one bind their
+     * parameters by value type instead of by column type.
+     * 
+     * @param rows The translated rows to insert
+     * @return The affected rows count
+     */
+    protected long executeMultiRow(
+            final @NotNull List<StoredValues> rows) {
+        final AbstractSQLInsertClause<?> statement = Validate.notNull(
+                this.multiRowClauses.get(),
+                "No multi-row insert statement supplied");
+        final StoredValues first = rows.get(0);
+        first.apply(statement);
+        if (rows.size() > 1) {
+            final List<Expression<?>> extraRows = new ArrayList<>(rows.size() - 1);
+            for (final StoredValues row : rows.subList(1, rows.size())) {
+                final List<Expression<?>> values = new ArrayList<>(first.size());
+                for (final Path<?> column : first.paths()) {
+                    final Expression<?> value = row.get(column);
+                    values.add(value == null ? Expressions.nullExpression() : value);
+                }
+                extraRows.add(Expressions.template(Object.class, "({0})",
+                        ExpressionUtils.list(Object.class, values)));
+            }
+            statement.addFlag(QueryFlag.Position.END, Expressions.template(
+                    Object.class, ", {0}",
+                    ExpressionUtils.list(Object.class, extraRows)));
+        }
+        return statement.execute();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <K> K executeWithKey(
+            final @NotNull Path<K> path) {
+        final List<K> keys = executeWithKeys(path);
+        return keys.isEmpty() ? null : keys.get(0);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Supports delegate clauses that extend {@code AbstractSQLInsertClause}.
+     * If rows have been added to the batch they are inserted in JDBC
+     * batches of the configured chunk size, ignoring multi-row insertion
+     * configuration. The keys generated for each batch depend on the JDBC
+     * driver; some drivers only return the key of the last row.
+     * 
+     * @see ExpressionTransformer#translateKeyPath(Path)
+     */
+    @Override
+    public <K> @NotNull List<K> executeWithKeys(
+            final @NotNull Path<K> path) {
+        Validate.notNull(path);
+        final AbstractSQLInsertClause<?> sqlDelegate = getSqlDelegate();
+        final Expression<K> key = getTransformer().translateKeyPath(path);
+        if (this.batch.isEmpty()) {
+            if (getAssignments().isEmpty() || isUnsatisfiable()) {
+                return Collections.emptyList();
+            }
+            return executeBounded(() -> {
+                final StoredValues values = translateAssignments(getAssignments());
+                values.apply(sqlDelegate);
+                final List<K> result = retrieveKeys(sqlDelegate, key);
+                invalidateCachedResults();
+                return result;
+            });
+        }
+        if (!getAssignments().isEmpty()) {
+            addBatch();
+        }
+        final List<StoredValues> rows = new ArrayList<>(this.batch);
+        this.batch.clear();
+        final List<K> result = new ArrayList<>(rows.size());
+        executeBounded(() -> executeChunks(rows, this.batchChunkSize, chunk -> {
+            result.addAll(executeChunkWithKeys(sqlDelegate, chunk, key));
+            return chunk.size();
+        }));
+        return result;
+    }
+
+    /**
+     * Returns the delegate clause as SQL insert clause.
+     * 
+     * @return The delegate SQL insert clause
+     * @throws UnsupportedOperationException If the delegate clause is not
+     * a SQL insert clause
+     */
+    protected @NotNull AbstractSQLInsertClause<?> getSqlDelegate() {
+        if (!(this.delegate instanceof AbstractSQLInsertClause)) {
+            throw new UnsupportedOperationException(String.format(
+                    "Generated keys retrieval not supported by delegate clause %s",
+                    this.delegate.getClass()));
+        }
+        return (AbstractSQLInsertClause<?>) this.delegate;
+    }
+
+    /**
+     * Inserts the specified chunk of translated rows in a single JDBC
+     * batch and returns the generated keys.
+     * 
+     * @param <K> The key type
+     * @param sqlDelegate The delegate SQL insert clause
+     * @param chunk The chunk of translated rows to insert
+     * @param key The translated key projection
+     * @return The generated keys
+     */
+    protected <K> @NotNull List<K> executeChunkWithKeys(
+            final @NotNull AbstractSQLInsertClause<?> sqlDelegate,
+            final @NotNull List<StoredValues> chunk,
+            final @NotNull Expression<K> key) {
+        try {
+            for (final StoredValues row : chunk) {
+                row.apply(sqlDelegate);
+                sqlDelegate.addBatch();
+            }
+            return retrieveKeys(sqlDelegate, key);
+        } finally {
+            sqlDelegate.clear();
+        }
+    }
+
+    /**
+     * Executes the specified SQL insert clause and returns the generated
+     * keys of the specified translated key projection.
+     * <p>
+     * Keys retrieved for {@code ConvertedProjection} projections are
+     * converted to the projection type.
+     * 
+     * @param <K> The key type
+     * @param statement The SQL insert clause to execute
+     * @param key The translated key projection
+     * @return The generated keys
+     * @throws ExpressionTransformationException If the key projection is
+     * not supported
+     */
+    @SuppressWarnings("unchecked")
+    protected <K> @NotNull List<K> retrieveKeys(
+            final @NotNull AbstractSQLInsertClause<?> statement,
+            final @NotNull Expression<K> key) {
+        if (key instanceof Path) {
+            return statement.executeWithKeys((Path<K>) key);
+        } else if (key instanceof ConvertedProjection) {
+            final ConvertedProjection<?, K> projection = (ConvertedProjection<?, K>) key;
+            final List<?> values = statement.executeWithKeys(projection.getSource());
+            final List<K> result = new ArrayList<>(values.size());
+            for (final Object value : values) {
+                result.add(projection.newInstance(value));
+            }
+            return result;
+        }
+        throw new ExpressionTransformationException(String.format(
+                "Unsupported generated key projection: %s",
+                key));
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -29,7 +29,9 @@ import org.apache.commons.lang3.Validate;
 import com.querydsl.core.Tuple;
 import com.querydsl.core.types.Expression;
 import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.JPAQueryBase;
 import com.querydsl.jpa.JPQLQuery;
+import com.querydsl.jpa.impl.AbstractJPAQuery;
 
 import dev.orne.qdsl.wrap.ExtendedGroupableQueryClause;
 
@@ -45,6 +47,9 @@ public class WrappedJpaQueryClause<T>
 extends WrappedQueryClause<T, WrappedJpaQueryClause<T>>
 implements ExtendedGroupableQueryClause<T, WrappedJpaQueryClause<T>> {
 
+    /** The JPA query hint of the query timeout, in milliseconds. */
+    public static final String TIMEOUT_HINT = "javax.persistence.query.timeout";
+
     /** The delegated QueryDSL JPA query clause. */
     private final @NotNull JPQLQuery<T> delegate;
 
@@ -74,17 +79,51 @@ implements ExtendedGroupableQueryClause<T, WrappedJpaQueryClause<T>> {
         return this.delegate;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Supports delegate query clauses that extend {@code JPAQueryBase},
+     * sharing its entity manager.
+     */
+    @Override
+    protected @NotNull WrappedJpaQueryClause<T> copy() {
+        if (!(this.delegate instanceof JPAQueryBase)) {
+            return super.copy();
+        }
+        return configureDerived(new WrappedJpaQueryClause<>(
+                getTransformer(),
+                ((JPAQueryBase<T, ?>) this.delegate).clone()));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Supports delegate query clauses that extend {@code AbstractJPAQuery},
+     * setting the timeout as query hint. Running JPA queries cannot be
+     * cancelled; the cancel handle is checked before execution.
+     */
+    @Override
+    protected void applyExecutionBounds() {
+        final long timeout = getExecutionBounds().getTimeout();
+        if (timeout > 0 && this.delegate instanceof AbstractJPAQuery) {
+            ((AbstractJPAQuery<?, ?>) this.delegate).setHint(
+                    TIMEOUT_HINT,
+                    (int) Math.min(Integer.MAX_VALUE, timeout));
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     public <U> WrappedJpaQueryClause<U> select(
             final @NotNull Expression<U> expr) {
-        final Expression<U> proj = getTransformer().translateProjection(
-                extractPreFetched(expr));
-        return new WrappedJpaQueryClause<>(
+        final Expression<U> source = extractPreFetched(expr);
+        final Expression<U> proj = getTransformer().translateProjection(source);
+        return configureDerived(new WrappedJpaQueryClause<>(
                 getTransformer(),
-                delegate.select(proj));
+                delegate.select(proj)),
+                source);
     }
 
     /**
@@ -95,9 +134,10 @@ implements ExtendedGroupableQueryClause<T, WrappedJpaQueryClause<T>> {
             final @NotNull Expression<?>... exprs) {
         final Expression<?>[] projs = getTransformer().translateProjections(
                 extractPreFetched(exprs));
-        return new WrappedJpaQueryClause<>(
+        return configureDerived(new WrappedJpaQueryClause<>(
                 getTransformer(),
-                delegate.select(projs));
+                delegate.select(projs)),
+                null);
     }
 
     /**
@@ -117,8 +157,10 @@ implements ExtendedGroupableQueryClause<T, WrappedJpaQueryClause<T>> {
     @Override
     public WrappedJpaQueryClause<T> having(
             final @NotNull Predicate... conditions) {
-        getDelegate().having(getTransformer().translatePredicates(
+        final Predicate[] tconditions = analyzePredicates(getTransformer().translatePredicates(
                 extractPreFetched(conditions)));
+        registerConvertedParams(tconditions);
+        getDelegate().having(tconditions);
         return self();
     }
 
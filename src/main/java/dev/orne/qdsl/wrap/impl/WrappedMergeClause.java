@@ -0,0 +1,396 @@
+package dev.orne.qdsl.wrap.impl;
+
+/*-
+ * #%L
+ * Orne Querydsl Utils
+ * %%
+ * Copyright (C) 2022 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+
+import com.querydsl.core.QueryFlag;
+import com.querydsl.core.dml.StoreClause;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.sql.ColumnMetadata;
+import com.querydsl.sql.dml.AbstractSQLInsertClause;
+import com.querydsl.sql.dml.SQLMergeClause;
+
+import dev.orne.qdsl.wrap.BatchExecutionException;
+import dev.orne.qdsl.wrap.ExtendedMergeClause;
+import dev.orne.qdsl.wrap.StoredValues;
+
+/**
+ * Wrapped QueryDSL merge clause.
+ * <p>
+ * Supports two kinds of delegate clauses:
+ * <ul>
+ * <li>{@code SQLMergeClause}, that uses native {@code MERGE} statements
+ * if supported by the SQL templates. Otherwise QueryDSL emulates the
+ * merge of each row with a query and an update or insert, which is not
+ * atomic, and rows cannot be batched.</li>
+ * <li>{@code AbstractSQLInsertClause}, that uses
+ * {@code INSERT ... ON CONFLICT (keys) DO UPDATE} statements, as
+ * supported by SQLite and PostgreSQL. All the merged rows must populate
+ * the same columns.</li>
+ * </ul>
+ * <p>
+ * The key columns and the values of each row are translated by the
+ * expression transformer. The key columns must be translated to paths.
+ * The rows of the batch are merged in chunks, each chunk in a single
+ * JDBC batch when supported.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2022-10
+ * @since 0.1
+ */
+public class WrappedMergeClause
+extends WrappedStoreClause<WrappedMergeClause>
+implements ExtendedMergeClause<WrappedMergeClause> {
+
+    /** The default rows count of batch execution chunks. */
+    public static final int DEFAULT_BATCH_CHUNK_SIZE = 1000;
+
+    /** The delegate QueryDSL merge or insert clause. */
+    private final @NotNull StoreClause<?> delegate;
+    /** The key columns. */
+    private Path<?>[] keys;
+    /** The batch of translated rows to merge. */
+    private final @NotNull List<StoredValues> batch = new ArrayList<>();
+    /** The rows count of batch execution chunks. */
+    private int batchChunkSize = DEFAULT_BATCH_CHUNK_SIZE;
+    /** The columns of the conflict clause added to the delegate insert clause. */
+    private Set<Path<?>> conflictColumns;
+
+    /**
+     * Creates a new instance with no-operation transformer.
+     * 
+     * @param delegate The delegate QueryDSL merge or insert clause
+     */
+    public WrappedMergeClause(
+            final @NotNull StoreClause<?> delegate) {
+        this(delegate, null);
+    }
+
+    /**
+     * Creates a new instance.
+     * <p>
+     * If {@code transformer} is {@code null} {@code ExpressionTransformer.NOP}
+     * is used.
+     * 
+     * @param delegate The delegate QueryDSL merge or insert clause
+     * @param transformer The expression transformer to use
+     * @throws IllegalArgumentException If the delegate clause is neither a
+     * {@code SQLMergeClause} nor an {@code AbstractSQLInsertClause}
+     */
+    public WrappedMergeClause(
+            final @NotNull StoreClause<?> delegate,
+            final ExpressionTransformer transformer) {
+        super(transformer);
+        this.delegate = Validate.notNull(delegate, "Delegate clause is required");
+        Validate.isTrue(
+                delegate instanceof SQLMergeClause || delegate instanceof AbstractSQLInsertClause,
+                "Delegate clause must be a SQL merge or insert clause");
+    }
+
+    /**
+     * Returns the delegate QueryDSL merge or insert clause.
+     * 
+     * @return The delegate QueryDSL merge or insert clause
+     */
+    @Override
+    protected @NotNull StoreClause<?> getDelegate() {
+        return this.delegate;
+    }
+
+    /**
+     * Returns the key columns.
+     * 
+     * @return The key columns
+     */
+    protected Path<?>[] getKeys() {
+        return this.keys == null ? null : Arrays.copyOf(this.keys, this.keys.length);
+    }
+
+    /**
+     * Returns the batch of translated rows to merge.
+     * 
+     * @return The batch of translated rows to merge
+     */
+    protected @NotNull List<StoredValues> getBatch() {
+        return Collections.unmodifiableList(this.batch);
+    }
+
+    /**
+     * Returns the rows count of batch execution chunks.
+     * 
+     * @return The rows count of batch execution chunks
+     */
+    public int getBatchChunkSize() {
+        return this.batchChunkSize;
+    }
+
+    /**
+     * Sets the rows count of batch execution chunks. Each chunk of rows
+     * is merged in a single JDBC batch.
+     * <p>
+     * Defaults to {@value #DEFAULT_BATCH_CHUNK_SIZE}.
+     * 
+     * @param size The rows count of batch execution chunks
+     */
+    public void setBatchChunkSize(
+            final int size) {
+        Validate.isTrue(size > 0, "Batch chunk size must be positive");
+        this.batchChunkSize = size;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull WrappedMergeClause keys(
+            final @NotNull Path<?>... paths) {
+        Validate.notEmpty(paths, "At least a key column is required");
+        Validate.noNullElements(paths);
+        this.keys = Arrays.copyOf(paths, paths.length);
+        return self();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The values of the row are translated when added to the batch.
+     * 
+     * @throws IllegalStateException If the delegate clause is a SQL insert
+     * clause and the row populates different columns than the previous rows
+     */
+    @Override
+    public @NotNull WrappedMergeClause addBatch() {
+        Validate.validState(!getAssignments().isEmpty(), "No values set for the batch row");
+        final StoredValues row = translateAssignments(getAssignments());
+        if (this.delegate instanceof AbstractSQLInsertClause) {
+            final Set<Path<?>> columns = this.batch.isEmpty() ?
+                    this.conflictColumns :
+                    this.batch.get(0).paths();
+            Validate.validState(columns == null || columns.equals(row.paths()),
+                    "All the merged rows must populate the same columns");
+        }
+        this.batch.add(row);
+        getAssignments().clear();
+        return self();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The current values and the rows added to the batch are merged in
+     * chunks of the configured size. Each chunk is executed even if
+     * previous chunks fail. The batch is cleared before execution.
+     * 
+     * @throws IllegalStateException If no key columns have been set
+     * @throws ExpressionTransformationException If any key column is not
+     * translated to a path
+     * @throws BatchExecutionException If any chunk fails
+     * @see #setBatchChunkSize(int)
+     */
+    @Override
+    public long execute() {
+        Validate.validState(this.keys != null, "No key columns set");
+        if (!getAssignments().isEmpty()) {
+            addBatch();
+        }
+        if (this.batch.isEmpty()) {
+            return 0;
+        }
+        final Path<?>[] tkeys = translateKeys();
+        final List<StoredValues> rows = new ArrayList<>(this.batch);
+        this.batch.clear();
+        return executeBounded(() -> executeBatch(tkeys, rows));
+    }
+
+    /**
+     * Translates the key columns.
+     * 
+     * @return The translated key columns
+     * @throws ExpressionTransformationException If any key column is not
+     * translated to a path
+     */
+    protected @NotNull Path<?>[] translateKeys() {
+        final Expression<?>[] exprs = getTransformer().translateGroupByExpressions(
+                extractPreFetched(this.keys));
+        final Path<?>[] result = new Path<?>[exprs.length];
+        for (int i = 0; i < exprs.length; i++) {
+            if (!(exprs[i] instanceof Path)) {
+                throw new ExpressionTransformationException(String.format(
+                        "Key column %s is not translated to a column: %s",
+                        this.keys[Math.min(i, this.keys.length - 1)],
+                        exprs[i]));
+            }
+            result[i] = (Path<?>) exprs[i];
+        }
+        return result;
+    }
+
+    /**
+     * Merges the specified translated rows in chunks of the configured
+     * size.
+     * 
+     * @param keys The translated key columns
+     * @param rows The translated rows to merge
+     * @return The affected rows count
+     * @throws BatchExecutionException If any chunk fails
+     */
+    protected long executeBatch(
+            final @NotNull Path<?>[] keys,
+            final @NotNull List<StoredValues> rows) {
+        return executeChunks(rows, this.batchChunkSize, chunk -> executeChunk(keys, chunk));
+    }
+
+    /**
+     * Merges the specified chunk of translated rows, in a single JDBC batch
+     * when supported.
+     * 
+     * @param keys The translated key columns
+     * @param chunk The chunk of translated rows to merge
+     * @return The affected rows count
+     */
+    protected long executeChunk(
+            final @NotNull Path<?>[] keys,
+            final @NotNull List<StoredValues> chunk) {
+        if (this.delegate instanceof SQLMergeClause) {
+            return executeMergeChunk((SQLMergeClause) this.delegate, keys, chunk);
+        }
+        final AbstractSQLInsertClause<?> insertDelegate = (AbstractSQLInsertClause<?>) this.delegate;
+        if (this.conflictColumns == null) {
+            this.conflictColumns = new HashSet<>(chunk.get(0).paths());
+            insertDelegate.addFlag(
+                    QueryFlag.Position.END,
+                    createConflictClause(keys, this.conflictColumns));
+        }
+        try {
+            for (final StoredValues row : chunk) {
+                row.apply(insertDelegate);
+                insertDelegate.addBatch();
+            }
+            return insertDelegate.execute();
+        } finally {
+            insertDelegate.clear();
+        }
+    }
+
+    /**
+     * Merges the specified chunk of translated rows with the specified
+     * SQL merge clause.
+     * <p>
+     * QueryDSL only supports batches of native merges. If the SQL templates
+     * do not support native merges each row is merged independently.
+     * 
+     * @param mergeDelegate The delegate SQL merge clause
+     * @param keys The translated key columns
+     * @param chunk The chunk of translated rows to merge
+     * @return The affected rows count
+     */
+    protected long executeMergeChunk(
+            final @NotNull SQLMergeClause mergeDelegate,
+            final @NotNull Path<?>[] keys,
+            final @NotNull List<StoredValues> chunk) {
+        long result = 0;
+        boolean batched = true;
+        try {
+            for (final StoredValues row : chunk) {
+                mergeDelegate.keys(keys);
+                row.apply(mergeDelegate);
+                if (batched) {
+                    try {
+                        mergeDelegate.addBatch();
+                    } catch (final IllegalStateException e) {
+                        batched = false;
+                    }
+                }
+                if (!batched) {
+                    result += mergeDelegate.execute();
+                    mergeDelegate.clear();
+                }
+            }
+            if (batched) {
+                result = mergeDelegate.execute();
+            }
+            return result;
+        } finally {
+            mergeDelegate.clear();
+        }
+    }
+
+    /**
+     * Creates the {@code ON CONFLICT} clause of the insert statements,
+     * that updates the non key columns with the inserted values.
+     * 
+     * @param keys The translated key columns
+     * @param columns The translated populated columns
+     * @return The conflict clause expression
+     */
+    protected static @NotNull Expression<?> createConflictClause(
+            final @NotNull Path<?>[] keys,
+            final @NotNull Set<Path<?>> columns) {
+        final List<Expression<?>> keyColumns = new ArrayList<>(keys.length);
+        for (final Path<?> key : keys) {
+            keyColumns.add(toColumnName(key));
+        }
+        final List<Expression<?>> updates = new ArrayList<>(columns.size());
+        for (final Path<?> column : columns) {
+            if (!Arrays.asList(keys).contains(column)) {
+                updates.add(Expressions.template(Object.class,
+                        "{0} = excluded.{0}",
+                        toColumnName(column)));
+            }
+        }
+        if (updates.isEmpty()) {
+            return Expressions.template(Object.class,
+                    "\non conflict ({0}) do nothing",
+                    ExpressionUtils.list(Object.class, keyColumns));
+        }
+        return Expressions.template(Object.class,
+                "\non conflict ({0}) do update set {1}",
+                ExpressionUtils.list(Object.class, keyColumns),
+                ExpressionUtils.list(Object.class, updates));
+    }
+
+    /**
+     * Returns a path without parent with the column name of the specified
+     * path, serialized as an unqualified column name.
+     * 
+     * @param path The column path
+     * @return The unqualified column name path
+     */
+    private static @NotNull Path<?> toColumnName(
+            final @NotNull Path<?> path) {
+        return ExpressionUtils.path(path.getType(), ColumnMetadata.getName(path));
+    }
+}
@@ -22,23 +22,45 @@ package dev.orne.qdsl.wrap.impl;
  * #L%
  */
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
 
 import javax.validation.constraints.NotNull;
 
+import org.apache.commons.lang3.Validate;
+
 import com.mysema.commons.lang.CloseableIterator;
+import com.mysema.commons.lang.IteratorAdapter;
 import com.querydsl.core.FetchableQuery;
 import com.querydsl.core.NonUniqueResultException;
+import com.querydsl.core.QueryMetadata;
 import com.querydsl.core.QueryModifiers;
 import com.querydsl.core.QueryResults;
 import com.querydsl.core.ResultTransformer;
 import com.querydsl.core.Tuple;
 import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.FactoryExpression;
 import com.querydsl.core.types.OrderSpecifier;
 import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.Path;
 import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.Projections;
+import com.querydsl.core.types.SubQueryExpression;
+import com.querydsl.core.types.dsl.Expressions;
 
 import dev.orne.qdsl.wrap.ExtendedQueryClause;
+import dev.orne.qdsl.wrap.ReferenceProjection;
+import dev.orne.qdsl.wrap.ResultPublisher;
+import dev.orne.qdsl.wrap.impl.transform.ConvertedParam;
 
 /**
  * Base class for wrapped QueryDSL query clauses.
@@ -53,6 +75,17 @@ public abstract class WrappedQueryClause<T, C extends WrappedQueryClause<T, C>>
 extends WrappedClause<C>
 implements ExtendedQueryClause<T, C> {
 
+    /** The default maximum number of references fetched per query. */
+    public static final int DEFAULT_REFERENCE_CHUNK_SIZE = 256;
+
+    /** The converted parameters of the translated expressions. */
+    private final @NotNull Set<ConvertedParam<?, ?>> convertedParams =
+            new LinkedHashSet<>();
+    /** The source reference projection of this clause, if any. */
+    private ReferenceProjection<?, ?> referenceProjection;
+    /** The single flight scope of identical concurrent queries. */
+    private SingleFlightGroup.Scope singleFlightScope;
+
     /**
      * Creates a new instance.
      * <p>
@@ -73,6 +106,264 @@ implements ExtendedQueryClause<T, C> {
      */
     protected abstract @NotNull FetchableQuery<T, ?> getDelegate();
 
+    /**
+     * Returns the translated metadata of the delegate query clause.
+     * <p>
+     * Default implementation supports delegate clauses that are
+     * {@code SubQueryExpression} instances.
+     * 
+     * @return The delegate query metadata
+     * @throws UnsupportedOperationException If the delegate query metadata
+     * is not accessible
+     */
+    protected @NotNull QueryMetadata getMetadata() {
+        final FetchableQuery<T, ?> delegate = getDelegate();
+        if (delegate instanceof SubQueryExpression) {
+            return ((SubQueryExpression<?>) delegate).getMetadata();
+        }
+        throw new UnsupportedOperationException(
+                "Delegate query metadata is not accessible");
+    }
+
+    /**
+     * Configures the specified clause, derived from this clause through
+     * a projection change, with the settings of this clause.
+     * 
+     * @param <N> The derived clause type
+     * @param derived The derived clause
+     * @return The derived clause
+     */
+    protected <N extends WrappedQueryClause<?, ?>> @NotNull N configureDerived(
+            final @NotNull N derived) {
+        derived.setResultCacheScope(getResultCacheScope());
+        derived.getConvertedParams().addAll(this.convertedParams);
+        derived.setReferenceProjection(this.referenceProjection);
+        derived.setSingleFlightScope(this.singleFlightScope);
+        derived.setUnsatisfiable(isUnsatisfiable());
+        derived.setExecutionBounds(getExecutionBounds());
+        derived.setConcurrencyLimiter(getConcurrencyLimiter());
+        return derived;
+    }
+
+    /**
+     * Configures the specified clause, derived from this clause through
+     * a projection change, with the settings of this clause and the
+     * specified source projection.
+     * <p>
+     * The source projection is the projection before translation,
+     * required to translate the references of reference projections.
+     * 
+     * @param <N> The derived clause type
+     * @param derived The derived clause
+     * @param projection The source projection of the derived clause
+     * @return The derived clause
+     * @see #configureDerived(WrappedQueryClause)
+     */
+    protected <N extends WrappedQueryClause<?, ?>> @NotNull N configureDerived(
+            final @NotNull N derived,
+            final Expression<?> projection) {
+        configureDerived(derived);
+        if (projection instanceof ReferenceProjection) {
+            derived.setReferenceProjection((ReferenceProjection<?, ?>) projection);
+        } else {
+            derived.setReferenceProjection(null);
+        }
+        return derived;
+    }
+
+    /**
+     * Creates an independent copy of this clause, with a copy of the
+     * delegate query clause and the same settings.
+     * <p>
+     * Default implementation throws {@code UnsupportedOperationException}.
+     * 
+     * @return The copy of this clause
+     * @throws UnsupportedOperationException If the delegate query clause
+     * cannot be copied
+     */
+    protected @NotNull C copy() {
+        throw new UnsupportedOperationException(
+                "Delegate query clause cannot be copied");
+    }
+
+    /**
+     * Returns the converted parameters found in the translated expressions
+     * of this clause.
+     * 
+     * @return The converted parameters
+     * @see ConvertedParam
+     */
+    protected @NotNull Set<ConvertedParam<?, ?>> getConvertedParams() {
+        return this.convertedParams;
+    }
+
+    /**
+     * Returns the single flight scope of this clause, if any.
+     * 
+     * @return The single flight scope
+     */
+    protected SingleFlightGroup.Scope getSingleFlightScope() {
+        return this.singleFlightScope;
+    }
+
+    /**
+     * Sets the single flight scope of this clause.
+     * <p>
+     * If configured, concurrent identical executions of the terminal
+     * operations share a single delegate query execution.
+     * 
+     * @param scope The single flight scope
+     */
+    protected void setSingleFlightScope(
+            final SingleFlightGroup.Scope scope) {
+        this.singleFlightScope = scope;
+    }
+
+    /**
+     * Returns the source reference projection of this clause, if any.
+     * 
+     * @return The source reference projection
+     * @see #fetchByReferences(Collection, Executor)
+     */
+    protected ReferenceProjection<?, ?> getReferenceProjection() {
+        return this.referenceProjection;
+    }
+
+    /**
+     * Sets the source reference projection of this clause.
+     * 
+     * @param projection The source reference projection
+     * @see #fetchByReferences(Collection, Executor)
+     */
+    protected void setReferenceProjection(
+            final ReferenceProjection<?, ?> projection) {
+        this.referenceProjection = projection;
+    }
+
+    /**
+     * Returns the maximum number of references fetched per query
+     * in {@code fetchByReferences()}.
+     * 
+     * @return The maximum number of references fetched per query
+     * @see #fetchByReferences(Collection, Executor)
+     */
+    protected int getReferenceChunkSize() {
+        return DEFAULT_REFERENCE_CHUNK_SIZE;
+    }
+
+    /**
+     * Registers the converted parameters used in the specified translated
+     * expressions, so the values bound to their source parameters are
+     * converted and bound to them.
+     * 
+     * @param exprs The translated expressions
+     * @see #set(ParamExpression, Object)
+     */
+    protected void registerConvertedParams(
+            final Expression<?>... exprs) {
+        for (final Expression<?> expr : exprs) {
+            ConvertedParam.collect(expr, this.convertedParams);
+        }
+    }
+
+    /**
+     * Registers the converted parameters used in the specified translated
+     * order specifiers.
+     * 
+     * @param orders The translated order specifiers
+     * @see #registerConvertedParams(Expression...)
+     */
+    protected void registerConvertedParams(
+            final OrderSpecifier<?>... orders) {
+        for (final OrderSpecifier<?> order : orders) {
+            ConvertedParam.collect(order.getTarget(), this.convertedParams);
+        }
+    }
+
+    /**
+     * Returns {@code true} if the query results are statically known to
+     * be empty, so the delegate query doesn't need to be executed.
+     * <p>
+     * Results are provably empty if the translated filters are unsatisfiable,
+     * unless the projection contains aggregate operations and the query is
+     * not grouped, in which case the query returns a row of aggregated
+     * values.
+     * 
+     * @return If the query results are provably empty
+     * @see #isUnsatisfiable()
+     */
+    protected boolean isProvablyEmpty() {
+        if (!isUnsatisfiable()) {
+            return false;
+        }
+        final QueryMetadata metadata;
+        try {
+            metadata = getMetadata();
+        } catch (final UnsupportedOperationException e) {
+            return false;
+        }
+        return !metadata.getGroupBy().isEmpty() ||
+                !PredicateAnalyzer.containsAggregate(metadata.getProjection());
+    }
+
+    /**
+     * Returns the result of the specified terminal operation for
+     * empty query results.
+     * 
+     * @param operation The terminal operation
+     * @return The empty result of the operation
+     */
+    protected Object emptyResult(
+            final @NotNull QueryKey.Operation operation) {
+        switch (operation) {
+            case FETCH:
+                return new ArrayList<>();
+            case FETCH_RESULTS:
+                return QueryResults.emptyResults();
+            case FETCH_COUNT:
+                return 0L;
+            case EXISTS:
+                return false;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Executes the specified terminal operation, using the query results
+     * cache and the single flight scope if configured.
+     * <p>
+     * Returns the empty result of the operation without executing the
+     * delegate query if the query results are provably empty.
+     * 
+     * @param <R> The operation result type
+     * @param operation The terminal operation
+     * @param execution The delegate query execution
+     * @return The operation result
+     */
+    @SuppressWarnings("unchecked")
+    protected <R> R execute(
+            final @NotNull QueryKey.Operation operation,
+            final @NotNull Supplier<R> execution) {
+        if (isProvablyEmpty()) {
+            return (R) emptyResult(operation);
+        }
+        final Supplier<R> bounded = () -> executeBounded(execution);
+        final SingleFlightGroup.Scope flightScope = this.singleFlightScope;
+        final Supplier<R> query;
+        if (flightScope == null) {
+            query = bounded;
+        } else {
+            query = () -> flightScope.execute(
+                    operation, getMetadata(), getExecutionBounds(), bounded);
+        }
+        final QueryResultCache.Scope scope = getResultCacheScope();
+        if (scope == null) {
+            return query.get();
+        }
+        return scope.get(operation, getMetadata(), query);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -132,8 +423,10 @@ implements ExtendedQueryClause<T, C> {
     @Override
     public C where(
             final Predicate... conds) {
-        getDelegate().where(getTransformer().translatePredicates(
+        final Predicate[] tconds = analyzePredicates(getTransformer().translatePredicates(
                 extractPreFetched(conds)));
+        registerConvertedParams(tconds);
+        getDelegate().where(tconds);
         return self();
     }
 
@@ -143,27 +436,51 @@ implements ExtendedQueryClause<T, C> {
     @Override
     public C orderBy(
             final OrderSpecifier<?>... orders) {
-        getDelegate().orderBy(getTransformer().translateOrderSpecifiers(orders));
+        final OrderSpecifier<?>[] torders = getTransformer().translateOrderSpecifiers(orders);
+        registerConvertedParams(torders);
+        getDelegate().orderBy(torders);
         return self();
     }
 
     /**
      * {@inheritDoc}
+     * <p>
+     * The value is converted and bound to the registered converted
+     * parameters derived from the specified parameter.
      */
     @Override
     public <P> C set(
             final @NotNull ParamExpression<P> param,
             final P value) {
         getDelegate().set(param, value);
+        for (final ConvertedParam<?, ?> converted : this.convertedParams) {
+            if (converted.getSource().equals(param)) {
+                setConverted(converted, value);
+            }
+        }
         return self();
     }
 
+    /**
+     * Binds the converted value of the source parameter to the specified
+     * converted parameter.
+     * 
+     * @param <V> The converted parameter type
+     * @param param The converted parameter
+     * @param value The source parameter value
+     */
+    protected <V> void setConverted(
+            final @NotNull ConvertedParam<?, V> param,
+            final Object value) {
+        getDelegate().set(param, param.convertUnchecked(value));
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     public List<T> fetch() {
-        return getDelegate().fetch();
+        return execute(QueryKey.Operation.FETCH, () -> getDelegate().fetch());
     }
 
     /**
@@ -171,7 +488,7 @@ implements ExtendedQueryClause<T, C> {
      */
     @Override
     public T fetchFirst() {
-        return getDelegate().fetchFirst();
+        return execute(QueryKey.Operation.FETCH_FIRST, () -> getDelegate().fetchFirst());
     }
 
     /**
@@ -179,15 +496,39 @@ implements ExtendedQueryClause<T, C> {
      */
     @Override
     public T fetchOne() throws NonUniqueResultException {
-        return getDelegate().fetchOne();
+        return execute(QueryKey.Operation.FETCH_ONE, () -> getDelegate().fetchOne());
     }
 
     /**
      * {@inheritDoc}
+     * <p>
+     * Returns an empty iterator without executing the delegate query
+     * if the query results are provably empty. The permit of the
+     * concurrency limiter, if any, is held until the iterator is closed.
      */
     @Override
     public CloseableIterator<T> iterate() {
-        return getDelegate().iterate();
+        if (isProvablyEmpty()) {
+            return new IteratorAdapter<>(Collections.<T>emptyIterator());
+        }
+        return iterateBounded(() -> getDelegate().iterate());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull ResultPublisher<T> publish() {
+        return publish(null);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull ResultPublisher<T> publish(
+            final Executor executor) {
+        return new IteratorResultPublisher<>(this::iterate, executor);
     }
 
     /**
@@ -195,7 +536,7 @@ implements ExtendedQueryClause<T, C> {
      */
     @Override
     public QueryResults<T> fetchResults() {
-        return getDelegate().fetchResults();
+        return execute(QueryKey.Operation.FETCH_RESULTS, () -> getDelegate().fetchResults());
     }
 
     /**
@@ -203,7 +544,53 @@ implements ExtendedQueryClause<T, C> {
      */
     @Override
     public long fetchCount() {
-        return getDelegate().fetchCount();
+        return execute(QueryKey.Operation.FETCH_COUNT, () -> getDelegate().fetchCount());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean exists() {
+        return execute(QueryKey.Operation.EXISTS, this::fetchExists);
+    }
+
+    /**
+     * Checks if the delegate query has any result.
+     * <p>
+     * Executes an independent copy of this clause that selects a constant
+     * value with no ordering and a limit of one result, skipping the
+     * translation and transfer of the query projection. Ungrouped queries
+     * with aggregated projections always have a result. If the delegate
+     * query clause cannot be copied its results are counted instead.
+     * <p>
+     * Called within the bounded execution of this clause, so the copy is
+     * executed within the concurrency limiter permit already held.
+     * 
+     * @return If the delegate query has any result
+     */
+    protected boolean fetchExists() {
+        final C copy;
+        try {
+            copy = copy();
+        } catch (final UnsupportedOperationException e) {
+            return getDelegate().fetchCount() > 0;
+        }
+        try {
+            final QueryMetadata metadata = copy.getMetadata();
+            if (metadata.getGroupBy().isEmpty() &&
+                    PredicateAnalyzer.containsAggregate(metadata.getProjection())) {
+                return true;
+            }
+            metadata.clearOrderBy();
+        } catch (final UnsupportedOperationException e) {
+            // Ordering of the copy cannot be removed
+        }
+        return copy.executeWithinPermit(() -> !copy.getDelegate()
+                .select(Expressions.ONE)
+                .limit(1)
+                .fetch()
+                .isEmpty());
     }
 
     /**
@@ -212,6 +599,243 @@ implements ExtendedQueryClause<T, C> {
     @Override
     public <S> S transform(
             final @NotNull ResultTransformer<S> transformer) {
-        return getDelegate().transform(transformer);
+        return executeBounded(() -> getDelegate().transform(transformer));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <I> @NotNull Map<I, T> fetchByReferences(
+            final @NotNull Collection<? extends I> references) {
+        return fetchByReferences(references, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Each chunk is fetched with an independent copy of this clause,
+     * so the delegate query clause must support copies. The chunks are
+     * only executed concurrently in the provided executor if the copies
+     * of this clause support concurrent execution. Otherwise, for example
+     * for SQL or JPA clauses which copies share the connection or entity
+     * manager, the chunks are fetched sequentially in the calling thread.
+     * All the chunks are fetched within a single permit of the concurrency
+     * limiter, if any is configured.
+     * <p>
+     * The references are restricted and retrieved through the expression
+     * transformer, so the values of value mapped reference paths are
+     * converted in both directions. Value mapped reference paths require
+     * an inverse value transformer.
+     * <p>
+     * Composed references are restricted through a disjunction of
+     * reference component equalities instead of row value {@code IN}
+     * predicates, not supported by all databases.
+     * 
+     * @see #isConcurrentCopySupported()
+     * @see ExpressionTransformer#translateKeyPath(Path)
+     */
+    @Override
+    public <I> @NotNull Map<I, T> fetchByReferences(
+            final @NotNull Collection<? extends I> references,
+            final Executor executor) {
+        Validate.notNull(references);
+        Validate.noNullElements(references);
+        final ReferenceProjection<?, ?> projection = this.referenceProjection;
+        if (projection == null) {
+            throw new IllegalStateException(
+                    "Query projection is not a reference projection");
+        }
+        if (isUnsatisfiable()) {
+            return new LinkedHashMap<>();
+        }
+        final List<List<I>> chunks = chunk(
+                new ArrayList<>(new LinkedHashSet<>(references)),
+                getReferenceChunkSize());
+        return executeBounded(() -> {
+            final Map<I, T> result = new LinkedHashMap<>();
+            for (final Map<I, T> chunkResult : ConcurrentExecutions.executeAll(
+                    chunks,
+                    chunk -> {
+                        final Map<I, T> values = new LinkedHashMap<>();
+                        fetchReferencesChunk(projection, chunk, values);
+                        return values;
+                    },
+                    isConcurrentCopySupported() ? executor : null)) {
+                result.putAll(chunkResult);
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Returns {@code true} if independent copies of this clause can be
+     * executed concurrently, because they do not share resources that do
+     * not support concurrent use.
+     * <p>
+     * Default implementation returns {@code false}.
+     * 
+     * @return If copies of this clause can be executed concurrently
+     * @see #copy()
+     */
+    protected boolean isConcurrentCopySupported() {
+        return false;
+    }
+
+    /**
+     * Fetches the results of the specified chunk of references with an
+     * independent copy of this clause.
+     * The copy is executed within the concurrency limiter permit held by
+     * the calling execution.
+     * 
+     * @param <I> The reference type
+     * @param projection The source reference projection
+     * @param chunk The chunk of references
+     * @param result The map to put the results into
+     * @throws NonUniqueResultException If more than one result is
+     * found for a reference
+     */
+    @SuppressWarnings("unchecked")
+    protected <I> void fetchReferencesChunk(
+            final @NotNull ReferenceProjection<?, ?> projection,
+            final @NotNull List<I> chunk,
+            final @NotNull Map<I, T> result) {
+        final C copy = copy();
+        final ExpressionTransformer transformer = copy.getTransformer();
+        final Expression<?> tprojection = transformer.translateProjection(
+                projection.getProjection());
+        final Expression<?> treference = translateReference(
+                transformer,
+                projection.getReference());
+        final Predicate condition = transformer.translatePredicates(
+                createReferencesPredicate(projection.getReference(), chunk))[0];
+        final FetchableQuery<T, ?> delegate = copy.getDelegate();
+        delegate.restrict(QueryModifiers.EMPTY);
+        final List<Tuple> rows = copy.executeWithinPermit(() -> delegate
+                .select(tprojection, treference)
+                .where(condition)
+                .fetch());
+        final FactoryExpression<?> composed = isComposedReference(projection.getReference()) ?
+                (FactoryExpression<?>) projection.getReference() :
+                null;
+        for (final Tuple row : rows) {
+            final I reference;
+            if (composed == null) {
+                reference = (I) row.get(1, Object.class);
+            } else {
+                reference = (I) composed.newInstance(
+                        row.get(1, Tuple.class).toArray());
+            }
+            final T value = (T) row.get(0, Object.class);
+            if (result.put(reference, value) != null) {
+                throw new NonUniqueResultException(
+                        "More than one result found for reference " + reference);
+            }
+        }
+    }
+
+    /**
+     * Translates the specified source reference expression for retrieval
+     * of the reference values. Reference paths, and the path components
+     * of composed references, are translated as key paths, so the
+     * retrieved values are converted back to the source representation.
+     * Composed references are retrieved as tuples of the translated
+     * components, to be rebuilt with the source reference expression.
+     * 
+     * @param transformer The expression transformer
+     * @param reference The source reference expression
+     * @return The translated reference expression
+     * @see ExpressionTransformer#translateKeyPath(Path)
+     */
+    protected static @NotNull Expression<?> translateReference(
+            final @NotNull ExpressionTransformer transformer,
+            final @NotNull Expression<?> reference) {
+        if (reference instanceof Path) {
+            return transformer.translateKeyPath((Path<?>) reference);
+        }
+        if (isComposedReference(reference)) {
+            final List<Expression<?>> components =
+                    ((FactoryExpression<?>) reference).getArgs();
+            final Expression<?>[] translated = new Expression<?>[components.size()];
+            for (int i = 0; i < translated.length; i++) {
+                final Expression<?> component = components.get(i);
+                if (component instanceof Path) {
+                    translated[i] = transformer.translateKeyPath((Path<?>) component);
+                } else {
+                    translated[i] = transformer.translateProjection(component);
+                }
+            }
+            return Projections.tuple(translated);
+        }
+        return transformer.translateProjection(reference);
+    }
+
+    /**
+     * Returns {@code true} if the specified reference expression is a
+     * composed reference, a {@code Tuple} factory expression.
+     * 
+     * @param reference The reference expression
+     * @return If the reference expression is a composed reference
+     */
+    private static boolean isComposedReference(
+            final @NotNull Expression<?> reference) {
+        return reference instanceof FactoryExpression &&
+                Tuple.class.equals(reference.getType());
+    }
+
+    /**
+     * Creates the predicate that restricts the specified reference
+     * expression to the specified references.
+     * <p>
+     * Simple references are restricted with an {@code IN} predicate.
+     * Composed references, {@code FactoryExpression} of {@code Tuple},
+     * are restricted with a disjunction of conjunctions of reference
+     * component equalities.
+     * 
+     * @param reference The source reference expression
+     * @param references The references
+     * @return The created predicate
+     */
+    @SuppressWarnings("unchecked")
+    protected @NotNull Predicate createReferencesPredicate(
+            final @NotNull Expression<?> reference,
+            final @NotNull Collection<?> references) {
+        if (isComposedReference(reference)) {
+            final List<Expression<?>> components =
+                    ((FactoryExpression<?>) reference).getArgs();
+            final List<Predicate> alternatives = new ArrayList<>(references.size());
+            for (final Object value : references) {
+                final Tuple tuple = (Tuple) value;
+                final List<Predicate> conditions = new ArrayList<>(components.size());
+                for (int i = 0; i < components.size(); i++) {
+                    conditions.add(ExpressionUtils.eqConst(
+                            (Expression<Object>) components.get(i),
+                            tuple.get(i, Object.class)));
+                }
+                alternatives.add(ExpressionUtils.allOf(conditions));
+            }
+            return ExpressionUtils.anyOf(alternatives);
+        }
+        return ExpressionUtils.in((Expression<Object>) reference, references);
+    }
+
+    /**
+     * Splits the specified references in chunks of the specified
+     * maximum size.
+     * 
+     * @param <I> The reference type
+     * @param references The references
+     * @param size The maximum chunk size
+     * @return The chunks of references
+     */
+    private static <I> @NotNull List<List<I>> chunk(
+            final @NotNull List<I> references,
+            final int size) {
+        final int chunkSize = Math.max(1, size);
+        final List<List<I>> chunks = new ArrayList<>();
+        for (int i = 0; i < references.size(); i += chunkSize) {
+            chunks.add(references.subList(i, Math.min(references.size(), i + chunkSize)));
+        }
+        return chunks;
     }
 }
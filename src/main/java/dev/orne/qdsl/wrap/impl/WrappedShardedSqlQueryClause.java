@@ -0,0 +1,202 @@
+package dev.orne.qdsl.wrap.impl;
+
+/*-
+ * #%L
+ * Orne Querydsl Utils
+ * %%
+ * Copyright (C) 2022 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.support.ExtendedSubQuery;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Predicate;
+
+import dev.orne.qdsl.wrap.ExtendedGroupableQueryClause;
+
+/**
+ * Wrapped QueryDSL SQL query clause over a sharded entity.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2022-10
+ * @param <T> The query results type
+ * @since 0.1
+ * @see ShardedSqlQuery
+ */
+public class WrappedShardedSqlQueryClause<T>
+extends WrappedQueryClause<T, WrappedShardedSqlQueryClause<T>>
+implements ExtendedGroupableQueryClause<T, WrappedShardedSqlQueryClause<T>> {
+
+    /** The delegate sharded SQL query. */
+    private final @NotNull ShardedSqlQuery<T> delegate;
+    /** If the execution bounds listener has been added to the delegate. */
+    private boolean boundsListenerAdded;
+
+    /**
+     * Creates a new instance.
+     * <p>
+     * If {@code transformer} is {@code null} {@code ExpressionTransformer.NOP}
+     * is used.
+     * 
+     * @param transformer The expression transformer to use
+     * @param delegate The delegated sharded SQL query
+     */
+    public WrappedShardedSqlQueryClause(
+            final ExpressionTransformer transformer,
+            final @NotNull ShardedSqlQuery<T> delegate) {
+        super(transformer);
+        this.delegate = Validate.notNull(delegate);
+    }
+
+    /**
+     * Returns the delegate sharded SQL query.
+     * 
+     * @return The delegate sharded SQL query
+     */
+    @Override
+    protected @NotNull ShardedSqlQuery<T> getDelegate() {
+        return this.delegate;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected @NotNull QueryMetadata getMetadata() {
+        return this.delegate.getMetadata();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Derived clauses share or clone the delegate sharded query, including
+     * its listeners, so the state of the execution bounds listener is
+     * propagated.
+     */
+    @Override
+    protected <N extends WrappedQueryClause<?, ?>> @NotNull N configureDerived(
+            final @NotNull N derived) {
+        super.configureDerived(derived);
+        if (derived instanceof WrappedShardedSqlQueryClause) {
+            ((WrappedShardedSqlQueryClause<?>) derived).boundsListenerAdded =
+                    this.boundsListenerAdded;
+        }
+        return derived;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The delegate sharded query is cloned.
+     */
+    @Override
+    protected @NotNull WrappedShardedSqlQueryClause<T> copy() {
+        return configureDerived(new WrappedShardedSqlQueryClause<>(
+                getTransformer(),
+                this.delegate.clone()));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Adds to the delegate sharded query a listener that applies the
+     * execution bounds to the JDBC statements of all the shard queries.
+     * 
+     * @see SqlExecutionBoundsListener
+     */
+    @Override
+    protected void applyExecutionBounds() {
+        if (!this.boundsListenerAdded) {
+            this.delegate.addListener(
+                    new SqlExecutionBoundsListener(getExecutionBounds()));
+            this.boundsListenerAdded = true;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <U> WrappedShardedSqlQueryClause<U> select(
+            final @NotNull Expression<U> expr) {
+        final Expression<U> source = extractPreFetched(expr);
+        final Expression<U> proj = getTransformer().translateProjection(source);
+        return configureDerived(new WrappedShardedSqlQueryClause<>(
+                getTransformer(),
+                delegate.select(proj)),
+                source);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull WrappedShardedSqlQueryClause<Tuple> select(
+            final @NotNull Expression<?>... exprs) {
+        final Expression<?>[] projs = getTransformer().translateProjections(
+                extractPreFetched(exprs));
+        return configureDerived(new WrappedShardedSqlQueryClause<>(
+                getTransformer(),
+                delegate.select(projs)),
+                null);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Grouped queries must target a single shard.
+     */
+    @Override
+    public WrappedShardedSqlQueryClause<T> groupBy(
+            final @NotNull Expression<?>... exprs) {
+        getDelegate().groupBy(getTransformer().translateGroupByExpressions(
+                extractPreFetched(exprs)));
+        return self();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Grouped queries must target a single shard.
+     */
+    @Override
+    public WrappedShardedSqlQueryClause<T> having(
+            final @NotNull Predicate... conditions) {
+        final Predicate[] tconditions = analyzePredicates(getTransformer().translatePredicates(
+                extractPreFetched(conditions)));
+        registerConvertedParams(tconditions);
+        getDelegate().having(tconditions);
+        return self();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Returns the template query of the delegate sharded query. The sub
+     * query is not routed: it is executed as part of the outer query.
+     */
+    @Override
+    public @NotNull ExtendedSubQuery<T> asSubQuery() {
+        return this.delegate.getTemplate();
+    }
+}
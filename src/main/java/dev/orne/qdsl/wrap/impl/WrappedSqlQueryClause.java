@@ -22,6 +22,13 @@ package dev.orne.qdsl.wrap.impl;
  * #L%
  */
 
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.function.Supplier;
+
 import javax.validation.constraints.NotNull;
 
 import org.apache.commons.lang3.Validate;
@@ -30,6 +37,7 @@ import com.querydsl.core.Tuple;
 import com.querydsl.core.support.ExtendedSubQuery;
 import com.querydsl.core.types.Expression;
 import com.querydsl.core.types.Predicate;
+import com.querydsl.sql.AbstractSQLQuery;
 import com.querydsl.sql.ProjectableSQLQuery;
 
 import dev.orne.qdsl.wrap.ExtendedGroupableQueryClause;
@@ -48,6 +56,10 @@ implements ExtendedGroupableQueryClause<T, WrappedSqlQueryClause<T>> {
 
     /** The delegate QueryDSL SQL query clause. */
     private final @NotNull ProjectableSQLQuery<T, ?> delegate;
+    /** The source of connections of the delegate query clause, if known. */
+    private Supplier<Connection> connectionSource;
+    /** If the execution bounds listener has been added to the delegate. */
+    private boolean boundsListenerAdded;
 
     /**
      * Creates a new instance.
@@ -75,17 +87,126 @@ implements ExtendedGroupableQueryClause<T, WrappedSqlQueryClause<T>> {
         return this.delegate;
     }
 
+    /**
+     * Returns the source of connections of the delegate query clause,
+     * if known.
+     * 
+     * @return The source of connections of the delegate query clause
+     */
+    public Supplier<Connection> getConnectionSource() {
+        return this.connectionSource;
+    }
+
+    /**
+     * Sets the source of connections of the delegate query clause, usually
+     * the connection provider of the query factory that created it.
+     * <p>
+     * Delegate query clauses created by query factories backed by a
+     * connection provider resolve their connection lazily, so their clones
+     * have no connection. If configured, copies of this clause are created
+     * with a connection obtained from this source.
+     * 
+     * @param source The source of connections of the delegate query clause
+     * @see #copy()
+     */
+    public void setConnectionSource(
+            final Supplier<Connection> source) {
+        this.connectionSource = source;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Propagates the source of connections of the delegate query clause.
+     * Derived clauses share or clone the delegate query clause, including
+     * its listeners, so the state of the execution bounds listener is
+     * propagated too.
+     */
+    @Override
+    protected <N extends WrappedQueryClause<?, ?>> @NotNull N configureDerived(
+            final @NotNull N derived) {
+        super.configureDerived(derived);
+        if (derived instanceof WrappedSqlQueryClause) {
+            final WrappedSqlQueryClause<?> sqlDerived = (WrappedSqlQueryClause<?>) derived;
+            sqlDerived.setConnectionSource(this.connectionSource);
+            sqlDerived.boundsListenerAdded = this.boundsListenerAdded;
+        }
+        return derived;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * If a connection source is configured and the delegate query clause
+     * extends {@code AbstractSQLQuery} the copy uses a connection obtained
+     * from the source on its first use, so copies that are never executed
+     * do not retain connections. Otherwise the delegate query clause is
+     * cloned, sharing its connection.
+     * 
+     * @see #setConnectionSource(Supplier)
+     */
+    @Override
+    protected @NotNull WrappedSqlQueryClause<T> copy() {
+        if (this.connectionSource != null && this.delegate instanceof AbstractSQLQuery) {
+            return copy(lazyConnection(this.connectionSource));
+        }
+        return configureDerived(new WrappedSqlQueryClause<>(
+                getTransformer(),
+                this.delegate.clone()));
+    }
+
+    /**
+     * Creates an independent copy of this clause, with a copy of the
+     * delegate query clause that uses the specified connection and the
+     * same settings.
+     * 
+     * @param connection The connection of the copy
+     * @return The copy of this clause
+     * @throws UnsupportedOperationException If the delegate query clause
+     * does not extend {@code AbstractSQLQuery}
+     */
+    protected @NotNull WrappedSqlQueryClause<T> copy(
+            final @NotNull Connection connection) {
+        Validate.notNull(connection);
+        if (!(this.delegate instanceof AbstractSQLQuery)) {
+            throw new UnsupportedOperationException(
+                    "Delegate query clause cannot be copied with another connection");
+        }
+        return configureDerived(new WrappedSqlQueryClause<>(
+                getTransformer(),
+                ((AbstractSQLQuery<T, ?>) this.delegate).clone(connection)));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Supports delegate query clauses that extend {@code AbstractSQLQuery},
+     * adding to them a listener that applies the execution bounds to the
+     * JDBC statements.
+     * 
+     * @see SqlExecutionBoundsListener
+     */
+    @Override
+    protected void applyExecutionBounds() {
+        if (!this.boundsListenerAdded && this.delegate instanceof AbstractSQLQuery) {
+            ((AbstractSQLQuery<?, ?>) this.delegate).addListener(
+                    new SqlExecutionBoundsListener(getExecutionBounds()));
+            this.boundsListenerAdded = true;
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     public <U> WrappedSqlQueryClause<U> select(
             final @NotNull Expression<U> expr) {
-        final Expression<U> proj = getTransformer().translateProjection(
-                extractPreFetched(expr));
-        return new WrappedSqlQueryClause<>(
+        final Expression<U> source = extractPreFetched(expr);
+        final Expression<U> proj = getTransformer().translateProjection(source);
+        return configureDerived(new WrappedSqlQueryClause<>(
                 getTransformer(),
-                (ProjectableSQLQuery<U, ?>) delegate.select(proj));
+                (ProjectableSQLQuery<U, ?>) delegate.select(proj)),
+                source);
     }
 
     /**
@@ -96,9 +217,10 @@ implements ExtendedGroupableQueryClause<T, WrappedSqlQueryClause<T>> {
             final @NotNull Expression<?>... exprs) {
         final Expression<?>[] projs = getTransformer().translateProjections(
                 extractPreFetched(exprs));
-        return new WrappedSqlQueryClause<>(
+        return configureDerived(new WrappedSqlQueryClause<>(
                 getTransformer(),
-                (ProjectableSQLQuery<Tuple, ?>) delegate.select(projs));
+                (ProjectableSQLQuery<Tuple, ?>) delegate.select(projs)),
+                null);
     }
 
     /**
@@ -118,11 +240,38 @@ implements ExtendedGroupableQueryClause<T, WrappedSqlQueryClause<T>> {
     @Override
     public WrappedSqlQueryClause<T> having(
             final @NotNull Predicate... conditions) {
-        getDelegate().having(getTransformer().translatePredicates(
+        final Predicate[] tconditions = analyzePredicates(getTransformer().translatePredicates(
                 extractPreFetched(conditions)));
+        registerConvertedParams(tconditions);
+        getDelegate().having(tconditions);
         return self();
     }
 
+    /**
+     * Creates a scan of the results of this query split in partitions by
+     * ranges of the specified numeric or temporal key expression.
+     * <p>
+     * The partitions are executed on independent copies of this clause.
+     * This query cannot be limited, grouped or aggregated.
+     * 
+     * @param key The partition key expression
+     * @param partitions The requested partitions count
+     * @param strategy The range boundaries computation strategy
+     * @return The partitioned scan
+     * @see SqlPartitionedScan
+     */
+    public @NotNull SqlPartitionedScan<T> partitionedScan(
+            final @NotNull Expression<? extends Comparable<?>> key,
+            final int partitions,
+            final @NotNull SqlPartitionedScan.Strategy strategy) {
+        Validate.notNull(key);
+        return new SqlPartitionedScan<>(
+                this,
+                getTransformer().translateProjection(extractPreFetched(key)),
+                partitions,
+                strategy);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -130,4 +279,89 @@ implements ExtendedGroupableQueryClause<T, WrappedSqlQueryClause<T>> {
     public @NotNull ExtendedSubQuery<T> asSubQuery() {
         return this.delegate;
     }
+
+    /**
+     * Creates a connection that obtains the actual connection from the
+     * specified source on its first use. Closing the connection before
+     * its first use has no effect.
+     * 
+     * @param source The source of the actual connection
+     * @return The lazily obtained connection
+     */
+    protected static @NotNull Connection lazyConnection(
+            final @NotNull Supplier<Connection> source) {
+        return (Connection) Proxy.newProxyInstance(
+                WrappedSqlQueryClause.class.getClassLoader(),
+                new Class<?>[] { Connection.class },
+                new LazyConnectionHandler(Validate.notNull(source)));
+    }
+
+    /**
+     * Invocation handler of connections obtained lazily from a
+     * connection source.
+     * 
+     * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+     * @version 1.0, 2022-10
+     * @since WrappedSqlQueryClause 1.0
+     */
+    private static class LazyConnectionHandler
+    implements InvocationHandler {
+
+        /** The source of the actual connection. */
+        private final @NotNull Supplier<Connection> source;
+        /** The actual connection, once obtained. */
+        private Connection connection;
+
+        /**
+         * Creates a new instance.
+         * 
+         * @param source The source of the actual connection
+         */
+        LazyConnectionHandler(
+                final @NotNull Supplier<Connection> source) {
+            super();
+            this.source = source;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Object invoke(
+                final Object proxy,
+                final Method method,
+                final Object[] args)
+        throws Throwable {
+            if (method.getDeclaringClass() == Object.class) {
+                switch (method.getName()) {
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    default:
+                        return "Lazy connection of " + this.source;
+                }
+            }
+            final Connection target;
+            synchronized (this) {
+                if (this.connection == null) {
+                    if ("close".equals(method.getName())) {
+                        return null;
+                    }
+                    if ("isClosed".equals(method.getName())) {
+                        return false;
+                    }
+                    this.connection = Validate.notNull(
+                            this.source.get(),
+                            "Connection source returned null");
+                }
+                target = this.connection;
+            }
+            try {
+                return method.invoke(target, args);
+            } catch (final InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
 }
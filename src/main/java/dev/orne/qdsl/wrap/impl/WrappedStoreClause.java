@@ -22,13 +22,19 @@ package dev.orne.qdsl.wrap.impl;
  * #L%
  */
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
 import javax.validation.constraints.NotNull;
 
 import com.querydsl.core.dml.StoreClause;
 import com.querydsl.core.types.Expression;
 import com.querydsl.core.types.Path;
 
+import dev.orne.qdsl.wrap.BatchExecutionException;
 import dev.orne.qdsl.wrap.ExtendedStoreClause;
+import dev.orne.qdsl.wrap.QueryCancelledException;
 import dev.orne.qdsl.wrap.StoredValue;
 import dev.orne.qdsl.wrap.StoredValues;
 
@@ -46,6 +52,8 @@ implements ExtendedStoreClause<C> {
 
     /** The values to store. */
     private @NotNull StoredValues assignments;
+    /** The store shape cache scope. */
+    private StoreShapeCache.Scope storeShapeScope;
 
     /**
      * Creates a new instance.
@@ -68,6 +76,50 @@ implements ExtendedStoreClause<C> {
      */
     protected abstract @NotNull StoreClause<?> getDelegate();
 
+    /**
+     * Returns the store shape cache scope of this clause, if any.
+     * 
+     * @return The store shape cache scope
+     */
+    protected StoreShapeCache.Scope getStoreShapeScope() {
+        return this.storeShapeScope;
+    }
+
+    /**
+     * Sets the store shape cache scope of this clause.
+     * <p>
+     * If configured, assignments with constant and {@code null} values
+     * are translated through the cached template of their shape.
+     * 
+     * @param scope The store shape cache scope
+     */
+    protected void setStoreShapeScope(
+            final StoreShapeCache.Scope scope) {
+        this.storeShapeScope = scope;
+    }
+
+    /**
+     * Translates the specified values to store with the expression
+     * transformer of this clause.
+     * <p>
+     * If a store shape cache scope is configured the values are
+     * translated through the cached template of their shape.
+     * 
+     * @param values The values to store
+     * @return The translated values to store
+     * @see StoreShapeCache
+     */
+    protected @NotNull StoredValues translateAssignments(
+            final @NotNull StoredValues values) {
+        final StoreShapeCache.Scope scope = this.storeShapeScope;
+        if (scope == null) {
+            return getTransformer().translateStoredValues(
+                    extractPreFetched(values));
+        }
+        return scope.translate(values, tvalues -> getTransformer().translateStoredValues(
+                extractPreFetched(tvalues)));
+    }
+
     /**
      * Returns the values to store.
      * 
@@ -137,16 +189,70 @@ implements ExtendedStoreClause<C> {
 
     /**
      * {@inheritDoc}
+     * <p>
+     * Returns 0 without executing the delegate clause if no value is
+     * assigned or the translated filters are statically known to be
+     * unsatisfiable.
      */
     @Override
     public long execute() {
-        if (this.assignments.isEmpty()) {
+        if (this.assignments.isEmpty() || isUnsatisfiable()) {
             return 0;
         } else {
-            final StoredValues values = getTransformer().translateStoredValues(
-                    extractPreFetched(assignments));
-            values.apply(getDelegate());
-            return getDelegate().execute();
+            return executeBounded(() -> {
+                final StoredValues values = translateAssignments(assignments);
+                values.apply(getDelegate());
+                final long result = getDelegate().execute();
+                invalidateCachedResults();
+                return result;
+            });
+        }
+    }
+
+    /**
+     * Executes the specified translated rows in chunks of the specified
+     * size. Each chunk is executed even if previous chunks fail. Cached
+     * query results are invalidated after execution, even on failure.
+     * 
+     * @param rows The translated rows to store
+     * @param chunkSize The rows count of each chunk
+     * @param execution The chunk execution, returning the affected rows
+     * count
+     * @return The affected rows count
+     * @throws BatchExecutionException If any chunk fails
+     * @throws QueryCancelledException If the execution is cancelled
+     */
+    protected long executeChunks(
+            final @NotNull List<StoredValues> rows,
+            final int chunkSize,
+            final @NotNull ToLongFunction<List<StoredValues>> execution) {
+        long result = 0;
+        final List<BatchExecutionException.ChunkFailure> failures = new ArrayList<>();
+        try {
+            for (int offset = 0; offset < rows.size(); offset += chunkSize) {
+                getExecutionBounds().checkCancelled();
+                final List<StoredValues> chunk = rows.subList(
+                        offset,
+                        Math.min(rows.size(), offset + chunkSize));
+                try {
+                    result += execution.applyAsLong(chunk);
+                } catch (final QueryCancelledException e) {
+                    throw e;
+                } catch (final RuntimeException e) {
+                    failures.add(new BatchExecutionException.ChunkFailure(offset, chunk.size(), e));
+                }
+            }
+        } finally {
+            invalidateCachedResults();
+        }
+        if (!failures.isEmpty()) {
+            throw new BatchExecutionException(
+                    String.format("%d of %d batch chunks failed",
+                            failures.size(),
+                            (rows.size() + chunkSize - 1) / chunkSize),
+                    result,
+                    failures);
         }
+        return result;
     }
 }
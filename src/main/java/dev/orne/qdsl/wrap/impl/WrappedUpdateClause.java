@@ -22,7 +22,9 @@ package dev.orne.qdsl.wrap.impl;
  * #L%
  */
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Supplier;
 
 import javax.validation.constraints.NotNull;
 
@@ -33,7 +35,10 @@ import com.querydsl.core.types.Expression;
 import com.querydsl.core.types.Path;
 import com.querydsl.core.types.Predicate;
 import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.sql.ProjectableSQLQuery;
+import com.querydsl.sql.dml.AbstractSQLUpdateClause;
 
+import dev.orne.qdsl.wrap.ChunkedExecution;
 import dev.orne.qdsl.wrap.ExtendedUpdateClause;
 import dev.orne.qdsl.wrap.StoredValue;
 import dev.orne.qdsl.wrap.StoredValues;
@@ -51,6 +56,16 @@ implements ExtendedUpdateClause<WrappedUpdateClause> {
 
     /** The delegate QueryDSL update clause. */
     private final @NotNull UpdateClause<?> delegate;
+    /** The assigned paths of the batch rows, in order of assignment. */
+    private final @NotNull List<Path<?>> batchPaths = new ArrayList<>();
+    /** The count of rows in the batch. */
+    private int batchSize;
+    /** The translated filters. */
+    private final @NotNull List<Predicate> filters = new ArrayList<>();
+    /** The supplier of chunk SQL update statements. */
+    private Supplier<? extends AbstractSQLUpdateClause<?>> chunkStatements;
+    /** The supplier of chunk key boundary queries. */
+    private Supplier<? extends ProjectableSQLQuery<?, ?>> chunkQueries;
 
     /**
      * Creates a new instance with no-operation transformer.
@@ -88,6 +103,40 @@ implements ExtendedUpdateClause<WrappedUpdateClause> {
         return this.delegate;
     }
 
+    /**
+     * Returns the supplier of chunk SQL update statements.
+     * 
+     * @return The supplier of chunk SQL update statements
+     */
+    protected Supplier<? extends AbstractSQLUpdateClause<?>> getChunkStatements() {
+        return this.chunkStatements;
+    }
+
+    /**
+     * Returns the supplier of chunk key boundary queries.
+     * 
+     * @return The supplier of chunk key boundary queries
+     */
+    protected Supplier<? extends ProjectableSQLQuery<?, ?>> getChunkQueries() {
+        return this.chunkQueries;
+    }
+
+    /**
+     * Sets the suppliers of new SQL update statements and key boundary
+     * queries over the target table used in chunked executions.
+     * If {@code null} chunked executions are not supported.
+     * 
+     * @param statements The supplier of chunk SQL update statements
+     * @param queries The supplier of chunk key boundary queries
+     * @see #executeChunked(ChunkedExecution)
+     */
+    public void setChunkStatements(
+            final Supplier<? extends AbstractSQLUpdateClause<?>> statements,
+            final Supplier<? extends ProjectableSQLQuery<?, ?>> queries) {
+        this.chunkStatements = statements;
+        this.chunkQueries = queries;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -124,8 +173,144 @@ implements ExtendedUpdateClause<WrappedUpdateClause> {
     @Override
     public @NotNull WrappedUpdateClause where(
             final Predicate... conds) {
-        getDelegate().where(getTransformer().translatePredicates(
+        final Predicate[] translated = analyzePredicates(getTransformer().translatePredicates(
                 extractPreFetched(conds)));
+        getDelegate().where(translated);
+        addFilters(this.filters, translated);
         return self();
     }
+
+    /**
+     * Returns the count of rows in the batch.
+     * 
+     * @return The count of rows in the batch
+     */
+    public int getBatchSize() {
+        return this.batchSize;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Returns {@code false} if rows have been added to the batch.
+     */
+    @Override
+    public boolean isEmpty() {
+        return super.isEmpty() && this.batchSize == 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Requires a SQL update clause as delegate. The values and filters of
+     * the row are translated and added to the delegate clause batch. The
+     * translated values are assigned in the same path order for all the
+     * rows, so rows that share the same assigned paths and filters shape
+     * are executed through a single prepared statement.
+     */
+    @Override
+    public @NotNull WrappedUpdateClause addBatch() {
+        if (!(this.delegate instanceof AbstractSQLUpdateClause)) {
+            throw new UnsupportedOperationException(
+                    "Batch updates require a SQL update clause delegate");
+        }
+        Validate.validState(!getAssignments().isEmpty(), "No values set for the batch row");
+        final AbstractSQLUpdateClause<?> sqlDelegate = (AbstractSQLUpdateClause<?>) this.delegate;
+        final StoredValues values = translateAssignments(getAssignments());
+        for (final Path<?> path : values.paths()) {
+            if (!this.batchPaths.contains(path)) {
+                this.batchPaths.add(path);
+            }
+        }
+        for (final Path<?> path : this.batchPaths) {
+            final StoredValue<?> assignment = values.getAssignment(path);
+            if (assignment != null) {
+                assignment.apply(sqlDelegate);
+            }
+        }
+        sqlDelegate.addBatch();
+        this.batchSize++;
+        this.filters.clear();
+        getAssignments().clear();
+        setUnsatisfiable(false);
+        return self();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * If rows have been added to the batch they are updated in a single
+     * execution of the delegate clause. The batch is cleared after
+     * execution.
+     */
+    @Override
+    public long execute() {
+        if (this.batchSize == 0) {
+            return super.execute();
+        }
+        if (!getAssignments().isEmpty()) {
+            addBatch();
+        }
+        final AbstractSQLUpdateClause<?> sqlDelegate = (AbstractSQLUpdateClause<?>) this.delegate;
+        return executeBounded(() -> {
+            try {
+                return sqlDelegate.execute();
+            } finally {
+                sqlDelegate.clear();
+                this.batchPaths.clear();
+                this.batchSize = 0;
+                invalidateCachedResults();
+            }
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Requires the suppliers of chunk statements, configured by SQL
+     * clause providers. Each chunk is executed with a new SQL update
+     * statement, assigning the translated values, within the execution
+     * bounds of this clause. Returns 0 without executing any chunk if
+     * no value is assigned or the translated filters are statically
+     * known to be unsatisfiable.
+     * 
+     * @see #setChunkStatements(Supplier, Supplier)
+     */
+    @Override
+    public long executeChunked(
+            final @NotNull ChunkedExecution execution) {
+        Validate.notNull(execution);
+        final Supplier<? extends AbstractSQLUpdateClause<?>> statements = this.chunkStatements;
+        if (statements == null) {
+            throw new UnsupportedOperationException(
+                    "Chunked execution requires SQL update statements");
+        }
+        Validate.validState(this.batchSize == 0, "Chunked execution of batch updates is not supported");
+        if (getAssignments().isEmpty() || isUnsatisfiable()) {
+            return 0;
+        }
+        final StoredValues values = translateAssignments(getAssignments());
+        final Path<?> key = SqlChunkedDml.translateKey(getTransformer(), execution);
+        final SqlChunkedDml chunked = new SqlChunkedDml(
+                execution,
+                getExecutionBounds(),
+                this.filters.toArray(new Predicate[this.filters.size()]),
+                key,
+                this.chunkQueries);
+        try {
+            return chunked.execute((chunkFilters, limit) -> executeBounded(() -> {
+                final AbstractSQLUpdateClause<?> statement = Validate.notNull(
+                        statements.get(),
+                        "No chunk update statement supplied");
+                values.apply(statement);
+                statement.where(chunkFilters);
+                if (limit > 0) {
+                    statement.limit(limit);
+                }
+                return statement.execute();
+            }));
+        } finally {
+            invalidateCachedResults();
+        }
+    }
 }
@@ -200,6 +200,9 @@ implements ReferenceProjectionReplaceVisitor<C>,
 
     /**
      * Translates the {@code ParamExpression}s of a {@code SubQueryExpression}.
+     * <p>
+     * Values of parameters translated to {@code ConvertedParam} instances
+     * are converted accordingly.
      * 
      * @param source The source SubQueryExpression metadata
      * @param target The target SubQueryExpression metadata
@@ -211,9 +214,12 @@ implements ReferenceProjectionReplaceVisitor<C>,
             final QueryMetadata target,
             final C context) {
         for (final Map.Entry<ParamExpression<?>, Object> entry : source.getParams().entrySet()) {
-            target.setParam(
-                    (ParamExpression) entry.getKey().accept(this, context),
-                    entry.getValue());
+            final Expression<?> param = entry.getKey().accept(this, context);
+            Object value = entry.getValue();
+            if (param instanceof ConvertedParam) {
+                value = ((ConvertedParam<?, ?>) param).convertUnchecked(value);
+            }
+            target.setParam((ParamExpression) param, value);
         }
     }
 
@@ -32,6 +32,7 @@ import javax.validation.constraints.NotNull;
 
 import com.querydsl.core.types.Expression;
 import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.Path;
 import com.querydsl.core.types.Predicate;
 import com.querydsl.core.types.Visitor;
 
@@ -179,6 +180,63 @@ implements ExpressionTransformer,
         return (Expression<U>) result;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @SuppressWarnings("unchecked")
+    public @NotNull <U> Expression<U> translateKeyPath(
+            final @NotNull Path<U> path) {
+        final Expression<?> result = translateKeyPath(path, this);
+        if (!(result instanceof Path || result instanceof ConvertedProjection)) {
+            throw new ExpressionTransformationException(String.format(
+                    "Translation of key path '%s' is not a path: %s",
+                    path,
+                    result));
+        }
+        if (!path.getType().isAssignableFrom(result.getType())) {
+            throw new ExpressionTransformationException(String.format(
+                    "Translation of key path '%s' is not of a compatible type: %s vs %s",
+                    path,
+                    path.getType(),
+                    result.getType()));
+        }
+        return (Expression<U>) result;
+    }
+
+    /**
+     * Translates the specified key path expression with the specified
+     * visitor.
+     * <p>
+     * The sources of {@code ConvertedProjection} instances are translated
+     * preserving the value conversion. Value mapped paths are translated
+     * to {@code ConvertedProjection} instances.
+     * 
+     * @param expr The key path expression
+     * @param visitor The visitor
+     * @return The translated key path expression
+     * @throws ExpressionTransformationException If an exception occurs
+     * @see ValueMappedPathTransformer#translateKeyPath(Expression)
+     */
+    protected static Expression<?> translateKeyPath(
+            final @NotNull Expression<?> expr,
+            final @NotNull Visitor<Expression<?>, ?> visitor) {
+        if (expr instanceof ConvertedProjection) {
+            final ConvertedProjection<?, ?> projection = (ConvertedProjection<?, ?>) expr;
+            return projection.withSource(translateKeyPath(projection.getSource(), visitor));
+        } else if (visitor instanceof ChainedExpressionTransformer) {
+            Expression<?> result = expr;
+            for (final Visitor<Expression<?>, ?> delegate :
+                    ((ChainedExpressionTransformer) visitor).getVisitors()) {
+                result = translateKeyPath(result, delegate);
+            }
+            return result;
+        } else if (visitor instanceof ValueMappedPathTransformer) {
+            return ((ValueMappedPathTransformer<?, ?>) visitor).translateKeyPath(expr);
+        } else {
+            return expr.accept(visitor, null);
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -0,0 +1,334 @@
+package dev.orne.qdsl.wrap.impl.transform;
+
+/*-
+ * #%L
+ * Orne Querydsl Utils
+ * %%
+ * Copyright (C) 2022 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.util.Collection;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+
+import com.querydsl.core.JoinExpression;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.types.Constant;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.ExpressionBase;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.SubQueryExpression;
+import com.querydsl.core.types.TemplateExpression;
+import com.querydsl.core.types.Visitor;
+
+/**
+ * Parameter expression which value is derived from the value of a source
+ * parameter through a {@code ValueTransformer}.
+ * <p>
+ * Created by expression transformers when a parameter is compared with or
+ * assigned to a path which values are stored with a different
+ * representation. The value bound to the source parameter must be
+ * converted and bound to this parameter before query execution.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2022-10
+ * @param <S> The source parameter type
+ * @param <T> The converted parameter type
+ * @since 0.1
+ * @see ValueTransformer
+ */
+public class ConvertedParam<S, T>
+extends ExpressionBase<T>
+implements ParamExpression<T> {
+
+    /** The serial version UID. */
+    private static final long serialVersionUID = 1L;
+
+    /** The source parameter. */
+    private final @NotNull ParamExpression<S> source;
+    /** The value transformer. */
+    private final @NotNull ValueTransformer<S, T> valueTransformer;
+
+    /**
+     * Creates a new instance.
+     * 
+     * @param type The converted parameter type
+     * @param source The source parameter
+     * @param valueTransformer The value transformer
+     */
+    public ConvertedParam(
+            final @NotNull Class<? extends T> type,
+            final @NotNull ParamExpression<S> source,
+            final @NotNull ValueTransformer<S, T> valueTransformer) {
+        super(Validate.notNull(type, "The parameter type cannot be null"));
+        this.source = Validate.notNull(source, "The source parameter cannot be null");
+        this.valueTransformer = Validate.notNull(valueTransformer, "The value transformer cannot be null");
+    }
+
+    /**
+     * Returns the source parameter.
+     * 
+     * @return The source parameter
+     */
+    public @NotNull ParamExpression<S> getSource() {
+        return this.source;
+    }
+
+    /**
+     * Returns the value transformer.
+     * 
+     * @return The value transformer
+     */
+    public @NotNull ValueTransformer<S, T> getValueTransformer() {
+        return this.valueTransformer;
+    }
+
+    /**
+     * Converts the specified source parameter value to the value of
+     * this parameter.
+     * 
+     * @param value The source parameter value
+     * @return The converted value
+     */
+    public T convert(
+            final S value) {
+        return this.valueTransformer.apply(value);
+    }
+
+    /**
+     * Converts the specified source parameter value to the value of
+     * this parameter, without compile time type checking.
+     * 
+     * @param value The source parameter value
+     * @return The converted value
+     * @throws ClassCastException If the value is not of the source
+     * parameter type
+     */
+    public T convertUnchecked(
+            final Object value) {
+        return convert(this.source.getType().cast(value));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getName() {
+        return this.source.getName();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isAnon() {
+        return this.source.isAnon();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getNotSetMessage() {
+        return this.source.getNotSetMessage();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <R, C> R accept(
+            final Visitor<R, C> v,
+            final C context) {
+        return v.visit(this, context);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(
+            final Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (obj == null || obj.getClass() != getClass()) {
+            return false;
+        }
+        final ConvertedParam<?, ?> other = (ConvertedParam<?, ?>) obj;
+        return getType().equals(other.getType())
+                && this.source.equals(other.source)
+                && this.valueTransformer.equals(other.valueTransformer);
+    }
+
+    /**
+     * Collects the converted parameters used in the specified expression,
+     * including the ones used in nested subqueries.
+     * 
+     * @param expr The expression to scan
+     * @param target The collection to add the found parameters to
+     */
+    public static void collect(
+            final Expression<?> expr,
+            final @NotNull Collection<? super ConvertedParam<?, ?>> target) {
+        Validate.notNull(target);
+        if (expr != null) {
+            expr.accept(Collector.INSTANCE, target);
+        }
+    }
+
+    /**
+     * Visitor that collects the converted parameters of expressions.
+     * 
+     * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+     * @version 1.0, 2022-10
+     * @since ConvertedParam 1.0
+     */
+    private static final class Collector
+    implements Visitor<Void, Collection<? super ConvertedParam<?, ?>>> {
+
+        /** The shared instance. */
+        private static final Collector INSTANCE = new Collector();
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Void visit(
+                final Constant<?> expr,
+                final Collection<? super ConvertedParam<?, ?>> context) {
+            return null;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Void visit(
+                final FactoryExpression<?> expr,
+                final Collection<? super ConvertedParam<?, ?>> context) {
+            visitAll(expr.getArgs(), context);
+            return null;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Void visit(
+                final Operation<?> expr,
+                final Collection<? super ConvertedParam<?, ?>> context) {
+            visitAll(expr.getArgs(), context);
+            return null;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Void visit(
+                final ParamExpression<?> expr,
+                final Collection<? super ConvertedParam<?, ?>> context) {
+            if (expr instanceof ConvertedParam) {
+                context.add((ConvertedParam<?, ?>) expr);
+            }
+            return null;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Void visit(
+                final Path<?> expr,
+                final Collection<? super ConvertedParam<?, ?>> context) {
+            return null;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Void visit(
+                final SubQueryExpression<?> expr,
+                final Collection<? super ConvertedParam<?, ?>> context) {
+            final QueryMetadata md = expr.getMetadata();
+            for (final JoinExpression join : md.getJoins()) {
+                visitNullable(join.getTarget(), context);
+                visitNullable(join.getCondition(), context);
+            }
+            visitNullable(md.getProjection(), context);
+            visitNullable(md.getWhere(), context);
+            visitNullable(md.getHaving(), context);
+            visitAll(md.getGroupBy(), context);
+            for (final OrderSpecifier<?> order : md.getOrderBy()) {
+                visitNullable(order.getTarget(), context);
+            }
+            return null;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Void visit(
+                final TemplateExpression<?> expr,
+                final Collection<? super ConvertedParam<?, ?>> context) {
+            for (final Object arg : expr.getArgs()) {
+                if (arg instanceof Expression) {
+                    ((Expression<?>) arg).accept(this, context);
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Visits the specified expressions.
+         * 
+         * @param exprs The expressions to visit
+         * @param context The collection to add the found parameters to
+         */
+        private void visitAll(
+                final Collection<? extends Expression<?>> exprs,
+                final Collection<? super ConvertedParam<?, ?>> context) {
+            for (final Expression<?> expr : exprs) {
+                visitNullable(expr, context);
+            }
+        }
+
+        /**
+         * Visits the specified expression, if not {@code null}.
+         * 
+         * @param expr The expression to visit
+         * @param context The collection to add the found parameters to
+         */
+        private void visitNullable(
+                final Expression<?> expr,
+                final Collection<? super ConvertedParam<?, ?>> context) {
+            if (expr != null) {
+                expr.accept(this, context);
+            }
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package dev.orne.qdsl.wrap.impl.transform;
+
+/*-
+ * #%L
+ * Orne Querydsl Utils
+ * %%
+ * Copyright (C) 2022 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.util.Collections;
+import java.util.List;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpressionBase;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Visitor;
+
+import dev.orne.qdsl.wrap.impl.ExpressionTransformationException;
+
+/**
+ * Projection expression which value is derived from the value of a source
+ * path through a {@code ValueTransformer}.
+ * <p>
+ * Created by expression transformers when a path which values are stored
+ * with a different representation is projected, for example to retrieve
+ * generated keys. The value retrieved for the source path is converted
+ * back to the representation of the original path.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2022-10
+ * @param <S> The source path type
+ * @param <T> The converted projection type
+ * @since 0.1
+ * @see ValueTransformer
+ */
+public class ConvertedProjection<S, T>
+extends FactoryExpressionBase<T> {
+
+    /** The serial version UID. */
+    private static final long serialVersionUID = 1L;
+
+    /** The source path. */
+    private final @NotNull Path<S> source;
+    /** The value transformer. */
+    private final @NotNull ValueTransformer<S, T> valueTransformer;
+
+    /**
+     * Creates a new instance.
+     * 
+     * @param type The converted projection type
+     * @param source The source path
+     * @param valueTransformer The value transformer
+     */
+    public ConvertedProjection(
+            final @NotNull Class<? extends T> type,
+            final @NotNull Path<S> source,
+            final @NotNull ValueTransformer<S, T> valueTransformer) {
+        super(Validate.notNull(type, "The projection type cannot be null"));
+        this.source = Validate.notNull(source, "The source path cannot be null");
+        this.valueTransformer = Validate.notNull(valueTransformer, "The value transformer cannot be null");
+    }
+
+    /**
+     * Returns the source path.
+     * 
+     * @return The source path
+     */
+    public @NotNull Path<S> getSource() {
+        return this.source;
+    }
+
+    /**
+     * Returns the value transformer.
+     * 
+     * @return The value transformer
+     */
+    public @NotNull ValueTransformer<S, T> getValueTransformer() {
+        return this.valueTransformer;
+    }
+
+    /**
+     * Converts the specified source path value to the value of this
+     * projection.
+     * 
+     * @param value The source path value
+     * @return The converted value
+     */
+    public T convert(
+            final S value) {
+        return this.valueTransformer.apply(value);
+    }
+
+    /**
+     * Returns a projection that converts the values of the specified
+     * translation of the source path with the value transformer of this
+     * instance.
+     * <p>
+     * If the translated source is another {@code ConvertedProjection}
+     * the value transformers of both projections are composed.
+     * 
+     * @param translated The translated source path
+     * @return The resulting projection
+     * @throws ExpressionTransformationException If the translated source
+     * is not a path or converted projection of the source path type
+     */
+    @SuppressWarnings("unchecked")
+    public @NotNull ConvertedProjection<?, T> withSource(
+            final @NotNull Expression<?> translated) {
+        Validate.notNull(translated, "The translated source cannot be null");
+        if (this.source.equals(translated)) {
+            return this;
+        }
+        if (this.source.getType().isAssignableFrom(translated.getType())) {
+            if (translated instanceof Path) {
+                return new ConvertedProjection<>(
+                        getType(),
+                        (Path<S>) translated,
+                        this.valueTransformer);
+            } else if (translated instanceof ConvertedProjection) {
+                return compose((ConvertedProjection<?, S>) translated);
+            }
+        }
+        throw new ExpressionTransformationException(String.format(
+                "Translation of converted projection source '%s' is not supported: %s",
+                this.source,
+                translated));
+    }
+
+    /**
+     * Returns a projection that converts the values of the source path
+     * of the specified projection with the value transformers of both
+     * projections.
+     * 
+     * @param <R> The source path type of the inner projection
+     * @param inner The inner projection
+     * @return The resulting projection
+     */
+    protected <R> @NotNull ConvertedProjection<R, T> compose(
+            final @NotNull ConvertedProjection<R, S> inner) {
+        return new ConvertedProjection<>(
+                getType(),
+                inner.getSource(),
+                value -> this.valueTransformer.apply(inner.convert(value)));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull List<Expression<?>> getArgs() {
+        return Collections.singletonList(this.source);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public T newInstance(
+            final Object... args) {
+        return convert(this.source.getType().cast(args[0]));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <R, C> R accept(
+            final Visitor<R, C> v,
+            final C context) {
+        return v.visit(this, context);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(
+            final Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (obj == null || obj.getClass() != getClass()) {
+            return false;
+        }
+        final ConvertedProjection<?, ?> other = (ConvertedProjection<?, ?>) obj;
+        return getType().equals(other.getType())
+                && this.source.equals(other.source)
+                && this.valueTransformer.equals(other.valueTransformer);
+    }
+}
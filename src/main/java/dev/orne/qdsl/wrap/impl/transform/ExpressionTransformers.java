@@ -24,6 +24,8 @@ package dev.orne.qdsl.wrap.impl.transform;
 
 import javax.validation.constraints.NotNull;
 
+import org.apache.commons.lang3.Validate;
+
 import com.querydsl.core.types.EntityPath;
 import com.querydsl.core.types.Expression;
 import com.querydsl.core.types.Path;
@@ -88,4 +90,47 @@ public final class ExpressionTransformers {
                 .toPath(target)
                 .build();
     }
+
+    /**
+     * Creates a property path translator that translates source path
+     * references to the target path, converting the compared and
+     * assigned values with the specified value transformer.
+     * 
+     * @param <S> The source property type
+     * @param <T> The target property type
+     * @param source The source property path
+     * @param target The target property path
+     * @param valueTransformer The values transformer
+     * @return The property path translator
+     */
+    public static <S, T> ValueMappedPathTransformer<S, T> mapPath(
+            final @NotNull Path<S> source,
+            final @NotNull Path<T> target,
+            final @NotNull ValueTransformer<S, T> valueTransformer) {
+        return new ValueMappedPathTransformer<>(source, target, valueTransformer);
+    }
+
+    /**
+     * Creates a property path translator that translates source path
+     * references to the target path, converting the compared and
+     * assigned values with the specified value transformer and the
+     * retrieved values, like generated keys, with the specified inverse
+     * value transformer.
+     * 
+     * @param <S> The source property type
+     * @param <T> The target property type
+     * @param source The source property path
+     * @param target The target property path
+     * @param valueTransformer The values transformer
+     * @param inverseTransformer The inverse values transformer
+     * @return The property path translator
+     */
+    public static <S, T> ValueMappedPathTransformer<S, T> mapPath(
+            final @NotNull Path<S> source,
+            final @NotNull Path<T> target,
+            final @NotNull ValueTransformer<S, T> valueTransformer,
+            final @NotNull ValueTransformer<T, S> inverseTransformer) {
+        Validate.notNull(inverseTransformer, "The inverse value transformer cannot be null");
+        return new ValueMappedPathTransformer<>(source, target, valueTransformer, inverseTransformer);
+    }
 }
@@ -0,0 +1,173 @@
+package dev.orne.qdsl.wrap.impl.transform;
+
+/*-
+ * #%L
+ * Orne Querydsl Utils
+ * %%
+ * Copyright (C) 2022 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+import com.querydsl.core.types.Constant;
+import com.querydsl.core.types.ConstantImpl;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Ops;
+
+/**
+ * Expression transformer that pads the collection constants of
+ * {@code IN} and {@code NOT IN} conditions to a fixed set of sizes,
+ * repeating the last value of the collection.
+ * <p>
+ * QueryDSL serializes each element of a collection constant as a
+ * positional bind parameter, so the statement text changes with the
+ * size of the collection. Bucketing the collection sizes limits the
+ * number of distinct statements, improving the hit ratio of driver
+ * and server side statement caches. Repeated values do not change
+ * the result of the conditions.
+ * <p>
+ * Collections bigger than the biggest bucket size are padded to
+ * a multiple of the biggest bucket size.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2022-10
+ * @since 0.1
+ */
+public class InListBucketingTransformer
+extends BaseExpressionTransformer<Void> {
+
+    /** The default bucket sizes. */
+    public static final int[] DEFAULT_BUCKET_SIZES = { 1, 4, 16, 64, 256, 1024 };
+    /** Shared instance with the default bucket sizes. */
+    public static final InListBucketingTransformer DEFAULT =
+            new InListBucketingTransformer(DEFAULT_BUCKET_SIZES);
+
+    /** The ascending bucket sizes. */
+    private final @NotNull int[] bucketSizes;
+
+    /**
+     * Creates a new instance.
+     * 
+     * @param bucketSizes The bucket sizes
+     */
+    public InListBucketingTransformer(
+            final @NotNull int... bucketSizes) {
+        super();
+        Validate.notNull(bucketSizes, "The bucket sizes cannot be null");
+        Validate.isTrue(bucketSizes.length > 0, "At least a bucket size is required");
+        this.bucketSizes = bucketSizes.clone();
+        Arrays.sort(this.bucketSizes);
+        Validate.isTrue(this.bucketSizes[0] > 0, "Bucket sizes must be positive");
+    }
+
+    /**
+     * Returns the ascending bucket sizes.
+     * 
+     * @return The ascending bucket sizes
+     */
+    public @NotNull int[] getBucketSizes() {
+        return this.bucketSizes.clone();
+    }
+
+    /**
+     * Returns the bucket size for collections of the specified size.
+     * 
+     * @param size The collection size
+     * @return The bucket size
+     */
+    public int getBucketSize(
+            final int size) {
+        for (final int bucketSize : this.bucketSizes) {
+            if (size <= bucketSize) {
+                return bucketSize;
+            }
+        }
+        final int maxSize = this.bucketSizes[this.bucketSizes.length - 1];
+        return ((size + maxSize - 1) / maxSize) * maxSize;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Expression<?> visit(
+            final Operation<?> expr,
+            final Void context) {
+        final Expression<?> result = super.visit(expr, context);
+        if (result instanceof Operation) {
+            final Operation<?> operation = (Operation<?>) result;
+            if ((operation.getOperator() == Ops.IN || operation.getOperator() == Ops.NOT_IN)
+                    && operation.getArgs().size() == 2
+                    && operation.getArg(1) instanceof Constant) {
+                final Object values = ((Constant<?>) operation.getArg(1)).getConstant();
+                if (values instanceof Collection && !((Collection<?>) values).isEmpty()) {
+                    final Collection<?> collection = (Collection<?>) values;
+                    final int bucketSize = getBucketSize(collection.size());
+                    if (bucketSize != collection.size()) {
+                        return ExpressionUtils.predicate(
+                                operation.getOperator(),
+                                operation.getArg(0),
+                                ConstantImpl.create(pad(collection, bucketSize)));
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Pads the specified collection to the specified size repeating
+     * its last element.
+     * 
+     * @param values The collection to pad
+     * @param size The target size
+     * @return The padded values
+     */
+    protected @NotNull List<?> pad(
+            final @NotNull Collection<?> values,
+            final int size) {
+        final List<Object> result = new ArrayList<>(size);
+        result.addAll(values);
+        final Object last = result.get(result.size() - 1);
+        while (result.size() < size) {
+            result.add(last);
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+                .append("bucketSizes", this.bucketSizes)
+                .build();
+    }
+}
@@ -30,6 +30,7 @@ import org.apache.commons.lang3.Validate;
 
 import com.querydsl.core.types.Constant;
 import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.ParamExpression;
 import com.querydsl.core.types.Path;
 import com.querydsl.core.types.Visitor;
 import com.querydsl.core.types.dsl.Expressions;
@@ -88,7 +89,7 @@ extends StoredValuesVisitor<Void, Void> {
         Validate.notNull(path, "The path cannot be null");
         Validate.notNull(valueTransformer, "The value transformer cannot be null");
         Validate.notNull(exprTransformer, "The expression transformer cannot be null");
-        return transform(path, createValueTransformation(valueTransformer, exprTransformer));
+        return transform(path, createValueTransformation(path.getType(), valueTransformer, exprTransformer));
     }
 
     /**
@@ -156,18 +157,47 @@ extends StoredValuesVisitor<Void, Void> {
         Validate.notNull(target, "The target path cannot be null");
         Validate.notNull(valueTransformer, "The value transformer cannot be null");
         Validate.notNull(exprTransformer, "The expression transformer cannot be null");
-        return replace(source, target, createValueTransformation(valueTransformer, exprTransformer));
+        return replace(source, target, createValueTransformation(target.getType(), valueTransformer, exprTransformer));
     }
 
     static <S, T> @NotNull SimpleExpressionTransformer<S, T> createValueTransformation(
             final @NotNull ValueTransformer<S, T> valueTransformer,
             final @NotNull SimpleExpressionTransformer<S, T> exprTransformer) {
+        return createValueTransformation(null, valueTransformer, exprTransformer);
+    }
+
+    /**
+     * Creates a value expression transformation that converts constant
+     * values with the specified value transformer and parameters to
+     * {@code ConvertedParam} instances of the specified type, delegating
+     * other expressions to the specified expression transformer.
+     * <p>
+     * If {@code type} is {@code null} parameters are delegated to the
+     * expression transformer.
+     * 
+     * @param <S> The source value type
+     * @param <T> The target value type
+     * @param type The target value type
+     * @param valueTransformer The value transformer
+     * @param exprTransformer The expression transformer
+     * @return The value expression transformation
+     * @see ConvertedParam
+     */
+    static <S, T> @NotNull SimpleExpressionTransformer<S, T> createValueTransformation(
+            final Class<? extends T> type,
+            final @NotNull ValueTransformer<S, T> valueTransformer,
+            final @NotNull SimpleExpressionTransformer<S, T> exprTransformer) {
         return valueExpr -> {
             final Expression<T> newValue;
             if (valueExpr instanceof Constant) {
                 final S value = valueExpr.getType().cast(
                         ((Constant<?>) valueExpr).getConstant());
                 newValue = Expressions.constant(valueTransformer.apply(value));
+            } else if (type != null && valueExpr instanceof ParamExpression) {
+                newValue = new ConvertedParam<>(
+                        type,
+                        (ParamExpression<S>) valueExpr,
+                        valueTransformer);
             } else {
                 final Expression<S> tvalue = valueExpr;
                 newValue = exprTransformer.apply(tvalue);
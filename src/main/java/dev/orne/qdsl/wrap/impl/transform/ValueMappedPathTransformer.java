@@ -0,0 +1,303 @@
+package dev.orne.qdsl.wrap.impl.transform;
+
+/*-
+ * #%L
+ * Orne Querydsl Utils
+ * %%
+ * Copyright (C) 2022 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+import com.querydsl.core.types.Constant;
+import com.querydsl.core.types.ConstantImpl;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.Path;
+
+import dev.orne.qdsl.wrap.StoredValues;
+import dev.orne.qdsl.wrap.impl.ExpressionTransformationException;
+
+/**
+ * Expression transformer that translates a source path to a target path
+ * which values are stored with a different representation.
+ * <p>
+ * Constant values compared with or assigned to the source path are
+ * converted with the configured {@code ValueTransformer}, including
+ * the elements of collection constants of {@code IN} conditions.
+ * Parameters are translated to {@code ConvertedParam} instances,
+ * so values bound to the source parameters are converted before
+ * query execution.
+ * <p>
+ * Only boolean operations can be applied to the source path. Any other
+ * operation, or the comparison with non constant expressions, causes
+ * a {@code ExpressionTransformationException}.
+ * 
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2022-10
+ * @param <S> The source path type
+ * @param <T> The target path type
+ * @since 0.1
+ * @see ConvertedParam
+ */
+public class ValueMappedPathTransformer<S, T>
+extends BaseExpressionTransformer<Void> {
+
+    /** The source path. */
+    private final @NotNull Path<S> source;
+    /** The target path. */
+    private final @NotNull Path<T> target;
+    /** The values transformer. */
+    private final @NotNull ValueTransformer<S, T> valueTransformer;
+    /** The inverse values transformer. */
+    private final ValueTransformer<T, S> inverseTransformer;
+
+    /**
+     * Creates a new instance.
+     * 
+     * @param source The source path
+     * @param target The target path
+     * @param valueTransformer The values transformer
+     */
+    public ValueMappedPathTransformer(
+            final @NotNull Path<S> source,
+            final @NotNull Path<T> target,
+            final @NotNull ValueTransformer<S, T> valueTransformer) {
+        this(source, target, valueTransformer, null);
+    }
+
+    /**
+     * Creates a new instance.
+     * <p>
+     * The inverse values transformer, if provided, allows the retrieval
+     * of the values of the source path, like generated keys.
+     * 
+     * @param source The source path
+     * @param target The target path
+     * @param valueTransformer The values transformer
+     * @param inverseTransformer The inverse values transformer
+     */
+    public ValueMappedPathTransformer(
+            final @NotNull Path<S> source,
+            final @NotNull Path<T> target,
+            final @NotNull ValueTransformer<S, T> valueTransformer,
+            final ValueTransformer<T, S> inverseTransformer) {
+        super();
+        this.source = Validate.notNull(source, "The source path cannot be null");
+        this.target = Validate.notNull(target, "The target path cannot be null");
+        this.valueTransformer = Validate.notNull(valueTransformer, "The value transformer cannot be null");
+        this.inverseTransformer = inverseTransformer;
+    }
+
+    /**
+     * Returns the source path.
+     * 
+     * @return The source path
+     */
+    public @NotNull Path<S> getSource() {
+        return this.source;
+    }
+
+    /**
+     * Returns the target path.
+     * 
+     * @return The target path
+     */
+    public @NotNull Path<T> getTarget() {
+        return this.target;
+    }
+
+    /**
+     * Returns the values transformer.
+     * 
+     * @return The values transformer
+     */
+    public @NotNull ValueTransformer<S, T> getValueTransformer() {
+        return this.valueTransformer;
+    }
+
+    /**
+     * Returns the inverse values transformer.
+     * 
+     * @return The inverse values transformer, or {@code null} if not
+     * configured
+     */
+    public ValueTransformer<T, S> getInverseTransformer() {
+        return this.inverseTransformer;
+    }
+
+    /**
+     * Translates the specified key path expression. The source path is
+     * translated to a {@code ConvertedProjection} of the target path
+     * that converts the retrieved values with the inverse values
+     * transformer. Any other expression is visited as usual.
+     * 
+     * @param expr The key path expression
+     * @return The translated key path expression
+     * @throws ExpressionTransformationException If the expression is the
+     * source path and no inverse values transformer is configured
+     * @see ConvertedProjection
+     */
+    public Expression<?> translateKeyPath(
+            final @NotNull Expression<?> expr) {
+        if (!this.source.equals(expr)) {
+            return expr.accept(this, null);
+        }
+        if (this.inverseTransformer == null) {
+            throw new ExpressionTransformationException(String.format(
+                    "Values of value mapped path %s cannot be retrieved without inverse value transformer",
+                    this.source));
+        }
+        return new ConvertedProjection<>(
+                this.source.getType(),
+                this.target,
+                this.inverseTransformer);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Expression<?> visit(
+            final Path<?> expr,
+            final Void context) {
+        if (this.source.equals(expr))  {
+            return this.target;
+        } else {
+            return super.visit(expr, context);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Expression<?> visit(
+            final Operation<?> expr,
+            final Void context) {
+        if (!expr.getArgs().contains(this.source)) {
+            return super.visit(expr, context);
+        }
+        if (!Boolean.class.equals(expr.getType())) {
+            throw new ExpressionTransformationException(String.format(
+                    "Operation '%s' is not supported over value mapped path %s",
+                    expr,
+                    this.source));
+        }
+        final List<Expression<?>> args = expr.getArgs();
+        final Expression<?>[] newArgs = new Expression<?>[args.size()];
+        for (int i = 0; i < newArgs.length; i++) {
+            final Expression<?> arg = args.get(i);
+            if (this.source.equals(arg)) {
+                newArgs[i] = this.target;
+            } else {
+                newArgs[i] = convertValue(arg);
+            }
+        }
+        return ExpressionUtils.predicate(expr.getOperator(), newArgs);
+    }
+
+    /**
+     * Converts the specified value expression, used in an operation over
+     * the source path, to a value expression of the target path.
+     * 
+     * @param value The value expression
+     * @return The converted value expression
+     * @throws ExpressionTransformationException If the value expression
+     * is not a constant or a parameter
+     */
+    @SuppressWarnings("unchecked")
+    protected @NotNull Expression<?> convertValue(
+            final @NotNull Expression<?> value) {
+        if (value instanceof Constant) {
+            final Object constant = ((Constant<?>) value).getConstant();
+            if (constant instanceof Collection) {
+                final List<T> values = new ArrayList<>();
+                for (final Object element : (Collection<?>) constant) {
+                    values.add(convert(element));
+                }
+                return ConstantImpl.create(values);
+            }
+            return ConstantImpl.create(convert(constant));
+        } else if (value instanceof ParamExpression &&
+                this.source.getType().isAssignableFrom(value.getType())) {
+            return new ConvertedParam<>(
+                    this.target.getType(),
+                    (ParamExpression<S>) value,
+                    this.valueTransformer);
+        }
+        throw new ExpressionTransformationException(String.format(
+                "Value expression '%s' compared with value mapped path %s is not supported",
+                value,
+                this.source));
+    }
+
+    /**
+     * Converts the specified source path value.
+     * 
+     * @param value The source path value
+     * @return The target path value
+     */
+    protected T convert(
+            final Object value) {
+        return this.valueTransformer.apply(this.source.getType().cast(value));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull StoredValues visit(
+            final @NotNull StoredValues expr,
+            final Void context) {
+        if (expr.contains(this.source)) {
+            StoredValuesTransformer.replace(
+                    this.source,
+                    this.target,
+                    this.valueTransformer,
+                    value -> {
+                        throw new ExpressionTransformationException(String.format(
+                                "Value expression '%s' assigned to value mapped path %s is not supported",
+                                value,
+                                this.source));
+                    }).visit(expr, null);
+        }
+        return expr;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+                .append("source", this.source)
+                .append("target", this.target)
+                .build();
+    }
+}
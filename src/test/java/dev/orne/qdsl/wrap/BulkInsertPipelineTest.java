@@ -0,0 +1,219 @@
+package dev.orne.qdsl.wrap;
+
+/*-
+ * #%L
+ * Orne Querydsl Utils
+ * %%
+ * Copyright (C) 2022 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberPath;
+
+/**
+ * Unit tests for {@code BulkInsertPipeline}.
+ *
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2022-10
+ * @since 0.1
+ * @see BulkInsertPipeline
+ */
+@Tag("ut")
+class BulkInsertPipelineTest {
+
+    private static final NumberPath<Integer> ID = Expressions.numberPath(Integer.class, "id");
+    private static final Function<Integer, StoredValues> BINDING =
+            value -> StoredValues.with(StoredValue.of(ID, value));
+
+    /**
+     * Unit test for {@link BulkInsertPipeline#BulkInsertPipeline(WrappedInsertClauseProvider, EntityPath, Function)}.
+     */
+    @Test
+    void testConstructor() {
+        final WrappedInsertClauseProvider provider = mock(WrappedInsertClauseProvider.class);
+        final EntityPath<?> entity = mock(EntityPath.class);
+        final BulkInsertPipeline<Integer> pipeline = new BulkInsertPipeline<>(provider, entity, BINDING);
+        assertSame(provider, pipeline.getProvider());
+        assertSame(entity, pipeline.getEntity());
+        assertSame(BINDING, pipeline.getBinding());
+        assertEquals(BulkInsertPipeline.DEFAULT_CHUNK_SIZE, pipeline.getChunkSize());
+        assertNull(pipeline.getExecutor());
+        then(provider).should().validateSupported(entity);
+        assertSame(pipeline, pipeline.setChunkSize(10));
+        assertEquals(10, pipeline.getChunkSize());
+        assertThrows(IllegalArgumentException.class, () -> {
+            pipeline.setChunkSize(0);
+        });
+        final ExecutorService executor = mock(ExecutorService.class);
+        assertSame(pipeline, pipeline.setExecutor(executor));
+        assertSame(executor, pipeline.getExecutor());
+        assertThrows(NullPointerException.class, () -> {
+            new BulkInsertPipeline<>(null, entity, BINDING);
+        });
+        assertThrows(NullPointerException.class, () -> {
+            new BulkInsertPipeline<>(provider, null, BINDING);
+        });
+        assertThrows(NullPointerException.class, () -> {
+            new BulkInsertPipeline<>(provider, entity, null);
+        });
+    }
+
+    /**
+     * Unit test for {@link BulkInsertPipeline#execute(Iterable)}.
+     */
+    @Test
+    void testExecute() {
+        final WrappedInsertClauseProvider provider = mock(WrappedInsertClauseProvider.class);
+        final EntityPath<?> entity = mock(EntityPath.class);
+        final List<ExtendedInsertClause<?>> clauses = mockClauses(provider, entity, 3);
+        final BulkInsertPipeline<Integer> pipeline = new BulkInsertPipeline<>(provider, entity, BINDING)
+                .setChunkSize(2);
+        assertEquals(5, pipeline.execute(Arrays.asList(1, 2, 3, 4, 5)));
+        then(provider).should(times(3)).insert(entity);
+        then(clauses.get(0)).should().set(StoredValues.with(StoredValue.of(ID, 1)));
+        then(clauses.get(0)).should().set(StoredValues.with(StoredValue.of(ID, 2)));
+        then(clauses.get(0)).should(times(2)).addBatch();
+        then(clauses.get(0)).should().execute();
+        then(clauses.get(2)).should().set(StoredValues.with(StoredValue.of(ID, 5)));
+        then(clauses.get(2)).should(times(1)).addBatch();
+        then(clauses.get(2)).should().execute();
+    }
+
+    /**
+     * Unit test for {@link BulkInsertPipeline#execute(Stream)}.
+     */
+    @Test
+    void testExecuteStream() {
+        final WrappedInsertClauseProvider provider = mock(WrappedInsertClauseProvider.class);
+        final EntityPath<?> entity = mock(EntityPath.class);
+        mockClauses(provider, entity, 3);
+        final BulkInsertPipeline<Integer> pipeline = new BulkInsertPipeline<>(provider, entity, BINDING)
+                .setChunkSize(2);
+        assertEquals(5, pipeline.execute(IntStream.rangeClosed(1, 5).boxed()));
+        then(provider).should(times(3)).insert(entity);
+        assertEquals(0, pipeline.execute(Collections.emptyList()));
+        then(provider).should(times(3)).insert(entity);
+    }
+
+    /**
+     * Unit test for {@link BulkInsertPipeline#execute(Iterable)}.
+     */
+    @Test
+    void testExecuteExecutor() {
+        final WrappedInsertClauseProvider provider = mock(WrappedInsertClauseProvider.class);
+        final EntityPath<?> entity = mock(EntityPath.class);
+        final List<ExtendedInsertClause<?>> clauses = mockClauses(provider, entity, 3);
+        final List<Thread> threads = Collections.synchronizedList(new ArrayList<>());
+        for (final ExtendedInsertClause<?> clause : clauses) {
+            given(clause.execute()).willAnswer(inv -> {
+                threads.add(Thread.currentThread());
+                return 2L;
+            });
+        }
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final BulkInsertPipeline<Integer> pipeline = new BulkInsertPipeline<>(provider, entity, BINDING)
+                    .setChunkSize(2)
+                    .setExecutor(executor);
+            assertEquals(6, pipeline.execute(Arrays.asList(1, 2, 3, 4, 5, 6)));
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(3, threads.size());
+        for (final Thread thread : threads) {
+            assertNotSame(Thread.currentThread(), thread);
+        }
+    }
+
+    /**
+     * Unit test for {@link BulkInsertPipeline#execute(Iterable)}.
+     */
+    @Test
+    void testExecuteFailure() {
+        final WrappedInsertClauseProvider provider = mock(WrappedInsertClauseProvider.class);
+        final EntityPath<?> entity = mock(EntityPath.class);
+        final List<ExtendedInsertClause<?>> clauses = mockClauses(provider, entity, 3);
+        final RuntimeException failure = new RuntimeException();
+        given(clauses.get(1).execute()).willThrow(failure);
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final BulkInsertPipeline<Integer> pipeline = new BulkInsertPipeline<>(provider, entity, BINDING)
+                    .setChunkSize(2)
+                    .setExecutor(executor);
+            final RuntimeException result = assertThrows(RuntimeException.class, () -> {
+                pipeline.execute(Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8));
+            });
+            assertSame(failure, result);
+        } finally {
+            executor.shutdownNow();
+        }
+        then(clauses.get(2)).should(never()).execute();
+    }
+
+    /**
+     * Unit test for {@link WrappedInsertClauseProvider#insertAll(EntityPath, Iterable, Function)}
+     * and {@link WrappedInsertClauseProvider#insertAll(EntityPath, Stream, Function)}.
+     */
+    @Test
+    void testProviderInsertAll() {
+        final WrappedInsertClauseProvider provider = mock(WrappedInsertClauseProvider.class, CALLS_REAL_METHODS);
+        final EntityPath<?> entity = mock(EntityPath.class);
+        willDoNothing().given(provider).validateSupported(entity);
+        final ExtendedInsertClause<?> clause = mock(ExtendedInsertClause.class);
+        willReturn(clause).given(provider).insert(entity);
+        given(clause.execute()).willReturn(2L);
+        assertEquals(2, provider.insertAll(entity, Arrays.asList(1, 2), BINDING));
+        assertEquals(2, provider.insertAll(entity, Stream.of(1, 2), BINDING));
+        then(clause).should(times(4)).addBatch();
+        then(clause).should(times(2)).execute();
+        final BulkInsertPipeline<Integer> pipeline = provider.bulkInsert(entity, BINDING);
+        assertSame(provider, pipeline.getProvider());
+        assertSame(entity, pipeline.getEntity());
+        assertSame(BINDING, pipeline.getBinding());
+    }
+
+    private static List<ExtendedInsertClause<?>> mockClauses(
+            final WrappedInsertClauseProvider provider,
+            final EntityPath<?> entity,
+            final int count) {
+        final List<ExtendedInsertClause<?>> clauses = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            final ExtendedInsertClause<?> clause = mock(ExtendedInsertClause.class);
+            given(clause.execute()).willReturn(i == count - 1 ? 1L : 2L);
+            clauses.add(clause);
+        }
+        given(provider.insert(entity)).willAnswer(inv -> clauses.remove(0));
+        return new ArrayList<>(clauses);
+    }
+}
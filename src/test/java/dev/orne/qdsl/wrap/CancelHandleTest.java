@@ -0,0 +1,79 @@
+package dev.orne.qdsl.wrap;
+
+/*-
+ * #%L
+ * Orne Querydsl Utils
+ * %%
+ * Copyright (C) 2022 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.*;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@code CancelHandle}.
+ *
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2022-10
+ * @since 0.1
+ * @see CancelHandle
+ */
+@Tag("ut")
+class CancelHandleTest {
+
+    /**
+     * Unit test for {@link CancelHandle#cancel()}.
+     */
+    @Test
+    void testCancel() {
+        final CancelHandle handle = new CancelHandle();
+        final Runnable callback = mock(Runnable.class);
+        final Runnable removed = mock(Runnable.class);
+        assertFalse(handle.isCancelled());
+        assertDoesNotThrow(() -> handle.checkCancelled());
+        handle.register(callback);
+        handle.register(removed);
+        handle.unregister(removed);
+        then(callback).shouldHaveNoInteractions();
+        handle.cancel();
+        assertTrue(handle.isCancelled());
+        assertThrows(QueryCancelledException.class, () -> {
+            handle.checkCancelled();
+        });
+        then(callback).should().run();
+        then(removed).shouldHaveNoInteractions();
+    }
+
+    /**
+     * Unit test for {@link CancelHandle#register(Runnable)}.
+     */
+    @Test
+    void testRegisterCancelled() {
+        final CancelHandle handle = new CancelHandle();
+        final Runnable callback = mock(Runnable.class);
+        handle.cancel();
+        handle.register(callback);
+        then(callback).should().run();
+        assertThrows(NullPointerException.class, () -> {
+            handle.register(null);
+        });
+    }
+}
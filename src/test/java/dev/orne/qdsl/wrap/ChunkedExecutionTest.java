@@ -0,0 +1,112 @@
+package dev.orne.qdsl.wrap;
+
+/*-
+ * #%L
+ * Orne Querydsl Utils
+ * %%
+ * Copyright (C) 2022 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberPath;
+
+/**
+ * Unit tests for {@code ChunkedExecution}.
+ *
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2022-10
+ * @since 0.1
+ * @see ChunkedExecution
+ */
+@Tag("ut")
+class ChunkedExecutionTest {
+
+    /**
+     * Unit test for {@link ChunkedExecution#ChunkedExecution(int)}.
+     */
+    @Test
+    void testConstructor() {
+        final ChunkedExecution execution = new ChunkedExecution(100);
+        assertEquals(100, execution.getChunkSize());
+        assertNull(execution.getKey());
+        assertEquals(0, execution.getPause());
+        assertNull(execution.getListener());
+        assertThrows(IllegalArgumentException.class, () -> {
+            new ChunkedExecution(0);
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            new ChunkedExecution(-1);
+        });
+    }
+
+    /**
+     * Unit test for {@link ChunkedExecution#setKey(Path)}.
+     */
+    @Test
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    void testSetKey() {
+        final NumberPath<Long> key = Expressions.numberPath(Long.class, "key");
+        final ChunkedExecution execution = new ChunkedExecution(100);
+        assertSame(execution, execution.setKey(key));
+        assertSame(key, execution.getKey());
+        assertSame(execution, execution.setKey(null));
+        assertNull(execution.getKey());
+        final Path wrongType = Expressions.path(Object.class, "key");
+        assertThrows(IllegalArgumentException.class, () -> {
+            execution.setKey(wrongType);
+        });
+    }
+
+    /**
+     * Unit test for {@link ChunkedExecution#setPause(long, TimeUnit)}.
+     */
+    @Test
+    void testSetPause() {
+        final ChunkedExecution execution = new ChunkedExecution(100);
+        assertSame(execution, execution.setPause(2, TimeUnit.SECONDS));
+        assertEquals(2000, execution.getPause());
+        assertSame(execution, execution.setPause(0, TimeUnit.SECONDS));
+        assertEquals(0, execution.getPause());
+        assertThrows(IllegalArgumentException.class, () -> {
+            execution.setPause(-1, TimeUnit.SECONDS);
+        });
+        assertThrows(NullPointerException.class, () -> {
+            execution.setPause(1, null);
+        });
+    }
+
+    /**
+     * Unit test for {@link ChunkedExecution#setListener(ChunkedExecution.Listener)}.
+     */
+    @Test
+    void testSetListener() {
+        final ChunkedExecution.Listener listener = (chunk, affected, total) -> {};
+        final ChunkedExecution execution = new ChunkedExecution(100);
+        assertSame(execution, execution.setListener(listener));
+        assertSame(listener, execution.getListener());
+        assertSame(execution, execution.setListener(null));
+        assertNull(execution.getListener());
+    }
+}
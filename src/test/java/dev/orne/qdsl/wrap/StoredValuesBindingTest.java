@@ -0,0 +1,178 @@
+package dev.orne.qdsl.wrap;
+
+/*-
+ * #%L
+ * Orne Querydsl Utils
+ * %%
+ * Copyright (C) 2022 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.core.types.dsl.StringPath;
+
+import dev.orne.qdsl.QBeanBuilder;
+
+/**
+ * Unit tests for {@code StoredValuesBinding}.
+ *
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2022-10
+ * @since 0.1
+ * @see StoredValuesBinding
+ */
+@Tag("ut")
+class StoredValuesBindingTest {
+
+    private static final NumberPath<Integer> ID = Expressions.numberPath(Integer.class, "id");
+    private static final StringPath NAME = Expressions.stringPath("name");
+
+    /**
+     * Unit test for {@link StoredValuesBinding#of(Class)}.
+     */
+    @Test
+    void testOf() {
+        final StoredValuesBinding<Bean> binding = StoredValuesBinding.of(Bean.class);
+        assertSame(Bean.class, binding.getType());
+        assertTrue(binding.getBindings().isEmpty());
+        assertFalse(binding.isFieldAccess());
+        assertSame(binding, binding.bind("id", ID));
+        assertSame(ID, binding.getBindings().get("id"));
+        assertSame(binding, binding.withFieldAccess(true));
+        assertTrue(binding.isFieldAccess());
+        assertThrows(NullPointerException.class, () -> {
+            StoredValuesBinding.of(null);
+        });
+        assertThrows(NullPointerException.class, () -> {
+            binding.bind(null, ID);
+        });
+        assertThrows(NullPointerException.class, () -> {
+            binding.bind("id", null);
+        });
+    }
+
+    /**
+     * Unit test for {@link StoredValuesBinding#apply(Object)}.
+     */
+    @Test
+    void testApply() {
+        final StoredValuesBinding<Bean> binding = StoredValuesBinding.of(Bean.class)
+                .bind("id", ID)
+                .bind("name", NAME);
+        final StoredValues expected = new StoredValues();
+        expected.add(ID, 1);
+        expected.add(NAME, "Bean 1");
+        assertEquals(expected, binding.apply(new Bean(1, "Bean 1")));
+        final StoredValues expectedNull = new StoredValues();
+        expectedNull.add(ID, 2);
+        expectedNull.add(NAME, (String) null);
+        assertEquals(expectedNull, binding.apply(new Bean(2, null)));
+        assertThrows(NullPointerException.class, () -> {
+            binding.apply(null);
+        });
+    }
+
+    /**
+     * Unit test for {@link StoredValuesBinding#apply(Object)}.
+     */
+    @Test
+    void testApplyFieldAccess() {
+        final StoredValuesBinding<Bean> binding = StoredValuesBinding.of(Bean.class)
+                .bind("code", NAME)
+                .withFieldAccess(true);
+        final Bean bean = new Bean(1, "Bean 1");
+        final StoredValues expected = new StoredValues();
+        expected.add(NAME, "CODE-1");
+        assertEquals(expected, binding.apply(bean));
+        binding.withFieldAccess(false);
+        assertThrows(IllegalArgumentException.class, () -> {
+            binding.apply(bean);
+        });
+    }
+
+    /**
+     * Unit test for {@link StoredValuesBinding#apply(Object)}.
+     */
+    @Test
+    void testApplyInvalid() {
+        final Bean bean = new Bean(1, "Bean 1");
+        assertThrows(IllegalArgumentException.class, () -> {
+            StoredValuesBinding.of(Bean.class).bind("missing", NAME).apply(bean);
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            StoredValuesBinding.of(Bean.class).bind("missing", NAME).withFieldAccess(true).apply(bean);
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            StoredValuesBinding.of(Bean.class).bind("id", NAME).apply(bean);
+        });
+    }
+
+    /**
+     * Unit test for {@link StoredValuesBinding#from(QBeanBuilder)}.
+     */
+    @Test
+    void testFrom() {
+        final QBeanBuilder<Bean> builder = QBeanBuilder.of(Bean.class)
+                .bind("id", ID)
+                .bind("name", NAME)
+                .withFieldAccess(true);
+        final StoredValuesBinding<Bean> binding = StoredValuesBinding.from(builder);
+        assertSame(Bean.class, binding.getType());
+        assertTrue(binding.isFieldAccess());
+        assertEquals(builder.getBindings(), binding.getBindings());
+        final StoredValues expected = new StoredValues();
+        expected.add(ID, 1);
+        expected.add(NAME, "Bean 1");
+        assertEquals(expected, binding.apply(new Bean(1, "Bean 1")));
+        builder.bind("upper", NAME.upper());
+        assertThrows(IllegalArgumentException.class, () -> {
+            StoredValuesBinding.from(builder);
+        });
+    }
+
+    public static class Bean {
+        private Integer id;
+        private String name;
+        private String code;
+        public Bean() {
+            super();
+        }
+        public Bean(Integer id, String name) {
+            super();
+            this.id = id;
+            this.name = name;
+            this.code = "CODE-" + id;
+        }
+        public Integer getId() {
+            return id;
+        }
+        public void setId(Integer id) {
+            this.id = id;
+        }
+        public String getName() {
+            return name;
+        }
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,337 @@
+package dev.orne.qdsl.wrap;
+
+/*-
+ * #%L
+ * Orne Querydsl Utils
+ * %%
+ * Copyright (C) 2022 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.core.types.dsl.StringPath;
+
+/**
+ * Unit tests for {@code UpdateCoalescingBuffer}.
+ *
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2022-10
+ * @since 0.1
+ * @see UpdateCoalescingBuffer
+ */
+@Tag("ut")
+class UpdateCoalescingBufferTest {
+
+    private static final NumberPath<Integer> ID = Expressions.numberPath(Integer.class, "id");
+    private static final NumberPath<Integer> COUNT = Expressions.numberPath(Integer.class, "count");
+    private static final StringPath STATUS = Expressions.stringPath("status");
+
+    /**
+     * Unit test for {@link UpdateCoalescingBuffer#UpdateCoalescingBuffer(WrappedUpdateClauseProvider)}.
+     */
+    @Test
+    void testConstructor() {
+        final WrappedUpdateClauseProvider provider = mock(WrappedUpdateClauseProvider.class);
+        final UpdateCoalescingBuffer buffer = new UpdateCoalescingBuffer(provider);
+        assertSame(provider, buffer.getProvider());
+        assertEquals(UpdateCoalescingBuffer.DEFAULT_MAX_PENDING, buffer.getMaxPending());
+        assertEquals(0, buffer.getMaxDelay());
+        assertEquals(0, buffer.getPendingCount());
+        assertFalse(buffer.isFlushDue());
+        assertThrows(NullPointerException.class, () -> {
+            new UpdateCoalescingBuffer(null);
+        });
+    }
+
+    /**
+     * Unit test for {@link UpdateCoalescingBuffer#setMaxPending(int)}
+     * and {@link UpdateCoalescingBuffer#setMaxDelay(long, TimeUnit)}.
+     */
+    @Test
+    void testSetThresholds() {
+        final UpdateCoalescingBuffer buffer = new UpdateCoalescingBuffer(mock(WrappedUpdateClauseProvider.class));
+        assertSame(buffer, buffer.setMaxPending(10));
+        assertEquals(10, buffer.getMaxPending());
+        assertThrows(IllegalArgumentException.class, () -> {
+            buffer.setMaxPending(0);
+        });
+        assertSame(buffer, buffer.setMaxDelay(2, TimeUnit.SECONDS));
+        assertEquals(2000, buffer.getMaxDelay());
+        assertThrows(IllegalArgumentException.class, () -> {
+            buffer.setMaxDelay(-1, TimeUnit.SECONDS);
+        });
+        assertThrows(NullPointerException.class, () -> {
+            buffer.setMaxDelay(1, null);
+        });
+    }
+
+    /**
+     * Unit test for {@link WrappedUpdateClauseProvider#coalescingUpdates()}.
+     */
+    @Test
+    void testProviderCoalescingUpdates() {
+        final WrappedUpdateClauseProvider provider = mock(WrappedUpdateClauseProvider.class);
+        willCallRealMethod().given(provider).coalescingUpdates();
+        final UpdateCoalescingBuffer buffer = provider.coalescingUpdates();
+        assertNotNull(buffer);
+        assertSame(provider, buffer.getProvider());
+        assertNotSame(buffer, provider.coalescingUpdates());
+    }
+
+    /**
+     * Unit test for {@link UpdateCoalescingBuffer#update(EntityPath, com.querydsl.core.types.Predicate, StoredValues)}.
+     */
+    @Test
+    void testUpdateCoalesces() {
+        final WrappedUpdateClauseProvider provider = mock(WrappedUpdateClauseProvider.class);
+        final EntityPath<?> entity = mock(EntityPath.class);
+        final ExtendedUpdateClause<?> clause = mockClause();
+        willReturn(clause).given(provider).update(entity);
+        given(clause.execute()).willReturn(2L);
+        final UpdateCoalescingBuffer buffer = new UpdateCoalescingBuffer(provider);
+        final StoredValues first = StoredValues.with(StoredValue.of(COUNT, 1), StoredValue.of(STATUS, "A"));
+        assertEquals(0, buffer.update(entity, ID.eq(1), first));
+        assertEquals(0, buffer.update(entity, ID.eq(1), StoredValue.of(COUNT, 2)));
+        assertEquals(0, buffer.update(entity, ID.eq(2), StoredValue.of(STATUS, "B")));
+        first.add(STATUS, "C");
+        assertEquals(2, buffer.getPendingCount());
+        then(provider).should().validateSupported(entity);
+        then(provider).should(never()).update(entity);
+        assertEquals(2, buffer.flush());
+        assertEquals(0, buffer.getPendingCount());
+        final InOrder order = inOrder(provider, clause);
+        then(provider).should(order).update(entity);
+        then(clause).should(order).set(StoredValues.with(StoredValue.of(COUNT, 2), StoredValue.of(STATUS, "A")));
+        then(clause).should(order).where(ID.eq(1));
+        then(clause).should(order).addBatch();
+        then(clause).should(order).set(StoredValues.with(StoredValue.of(STATUS, "B")));
+        then(clause).should(order).where(ID.eq(2));
+        then(clause).should(order).addBatch();
+        then(clause).should(order).execute();
+        then(provider).should(times(1)).update(entity);
+        assertEquals(0, buffer.flush());
+        then(clause).should(times(1)).execute();
+    }
+
+    /**
+     * Unit test for {@link UpdateCoalescingBuffer#update(EntityPath, com.querydsl.core.types.Predicate, StoredValues)}
+     * with relative updates.
+     */
+    @Test
+    void testUpdateRelative() {
+        final WrappedUpdateClauseProvider provider = mock(WrappedUpdateClauseProvider.class);
+        final EntityPath<?> entity = mock(EntityPath.class);
+        final ExtendedUpdateClause<?> first = mockClause();
+        final ExtendedUpdateClause<?> second = mockClause();
+        final ExtendedUpdateClause<?> third = mockClause();
+        willReturn(first, second, third).given(provider).update(entity);
+        given(first.execute()).willReturn(1L);
+        given(second.execute()).willReturn(1L);
+        given(third.execute()).willReturn(1L);
+        final UpdateCoalescingBuffer buffer = new UpdateCoalescingBuffer(provider);
+        assertEquals(0, buffer.update(entity, ID.eq(1), StoredValue.of(COUNT, COUNT.add(1))));
+        assertEquals(0, buffer.update(entity, ID.eq(2), StoredValue.of(COUNT, COUNT.add(1))));
+        assertEquals(0, buffer.update(entity, ID.eq(1), StoredValue.of(STATUS, "A")));
+        assertEquals(2, buffer.getPendingCount());
+        then(provider).should(never()).update(entity);
+        assertEquals(1, buffer.update(entity, ID.eq(1), StoredValue.of(COUNT, COUNT.add(1))));
+        assertEquals(2, buffer.getPendingCount());
+        then(first).should().set(StoredValues.with(
+                StoredValue.of(COUNT, COUNT.add(1)),
+                StoredValue.of(STATUS, "A")));
+        then(first).should().where(ID.eq(1));
+        then(first).should(never()).addBatch();
+        then(first).should().execute();
+        assertEquals(0, buffer.update(entity, ID.eq(1), StoredValue.of(COUNT, 5)));
+        assertEquals(2, buffer.getPendingCount());
+        assertEquals(1, buffer.flush());
+        final InOrder order = inOrder(second);
+        then(second).should(order).set(StoredValues.with(StoredValue.of(COUNT, COUNT.add(1))));
+        then(second).should(order).where(ID.eq(2));
+        then(second).should(order).addBatch();
+        then(second).should(order).set(StoredValues.with(StoredValue.of(COUNT, 5)));
+        then(second).should(order).where(ID.eq(1));
+        then(second).should(order).addBatch();
+        then(second).should(order).execute();
+        then(third).shouldHaveNoInteractions();
+    }
+
+    /**
+     * Unit test for {@link UpdateCoalescingBuffer#update(EntityPath, com.querydsl.core.types.Predicate, StoredValues)}.
+     */
+    @Test
+    void testUpdateInvalid() {
+        final WrappedUpdateClauseProvider provider = mock(WrappedUpdateClauseProvider.class);
+        final EntityPath<?> entity = mock(EntityPath.class);
+        final EntityPath<?> unsupported = mock(EntityPath.class);
+        willThrow(EntityPathNotSupportedException.class).given(provider).validateSupported(unsupported);
+        final UpdateCoalescingBuffer buffer = new UpdateCoalescingBuffer(provider);
+        final StoredValues values = StoredValues.with(StoredValue.of(COUNT, 1));
+        assertThrows(NullPointerException.class, () -> {
+            buffer.update(null, ID.eq(1), values);
+        });
+        assertThrows(NullPointerException.class, () -> {
+            buffer.update(entity, null, values);
+        });
+        assertThrows(NullPointerException.class, () -> {
+            buffer.update(entity, ID.eq(1), (StoredValues) null);
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            buffer.update(entity, ID.eq(1), new StoredValues());
+        });
+        assertThrows(EntityPathNotSupportedException.class, () -> {
+            buffer.update(unsupported, ID.eq(1), values);
+        });
+        assertEquals(0, buffer.getPendingCount());
+    }
+
+    /**
+     * Unit test for {@link UpdateCoalescingBuffer#update(EntityPath, com.querydsl.core.types.Predicate, StoredValues)}
+     * with a maximum count of pending updates.
+     */
+    @Test
+    void testUpdateMaxPending() {
+        final WrappedUpdateClauseProvider provider = mock(WrappedUpdateClauseProvider.class);
+        final EntityPath<?> entity = mock(EntityPath.class);
+        final ExtendedUpdateClause<?> clause = mockClause();
+        willReturn(clause).given(provider).update(entity);
+        given(clause.execute()).willReturn(2L);
+        final UpdateCoalescingBuffer buffer = new UpdateCoalescingBuffer(provider)
+                .setMaxPending(2);
+        assertEquals(0, buffer.update(entity, ID.eq(1), StoredValue.of(COUNT, 1)));
+        assertEquals(0, buffer.update(entity, ID.eq(1), StoredValue.of(COUNT, 2)));
+        assertFalse(buffer.isFlushDue());
+        assertEquals(2, buffer.update(entity, ID.eq(2), StoredValue.of(COUNT, 1)));
+        assertEquals(0, buffer.getPendingCount());
+        then(clause).should(times(2)).addBatch();
+        then(clause).should().execute();
+    }
+
+    /**
+     * Unit test for {@link UpdateCoalescingBuffer#flushIfDue()} with a
+     * maximum delay of pending updates.
+     */
+    @Test
+    void testFlushIfDueMaxDelay() {
+        final WrappedUpdateClauseProvider provider = mock(WrappedUpdateClauseProvider.class);
+        final EntityPath<?> entity = mock(EntityPath.class);
+        final ExtendedUpdateClause<?> clause = mockClause();
+        willReturn(clause).given(provider).update(entity);
+        given(clause.execute()).willReturn(1L);
+        final UpdateCoalescingBuffer buffer = spy(new UpdateCoalescingBuffer(provider)
+                .setMaxDelay(100, TimeUnit.MILLISECONDS));
+        given(buffer.nanoTime()).willReturn(
+                TimeUnit.MILLISECONDS.toNanos(1000),
+                TimeUnit.MILLISECONDS.toNanos(1050),
+                TimeUnit.MILLISECONDS.toNanos(1080),
+                TimeUnit.MILLISECONDS.toNanos(1099),
+                TimeUnit.MILLISECONDS.toNanos(1100));
+        assertEquals(0, buffer.flushIfDue());
+        assertEquals(0, buffer.update(entity, ID.eq(1), StoredValue.of(COUNT, 1)));
+        assertEquals(0, buffer.update(entity, ID.eq(1), StoredValue.of(COUNT, 2)));
+        assertEquals(0, buffer.flushIfDue());
+        assertEquals(1, buffer.flushIfDue());
+        assertEquals(0, buffer.getPendingCount());
+        then(clause).should(never()).addBatch();
+        then(clause).should().execute();
+    }
+
+    /**
+     * Unit test for {@link UpdateCoalescingBuffer#flush()} with clauses
+     * that don't support batch updates.
+     */
+    @Test
+    void testFlushNotBatched() {
+        final WrappedUpdateClauseProvider provider = mock(WrappedUpdateClauseProvider.class);
+        final EntityPath<?> entity = mock(EntityPath.class);
+        final ExtendedUpdateClause<?> clause = mockClause();
+        final ExtendedUpdateClause<?> clause2 = mockClause();
+        willReturn(clause, clause2).given(provider).update(entity);
+        willThrow(UnsupportedOperationException.class).given(clause).addBatch();
+        given(clause.execute()).willReturn(1L);
+        given(clause2.execute()).willReturn(3L);
+        final UpdateCoalescingBuffer buffer = new UpdateCoalescingBuffer(provider);
+        buffer.update(entity, ID.eq(1), StoredValue.of(COUNT, 1));
+        buffer.update(entity, ID.eq(2), StoredValue.of(COUNT, 2));
+        assertEquals(4, buffer.flush());
+        then(clause).should().where(ID.eq(1));
+        then(clause).should().execute();
+        then(clause2).should().where(ID.eq(2));
+        then(clause2).should(never()).addBatch();
+        then(clause2).should().execute();
+    }
+
+    /**
+     * Unit test for {@link UpdateCoalescingBuffer#flush()} when an
+     * execution fails.
+     */
+    @Test
+    void testFlushFailure() {
+        final WrappedUpdateClauseProvider provider = mock(WrappedUpdateClauseProvider.class);
+        final EntityPath<?> entity = mock(EntityPath.class);
+        final EntityPath<?> other = mock(EntityPath.class);
+        final ExtendedUpdateClause<?> clause = mockClause();
+        final ExtendedUpdateClause<?> otherClause = mockClause();
+        willReturn(clause).given(provider).update(entity);
+        willReturn(otherClause).given(provider).update(other);
+        given(clause.execute()).willReturn(2L);
+        final RuntimeException failure = new RuntimeException();
+        given(otherClause.execute()).willThrow(failure).willReturn(1L);
+        final UpdateCoalescingBuffer buffer = new UpdateCoalescingBuffer(provider);
+        buffer.update(entity, ID.eq(1), StoredValue.of(COUNT, 1));
+        buffer.update(entity, ID.eq(2), StoredValue.of(COUNT, 2));
+        buffer.update(other, ID.eq(1), StoredValue.of(COUNT, 3));
+        assertSame(failure, assertThrows(RuntimeException.class, () -> {
+            buffer.flush();
+        }));
+        assertEquals(1, buffer.getPendingCount());
+        assertEquals(1, buffer.flush());
+        assertEquals(0, buffer.getPendingCount());
+        then(clause).should(times(1)).execute();
+    }
+
+    /**
+     * Unit test for {@link UpdateCoalescingBuffer#discard()}.
+     */
+    @Test
+    void testDiscard() {
+        final WrappedUpdateClauseProvider provider = mock(WrappedUpdateClauseProvider.class);
+        final EntityPath<?> entity = mock(EntityPath.class);
+        final UpdateCoalescingBuffer buffer = new UpdateCoalescingBuffer(provider);
+        buffer.update(entity, ID.eq(1), StoredValue.of(COUNT, 1));
+        buffer.update(entity, ID.eq(2), StoredValue.of(COUNT, 2));
+        assertEquals(2, buffer.discard());
+        assertEquals(0, buffer.getPendingCount());
+        assertEquals(0, buffer.flush());
+        assertEquals(0, buffer.discard());
+        then(provider).should(never()).update(any());
+    }
+
+    private static ExtendedUpdateClause<?> mockClause() {
+        return mock(ExtendedUpdateClause.class, RETURNS_SELF);
+    }
+}
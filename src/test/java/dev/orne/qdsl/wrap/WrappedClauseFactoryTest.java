@@ -25,6 +25,10 @@ package dev.orne.qdsl.wrap;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.BDDMockito.*;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.Executor;
+
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
@@ -32,10 +36,11 @@ import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
-import com.querydsl.core.dml.DeleteClause;
 import com.querydsl.core.types.EntityPath;
 import com.querydsl.core.types.Expression;
 
+import dev.orne.qdsl.wrap.impl.FederatedQueryClause;
+
 /**
  * Unit tests for {@code WrappedClauseFactory}.
  *
@@ -52,6 +57,7 @@ class WrappedClauseFactoryTest {
     private @Mock EntityPath<?> entity;
     private @Mock ProjectionType projectionType;
     private @Mock WrappedQueryClauseProvider queryProvider;
+    private @Mock WrappedQueryClauseProvider queryProvider2;
     private @Mock Expression<?> projection;
     private @Mock ExtendedQueryClause<?, ?> queryClause;
     private @Mock WrappedGroupableQueryClauseProvider groupableQueryProvider;
@@ -60,8 +66,10 @@ class WrappedClauseFactoryTest {
     private @Mock ExtendedInsertClause<?> insertClause;
     private @Mock WrappedUpdateClauseProvider updateProvider;
     private @Mock ExtendedUpdateClause<?> updateClause;
+    private @Mock WrappedMergeClauseProvider mergeProvider;
+    private @Mock ExtendedMergeClause<?> mergeClause;
     private @Mock WrappedDeleteClauseProvider deleteProvider;
-    private @Mock DeleteClause<?> deleteClause;
+    private @Mock ExtendedDeleteClause<?> deleteClause;
     private @Mock Expression<?> expression1;
     private @Mock Expression<?> expression2;
     private @Mock Expression<?> expression3;
@@ -214,6 +222,99 @@ class WrappedClauseFactoryTest {
         });
     }
 
+    /**
+     * Unit test for {@link WrappedClauseFactory#queryFederated(EntityPath)}.
+     */
+    @Test
+    void testQueryFederated() {
+        WrappedClauseFactory.addRegistry(registry1);
+        WrappedClauseFactory.addRegistry(registry2);
+        WrappedClauseProviderRegistryTest.expectProvidersFound(
+                registry1,
+                WrappedQueryClauseProvider.class,
+                entityType,
+                Arrays.asList(queryProvider, queryProvider2));
+        WrappedClauseProviderRegistryTest.expectProvidersFound(
+                registry2,
+                WrappedQueryClauseProvider.class,
+                entityType,
+                Collections.singletonList(queryProvider));
+        final ExtendedQueryClause<?, ?> result = WrappedClauseFactory.queryFederated(entity);
+        assertInstanceOf(FederatedQueryClause.class, result);
+        final FederatedQueryClause<?> federated = (FederatedQueryClause<?>) result;
+        assertSame(entity, federated.getEntity());
+        assertEquals(Arrays.asList(queryProvider, queryProvider2), federated.getProviders());
+        assertNull(federated.getExecutor());
+        then(registry1).should().findAll(WrappedQueryClauseProvider.class, entityType);
+        then(registry1).shouldHaveNoMoreInteractions();
+        then(registry2).should().findAll(WrappedQueryClauseProvider.class, entityType);
+        then(registry2).shouldHaveNoMoreInteractions();
+        then(queryProvider).shouldHaveNoInteractions();
+        then(queryProvider2).shouldHaveNoInteractions();
+    }
+
+    /**
+     * Unit test for {@link WrappedClauseFactory#queryFederated(EntityPath, Executor)}.
+     */
+    @Test
+    void testQueryFederatedExecutor() {
+        final Executor executor = mock(Executor.class);
+        WrappedClauseFactory.addRegistry(registry1);
+        WrappedClauseProviderRegistryTest.expectProvidersFound(
+                registry1,
+                WrappedQueryClauseProvider.class,
+                entityType,
+                Arrays.asList(queryProvider, queryProvider2));
+        final ExtendedQueryClause<?, ?> result = WrappedClauseFactory.queryFederated(entity, executor);
+        assertInstanceOf(FederatedQueryClause.class, result);
+        assertSame(executor, ((FederatedQueryClause<?>) result).getExecutor());
+        then(executor).shouldHaveNoInteractions();
+    }
+
+    /**
+     * Unit test for {@link WrappedClauseFactory#queryFederated(EntityPath)}.
+     */
+    @Test
+    void testQueryFederatedSingleProvider() {
+        WrappedClauseFactory.addRegistry(registry1);
+        WrappedClauseFactory.addRegistry(registry2);
+        WrappedClauseProviderRegistryTest.expectProvidersFound(
+                registry2,
+                WrappedQueryClauseProvider.class,
+                entityType,
+                Collections.singletonList(queryProvider));
+        WrappedClauseProviderTest.expectCreateClause(queryProvider, entity, queryClause);
+        final ExtendedQueryClause<?, ?> result = WrappedClauseFactory.queryFederated(entity);
+        assertSame(queryClause, result);
+        WrappedClauseProviderTest.assertCreateClause(queryProvider, entity);
+        then(queryProvider).shouldHaveNoMoreInteractions();
+        then(queryClause).shouldHaveNoInteractions();
+    }
+
+    /**
+     * Unit test for {@link WrappedClauseFactory#queryFederated(EntityPath)}.
+     */
+    @Test
+    void testQueryFederatedNotFound() {
+        WrappedClauseFactory.addRegistry(registry1);
+        WrappedClauseFactory.addRegistry(registry2);
+        assertThrows(ClauseProviderNotFoundException.class, () -> {
+            WrappedClauseFactory.queryFederated(entity);
+        });
+        then(registry1).should().findAll(WrappedQueryClauseProvider.class, entityType);
+        then(registry2).should().findAll(WrappedQueryClauseProvider.class, entityType);
+    }
+
+    /**
+     * Unit test for {@link WrappedClauseFactory#queryFederated(EntityPath)}.
+     */
+    @Test
+    void testQueryFederatedUnconfigured() {
+        assertThrows(ClauseProviderNotFoundException.class, () -> {
+            WrappedClauseFactory.queryFederated(entity);
+        });
+    }
+
     /**
      * Unit test for {@link WrappedClauseFactory#queryGroupable(EntityPath)}.
      */
@@ -1046,6 +1147,62 @@ class WrappedClauseFactoryTest {
         });
     }
 
+    /**
+     * Unit test for {@link WrappedClauseFactory#merge(EntityPath)}.
+     */
+    @Test
+    void testMerge() {
+        WrappedClauseFactory.addRegistry(registry1);
+        WrappedClauseFactory.addRegistry(registry2);
+        WrappedClauseProviderRegistryTest.expectProviderFound(
+                registry1,
+                WrappedMergeClauseProvider.class,
+                entityType,
+                mergeProvider);
+        WrappedClauseProviderTest.expectCreateClause(mergeProvider, entity, mergeClause);
+        final ExtendedMergeClause<?> result = WrappedClauseFactory.merge(entity);
+        assertSame(mergeClause, result);
+        WrappedClauseProviderRegistryTest.assertProviderFound(
+                registry1,
+                WrappedMergeClauseProvider.class,
+                entityType);
+        then(registry1).shouldHaveNoMoreInteractions();
+        then(registry2).shouldHaveNoInteractions();
+        WrappedClauseProviderTest.assertCreateClause(mergeProvider, entity);
+        then(mergeProvider).shouldHaveNoMoreInteractions();
+        then(mergeClause).shouldHaveNoInteractions();
+    }
+
+    /**
+     * Unit test for {@link WrappedClauseFactory#merge(EntityPath)}.
+     */
+    @Test
+    void testMergeNotFound() {
+        WrappedClauseFactory.addRegistry(registry1);
+        WrappedClauseProviderRegistryTest.expectProviderNotFound(
+                registry1,
+                WrappedMergeClauseProvider.class,
+                entityType);
+        assertThrows(ClauseProviderNotFoundException.class, () -> {
+            WrappedClauseFactory.merge(entity);
+        });
+        WrappedClauseProviderRegistryTest.assertProviderFound(
+                registry1,
+                WrappedMergeClauseProvider.class,
+                entityType);
+        then(registry1).shouldHaveNoMoreInteractions();
+    }
+
+    /**
+     * Unit test for {@link WrappedClauseFactory#merge(EntityPath)}.
+     */
+    @Test
+    void testMergeUnconfigured() {
+        assertThrows(ClauseProviderNotFoundException.class, () -> {
+            WrappedClauseFactory.merge(entity);
+        });
+    }
+
     /**
      * Unit test for {@link WrappedClauseFactory#delete(EntityPath)}.
      */
@@ -1059,7 +1216,7 @@ class WrappedClauseFactoryTest {
                 entityType,
                 deleteProvider);
         WrappedClauseProviderTest.expectCreateClause(deleteProvider, entity, deleteClause);
-        final DeleteClause<?> result = WrappedClauseFactory.delete(entity);
+        final ExtendedDeleteClause<?> result = WrappedClauseFactory.delete(entity);
         assertSame(deleteClause, result);
         WrappedClauseProviderRegistryTest.assertProviderFound(
                 registry1,
@@ -1089,7 +1246,7 @@ class WrappedClauseFactoryTest {
                 entityType,
                 deleteProvider);
         WrappedClauseProviderTest.expectCreateClause(deleteProvider, entity, deleteClause);
-        final DeleteClause<?> result = WrappedClauseFactory.delete(entity);
+        final ExtendedDeleteClause<?> result = WrappedClauseFactory.delete(entity);
         assertSame(deleteClause, result);
         WrappedClauseProviderRegistryTest.assertProviderFound(
                 registry1,
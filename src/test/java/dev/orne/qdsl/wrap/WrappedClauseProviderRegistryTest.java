@@ -25,6 +25,9 @@ package dev.orne.qdsl.wrap;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.BDDMockito.*;
 
+import java.util.Collections;
+import java.util.List;
+
 import javax.validation.constraints.NotNull;
 
 import org.junit.jupiter.api.AfterAll;
@@ -62,6 +65,21 @@ class WrappedClauseProviderRegistryTest {
         assertSame(registry, WrappedClauseFactory.getRegistries().get(0));
     }
 
+    /**
+     * Unit test for {@link WrappedClauseProviderRegistry#findAll(Class, Class)}.
+     */
+    @Test
+    void testFindAll() {
+        final WrappedClauseProviderRegistry registry = spy(WrappedClauseProviderRegistry.class);
+        final WrappedQueryClauseProvider provider = mock(WrappedQueryClauseProvider.class);
+        given(registry.find(WrappedQueryClauseProvider.class, Type.class)).willReturn(provider);
+        final List<WrappedQueryClauseProvider> result = registry.findAll(
+                WrappedQueryClauseProvider.class, Type.class);
+        assertEquals(Collections.singletonList(provider), result);
+        given(registry.find(WrappedQueryClauseProvider.class, Type.class)).willReturn(null);
+        assertTrue(registry.findAll(WrappedQueryClauseProvider.class, Type.class).isEmpty());
+    }
+
     public static void expectProviderNotFound(
             final @NotNull WrappedClauseProviderRegistry registry,
             final @NotNull Class<? extends WrappedClauseProvider> providerType,
@@ -83,4 +101,15 @@ class WrappedClauseProviderRegistryTest {
             final @NotNull Class<? extends EntityPath<?>> entityType) {
         then(registry).should().find(providerType, entityType);
     }
+
+    public static <T extends WrappedClauseProvider> void expectProvidersFound(
+            final @NotNull WrappedClauseProviderRegistry registry,
+            final @NotNull Class<T> providerType,
+            final @NotNull Class<? extends EntityPath<?>> entityType,
+            final List<T> providers) {
+        given(registry.findAll(providerType, entityType)).willReturn(providers);
+    }
+
+    private interface Type
+    extends EntityPath<Object> {}
 }
@@ -33,7 +33,6 @@ import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.mockito.MockitoAnnotations;
 
-import com.querydsl.core.dml.DeleteClause;
 import com.querydsl.core.dml.InsertClause;
 import com.querydsl.core.dml.UpdateClause;
 import com.querydsl.core.types.EntityPath;
@@ -195,10 +194,23 @@ class WrappedClauseProviderTest {
         then(provider).should().update(entity);
     }
 
+    public static void expectCreateClause(
+            final @NotNull WrappedMergeClauseProvider provider,
+            final @NotNull EntityPath<?> entity,
+            final @NotNull ExtendedMergeClause<?> queryClause) {
+        willReturn(queryClause).given(provider).merge(entity);
+    }
+
+    public static void assertCreateClause(
+            final @NotNull WrappedMergeClauseProvider provider,
+            final @NotNull EntityPath<?> entity) {
+        then(provider).should().merge(entity);
+    }
+
     public static void expectCreateClause(
             final @NotNull WrappedDeleteClauseProvider provider,
             final @NotNull EntityPath<?> entity,
-            final @NotNull DeleteClause<?> queryClause) {
+            final @NotNull ExtendedDeleteClause<?> queryClause) {
         willReturn(queryClause).given(provider).delete(entity);
     }
 
@@ -120,6 +120,50 @@ class AbstractWrappedClauseProviderRegistryTest {
         assertSame(expected, result);
     }
 
+    /**
+     * Unit test for {@link AbstractWrappedClauseProviderRegistry#findAll(Class, Class)}.
+     */
+    @Test
+    void testFindAll() {
+        final AbstractWrappedClauseProviderRegistry registry =
+                spy(AbstractWrappedClauseProviderRegistry.class);
+        final List<WrappedClauseProvider> providers = new ArrayList<>();
+        final WrappedClauseProvider unsupported = mock(WrappedClauseProvider.class);
+        given(unsupported.supports(Type.class)).willReturn(false);
+        final WrappedClauseProvider otherType = mock(WrappedClauseProvider.class);
+        given(otherType.supports(Type.class)).willReturn(true);
+        final WrappedQueryClauseProvider expected1 = mock(WrappedQueryClauseProvider.class);
+        given(expected1.supports(Type.class)).willReturn(true);
+        final WrappedQueryClauseProvider expected2 = mock(WrappedQueryClauseProvider.class);
+        given(expected2.supports(Type.class)).willReturn(true);
+        providers.add(expected1);
+        providers.add(unsupported);
+        providers.add(otherType);
+        providers.add(expected2);
+        given(registry.getProvidersIterator()).willReturn(providers.iterator());
+        final List<WrappedQueryClauseProvider> result = registry.findAll(
+                WrappedQueryClauseProvider.class,
+                Type.class);
+        assertEquals(2, result.size());
+        assertSame(expected1, result.get(0));
+        assertSame(expected2, result.get(1));
+    }
+
+    /**
+     * Unit test for {@link AbstractWrappedClauseProviderRegistry#findAll(Class, Class)}.
+     */
+    @Test
+    void testFindAll_NotFound() {
+        final AbstractWrappedClauseProviderRegistry registry =
+                spy(AbstractWrappedClauseProviderRegistry.class);
+        final WrappedClauseProvider provider = mock(WrappedClauseProvider.class);
+        given(provider.supports(Type.class)).willReturn(false);
+        final List<WrappedClauseProvider> providers = new ArrayList<>();
+        providers.add(provider);
+        given(registry.getProvidersIterator()).willReturn(providers.iterator());
+        assertTrue(registry.findAll(WrappedClauseProvider.class, Type.class).isEmpty());
+    }
+
     private interface Type
     extends EntityPath<Object> {}
 }
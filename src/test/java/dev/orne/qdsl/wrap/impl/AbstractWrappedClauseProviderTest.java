@@ -28,6 +28,7 @@ import static org.mockito.BDDMockito.*;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 
 import javax.validation.constraints.NotNull;
 
@@ -49,6 +50,7 @@ import com.querydsl.core.types.Projections;
 import com.querydsl.core.types.Visitor;
 import com.querydsl.core.types.dsl.EntityPathBase;
 import com.querydsl.core.types.dsl.StringPath;
+import com.querydsl.sql.ProjectableSQLQuery;
 
 import dev.orne.qdsl.NopReplaceVisitor;
 import dev.orne.qdsl.wrap.EntityPathNotSupportedException;
@@ -57,6 +59,7 @@ import dev.orne.qdsl.wrap.ExtendedUpdateClause;
 import dev.orne.qdsl.wrap.ProjectionType;
 import dev.orne.qdsl.wrap.impl.AbstractWrappedClauseProvider.ProjectionKey;
 import dev.orne.qdsl.wrap.impl.transform.ChainedExpressionTransformer;
+import dev.orne.qdsl.wrap.impl.transform.InListBucketingTransformer;
 
 /**
  * Unit tests for {@code AbstractWrappedClauseProvider}.
@@ -486,6 +489,26 @@ class AbstractWrappedClauseProviderTest {
         then(base).should(times(1)).visit(eq(QTargetEntity.base), any());
     }
 
+    /**
+     * Unit test for {@link AbstractWrappedClauseProvider#createTransformerForAlias(EntityPath)}.
+     */
+    @Test
+    void testCreateTransformerForAlias_InListBucketing() {
+        final AbstractWrappedClauseProvider provider = spy(new TestProvider(QTargetEntity.base, QEntity.base));
+        final ExpressionTransformer base = mock(ExpressionTransformer.class);
+        willReturn(base).given(provider).getTransformer(any(QEntity.class));
+        assertNull(provider.getInListBucketing());
+        provider.setInListBucketing(InListBucketingTransformer.DEFAULT);
+        assertSame(InListBucketingTransformer.DEFAULT, provider.getInListBucketing());
+        final ExpressionTransformer result = provider.createTransformerForAlias(QEntity.base);
+        final ChainedExpressionTransformer cresult = assertInstanceOf(ChainedExpressionTransformer.class, result);
+        assertEquals(2, cresult.getVisitors().size());
+        assertSame(base, cresult.getVisitors().get(0));
+        assertSame(InListBucketingTransformer.DEFAULT, cresult.getVisitors().get(1));
+        provider.setInListBucketing(null);
+        assertSame(base, provider.createTransformerForAlias(QEntity.base));
+    }
+
     /**
      * Unit test for {@link AbstractWrappedClauseProvider#applyAlias(EntityPath, Expression)}.
      */
@@ -592,6 +615,129 @@ class AbstractWrappedClauseProviderTest {
         then(transformer).shouldHaveNoInteractions();
     }
 
+    /**
+     * Unit test for {@link AbstractWrappedClauseProvider#configureClause(WrappedClause, EntityPath)}.
+     */
+    @Test
+    void testConfigureClause() {
+        final AbstractWrappedClauseProvider provider = new TestProvider(QTargetEntity.base, QEntity.base, QEntity2.base);
+        final WrappedDeleteClause clause = new WrappedDeleteClause(mock(DeleteClause.class));
+        final QEntity alias = new QEntity("alias");
+        assertNull(provider.getResultCache());
+        assertSame(clause, provider.configureClause(clause, alias));
+        assertNull(clause.getResultCacheScope());
+        final QueryResultCache cache = mock(QueryResultCache.class);
+        final QueryResultCache.Scope scope = mock(QueryResultCache.Scope.class);
+        given(cache.scope(any(), any())).willReturn(scope);
+        provider.setResultCache(cache);
+        assertSame(cache, provider.getResultCache());
+        assertSame(clause, provider.configureClause(clause, alias));
+        assertSame(scope, clause.getResultCacheScope());
+        then(cache).should().scope(
+                QEntity.class,
+                new HashSet<>(Arrays.asList(QEntity.class, QEntity2.class)));
+    }
+
+    /**
+     * Unit test for {@link AbstractWrappedClauseProvider#configureClause(WrappedClause, EntityPath)}.
+     */
+    @Test
+    void testConfigureClauseSingleFlight() {
+        final AbstractWrappedClauseProvider provider = new TestProvider(QTargetEntity.base, QEntity.base, QEntity2.base);
+        final WrappedDeleteClause deleteClause = new WrappedDeleteClause(mock(DeleteClause.class));
+        @SuppressWarnings("unchecked")
+        final WrappedSqlQueryClause<?> queryClause = new WrappedSqlQueryClause<>(
+                ExpressionTransformer.NOP,
+                mock(ProjectableSQLQuery.class));
+        final QEntity alias = new QEntity("alias");
+        assertNull(provider.getSingleFlight());
+        assertSame(queryClause, provider.configureClause(queryClause, alias));
+        assertNull(queryClause.getSingleFlightScope());
+        final SingleFlightGroup group = new SingleFlightGroup();
+        provider.setSingleFlight(group);
+        assertSame(group, provider.getSingleFlight());
+        assertSame(deleteClause, provider.configureClause(deleteClause, alias));
+        assertSame(queryClause, provider.configureClause(queryClause, alias));
+        assertSame(group, queryClause.getSingleFlightScope().getGroup());
+        assertSame(QEntity.class, queryClause.getSingleFlightScope().getEntityType());
+    }
+
+    /**
+     * Unit test for {@link AbstractWrappedClauseProvider#configureClause(WrappedClause, EntityPath)}.
+     */
+    @Test
+    void testConfigureClauseDefaultTimeout() {
+        final AbstractWrappedClauseProvider provider = new TestProvider(QTargetEntity.base, QEntity.base, QEntity2.base);
+        final QEntity alias = new QEntity("alias");
+        assertEquals(0L, provider.getDefaultTimeout());
+        final WrappedDeleteClause clause = new WrappedDeleteClause(mock(DeleteClause.class));
+        provider.configureClause(clause, alias);
+        assertFalse(clause.getExecutionBounds().isBounded());
+        provider.setDefaultTimeout(1500);
+        assertEquals(1500L, provider.getDefaultTimeout());
+        final WrappedDeleteClause bounded = new WrappedDeleteClause(mock(DeleteClause.class));
+        provider.configureClause(bounded, alias);
+        assertEquals(1500L, bounded.getExecutionBounds().getTimeout());
+        assertThrows(IllegalArgumentException.class, () -> {
+            provider.setDefaultTimeout(-1);
+        });
+    }
+
+    /**
+     * Unit test for {@link AbstractWrappedClauseProvider#configureClause(WrappedClause, EntityPath)}.
+     */
+    @Test
+    void testConfigureClauseConcurrencyLimiter() {
+        final AbstractWrappedClauseProvider provider = new TestProvider(QTargetEntity.base, QEntity.base, QEntity2.base);
+        final QEntity alias = new QEntity("alias");
+        assertNull(provider.getConcurrencyLimiter());
+        final WrappedDeleteClause clause = new WrappedDeleteClause(mock(DeleteClause.class));
+        provider.configureClause(clause, alias);
+        assertNull(clause.getConcurrencyLimiter());
+        final ConcurrencyLimiter limiter = new ConcurrencyLimiter(2);
+        provider.setConcurrencyLimiter(limiter);
+        assertSame(limiter, provider.getConcurrencyLimiter());
+        final WrappedDeleteClause limited = new WrappedDeleteClause(mock(DeleteClause.class));
+        provider.configureClause(limited, alias);
+        assertSame(limiter, limited.getConcurrencyLimiter());
+    }
+
+    /**
+     * Unit test for {@link AbstractWrappedClauseProvider#configureClause(WrappedClause, EntityPath)}.
+     */
+    @Test
+    void testConfigureClauseStoreShapeCache() {
+        final AbstractWrappedClauseProvider provider = new TestProvider(QTargetEntity.base, QEntity.base, QEntity2.base);
+        final QEntity alias = new QEntity("alias");
+        assertNull(provider.getStoreShapeCache());
+        final WrappedUpdateClause clause = new WrappedUpdateClause(mock(UpdateClause.class));
+        provider.configureClause(clause, alias);
+        assertNull(clause.getStoreShapeScope());
+        final StoreShapeCache cache = new StoreShapeCache();
+        provider.setStoreShapeCache(cache);
+        assertSame(cache, provider.getStoreShapeCache());
+        final WrappedDeleteClause deleteClause = new WrappedDeleteClause(mock(DeleteClause.class));
+        assertSame(deleteClause, provider.configureClause(deleteClause, alias));
+        final WrappedUpdateClause cached = new WrappedUpdateClause(mock(UpdateClause.class));
+        provider.configureClause(cached, alias);
+        assertSame(cache, cached.getStoreShapeScope().getCache());
+        assertSame(alias, cached.getStoreShapeScope().getEntity());
+    }
+
+    /**
+     * Unit test for {@link AbstractWrappedClauseProvider#delete(EntityPath)}.
+     */
+    @Test
+    void testDeleteConfigured() {
+        final AbstractWrappedClauseProvider provider = spy(new TestProvider(QTargetEntity.base, QEntity.base));
+        final DeleteClause<?> delegated = mock(DeleteClause.class);
+        final QEntity alias = new QEntity("alias");
+        willReturn(delegated).given(provider).createDelegatedDeleteClause(alias);
+        willReturn(ExpressionTransformer.NOP).given(provider).createTransformerForAlias(alias);
+        final DeleteClause<?> result = provider.delete(alias);
+        then(provider).should().configureClause((WrappedDeleteClause) result, alias);
+    }
+
     private static class TestProvider
     extends AbstractWrappedClauseProvider {
         public TestProvider(@NotNull EntityPath<?> targetEntity, @NotNull EntityPath<?>... supportedEntities) {
@@ -47,6 +47,7 @@ import com.querydsl.collections.QueryEngine;
 import com.querydsl.core.JoinType;
 import com.querydsl.core.QueryMetadata;
 import com.querydsl.core.dml.DeleteClause;
+import com.querydsl.core.dml.InsertClause;
 import com.querydsl.core.dml.UpdateClause;
 import com.querydsl.core.types.EntityPath;
 import com.querydsl.core.types.Path;
@@ -199,9 +200,30 @@ class AbstractWrappedCollClauseProviderTest {
     void testCreateDelegatedInsertClause() {
         final AbstractWrappedCollClauseProvider provider = spy(new TestProvider(QTargetEntity.base, QEntity.base));
         final QEntity alias = new QEntity("alias");
+        final Collection<BeanType> values = new ArrayList<>();
+        willReturn(values).given(provider).getValues(alias);
         assertThrows(UnsupportedOperationException.class, () -> {
             provider.createDelegatedInsertClause(alias);
         });
+        then(provider).should().getValues(alias);
+    }
+
+    /**
+     * Unit test for {@link AbstractWrappedCollClauseProvider#createDelegatedInsertClause(EntityPath)}
+     * with a value store.
+     */
+    @Test
+    void testCreateDelegatedInsertClauseStore() {
+        final AbstractWrappedCollClauseProvider provider = spy(new TestProvider(QTargetEntity.base, QEntity.base));
+        final QEntity alias = new QEntity("alias");
+        final QueryEngine engine = mock(QueryEngine.class);
+        final CollValueStore<BeanType> store = new CollValueStore<>(() -> null);
+        willReturn(engine).given(provider).getQueryEngine();
+        willReturn(store).given(provider).getValues(alias);
+        final InsertClause<?> result = provider.createDelegatedInsertClause(alias);
+        verifyStoreClause(result, store, engine, CollStoreDmlClause.Type.INSERT);
+        then(provider).should().getValues(alias);
+        then(engine).shouldHaveNoInteractions();
     }
 
     /**
@@ -227,6 +249,24 @@ class AbstractWrappedCollClauseProviderTest {
         then(values).shouldHaveNoInteractions();
     }
 
+    /**
+     * Unit test for {@link AbstractWrappedCollClauseProvider#createDelegatedUpdateClause(EntityPath)}
+     * with a value store.
+     */
+    @Test
+    void testCreateDelegatedUpdateClauseStore() {
+        final AbstractWrappedCollClauseProvider provider = spy(new TestProvider(QTargetEntity.base, QEntity.base));
+        final QEntity alias = new QEntity("alias");
+        final QueryEngine engine = mock(QueryEngine.class);
+        final CollValueStore<BeanType> store = new CollValueStore<>(() -> null);
+        willReturn(engine).given(provider).getQueryEngine();
+        willReturn(store).given(provider).getValues(alias);
+        final UpdateClause<?> result = provider.createDelegatedUpdateClause(alias);
+        verifyStoreClause(result, store, engine, CollStoreDmlClause.Type.UPDATE);
+        then(provider).should().getValues(alias);
+        then(engine).shouldHaveNoInteractions();
+    }
+
     /**
      * Unit test for {@link AbstractWrappedCollClauseProvider#createDelegatedDeleteClause(EntityPath)}.
      */
@@ -250,6 +290,64 @@ class AbstractWrappedCollClauseProviderTest {
         then(values).shouldHaveNoInteractions();
     }
 
+    /**
+     * Unit test for {@link AbstractWrappedCollClauseProvider#createDelegatedDeleteClause(EntityPath)}
+     * with a value store.
+     */
+    @Test
+    void testCreateDelegatedDeleteClauseStore() {
+        final AbstractWrappedCollClauseProvider provider = spy(new TestProvider(QTargetEntity.base, QEntity.base));
+        final QEntity alias = new QEntity("alias");
+        final QueryEngine engine = mock(QueryEngine.class);
+        final CollValueStore<BeanType> store = new CollValueStore<>(() -> null);
+        willReturn(engine).given(provider).getQueryEngine();
+        willReturn(store).given(provider).getValues(alias);
+        final DeleteClause<?> result = provider.createDelegatedDeleteClause(alias);
+        verifyStoreClause(result, store, engine, CollStoreDmlClause.Type.DELETE);
+        then(provider).should().getValues(alias);
+        then(engine).shouldHaveNoInteractions();
+    }
+
+    /**
+     * Unit test for {@link AbstractWrappedCollClauseProvider#query(EntityPath)}
+     * with a value store.
+     */
+    @Test
+    void testQueryStore() {
+        final AbstractWrappedCollClauseProvider provider = spy(new TestProvider(QTargetEntity.base, QEntity.base));
+        final ExpressionTransformer transformer = mock(ExpressionTransformer.class);
+        final QEntity alias = new QEntity("alias");
+        final QTargetEntity source = new QTargetEntity("alias");
+        final QueryEngine engine = mock(QueryEngine.class);
+        final CollValueStore<BeanType> store = new CollValueStore<>(
+                () -> null,
+                Arrays.asList(mock(BeanType.class)));
+        final Collection<BeanType> snapshot = store.snapshot();
+        willReturn(engine).given(provider).getQueryEngine();
+        willReturn(store).given(provider).getValues(alias);
+        willReturn(transformer).given(provider).createTransformerForAlias(alias);
+        final ExtendedQueryClause<?, ?> result = provider.query(alias);
+        final WrappedCollQueryClause<?> wresult = assertInstanceOf(WrappedCollQueryClause.class, result);
+        final CollQuery<?> delegated = assertInstanceOf(CollQuery.class, wresult.getDelegate());
+        verifyQuery(delegated, engine, source, snapshot);
+        store.clear();
+        verifyQuery(delegated, engine, source, snapshot);
+        then(engine).shouldHaveNoInteractions();
+    }
+
+    private void verifyStoreClause(
+            final @NotNull Object result,
+            final @NotNull CollValueStore<?> store,
+            final @NotNull QueryEngine engine,
+            final @NotNull CollStoreDmlClause.Type type) {
+        final CollStoreDmlClause<?> clause = assertInstanceOf(CollStoreDmlClause.class, result);
+        assertSame(store, clause.getStore());
+        assertEquals(new QTargetEntity("alias"), clause.getEntity());
+        assertSame(engine, readField(clause, "engine"));
+        assertSame(type, clause.getType());
+        assertTrue(clause.isEmpty());
+    }
+
     private Object readField(
             @NotNull Object obj,
             @NotNull String field) {
@@ -0,0 +1,215 @@
+package dev.orne.qdsl.wrap.impl;
+
+/*-
+ * #%L
+ * Orne Querydsl Utils
+ * %%
+ * Copyright (C) 2022 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.*;
+
+import java.util.Arrays;
+
+import javax.validation.constraints.NotNull;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.querydsl.core.dml.DeleteClause;
+import com.querydsl.core.dml.InsertClause;
+import com.querydsl.core.dml.UpdateClause;
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.PathMetadataFactory;
+import com.querydsl.core.types.dsl.EntityPathBase;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.sql.ProjectableSQLQuery;
+import com.querydsl.sql.RelationalPath;
+import com.querydsl.sql.RelationalPathBase;
+import com.querydsl.sql.SQLCommonQueryFactory;
+import com.querydsl.sql.SQLQuery;
+import com.querydsl.sql.dml.SQLDeleteClause;
+import com.querydsl.sql.dml.SQLInsertClause;
+
+import dev.orne.qdsl.wrap.ExtendedGroupableQueryClause;
+
+/**
+ * Unit tests for {@code AbstractWrappedShardedSqlClauseProvider}.
+ *
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2022-10
+ * @since 0.1
+ * @see AbstractWrappedShardedSqlClauseProvider
+ */
+@Tag("ut")
+class AbstractWrappedShardedSqlClauseProviderTest {
+
+    /**
+     * Unit test for {@link AbstractWrappedShardedSqlClauseProvider#getQueryFactory()}.
+     */
+    @Test
+    void testGetQueryFactory() {
+        final TestProvider provider = new TestProvider();
+        assertSame(provider.router.getShard(0), provider.getQueryFactory());
+    }
+
+    /**
+     * Unit test for {@link AbstractWrappedShardedSqlClauseProvider#query(EntityPath)}.
+     */
+    @Test
+    void testQuery() {
+        final TestProvider provider = spy(new TestProvider());
+        final QEntity alias = new QEntity("alias");
+        final ExpressionTransformer transformer = mock(ExpressionTransformer.class);
+        willReturn(transformer).given(provider).createTransformerForAlias(alias);
+        final ExtendedGroupableQueryClause<?, ?> result = provider.query(alias);
+        final WrappedShardedSqlQueryClause<?> wresult = assertInstanceOf(WrappedShardedSqlQueryClause.class, result);
+        assertSame(transformer, wresult.getTransformer());
+        assertSame(provider.router, wresult.getDelegate().getRouter());
+        assertEquals(new QTargetEntity("alias"), wresult.getDelegate().getMetadata().getJoins().get(0).getTarget());
+        then(provider).should().createDelegatedShardedQuery(alias);
+        then(provider).should(never()).createDelegatedQueryClause(any(), any());
+    }
+
+    /**
+     * Unit test for {@link AbstractWrappedShardedSqlClauseProvider#createDelegatedInsertClause(EntityPath)}.
+     */
+    @Test
+    void testCreateDelegatedInsertClause() {
+        final TestProvider provider = new TestProvider();
+        final InsertClause<?> result = provider.createDelegatedInsertClause(new QEntity("alias"));
+        final ShardedSqlDmlClause clause = assertInstanceOf(ShardedSqlDmlClause.class, result);
+        assertSame(provider.router, clause.getRouter());
+        assertEquals(new QTargetEntity("alias"), clause.getEntity());
+        assertSame(ShardedSqlDmlClause.Type.INSERT, clause.getType());
+    }
+
+    /**
+     * Unit test for {@link AbstractWrappedShardedSqlClauseProvider#createDelegatedUpdateClause(EntityPath)}.
+     */
+    @Test
+    void testCreateDelegatedUpdateClause() {
+        final TestProvider provider = new TestProvider();
+        final UpdateClause<?> result = provider.createDelegatedUpdateClause(new QEntity("alias"));
+        final ShardedSqlDmlClause clause = assertInstanceOf(ShardedSqlDmlClause.class, result);
+        assertSame(provider.router, clause.getRouter());
+        assertEquals(new QTargetEntity("alias"), clause.getEntity());
+        assertSame(ShardedSqlDmlClause.Type.UPDATE, clause.getType());
+    }
+
+    /**
+     * Unit test for {@link AbstractWrappedShardedSqlClauseProvider#createDelegatedDeleteClause(EntityPath)}.
+     */
+    @Test
+    void testCreateDelegatedDeleteClause() {
+        final TestProvider provider = new TestProvider();
+        final DeleteClause<?> result = provider.createDelegatedDeleteClause(new QEntity("alias"));
+        final ShardedSqlDmlClause clause = assertInstanceOf(ShardedSqlDmlClause.class, result);
+        assertSame(provider.router, clause.getRouter());
+        assertEquals(new QTargetEntity("alias"), clause.getEntity());
+        assertSame(ShardedSqlDmlClause.Type.DELETE, clause.getType());
+    }
+
+    /**
+     * Unit test for {@link AbstractWrappedShardedSqlClauseProvider#configureClause(WrappedClause, EntityPath)}.
+     */
+    @Test
+    void testConfigureClause() {
+        final TestProvider provider = new TestProvider();
+        final QEntity alias = new QEntity("alias");
+        final ShardedSqlDmlClause dmlDelegate = mock(ShardedSqlDmlClause.class);
+        final WrappedDeleteClause shardedClause = new WrappedDeleteClause(dmlDelegate);
+        provider.configureClause(shardedClause, alias);
+        then(dmlDelegate).should().addListener(any(SqlExecutionBoundsListener.class));
+        assertNull(shardedClause.getChunkStatements());
+        final SQLDeleteClause deleteDelegate = mock(SQLDeleteClause.class);
+        final WrappedDeleteClause deleteClause = new WrappedDeleteClause(deleteDelegate);
+        provider.configureClause(deleteClause, alias);
+        then(deleteDelegate).should().addListener(any(SqlExecutionBoundsListener.class));
+        assertNotNull(deleteClause.getChunkStatements());
+        final ShardedSqlQuery<?> queryDelegate = mock(ShardedSqlQuery.class);
+        provider.configureClause(new WrappedShardedSqlQueryClause<>(null, queryDelegate), alias);
+        then(queryDelegate).shouldHaveNoInteractions();
+    }
+
+    /**
+     * Unit test for {@link AbstractWrappedShardedSqlClauseProvider#configureClause(WrappedClause, EntityPath)}.
+     */
+    @Test
+    void testConfigureClauseMultiRowInsert() {
+        final TestProvider provider = new TestProvider();
+        provider.setMultiRowMaxParameters(100);
+        final QEntity alias = new QEntity("alias");
+        final ShardedSqlDmlClause dmlDelegate = mock(ShardedSqlDmlClause.class);
+        final WrappedInsertClause shardedClause = new WrappedInsertClause(dmlDelegate);
+        provider.configureClause(shardedClause, alias);
+        then(dmlDelegate).should().addListener(any(SqlExecutionBoundsListener.class));
+        assertEquals(0, shardedClause.getMultiRowMaxParameters());
+        assertNull(shardedClause.getMultiRowClauses());
+        final SQLInsertClause insertDelegate = mock(SQLInsertClause.class);
+        final WrappedInsertClause insertClause = new WrappedInsertClause(insertDelegate);
+        provider.configureClause(insertClause, alias);
+        assertEquals(100, insertClause.getMultiRowMaxParameters());
+        assertNotNull(insertClause.getMultiRowClauses());
+        then(provider.router.getShard(0)).should(never()).insert(any());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static SQLCommonQueryFactory<? extends ProjectableSQLQuery<?, ?>, ?, ?, ?, ?> mockFactory() {
+        final SQLCommonQueryFactory<? extends ProjectableSQLQuery<?, ?>, ?, ?, ?, ?> factory =
+                mock(SQLCommonQueryFactory.class);
+        willAnswer(inv -> new SQLQuery<Void>().from(
+                (RelationalPath<?>) inv.getArgument(0))).given(factory).from(any(RelationalPath.class));
+        return factory;
+    }
+
+    private static class TestProvider
+    extends AbstractWrappedShardedSqlClauseProvider {
+        final SqlShardRouter router = new SqlShardRouter(
+                QTargetEntity.base.id,
+                Arrays.asList(mockFactory(), mockFactory()));
+        public TestProvider() {
+            super(QTargetEntity.base, QEntity.base);
+        }
+        @Override
+        protected @NotNull SqlShardRouter getShardRouter() {
+            return this.router;
+        }
+        @Override
+        protected ExpressionTransformer getTransformer(@NotNull EntityPath<?> entity) {
+            throw new AssertionError("Method call not mocked");
+        }
+    }
+    private static interface BeanType {}
+    private static class QEntity extends EntityPathBase<BeanType> {
+        private static final long serialVersionUID = 1L;
+        public static final QEntity base = new QEntity("base");
+        public QEntity(String variable) {
+            super(BeanType.class, PathMetadataFactory.forVariable(variable));
+        }
+    }
+    public static class QTargetEntity extends RelationalPathBase<BeanType> {
+        private static final long serialVersionUID = 1L;
+        public static final QTargetEntity base = new QTargetEntity("base");
+        public final NumberPath<Long> id = createNumber("id", Long.class);
+        public QTargetEntity(String variable) {
+            super(BeanType.class, PathMetadataFactory.forVariable(variable), "null", "TABLE");
+        }
+    }
+}
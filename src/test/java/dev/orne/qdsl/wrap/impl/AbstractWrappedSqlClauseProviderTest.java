@@ -25,6 +25,7 @@ package dev.orne.qdsl.wrap.impl;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.BDDMockito.*;
 
+import java.sql.Connection;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
@@ -42,17 +43,22 @@ import com.querydsl.core.types.Path;
 import com.querydsl.core.types.PathMetadata;
 import com.querydsl.core.types.PathMetadataFactory;
 import com.querydsl.core.types.dsl.EntityPathBase;
+import com.querydsl.sql.Configuration;
 import com.querydsl.sql.ProjectableSQLQuery;
 import com.querydsl.sql.RelationalPath;
 import com.querydsl.sql.RelationalPathBase;
 import com.querydsl.sql.SQLCommonQueryFactory;
 import com.querydsl.sql.SQLQuery;
+import com.querydsl.sql.SQLQueryFactory;
+import com.querydsl.sql.SQLTemplates;
 import com.querydsl.sql.dml.SQLDeleteClause;
 import com.querydsl.sql.dml.SQLInsertClause;
+import com.querydsl.sql.dml.SQLMergeClause;
 import com.querydsl.sql.dml.SQLUpdateClause;
 
 import dev.orne.qdsl.wrap.EntityPathNotSupportedException;
 import dev.orne.qdsl.wrap.ExtendedGroupableQueryClause;
+import dev.orne.qdsl.wrap.ExtendedMergeClause;
 
 /**
  * Unit tests for {@code AbstractWrappedSqlClauseProvider}.
@@ -160,20 +166,51 @@ class AbstractWrappedSqlClauseProviderTest {
         final ProjectableSQLQuery<?, ?> delegated = mock(ProjectableSQLQuery.class);
         final ExpressionTransformer transformer = mock(ExpressionTransformer.class);
         final QEntity alias = new QEntity("alias");
-        willReturn(delegated).given(provider).createDelegatedQueryClause(alias);
+        willReturn(delegated).given(provider).createDelegatedQueryClause(alias, null);
         willReturn(transformer).given(provider).createTransformerForAlias(alias);
+        willReturn(mock(SQLCommonQueryFactory.class)).given(provider).getQueryFactory();
         final ExtendedGroupableQueryClause<?, ?> result = provider.query(alias);
         final WrappedSqlQueryClause<?> wresult = assertInstanceOf(WrappedSqlQueryClause.class, result);
         assertSame(delegated, wresult.getDelegate());
         assertSame(transformer, wresult.getTransformer());
-        then(provider).should().createDelegatedQueryClause(alias);
+        assertNull(wresult.getConnectionSource());
+        then(provider).should().routeQuery();
+        then(provider).should().createDelegatedQueryClause(alias, null);
         then(provider).should().createTransformerForAlias(alias);
         then(delegated).shouldHaveNoInteractions();
         then(transformer).shouldHaveNoInteractions();
     }
 
     /**
-     * Unit test for {@link AbstractWrappedSqlClauseProvider#createDelegatedQueryClause(EntityPath)}.
+     * Unit test for {@link AbstractWrappedSqlClauseProvider#query(EntityPath)}.
+     */
+    @Test
+    void testQueryConnectionSource() {
+        final AbstractWrappedSqlClauseProvider provider = spy(new TestProvider(QTargetEntity.base, QEntity.base));
+        final QEntity alias = new QEntity("alias");
+        final Connection connection = mock(Connection.class);
+        final SQLQueryFactory primary = new SQLQueryFactory(new Configuration(SQLTemplates.DEFAULT), () -> connection);
+        final SQLQueryFactory replica = new SQLQueryFactory(new Configuration(SQLTemplates.DEFAULT), () -> null);
+        willReturn(primary).given(provider).getQueryFactory();
+        willReturn(ExpressionTransformer.NOP).given(provider).createTransformerForAlias(alias);
+        final WrappedSqlQueryClause<?> result = assertInstanceOf(WrappedSqlQueryClause.class,
+                provider.query(alias));
+        assertNotNull(result.getConnectionSource());
+        assertSame(connection, result.getConnectionSource().get());
+        final SqlReplicaRouter router = new SqlReplicaRouter(
+                SqlReplicaRouter.Strategy.ROUND_ROBIN,
+                Collections.singletonList(replica));
+        provider.setReplicaRouter(router);
+        final WrappedSqlQueryClause<?> replicaResult = assertInstanceOf(WrappedSqlQueryClause.class,
+                provider.query(alias));
+        assertNotNull(replicaResult.getConnectionSource());
+        assertNull(replicaResult.getConnectionSource().get());
+        assertNull(AbstractWrappedSqlClauseProvider.resolveConnectionSource(
+                mock(SQLCommonQueryFactory.class)));
+    }
+
+    /**
+     * Unit test for {@link AbstractWrappedSqlClauseProvider#createDelegatedQueryClause(EntityPath, SqlReplicaRouter.Replica)}.
      */
     @Test
     void testCreateDelegatedQueryClause() {
@@ -184,7 +221,7 @@ class AbstractWrappedSqlClauseProviderTest {
         final SQLQuery<?> expected = mock(SQLQuery.class);
         willReturn(factory).given(provider).getQueryFactory();
         willReturn(expected).given(factory).from(source);
-        final ProjectableSQLQuery<?, ?> result = provider.createDelegatedQueryClause(alias);
+        final ProjectableSQLQuery<?, ?> result = provider.createDelegatedQueryClause(alias, null);
         assertSame(expected, result);
         then(provider).should().getQueryFactory();
         then(factory).should().from(source);
@@ -192,6 +229,39 @@ class AbstractWrappedSqlClauseProviderTest {
         then(expected).shouldHaveNoInteractions();
     }
 
+    /**
+     * Unit test for {@link AbstractWrappedSqlClauseProvider#routeQuery()} and
+     * {@link AbstractWrappedSqlClauseProvider#createDelegatedQueryClause(EntityPath, SqlReplicaRouter.Replica)}.
+     */
+    @Test
+    void testCreateDelegatedQueryClauseReplica() {
+        final AbstractWrappedSqlClauseProvider provider = spy(new TestProvider(QTargetEntity.base, QEntity.base));
+        final QEntity alias = new QEntity("alias");
+        final QTargetEntity source = new QTargetEntity("alias");
+        final SQLCommonQueryFactory<? extends ProjectableSQLQuery<?, ?>, ?, ?, ?, ?> primary = mockFactory();
+        final SQLCommonQueryFactory<? extends ProjectableSQLQuery<?, ?>, ?, ?, ?, ?> replica = mockFactory();
+        final SQLQuery<?> expected = mock(SQLQuery.class);
+        final SQLQuery<?> primaryQuery = mock(SQLQuery.class);
+        willReturn(primary).given(provider).getQueryFactory();
+        willReturn(expected).given(replica).from(source);
+        willReturn(primaryQuery).given(primary).from(source);
+        assertNull(provider.getReplicaRouter());
+        assertNull(provider.routeQuery());
+        final SqlReplicaRouter router = new SqlReplicaRouter(
+                SqlReplicaRouter.Strategy.ROUND_ROBIN,
+                Collections.singletonList(replica));
+        provider.setReplicaRouter(router);
+        assertSame(router, provider.getReplicaRouter());
+        assertSame(router.getReplicas().get(0), provider.routeQuery());
+        assertSame(expected, provider.createDelegatedQueryClause(alias, provider.routeQuery()));
+        then(expected).should().addListener(router.getReplicas().get(0));
+        then(primary).shouldHaveNoInteractions();
+        router.getReplicas().get(0).setHealthy(false);
+        assertNull(provider.routeQuery());
+        assertSame(primaryQuery, provider.createDelegatedQueryClause(alias, provider.routeQuery()));
+        then(primary).should().from(source);
+    }
+
     /**
      * Unit test for {@link AbstractWrappedSqlClauseProvider#createDelegatedInsertClause(EntityPath)}.
      */
@@ -212,6 +282,71 @@ class AbstractWrappedSqlClauseProviderTest {
         then(expected).shouldHaveNoInteractions();
     }
 
+    /**
+     * Unit test for {@link AbstractWrappedSqlClauseProvider#setOnConflictMerges(boolean)}.
+     */
+    @Test
+    void testSetOnConflictMerges() {
+        final AbstractWrappedSqlClauseProvider provider = new TestProvider(QTargetEntity.base, QEntity.base);
+        assertFalse(provider.isOnConflictMerges());
+        provider.setOnConflictMerges(true);
+        assertTrue(provider.isOnConflictMerges());
+        provider.setOnConflictMerges(false);
+        assertFalse(provider.isOnConflictMerges());
+    }
+
+    /**
+     * Unit test for {@link AbstractWrappedSqlClauseProvider#merge(EntityPath)}.
+     */
+    @Test
+    void testMerge() {
+        final AbstractWrappedSqlClauseProvider provider = spy(new TestProvider(QTargetEntity.base, QEntity.base));
+        assertThrows(NullPointerException.class, () -> {
+            provider.merge(null);
+        });
+        assertThrows(EntityPathNotSupportedException.class, () -> {
+            provider.merge(new QEntity2("unsupported"));
+        });
+        final SQLMergeClause delegated = mock(SQLMergeClause.class);
+        final ExpressionTransformer transformer = mock(ExpressionTransformer.class);
+        final QEntity alias = new QEntity("alias");
+        willReturn(delegated).given(provider).createDelegatedMergeClause(alias);
+        willReturn(transformer).given(provider).createTransformerForAlias(alias);
+        final ExtendedMergeClause<?> result = provider.merge(alias);
+        final WrappedMergeClause wresult = assertInstanceOf(WrappedMergeClause.class, result);
+        assertSame(delegated, wresult.getDelegate());
+        assertSame(transformer, wresult.getTransformer());
+        then(provider).should().createDelegatedMergeClause(alias);
+        then(provider).should().createTransformerForAlias(alias);
+        then(delegated).should().addListener(any(SqlExecutionBoundsListener.class));
+        then(transformer).shouldHaveNoInteractions();
+    }
+
+    /**
+     * Unit test for {@link AbstractWrappedSqlClauseProvider#createDelegatedMergeClause(EntityPath)}.
+     */
+    @Test
+    void testCreateDelegatedMergeClause() {
+        final AbstractWrappedSqlClauseProvider provider = spy(new TestProvider(QTargetEntity.base, QEntity.base));
+        final QEntity alias = new QEntity("alias");
+        final QTargetEntity source = new QTargetEntity("alias");
+        final SQLCommonQueryFactory<?, ?, ?, ?, ?> factory = mock(SQLCommonQueryFactory.class);
+        final SQLMergeClause expected = mock(SQLMergeClause.class);
+        final SQLInsertClause expectedInsert = mock(SQLInsertClause.class);
+        willReturn(factory).given(provider).getQueryFactory();
+        willReturn(expected).given(factory).merge(source);
+        willReturn(expectedInsert).given(factory).insert(source);
+        assertSame(expected, provider.createDelegatedMergeClause(alias));
+        then(factory).should().merge(source);
+        then(factory).shouldHaveNoMoreInteractions();
+        provider.setOnConflictMerges(true);
+        assertSame(expectedInsert, provider.createDelegatedMergeClause(alias));
+        then(factory).should().insert(source);
+        then(factory).shouldHaveNoMoreInteractions();
+        then(expected).shouldHaveNoInteractions();
+        then(expectedInsert).shouldHaveNoInteractions();
+    }
+
     /**
      * Unit test for {@link AbstractWrappedSqlClauseProvider#createDelegatedUpdateClause(EntityPath)}.
      */
@@ -252,6 +387,207 @@ class AbstractWrappedSqlClauseProviderTest {
         then(expected).shouldHaveNoInteractions();
     }
 
+    /**
+     * Unit test for {@link AbstractWrappedSqlClauseProvider#configureClause(WrappedClause, EntityPath)}.
+     */
+    @Test
+    void testConfigureClause() {
+        final AbstractWrappedSqlClauseProvider provider = new TestProvider(QTargetEntity.base, QEntity.base);
+        final QEntity alias = new QEntity("alias");
+        final SQLDeleteClause deleteDelegate = mock(SQLDeleteClause.class);
+        final WrappedDeleteClause deleteClause = new WrappedDeleteClause(deleteDelegate);
+        assertSame(deleteClause, provider.configureClause(deleteClause, alias));
+        then(deleteDelegate).should().addListener(any(SqlExecutionBoundsListener.class));
+        final SQLUpdateClause updateDelegate = mock(SQLUpdateClause.class);
+        final WrappedUpdateClause updateClause = new WrappedUpdateClause(updateDelegate);
+        assertSame(updateClause, provider.configureClause(updateClause, alias));
+        then(updateDelegate).should().addListener(any(SqlExecutionBoundsListener.class));
+        final DeleteClause<?> otherDelegate = mock(DeleteClause.class);
+        provider.configureClause(new WrappedDeleteClause(otherDelegate), alias);
+        then(otherDelegate).shouldHaveNoInteractions();
+        final ProjectableSQLQuery<?, ?> queryDelegate = mock(SQLQuery.class);
+        provider.configureClause(new WrappedSqlQueryClause<>(null, queryDelegate), alias);
+        then(queryDelegate).shouldHaveNoInteractions();
+    }
+
+    /**
+     * Unit test for {@link AbstractWrappedSqlClauseProvider#configureClause(WrappedClause, EntityPath)}.
+     */
+    @Test
+    void testConfigureClauseReplicaRouter() {
+        final AbstractWrappedSqlClauseProvider provider = new TestProvider(QTargetEntity.base, QEntity.base);
+        final SqlReplicaRouter router = new SqlReplicaRouter(
+                SqlReplicaRouter.Strategy.ROUND_ROBIN,
+                Collections.singletonList(mockFactory()));
+        provider.setReplicaRouter(router);
+        final QEntity alias = new QEntity("alias");
+        final SQLDeleteClause deleteDelegate = mock(SQLDeleteClause.class);
+        provider.configureClause(new WrappedDeleteClause(deleteDelegate), alias);
+        then(deleteDelegate).should().addListener(any(SqlExecutionBoundsListener.class));
+        then(deleteDelegate).should().addListener(router.getWriteListener());
+        final SQLInsertClause insertDelegate = mock(SQLInsertClause.class);
+        provider.configureClause(new WrappedInsertClause(insertDelegate), alias);
+        then(insertDelegate).should().addListener(router.getWriteListener());
+        final ProjectableSQLQuery<?, ?> queryDelegate = mock(SQLQuery.class);
+        provider.configureClause(new WrappedSqlQueryClause<>(null, queryDelegate), alias);
+        then(queryDelegate).shouldHaveNoInteractions();
+    }
+
+    /**
+     * Unit test for {@link AbstractWrappedSqlClauseProvider#setMultiRowMaxParameters(int)}.
+     */
+    @Test
+    void testSetMultiRowMaxParameters() {
+        final AbstractWrappedSqlClauseProvider provider = new TestProvider(QTargetEntity.base, QEntity.base);
+        assertEquals(0, provider.getMultiRowMaxParameters());
+        provider.setMultiRowMaxParameters(999);
+        assertEquals(999, provider.getMultiRowMaxParameters());
+        assertThrows(IllegalArgumentException.class, () -> {
+            provider.setMultiRowMaxParameters(-1);
+        });
+    }
+
+    /**
+     * Unit test for {@link AbstractWrappedSqlClauseProvider#configureClause(WrappedClause, EntityPath)}.
+     */
+    @Test
+    void testConfigureClauseMultiRow() {
+        final AbstractWrappedSqlClauseProvider provider = spy(new TestProvider(QTargetEntity.base, QEntity.base));
+        final QEntity alias = new QEntity("alias");
+        final WrappedInsertClause disabled = new WrappedInsertClause(mock(SQLInsertClause.class));
+        provider.configureClause(disabled, alias);
+        assertFalse(disabled.isMultiRowEnabled());
+        provider.setMultiRowMaxParameters(999);
+        final WrappedInsertClause clause = new WrappedInsertClause(mock(SQLInsertClause.class));
+        provider.configureClause(clause, alias);
+        assertEquals(999, clause.getMultiRowMaxParameters());
+        assertTrue(clause.isMultiRowEnabled());
+        final SQLInsertClause statement = mock(SQLInsertClause.class);
+        willReturn(statement).given(provider).createMultiRowInsertClause(clause, alias);
+        assertSame(statement, clause.getMultiRowClauses().get());
+        then(provider).should().createMultiRowInsertClause(clause, alias);
+    }
+
+    /**
+     * Unit test for {@link AbstractWrappedSqlClauseProvider#createMultiRowInsertClause(WrappedInsertClause, EntityPath)}.
+     */
+    @Test
+    void testCreateMultiRowInsertClause() {
+        final AbstractWrappedSqlClauseProvider provider = spy(new TestProvider(QTargetEntity.base, QEntity.base));
+        final SqlReplicaRouter router = new SqlReplicaRouter(
+                SqlReplicaRouter.Strategy.ROUND_ROBIN,
+                Collections.singletonList(mockFactory()));
+        provider.setReplicaRouter(router);
+        final QEntity alias = new QEntity("alias");
+        final QTargetEntity source = new QTargetEntity("alias");
+        final SQLCommonQueryFactory<?, ?, ?, ?, ?> factory = mock(SQLCommonQueryFactory.class);
+        final SQLInsertClause expected = mock(SQLInsertClause.class);
+        willReturn(factory).given(provider).getQueryFactory();
+        willReturn(expected).given(factory).insert(source);
+        final WrappedInsertClause clause = new WrappedInsertClause(mock(SQLInsertClause.class));
+        assertSame(expected, provider.createMultiRowInsertClause(clause, alias));
+        then(factory).should().insert(source);
+        then(expected).should().addListener(any(SqlExecutionBoundsListener.class));
+        then(expected).should().addListener(router.getWriteListener());
+    }
+
+    /**
+     * Unit test for {@link AbstractWrappedSqlClauseProvider#configureClause(WrappedClause, EntityPath)}.
+     */
+    @Test
+    void testConfigureClauseChunked() {
+        final AbstractWrappedSqlClauseProvider provider = spy(new TestProvider(QTargetEntity.base, QEntity.base));
+        final QEntity alias = new QEntity("alias");
+        final WrappedDeleteClause deleteClause = new WrappedDeleteClause(mock(SQLDeleteClause.class));
+        provider.configureClause(deleteClause, alias);
+        final SQLDeleteClause deleteStatement = mock(SQLDeleteClause.class);
+        final SQLQuery<?> query = mock(SQLQuery.class);
+        willReturn(deleteStatement).given(provider).createChunkDeleteClause(deleteClause, alias);
+        willReturn(query).given(provider).createChunkKeyQuery(deleteClause, alias);
+        assertSame(deleteStatement, deleteClause.getChunkStatements().get());
+        assertSame(query, deleteClause.getChunkQueries().get());
+        final WrappedUpdateClause updateClause = new WrappedUpdateClause(mock(SQLUpdateClause.class));
+        provider.configureClause(updateClause, alias);
+        final SQLUpdateClause updateStatement = mock(SQLUpdateClause.class);
+        willReturn(updateStatement).given(provider).createChunkUpdateClause(updateClause, alias);
+        willReturn(query).given(provider).createChunkKeyQuery(updateClause, alias);
+        assertSame(updateStatement, updateClause.getChunkStatements().get());
+        assertSame(query, updateClause.getChunkQueries().get());
+        final WrappedDeleteClause otherClause = new WrappedDeleteClause(mock(DeleteClause.class));
+        provider.configureClause(otherClause, alias);
+        assertNull(otherClause.getChunkStatements());
+        assertNull(otherClause.getChunkQueries());
+    }
+
+    /**
+     * Unit test for {@link AbstractWrappedSqlClauseProvider#createChunkDeleteClause(WrappedDeleteClause, EntityPath)}.
+     */
+    @Test
+    void testCreateChunkDeleteClause() {
+        final AbstractWrappedSqlClauseProvider provider = spy(new TestProvider(QTargetEntity.base, QEntity.base));
+        final SqlReplicaRouter router = new SqlReplicaRouter(
+                SqlReplicaRouter.Strategy.ROUND_ROBIN,
+                Collections.singletonList(mockFactory()));
+        provider.setReplicaRouter(router);
+        final QEntity alias = new QEntity("alias");
+        final QTargetEntity source = new QTargetEntity("alias");
+        final SQLCommonQueryFactory<?, ?, ?, ?, ?> factory = mock(SQLCommonQueryFactory.class);
+        final SQLDeleteClause expected = mock(SQLDeleteClause.class);
+        willReturn(factory).given(provider).getQueryFactory();
+        willReturn(expected).given(factory).delete(source);
+        final WrappedDeleteClause clause = new WrappedDeleteClause(mock(SQLDeleteClause.class));
+        assertSame(expected, provider.createChunkDeleteClause(clause, alias));
+        then(factory).should().delete(source);
+        then(expected).should().addListener(any(SqlExecutionBoundsListener.class));
+        then(expected).should().addListener(router.getWriteListener());
+    }
+
+    /**
+     * Unit test for {@link AbstractWrappedSqlClauseProvider#createChunkUpdateClause(WrappedUpdateClause, EntityPath)}.
+     */
+    @Test
+    void testCreateChunkUpdateClause() {
+        final AbstractWrappedSqlClauseProvider provider = spy(new TestProvider(QTargetEntity.base, QEntity.base));
+        final QEntity alias = new QEntity("alias");
+        final QTargetEntity source = new QTargetEntity("alias");
+        final SQLCommonQueryFactory<?, ?, ?, ?, ?> factory = mock(SQLCommonQueryFactory.class);
+        final SQLUpdateClause expected = mock(SQLUpdateClause.class);
+        willReturn(factory).given(provider).getQueryFactory();
+        willReturn(expected).given(factory).update(source);
+        final WrappedUpdateClause clause = new WrappedUpdateClause(mock(SQLUpdateClause.class));
+        assertSame(expected, provider.createChunkUpdateClause(clause, alias));
+        then(factory).should().update(source);
+        then(expected).should().addListener(any(SqlExecutionBoundsListener.class));
+    }
+
+    /**
+     * Unit test for {@link AbstractWrappedSqlClauseProvider#createChunkKeyQuery(WrappedClause, EntityPath)}.
+     */
+    @Test
+    void testCreateChunkKeyQuery() {
+        final AbstractWrappedSqlClauseProvider provider = spy(new TestProvider(QTargetEntity.base, QEntity.base));
+        final SQLCommonQueryFactory<? extends ProjectableSQLQuery<?, ?>, ?, ?, ?, ?> replica = mockFactory();
+        provider.setReplicaRouter(new SqlReplicaRouter(
+                SqlReplicaRouter.Strategy.ROUND_ROBIN,
+                Collections.singletonList(replica)));
+        final QEntity alias = new QEntity("alias");
+        final QTargetEntity source = new QTargetEntity("alias");
+        final SQLCommonQueryFactory<?, ?, ?, ?, ?> factory = mock(SQLCommonQueryFactory.class);
+        final SQLQuery<?> expected = mock(SQLQuery.class);
+        willReturn(factory).given(provider).getQueryFactory();
+        willReturn(expected).given(factory).from(source);
+        final WrappedDeleteClause clause = new WrappedDeleteClause(mock(SQLDeleteClause.class));
+        assertSame(expected, provider.createChunkKeyQuery(clause, alias));
+        then(factory).should().from(source);
+        then(expected).should().addListener(any(SqlExecutionBoundsListener.class));
+        then(replica).shouldHaveNoInteractions();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static SQLCommonQueryFactory<? extends ProjectableSQLQuery<?, ?>, ?, ?, ?, ?> mockFactory() {
+        return mock(SQLCommonQueryFactory.class);
+    }
+
     private static class TestProvider
     extends AbstractWrappedSqlClauseProvider {
         public TestProvider(@NotNull RelationalPath<?> targetEntity, @NotNull EntityPath<?>... supportedEntities) {
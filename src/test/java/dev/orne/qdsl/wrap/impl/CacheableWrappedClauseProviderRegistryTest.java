@@ -25,6 +25,9 @@ package dev.orne.qdsl.wrap.impl;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.BDDMockito.*;
 
+import java.util.Collections;
+import java.util.List;
+
 import javax.cache.Cache;
 
 import org.junit.jupiter.api.AfterEach;
@@ -181,6 +184,24 @@ class CacheableWrappedClauseProviderRegistryTest {
         then(provider).shouldHaveNoInteractions();
     }
 
+    /**
+     * Unit test for {@link CacheableWrappedClauseProviderRegistry#findAll(Class, Class)}.
+     */
+    @Test
+    void testFindAll() {
+        final CacheableWrappedClauseProviderRegistry registry =
+                new CacheableWrappedClauseProviderRegistry(delegated);
+        registry.setCache(cache);
+        final List<WrappedClauseProvider> expected = Collections.singletonList(provider);
+        given(delegated.findAll(WrappedClauseProvider.class, Type.class)).willReturn(expected);
+        final List<WrappedClauseProvider> result = registry.findAll(WrappedClauseProvider.class, Type.class);
+        assertSame(expected, result);
+        then(delegated).should().findAll(WrappedClauseProvider.class, Type.class);
+        then(delegated).shouldHaveNoMoreInteractions();
+        then(cache).shouldHaveNoInteractions();
+        then(provider).shouldHaveNoInteractions();
+    }
+
     /**
      * Unit test for {@link CacheKey#CacheKey(Class, Class)}.
      */
@@ -0,0 +1,270 @@
+package dev.orne.qdsl.wrap.impl;
+
+/*-
+ * #%L
+ * Orne Querydsl Utils
+ * %%
+ * Copyright (C) 2022 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.querydsl.collections.DefaultQueryEngine;
+import com.querydsl.collections.QueryEngine;
+import com.querydsl.core.types.PathMetadataFactory;
+import com.querydsl.core.types.SubQueryExpression;
+import com.querydsl.core.types.dsl.EntityPathBase;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.core.types.dsl.StringPath;
+
+import dev.orne.qdsl.test.model.Item;
+
+/**
+ * Unit tests for {@code CollStoreDmlClause}.
+ *
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2022-10
+ * @since 0.1
+ * @see CollStoreDmlClause
+ */
+@Tag("ut")
+class CollStoreDmlClauseTest {
+
+    private static final QItem ENTITY = new QItem("item");
+    private static final QueryEngine ENGINE = DefaultQueryEngine.getDefault();
+
+    /**
+     * Unit test for {@link CollStoreDmlClause#CollStoreDmlClause(CollValueStore, com.querydsl.core.types.Path, QueryEngine, CollStoreDmlClause.Type)}.
+     */
+    @Test
+    void testConstructor() {
+        final CollValueStore<Item> store = new CollValueStore<>(Item::new);
+        final CollStoreDmlClause<Item> clause = new CollStoreDmlClause<>(
+                store, ENTITY, ENGINE, CollStoreDmlClause.Type.INSERT);
+        assertSame(store, clause.getStore());
+        assertSame(ENTITY, clause.getEntity());
+        assertSame(CollStoreDmlClause.Type.INSERT, clause.getType());
+        assertTrue(clause.isEmpty());
+        assertEquals("INSERT item", clause.toString());
+        assertThrows(NullPointerException.class, () -> {
+            new CollStoreDmlClause<>(null, ENTITY, ENGINE, CollStoreDmlClause.Type.INSERT);
+        });
+        assertThrows(NullPointerException.class, () -> {
+            new CollStoreDmlClause<>(store, null, ENGINE, CollStoreDmlClause.Type.INSERT);
+        });
+        assertThrows(NullPointerException.class, () -> {
+            new CollStoreDmlClause<>(store, ENTITY, null, CollStoreDmlClause.Type.INSERT);
+        });
+        assertThrows(NullPointerException.class, () -> {
+            new CollStoreDmlClause<>(store, ENTITY, ENGINE, null);
+        });
+    }
+
+    /**
+     * Unit test for {@link CollStoreDmlClause#execute()} of insert clauses.
+     */
+    @Test
+    void testInsert() {
+        final CollValueStore<Item> store = new CollValueStore<>(Item::new);
+        final CollStoreDmlClause<Item> clause = new CollStoreDmlClause<>(
+                store, ENTITY, ENGINE, CollStoreDmlClause.Type.INSERT);
+        assertThrows(IllegalStateException.class, () -> {
+            clause.execute();
+        });
+        assertEquals(1, clause.set(ENTITY.id, 1L)
+                .set(ENTITY.code, Expressions.constant("a"))
+                .set(ENTITY.name, "A")
+                .execute());
+        assertTrue(clause.isEmpty());
+        assertEquals(1, clause.set(ENTITY.id, 2L)
+                .setNull(ENTITY.name)
+                .execute());
+        assertEquals(1, clause.columns(ENTITY.id, ENTITY.code)
+                .values(3L, Expressions.constant("c"))
+                .execute());
+        assertEquals(1, clause.set(Arrays.asList(ENTITY.id, ENTITY.name), Arrays.asList(4L, null))
+                .execute());
+        final List<Item> values = store.snapshot();
+        assertEquals(4, values.size());
+        assertItem(values.get(0), 1L, "a", "A");
+        assertItem(values.get(1), 2L, null, null);
+        assertItem(values.get(2), 3L, "c", null);
+        assertItem(values.get(3), 4L, null, null);
+    }
+
+    /**
+     * Unit test for {@link CollStoreDmlClause#addBatch()}.
+     */
+    @Test
+    void testInsertBatch() {
+        final CollValueStore<Item> store = spy(new CollValueStore<>(Item::new));
+        final CollStoreDmlClause<Item> clause = new CollStoreDmlClause<>(
+                store, ENTITY, ENGINE, CollStoreDmlClause.Type.INSERT);
+        assertThrows(IllegalStateException.class, () -> {
+            clause.addBatch();
+        });
+        assertSame(clause, clause.set(ENTITY.id, 1L).set(ENTITY.code, "a").addBatch());
+        assertSame(clause, clause.set(ENTITY.id, 2L).setNull(ENTITY.name).addBatch());
+        assertTrue(clause.isEmpty());
+        assertEquals(2, clause.getBatchCount());
+        assertTrue(store.isEmpty());
+        assertEquals(3, clause.set(ENTITY.id, 3L).execute());
+        assertEquals(0, clause.getBatchCount());
+        assertTrue(clause.isEmpty());
+        then(store).should(times(1)).addAll(any());
+        final List<Item> values = store.snapshot();
+        assertEquals(3, values.size());
+        assertItem(values.get(0), 1L, "a", null);
+        assertItem(values.get(1), 2L, null, null);
+        assertItem(values.get(2), 3L, null, null);
+        clause.set(ENTITY.id, 4L).addBatch();
+        clause.set(ENTITY.id, 5L);
+        clause.clear();
+        assertEquals(0, clause.getBatchCount());
+        assertTrue(clause.isEmpty());
+        assertThrows(IllegalStateException.class, () -> {
+            new CollStoreDmlClause<>(store, ENTITY, ENGINE, CollStoreDmlClause.Type.UPDATE)
+                    .set(ENTITY.id, 1L)
+                    .addBatch();
+        });
+        assertEquals(3, store.size());
+    }
+
+    /**
+     * Unit test for {@link CollStoreDmlClause#execute()} of insert clauses
+     * with invalid assignments.
+     */
+    @Test
+    void testInsertInvalid() {
+        final CollValueStore<Item> store = new CollValueStore<>(Item::new);
+        final CollStoreDmlClause<Item> clause = new CollStoreDmlClause<>(
+                store, ENTITY, ENGINE, CollStoreDmlClause.Type.INSERT);
+        assertThrows(IllegalArgumentException.class, () -> {
+            clause.set(new QItem("other").id, 1L);
+        });
+        assertThrows(IllegalStateException.class, () -> {
+            clause.values(1L);
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            clause.columns(ENTITY.id).values(1L, "a");
+        });
+        assertThrows(UnsupportedOperationException.class, () -> {
+            clause.select(mock(SubQueryExpression.class));
+        });
+        clause.set(ENTITY.name, ENTITY.code.concat("!"));
+        assertThrows(UnsupportedOperationException.class, () -> {
+            clause.execute();
+        });
+        assertTrue(store.isEmpty());
+    }
+
+    /**
+     * Unit test for {@link CollStoreDmlClause#execute()} of update clauses.
+     */
+    @Test
+    void testUpdate() {
+        final Item a = item(1L, "a", "A");
+        final Item b = item(2L, "b", "B");
+        final Item c = item(3L, "c", "C");
+        final CollValueStore<Item> store = new CollValueStore<>(Item::new, Arrays.asList(a, b, c));
+        final List<Item> before = store.snapshot();
+        final CollStoreDmlClause<Item> clause = new CollStoreDmlClause<>(
+                store, ENTITY, ENGINE, CollStoreDmlClause.Type.UPDATE);
+        assertEquals(0, clause.where(ENTITY.id.goe(2L)).execute());
+        assertEquals(2, clause.set(ENTITY.name, ENTITY.code.concat("!"))
+                .set(ENTITY.code, "z")
+                .execute());
+        final List<Item> values = store.snapshot();
+        assertSame(a, values.get(0));
+        assertNotSame(b, values.get(1));
+        assertNotSame(c, values.get(2));
+        assertItem(values.get(1), 2L, "z", "b!");
+        assertItem(values.get(2), 3L, "z", "c!");
+        assertEquals(Arrays.asList(a, b, c), before);
+        assertItem(b, 2L, "b", "B");
+        assertItem(c, 3L, "c", "C");
+    }
+
+    /**
+     * Unit test for {@link CollStoreDmlClause#execute()} of update clauses
+     * without filters.
+     */
+    @Test
+    void testUpdateAll() {
+        final CollValueStore<Item> store = new CollValueStore<>(Item::new, Arrays.asList(
+                item(1L, "a", "A"), item(2L, "b", "B")));
+        final CollStoreDmlClause<Item> clause = new CollStoreDmlClause<>(
+                store, ENTITY, ENGINE, CollStoreDmlClause.Type.UPDATE);
+        assertEquals(2, clause.setNull(ENTITY.name).execute());
+        assertItem(store.snapshot().get(0), 1L, "a", null);
+        assertItem(store.snapshot().get(1), 2L, "b", null);
+    }
+
+    /**
+     * Unit test for {@link CollStoreDmlClause#execute()} of delete clauses.
+     */
+    @Test
+    void testDelete() {
+        final Item a = item(1L, "a", "A");
+        final Item b = item(2L, "b", "B");
+        final Item c = item(3L, "c", "C");
+        final CollValueStore<Item> store = new CollValueStore<>(Item::new, Arrays.asList(a, b, c));
+        final CollStoreDmlClause<Item> clause = new CollStoreDmlClause<>(
+                store, ENTITY, ENGINE, CollStoreDmlClause.Type.DELETE);
+        assertEquals(1, clause.where(ENTITY.code.eq("b"), null).execute());
+        assertEquals(Arrays.asList(a, c), store.snapshot());
+        assertEquals(0, clause.execute());
+        assertEquals(2, new CollStoreDmlClause<>(store, ENTITY, ENGINE, CollStoreDmlClause.Type.DELETE)
+                .execute());
+        assertTrue(store.isEmpty());
+    }
+
+    private static Item item(
+            final Long id,
+            final String code,
+            final String name) {
+        return new Item().withId(id).withCode(code).withName(name);
+    }
+
+    private static void assertItem(
+            final Item value,
+            final Long id,
+            final String code,
+            final String name) {
+        assertEquals(id, value.getId());
+        assertEquals(code, value.getCode());
+        assertEquals(name, value.getName());
+    }
+
+    public static class QItem extends EntityPathBase<Item> {
+        private static final long serialVersionUID = 1L;
+        public final NumberPath<Long> id = createNumber("id", Long.class);
+        public final StringPath name = createString("name");
+        public final StringPath code = createString("code");
+        public QItem(String variable) {
+            super(Item.class, PathMetadataFactory.forVariable(variable));
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package dev.orne.qdsl.wrap.impl;
+
+/*-
+ * #%L
+ * Orne Querydsl Utils
+ * %%
+ * Copyright (C) 2022 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@code CollValueStore}.
+ *
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2022-10
+ * @since 0.1
+ * @see CollValueStore
+ */
+@Tag("ut")
+class CollValueStoreTest {
+
+    /**
+     * Unit test for {@link CollValueStore#CollValueStore(java.util.function.Supplier)}
+     * and {@link CollValueStore#CollValueStore(java.util.function.Supplier, java.util.Collection)}.
+     */
+    @Test
+    void testConstructor() {
+        final CollValueStore<Bean> store = new CollValueStore<>(Bean::new);
+        assertNotNull(store.getFactory());
+        assertTrue(store.isEmpty());
+        assertTrue(store.snapshot().isEmpty());
+        final Bean a = new Bean(1L, "a");
+        final Bean b = new Bean(2L, "b");
+        final CollValueStore<Bean> initialized = new CollValueStore<>(Bean::new, Arrays.asList(a, b));
+        assertEquals(Arrays.asList(a, b), initialized.snapshot());
+        assertEquals(2, initialized.size());
+        assertThrows(NullPointerException.class, () -> {
+            new CollValueStore<>(null);
+        });
+        assertThrows(NullPointerException.class, () -> {
+            new CollValueStore<>(Bean::new, null);
+        });
+    }
+
+    /**
+     * Unit test for {@link CollValueStore#add(Object)},
+     * {@link CollValueStore#addAll(java.util.Collection)} and
+     * {@link CollValueStore#clear()}.
+     */
+    @Test
+    void testWrites() {
+        final Bean a = new Bean(1L, "a");
+        final Bean b = new Bean(2L, "b");
+        final Bean c = new Bean(3L, "c");
+        final CollValueStore<Bean> store = new CollValueStore<>(Bean::new);
+        final List<Bean> empty = store.snapshot();
+        assertTrue(store.add(a));
+        assertFalse(store.addAll(Collections.emptyList()));
+        final List<Bean> first = store.snapshot();
+        assertTrue(store.addAll(Arrays.asList(b, c)));
+        assertTrue(empty.isEmpty());
+        assertEquals(Collections.singletonList(a), first);
+        assertEquals(Arrays.asList(a, b, c), store.snapshot());
+        assertEquals(3, store.size());
+        assertTrue(store.contains(b));
+        final List<Bean> full = store.snapshot();
+        store.clear();
+        assertTrue(store.isEmpty());
+        assertEquals(Arrays.asList(a, b, c), full);
+    }
+
+    /**
+     * Unit test for {@link CollValueStore#snapshot()} and
+     * {@link CollValueStore#iterator()}.
+     */
+    @Test
+    void testSnapshotUnmodifiable() {
+        final CollValueStore<Bean> store = new CollValueStore<>(Bean::new,
+                Arrays.asList(new Bean(1L, "a"), new Bean(2L, "b")));
+        final List<Bean> snapshot = store.snapshot();
+        assertSame(snapshot, store.snapshot());
+        assertThrows(UnsupportedOperationException.class, () -> {
+            snapshot.add(new Bean(3L, "c"));
+        });
+        final Iterator<Bean> it = store.iterator();
+        store.add(new Bean(3L, "c"));
+        it.next();
+        assertThrows(UnsupportedOperationException.class, () -> {
+            it.remove();
+        });
+        it.next();
+        assertFalse(it.hasNext());
+    }
+
+    /**
+     * Unit test for {@link CollValueStore#replaceMatching(java.util.function.Function, java.util.function.UnaryOperator)}.
+     */
+    @Test
+    void testReplaceMatching() {
+        final Bean a = new Bean(1L, "a");
+        final Bean b = new Bean(2L, "b");
+        final Bean c = new Bean(3L, "c");
+        final CollValueStore<Bean> store = new CollValueStore<>(Bean::new, Arrays.asList(a, b, c));
+        final List<Bean> before = store.snapshot();
+        assertEquals(0, store.replaceMatching(values -> Collections.emptyList(), value -> null));
+        assertSame(before, store.snapshot());
+        final Bean d = new Bean(4L, "d");
+        assertEquals(2, store.replaceMatching(
+                values -> values.stream().filter(v -> v.getId() >= 2).collect(Collectors.toList()),
+                value -> value == b ? d : null));
+        assertEquals(Arrays.asList(a, d), store.snapshot());
+        assertEquals(Arrays.asList(a, b, c), before);
+        assertEquals(0, store.replaceMatching(values -> Collections.singletonList(new Bean(1L, "a")), value -> null));
+        assertEquals(Arrays.asList(a, d), store.snapshot());
+        assertThrows(NullPointerException.class, () -> {
+            store.replaceMatching(null, value -> null);
+        });
+        assertThrows(NullPointerException.class, () -> {
+            store.replaceMatching(values -> values, null);
+        });
+    }
+
+    /**
+     * Unit test for {@link CollValueStore#create()} and
+     * {@link CollValueStore#copy(Object)}.
+     */
+    @Test
+    void testCreateCopy() {
+        final CollValueStore<Bean> store = new CollValueStore<>(Bean::new);
+        final Bean created = store.create();
+        assertNull(created.getId());
+        assertNotSame(created, store.create());
+        final Bean value = new Bean(1L, "a");
+        final Bean copy = store.copy(value);
+        assertNotSame(value, copy);
+        assertEquals(1L, copy.getId());
+        assertEquals("a", copy.getName());
+        assertThrows(NullPointerException.class, () -> {
+            store.copy(null);
+        });
+        final CollValueStore<Bean> nullFactory = new CollValueStore<>(() -> null);
+        assertThrows(NullPointerException.class, () -> {
+            nullFactory.create();
+        });
+    }
+
+    public static class Bean {
+        private Long id;
+        private String name;
+        public Bean() {
+            super();
+        }
+        public Bean(Long id, String name) {
+            super();
+            this.id = id;
+            this.name = name;
+        }
+        public Long getId() {
+            return this.id;
+        }
+        public void setId(Long id) {
+            this.id = id;
+        }
+        public String getName() {
+            return this.name;
+        }
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package dev.orne.qdsl.wrap.impl;
+
+/*-
+ * #%L
+ * Orne Querydsl Utils
+ * %%
+ * Copyright (C) 2022 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.*;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.mysema.commons.lang.CloseableIterator;
+import com.mysema.commons.lang.IteratorAdapter;
+
+import dev.orne.qdsl.wrap.ConcurrencyLimitExceededException;
+import dev.orne.qdsl.wrap.QueryCancelledException;
+
+/**
+ * Unit tests for {@code ConcurrencyLimiter}.
+ *
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2022-10
+ * @since 0.1
+ * @see ConcurrencyLimiter
+ */
+@Tag("ut")
+class ConcurrencyLimiterTest {
+
+    /**
+     * Unit test for {@link ConcurrencyLimiter#ConcurrencyLimiter(int, int, long)}.
+     */
+    @Test
+    void testConstructor() {
+        final ConcurrencyLimiter limiter = new ConcurrencyLimiter(3, 5, 100);
+        assertEquals(3, limiter.getMaxConcurrency());
+        assertEquals(3, limiter.getLimit());
+        assertEquals(5, limiter.getMaxQueued());
+        assertEquals(100L, limiter.getQueueTimeout());
+        assertEquals(0L, limiter.getLatencyThreshold());
+        assertEquals(0, limiter.getInFlightCount());
+        assertEquals(0, limiter.getQueueDepth());
+        assertEquals(0L, limiter.getRejectedCount());
+        final ConcurrencyLimiter noQueue = new ConcurrencyLimiter(2);
+        assertEquals(0, noQueue.getMaxQueued());
+        assertThrows(IllegalArgumentException.class, () -> {
+            new ConcurrencyLimiter(0);
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            new ConcurrencyLimiter(1, -1, 0);
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            new ConcurrencyLimiter(1, 0, -1);
+        });
+    }
+
+    /**
+     * Unit test for {@link ConcurrencyLimiter#execute(java.util.function.Supplier)}.
+     */
+    @Test
+    void testExecuteRejected() {
+        final ConcurrencyLimiter limiter = new ConcurrencyLimiter(1);
+        final Object expected = new Object();
+        assertSame(expected, limiter.execute(() -> {
+            assertEquals(1, limiter.getInFlightCount());
+            assertThrows(ConcurrencyLimitExceededException.class, () -> {
+                limiter.execute(Object::new);
+            });
+            return expected;
+        }));
+        assertEquals(0, limiter.getInFlightCount());
+        assertEquals(1L, limiter.getRejectedCount());
+        assertThrows(IllegalStateException.class, () -> {
+            limiter.execute(() -> {
+                throw new IllegalStateException();
+            });
+        });
+        assertEquals(0, limiter.getInFlightCount());
+        assertThrows(NullPointerException.class, () -> {
+            limiter.execute(null);
+        });
+    }
+
+    /**
+     * Unit test for {@link ConcurrencyLimiter#iterate(java.util.function.Supplier)}.
+     */
+    @Test
+    void testIterate() {
+        final ConcurrencyLimiter limiter = new ConcurrencyLimiter(1);
+        final CloseableIterator<String> iterator = limiter.iterate(
+                () -> new IteratorAdapter<>(Arrays.asList("a", "b").iterator()));
+        assertEquals(1, limiter.getInFlightCount());
+        assertThrows(ConcurrencyLimitExceededException.class, () -> {
+            limiter.execute(Object::new);
+        });
+        assertTrue(iterator.hasNext());
+        assertEquals("a", iterator.next());
+        assertEquals(1, limiter.getInFlightCount());
+        iterator.close();
+        assertEquals(0, limiter.getInFlightCount());
+        iterator.close();
+        assertEquals(0, limiter.getInFlightCount());
+        assertThrows(IllegalStateException.class, () -> {
+            limiter.iterate(() -> {
+                throw new IllegalStateException();
+            });
+        });
+        assertEquals(0, limiter.getInFlightCount());
+        assertThrows(NullPointerException.class, () -> {
+            limiter.iterate(null);
+        });
+    }
+
+    /**
+     * Unit test for {@link ConcurrencyLimiter#iterate(java.util.function.Supplier)}.
+     */
+    @Test
+    void testIterateCloseFailure() {
+        final ConcurrencyLimiter limiter = new ConcurrencyLimiter(1);
+        @SuppressWarnings("unchecked")
+        final CloseableIterator<String> delegate = mock(CloseableIterator.class);
+        final IllegalStateException error = new IllegalStateException();
+        willThrow(error).given(delegate).close();
+        final CloseableIterator<String> iterator = limiter.iterate(() -> delegate);
+        assertEquals(1, limiter.getInFlightCount());
+        assertSame(error, assertThrows(IllegalStateException.class, iterator::close));
+        assertEquals(0, limiter.getInFlightCount());
+    }
+
+    /**
+     * Unit test for {@link ConcurrencyLimiter#execute(java.util.function.Supplier)}.
+     */
+    @Test
+    void testExecuteQueueTimeout() {
+        final ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 1, 10);
+        limiter.execute(() -> {
+            assertThrows(ConcurrencyLimitExceededException.class, () -> {
+                limiter.execute(Object::new);
+            });
+            return null;
+        });
+        assertEquals(1L, limiter.getRejectedCount());
+        assertEquals(0, limiter.getQueueDepth());
+    }
+
+    /**
+     * Unit test for {@link ConcurrencyLimiter#execute(java.util.function.Supplier)}.
+     */
+    @Test
+    void testExecuteQueued()
+    throws Exception {
+        final ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 1, 0);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch finish = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final Future<String> first = executor.submit(() -> limiter.execute(() -> {
+                started.countDown();
+                await(finish);
+                return "first";
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            final Future<String> second = executor.submit(() -> limiter.execute(() -> "second"));
+            while (limiter.getQueueDepth() == 0) {
+                Thread.sleep(1);
+            }
+            assertThrows(ConcurrencyLimitExceededException.class, () -> {
+                limiter.execute(Object::new);
+            });
+            assertEquals(1L, limiter.getRejectedCount());
+            finish.countDown();
+            assertEquals("first", first.get(5, TimeUnit.SECONDS));
+            assertEquals("second", second.get(5, TimeUnit.SECONDS));
+            assertEquals(0, limiter.getInFlightCount());
+            assertEquals(0, limiter.getQueueDepth());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Unit test for {@link ConcurrencyLimiter#execute(java.util.function.Supplier)}.
+     */
+    @Test
+    void testExecuteInterrupted() {
+        final ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 1, 0);
+        limiter.execute(() -> {
+            Thread.currentThread().interrupt();
+            assertThrows(QueryCancelledException.class, () -> {
+                limiter.execute(Object::new);
+            });
+            assertTrue(Thread.interrupted());
+            return null;
+        });
+        assertEquals(0, limiter.getQueueDepth());
+        assertEquals(0, limiter.getInFlightCount());
+    }
+
+    /**
+     * Unit test for {@link ConcurrencyLimiter#release(long)}.
+     */
+    @Test
+    void testAdaptiveLimit() {
+        final ConcurrencyLimiter limiter = new ConcurrencyLimiter(8);
+        limiter.acquire();
+        limiter.release(TimeUnit.SECONDS.toNanos(1));
+        assertEquals(8, limiter.getLimit());
+        limiter.setLatencyThreshold(100);
+        assertEquals(100L, limiter.getLatencyThreshold());
+        limiter.acquire();
+        limiter.release(TimeUnit.SECONDS.toNanos(1));
+        assertEquals(6, limiter.getLimit());
+        limiter.acquire();
+        limiter.release(TimeUnit.MILLISECONDS.toNanos(1));
+        assertEquals(6, limiter.getLimit());
+        for (int i = 0; i < 6; i++) {
+            limiter.acquire();
+        }
+        limiter.release(TimeUnit.MILLISECONDS.toNanos(1));
+        assertEquals(7, limiter.getLimit());
+        assertEquals(5, limiter.getInFlightCount());
+        for (int i = 0; i < 5; i++) {
+            limiter.release(TimeUnit.SECONDS.toNanos(1));
+        }
+        assertEquals(1, limiter.getLimit());
+        limiter.setLatencyThreshold(0);
+        assertEquals(8, limiter.getLimit());
+        assertThrows(IllegalArgumentException.class, () -> {
+            limiter.setLatencyThreshold(-1);
+        });
+    }
+
+    private static void await(
+            final CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package dev.orne.qdsl.wrap.impl;
+
+/*-
+ * #%L
+ * Orne Querydsl Utils
+ * %%
+ * Copyright (C) 2022 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.mysema.commons.lang.CloseableIterator;
+import com.mysema.commons.lang.IteratorAdapter;
+import com.querydsl.core.QueryModifiers;
+
+/**
+ * Unit tests for {@code ConcurrentExecutions}.
+ *
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2022-10
+ * @since 0.1
+ * @see ConcurrentExecutions
+ */
+@Tag("ut")
+class ConcurrentExecutionsTest {
+
+    /**
+     * Unit test for {@link ConcurrentExecutions#executeAll(java.util.List, java.util.function.Function, java.util.concurrent.Executor)}.
+     */
+    @Test
+    void testExecuteAll() {
+        final Thread caller = Thread.currentThread();
+        assertEquals(Arrays.asList(2, 4, 6), ConcurrentExecutions.executeAll(
+                Arrays.asList(1, 2, 3),
+                value -> {
+                    assertSame(caller, Thread.currentThread());
+                    return value * 2;
+                },
+                null));
+        assertEquals(Collections.singletonList(2), ConcurrentExecutions.executeAll(
+                Collections.singletonList(1),
+                value -> {
+                    assertSame(caller, Thread.currentThread());
+                    return value * 2;
+                },
+                command -> fail("Single sources must not be executed concurrently")));
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            assertEquals(Arrays.asList(2, 4, 6), ConcurrentExecutions.executeAll(
+                    Arrays.asList(1, 2, 3),
+                    value -> value * 2,
+                    executor));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Unit test for {@link ConcurrentExecutions#executeAll(java.util.List, java.util.function.Function, java.util.concurrent.Executor)}.
+     */
+    @Test
+    void testExecuteAllFailure() {
+        final IllegalStateException error = new IllegalStateException();
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            assertSame(error, assertThrows(IllegalStateException.class, () -> {
+                ConcurrentExecutions.executeAll(
+                        Arrays.asList(1, 2),
+                        value -> {
+                            if (value == 2) {
+                                throw error;
+                            }
+                            return value;
+                        },
+                        executor);
+            }));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Unit test for {@link ConcurrentExecutions#collect(CloseableIterator)}.
+     */
+    @Test
+    void testCollect() {
+        final CloseableIterator<String> results = spy(
+                new IteratorAdapter<>(Arrays.asList("a", "b").iterator()));
+        assertEquals(Arrays.asList("a", "b"), ConcurrentExecutions.collect(results));
+        then(results).should().close();
+    }
+
+    /**
+     * Unit test for {@link ConcurrentExecutions#restrictLimit(QueryModifiers, long)}.
+     */
+    @Test
+    void testRestrictLimit() {
+        assertEquals(new QueryModifiers(2L, 5L),
+                ConcurrentExecutions.restrictLimit(new QueryModifiers(null, 5L), 2));
+        assertEquals(new QueryModifiers(1L, 5L),
+                ConcurrentExecutions.restrictLimit(new QueryModifiers(1L, 5L), 2));
+        assertEquals(new QueryModifiers(2L, null),
+                ConcurrentExecutions.restrictLimit(new QueryModifiers(3L, null), 2));
+    }
+}
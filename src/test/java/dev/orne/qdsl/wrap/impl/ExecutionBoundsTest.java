@@ -0,0 +1,105 @@
+package dev.orne.qdsl.wrap.impl;
+
+/*-
+ * #%L
+ * Orne Querydsl Utils
+ * %%
+ * Copyright (C) 2022 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import dev.orne.qdsl.wrap.CancelHandle;
+import dev.orne.qdsl.wrap.QueryCancelledException;
+
+/**
+ * Unit tests for {@code ExecutionBounds}.
+ *
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2022-10
+ * @since 0.1
+ * @see ExecutionBounds
+ */
+@Tag("ut")
+class ExecutionBoundsTest {
+
+    /**
+     * Unit test for {@link ExecutionBounds#setTimeout(long)}.
+     */
+    @Test
+    void testTimeout() {
+        final ExecutionBounds bounds = new ExecutionBounds();
+        assertEquals(0L, bounds.getTimeout());
+        assertEquals(0, bounds.getTimeoutSeconds());
+        assertFalse(bounds.isBounded());
+        assertEquals(Long.MAX_VALUE, bounds.getDeadline());
+        bounds.setTimeout(1);
+        assertEquals(1, bounds.getTimeoutSeconds());
+        assertTrue(bounds.isBounded());
+        bounds.setTimeout(2500);
+        assertEquals(3, bounds.getTimeoutSeconds());
+        assertNotEquals(Long.MAX_VALUE, bounds.getDeadline());
+        bounds.setTimeout(Long.MAX_VALUE / 2);
+        assertEquals(Integer.MAX_VALUE, bounds.getTimeoutSeconds());
+        assertThrows(IllegalArgumentException.class, () -> {
+            bounds.setTimeout(-1);
+        });
+    }
+
+    /**
+     * Unit test for {@link ExecutionBounds#checkCancelled()}.
+     */
+    @Test
+    void testCheckCancelled() {
+        final ExecutionBounds bounds = new ExecutionBounds();
+        assertDoesNotThrow(() -> bounds.checkCancelled());
+        final CancelHandle handle = new CancelHandle();
+        bounds.setCancelHandle(handle);
+        assertSame(handle, bounds.getCancelHandle());
+        assertTrue(bounds.isBounded());
+        assertDoesNotThrow(() -> bounds.checkCancelled());
+        handle.cancel();
+        assertThrows(QueryCancelledException.class, () -> {
+            bounds.checkCancelled();
+        });
+    }
+
+    /**
+     * Unit test for {@link ExecutionBounds#checkBounds(long)}.
+     */
+    @Test
+    void testCheckBounds() {
+        final ExecutionBounds bounds = new ExecutionBounds();
+        assertDoesNotThrow(() -> bounds.checkBounds(bounds.getDeadline()));
+        bounds.setTimeout(60000);
+        assertDoesNotThrow(() -> bounds.checkBounds(bounds.getDeadline()));
+        final long expired = System.nanoTime() - 1;
+        assertThrows(QueryCancelledException.class, () -> {
+            bounds.checkBounds(expired);
+        });
+        final CancelHandle handle = new CancelHandle();
+        bounds.setCancelHandle(handle);
+        handle.cancel();
+        assertThrows(QueryCancelledException.class, () -> {
+            bounds.checkBounds(Long.MAX_VALUE);
+        });
+    }
+}
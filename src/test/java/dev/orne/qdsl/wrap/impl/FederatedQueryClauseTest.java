@@ -0,0 +1,428 @@
+package dev.orne.qdsl.wrap.impl;
+
+/*-
+ * #%L
+ * Orne Querydsl Utils
+ * %%
+ * Copyright (C) 2022 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import com.mysema.commons.lang.CloseableIterator;
+import com.querydsl.collections.DefaultQueryEngine;
+import com.querydsl.core.NonUniqueResultException;
+import com.querydsl.core.QueryModifiers;
+import com.querydsl.core.QueryResults;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.Param;
+import com.querydsl.core.types.dsl.StringExpression;
+import com.querydsl.core.types.dsl.StringPath;
+
+import dev.orne.qdsl.wrap.CancelHandle;
+import dev.orne.qdsl.wrap.QueryCancelledException;
+import dev.orne.qdsl.wrap.ReferenceProjection;
+import dev.orne.qdsl.wrap.WrappedQueryClauseProvider;
+
+/**
+ * Unit tests for {@code FederatedQueryClause}.
+ *
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2022-10
+ * @since 0.1
+ * @see FederatedQueryClause
+ */
+@Tag("ut")
+class FederatedQueryClauseTest {
+
+    private static final StringPath SOURCE = Expressions.stringPath("source");
+
+    private @Mock EntityPath<?> entity;
+    private @Mock WrappedQueryClauseProvider hot;
+    private @Mock WrappedQueryClauseProvider archive;
+    private AutoCloseable mocks;
+
+    @BeforeEach
+    void initMocks() {
+        mocks = MockitoAnnotations.openMocks(this);
+        willAnswer(invocation -> createClause("b", "d", "f")).given(hot).query(entity);
+        willAnswer(invocation -> createClause("a", "c", "e", "g")).given(archive).query(entity);
+    }
+
+    @AfterEach
+    void closeMocks() throws Exception {
+        mocks.close();
+    }
+
+    /**
+     * Unit test for {@link FederatedQueryClause#FederatedQueryClause(EntityPath, java.util.Collection, java.util.concurrent.Executor)}.
+     */
+    @Test
+    void testConstructor() {
+        final FederatedQueryClause<?> clause = new FederatedQueryClause<>(
+                entity, Arrays.asList(hot, archive), Runnable::run);
+        assertSame(entity, clause.getEntity());
+        assertEquals(Arrays.asList(hot, archive), clause.getProviders());
+        assertNotNull(clause.getExecutor());
+        assertThrows(NullPointerException.class, () -> {
+            new FederatedQueryClause<>(null, Arrays.asList(hot, archive), null);
+        });
+        assertThrows(NullPointerException.class, () -> {
+            new FederatedQueryClause<>(entity, null, null);
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            new FederatedQueryClause<>(entity, Arrays.asList(hot, null), null);
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            new FederatedQueryClause<>(entity, Collections.<WrappedQueryClauseProvider>emptyList(), null);
+        });
+        then(hot).shouldHaveNoInteractions();
+        then(archive).shouldHaveNoInteractions();
+    }
+
+    /**
+     * Unit test for {@link FederatedQueryClause#fetch()}.
+     */
+    @Test
+    void testFetch() {
+        final FederatedQueryClause<String> clause = createFederated().select(SOURCE);
+        assertEquals(Arrays.asList("b", "d", "f", "a", "c", "e", "g"), clause.fetch());
+        then(hot).should().query(entity);
+        then(archive).should().query(entity);
+        clause.where(SOURCE.ne("c")).limit(3).offset(2);
+        assertEquals(Arrays.asList("f", "a", "e"), clause.fetch());
+    }
+
+    /**
+     * Unit test for {@link FederatedQueryClause#fetch()}.
+     */
+    @Test
+    void testFetchOrdered() {
+        final FederatedQueryClause<String> clause = createFederated()
+                .select(SOURCE)
+                .orderBy(SOURCE.asc());
+        assertEquals(Arrays.asList("a", "b", "c", "d", "e", "f", "g"), clause.fetch());
+        clause.offset(2).limit(3);
+        assertEquals(Arrays.asList("c", "d", "e"), clause.fetch());
+        final FederatedQueryClause<String> desc = createFederated()
+                .select(SOURCE.toUpperCase())
+                .where(SOURCE.ne("e"))
+                .orderBy(SOURCE.desc())
+                .restrict(new QueryModifiers(2L, 1L));
+        assertEquals(Arrays.asList("F", "D"), desc.fetch());
+    }
+
+    /**
+     * Unit test for {@link FederatedQueryClause#fetch()}.
+     */
+    @Test
+    void testFetchOrderedTuple() {
+        final FederatedQueryClause<Tuple> clause = createFederated()
+                .select(SOURCE.toUpperCase(), SOURCE.concat("x"))
+                .where(SOURCE.goe("c"))
+                .orderBy(SOURCE.desc())
+                .limit(2);
+        final List<Tuple> result = clause.fetch();
+        assertEquals(2, result.size());
+        assertEquals("G", result.get(0).get(0, String.class));
+        assertEquals("gx", result.get(0).get(1, String.class));
+        assertEquals("F", result.get(1).get(0, String.class));
+        assertEquals("fx", result.get(1).get(1, String.class));
+        assertEquals(2, result.get(0).size());
+    }
+
+    /**
+     * Unit test for {@link FederatedQueryClause#fetch()} ordered by
+     * nullable values. Collection providers sort nulls first by default,
+     * and the nulls of the ordering are all returned by the archive
+     * provider.
+     */
+    @Test
+    void testFetchOrderedNulls() {
+        final StringExpression key = SOURCE.nullif("c");
+        assertEquals(Arrays.asList("a", "b", "d", "e", "f", "g", "c"), createFederated()
+                .select(SOURCE)
+                .orderBy(key.asc())
+                .fetch());
+        assertEquals(Arrays.asList("c", "g", "f", "e", "d", "b", "a"), createFederated()
+                .select(SOURCE)
+                .orderBy(key.desc())
+                .fetch());
+        assertEquals(Arrays.asList("c", "a", "b", "d", "e", "f", "g"), createFederated()
+                .select(SOURCE)
+                .orderBy(key.asc().nullsFirst())
+                .fetch());
+    }
+
+    /**
+     * Unit test for {@link FederatedQueryClause#fetch()}.
+     */
+    @Test
+    void testFetchParallel() {
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final FederatedQueryClause<String> clause = new FederatedQueryClause<>(
+                    entity, Arrays.asList(hot, archive), executor)
+                    .select(SOURCE)
+                    .orderBy(SOURCE.asc())
+                    .limit(4);
+            assertEquals(Arrays.asList("a", "b", "c", "d"), clause.fetch());
+            assertEquals(7, clause.fetchCount());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Unit test for {@link FederatedQueryClause#set(com.querydsl.core.types.ParamExpression, Object)}.
+     */
+    @Test
+    void testSet() {
+        final Param<String> param = new Param<>(String.class, "param");
+        final FederatedQueryClause<String> clause = createFederated()
+                .select(SOURCE)
+                .where(SOURCE.goe(param))
+                .orderBy(SOURCE.asc());
+        clause.set(param, "e");
+        assertEquals(Arrays.asList("e", "f", "g"), clause.fetch());
+    }
+
+    /**
+     * Unit test for {@link FederatedQueryClause#distinct()}.
+     */
+    @Test
+    void testDistinct() {
+        willAnswer(invocation -> createClause("a", "a", "b")).given(hot).query(entity);
+        final FederatedQueryClause<String> clause = createFederated()
+                .select(SOURCE)
+                .orderBy(SOURCE.asc())
+                .distinct();
+        assertEquals(Arrays.asList("a", "a", "b", "c", "e", "g"), clause.fetch());
+    }
+
+    /**
+     * Unit test for {@link FederatedQueryClause#fetchFirst()} and
+     * {@link FederatedQueryClause#fetchOne()}.
+     */
+    @Test
+    void testFetchFirstOne() {
+        final FederatedQueryClause<String> clause = createFederated()
+                .select(SOURCE)
+                .orderBy(SOURCE.desc());
+        assertEquals("g", clause.fetchFirst());
+        assertThrows(NonUniqueResultException.class, () -> {
+            clause.fetchOne();
+        });
+        clause.where(SOURCE.eq("d"));
+        assertEquals("d", clause.fetchOne());
+        assertEquals("d", clause.fetchFirst());
+        clause.where(SOURCE.eq("z"));
+        assertNull(clause.fetchOne());
+        assertNull(clause.fetchFirst());
+    }
+
+    /**
+     * Unit test for {@link FederatedQueryClause#iterate()}.
+     */
+    @Test
+    void testIterate() {
+        final FederatedQueryClause<String> clause = createFederated()
+                .select(SOURCE)
+                .orderBy(SOURCE.asc())
+                .offset(1)
+                .limit(3);
+        final List<String> result = new ArrayList<>();
+        try (final CloseableIterator<String> iterator = clause.iterate()) {
+            iterator.forEachRemaining(result::add);
+        }
+        assertEquals(Arrays.asList("b", "c", "d"), result);
+    }
+
+    /**
+     * Unit test for {@link FederatedQueryClause#fetchCount()} and
+     * {@link FederatedQueryClause#fetchResults()}.
+     */
+    @Test
+    void testFetchCountResults() {
+        final FederatedQueryClause<String> clause = createFederated()
+                .select(SOURCE)
+                .where(SOURCE.ne("a"))
+                .orderBy(SOURCE.asc())
+                .limit(2);
+        assertEquals(6, clause.fetchCount());
+        final QueryResults<String> results = clause.fetchResults();
+        assertEquals(6, results.getTotal());
+        assertEquals(Arrays.asList("b", "c"), results.getResults());
+        assertEquals(2L, results.getLimit());
+        clause.where(SOURCE.eq("z"));
+        assertEquals(0, clause.fetchCount());
+        assertTrue(clause.fetchResults().isEmpty());
+    }
+
+    /**
+     * Unit test for {@link FederatedQueryClause#exists()}.
+     */
+    @Test
+    void testExists() {
+        final FederatedQueryClause<String> clause = createFederated().select(SOURCE);
+        assertTrue(clause.exists());
+        then(archive).shouldHaveNoInteractions();
+        clause.where(SOURCE.eq("g"));
+        assertTrue(clause.exists());
+        clause.where(SOURCE.eq("z"));
+        assertFalse(clause.exists());
+    }
+
+    /**
+     * Unit test for {@link FederatedQueryClause#publish()}.
+     */
+    @Test
+    void testPublish() {
+        final FederatedQueryClause<String> clause = createFederated().select(SOURCE);
+        assertInstanceOf(IteratorResultPublisher.class, clause.publish());
+        assertInstanceOf(IteratorResultPublisher.class, clause.publish(Runnable::run));
+    }
+
+    /**
+     * Unit test for {@link FederatedQueryClause#timeout(long, TimeUnit)} and
+     * {@link FederatedQueryClause#cancelHandle(CancelHandle)}.
+     */
+    @Test
+    void testExecutionBounds() {
+        final CancelHandle handle = new CancelHandle();
+        final FederatedQueryClause<String> clause = createFederated()
+                .select(SOURCE)
+                .timeout(1, TimeUnit.MINUTES)
+                .cancelHandle(handle);
+        assertEquals(7, clause.fetch().size());
+        assertThrows(IllegalArgumentException.class, () -> {
+            clause.timeout(-1, TimeUnit.SECONDS);
+        });
+        assertThrows(NullPointerException.class, () -> {
+            clause.timeout(1, null);
+        });
+        handle.cancel();
+        assertThrows(QueryCancelledException.class, () -> {
+            clause.fetch();
+        });
+        assertThrows(QueryCancelledException.class, () -> {
+            clause.fetchCount();
+        });
+    }
+
+    /**
+     * Unit test for {@link FederatedQueryClause#fetch()}.
+     */
+    @Test
+    void testUnsupported() {
+        final FederatedQueryClause<?> clause = createFederated();
+        clause.orderBy(SOURCE.asc());
+        assertThrows(IllegalStateException.class, () -> {
+            clause.fetch();
+        });
+        final FederatedQueryClause<Long> aggregated = createFederated().select(SOURCE.count());
+        assertThrows(UnsupportedOperationException.class, () -> {
+            aggregated.fetch();
+        });
+        assertThrows(UnsupportedOperationException.class, () -> {
+            clause.asSubQuery();
+        });
+        assertThrows(IllegalStateException.class, () -> {
+            clause.fetchByReferences(Arrays.asList("a"));
+        });
+        then(hot).shouldHaveNoInteractions();
+        then(archive).shouldHaveNoInteractions();
+    }
+
+    /**
+     * Unit test for {@link FederatedQueryClause#fetchByReferences(java.util.Collection, java.util.concurrent.Executor)}.
+     */
+    @Test
+    void testFetchByReferences() {
+        final FederatedQueryClause<String> clause = createFederated()
+                .select(ReferenceProjection.of(SOURCE.toUpperCase(), SOURCE))
+                .where(SOURCE.ne("c"))
+                .limit(1);
+        final Map<String, String> expected = new LinkedHashMap<>();
+        expected.put("b", "B");
+        expected.put("a", "A");
+        expected.put("e", "E");
+        final Map<String, String> result = clause.fetchByReferences(
+                Arrays.asList("a", "b", "c", "e", "z"), Runnable::run);
+        assertEquals(expected, result);
+        assertEquals(new ArrayList<>(expected.keySet()), new ArrayList<>(result.keySet()));
+        assertTrue(clause.fetchByReferences(Collections.emptyList()).isEmpty());
+        assertThrows(NullPointerException.class, () -> {
+            clause.fetchByReferences(null);
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            clause.fetchByReferences(Arrays.asList("a", null));
+        });
+        assertThrows(IllegalStateException.class, () -> {
+            createFederated().select(SOURCE).fetchByReferences(Arrays.asList("a"));
+        });
+        willAnswer(invocation -> createClause("a", "b")).given(hot).query(entity);
+        assertThrows(NonUniqueResultException.class, () -> {
+            clause.fetchByReferences(Arrays.asList("a", "b"));
+        });
+    }
+
+    /**
+     * Unit test for {@link FederatedQueryClause#transform(com.querydsl.core.ResultTransformer)}.
+     */
+    @Test
+    void testTransform() {
+        final FederatedQueryClause<String> clause = createFederated()
+                .select(SOURCE)
+                .orderBy(SOURCE.asc());
+        final Integer result = clause.transform(query -> query.fetch().size());
+        assertEquals(7, result);
+    }
+
+    private FederatedQueryClause<?> createFederated() {
+        return new FederatedQueryClause<>(entity, Arrays.asList(hot, archive), null);
+    }
+
+    private static WrappedCollQueryClause<String> createClause(
+            final String... values) {
+        return new WrappedCollQueryClause<>(
+                SOURCE,
+                DefaultQueryEngine.getDefault(),
+                values);
+    }
+}
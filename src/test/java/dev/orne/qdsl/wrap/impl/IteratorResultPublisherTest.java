@@ -0,0 +1,304 @@
+package dev.orne.qdsl.wrap.impl;
+
+/*-
+ * #%L
+ * Orne Querydsl Utils
+ * %%
+ * Copyright (C) 2022 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+import javax.validation.constraints.NotNull;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.mysema.commons.lang.CloseableIterator;
+import com.mysema.commons.lang.IteratorAdapter;
+
+import dev.orne.qdsl.wrap.ResultPublisher.Subscriber;
+import dev.orne.qdsl.wrap.ResultPublisher.Subscription;
+
+/**
+ * Unit tests for {@code IteratorResultPublisher}.
+ *
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2022-10
+ * @since 0.1
+ * @see IteratorResultPublisher
+ */
+@Tag("ut")
+class IteratorResultPublisherTest {
+
+    /**
+     * Unit test for {@link IteratorResultPublisher#subscribe(Subscriber)}.
+     */
+    @Test
+    void testSubscribeDoesNotOpen() {
+        final Supplier<CloseableIterator<String>> source = source("a", "b");
+        final TestSubscriber<String> subscriber = new TestSubscriber<>();
+        new IteratorResultPublisher<>(source).subscribe(subscriber);
+        assertNotNull(subscriber.subscription);
+        then(source).shouldHaveNoInteractions();
+        assertTrue(subscriber.items.isEmpty());
+        assertFalse(subscriber.completed);
+    }
+
+    /**
+     * Unit test for {@link IteratorResultPublisher#subscribe(Subscriber)}.
+     */
+    @Test
+    void testSubscribeTwice() {
+        final Supplier<CloseableIterator<String>> source = source("a", "b");
+        final IteratorResultPublisher<String> publisher = new IteratorResultPublisher<>(source);
+        publisher.subscribe(new TestSubscriber<>());
+        final TestSubscriber<String> subscriber = new TestSubscriber<>();
+        publisher.subscribe(subscriber);
+        assertNotNull(subscriber.subscription);
+        assertTrue(subscriber.error instanceof IllegalStateException);
+        then(source).shouldHaveNoInteractions();
+    }
+
+    /**
+     * Unit test for {@link IteratorResultPublisher.IteratorSubscription#request(long)}.
+     */
+    @Test
+    void testRequestBackpressure() {
+        final CloseableIterator<String> iterator = spy(new IteratorAdapter<>(
+                Arrays.asList("a", "b", "c").iterator()));
+        final TestSubscriber<String> subscriber = new TestSubscriber<>();
+        new IteratorResultPublisher<>(() -> iterator).subscribe(subscriber);
+        subscriber.subscription.request(1);
+        assertEquals(Arrays.asList("a"), subscriber.items);
+        then(iterator).should(times(1)).hasNext();
+        then(iterator).should(times(1)).next();
+        subscriber.subscription.request(1);
+        assertEquals(Arrays.asList("a", "b"), subscriber.items);
+        then(iterator).should(times(2)).hasNext();
+        then(iterator).should(times(2)).next();
+        assertFalse(subscriber.completed);
+        then(iterator).should(never()).close();
+        subscriber.subscription.request(5);
+        assertEquals(Arrays.asList("a", "b", "c"), subscriber.items);
+        assertTrue(subscriber.completed);
+        assertNull(subscriber.error);
+        then(iterator).should().close();
+    }
+
+    /**
+     * Unit test for {@link IteratorResultPublisher.IteratorSubscription#request(long)}.
+     */
+    @Test
+    void testRequestExactDemand() {
+        final CloseableIterator<String> iterator = spy(new IteratorAdapter<>(
+                Arrays.asList("a", "b").iterator()));
+        final TestSubscriber<String> subscriber = new TestSubscriber<>();
+        new IteratorResultPublisher<>(() -> iterator).subscribe(subscriber);
+        subscriber.subscription.request(2);
+        assertEquals(Arrays.asList("a", "b"), subscriber.items);
+        then(iterator).should(times(2)).hasNext();
+        assertFalse(subscriber.completed);
+        then(iterator).should(never()).close();
+        subscriber.subscription.request(1);
+        assertEquals(Arrays.asList("a", "b"), subscriber.items);
+        assertTrue(subscriber.completed);
+        then(iterator).should().close();
+    }
+
+    /**
+     * Unit test for {@link IteratorResultPublisher.IteratorSubscription#request(long)}.
+     */
+    @Test
+    void testRequestUnbounded() {
+        final TestSubscriber<String> subscriber = new TestSubscriber<>();
+        new IteratorResultPublisher<>(source("a", "b", "c")).subscribe(subscriber);
+        subscriber.subscription.request(Long.MAX_VALUE);
+        assertEquals(Arrays.asList("a", "b", "c"), subscriber.items);
+        assertTrue(subscriber.completed);
+    }
+
+    /**
+     * Unit test for {@link IteratorResultPublisher.IteratorSubscription#request(long)}.
+     */
+    @Test
+    void testRequestReentrant() {
+        final TestSubscriber<String> subscriber = new TestSubscriber<String>() {
+            @Override
+            public void onNext(final String item) {
+                super.onNext(item);
+                this.subscription.request(1);
+            }
+        };
+        new IteratorResultPublisher<>(source("a", "b", "c")).subscribe(subscriber);
+        subscriber.subscription.request(1);
+        assertEquals(Arrays.asList("a", "b", "c"), subscriber.items);
+        assertTrue(subscriber.completed);
+    }
+
+    /**
+     * Unit test for {@link IteratorResultPublisher.IteratorSubscription#request(long)}.
+     */
+    @Test
+    void testRequestInvalid() {
+        final CloseableIterator<String> iterator = spy(new IteratorAdapter<>(
+                Arrays.asList("a", "b").iterator()));
+        final TestSubscriber<String> subscriber = new TestSubscriber<>();
+        new IteratorResultPublisher<>(() -> iterator).subscribe(subscriber);
+        subscriber.subscription.request(1);
+        subscriber.subscription.request(0);
+        assertEquals(Arrays.asList("a"), subscriber.items);
+        assertTrue(subscriber.error instanceof IllegalArgumentException);
+        assertFalse(subscriber.completed);
+        then(iterator).should().close();
+    }
+
+    /**
+     * Unit test for {@link IteratorResultPublisher.IteratorSubscription#cancel()}.
+     */
+    @Test
+    void testCancel() {
+        final CloseableIterator<String> iterator = spy(new IteratorAdapter<>(
+                Arrays.asList("a", "b", "c").iterator()));
+        final TestSubscriber<String> subscriber = new TestSubscriber<>();
+        new IteratorResultPublisher<>(() -> iterator).subscribe(subscriber);
+        subscriber.subscription.request(1);
+        subscriber.subscription.cancel();
+        then(iterator).should().close();
+        subscriber.subscription.request(1);
+        assertEquals(Arrays.asList("a"), subscriber.items);
+        assertFalse(subscriber.completed);
+        assertNull(subscriber.error);
+        then(iterator).should(times(1)).next();
+    }
+
+    /**
+     * Unit test for {@link IteratorResultPublisher.IteratorSubscription#cancel()}.
+     */
+    @Test
+    void testCancelNotOpened() {
+        final Supplier<CloseableIterator<String>> source = source("a");
+        final TestSubscriber<String> subscriber = new TestSubscriber<>();
+        new IteratorResultPublisher<>(source).subscribe(subscriber);
+        subscriber.subscription.cancel();
+        subscriber.subscription.request(1);
+        then(source).shouldHaveNoInteractions();
+        assertTrue(subscriber.items.isEmpty());
+    }
+
+    /**
+     * Unit test for {@link IteratorResultPublisher.IteratorSubscription#request(long)}.
+     */
+    @Test
+    void testIteratorError() {
+        final RuntimeException expected = new RuntimeException();
+        @SuppressWarnings("unchecked")
+        final CloseableIterator<String> iterator = mock(CloseableIterator.class);
+        given(iterator.hasNext()).willReturn(true);
+        given(iterator.next()).willReturn("a").willThrow(expected);
+        final TestSubscriber<String> subscriber = new TestSubscriber<>();
+        new IteratorResultPublisher<>(() -> iterator).subscribe(subscriber);
+        subscriber.subscription.request(3);
+        assertEquals(Arrays.asList("a"), subscriber.items);
+        assertSame(expected, subscriber.error);
+        then(iterator).should().close();
+    }
+
+    /**
+     * Unit test for {@link IteratorResultPublisher.IteratorSubscription#request(long)}.
+     */
+    @Test
+    void testExecutor() {
+        final List<Runnable> tasks = new ArrayList<>();
+        final Executor executor = tasks::add;
+        final TestSubscriber<String> subscriber = new TestSubscriber<>();
+        new IteratorResultPublisher<>(source("a", "b", "c"), executor).subscribe(subscriber);
+        subscriber.subscription.request(1);
+        subscriber.subscription.request(1);
+        assertTrue(subscriber.items.isEmpty());
+        assertEquals(1, tasks.size());
+        tasks.remove(0).run();
+        assertEquals(Arrays.asList("a", "b"), subscriber.items);
+        assertFalse(subscriber.completed);
+        subscriber.subscription.request(1);
+        assertEquals(1, tasks.size());
+        tasks.remove(0).run();
+        assertEquals(Arrays.asList("a", "b", "c"), subscriber.items);
+        assertFalse(subscriber.completed);
+        subscriber.subscription.request(1);
+        tasks.remove(0).run();
+        assertTrue(subscriber.completed);
+    }
+
+    /**
+     * Unit test for {@link IteratorResultPublisher.IteratorSubscription#request(long)}.
+     */
+    @Test
+    void testExecutorRejected() {
+        final RejectedExecutionException expected = new RejectedExecutionException();
+        final Executor executor = task -> { throw expected; };
+        final Supplier<CloseableIterator<String>> source = source("a", "b");
+        final TestSubscriber<String> subscriber = new TestSubscriber<>();
+        new IteratorResultPublisher<>(source, executor).subscribe(subscriber);
+        subscriber.subscription.request(1);
+        assertSame(expected, subscriber.error);
+        then(source).shouldHaveNoInteractions();
+    }
+
+    @SafeVarargs
+    private static <T> Supplier<CloseableIterator<T>> source(
+            final T... values) {
+        @SuppressWarnings("unchecked")
+        final Supplier<CloseableIterator<T>> result = mock(Supplier.class);
+        given(result.get()).willAnswer(inv -> new IteratorAdapter<>(
+                Arrays.asList(values).iterator()));
+        return result;
+    }
+
+    private static class TestSubscriber<T>
+    implements Subscriber<T> {
+        protected Subscription subscription;
+        protected final List<T> items = new ArrayList<>();
+        protected boolean completed;
+        protected Throwable error;
+        @Override
+        public void onSubscribe(@NotNull Subscription subscription) {
+            this.subscription = subscription;
+        }
+        @Override
+        public void onNext(T item) {
+            this.items.add(item);
+        }
+        @Override
+        public void onError(@NotNull Throwable error) {
+            this.error = error;
+        }
+        @Override
+        public void onComplete() {
+            this.completed = true;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package dev.orne.qdsl.wrap.impl;
+
+/*-
+ * #%L
+ * Orne Querydsl Utils
+ * %%
+ * Copyright (C) 2022 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.mysema.commons.lang.CloseableIterator;
+import com.querydsl.core.QueryModifiers;
+
+/**
+ * Unit tests for {@code MergingIterator}.
+ *
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2022-10
+ * @since 0.1
+ * @see MergingIterator
+ */
+@Tag("ut")
+class MergingIteratorTest {
+
+    /**
+     * Unit test for {@link MergingIterator#MergingIterator(List, Comparator, QueryModifiers)}.
+     */
+    @Test
+    void testConstructor() {
+        assertThrows(NullPointerException.class, () -> {
+            new MergingIterator<>(null, null);
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            new MergingIterator<>(Arrays.asList(Collections.emptyIterator(), null), null);
+        });
+        assertFalse(new MergingIterator<>(Collections.emptyList(), null).hasNext());
+    }
+
+    /**
+     * Unit test for {@link MergingIterator#next()}.
+     */
+    @Test
+    void testConcatenate() {
+        final MergingIterator<Integer> it = new MergingIterator<>(Arrays.asList(
+                Arrays.asList(3, 1).iterator(),
+                Collections.<Integer>emptyIterator(),
+                Arrays.asList(2).iterator()),
+                null);
+        assertEquals(Arrays.asList(3, 1, 2), collect(it));
+        assertThrows(NoSuchElementException.class, it::next);
+    }
+
+    /**
+     * Unit test for {@link MergingIterator#next()}.
+     */
+    @Test
+    void testMerge() {
+        final MergingIterator<Integer> it = new MergingIterator<>(Arrays.asList(
+                Arrays.asList(1, 4, 7).iterator(),
+                Arrays.asList(2, 5).iterator(),
+                Collections.<Integer>emptyIterator(),
+                Arrays.asList(3, 6, 8, 9).iterator()),
+                Comparator.naturalOrder());
+        assertEquals(Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8, 9), collect(it));
+        assertThrows(NoSuchElementException.class, it::next);
+    }
+
+    /**
+     * Unit test for {@link MergingIterator#next()}.
+     */
+    @Test
+    void testMergeStable() {
+        final Comparator<String> comparator = Comparator.comparing(String::length);
+        final MergingIterator<String> it = new MergingIterator<>(Arrays.asList(
+                Arrays.asList("b", "bb").iterator(),
+                Arrays.asList("a", "aa").iterator()),
+                comparator);
+        assertEquals(Arrays.asList("b", "a", "bb", "aa"), collect(it));
+    }
+
+    /**
+     * Unit test for {@link MergingIterator#next()}.
+     */
+    @Test
+    void testModifiers() {
+        final List<Iterator<Integer>> sources = Arrays.asList(
+                Arrays.asList(1, 3, 5).iterator(),
+                Arrays.asList(2, 4, 6).iterator());
+        assertEquals(Arrays.asList(3, 4), collect(new MergingIterator<>(
+                sources, Comparator.naturalOrder(), new QueryModifiers(2L, 2L))));
+        assertEquals(Arrays.asList(3, 5, 2), collect(new MergingIterator<>(Arrays.asList(
+                Arrays.asList(1, 3, 5).iterator(),
+                Arrays.asList(2, 4, 6).iterator()),
+                null, new QueryModifiers(3L, 1L))));
+        assertEquals(Collections.emptyList(), collect(new MergingIterator<>(Arrays.asList(
+                Arrays.asList(1, 3, 5).iterator()),
+                null, new QueryModifiers(null, 5L))));
+    }
+
+    /**
+     * Unit test for {@link MergingIterator#close()}.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void testClose() {
+        final CloseableIterator<Integer> first = mock(CloseableIterator.class);
+        final CloseableIterator<Integer> second = mock(CloseableIterator.class);
+        final RuntimeException failure = new RuntimeException();
+        willThrow(failure).given(first).close();
+        final MergingIterator<Integer> it = new MergingIterator<>(Arrays.asList(
+                first, Collections.<Integer>emptyIterator(), second), null);
+        final RuntimeException result = assertThrows(RuntimeException.class, it::close);
+        assertSame(failure, result);
+        then(first).should().close();
+        then(second).should().close();
+    }
+
+    private static <E> List<E> collect(
+            final Iterator<E> it) {
+        final List<E> result = new ArrayList<>();
+        it.forEachRemaining(result::add);
+        return result;
+    }
+}
@@ -33,6 +33,7 @@ import org.junit.jupiter.api.Test;
 
 import com.querydsl.core.types.Expression;
 import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.Path;
 import com.querydsl.core.types.Predicate;
 
 import dev.orne.qdsl.wrap.ReferenceProjection;
@@ -110,6 +111,16 @@ class NopExpressionTransformerTest {
         then(expr).shouldHaveNoInteractions();
     }
 
+    /**
+     * Unit test for {@link NopExpressionTransformer#translateKeyPath(Path)}.
+     */
+    @Test
+    void testTranslateKeyPath() {
+        final Path<?> path = mock(Path.class);
+        assertSame(path, ExpressionTransformer.NOP.translateKeyPath(path));
+        then(path).shouldHaveNoInteractions();
+    }
+
     /**
      * Unit test for {@link NopExpressionTransformer#translateProjections(Expression...)}.
      */
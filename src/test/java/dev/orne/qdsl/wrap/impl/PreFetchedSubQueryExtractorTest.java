@@ -345,6 +345,18 @@ class PreFetchedSubQueryExtractorTest {
         then(oexpr).should().accept(extractor, null);
     }
 
+    /**
+     * Unit test for {@link PreFetchedSubQueryExpression#extract(StoredValue)}.
+     */
+    @Test
+    void testExtractStoredValueNull() {
+        final PreFetchedSubQueryExtractor extractor = PreFetchedSubQueryExtractor.INSTANCE;
+        final Path<TestTypes.SimpleType> path =
+                TestTypes.pathOf(TestTypes.SimpleType.class);
+        final StoredValue<?> value = StoredValue.of(path, (Expression<TestTypes.SimpleType>) null);
+        assertSame(value, extractor.extract(value));
+    }
+
     /**
      * Unit test for {@link PreFetchedSubQueryExpression#extract(StoredValues)}.
      */
@@ -0,0 +1,219 @@
+package dev.orne.qdsl.wrap.impl;
+
+/*-
+ * #%L
+ * Orne Querydsl Utils
+ * %%
+ * Copyright (C) 2022 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.Projections;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.core.types.dsl.Param;
+import com.querydsl.core.types.dsl.StringPath;
+
+/**
+ * Unit tests for {@code PredicateAnalyzer}.
+ *
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2022-10
+ * @since 0.1
+ * @see PredicateAnalyzer
+ */
+@Tag("ut")
+class PredicateAnalyzerTest {
+
+    private static final StringPath PATH = Expressions.stringPath("path");
+    private static final NumberPath<Long> NUM_PATH = Expressions.numberPath(Long.class, "num");
+
+    /**
+     * Unit test for {@link PredicateAnalyzer#evaluate(com.querydsl.core.types.Expression)}.
+     */
+    @Test
+    void testEvaluateConstants() {
+        assertTrue(PredicateAnalyzer.evaluate(null));
+        assertTrue(PredicateAnalyzer.evaluate(Expressions.TRUE));
+        assertFalse(PredicateAnalyzer.evaluate(Expressions.FALSE));
+        assertTrue(PredicateAnalyzer.evaluate(Expressions.asBoolean(true)));
+        assertFalse(PredicateAnalyzer.evaluate(Expressions.asBoolean(false)));
+        assertTrue(PredicateAnalyzer.evaluate(Expressions.booleanTemplate("1 = 1")));
+        assertFalse(PredicateAnalyzer.evaluate(Expressions.booleanTemplate("1 = 0")));
+        assertFalse(PredicateAnalyzer.evaluate(Expressions.booleanTemplate("( 1=2 )")));
+        assertFalse(PredicateAnalyzer.evaluate(Expressions.booleanTemplate("FALSE")));
+        assertNull(PredicateAnalyzer.evaluate(Expressions.booleanTemplate("1 = {0}", 0)));
+        assertNull(PredicateAnalyzer.evaluate(Expressions.booleanTemplate("custom()")));
+        assertNull(PredicateAnalyzer.evaluate(Expressions.constant("value")));
+        assertNull(PredicateAnalyzer.evaluate(mock(Predicate.class)));
+    }
+
+    /**
+     * Unit test for {@link PredicateAnalyzer#evaluate(com.querydsl.core.types.Expression)}.
+     */
+    @Test
+    void testEvaluateOperations() {
+        assertNull(PredicateAnalyzer.evaluate(PATH.eq("a")));
+        assertFalse(PredicateAnalyzer.evaluate(PATH.in(Collections.emptyList())));
+        assertTrue(PredicateAnalyzer.evaluate(PATH.notIn(Collections.emptyList())));
+        assertNull(PredicateAnalyzer.evaluate(PATH.in("a", "b")));
+        assertFalse(PredicateAnalyzer.evaluate(ExpressionUtils.predicate(
+                Ops.COL_IS_EMPTY, Expressions.constant(Arrays.asList("a")))));
+        assertTrue(PredicateAnalyzer.evaluate(ExpressionUtils.predicate(
+                Ops.COL_IS_EMPTY, Expressions.constant(Collections.emptyList()))));
+        assertFalse(PredicateAnalyzer.evaluate(Expressions.asNumber(1).eq(2)));
+        assertTrue(PredicateAnalyzer.evaluate(Expressions.asNumber(1).ne(2)));
+        assertTrue(PredicateAnalyzer.evaluate(Expressions.asNumber(1).isNotNull()));
+        assertFalse(PredicateAnalyzer.evaluate(Expressions.asNumber(1).isNull()));
+        assertNull(PredicateAnalyzer.evaluate(Expressions.asNumber(1).eq(NUM_PATH.intValue())));
+        assertNull(PredicateAnalyzer.evaluate(PATH.isNull()));
+        assertFalse(PredicateAnalyzer.evaluate(PATH.eq("a").and(Expressions.FALSE)));
+        assertNull(PredicateAnalyzer.evaluate(PATH.eq("a").and(Expressions.TRUE)));
+        assertTrue(PredicateAnalyzer.evaluate(Expressions.TRUE.and(Expressions.TRUE)));
+        assertTrue(PredicateAnalyzer.evaluate(PATH.eq("a").or(Expressions.TRUE)));
+        assertNull(PredicateAnalyzer.evaluate(PATH.eq("a").or(Expressions.FALSE)));
+        assertFalse(PredicateAnalyzer.evaluate(Expressions.FALSE.or(Expressions.FALSE)));
+        assertTrue(PredicateAnalyzer.evaluate(Expressions.FALSE.not()));
+        assertNull(PredicateAnalyzer.evaluate(PATH.eq("a").not()));
+        assertTrue(PredicateAnalyzer.isUnsatisfiable(PATH.in(Collections.emptyList())));
+        assertFalse(PredicateAnalyzer.isUnsatisfiable(PATH.eq("a")));
+        assertTrue(PredicateAnalyzer.isTautology(Expressions.TRUE));
+        assertFalse(PredicateAnalyzer.isTautology(PATH.eq("a")));
+    }
+
+    /**
+     * Unit test for {@link PredicateAnalyzer#evaluate(com.querydsl.core.types.Expression)}
+     * with comparisons of constants whose equality depends on the database.
+     */
+    @Test
+    void testEvaluateMixedConstants() {
+        assertNull(PredicateAnalyzer.evaluate(Expressions.predicate(Ops.EQ,
+                Expressions.constant(1), Expressions.constant(1L))));
+        assertNull(PredicateAnalyzer.evaluate(Expressions.predicate(Ops.NE,
+                Expressions.constant(1), Expressions.constant(1L))));
+        assertNull(PredicateAnalyzer.evaluate(Expressions.predicate(Ops.EQ,
+                Expressions.constant(new BigDecimal("1.0")), Expressions.constant(BigDecimal.ONE))));
+        assertNull(PredicateAnalyzer.evaluate(Expressions.predicate(Ops.EQ,
+                Expressions.constant(1.0), Expressions.constant(1.0))));
+        assertNull(PredicateAnalyzer.evaluate(Expressions.asString("a").eq("A")));
+        assertNull(PredicateAnalyzer.evaluate(Expressions.asString("a").eq("a")));
+        assertTrue(PredicateAnalyzer.evaluate(Expressions.asNumber(1L).eq(1L)));
+        assertFalse(PredicateAnalyzer.evaluate(Expressions.asNumber(1L).ne(1L)));
+        assertTrue(PredicateAnalyzer.evaluate(Expressions.predicate(Ops.EQ,
+                Expressions.constant(BigInteger.ONE), Expressions.constant(new BigInteger("1")))));
+        assertTrue(PredicateAnalyzer.evaluate(Expressions.asBoolean(true).eq(true)));
+        assertFalse(PredicateAnalyzer.isUnsatisfiable(Expressions.predicate(Ops.EQ,
+                Expressions.constant(1), Expressions.constant(1L))));
+    }
+
+    /**
+     * Unit test for {@link PredicateAnalyzer#simplify(Predicate)}.
+     */
+    @Test
+    void testSimplify() {
+        final Predicate predicate = PATH.eq("a");
+        assertSame(predicate, PredicateAnalyzer.simplify(predicate));
+        assertNull(PredicateAnalyzer.simplify(Expressions.TRUE));
+        assertNull(PredicateAnalyzer.simplify((Predicate) null));
+        assertEquals(predicate, PredicateAnalyzer.simplify(ExpressionUtils.and(predicate, Expressions.TRUE)));
+        assertEquals(predicate, PredicateAnalyzer.simplify(ExpressionUtils.and(Expressions.TRUE, predicate)));
+        assertEquals(predicate, PredicateAnalyzer.simplify(ExpressionUtils.or(predicate, Expressions.FALSE)));
+        final Predicate other = NUM_PATH.gt(1L);
+        assertEquals(ExpressionUtils.and(predicate, other), PredicateAnalyzer.simplify(
+                ExpressionUtils.and(ExpressionUtils.and(predicate, Expressions.TRUE), other)));
+        final Predicate composed = ExpressionUtils.or(predicate, other);
+        assertSame(composed, PredicateAnalyzer.simplify(composed));
+        final Predicate unsatisfiable = ExpressionUtils.and(predicate, Expressions.FALSE);
+        assertSame(unsatisfiable, PredicateAnalyzer.simplify(unsatisfiable));
+    }
+
+    /**
+     * Unit test for {@link PredicateAnalyzer#simplify(Predicate...)}.
+     */
+    @Test
+    void testSimplifyArray() {
+        final Predicate[] predicates = new Predicate[] { PATH.eq("a"), NUM_PATH.gt(1L) };
+        assertSame(predicates, PredicateAnalyzer.simplify(predicates));
+        assertArrayEquals(
+                new Predicate[] { PATH.eq("a") },
+                PredicateAnalyzer.simplify(Expressions.TRUE, PATH.eq("a").and(Expressions.TRUE)));
+        assertArrayEquals(
+                new Predicate[0],
+                PredicateAnalyzer.simplify(new Predicate[] { Expressions.TRUE }));
+    }
+
+    /**
+     * Unit test for {@link PredicateAnalyzer#containsAggregate(com.querydsl.core.types.Expression)}.
+     */
+    @Test
+    void testContainsAggregate() {
+        assertFalse(PredicateAnalyzer.containsAggregate(null));
+        assertFalse(PredicateAnalyzer.containsAggregate(PATH));
+        assertFalse(PredicateAnalyzer.containsAggregate(PATH.upper()));
+        assertTrue(PredicateAnalyzer.containsAggregate(PATH.count()));
+        assertTrue(PredicateAnalyzer.containsAggregate(NUM_PATH.sum().add(1)));
+        assertTrue(PredicateAnalyzer.containsAggregate(Projections.tuple(PATH, NUM_PATH.max())));
+        assertFalse(PredicateAnalyzer.containsAggregate(Projections.tuple(PATH, NUM_PATH)));
+        assertTrue(PredicateAnalyzer.containsAggregate(Expressions.stringTemplate("upper({0})", PATH.min())));
+    }
+
+    /**
+     * Unit test for {@link PredicateAnalyzer#extractValues(com.querydsl.core.types.Expression, com.querydsl.core.types.Path, java.util.Map)}.
+     */
+    @Test
+    void testExtractValues() {
+        assertNull(PredicateAnalyzer.extractValues(null, NUM_PATH, null));
+        assertNull(PredicateAnalyzer.extractValues(PATH.eq("a"), NUM_PATH, null));
+        assertNull(PredicateAnalyzer.extractValues(NUM_PATH.gt(1L), NUM_PATH, null));
+        assertEquals(Collections.singleton(1L),
+                PredicateAnalyzer.extractValues(NUM_PATH.eq(1L), NUM_PATH, null));
+        assertEquals(Collections.singleton(1L),
+                PredicateAnalyzer.extractValues(
+                        Expressions.predicate(Ops.EQ, Expressions.constant(1L), NUM_PATH), NUM_PATH, null));
+        assertEquals(new HashSet<>(Arrays.asList(1L, 2L)),
+                PredicateAnalyzer.extractValues(NUM_PATH.in(1L, 2L), NUM_PATH, null));
+        assertEquals(new HashSet<>(Arrays.asList(1L, 2L)),
+                PredicateAnalyzer.extractValues(NUM_PATH.eq(1L).or(NUM_PATH.eq(2L)), NUM_PATH, null));
+        assertNull(PredicateAnalyzer.extractValues(NUM_PATH.eq(1L).or(PATH.eq("a")), NUM_PATH, null));
+        assertEquals(Collections.singleton(2L),
+                PredicateAnalyzer.extractValues(NUM_PATH.in(1L, 2L).and(NUM_PATH.in(2L, 3L)), NUM_PATH, null));
+        assertEquals(Collections.singleton(1L),
+                PredicateAnalyzer.extractValues(NUM_PATH.eq(1L).and(PATH.eq("a")), NUM_PATH, null));
+        assertEquals(Collections.emptySet(),
+                PredicateAnalyzer.extractValues(NUM_PATH.eq(1L).and(NUM_PATH.eq(2L)), NUM_PATH, null));
+        final Param<Long> param = new Param<>(Long.class, "param");
+        assertNull(PredicateAnalyzer.extractValues(NUM_PATH.eq(param), NUM_PATH, null));
+        assertEquals(Collections.singleton(3L),
+                PredicateAnalyzer.extractValues(NUM_PATH.eq(param), NUM_PATH,
+                        Collections.singletonMap(param, 3L)));
+    }
+}
@@ -0,0 +1,176 @@
+package dev.orne.qdsl.wrap.impl;
+
+/*-
+ * #%L
+ * Orne Querydsl Utils
+ * %%
+ * Copyright (C) 2022 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.querydsl.collections.CollQuery;
+import com.querydsl.collections.DefaultQueryEngine;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.core.types.dsl.Param;
+import com.querydsl.core.types.dsl.StringPath;
+
+import dev.orne.qdsl.TestTypes;
+import dev.orne.qdsl.wrap.ExtendedQueryClause;
+import dev.orne.qdsl.wrap.impl.transform.ExpressionTransformers;
+import dev.orne.qdsl.wrap.impl.transform.ValueTransformer;
+
+/**
+ * Unit tests for {@code PreparedWrappedQuery}.
+ *
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2022-10
+ * @since 0.1
+ * @see PreparedWrappedQuery
+ */
+@Tag("ut")
+class PreparedWrappedQueryTest {
+
+    private static final NumberPath<Long> VALUE_PATH =
+            Expressions.numberPath(Long.class, "value");
+    private static final StringPath CODE_PATH =
+            Expressions.stringPath("code");
+
+    private static WrappedCollQueryClause<Long> createClause() {
+        return new WrappedCollQueryClause<>(
+                ExpressionTransformers.with(ExpressionTransformers.mapPath(
+                        CODE_PATH,
+                        VALUE_PATH,
+                        ValueTransformer.STR_TO_LONG)),
+                VALUE_PATH,
+                DefaultQueryEngine.getDefault(),
+                1L, 2L, 3L, 4L);
+    }
+
+    /**
+     * Unit test for {@link PreparedWrappedQuery#PreparedWrappedQuery(WrappedQueryClause)}.
+     */
+    @Test
+    void testConstructor() {
+        assertThrows(NullPointerException.class, () -> {
+            new PreparedWrappedQuery<>(null);
+        });
+        @SuppressWarnings("unchecked")
+        final WrappedCollQueryClause<TestTypes.SimpleType> unsupported = new WrappedCollQueryClause<>(
+                null,
+                mock(QueryMetadata.class),
+                mock(CollQuery.class),
+                TestTypes.SimpleType.class);
+        assertThrows(UnsupportedOperationException.class, () -> {
+            new PreparedWrappedQuery<>(unsupported);
+        });
+        final WrappedCollQueryClause<Long> clause = createClause();
+        final PreparedWrappedQuery<Long> result = new PreparedWrappedQuery<>(clause);
+        assertSame(clause, result.getTemplate());
+    }
+
+    /**
+     * Unit test for {@link PreparedWrappedQuery#of(ExtendedQueryClause)}.
+     */
+    @Test
+    void testOf() {
+        assertThrows(NullPointerException.class, () -> {
+            PreparedWrappedQuery.of(null);
+        });
+        final ExtendedQueryClause<?, ?> unsupported = mock(ExtendedQueryClause.class);
+        assertThrows(IllegalArgumentException.class, () -> {
+            PreparedWrappedQuery.of(unsupported);
+        });
+        final WrappedCollQueryClause<Long> clause = createClause();
+        final PreparedWrappedQuery<Long> result = PreparedWrappedQuery.of(clause);
+        assertSame(clause, result.getTemplate());
+    }
+
+    /**
+     * Unit test for {@link PreparedWrappedQuery#getMetadata()}.
+     */
+    @Test
+    void testGetMetadata() {
+        final WrappedCollQueryClause<Long> clause = createClause()
+                .where(CODE_PATH.eq(new Param<>(String.class, "code")));
+        final PreparedWrappedQuery<Long> query = PreparedWrappedQuery.of(clause);
+        final QueryMetadata result = query.getMetadata();
+        assertNotSame(clause.getMetadata(), result);
+        assertEquals(clause.getMetadata(), result);
+    }
+
+    /**
+     * Unit test for {@link PreparedWrappedQuery#getSerialized()}.
+     */
+    @Test
+    void testGetSerialized() {
+        final WrappedCollQueryClause<Long> clause = spy(createClause());
+        final PreparedWrappedQuery<Long> query = PreparedWrappedQuery.of(clause);
+        final String result = query.getSerialized();
+        assertNotNull(result);
+        assertSame(result, query.getSerialized());
+        assertSame(result, query.toString());
+        then(clause).should(times(1)).getDelegate();
+    }
+
+    /**
+     * Unit test for {@link PreparedWrappedQuery#bind(com.querydsl.core.types.ParamExpression, Object)}.
+     */
+    @Test
+    void testBind() {
+        final Param<String> code = new Param<>(String.class, "code");
+        final PreparedWrappedQuery<Long> query = PreparedWrappedQuery.of(
+                createClause().where(CODE_PATH.eq(code)));
+        assertEquals(Collections.singletonList(2L), query.bind(code, "2").fetch());
+        assertEquals(Collections.singletonList(3L), query.bind(code, "3").fetch());
+        assertEquals(4L, query.bind().set(code, "4").fetchOne());
+        assertEquals(1L, query.bind(code, "1").fetchFirst());
+        assertEquals(1L, query.bind(code, "1").fetchCount());
+        assertEquals(0L, query.bind(code, "5").fetchResults().getTotal());
+        assertTrue(query.bind(code, "2").iterate().hasNext());
+        assertTrue(query.bind(code, "2").exists());
+        assertFalse(query.bind(code, "5").exists());
+        assertTrue(query.getTemplate().getMetadata().getParams().isEmpty());
+    }
+
+    /**
+     * Unit test for {@link PreparedWrappedQuery#bind()}.
+     */
+    @Test
+    void testBindMultipleParams() {
+        final Param<String> min = new Param<>(String.class, "min");
+        final Param<String> max = new Param<>(String.class, "max");
+        final PreparedWrappedQuery<Long> query = PreparedWrappedQuery.of(
+                createClause()
+                    .where(CODE_PATH.goe(min), CODE_PATH.loe(max))
+                    .orderBy(VALUE_PATH.desc()));
+        assertEquals(Arrays.asList(3L, 2L), query.bind()
+                .set(min, "2")
+                .set(max, "3")
+                .fetch());
+    }
+}
@@ -0,0 +1,160 @@
+package dev.orne.qdsl.wrap.impl;
+
+/*-
+ * #%L
+ * Orne Querydsl Utils
+ * %%
+ * Copyright (C) 2022 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.querydsl.core.DefaultQueryMetadata;
+import com.querydsl.core.JoinType;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.PathMetadataFactory;
+import com.querydsl.core.types.dsl.EntityPathBase;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.StringPath;
+
+/**
+ * Unit tests for {@code QueryKey}.
+ *
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2022-10
+ * @since 0.1
+ * @see QueryKey
+ */
+@Tag("ut")
+class QueryKeyTest {
+
+    private static final StringPath PATH = Expressions.stringPath("path");
+
+    /**
+     * Unit test for {@link QueryKey#QueryKey(Class, QueryKey.Operation, QueryMetadata)}.
+     */
+    @Test
+    void testConstructor() {
+        final QueryMetadata metadata = createMetadata("a");
+        final QueryKey key = new QueryKey(QEntity.class, QueryKey.Operation.FETCH, metadata);
+        assertSame(QEntity.class, key.getEntityType());
+        assertSame(QueryKey.Operation.FETCH, key.getOperation());
+        assertEquals(metadata, key.getMetadata());
+        assertNotSame(metadata, key.getMetadata());
+        metadata.addWhere(PATH.isNotNull());
+        assertNotEquals(metadata, key.getMetadata());
+        assertThrows(NullPointerException.class, () -> {
+            new QueryKey(QEntity.class, null, metadata);
+        });
+        assertThrows(NullPointerException.class, () -> {
+            new QueryKey(QEntity.class, QueryKey.Operation.FETCH, null);
+        });
+    }
+
+    /**
+     * Unit test for {@link QueryKey#equals(Object)}, {@link QueryKey#hashCode()}
+     * and {@link QueryKey#toString()}.
+     */
+    @Test
+    void testEqualsHashCodeToString() {
+        final QueryKey key = new QueryKey(QEntity.class, QueryKey.Operation.FETCH, createMetadata("a"));
+        assertNotEquals(key, (Object) null);
+        assertNotEquals(key, new Object());
+        assertEquals(key, key);
+        assertEquals(key.hashCode(), key.hashCode());
+        final QueryKey other = new QueryKey(QEntity.class, QueryKey.Operation.FETCH, createMetadata("a"));
+        assertEquals(key, other);
+        assertEquals(key.hashCode(), other.hashCode());
+        assertEquals(key.toString(), other.toString());
+        assertNotEquals(key, new QueryKey(null, QueryKey.Operation.FETCH, createMetadata("a")));
+        assertNotEquals(key, new QueryKey(QEntity.class, QueryKey.Operation.FETCH_COUNT, createMetadata("a")));
+        assertNotEquals(key, new QueryKey(QEntity.class, QueryKey.Operation.FETCH, createMetadata("b")));
+    }
+
+    /**
+     * Unit test for {@link QueryKey#normalizeAliases(QueryMetadata)}.
+     */
+    @Test
+    void testNormalizeAliases() {
+        final QueryMetadata empty = createMetadata("a");
+        assertSame(empty, QueryKey.normalizeAliases(empty));
+        final QueryMetadata metadata = createAliasedMetadata("alias", "other", "a");
+        final QueryMetadata result = QueryKey.normalizeAliases(metadata);
+        assertNotEquals(metadata, result);
+        assertEquals(result, QueryKey.normalizeAliases(createAliasedMetadata("alias2", "other2", "a")));
+        assertNotEquals(result, QueryKey.normalizeAliases(createAliasedMetadata("alias2", "other2", "b")));
+        assertNotEquals(result, QueryKey.normalizeAliases(createAliasedMetadata("alias", "alias", "a")));
+        assertEquals(new QEntity(QueryKey.NORMALIZED_ALIAS_PREFIX + "0"), result.getJoins().get(0).getTarget());
+        assertEquals(createAliasedMetadata("alias", "other", "a"), metadata);
+        assertThrows(NullPointerException.class, () -> {
+            QueryKey.normalizeAliases(null);
+        });
+    }
+
+    /**
+     * Unit test for {@link QueryKey#normalized(Class, QueryKey.Operation, QueryMetadata)}.
+     */
+    @Test
+    void testNormalized() {
+        final QueryKey key = QueryKey.normalized(QEntity.class, QueryKey.Operation.FETCH,
+                createAliasedMetadata("alias", "other", "a"));
+        assertSame(QEntity.class, key.getEntityType());
+        assertSame(QueryKey.Operation.FETCH, key.getOperation());
+        assertEquals(key, QueryKey.normalized(QEntity.class, QueryKey.Operation.FETCH,
+                createAliasedMetadata("alias2", "other2", "a")));
+        assertNotEquals(key, new QueryKey(QEntity.class, QueryKey.Operation.FETCH,
+                createAliasedMetadata("alias2", "other2", "a")));
+    }
+
+    private static QueryMetadata createMetadata(
+            final String value) {
+        final QueryMetadata metadata = new DefaultQueryMetadata();
+        metadata.setProjection(PATH);
+        metadata.addWhere(PATH.eq(value));
+        return metadata;
+    }
+
+    private static QueryMetadata createAliasedMetadata(
+            final String alias,
+            final String otherAlias,
+            final String value) {
+        final QEntity entity = new QEntity(alias);
+        final QEntity other = new QEntity(otherAlias);
+        final StringPath path = Expressions.stringPath(entity, "path");
+        final StringPath otherPath = Expressions.stringPath(other, "path");
+        final QueryMetadata metadata = new DefaultQueryMetadata();
+        metadata.addJoin(JoinType.DEFAULT, entity);
+        metadata.addJoin(JoinType.INNERJOIN, ExpressionUtils.as(other, Expressions.path(Object.class, otherAlias)));
+        metadata.addJoinCondition(path.eq(otherPath));
+        metadata.setProjection(path);
+        metadata.addWhere(otherPath.eq(value));
+        return metadata;
+    }
+
+    private static class QEntity extends EntityPathBase<Object> {
+        private static final long serialVersionUID = 1L;
+        @SuppressWarnings("unused")
+        public QEntity(String variable) {
+            super(Object.class, PathMetadataFactory.forVariable(variable));
+        }
+    }
+}
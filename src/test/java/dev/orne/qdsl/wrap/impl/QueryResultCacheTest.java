@@ -0,0 +1,330 @@
+package dev.orne.qdsl.wrap.impl;
+
+/*-
+ * #%L
+ * Orne Querydsl Utils
+ * %%
+ * Copyright (C) 2022 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.configuration.MutableConfiguration;
+import javax.cache.expiry.Duration;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.querydsl.core.DefaultQueryMetadata;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.QueryResults;
+import com.querydsl.core.types.PathMetadataFactory;
+import com.querydsl.core.types.dsl.EntityPathBase;
+import com.querydsl.core.types.dsl.Expressions;
+
+/**
+ * Unit tests for {@code QueryResultCache}.
+ *
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2022-10
+ * @since 0.1
+ * @see QueryResultCache
+ */
+@Tag("ut")
+class QueryResultCacheTest {
+
+    /**
+     * Unit test for {@link QueryResultCache#QueryResultCache(CacheManager)}.
+     */
+    @Test
+    void testConstructor() {
+        final CacheManager manager = mock(CacheManager.class);
+        final QueryResultCache cache = new QueryResultCache(manager);
+        assertSame(manager, cache.getCacheManager());
+        assertEquals(QueryResultCache.DEFAULT_CACHE_PREFIX, cache.getCachePrefix());
+        assertEquals(Duration.FIVE_MINUTES, cache.getDefaultTtl());
+        assertThrows(NullPointerException.class, () -> {
+            new QueryResultCache(null);
+        });
+        assertThrows(NullPointerException.class, () -> {
+            new QueryResultCache(manager, null);
+        });
+        then(manager).shouldHaveNoInteractions();
+    }
+
+    /**
+     * Unit test for {@link QueryResultCache#getTtl(Class)}.
+     */
+    @Test
+    void testTtl() {
+        final QueryResultCache cache = new QueryResultCache(mock(CacheManager.class));
+        final Duration defaultTtl = new Duration(TimeUnit.SECONDS, 30);
+        final Duration entityTtl = new Duration(TimeUnit.HOURS, 1);
+        cache.setDefaultTtl(defaultTtl);
+        assertSame(defaultTtl, cache.getTtl(QEntity.class));
+        assertSame(defaultTtl, cache.getTtl(QEntity2.class));
+        cache.setTtl(QEntity.class, entityTtl);
+        assertSame(entityTtl, cache.getTtl(QEntity.class));
+        assertSame(defaultTtl, cache.getTtl(QEntity2.class));
+        assertThrows(NullPointerException.class, () -> {
+            cache.setDefaultTtl(null);
+        });
+        assertThrows(NullPointerException.class, () -> {
+            cache.setTtl(QEntity.class, null);
+        });
+    }
+
+    /**
+     * Unit test for {@link QueryResultCache#getCache(Class)}.
+     */
+    @Test
+    void testGetCacheExisting() {
+        final CacheManager manager = mock(CacheManager.class);
+        final Cache<Object, Object> existing = mock(Cache.class);
+        final QueryResultCache cache = new QueryResultCache(manager, "prefix.");
+        willReturn(existing).given(manager).getCache("prefix." + QEntity.class.getName());
+        assertSame(existing, cache.getCache(QEntity.class));
+        assertSame(existing, cache.getCache(QEntity.class));
+        then(manager).should(times(1)).getCache("prefix." + QEntity.class.getName());
+        then(manager).shouldHaveNoMoreInteractions();
+    }
+
+    /**
+     * Unit test for {@link QueryResultCache#getCache(Class)}.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void testGetCacheCreated() {
+        final CacheManager manager = mock(CacheManager.class);
+        final Cache<Object, Object> created = mock(Cache.class);
+        final QueryResultCache cache = new QueryResultCache(manager);
+        final Duration ttl = new Duration(TimeUnit.HOURS, 2);
+        cache.setTtl(QEntity.class, ttl);
+        final String name = QueryResultCache.DEFAULT_CACHE_PREFIX + QEntity.class.getName();
+        willReturn(created).given(manager).createCache(eq(name), any());
+        assertSame(created, cache.getCache(QEntity.class));
+        final ArgumentCaptor<MutableConfiguration<QueryKey, QueryResultCache.CachedResult>> config =
+                ArgumentCaptor.forClass(MutableConfiguration.class);
+        then(manager).should().createCache(eq(name), config.capture());
+        assertFalse(config.getValue().isStoreByValue());
+        assertEquals(ttl, config.getValue().getExpiryPolicyFactory().create().getExpiryForCreation());
+    }
+
+    /**
+     * Unit test for {@link QueryResultCache#get(Class, QueryKey.Operation, QueryMetadata, Supplier)}.
+     */
+    @Test
+    void testGet() {
+        final CacheManager manager = mock(CacheManager.class);
+        final Cache<Object, Object> results = mock(Cache.class);
+        final QueryResultCache cache = new QueryResultCache(manager);
+        willReturn(results).given(manager).getCache(anyString());
+        final QueryMetadata metadata = createMetadata();
+        final QueryKey key = new QueryKey(QEntity.class, QueryKey.Operation.FETCH, metadata);
+        final List<String> expected = new ArrayList<>(Arrays.asList("a", "b"));
+        @SuppressWarnings("unchecked")
+        final Supplier<List<String>> query = mock(Supplier.class);
+        given(query.get()).willReturn(expected);
+        final List<String> result = cache.get(QEntity.class, QueryKey.Operation.FETCH, metadata, query);
+        assertSame(expected, result);
+        then(query).should().get();
+        final ArgumentCaptor<QueryResultCache.CachedResult> entry =
+                ArgumentCaptor.forClass(QueryResultCache.CachedResult.class);
+        then(results).should().put(eq(key), entry.capture());
+        expected.add("c");
+        assertEquals(Arrays.asList("a", "b"), entry.getValue().getValue());
+        willReturn(entry.getValue()).given(results).get(key);
+        final List<String> cached = cache.get(QEntity.class, QueryKey.Operation.FETCH, metadata, query);
+        assertEquals(Arrays.asList("a", "b"), cached);
+        cached.add("d");
+        assertEquals(Arrays.asList("a", "b"), entry.getValue().getValue());
+        then(query).shouldHaveNoMoreInteractions();
+    }
+
+    /**
+     * Unit test for {@link QueryResultCache#get(Class, QueryKey.Operation, QueryMetadata, Supplier)}.
+     */
+    @Test
+    void testGetQueryResults() {
+        final CacheManager manager = mock(CacheManager.class);
+        final Cache<Object, Object> results = mock(Cache.class);
+        final QueryResultCache cache = new QueryResultCache(manager);
+        willReturn(results).given(manager).getCache(anyString());
+        final QueryMetadata metadata = createMetadata();
+        final QueryKey key = new QueryKey(QEntity.class, QueryKey.Operation.FETCH_RESULTS, metadata);
+        final List<String> values = new ArrayList<>(Arrays.asList("a", "b"));
+        final QueryResults<String> expected = new QueryResults<>(values, 10L, 5L, 7);
+        final QueryResults<String> result = cache.get(QEntity.class, QueryKey.Operation.FETCH_RESULTS,
+                metadata, () -> expected);
+        assertSame(expected, result);
+        final ArgumentCaptor<QueryResultCache.CachedResult> entry =
+                ArgumentCaptor.forClass(QueryResultCache.CachedResult.class);
+        then(results).should().put(eq(key), entry.capture());
+        values.add("c");
+        willReturn(entry.getValue()).given(results).get(key);
+        final QueryResults<String> cached = cache.get(QEntity.class, QueryKey.Operation.FETCH_RESULTS,
+                metadata, () -> null);
+        assertNotSame(expected, cached);
+        assertEquals(Arrays.asList("a", "b"), cached.getResults());
+        assertEquals(10L, cached.getLimit());
+        assertEquals(5L, cached.getOffset());
+        assertEquals(7, cached.getTotal());
+        cached.getResults().add("d");
+        final QueryResults<String> other = entry.getValue().getValue();
+        assertEquals(Arrays.asList("a", "b"), other.getResults());
+    }
+
+    /**
+     * Unit test for {@link QueryResultCache#get(Class, QueryKey.Operation, QueryMetadata, Supplier)}.
+     */
+    @Test
+    void testGetNull() {
+        final CacheManager manager = mock(CacheManager.class);
+        final Cache<Object, Object> results = mock(Cache.class);
+        final QueryResultCache cache = new QueryResultCache(manager);
+        willReturn(results).given(manager).getCache(anyString());
+        final QueryMetadata metadata = createMetadata();
+        final Object result = cache.get(QEntity.class, QueryKey.Operation.FETCH_ONE, metadata, () -> null);
+        assertNull(result);
+        final ArgumentCaptor<QueryResultCache.CachedResult> entry =
+                ArgumentCaptor.forClass(QueryResultCache.CachedResult.class);
+        then(results).should().put(any(), entry.capture());
+        assertNull(entry.getValue().getValue());
+    }
+
+    /**
+     * Unit test for {@link QueryResultCache#get(Class, QueryKey.Operation, QueryMetadata, Supplier)}.
+     */
+    @Test
+    void testGetConcurrentInvalidation() {
+        final CacheManager manager = mock(CacheManager.class);
+        final Cache<Object, Object> results = mock(Cache.class);
+        final QueryResultCache cache = new QueryResultCache(manager);
+        willReturn(results).given(manager).getCache(anyString());
+        final QueryMetadata metadata = createMetadata();
+        final Object result = cache.get(QEntity.class, QueryKey.Operation.FETCH_COUNT, metadata, () -> {
+            cache.invalidate(Collections.singleton(QEntity.class));
+            return 10L;
+        });
+        assertEquals(10L, result);
+        then(results).should().clear();
+        then(results).should(never()).put(any(), any());
+    }
+
+    /**
+     * Unit test for {@link QueryResultCache#get(Class, QueryKey.Operation, QueryMetadata, Supplier)}.
+     */
+    @Test
+    void testGetInvalidationOnPut() {
+        final CacheManager manager = mock(CacheManager.class);
+        final Cache<Object, Object> results = mock(Cache.class);
+        final QueryResultCache cache = new QueryResultCache(manager);
+        willReturn(results).given(manager).getCache(anyString());
+        final QueryMetadata metadata = createMetadata();
+        final QueryKey key = new QueryKey(QEntity.class, QueryKey.Operation.FETCH_COUNT, metadata);
+        willAnswer(inv -> {
+            cache.invalidate(Collections.singleton(QEntity.class));
+            return null;
+        }).given(results).put(any(), any());
+        final Object result = cache.get(QEntity.class, QueryKey.Operation.FETCH_COUNT, metadata, () -> 10L);
+        assertEquals(10L, result);
+        final ArgumentCaptor<QueryResultCache.CachedResult> entry =
+                ArgumentCaptor.forClass(QueryResultCache.CachedResult.class);
+        then(results).should().put(eq(key), entry.capture());
+        then(results).should().remove(key, entry.getValue());
+    }
+
+    /**
+     * Unit test for {@link QueryResultCache#invalidate(java.util.Collection)}.
+     */
+    @Test
+    void testInvalidate() {
+        final CacheManager manager = mock(CacheManager.class);
+        final Cache<Object, Object> results = mock(Cache.class);
+        final Cache<Object, Object> results2 = mock(Cache.class);
+        final QueryResultCache cache = new QueryResultCache(manager);
+        willReturn(results).given(manager).getCache(QueryResultCache.DEFAULT_CACHE_PREFIX + QEntity.class.getName());
+        willReturn(results2).given(manager).getCache(QueryResultCache.DEFAULT_CACHE_PREFIX + QEntity2.class.getName());
+        cache.getCache(QEntity.class);
+        cache.invalidate(Collections.singleton(QEntity2.class));
+        then(results).should(never()).clear();
+        cache.invalidate(Collections.singleton(QEntity.class));
+        then(results).should().clear();
+        cache.getCache(QEntity2.class);
+        cache.invalidateAll();
+        then(results).should(times(2)).clear();
+        then(results2).should().clear();
+    }
+
+    /**
+     * Unit test for {@link QueryResultCache#scope(Class, java.util.Collection)}.
+     */
+    @Test
+    void testScope() {
+        final QueryResultCache cache = mock(QueryResultCache.class);
+        final QueryResultCache.Scope scope = new QueryResultCache.Scope(
+                cache,
+                QEntity.class,
+                Collections.singleton(QEntity2.class));
+        assertSame(cache, scope.getCache());
+        assertSame(QEntity.class, scope.getEntityType());
+        assertEquals(2, scope.getInvalidatedTypes().size());
+        assertTrue(scope.getInvalidatedTypes().contains(QEntity.class));
+        assertTrue(scope.getInvalidatedTypes().contains(QEntity2.class));
+        final QueryMetadata metadata = createMetadata();
+        final Supplier<Object> query = () -> null;
+        final Object expected = new Object();
+        given(cache.get(QEntity.class, QueryKey.Operation.FETCH_FIRST, metadata, query)).willReturn(expected);
+        assertSame(expected, scope.get(QueryKey.Operation.FETCH_FIRST, metadata, query));
+        scope.invalidate();
+        then(cache).should().invalidate(scope.getInvalidatedTypes());
+    }
+
+    private static QueryMetadata createMetadata() {
+        final QueryMetadata metadata = new DefaultQueryMetadata();
+        metadata.setProjection(Expressions.stringPath("path"));
+        return metadata;
+    }
+
+    private static class QEntity extends EntityPathBase<Object> {
+        private static final long serialVersionUID = 1L;
+        @SuppressWarnings("unused")
+        public QEntity(String variable) {
+            super(Object.class, PathMetadataFactory.forVariable(variable));
+        }
+    }
+
+    private static class QEntity2 extends EntityPathBase<Object> {
+        private static final long serialVersionUID = 1L;
+        @SuppressWarnings("unused")
+        public QEntity2(String variable) {
+            super(Object.class, PathMetadataFactory.forVariable(variable));
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package dev.orne.qdsl.wrap.impl;
+
+/*-
+ * #%L
+ * Orne Querydsl Utils
+ * %%
+ * Copyright (C) 2022 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.querydsl.collections.DefaultQueryEngine;
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.PathBuilder;
+
+import dev.orne.qdsl.wrap.ProjectionType;
+import dev.orne.qdsl.wrap.ReferenceProjection;
+import dev.orne.qdsl.wrap.WrappedQueryClauseProvider;
+
+/**
+ * Unit tests for {@code ReferenceBatchLoader}.
+ *
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2022-10
+ * @since 0.1
+ * @see ReferenceBatchLoader
+ */
+@Tag("ut")
+class ReferenceBatchLoaderTest {
+
+    private static final PathBuilder<String> ENTITY =
+            new PathBuilder<>(String.class, "entity");
+
+    private WrappedQueryClauseProvider provider;
+    private ScheduledExecutorService scheduler;
+
+    @BeforeEach
+    void initMocks() {
+        provider = mock(WrappedQueryClauseProvider.class);
+        scheduler = mock(ScheduledExecutorService.class);
+        willAnswer(invocation -> new WrappedCollQueryClause<>(
+                ENTITY,
+                DefaultQueryEngine.getDefault(),
+                "a", "bb", "ccc"))
+            .given(provider).query(ENTITY);
+        willReturn(ReferenceProjection.of(Expressions.asString(ENTITY).upper(), ENTITY))
+            .given(provider).getProjection(ENTITY, ProjectionType.Basic.REFERENCE);
+    }
+
+    /**
+     * Unit test for {@link ReferenceBatchLoader#ReferenceBatchLoader(WrappedQueryClauseProvider, EntityPath, ScheduledExecutorService)}.
+     */
+    @Test
+    void testConstructor() {
+        final ReferenceBatchLoader<String, String> loader =
+                new ReferenceBatchLoader<>(provider, ENTITY, scheduler);
+        assertSame(provider, loader.getProvider());
+        assertSame(ENTITY, loader.getEntity());
+        assertSame(ProjectionType.Basic.REFERENCE, loader.getProjectionType());
+        assertSame(scheduler, loader.getScheduler());
+        assertEquals(ReferenceBatchLoader.DEFAULT_MAX_BATCH_SIZE, loader.getMaxBatchSize());
+        assertEquals(ReferenceBatchLoader.DEFAULT_BATCH_WINDOW, loader.getBatchWindow());
+        assertThrows(NullPointerException.class, () -> {
+            new ReferenceBatchLoader<>(null, ENTITY, scheduler);
+        });
+        assertThrows(NullPointerException.class, () -> {
+            new ReferenceBatchLoader<>(provider, null, scheduler);
+        });
+        assertThrows(NullPointerException.class, () -> {
+            new ReferenceBatchLoader<>(provider, ENTITY, null);
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            new ReferenceBatchLoader<>(provider, ENTITY, ProjectionType.Basic.REFERENCE, scheduler, 0, 1);
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            new ReferenceBatchLoader<>(provider, ENTITY, ProjectionType.Basic.REFERENCE, scheduler, 1, -1);
+        });
+        then(provider).shouldHaveNoInteractions();
+        then(scheduler).shouldHaveNoInteractions();
+    }
+
+    /**
+     * Unit test for {@link ReferenceBatchLoader#load(Object)}.
+     */
+    @Test
+    void testLoadWindow()
+    throws Exception {
+        final ReferenceBatchLoader<String, String> loader =
+                new ReferenceBatchLoader<>(provider, ENTITY, ProjectionType.Basic.REFERENCE, scheduler, 10, 20);
+        final CompletableFuture<String> a = loader.load("a");
+        final CompletableFuture<String> other = loader.load("a");
+        final CompletableFuture<String> ccc = loader.load("ccc");
+        final CompletableFuture<String> missing = loader.load("zz");
+        assertSame(a, other);
+        assertFalse(a.isDone());
+        final ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+        then(scheduler).should().schedule(task.capture(), eq(20L), eq(TimeUnit.MILLISECONDS));
+        then(scheduler).shouldHaveNoMoreInteractions();
+        then(provider).shouldHaveNoInteractions();
+        task.getValue().run();
+        assertEquals("A", a.get());
+        assertEquals("CCC", ccc.get());
+        assertNull(missing.get());
+        then(provider).should().query(ENTITY);
+        assertNotSame(a, loader.load("a"));
+        then(scheduler).should(times(2)).schedule(any(Runnable.class), eq(20L), eq(TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Unit test for {@link ReferenceBatchLoader#load(Object)}.
+     */
+    @Test
+    void testLoadMaxBatchSize()
+    throws Exception {
+        final ReferenceBatchLoader<String, String> loader =
+                new ReferenceBatchLoader<>(provider, ENTITY, ProjectionType.Basic.REFERENCE, scheduler, 2, 20);
+        final CompletableFuture<String> a = loader.load("a");
+        final CompletableFuture<String> bb = loader.load("bb");
+        final ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+        then(scheduler).should().execute(task.capture());
+        task.getValue().run();
+        assertEquals("A", a.get());
+        assertEquals("BB", bb.get());
+        then(provider).should().query(ENTITY);
+    }
+
+    /**
+     * Unit test for {@link ReferenceBatchLoader#dispatch()}.
+     */
+    @Test
+    void testDispatch()
+    throws Exception {
+        final ReferenceBatchLoader<String, String> loader =
+                new ReferenceBatchLoader<>(provider, ENTITY, scheduler);
+        loader.dispatch();
+        then(provider).shouldHaveNoInteractions();
+        final CompletableFuture<String> bb = loader.load("bb");
+        loader.dispatch();
+        assertEquals("BB", bb.get());
+        then(provider).should().query(ENTITY);
+    }
+
+    /**
+     * Unit test for {@link ReferenceBatchLoader#dispatch()}.
+     */
+    @Test
+    void testDispatchFailure() {
+        final ReferenceBatchLoader<String, String> loader =
+                new ReferenceBatchLoader<>(provider, ENTITY, scheduler);
+        final IllegalStateException error = new IllegalStateException();
+        willThrow(error).given(provider).query(ENTITY);
+        final CompletableFuture<String> a = loader.load("a");
+        final CompletableFuture<String> bb = loader.load("bb");
+        loader.dispatch();
+        final ExecutionException result = assertThrows(ExecutionException.class, () -> a.get());
+        assertSame(error, result.getCause());
+        assertTrue(bb.isCompletedExceptionally());
+    }
+
+    /**
+     * Unit test for {@link ReferenceBatchLoader#dispatch()}.
+     */
+    @Test
+    void testDispatchError() {
+        final ReferenceBatchLoader<String, String> loader =
+                new ReferenceBatchLoader<>(provider, ENTITY, scheduler);
+        final AssertionError error = new AssertionError();
+        willThrow(error).given(provider).query(ENTITY);
+        final CompletableFuture<String> a = loader.load("a");
+        final CompletableFuture<String> bb = loader.load("bb");
+        final AssertionError thrown = assertThrows(AssertionError.class, () -> loader.dispatch());
+        assertSame(error, thrown);
+        final ExecutionException result = assertThrows(ExecutionException.class, () -> a.get());
+        assertSame(error, result.getCause());
+        assertTrue(bb.isCompletedExceptionally());
+    }
+
+    /**
+     * Unit test for {@link ReferenceBatchLoader#fetch(java.util.Map)}.
+     */
+    @Test
+    void testFetchNoReferenceProjection() {
+        willReturn(ENTITY).given(provider).getProjection(ENTITY, ProjectionType.Basic.REFERENCE);
+        final ReferenceBatchLoader<String, String> loader =
+                new ReferenceBatchLoader<>(provider, ENTITY, scheduler);
+        final CompletableFuture<String> a = loader.load("a");
+        loader.dispatch();
+        final ExecutionException result = assertThrows(ExecutionException.class, () -> a.get());
+        assertInstanceOf(IllegalStateException.class, result.getCause());
+    }
+}
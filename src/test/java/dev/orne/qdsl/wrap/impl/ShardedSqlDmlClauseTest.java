@@ -0,0 +1,275 @@
+package dev.orne.qdsl.wrap.impl;
+
+/*-
+ * #%L
+ * Orne Querydsl Utils
+ * %%
+ * Copyright (C) 2022 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.querydsl.core.types.PathMetadataFactory;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.SubQueryExpression;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.core.types.dsl.StringPath;
+import com.querydsl.sql.ProjectableSQLQuery;
+import com.querydsl.sql.RelationalPathBase;
+import com.querydsl.sql.SQLCommonQueryFactory;
+import com.querydsl.sql.SQLListener;
+import com.querydsl.sql.dml.SQLDeleteClause;
+import com.querydsl.sql.dml.SQLInsertClause;
+import com.querydsl.sql.dml.SQLUpdateClause;
+
+/**
+ * Unit tests for {@code ShardedSqlDmlClause}.
+ *
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2022-10
+ * @since 0.1
+ * @see ShardedSqlDmlClause
+ */
+@Tag("ut")
+class ShardedSqlDmlClauseTest {
+
+    private static final QEntity E = new QEntity("e");
+
+    /**
+     * Unit test for {@link ShardedSqlDmlClause#ShardedSqlDmlClause(SqlShardRouter, com.querydsl.sql.RelationalPath, ShardedSqlDmlClause.Type)}.
+     */
+    @Test
+    void testConstructor() {
+        final SqlShardRouter router = createRouter(mockFactory());
+        final ShardedSqlDmlClause clause = new ShardedSqlDmlClause(router, E, ShardedSqlDmlClause.Type.UPDATE);
+        assertSame(router, clause.getRouter());
+        assertSame(E, clause.getEntity());
+        assertSame(ShardedSqlDmlClause.Type.UPDATE, clause.getType());
+        assertTrue(clause.isEmpty());
+        assertThrows(NullPointerException.class, () -> {
+            new ShardedSqlDmlClause(null, E, ShardedSqlDmlClause.Type.UPDATE);
+        });
+        assertThrows(NullPointerException.class, () -> {
+            new ShardedSqlDmlClause(router, null, ShardedSqlDmlClause.Type.UPDATE);
+        });
+        assertThrows(NullPointerException.class, () -> {
+            new ShardedSqlDmlClause(router, E, null);
+        });
+    }
+
+    /**
+     * Unit test for {@link ShardedSqlDmlClause#execute()}.
+     */
+    @Test
+    void testInsertSet() {
+        final SQLCommonQueryFactory<? extends ProjectableSQLQuery<?, ?>, ?, ?, ?, ?> first = mockFactory();
+        final SQLCommonQueryFactory<? extends ProjectableSQLQuery<?, ?>, ?, ?, ?, ?> second = mockFactory();
+        final SQLInsertClause delegate = mock(SQLInsertClause.class);
+        willReturn(delegate).given(second).insert(E);
+        willReturn(1L).given(delegate).execute();
+        final SQLListener listener = mock(SQLListener.class);
+        final ShardedSqlDmlClause clause = new ShardedSqlDmlClause(
+                createRouter(first, second), E, ShardedSqlDmlClause.Type.INSERT);
+        clause.addListener(listener);
+        clause.set(E.id, Expressions.constant(3L));
+        clause.set(E.name, "name");
+        assertFalse(clause.isEmpty());
+        assertEquals(1L, clause.execute());
+        then(first).shouldHaveNoInteractions();
+        then(delegate).should().addListener(listener);
+        then(delegate).should().set(E.id, Expressions.constant(3L));
+        then(delegate).should().set(E.name, "name");
+        then(delegate).should().execute();
+    }
+
+    /**
+     * Unit test for {@link ShardedSqlDmlClause#execute()}.
+     */
+    @Test
+    void testInsertValues() {
+        final SQLCommonQueryFactory<? extends ProjectableSQLQuery<?, ?>, ?, ?, ?, ?> first = mockFactory();
+        final SQLCommonQueryFactory<? extends ProjectableSQLQuery<?, ?>, ?, ?, ?, ?> second = mockFactory();
+        final SQLInsertClause delegate = mock(SQLInsertClause.class);
+        willReturn(delegate).given(first).insert(E);
+        willReturn(1L).given(delegate).execute();
+        final ShardedSqlDmlClause clause = new ShardedSqlDmlClause(
+                createRouter(first, second), E, ShardedSqlDmlClause.Type.INSERT);
+        assertThrows(IllegalStateException.class, () -> {
+            clause.values(2L, "name");
+        });
+        clause.columns(E.name, E.id);
+        assertThrows(IllegalArgumentException.class, () -> {
+            clause.values(2L);
+        });
+        clause.values("name", 2L);
+        assertEquals(1L, clause.execute());
+        then(second).shouldHaveNoInteractions();
+        then(delegate).should().columns(E.name, E.id);
+        then(delegate).should().values("name", 2L);
+    }
+
+    /**
+     * Unit test for {@link ShardedSqlDmlClause#execute()}.
+     */
+    @Test
+    void testInsertNoKey() {
+        final SQLCommonQueryFactory<? extends ProjectableSQLQuery<?, ?>, ?, ?, ?, ?> first = mockFactory();
+        final SQLCommonQueryFactory<? extends ProjectableSQLQuery<?, ?>, ?, ?, ?, ?> second = mockFactory();
+        final SqlShardRouter router = createRouter(first, second);
+        final ShardedSqlDmlClause clause = new ShardedSqlDmlClause(router, E, ShardedSqlDmlClause.Type.INSERT);
+        clause.set(E.name, "name");
+        assertThrows(IllegalStateException.class, clause::execute);
+        clause.set(E.id, E.id.add(1L));
+        assertThrows(IllegalStateException.class, clause::execute);
+        final ShardedSqlDmlClause subQuery = new ShardedSqlDmlClause(router, E, ShardedSqlDmlClause.Type.INSERT);
+        subQuery.select(mock(SubQueryExpression.class));
+        assertFalse(subQuery.isEmpty());
+        assertThrows(IllegalStateException.class, subQuery::execute);
+        then(first).shouldHaveNoInteractions();
+        then(second).shouldHaveNoInteractions();
+    }
+
+    /**
+     * Unit test for {@link ShardedSqlDmlClause#execute()}.
+     */
+    @Test
+    void testInsertSingleShard() {
+        final SQLCommonQueryFactory<? extends ProjectableSQLQuery<?, ?>, ?, ?, ?, ?> factory = mockFactory();
+        final SQLInsertClause delegate = mock(SQLInsertClause.class);
+        final SubQueryExpression<?> subQuery = mock(SubQueryExpression.class);
+        willReturn(delegate).given(factory).insert(E);
+        willReturn(5L).given(delegate).execute();
+        final ShardedSqlDmlClause clause = new ShardedSqlDmlClause(
+                createRouter(factory), E, ShardedSqlDmlClause.Type.INSERT);
+        clause.columns(E.id, E.name).select(subQuery);
+        assertEquals(5L, clause.execute());
+        then(delegate).should().select(subQuery);
+    }
+
+    /**
+     * Unit test for {@link ShardedSqlDmlClause#execute()}.
+     */
+    @Test
+    void testUpdate() {
+        final SQLCommonQueryFactory<? extends ProjectableSQLQuery<?, ?>, ?, ?, ?, ?> first = mockFactory();
+        final SQLCommonQueryFactory<? extends ProjectableSQLQuery<?, ?>, ?, ?, ?, ?> second = mockFactory();
+        final SQLUpdateClause firstDelegate = mock(SQLUpdateClause.class);
+        final SQLUpdateClause secondDelegate = mock(SQLUpdateClause.class);
+        willReturn(firstDelegate).given(first).update(E);
+        willReturn(secondDelegate).given(second).update(E);
+        willReturn(2L).given(firstDelegate).execute();
+        willReturn(3L).given(secondDelegate).execute();
+        final SqlShardRouter router = createRouter(first, second);
+        final ShardedSqlDmlClause routed = new ShardedSqlDmlClause(router, E, ShardedSqlDmlClause.Type.UPDATE);
+        routed.set(E.name, "name").where(E.id.eq(3L));
+        assertEquals(3L, routed.execute());
+        then(first).shouldHaveNoInteractions();
+        then(secondDelegate).should().set(E.name, "name");
+        then(secondDelegate).should().where(new Predicate[] { E.id.eq(3L) });
+        final ShardedSqlDmlClause all = new ShardedSqlDmlClause(router, E, ShardedSqlDmlClause.Type.UPDATE);
+        final List<StringPath> paths = Collections.singletonList(E.name);
+        final List<String> values = Collections.singletonList("other");
+        all.set(paths, values).where(E.name.isNull());
+        assertEquals(5L, all.execute());
+        then(firstDelegate).should().set(paths, values);
+        then(firstDelegate).should().where(new Predicate[] { E.name.isNull() });
+    }
+
+    /**
+     * Unit test for {@link ShardedSqlDmlClause#set(com.querydsl.core.types.Path, Object)}.
+     */
+    @Test
+    void testUpdateShardKey() {
+        final SQLCommonQueryFactory<? extends ProjectableSQLQuery<?, ?>, ?, ?, ?, ?> first = mockFactory();
+        final SQLCommonQueryFactory<? extends ProjectableSQLQuery<?, ?>, ?, ?, ?, ?> second = mockFactory();
+        final SqlShardRouter router = createRouter(first, second);
+        final ShardedSqlDmlClause clause = new ShardedSqlDmlClause(router, E, ShardedSqlDmlClause.Type.UPDATE);
+        assertThrows(IllegalStateException.class, () -> {
+            clause.set(E.id, 5L);
+        });
+        assertThrows(IllegalStateException.class, () -> {
+            clause.set(E.id, E.id.add(1L));
+        });
+        assertThrows(IllegalStateException.class, () -> {
+            clause.setNull(E.id);
+        });
+        assertThrows(IllegalStateException.class, () -> {
+            clause.set(Collections.singletonList(E.id), Collections.singletonList(5L));
+        });
+        assertTrue(clause.isEmpty());
+        then(first).shouldHaveNoInteractions();
+        then(second).shouldHaveNoInteractions();
+    }
+
+    /**
+     * Unit test for {@link ShardedSqlDmlClause#execute()}.
+     */
+    @Test
+    void testDelete() {
+        final SQLCommonQueryFactory<? extends ProjectableSQLQuery<?, ?>, ?, ?, ?, ?> first = mockFactory();
+        final SQLCommonQueryFactory<? extends ProjectableSQLQuery<?, ?>, ?, ?, ?, ?> second = mockFactory();
+        final SQLDeleteClause firstDelegate = mock(SQLDeleteClause.class);
+        final SQLDeleteClause secondDelegate = mock(SQLDeleteClause.class);
+        willReturn(firstDelegate).given(first).delete(E);
+        willReturn(secondDelegate).given(second).delete(E);
+        willReturn(2L).given(firstDelegate).execute();
+        willReturn(3L).given(secondDelegate).execute();
+        final SqlShardRouter router = createRouter(first, second);
+        final ShardedSqlDmlClause all = new ShardedSqlDmlClause(router, E, ShardedSqlDmlClause.Type.DELETE);
+        assertEquals(5L, all.execute());
+        final ShardedSqlDmlClause none = new ShardedSqlDmlClause(router, E, ShardedSqlDmlClause.Type.DELETE);
+        none.where(E.id.eq(1L), E.id.eq(2L));
+        assertEquals(0L, none.execute());
+        final ShardedSqlDmlClause routed = new ShardedSqlDmlClause(router, E, ShardedSqlDmlClause.Type.DELETE);
+        routed.where(E.id.in(2L, 4L));
+        assertEquals(2L, routed.execute());
+        then(firstDelegate).should().where(new Predicate[] { E.id.in(2L, 4L) });
+        then(firstDelegate).should(times(2)).execute();
+        then(secondDelegate).should().execute();
+    }
+
+    @SafeVarargs
+    private static SqlShardRouter createRouter(
+            final SQLCommonQueryFactory<? extends ProjectableSQLQuery<?, ?>, ?, ?, ?, ?>... shards) {
+        return new SqlShardRouter(E.id, Arrays.asList(shards),
+                value -> (int) (((Long) value) % shards.length));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static SQLCommonQueryFactory<? extends ProjectableSQLQuery<?, ?>, ?, ?, ?, ?> mockFactory() {
+        return mock(SQLCommonQueryFactory.class);
+    }
+
+    public static class QEntity extends RelationalPathBase<Object> {
+        private static final long serialVersionUID = 1L;
+        public final NumberPath<Long> id = createNumber("id", Long.class);
+        public final StringPath name = createString("name");
+        public QEntity(String variable) {
+            super(Object.class, PathMetadataFactory.forVariable(variable), "null", "TABLE");
+        }
+    }
+}
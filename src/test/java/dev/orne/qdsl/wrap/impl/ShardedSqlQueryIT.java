@@ -0,0 +1,252 @@
+package dev.orne.qdsl.wrap.impl;
+
+/*-
+ * #%L
+ * Orne Querydsl Utils
+ * %%
+ * Copyright (C) 2022 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.sqlite.SQLiteDataSource;
+
+import com.mysema.commons.lang.CloseableIterator;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.PathMetadataFactory;
+import com.querydsl.core.types.Projections;
+import com.querydsl.core.types.QBean;
+import com.querydsl.core.types.dsl.NumberExpression;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.core.types.dsl.StringPath;
+import com.querydsl.sql.ColumnMetadata;
+import com.querydsl.sql.Configuration;
+import com.querydsl.sql.RelationalPathBase;
+import com.querydsl.sql.SQLQuery;
+import com.querydsl.sql.SQLQueryFactory;
+import com.querydsl.sql.SQLiteTemplates;
+
+import dev.orne.qdsl.test.model.Item;
+
+/**
+ * Integration tests for {@code ShardedSqlQuery} over two SQLite shards,
+ * created from the test database. Items of odd categories are stored
+ * in the second shard, and items of even categories in the first one.
+ *
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2022-10
+ * @since 0.1
+ * @see ShardedSqlQuery
+ */
+@Tag("it")
+class ShardedSqlQueryIT {
+
+    private static final QItems ITEMS = QItems.base;
+    private static final Configuration CONFIG = new Configuration(new SQLiteTemplates());
+
+    private final List<Path> databases = new ArrayList<>();
+    private SqlShardRouter router;
+
+    @BeforeEach
+    void openDatabases()
+    throws IOException {
+        final List<SQLQueryFactory> shards = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            final Path database = Files.createTempFile("qdsl-shard", ".db");
+            this.databases.add(database);
+            Files.copy(
+                    Paths.get("src", "test", "resources", "test.db"),
+                    database,
+                    StandardCopyOption.REPLACE_EXISTING);
+            final SQLiteDataSource dataSource = new SQLiteDataSource();
+            dataSource.setUrl("jdbc:sqlite:" + database);
+            final SQLQueryFactory factory = new SQLQueryFactory(CONFIG, dataSource);
+            factory.delete(ITEMS)
+                    .where(ITEMS.category.mod(2L).ne((long) i))
+                    .execute();
+            shards.add(factory);
+        }
+        this.router = new SqlShardRouter(
+                ITEMS.category,
+                shards,
+                value -> (int) (((Number) value).longValue() % 2));
+    }
+
+    @AfterEach
+    void closeDatabases()
+    throws IOException {
+        for (final Path database : this.databases) {
+            Files.deleteIfExists(database);
+        }
+    }
+
+    /**
+     * Integration test for {@link ShardedSqlQuery#fetch()} with ordered
+     * {@code Tuple} projections.
+     */
+    @Test
+    void testFetchTuple() {
+        final List<Tuple> result = createQuery()
+                .select(ITEMS.id, ITEMS.name)
+                .orderBy(ITEMS.id.asc())
+                .fetch();
+        assertEquals(9, result.size());
+        for (int i = 0; i < result.size(); i++) {
+            assertEquals(i + 1L, result.get(i).get(ITEMS.id));
+        }
+        assertEquals("Item A1", result.get(0).get(ITEMS.name));
+        assertEquals("Item D4", result.get(8).get(ITEMS.name));
+    }
+
+    /**
+     * Integration test for {@link ShardedSqlQuery#fetch()} with ordered
+     * bean projections.
+     */
+    @Test
+    void testFetchBean() {
+        final List<Item> result = createQuery()
+                .select(createBean())
+                .orderBy(ITEMS.code.desc())
+                .limit(3)
+                .offset(1)
+                .fetch();
+        assertEquals(3, result.size());
+        assertEquals(8L, result.get(0).getId());
+        assertEquals("4003", result.get(0).getCode());
+        assertEquals("Item D3", result.get(0).getName());
+        assertEquals(7L, result.get(1).getId());
+        assertEquals(6L, result.get(2).getId());
+        final List<Item> unordered = createQuery()
+                .select(createBean())
+                .fetch();
+        assertEquals(9, unordered.size());
+    }
+
+    /**
+     * Integration test for {@link ShardedSqlQuery#iterate()} with ordered
+     * {@code Tuple} and bean projections over concurrently executed shards.
+     */
+    @Test
+    void testIterate() {
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        this.router.setExecutor(executor);
+        try {
+            final List<Long> ids = new ArrayList<>();
+            try (final CloseableIterator<Tuple> it = createQuery()
+                    .select(ITEMS.id, ITEMS.category)
+                    .orderBy(ITEMS.category.desc(), ITEMS.id.asc())
+                    .iterate()) {
+                while (it.hasNext()) {
+                    ids.add(it.next().get(ITEMS.id));
+                }
+            }
+            assertEquals(Arrays.asList(6L, 7L, 8L, 9L, 5L, 3L, 4L, 1L, 2L), ids);
+            final List<String> codes = new ArrayList<>();
+            try (final CloseableIterator<Item> it = createQuery()
+                    .select(createBean())
+                    .orderBy(ITEMS.name.asc())
+                    .iterate()) {
+                while (it.hasNext()) {
+                    codes.add(it.next().getCode());
+                }
+            }
+            assertEquals(Arrays.asList(
+                    "1001", "1002", "2001", "2002", "3001", "4001", "4002", "4003", "4004"),
+                    codes);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Integration test for {@link ShardedSqlQuery#fetch()} ordered by
+     * nullable values. The nulls of category 2 items are all stored in
+     * the first shard, and SQLite sorts nulls first by default.
+     */
+    @Test
+    void testFetchOrderedNulls() {
+        final NumberExpression<Long> key = ITEMS.category.nullif(2L);
+        final List<Long> ascending = new ArrayList<>();
+        for (final Tuple row : createQuery()
+                .select(ITEMS.id, key)
+                .orderBy(key.asc(), ITEMS.id.asc())
+                .fetch()) {
+            ascending.add(row.get(ITEMS.id));
+        }
+        assertEquals(Arrays.asList(1L, 2L, 5L, 6L, 7L, 8L, 9L, 3L, 4L), ascending);
+        final List<Long> descending = new ArrayList<>();
+        for (final Tuple row : createQuery()
+                .select(ITEMS.id, key)
+                .orderBy(key.desc(), ITEMS.id.asc())
+                .fetch()) {
+            descending.add(row.get(ITEMS.id));
+        }
+        assertEquals(Arrays.asList(3L, 4L, 6L, 7L, 8L, 9L, 5L, 1L, 2L), descending);
+        final List<Long> single = new ArrayList<>();
+        for (final Tuple row : createQuery()
+                .select(ITEMS.id, key)
+                .where(ITEMS.category.in(2L, 4L))
+                .orderBy(key.asc(), ITEMS.id.asc())
+                .fetch()) {
+            single.add(row.get(ITEMS.id));
+        }
+        assertEquals(Arrays.asList(6L, 7L, 8L, 9L, 3L, 4L), single);
+    }
+
+    private ShardedSqlQuery<?> createQuery() {
+        return new ShardedSqlQuery<>(
+                this.router,
+                new SQLQuery<Void>(CONFIG).from(ITEMS));
+    }
+
+    private static QBean<Item> createBean() {
+        return Projections.bean(Item.class, ITEMS.id, ITEMS.code, ITEMS.name);
+    }
+
+    public static class QItems
+    extends RelationalPathBase<Tuple> {
+        private static final long serialVersionUID = 1L;
+        public static final QItems base = new QItems("items");
+        public final NumberPath<Long> id = createNumber("id", Long.class);
+        public final StringPath code = createString("code");
+        public final StringPath name = createString("name");
+        public final NumberPath<Long> category = createNumber("category", Long.class);
+        public QItems(String variable) {
+            super(Tuple.class, PathMetadataFactory.forVariable(variable), null, "ITEMS");
+            addMetadata(id, ColumnMetadata.named("ID").withIndex(1).ofType(Types.INTEGER).notNull());
+            addMetadata(code, ColumnMetadata.named("CODE").withIndex(2).ofType(Types.VARCHAR).withSize(4).notNull());
+            addMetadata(name, ColumnMetadata.named("NAME").withIndex(3).ofType(Types.VARCHAR).notNull());
+            addMetadata(category, ColumnMetadata.named("CATEGORY").withIndex(4).ofType(Types.INTEGER).notNull());
+        }
+    }
+}
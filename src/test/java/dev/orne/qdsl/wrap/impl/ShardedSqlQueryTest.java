@@ -0,0 +1,414 @@
+package dev.orne.qdsl.wrap.impl;
+
+/*-
+ * #%L
+ * Orne Querydsl Utils
+ * %%
+ * Copyright (C) 2022 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.mysema.commons.lang.CloseableIterator;
+import com.mysema.commons.lang.IteratorAdapter;
+import com.querydsl.core.NonUniqueResultException;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.QueryResults;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.PathMetadataFactory;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.sql.ProjectableSQLQuery;
+import com.querydsl.sql.RelationalPathBase;
+import com.querydsl.sql.SQLCommonQueryFactory;
+import com.querydsl.sql.SQLListener;
+import com.querydsl.sql.SQLQuery;
+
+/**
+ * Unit tests for {@code ShardedSqlQuery}.
+ *
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2022-10
+ * @since 0.1
+ * @see ShardedSqlQuery
+ */
+@Tag("ut")
+class ShardedSqlQueryTest {
+
+    private static final QEntity E = new QEntity("e");
+
+    /**
+     * Unit test for {@link ShardedSqlQuery#ShardedSqlQuery(SqlShardRouter, ProjectableSQLQuery)}.
+     */
+    @Test
+    void testConstructor() {
+        final TestShards shards = new TestShards();
+        final SQLQuery<Long> template = new SQLQuery<Void>().select(E.id).from(E);
+        final ShardedSqlQuery<Long> query = new ShardedSqlQuery<>(shards.router, template);
+        assertSame(shards.router, query.getRouter());
+        assertSame(template, query.getTemplate());
+        assertSame(template.getMetadata(), query.getMetadata());
+        assertThrows(NullPointerException.class, () -> {
+            new ShardedSqlQuery<>(null, template);
+        });
+        assertThrows(NullPointerException.class, () -> {
+            new ShardedSqlQuery<>(shards.router, null);
+        });
+    }
+
+    /**
+     * Unit test for {@link ShardedSqlQuery#clone()}.
+     */
+    @Test
+    void testClone() {
+        final TestShards shards = new TestShards();
+        final ShardedSqlQuery<Long> query = shards.query().where(E.id.gt(1L));
+        final ShardedSqlQuery<Long> copy = query.clone();
+        assertNotSame(query.getTemplate(), copy.getTemplate());
+        assertEquals(query.getMetadata().getWhere(), copy.getMetadata().getWhere());
+        copy.orderBy(E.id.asc());
+        assertTrue(query.getMetadata().getOrderBy().isEmpty());
+    }
+
+    /**
+     * Unit test for {@link ShardedSqlQuery#fetch()}.
+     */
+    @Test
+    void testFetchSingleShard() {
+        final TestShards shards = new TestShards();
+        final List<Long> result = shards.query()
+                .where(E.id.eq(3L))
+                .limit(5)
+                .fetch();
+        assertEquals(Arrays.asList(1L, 3L, 5L), result);
+        assertTrue(shards.created.get(0).isEmpty());
+        assertEquals(1, shards.created.get(1).size());
+        final QueryMetadata metadata = shards.created.get(1).get(0).getMetadata();
+        assertEquals(E.id.eq(3L), metadata.getWhere());
+        assertEquals(E.id, metadata.getProjection());
+        assertEquals(5L, metadata.getModifiers().getLimit());
+        assertEquals(E, metadata.getJoins().get(0).getTarget());
+    }
+
+    /**
+     * Unit test for {@link ShardedSqlQuery#fetch()}.
+     */
+    @Test
+    void testFetchNoShard() {
+        final TestShards shards = new TestShards();
+        final List<Long> result = shards.query()
+                .where(E.id.eq(3L), E.id.eq(4L))
+                .fetch();
+        assertTrue(result.isEmpty());
+        assertTrue(shards.created.get(0).isEmpty());
+        assertTrue(shards.created.get(1).isEmpty());
+    }
+
+    /**
+     * Unit test for {@link ShardedSqlQuery#fetch()}.
+     */
+    @Test
+    void testFetchUnordered() {
+        final TestShards shards = new TestShards();
+        final List<Long> result = shards.query()
+                .where(E.id.gt(0L))
+                .fetch();
+        assertEquals(Arrays.asList(2L, 4L, 6L, 1L, 3L, 5L), result);
+        assertEquals(1, shards.created.get(0).size());
+        assertEquals(1, shards.created.get(1).size());
+        assertEquals(E.id, shards.created.get(0).get(0).getMetadata().getProjection());
+    }
+
+    /**
+     * Unit test for {@link ShardedSqlQuery#fetch()}.
+     */
+    @Test
+    void testFetchOrdered() {
+        final TestShards shards = new TestShards();
+        final List<Long> result = shards.query()
+                .orderBy(E.id.asc())
+                .offset(1)
+                .limit(3)
+                .fetch();
+        assertEquals(Arrays.asList(2L, 3L, 4L), result);
+        for (final List<SQLQuery<?>> created : shards.created) {
+            final QueryMetadata metadata = created.get(0).getMetadata();
+            assertEquals(4L, metadata.getModifiers().getLimit());
+            assertNull(metadata.getModifiers().getOffset());
+            assertInstanceOf(FactoryExpression.class, metadata.getProjection());
+        }
+    }
+
+    /**
+     * Unit test for {@link ShardedSqlQuery#fetch()}.
+     */
+    @Test
+    void testFetchExecutor() {
+        final TestShards shards = new TestShards();
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            shards.router.setExecutor(executor);
+            final List<Long> result = shards.query()
+                    .orderBy(E.id.desc())
+                    .limit(4)
+                    .fetch();
+            assertEquals(Arrays.asList(6L, 5L, 4L, 3L), result);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Unit test for {@link ShardedSqlQuery#fetch()}.
+     */
+    @Test
+    void testFetchGrouped() {
+        final TestShards shards = new TestShards();
+        assertThrows(UnsupportedOperationException.class, () -> {
+            shards.query().groupBy(E.id).fetch();
+        });
+        assertThrows(UnsupportedOperationException.class, () -> {
+            shards.query().select(E.id.max()).fetch();
+        });
+        shards.query().where(E.id.eq(2L)).groupBy(E.id).fetch();
+        assertEquals(1, shards.created.get(0).size());
+    }
+
+    /**
+     * Unit test for {@link ShardedSqlQuery#fetchFirst()}.
+     */
+    @Test
+    void testFetchFirst() {
+        final TestShards shards = new TestShards();
+        assertEquals(1L, shards.query().orderBy(E.id.asc()).fetchFirst());
+        assertEquals(1L, shards.created.get(0).get(0).getMetadata().getModifiers().getLimit());
+        assertNull(shards.query().where(E.id.eq(3L), E.id.eq(4L)).fetchFirst());
+    }
+
+    /**
+     * Unit test for {@link ShardedSqlQuery#fetchOne()}.
+     */
+    @Test
+    void testFetchOne() {
+        final TestShards shards = new TestShards();
+        assertThrows(NonUniqueResultException.class, () -> {
+            shards.query().fetchOne();
+        });
+        assertEquals(2L, shards.created.get(0).get(0).getMetadata().getModifiers().getLimit());
+        final TestShards single = new TestShards(Collections.emptyList(), Collections.singletonList(7L));
+        assertEquals(7L, single.query().fetchOne());
+        assertNull(single.query().where(E.id.eq(3L), E.id.eq(4L)).fetchOne());
+    }
+
+    /**
+     * Unit test for {@link ShardedSqlQuery#iterate()}.
+     */
+    @Test
+    void testIterate() {
+        final TestShards shards = new TestShards();
+        final List<Long> result = new ArrayList<>();
+        try (final CloseableIterator<Long> it = shards.query()
+                .orderBy(E.id.desc())
+                .offset(2)
+                .iterate()) {
+            it.forEachRemaining(result::add);
+        }
+        assertEquals(Arrays.asList(4L, 3L, 2L, 1L), result);
+        for (final List<SQLQuery<?>> created : shards.created) {
+            then(created.get(0)).should().iterate();
+        }
+    }
+
+    /**
+     * Unit test for {@link ShardedSqlQuery#iterate()}.
+     */
+    @Test
+    void testIterateFailure() {
+        final TestShards shards = new TestShards();
+        shards.failure = 1;
+        assertThrows(IllegalStateException.class, () -> {
+            shards.query().iterate();
+        });
+        assertEquals(1, shards.closed);
+    }
+
+    /**
+     * Unit test for {@link ShardedSqlQuery#fetchCount()}.
+     */
+    @Test
+    void testFetchCount() {
+        final TestShards shards = new TestShards();
+        assertEquals(6L, shards.query().fetchCount());
+        assertEquals(3L, shards.query().where(E.id.in(1L, 3L)).fetchCount());
+        assertEquals(0L, shards.query().where(E.id.eq(3L), E.id.eq(4L)).fetchCount());
+    }
+
+    /**
+     * Unit test for {@link ShardedSqlQuery#fetchResults()}.
+     */
+    @Test
+    void testFetchResults() {
+        final TestShards shards = new TestShards();
+        final QueryResults<Long> result = shards.query()
+                .orderBy(E.id.asc())
+                .limit(2)
+                .offset(2)
+                .fetchResults();
+        assertEquals(6L, result.getTotal());
+        assertEquals(Arrays.asList(3L, 4L), result.getResults());
+        assertEquals(2L, result.getLimit());
+        assertEquals(2L, result.getOffset());
+        assertTrue(shards.query().where(E.id.eq(3L), E.id.eq(4L)).fetchResults().isEmpty());
+    }
+
+    /**
+     * Unit test for {@link ShardedSqlQuery#addListener(SQLListener)}.
+     */
+    @Test
+    void testAddListener() {
+        final TestShards shards = new TestShards();
+        final SQLListener listener = mock(SQLListener.class);
+        final ShardedSqlQuery<Long> query = shards.query();
+        query.addListener(listener);
+        query.fetch();
+        for (final List<SQLQuery<?>> created : shards.created) {
+            then(created.get(0)).should().addListener(listener);
+        }
+        assertThrows(NullPointerException.class, () -> {
+            query.addListener(null);
+        });
+    }
+
+    /**
+     * Unit test for {@link ShardedSqlQuery#getSource(QueryMetadata)}.
+     */
+    @Test
+    void testGetSource() {
+        final QEntity alias = new QEntity("alias");
+        assertEquals(E, ShardedSqlQuery.getSource(new SQLQuery<Void>().from(E).getMetadata()));
+        assertEquals(alias, ShardedSqlQuery.getSource(new SQLQuery<Void>().from(alias).getMetadata()));
+        assertThrows(IllegalStateException.class, () -> {
+            ShardedSqlQuery.getSource(new SQLQuery<Void>().getMetadata());
+        });
+    }
+
+    private static class TestShards {
+        final List<List<Long>> data;
+        final List<List<SQLQuery<?>>> created = new ArrayList<>();
+        final SqlShardRouter router;
+        int failure = -1;
+        int closed;
+        TestShards() {
+            this(Arrays.asList(2L, 4L, 6L), Arrays.asList(1L, 3L, 5L));
+        }
+        @SafeVarargs
+        TestShards(List<Long>... data) {
+            this.data = Arrays.asList(data);
+            final List<SQLCommonQueryFactory<? extends ProjectableSQLQuery<?, ?>, ?, ?, ?, ?>> factories =
+                    new ArrayList<>();
+            for (int i = 0; i < data.length; i++) {
+                this.created.add(new ArrayList<>());
+                factories.add(mockFactory(i));
+            }
+            this.router = new SqlShardRouter(E.id, factories,
+                    value -> (int) (((Long) value) % factories.size()));
+        }
+        ShardedSqlQuery<Long> query() {
+            return new ShardedSqlQuery<>(this.router, new SQLQuery<Void>().select(E.id).from(E));
+        }
+        @SuppressWarnings("unchecked")
+        private SQLCommonQueryFactory<? extends ProjectableSQLQuery<?, ?>, ?, ?, ?, ?> mockFactory(
+                final int shard) {
+            final SQLCommonQueryFactory<SQLQuery<?>, ?, ?, ?, ?> factory = mock(SQLCommonQueryFactory.class);
+            given(factory.query()).willAnswer(inv -> {
+                final SQLQuery<?> query = spy(new SQLQuery<Void>());
+                willAnswer(fetch -> results(query, shard)).given(query).fetch();
+                willAnswer(fetch -> {
+                    final List<?> results = results(query, shard);
+                    return results.isEmpty() ? null : results.get(0);
+                }).given(query).fetchFirst();
+                willAnswer(fetch -> {
+                    final List<?> results = results(query, shard);
+                    return results.isEmpty() ? null : results.get(0);
+                }).given(query).fetchOne();
+                willAnswer(fetch -> (long) this.data.get(shard).size()).given(query).fetchCount();
+                willAnswer(fetch -> {
+                    if (shard == this.failure) {
+                        throw new IllegalStateException();
+                    }
+                    return new IteratorAdapter<Object>(results(query, shard).iterator()) {
+                        @Override
+                        public void close() {
+                            closed++;
+                        }
+                    };
+                }).given(query).iterate();
+                synchronized (this.created) {
+                    this.created.get(shard).add(query);
+                }
+                return query;
+            });
+            return factory;
+        }
+        private List<Object> results(
+                final SQLQuery<?> query,
+                final int shard) {
+            final QueryMetadata metadata = query.getMetadata();
+            final Expression<?> projection = metadata.getProjection();
+            List<Long> values = this.data.get(shard);
+            if (!metadata.getOrderBy().isEmpty() && !metadata.getOrderBy().get(0).isAscending()) {
+                values = new ArrayList<>(values);
+                Collections.reverse(values);
+            }
+            final Long limit = metadata.getModifiers().getLimit();
+            if (limit != null && limit < values.size()) {
+                values = values.subList(0, limit.intValue());
+            }
+            if (!(projection instanceof FactoryExpression)) {
+                return new ArrayList<>(values);
+            }
+            final FactoryExpression<?> factory = (FactoryExpression<?>) projection;
+            final List<Object> result = new ArrayList<>();
+            for (final Long value : values) {
+                final Object[] args = new Object[factory.getArgs().size()];
+                Arrays.fill(args, value);
+                result.add(factory.newInstance(args));
+            }
+            return result;
+        }
+    }
+
+    public static class QEntity extends RelationalPathBase<Object> {
+        private static final long serialVersionUID = 1L;
+        public final NumberPath<Long> id = createNumber("id", Long.class);
+        public QEntity(String variable) {
+            super(Object.class, PathMetadataFactory.forVariable(variable), "null", "TABLE");
+        }
+    }
+}
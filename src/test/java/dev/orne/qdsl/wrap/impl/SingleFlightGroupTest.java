@@ -0,0 +1,344 @@
+package dev.orne.qdsl.wrap.impl;
+
+/*-
+ * #%L
+ * Orne Querydsl Utils
+ * %%
+ * Copyright (C) 2022 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.querydsl.core.DefaultQueryMetadata;
+import com.querydsl.core.JoinType;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.QueryResults;
+import com.querydsl.core.types.PathMetadataFactory;
+import com.querydsl.core.types.dsl.EntityPathBase;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.StringPath;
+
+import dev.orne.qdsl.wrap.CancelHandle;
+import dev.orne.qdsl.wrap.QueryCancelledException;
+
+/**
+ * Unit tests for {@code SingleFlightGroup}.
+ *
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2022-10
+ * @since 0.1
+ * @see SingleFlightGroup
+ */
+@Tag("ut")
+class SingleFlightGroupTest {
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    void createExecutor() {
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    @AfterEach
+    void shutdownExecutor() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Unit test for {@link SingleFlightGroup#execute(Class, QueryKey.Operation, QueryMetadata, Supplier)}.
+     */
+    @Test
+    void testExecute() {
+        final SingleFlightGroup group = new SingleFlightGroup();
+        final List<String> expected = Arrays.asList("a", "b");
+        assertSame(expected, group.execute(QEntity.class, QueryKey.Operation.FETCH,
+                createMetadata("alias", "a"), () -> expected));
+        assertEquals(0, group.getInFlightCount());
+        assertThrows(NullPointerException.class, () -> {
+            group.execute(null, QueryKey.Operation.FETCH, createMetadata("alias", "a"), () -> expected);
+        });
+        assertThrows(NullPointerException.class, () -> {
+            group.execute(QEntity.class, QueryKey.Operation.FETCH, createMetadata("alias", "a"), null);
+        });
+    }
+
+    /**
+     * Unit test for {@link SingleFlightGroup#execute(Class, QueryKey.Operation, QueryMetadata, Supplier)}.
+     */
+    @Test
+    void testExecuteConcurrent()
+    throws Exception {
+        final SingleFlightGroup group = new SingleFlightGroup();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger executions = new AtomicInteger();
+        final List<String> expected = new ArrayList<>(Arrays.asList("a", "b"));
+        final Supplier<List<String>> query = () -> {
+            executions.incrementAndGet();
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return expected;
+        };
+        final Future<List<String>> leader = executor.submit(() -> group.execute(
+                QEntity.class, QueryKey.Operation.FETCH, createMetadata("alias", "a"), query));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertEquals(1, group.getInFlightCount());
+        final ExecutorService followers = Executors.newSingleThreadExecutor();
+        try {
+            final Future<List<String>> follower = followers.submit(() -> group.execute(
+                    QEntity.class, QueryKey.Operation.FETCH, createMetadata("other", "a"), query));
+            while (!isWaiting(follower)) {
+                Thread.yield();
+            }
+            release.countDown();
+            assertSame(expected, leader.get(5, TimeUnit.SECONDS));
+            final List<String> result = follower.get(5, TimeUnit.SECONDS);
+            assertEquals(expected, result);
+            assertNotSame(expected, result);
+        } finally {
+            followers.shutdownNow();
+        }
+        assertEquals(1, executions.get());
+        assertEquals(0, group.getInFlightCount());
+    }
+
+    /**
+     * Unit test for {@link SingleFlightGroup#await(CompletableFuture)}.
+     */
+    @Test
+    void testAwaitFailure() {
+        final SingleFlightGroup group = new SingleFlightGroup();
+        final CompletableFuture<Object> flight = new CompletableFuture<>();
+        final IllegalStateException error = new IllegalStateException();
+        flight.completeExceptionally(error);
+        final IllegalStateException result = assertThrows(IllegalStateException.class, () -> {
+            group.await(flight);
+        });
+        assertSame(error, result);
+        final CompletableFuture<Object> other = new CompletableFuture<>();
+        final Object value = new Object();
+        other.complete(value);
+        assertSame(value, group.await(other));
+    }
+
+    /**
+     * Unit test for {@link SingleFlightGroup#await(CompletableFuture)}.
+     */
+    @Test
+    void testAwaitQueryResults() {
+        final SingleFlightGroup group = new SingleFlightGroup();
+        final CompletableFuture<Object> flight = new CompletableFuture<>();
+        final List<String> values = new ArrayList<>(Arrays.asList("a", "b"));
+        final QueryResults<String> expected = new QueryResults<>(values, 10L, 5L, 20L);
+        flight.complete(expected);
+        final QueryResults<String> result = group.await(flight);
+        assertNotSame(expected, result);
+        assertNotSame(values, result.getResults());
+        assertEquals(values, result.getResults());
+        assertEquals(10L, result.getLimit());
+        assertEquals(5L, result.getOffset());
+        assertEquals(20L, result.getTotal());
+    }
+
+    /**
+     * Unit test for {@link SingleFlightGroup#await(CompletableFuture, ExecutionBounds)}.
+     */
+    @Test
+    void testAwaitBounded() {
+        final SingleFlightGroup group = new SingleFlightGroup();
+        final ExecutionBounds bounds = new ExecutionBounds();
+        bounds.setTimeout(5000);
+        final CompletableFuture<Object> flight = new CompletableFuture<>();
+        final List<String> expected = Arrays.asList("a", "b");
+        flight.complete(expected);
+        final List<String> result = group.await(flight, bounds);
+        assertEquals(expected, result);
+        assertNotSame(expected, result);
+        final CompletableFuture<Object> failed = new CompletableFuture<>();
+        final IllegalStateException error = new IllegalStateException();
+        failed.completeExceptionally(error);
+        assertSame(error, assertThrows(IllegalStateException.class, () -> {
+            group.await(failed, bounds);
+        }));
+    }
+
+    /**
+     * Unit test for {@link SingleFlightGroup#await(CompletableFuture, ExecutionBounds)}.
+     */
+    @Test
+    void testAwaitTimeout() {
+        final SingleFlightGroup group = new SingleFlightGroup();
+        final ExecutionBounds bounds = new ExecutionBounds();
+        bounds.setTimeout(100);
+        final CompletableFuture<Object> flight = new CompletableFuture<>();
+        final long start = System.nanoTime();
+        assertThrows(QueryCancelledException.class, () -> {
+            group.await(flight, bounds);
+        });
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 5000);
+        assertFalse(flight.isDone());
+    }
+
+    /**
+     * Unit test for {@link SingleFlightGroup#await(CompletableFuture, ExecutionBounds)}.
+     */
+    @Test
+    void testAwaitCancelled()
+    throws Exception {
+        final SingleFlightGroup group = new SingleFlightGroup();
+        final CancelHandle handle = new CancelHandle();
+        final ExecutionBounds bounds = new ExecutionBounds();
+        bounds.setCancelHandle(handle);
+        final CompletableFuture<Object> flight = new CompletableFuture<>();
+        final Future<Object> waiter = executor.submit(() -> group.await(flight, bounds));
+        while (!isWaiting(waiter)) {
+            Thread.yield();
+        }
+        handle.cancel();
+        final ExecutionException result = assertThrows(ExecutionException.class, () -> {
+            waiter.get(5, TimeUnit.SECONDS);
+        });
+        assertInstanceOf(QueryCancelledException.class, result.getCause());
+        assertFalse(flight.isDone());
+    }
+
+    /**
+     * Unit test for {@link SingleFlightGroup#execute(Class, QueryKey.Operation, QueryMetadata, ExecutionBounds, Supplier)}.
+     */
+    @Test
+    void testExecuteConcurrentCancelled()
+    throws Exception {
+        final SingleFlightGroup group = new SingleFlightGroup();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<String> expected = new ArrayList<>(Arrays.asList("a", "b"));
+        final Supplier<List<String>> query = () -> {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return expected;
+        };
+        final Future<List<String>> leader = executor.submit(() -> group.execute(
+                QEntity.class, QueryKey.Operation.FETCH, createMetadata("alias", "a"), query));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        final CancelHandle handle = new CancelHandle();
+        handle.cancel();
+        final ExecutionBounds bounds = new ExecutionBounds();
+        bounds.setCancelHandle(handle);
+        assertThrows(QueryCancelledException.class, () -> {
+            group.execute(QEntity.class, QueryKey.Operation.FETCH, createMetadata("other", "a"),
+                    bounds, query);
+        });
+        assertEquals(1, group.getInFlightCount());
+        release.countDown();
+        assertSame(expected, leader.get(5, TimeUnit.SECONDS));
+        assertEquals(0, group.getInFlightCount());
+    }
+
+    /**
+     * Unit test for {@link SingleFlightGroup#execute(Class, QueryKey.Operation, QueryMetadata, Supplier)}.
+     */
+    @Test
+    void testExecuteFailure() {
+        final SingleFlightGroup group = new SingleFlightGroup();
+        final IllegalStateException error = new IllegalStateException();
+        final IllegalStateException result = assertThrows(IllegalStateException.class, () -> {
+            group.execute(QEntity.class, QueryKey.Operation.FETCH, createMetadata("alias", "a"), () -> {
+                throw error;
+            });
+        });
+        assertSame(error, result);
+        assertEquals(0, group.getInFlightCount());
+    }
+
+    /**
+     * Unit test for {@link SingleFlightGroup#scope(Class)}.
+     */
+    @Test
+    void testScope() {
+        final SingleFlightGroup group = spy(new SingleFlightGroup());
+        final SingleFlightGroup.Scope scope = group.scope(QEntity.class);
+        assertSame(group, scope.getGroup());
+        assertSame(QEntity.class, scope.getEntityType());
+        final QueryMetadata metadata = createMetadata("alias", "a");
+        final Supplier<String> query = () -> "result";
+        assertEquals("result", scope.execute(QueryKey.Operation.FETCH_ONE, metadata, query));
+        then(group).should().execute(QEntity.class, QueryKey.Operation.FETCH_ONE, metadata, query);
+        final ExecutionBounds bounds = new ExecutionBounds();
+        assertEquals("result", scope.execute(QueryKey.Operation.FETCH, metadata, bounds, query));
+        then(group).should().execute(QEntity.class, QueryKey.Operation.FETCH, metadata, bounds, query);
+        assertThrows(NullPointerException.class, () -> {
+            group.scope(null);
+        });
+    }
+
+    private static boolean isWaiting(
+            final Future<?> future) {
+        return future.isDone() || Thread.getAllStackTraces().keySet().stream()
+                .anyMatch(thread -> (thread.getState() == Thread.State.WAITING ||
+                            thread.getState() == Thread.State.TIMED_WAITING) &&
+                        Arrays.stream(thread.getStackTrace()).anyMatch(
+                                frame -> "await".equals(frame.getMethodName()) &&
+                                    SingleFlightGroup.class.getName().equals(frame.getClassName())));
+    }
+
+    private static QueryMetadata createMetadata(
+            final String alias,
+            final String value) {
+        final QEntity entity = new QEntity(alias);
+        final StringPath path = Expressions.stringPath(entity, "path");
+        final QueryMetadata metadata = new DefaultQueryMetadata();
+        metadata.addJoin(JoinType.DEFAULT, entity);
+        metadata.setProjection(path);
+        metadata.addWhere(path.eq(value));
+        return metadata;
+    }
+
+    private static class QEntity extends EntityPathBase<Object> {
+        private static final long serialVersionUID = 1L;
+        public QEntity(String variable) {
+            super(Object.class, PathMetadataFactory.forVariable(variable));
+        }
+    }
+}
@@ -0,0 +1,412 @@
+package dev.orne.qdsl.wrap.impl;
+
+/*-
+ * #%L
+ * Orne Querydsl Utils
+ * %%
+ * Copyright (C) 2022 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.*;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.querydsl.core.DefaultQueryMetadata;
+import com.querydsl.core.QueryModifiers;
+import com.querydsl.core.types.Constant;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.PathMetadataFactory;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.sql.Configuration;
+import com.querydsl.sql.RelationalPathBase;
+import com.querydsl.sql.SQLQuery;
+import com.querydsl.sql.SQLTemplates;
+
+import dev.orne.qdsl.wrap.CancelHandle;
+import dev.orne.qdsl.wrap.ChunkedExecution;
+import dev.orne.qdsl.wrap.QueryCancelledException;
+import dev.orne.qdsl.wrap.impl.transform.ConvertedProjection;
+
+/**
+ * Unit tests for {@code SqlChunkedDml}.
+ *
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2022-10
+ * @since 0.1
+ * @see SqlChunkedDml
+ */
+@Tag("ut")
+class SqlChunkedDmlTest {
+
+    private static final QEntity ENTITY = new QEntity("entity");
+    private static final Predicate FILTER = ENTITY.id.goe(2L).or(ENTITY.id.isNull());
+
+    /**
+     * Unit test for {@link SqlChunkedDml#SqlChunkedDml(ChunkedExecution, ExecutionBounds, Predicate[], Path, java.util.function.Supplier)}.
+     */
+    @Test
+    void testConstructor() {
+        final ChunkedExecution execution = new ChunkedExecution(10);
+        final ExecutionBounds bounds = new ExecutionBounds();
+        final Predicate[] filters = new Predicate[] { FILTER };
+        final SqlChunkedDml limited = new SqlChunkedDml(execution, bounds, filters, null, null);
+        assertSame(execution, limited.getExecution());
+        assertNull(limited.getKey());
+        final SqlChunkedDml keyed = new SqlChunkedDml(execution, bounds, filters, ENTITY.id,
+                () -> new TestQuery<>(new ArrayList<>()));
+        assertSame(ENTITY.id, keyed.getKey());
+        assertThrows(NullPointerException.class, () -> {
+            new SqlChunkedDml(null, bounds, filters, null, null);
+        });
+        assertThrows(NullPointerException.class, () -> {
+            new SqlChunkedDml(execution, null, filters, null, null);
+        });
+        assertThrows(NullPointerException.class, () -> {
+            new SqlChunkedDml(execution, bounds, null, null, null);
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            new SqlChunkedDml(execution, bounds, filters, ENTITY.id, null);
+        });
+    }
+
+    /**
+     * Unit test for {@link SqlChunkedDml#translateKey(ExpressionTransformer, ChunkedExecution)}.
+     */
+    @Test
+    void testTranslateKey() {
+        final NumberPath<Long> key = Expressions.numberPath(Long.class, "key");
+        final ExpressionTransformer transformer = mock(ExpressionTransformer.class);
+        final ChunkedExecution execution = new ChunkedExecution(10);
+        assertNull(SqlChunkedDml.translateKey(transformer, execution));
+        then(transformer).shouldHaveNoInteractions();
+        execution.setKey(key);
+        willReturn(ENTITY.id).given(transformer).translateKeyPath(key);
+        assertSame(ENTITY.id, SqlChunkedDml.translateKey(transformer, execution));
+        final NumberPath<Integer> stored = Expressions.numberPath(Integer.class, "stored");
+        willReturn(new ConvertedProjection<Integer, Long>(Long.class, stored, v -> v == null ? null : v.longValue()))
+                .given(transformer).translateKeyPath(key);
+        assertSame(stored, SqlChunkedDml.translateKey(transformer, execution));
+        willReturn(Expressions.constant(1L)).given(transformer).translateKeyPath(key);
+        assertThrows(ExpressionTransformationException.class, () -> {
+            SqlChunkedDml.translateKey(transformer, execution);
+        });
+    }
+
+    /**
+     * Unit test for {@link SqlChunkedDml#execute(SqlChunkedDml.ChunkStatement)}
+     * in limit mode.
+     */
+    @Test
+    void testExecuteLimited() {
+        final List<Long> data = createData(0, 12);
+        final List<long[]> progress = new ArrayList<>();
+        final ChunkedExecution execution = new ChunkedExecution(4)
+                .setListener((chunk, affected, total) -> progress.add(new long[] { chunk, affected, total }));
+        final SqlChunkedDml dml = new SqlChunkedDml(execution, new ExecutionBounds(),
+                new Predicate[] { FILTER }, null, null);
+        final List<Long> limits = new ArrayList<>();
+        final long result = dml.execute((filters, limit) -> {
+            assertArrayEquals(new Predicate[] { FILTER }, filters);
+            limits.add(limit);
+            return delete(data, filters, limit);
+        });
+        assertEquals(10, result);
+        assertEquals(Arrays.asList(0L, 1L), data);
+        assertEquals(Arrays.asList(4L, 4L, 4L), limits);
+        assertEquals(3, progress.size());
+        assertArrayEquals(new long[] { 0, 4, 4 }, progress.get(0));
+        assertArrayEquals(new long[] { 1, 4, 8 }, progress.get(1));
+        assertArrayEquals(new long[] { 2, 2, 10 }, progress.get(2));
+        assertThrows(NullPointerException.class, () -> {
+            dml.execute(null);
+        });
+    }
+
+    /**
+     * Unit test for {@link SqlChunkedDml#execute(SqlChunkedDml.ChunkStatement)}
+     * in limit mode with an exact number of chunks.
+     */
+    @Test
+    void testExecuteLimitedExact() {
+        final List<Long> data = createData(2, 10);
+        final ChunkedExecution execution = new ChunkedExecution(4);
+        final SqlChunkedDml dml = new SqlChunkedDml(execution, new ExecutionBounds(),
+                new Predicate[] { FILTER }, null, null);
+        final List<Long> chunks = new ArrayList<>();
+        final long result = dml.execute((filters, limit) -> {
+            final long affected = delete(data, filters, limit);
+            chunks.add(affected);
+            return affected;
+        });
+        assertEquals(8, result);
+        assertTrue(data.isEmpty());
+        assertEquals(Arrays.asList(4L, 4L, 0L), chunks);
+    }
+
+    /**
+     * Unit test for {@link SqlChunkedDml#execute(SqlChunkedDml.ChunkStatement)}
+     * in key mode.
+     */
+    @Test
+    void testExecuteKeyed() {
+        final List<Long> data = createData(0, 12);
+        Collections.shuffle(data);
+        final List<long[]> progress = new ArrayList<>();
+        final ChunkedExecution execution = new ChunkedExecution(4)
+                .setListener((chunk, affected, total) -> progress.add(new long[] { chunk, affected, total }));
+        final SqlChunkedDml dml = new SqlChunkedDml(execution, new ExecutionBounds(),
+                new Predicate[] { FILTER }, ENTITY.id, () -> new TestQuery<>(data));
+        final List<Predicate[]> chunks = new ArrayList<>();
+        final long result = dml.execute((filters, limit) -> {
+            assertEquals(0, limit);
+            chunks.add(filters);
+            return count(data, filters);
+        });
+        assertEquals(10, result);
+        assertEquals(4, chunks.size());
+        assertArrayEquals(new Predicate[] { FILTER, ENTITY.id.loe(5L) }, chunks.get(0));
+        assertArrayEquals(new Predicate[] { FILTER, ENTITY.id.gt(5L).and(ENTITY.id.loe(9L)) }, chunks.get(1));
+        assertArrayEquals(new Predicate[] { FILTER, ENTITY.id.gt(9L) }, chunks.get(2));
+        assertArrayEquals(new Predicate[] { FILTER, ENTITY.id.isNull() }, chunks.get(3));
+        assertEquals(4, progress.size());
+        assertArrayEquals(new long[] { 0, 4, 4 }, progress.get(0));
+        assertArrayEquals(new long[] { 1, 4, 8 }, progress.get(1));
+        assertArrayEquals(new long[] { 2, 2, 10 }, progress.get(2));
+        assertArrayEquals(new long[] { 3, 0, 10 }, progress.get(3));
+    }
+
+    /**
+     * Unit test for {@link SqlChunkedDml#execute(SqlChunkedDml.ChunkStatement)}
+     * in key mode with rows with {@code null} key.
+     */
+    @Test
+    void testExecuteKeyedNullKeys() {
+        final List<Long> data = createData(0, 3);
+        data.add(null);
+        data.add(null);
+        final ChunkedExecution execution = new ChunkedExecution(4);
+        final SqlChunkedDml dml = new SqlChunkedDml(execution, new ExecutionBounds(),
+                new Predicate[] { FILTER }, ENTITY.id, () -> new TestQuery<>(data));
+        final List<Predicate[]> chunks = new ArrayList<>();
+        final long result = dml.execute((filters, limit) -> {
+            chunks.add(filters);
+            return delete(data, filters, limit);
+        });
+        assertEquals(3, result);
+        assertEquals(Arrays.asList(0L, 1L), data);
+        assertEquals(2, chunks.size());
+        assertArrayEquals(new Predicate[] { FILTER, ENTITY.id.isNotNull() }, chunks.get(0));
+        assertArrayEquals(new Predicate[] { FILTER, ENTITY.id.isNull() }, chunks.get(1));
+    }
+
+    /**
+     * Unit test for {@link SqlChunkedDml#execute(SqlChunkedDml.ChunkStatement)}
+     * when cancelled between chunks.
+     */
+    @Test
+    void testExecuteCancelled() {
+        final List<Long> data = createData(0, 12);
+        final CancelHandle handle = new CancelHandle();
+        final ExecutionBounds bounds = new ExecutionBounds();
+        bounds.setCancelHandle(handle);
+        final ChunkedExecution execution = new ChunkedExecution(4)
+                .setListener((chunk, affected, total) -> handle.cancel());
+        final SqlChunkedDml dml = new SqlChunkedDml(execution, bounds,
+                new Predicate[] { FILTER }, null, null);
+        assertThrows(QueryCancelledException.class, () -> {
+            dml.execute((filters, limit) -> delete(data, filters, limit));
+        });
+        assertEquals(Arrays.asList(0L, 1L, 6L, 7L, 8L, 9L, 10L, 11L), data);
+    }
+
+    /**
+     * Unit test for {@link SqlChunkedDml#execute(SqlChunkedDml.ChunkStatement)}
+     * with a pause between chunks.
+     */
+    @Test
+    void testExecutePause() {
+        final List<Long> data = createData(0, 12);
+        final ChunkedExecution execution = new ChunkedExecution(4)
+                .setPause(20, TimeUnit.MILLISECONDS);
+        final SqlChunkedDml dml = new SqlChunkedDml(execution, new ExecutionBounds(),
+                new Predicate[] { FILTER }, null, null);
+        final long start = System.nanoTime();
+        assertEquals(10, dml.execute((filters, limit) -> delete(data, filters, limit)));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(40));
+    }
+
+    /**
+     * Unit test for {@link SqlChunkedDml#execute(SqlChunkedDml.ChunkStatement)}
+     * when interrupted during a pause between chunks.
+     */
+    @Test
+    void testExecutePauseInterrupted() {
+        final List<Long> data = createData(0, 12);
+        final ChunkedExecution execution = new ChunkedExecution(4)
+                .setPause(1, TimeUnit.MINUTES)
+                .setListener((chunk, affected, total) -> Thread.currentThread().interrupt());
+        final SqlChunkedDml dml = new SqlChunkedDml(execution, new ExecutionBounds(),
+                new Predicate[] { FILTER }, null, null);
+        try {
+            final QueryCancelledException result = assertThrows(QueryCancelledException.class, () -> {
+                dml.execute((filters, limit) -> delete(data, filters, limit));
+            });
+            assertInstanceOf(InterruptedException.class, result.getCause());
+            assertTrue(Thread.currentThread().isInterrupted());
+        } finally {
+            Thread.interrupted();
+        }
+        assertEquals(8, data.size());
+    }
+
+    private static List<Long> createData(
+            final long from,
+            final long to) {
+        final List<Long> data = new ArrayList<>();
+        for (long i = from; i < to; i++) {
+            data.add(i);
+        }
+        return data;
+    }
+
+    private static long count(
+            final List<Long> data,
+            final Predicate[] filters) {
+        return data.stream().filter(row -> matches(filters, row)).count();
+    }
+
+    private static long delete(
+            final List<Long> data,
+            final Predicate[] filters,
+            final long limit) {
+        long affected = 0;
+        final Iterator<Long> it = data.iterator();
+        while (it.hasNext() && (limit == 0 || affected < limit)) {
+            if (matches(filters, it.next())) {
+                it.remove();
+                affected++;
+            }
+        }
+        return affected;
+    }
+
+    private static boolean matches(
+            final Predicate[] filters,
+            final Long row) {
+        for (final Predicate filter : filters) {
+            if (filter != null && !Boolean.TRUE.equals(evaluate(filter, row))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static Object evaluate(
+            final Expression<?> expr,
+            final Long row) {
+        if (expr instanceof Path) {
+            return row;
+        } else if (expr instanceof Constant) {
+            return ((Constant<?>) expr).getConstant();
+        }
+        final Operation<?> operation = (Operation<?>) expr;
+        final Object left = evaluate(operation.getArg(0), row);
+        if (operation.getOperator() == Ops.IS_NULL) {
+            return left == null;
+        } else if (operation.getOperator() == Ops.IS_NOT_NULL) {
+            return left != null;
+        } else if (operation.getOperator() == Ops.AND) {
+            return (Boolean) left && (Boolean) evaluate(operation.getArg(1), row);
+        } else if (operation.getOperator() == Ops.OR) {
+            return (Boolean) left || (Boolean) evaluate(operation.getArg(1), row);
+        }
+        final Object right = evaluate(operation.getArg(1), row);
+        if (left == null || right == null) {
+            return false;
+        }
+        final int cmp = ((Comparable) left).compareTo(right);
+        if (operation.getOperator() == Ops.GT) {
+            return cmp > 0;
+        } else if (operation.getOperator() == Ops.GOE) {
+            return cmp >= 0;
+        } else if (operation.getOperator() == Ops.LOE) {
+            return cmp <= 0;
+        }
+        throw new UnsupportedOperationException(operation.toString());
+    }
+
+    private static class TestQuery<T>
+    extends SQLQuery<T> {
+        private static final long serialVersionUID = 1L;
+        private final List<Long> data;
+        TestQuery(
+                final List<Long> data) {
+            super((Connection) null, new Configuration(SQLTemplates.DEFAULT), new DefaultQueryMetadata());
+            this.data = data;
+        }
+        @Override
+        public List<T> fetch() {
+            return results();
+        }
+        @Override
+        public T fetchOne() {
+            final List<T> results = results();
+            return results.isEmpty() ? null : results.get(0);
+        }
+        @SuppressWarnings("unchecked")
+        private List<T> results() {
+            final Predicate where = getMetadata().getWhere();
+            List<Long> rows = this.data.stream()
+                    .filter(row -> where == null || Boolean.TRUE.equals(evaluate(where, row)))
+                    .collect(Collectors.toList());
+            if (!getMetadata().getOrderBy().isEmpty()) {
+                rows.sort(Comparator.nullsFirst(Comparator.naturalOrder()));
+            }
+            final QueryModifiers modifiers = getMetadata().getModifiers();
+            final int offset = modifiers.getOffsetAsInteger() == null ? 0 : modifiers.getOffsetAsInteger();
+            final int limit = modifiers.getLimitAsInteger() == null ? Integer.MAX_VALUE : modifiers.getLimitAsInteger();
+            rows = rows.stream().skip(offset).limit(limit).collect(Collectors.toList());
+            return (List<T>) rows;
+        }
+    }
+
+    public static class QEntity extends RelationalPathBase<Object> {
+        private static final long serialVersionUID = 1L;
+        public final NumberPath<Long> id = createNumber("id", Long.class);
+        public QEntity(String variable) {
+            super(Object.class, PathMetadataFactory.forVariable(variable), "null", "TABLE");
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package dev.orne.qdsl.wrap.impl;
+
+/*-
+ * #%L
+ * Orne Querydsl Utils
+ * %%
+ * Copyright (C) 2022 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.*;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.querydsl.core.QueryException;
+import com.querydsl.sql.SQLListenerContextImpl;
+
+import dev.orne.qdsl.wrap.CancelHandle;
+import dev.orne.qdsl.wrap.QueryCancelledException;
+
+/**
+ * Unit tests for {@code SqlExecutionBoundsListener}.
+ *
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2022-10
+ * @since 0.1
+ * @see SqlExecutionBoundsListener
+ */
+@Tag("ut")
+class SqlExecutionBoundsListenerTest {
+
+    /**
+     * Unit test for {@link SqlExecutionBoundsListener#SqlExecutionBoundsListener(ExecutionBounds)}.
+     */
+    @Test
+    void testConstructor() {
+        final ExecutionBounds bounds = new ExecutionBounds();
+        assertSame(bounds, new SqlExecutionBoundsListener(bounds).getBounds());
+        assertThrows(NullPointerException.class, () -> {
+            new SqlExecutionBoundsListener(null);
+        });
+    }
+
+    /**
+     * Unit test for {@link SqlExecutionBoundsListener#start(com.querydsl.sql.SQLListenerContext)}.
+     */
+    @Test
+    void testStart() {
+        final ExecutionBounds bounds = new ExecutionBounds();
+        final SqlExecutionBoundsListener listener = new SqlExecutionBoundsListener(bounds);
+        final SQLListenerContextImpl context = new SQLListenerContextImpl(null);
+        assertDoesNotThrow(() -> listener.start(context));
+        final CancelHandle handle = new CancelHandle();
+        bounds.setCancelHandle(handle);
+        handle.cancel();
+        assertThrows(QueryCancelledException.class, () -> {
+            listener.start(context);
+        });
+    }
+
+    /**
+     * Unit test for {@link SqlExecutionBoundsListener#preExecute(com.querydsl.sql.SQLListenerContext)}
+     * and {@link SqlExecutionBoundsListener#end(com.querydsl.sql.SQLListenerContext)}.
+     */
+    @Test
+    void testExecution()
+    throws SQLException {
+        final ExecutionBounds bounds = new ExecutionBounds();
+        bounds.setTimeout(1500);
+        final CancelHandle handle = new CancelHandle();
+        bounds.setCancelHandle(handle);
+        final SqlExecutionBoundsListener listener = new SqlExecutionBoundsListener(bounds);
+        final PreparedStatement statement = mock(PreparedStatement.class);
+        final SQLListenerContextImpl context = new SQLListenerContextImpl(null);
+        context.addPreparedStatement(statement);
+        listener.preExecute(context);
+        listener.preExecute(context);
+        then(statement).should().setQueryTimeout(2);
+        handle.cancel();
+        then(statement).should().cancel();
+        listener.end(context);
+        then(statement).shouldHaveNoMoreInteractions();
+        final PreparedStatement other = mock(PreparedStatement.class);
+        final SQLListenerContextImpl otherContext = new SQLListenerContextImpl(null);
+        otherContext.addPreparedStatement(other);
+        bounds.setTimeout(0);
+        bounds.setCancelHandle(null);
+        listener.preExecute(otherContext);
+        listener.end(otherContext);
+        then(other).shouldHaveNoInteractions();
+    }
+
+    /**
+     * Unit test for {@link SqlExecutionBoundsListener#preExecute(com.querydsl.sql.SQLListenerContext)}.
+     */
+    @Test
+    void testExecutionError()
+    throws SQLException {
+        final ExecutionBounds bounds = new ExecutionBounds();
+        bounds.setTimeout(1000);
+        final SqlExecutionBoundsListener listener = new SqlExecutionBoundsListener(bounds);
+        final PreparedStatement statement = mock(PreparedStatement.class);
+        willThrow(SQLException.class).given(statement).setQueryTimeout(1);
+        final SQLListenerContextImpl context = new SQLListenerContextImpl(null);
+        context.addPreparedStatement(statement);
+        assertThrows(QueryException.class, () -> {
+            listener.preExecute(context);
+        });
+    }
+
+    /**
+     * Unit test for {@link SqlExecutionBoundsListener#cancel(java.util.List)}.
+     */
+    @Test
+    void testCancel()
+    throws SQLException {
+        final SqlExecutionBoundsListener listener = new SqlExecutionBoundsListener(
+                new ExecutionBounds());
+        final PreparedStatement failing = mock(PreparedStatement.class);
+        final PreparedStatement statement = mock(PreparedStatement.class);
+        willThrow(SQLException.class).given(failing).cancel();
+        listener.cancel(Arrays.asList(failing, statement));
+        then(failing).should().cancel();
+        then(statement).should().cancel();
+        assertDoesNotThrow(() -> listener.cancel(Collections.emptyList()));
+    }
+}
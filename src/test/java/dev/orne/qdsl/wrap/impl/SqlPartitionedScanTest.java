@@ -0,0 +1,529 @@
+package dev.orne.qdsl.wrap.impl;
+
+/*-
+ * #%L
+ * Orne Querydsl Utils
+ * %%
+ * Copyright (C) 2022 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.*;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.mysema.commons.lang.CloseableIterator;
+import com.mysema.commons.lang.IteratorAdapter;
+import com.querydsl.core.DefaultQueryMetadata;
+import com.querydsl.core.QueryException;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.QueryModifiers;
+import com.querydsl.core.types.Constant;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.PathMetadataFactory;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.core.types.dsl.StringPath;
+import com.querydsl.sql.Configuration;
+import com.querydsl.sql.RelationalPathBase;
+import com.querydsl.sql.SQLQuery;
+import com.querydsl.sql.SQLTemplates;
+
+/**
+ * Unit tests for {@code SqlPartitionedScan}.
+ *
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2022-10
+ * @since 0.1
+ * @see SqlPartitionedScan
+ */
+@Tag("ut")
+class SqlPartitionedScanTest {
+
+    private static final QEntity E = new QEntity("e");
+    private static final List<Long> DATA = Collections.unmodifiableList(Arrays.asList(
+            null, 1L, 2L, 3L, 5L, 8L, 13L, 21L, 34L, 55L, 89L));
+
+    /**
+     * Unit test for {@link SqlPartitionedScan#SqlPartitionedScan(WrappedSqlQueryClause, Expression, int, SqlPartitionedScan.Strategy)}.
+     */
+    @Test
+    void testConstructor() {
+        final WrappedSqlQueryClause<Long> clause = createClause(DATA);
+        final SqlPartitionedScan<Long> scan = new SqlPartitionedScan<>(
+                clause, E.id, 4, SqlPartitionedScan.Strategy.MIN_MAX);
+        assertSame(clause, scan.getClause());
+        assertSame(E.id, scan.getKey());
+        assertEquals(4, scan.getPartitions());
+        assertSame(SqlPartitionedScan.Strategy.MIN_MAX, scan.getStrategy());
+        assertNull(scan.getDataSource());
+        assertNull(scan.getExecutor());
+        assertThrows(NullPointerException.class, () -> {
+            new SqlPartitionedScan<>(null, E.id, 4, SqlPartitionedScan.Strategy.MIN_MAX);
+        });
+        assertThrows(NullPointerException.class, () -> {
+            new SqlPartitionedScan<>(clause, null, 4, SqlPartitionedScan.Strategy.MIN_MAX);
+        });
+        assertThrows(NullPointerException.class, () -> {
+            new SqlPartitionedScan<>(clause, E.id, 4, null);
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            new SqlPartitionedScan<>(clause, E.id, 0, SqlPartitionedScan.Strategy.MIN_MAX);
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            new SqlPartitionedScan<>(clause, E.name, 4, SqlPartitionedScan.Strategy.MIN_MAX);
+        });
+        assertNotNull(new SqlPartitionedScan<>(clause, E.name, 4, SqlPartitionedScan.Strategy.QUANTILES));
+        assertThrows(IllegalStateException.class, () -> {
+            new SqlPartitionedScan<>(createClause(DATA).limit(2), E.id, 4, SqlPartitionedScan.Strategy.MIN_MAX);
+        });
+        assertThrows(IllegalStateException.class, () -> {
+            new SqlPartitionedScan<>(createClause(DATA).groupBy(E.id), E.id, 4, SqlPartitionedScan.Strategy.MIN_MAX);
+        });
+        assertThrows(IllegalStateException.class, () -> {
+            new SqlPartitionedScan<>(createClause(DATA).select(E.id.max()), E.id, 4, SqlPartitionedScan.Strategy.MIN_MAX);
+        });
+    }
+
+    /**
+     * Unit test for {@link WrappedSqlQueryClause#partitionedScan(Expression, int, SqlPartitionedScan.Strategy)}.
+     */
+    @Test
+    void testPartitionedScan() {
+        final WrappedSqlQueryClause<Long> clause = createClause(DATA);
+        final SqlPartitionedScan<Long> scan = clause.partitionedScan(
+                E.id, 3, SqlPartitionedScan.Strategy.QUANTILES);
+        assertSame(clause, scan.getClause());
+        assertEquals(E.id, scan.getKey());
+        assertEquals(3, scan.getPartitions());
+        assertSame(SqlPartitionedScan.Strategy.QUANTILES, scan.getStrategy());
+    }
+
+    /**
+     * Unit test for {@link SqlPartitionedScan#getBoundaries()}.
+     */
+    @Test
+    void testGetBoundariesMinMax() {
+        final SqlPartitionedScan<Long> scan = new SqlPartitionedScan<>(
+                createClause(DATA), E.id, 4, SqlPartitionedScan.Strategy.MIN_MAX);
+        final List<Object> boundaries = scan.getBoundaries();
+        assertEquals(Arrays.asList(23L, 45L, 67L), boundaries);
+        assertSame(boundaries, scan.getBoundaries());
+        assertEquals(Arrays.asList(1L),
+                new SqlPartitionedScan<>(createClause(Arrays.asList(0L, 1L, 2L)), E.id, 10,
+                        SqlPartitionedScan.Strategy.MIN_MAX).getBoundaries());
+        assertTrue(new SqlPartitionedScan<>(createClause(Arrays.asList((Long) null)), E.id, 4,
+                SqlPartitionedScan.Strategy.MIN_MAX).getBoundaries().isEmpty());
+        assertTrue(new SqlPartitionedScan<>(createClause(DATA), E.id, 1,
+                SqlPartitionedScan.Strategy.MIN_MAX).getBoundaries().isEmpty());
+    }
+
+    /**
+     * Unit test for {@link SqlPartitionedScan#getBoundaries()}.
+     */
+    @Test
+    void testGetBoundariesQuantiles() {
+        final SqlPartitionedScan<Long> scan = new SqlPartitionedScan<>(
+                createClause(DATA), E.id, 4, SqlPartitionedScan.Strategy.QUANTILES);
+        assertEquals(Arrays.asList(3L, 13L, 34L), scan.getBoundaries());
+        assertEquals(Arrays.asList(1L, 2L),
+                new SqlPartitionedScan<>(createClause(Arrays.asList(1L, 1L, 1L, 2L)), E.id, 4,
+                        SqlPartitionedScan.Strategy.QUANTILES).getBoundaries());
+        assertTrue(new SqlPartitionedScan<>(createClause(Collections.emptyList()), E.id, 4,
+                SqlPartitionedScan.Strategy.QUANTILES).getBoundaries().isEmpty());
+    }
+
+    /**
+     * Unit test for {@link SqlPartitionedScan#getRanges()}.
+     */
+    @Test
+    void testGetRanges() {
+        final SqlPartitionedScan<Long> scan = new SqlPartitionedScan<>(
+                createClause(DATA), E.id, 3, SqlPartitionedScan.Strategy.MIN_MAX);
+        final List<Predicate> ranges = scan.getRanges();
+        assertEquals(3, ranges.size());
+        assertEquals(E.id.isNull().or(E.id.lt(30L)), ranges.get(0));
+        assertEquals(E.id.goe(30L).and(E.id.lt(59L)), ranges.get(1));
+        assertEquals(E.id.goe(59L), ranges.get(2));
+        assertEquals(Collections.singletonList(null), new SqlPartitionedScan<>(
+                createClause(DATA), E.id, 1, SqlPartitionedScan.Strategy.MIN_MAX).getRanges());
+    }
+
+    /**
+     * Unit test for {@link SqlPartitionedScan#fetch()}.
+     */
+    @Test
+    void testFetch() {
+        final WrappedSqlQueryClause<Long> clause = createClause(DATA)
+                .where(E.id.ne(5L))
+                .orderBy(E.id.asc());
+        final SqlPartitionedScan<Long> scan = clause.partitionedScan(
+                E.id, 3, SqlPartitionedScan.Strategy.MIN_MAX);
+        assertEquals(Arrays.asList(1L, 2L, 3L, 8L, 13L, 21L, 34L, 55L, 89L), scan.fetch());
+        assertEquals(Arrays.asList(1L, 2L, 3L, 8L, 13L, 21L, 34L, 55L, 89L), clause.fetch());
+    }
+
+    /**
+     * Unit test for {@link SqlPartitionedScan#iterate()}.
+     */
+    @Test
+    void testIterate()
+    throws SQLException {
+        final TestDataSource dataSource = new TestDataSource();
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final SqlPartitionedScan<Long> scan = createClause(DATA)
+                    .orderBy(E.id.asc())
+                    .partitionedScan(E.id, 4, SqlPartitionedScan.Strategy.QUANTILES)
+                    .setDataSource(dataSource.dataSource)
+                    .setExecutor(executor);
+            assertSame(dataSource.dataSource, scan.getDataSource());
+            assertSame(executor, scan.getExecutor());
+            final List<Long> result = new ArrayList<>();
+            try (final CloseableIterator<Long> iterator = scan.iterate()) {
+                assertEquals(5, dataSource.opened.get());
+                assertEquals(1, dataSource.closed.get());
+                iterator.forEachRemaining(result::add);
+            }
+            assertEquals(DATA, result);
+            assertEquals(5, dataSource.closed.get());
+            for (final Connection connection : dataSource.created) {
+                then(connection).should(atLeastOnce()).getAutoCommit();
+                then(connection).should().close();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Unit test for {@link SqlPartitionedScan#stream()}.
+     */
+    @Test
+    void testStream() {
+        final TestDataSource dataSource = new TestDataSource();
+        final SqlPartitionedScan<Long> scan = createClause(DATA)
+                .orderBy(E.id.asc())
+                .partitionedScan(E.id, 4, SqlPartitionedScan.Strategy.MIN_MAX)
+                .setDataSource(dataSource.dataSource);
+        assertTrue(scan.stream().isParallel());
+        assertEquals(DATA, scan.stream().collect(Collectors.toList()));
+        assertEquals(5, dataSource.opened.get());
+        assertEquals(5, dataSource.closed.get());
+        final SqlPartitionedScan<Long> sequential = createClause(DATA)
+                .partitionedScan(E.id, 4, SqlPartitionedScan.Strategy.MIN_MAX);
+        assertFalse(sequential.stream().isParallel());
+        assertEquals(DATA.size(), sequential.stream().count());
+    }
+
+    /**
+     * Unit test for {@link SqlPartitionedScan#getBoundaries()}.
+     */
+    @Test
+    void testGetBoundariesDataSource()
+    throws SQLException {
+        final TestDataSource dataSource = new TestDataSource();
+        final SqlPartitionedScan<Long> scan = createClause(DATA)
+                .partitionedScan(E.id, 4, SqlPartitionedScan.Strategy.QUANTILES)
+                .setDataSource(dataSource.dataSource);
+        assertEquals(3, scan.getBoundaries().size());
+        assertEquals(1, dataSource.opened.get());
+        assertEquals(1, dataSource.closed.get());
+        then(dataSource.created.get(0)).should(atLeastOnce()).getAutoCommit();
+        assertSame(scan.getBoundaries(), scan.getBoundaries());
+        assertEquals(1, dataSource.opened.get());
+        final TestDataSource failing = new TestDataSource();
+        failing.failure = 1;
+        final SqlPartitionedScan<Long> failed = createClause(DATA)
+                .partitionedScan(E.id, 4, SqlPartitionedScan.Strategy.MIN_MAX)
+                .setDataSource(failing.dataSource);
+        assertThrows(IllegalStateException.class, () -> {
+            failed.getBoundaries();
+        });
+        assertEquals(1, failing.closed.get());
+    }
+
+    /**
+     * Unit test for {@link SqlPartitionedScan#fetch()}.
+     */
+    @Test
+    void testFetchConnectionFailure() throws SQLException {
+        final DataSource dataSource = mock(DataSource.class);
+        final SQLException failure = new SQLException();
+        given(dataSource.getConnection()).willThrow(failure);
+        final SqlPartitionedScan<Long> scan = createClause(DATA)
+                .partitionedScan(E.id, 4, SqlPartitionedScan.Strategy.MIN_MAX)
+                .setDataSource(dataSource)
+                .setExecutor(Runnable::run);
+        final QueryException result = assertThrows(QueryException.class, () -> {
+            scan.fetch();
+        });
+        assertSame(failure, result.getCause());
+    }
+
+    /**
+     * Unit test for {@link SqlPartitionedScan#iterate()}.
+     */
+    @Test
+    void testIterateFailure() {
+        final TestDataSource dataSource = new TestDataSource();
+        dataSource.failure = 3;
+        final SqlPartitionedScan<Long> scan = createClause(DATA)
+                .partitionedScan(E.id, 4, SqlPartitionedScan.Strategy.MIN_MAX)
+                .setDataSource(dataSource.dataSource);
+        assertThrows(IllegalStateException.class, () -> {
+            scan.iterate();
+        });
+        assertEquals(3, dataSource.opened.get());
+        assertEquals(3, dataSource.closed.get());
+    }
+
+    /**
+     * Unit test for {@link SqlPartitionedScan#isInterpolable(Class)}.
+     */
+    @Test
+    void testIsInterpolable() {
+        assertTrue(SqlPartitionedScan.isInterpolable(Integer.class));
+        assertTrue(SqlPartitionedScan.isInterpolable(Long.class));
+        assertTrue(SqlPartitionedScan.isInterpolable(BigDecimal.class));
+        assertTrue(SqlPartitionedScan.isInterpolable(Double.class));
+        assertTrue(SqlPartitionedScan.isInterpolable(Timestamp.class));
+        assertTrue(SqlPartitionedScan.isInterpolable(LocalDate.class));
+        assertTrue(SqlPartitionedScan.isInterpolable(Instant.class));
+        assertFalse(SqlPartitionedScan.isInterpolable(String.class));
+        assertFalse(SqlPartitionedScan.isInterpolable(Number.class));
+    }
+
+    /**
+     * Unit test for {@link SqlPartitionedScan#toOrdinal(Object)} and
+     * {@link SqlPartitionedScan#fromOrdinal(BigDecimal, Class)}.
+     */
+    @Test
+    void testOrdinals() {
+        final List<Object> values = Arrays.asList(
+                (byte) 3, (short) 3, 3, 3L, BigInteger.valueOf(3),
+                2.5f, 2.5d, new BigDecimal("2.5"),
+                new Date(1000L), new java.sql.Date(1000L), new Timestamp(1000L), new java.sql.Time(1000L),
+                Instant.ofEpochMilli(1000L),
+                LocalDate.of(2022, 10, 1),
+                LocalDateTime.of(2022, 10, 1, 12, 30));
+        for (final Object value : values) {
+            assertEquals(value, SqlPartitionedScan.fromOrdinal(
+                    SqlPartitionedScan.toOrdinal(value),
+                    value.getClass()));
+        }
+        assertEquals(2L, SqlPartitionedScan.fromOrdinal(new BigDecimal("2.9"), Long.class));
+        assertThrows(IllegalArgumentException.class, () -> {
+            SqlPartitionedScan.toOrdinal("a");
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            SqlPartitionedScan.fromOrdinal(BigDecimal.ONE, String.class);
+        });
+    }
+
+    private static WrappedSqlQueryClause<Long> createClause(
+            final List<Long> data) {
+        return new WrappedSqlQueryClause<>(null, new TestQuery<>(null, data).select(E.id).from(E));
+    }
+
+    private static class TestDataSource {
+        final DataSource dataSource = mock(DataSource.class);
+        final AtomicInteger opened = new AtomicInteger();
+        final AtomicInteger closed = new AtomicInteger();
+        final List<Connection> created = new CopyOnWriteArrayList<>();
+        int failure = -1;
+        TestDataSource() {
+            try {
+                given(this.dataSource.getConnection()).willAnswer(inv -> {
+                    final Connection connection = mock(Connection.class);
+                    created.add(connection);
+                    if (opened.incrementAndGet() == failure) {
+                        willThrow(IllegalStateException.class).given(connection).getAutoCommit();
+                    }
+                    willAnswer(close -> closed.incrementAndGet()).given(connection).close();
+                    return connection;
+                });
+            } catch (final SQLException e) {
+                throw new AssertionError(e);
+            }
+        }
+    }
+
+    private static class TestQuery<T>
+    extends SQLQuery<T> {
+        private static final long serialVersionUID = 1L;
+        private final Connection connection;
+        private final List<Long> data;
+        TestQuery(
+                final Connection connection,
+                final List<Long> data) {
+            this(connection, data, new DefaultQueryMetadata());
+        }
+        TestQuery(
+                final Connection connection,
+                final List<Long> data,
+                final QueryMetadata metadata) {
+            super(connection, new Configuration(SQLTemplates.DEFAULT), metadata);
+            this.connection = connection;
+            this.data = data;
+        }
+        @Override
+        public TestQuery<T> clone(
+                final Connection connection) {
+            final TestQuery<T> result = new TestQuery<>(connection, this.data, getMetadata().clone());
+            result.clone(this);
+            return result;
+        }
+        @Override
+        public List<T> fetch() {
+            return results();
+        }
+        @Override
+        public T fetchOne() {
+            final List<T> results = results();
+            return results.isEmpty() ? null : results.get(0);
+        }
+        @Override
+        public long fetchCount() {
+            return rows().size();
+        }
+        @Override
+        public CloseableIterator<T> iterate() {
+            return new IteratorAdapter<>(results().iterator());
+        }
+        private List<Long> rows() {
+            final Predicate where = getMetadata().getWhere();
+            final List<Long> rows = new ArrayList<>();
+            for (final Long row : this.data) {
+                if (where == null || Boolean.TRUE.equals(evaluate(where, row))) {
+                    rows.add(row);
+                }
+            }
+            return rows;
+        }
+        @SuppressWarnings("unchecked")
+        private List<T> results() {
+            if (this.connection != null) {
+                try {
+                    this.connection.getAutoCommit();
+                } catch (final SQLException e) {
+                    throw new AssertionError(e);
+                }
+            }
+            List<Long> rows = rows();
+            final Expression<?> projection = getMetadata().getProjection();
+            if (projection instanceof FactoryExpression) {
+                final FactoryExpression<?> factory = (FactoryExpression<?>) projection;
+                final Object[] args = new Object[factory.getArgs().size()];
+                for (int i = 0; i < args.length; i++) {
+                    args[i] = aggregate((Operation<?>) factory.getArgs().get(i), rows);
+                }
+                return Collections.singletonList((T) factory.newInstance(args));
+            }
+            if (!getMetadata().getOrderBy().isEmpty()) {
+                rows = new ArrayList<>(rows);
+                rows.sort(Comparator.nullsFirst(Comparator.naturalOrder()));
+            }
+            final QueryModifiers modifiers = getMetadata().getModifiers();
+            final int offset = modifiers.getOffsetAsInteger() == null ? 0 : modifiers.getOffsetAsInteger();
+            final int limit = modifiers.getLimitAsInteger() == null ? Integer.MAX_VALUE : modifiers.getLimitAsInteger();
+            return (List<T>) rows.stream().skip(offset).limit(limit).collect(Collectors.toList());
+        }
+    }
+
+    private static Object aggregate(
+            final Operation<?> operation,
+            final List<Long> rows) {
+        final List<Long> values = rows.stream().filter(v -> v != null).sorted().collect(Collectors.toList());
+        if (values.isEmpty()) {
+            return null;
+        }
+        return operation.getOperator() == Ops.AggOps.MIN_AGG ? values.get(0) : values.get(values.size() - 1);
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static Object evaluate(
+            final Expression<?> expr,
+            final Long row) {
+        if (expr instanceof Path) {
+            return row;
+        } else if (expr instanceof Constant) {
+            return ((Constant<?>) expr).getConstant();
+        }
+        final Operation<?> operation = (Operation<?>) expr;
+        final Object left = evaluate(operation.getArg(0), row);
+        if (operation.getOperator() == Ops.IS_NULL) {
+            return left == null;
+        } else if (operation.getOperator() == Ops.IS_NOT_NULL) {
+            return left != null;
+        } else if (operation.getOperator() == Ops.AND) {
+            return (Boolean) left && (Boolean) evaluate(operation.getArg(1), row);
+        } else if (operation.getOperator() == Ops.OR) {
+            return (Boolean) left || (Boolean) evaluate(operation.getArg(1), row);
+        }
+        final Object right = evaluate(operation.getArg(1), row);
+        if (left == null || right == null) {
+            return false;
+        }
+        final int cmp = ((Comparable) left).compareTo(right);
+        if (operation.getOperator() == Ops.LT) {
+            return cmp < 0;
+        } else if (operation.getOperator() == Ops.GOE) {
+            return cmp >= 0;
+        } else if (operation.getOperator() == Ops.NE) {
+            return cmp != 0;
+        }
+        throw new UnsupportedOperationException(operation.toString());
+    }
+
+    public static class QEntity extends RelationalPathBase<Object> {
+        private static final long serialVersionUID = 1L;
+        public final NumberPath<Long> id = createNumber("id", Long.class);
+        public final StringPath name = createString("name");
+        public QEntity(String variable) {
+            super(Object.class, PathMetadataFactory.forVariable(variable), "null", "TABLE");
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package dev.orne.qdsl.wrap.impl;
+
+/*-
+ * #%L
+ * Orne Querydsl Utils
+ * %%
+ * Copyright (C) 2022 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.*;
+
+import java.sql.SQLException;
+import java.sql.SQLSyntaxErrorException;
+import java.sql.SQLTransientConnectionException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.querydsl.core.QueryException;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.StringPath;
+import com.querydsl.sql.ProjectableSQLQuery;
+import com.querydsl.sql.SQLCommonQueryFactory;
+import com.querydsl.sql.SQLListenerContext;
+import com.querydsl.sql.SQLListenerContextImpl;
+import com.querydsl.sql.SQLQuery;
+
+/**
+ * Unit tests for {@code SqlReplicaRouter}.
+ *
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2022-10
+ * @since 0.1
+ * @see SqlReplicaRouter
+ */
+@Tag("ut")
+class SqlReplicaRouterTest {
+
+    /**
+     * Unit test for {@link SqlReplicaRouter#SqlReplicaRouter(SqlReplicaRouter.Strategy, java.util.Collection)}.
+     */
+    @Test
+    void testConstructor() {
+        final SQLCommonQueryFactory<? extends ProjectableSQLQuery<?, ?>, ?, ?, ?, ?> factory = mockFactory();
+        final SqlReplicaRouter router = new SqlReplicaRouter(
+                SqlReplicaRouter.Strategy.LEAST_LOADED,
+                Collections.singletonList(factory));
+        assertSame(SqlReplicaRouter.Strategy.LEAST_LOADED, router.getStrategy());
+        assertEquals(1, router.getReplicas().size());
+        assertSame(factory, router.getReplicas().get(0).getFactory());
+        assertTrue(router.getReplicas().get(0).isHealthy());
+        assertEquals(SqlReplicaRouter.DEFAULT_RETRY_DELAY, router.getRetryDelay());
+        assertNotNull(router.getWriteListener());
+        assertThrows(NullPointerException.class, () -> {
+            new SqlReplicaRouter(null, Collections.singletonList(factory));
+        });
+        assertThrows(NullPointerException.class, () -> {
+            new SqlReplicaRouter(SqlReplicaRouter.Strategy.ROUND_ROBIN, null);
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            new SqlReplicaRouter(SqlReplicaRouter.Strategy.ROUND_ROBIN, Collections.emptyList());
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            new SqlReplicaRouter(SqlReplicaRouter.Strategy.ROUND_ROBIN, Arrays.asList(factory, null));
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            router.setRetryDelay(-1);
+        });
+    }
+
+    /**
+     * Unit test for {@link SqlReplicaRouter#route()}.
+     */
+    @Test
+    void testRouteRoundRobin() {
+        final SqlReplicaRouter router = createRouter(SqlReplicaRouter.Strategy.ROUND_ROBIN, 3);
+        final List<SqlReplicaRouter.Replica> replicas = router.getReplicas();
+        final SqlReplicaRouter.Replica first = router.route();
+        final int offset = replicas.indexOf(first);
+        assertSame(replicas.get((offset + 1) % 3), router.route());
+        assertSame(replicas.get((offset + 2) % 3), router.route());
+        assertSame(first, router.route());
+        replicas.get((offset + 1) % 3).setHealthy(false);
+        assertSame(replicas.get((offset + 2) % 3), router.route());
+        assertSame(replicas.get((offset + 2) % 3), router.route());
+        replicas.get((offset + 1) % 3).setHealthy(true);
+        assertSame(first, router.route());
+        assertSame(replicas.get((offset + 1) % 3), router.route());
+        for (final SqlReplicaRouter.Replica replica : replicas) {
+            replica.setHealthy(false);
+        }
+        assertNull(router.route());
+    }
+
+    /**
+     * Unit test for {@link SqlReplicaRouter#route()}.
+     */
+    @Test
+    void testRouteLeastLoaded() {
+        final SqlReplicaRouter router = createRouter(SqlReplicaRouter.Strategy.LEAST_LOADED, 2);
+        final SqlReplicaRouter.Replica first = router.getReplicas().get(0);
+        final SqlReplicaRouter.Replica second = router.getReplicas().get(1);
+        final SQLListenerContext context = new SQLListenerContextImpl(null);
+        first.start(context);
+        assertEquals(1, first.getInFlightCount());
+        assertSame(second, router.route());
+        assertSame(second, router.route());
+        second.start(context);
+        second.start(context);
+        assertSame(first, router.route());
+        second.end(context);
+        second.end(context);
+        first.end(context);
+        assertEquals(0, first.getInFlightCount());
+        assertEquals(0, second.getInFlightCount());
+        first.setHealthy(false);
+        assertSame(second, router.route());
+    }
+
+    /**
+     * Unit test for {@link SqlReplicaRouter.Replica#exception(SQLListenerContext)}.
+     */
+    @Test
+    void testReplicaFailure() {
+        final SqlReplicaRouter router = createRouter(SqlReplicaRouter.Strategy.ROUND_ROBIN, 1);
+        final SqlReplicaRouter.Replica replica = router.getReplicas().get(0);
+        final SQLListenerContextImpl context = new SQLListenerContextImpl(null);
+        context.setException(new SQLSyntaxErrorException("syntax", "42000"));
+        replica.exception(context);
+        assertTrue(replica.isHealthy());
+        context.setException(new QueryException(new SQLTransientConnectionException("connection")));
+        replica.exception(context);
+        assertFalse(replica.isHealthy());
+        assertNull(router.route());
+        router.setRetryDelay(0);
+        replica.markFailed();
+        assertTrue(replica.isHealthy());
+        assertSame(replica, router.route());
+        router.setRetryDelay(60000);
+        context.setException(new SQLException("state", "08S01"));
+        replica.exception(context);
+        assertFalse(replica.isHealthy());
+        replica.setHealthy(true);
+        assertTrue(replica.isHealthy());
+    }
+
+    /**
+     * Unit test for {@link SqlReplicaRouter#isReplicaFailure(Throwable)}.
+     */
+    @Test
+    void testIsReplicaFailure() {
+        final SqlReplicaRouter router = createRouter(SqlReplicaRouter.Strategy.ROUND_ROBIN, 1);
+        assertFalse(router.isReplicaFailure(null));
+        assertFalse(router.isReplicaFailure(new QueryException("error")));
+        assertFalse(router.isReplicaFailure(new SQLException("error")));
+        assertFalse(router.isReplicaFailure(new SQLException("error", "23000")));
+        assertTrue(router.isReplicaFailure(new SQLException("error", "08001")));
+        assertTrue(router.isReplicaFailure(new SQLTransientConnectionException("error")));
+        assertTrue(router.isReplicaFailure(new QueryException(new SQLException("error", "08006"))));
+    }
+
+    /**
+     * Unit test for {@link SqlReplicaRouter.Replica#from(com.querydsl.core.types.Expression)}.
+     */
+    @Test
+    void testReplicaFrom() {
+        final SqlReplicaRouter router = createRouter(SqlReplicaRouter.Strategy.ROUND_ROBIN, 1);
+        final SqlReplicaRouter.Replica replica = router.getReplicas().get(0);
+        final StringPath source = Expressions.stringPath("source");
+        final SQLQuery<?> query = mock(SQLQuery.class);
+        willReturn(query).given(replica.getFactory()).from(source);
+        assertSame(query, replica.from(source));
+        then(query).should().addListener(replica);
+        final ProjectableSQLQuery<?, ?> other = mock(ProjectableSQLQuery.class);
+        willReturn(other).given(replica.getFactory()).from(source);
+        assertSame(other, replica.from(source));
+        then(other).shouldHaveNoInteractions();
+    }
+
+    /**
+     * Unit test for {@link SqlReplicaRouter#openScope()}.
+     */
+    @Test
+    void testScope() {
+        final SqlReplicaRouter router = createRouter(SqlReplicaRouter.Strategy.ROUND_ROBIN, 1);
+        final SqlReplicaRouter.Replica replica = router.getReplicas().get(0);
+        final SQLListenerContext context = new SQLListenerContextImpl(null);
+        assertNull(router.getCurrentScope());
+        router.getWriteListener().executed(context);
+        assertSame(replica, router.route());
+        try (final SqlReplicaRouter.Scope scope = router.openScope()) {
+            assertSame(scope, router.getCurrentScope());
+            assertSame(replica, router.route());
+            try (final SqlReplicaRouter.Scope nested = router.openScope()) {
+                assertSame(nested, router.getCurrentScope());
+                assertSame(replica, router.route());
+                router.getWriteListener().executed(context);
+                assertTrue(nested.hasWrites());
+                assertNull(router.route());
+            }
+            assertSame(scope, router.getCurrentScope());
+            assertTrue(scope.hasWrites());
+            assertNull(router.route());
+        }
+        assertNull(router.getCurrentScope());
+        assertSame(replica, router.route());
+    }
+
+    /**
+     * Unit test for {@link SqlReplicaRouter#route()} in nested scopes
+     * opened after a write in the enclosing scope.
+     */
+    @Test
+    void testScopeNestedAfterWrite() {
+        final SqlReplicaRouter router = createRouter(SqlReplicaRouter.Strategy.ROUND_ROBIN, 1);
+        final SqlReplicaRouter.Replica replica = router.getReplicas().get(0);
+        final SQLListenerContext context = new SQLListenerContextImpl(null);
+        try (final SqlReplicaRouter.Scope scope = router.openScope()) {
+            router.getWriteListener().executed(context);
+            assertTrue(scope.hasWrites());
+            try (final SqlReplicaRouter.Scope nested = router.openScope()) {
+                assertTrue(nested.hasWrites());
+                assertNull(router.route());
+                try (final SqlReplicaRouter.Scope deeper = router.openScope()) {
+                    assertTrue(deeper.hasWrites());
+                    assertNull(router.route());
+                }
+            }
+            assertNull(router.route());
+        }
+        assertSame(replica, router.route());
+        try (final SqlReplicaRouter.Scope scope = router.openScope()) {
+            try (final SqlReplicaRouter.Scope nested = router.openScope()) {
+                assertFalse(nested.hasWrites());
+                assertSame(replica, router.route());
+            }
+            assertFalse(scope.hasWrites());
+        }
+    }
+
+    private static SqlReplicaRouter createRouter(
+            final SqlReplicaRouter.Strategy strategy,
+            final int replicas) {
+        final SQLCommonQueryFactory<? extends ProjectableSQLQuery<?, ?>, ?, ?, ?, ?>[] factories =
+                createFactories(replicas);
+        return new SqlReplicaRouter(strategy, Arrays.asList(factories));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static SQLCommonQueryFactory<? extends ProjectableSQLQuery<?, ?>, ?, ?, ?, ?>[] createFactories(
+            final int count) {
+        final SQLCommonQueryFactory<? extends ProjectableSQLQuery<?, ?>, ?, ?, ?, ?>[] result =
+                new SQLCommonQueryFactory[count];
+        for (int i = 0; i < count; i++) {
+            result[i] = mockFactory();
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static SQLCommonQueryFactory<? extends ProjectableSQLQuery<?, ?>, ?, ?, ?, ?> mockFactory() {
+        return mock(SQLCommonQueryFactory.class);
+    }
+}
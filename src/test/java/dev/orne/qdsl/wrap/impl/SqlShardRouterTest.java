@@ -0,0 +1,215 @@
+package dev.orne.qdsl.wrap.impl;
+
+/*-
+ * #%L
+ * Orne Querydsl Utils
+ * %%
+ * Copyright (C) 2022 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.PathMetadataFactory;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.core.types.dsl.Param;
+import com.querydsl.sql.ProjectableSQLQuery;
+import com.querydsl.sql.RelationalPathBase;
+import com.querydsl.sql.SQLCommonQueryFactory;
+
+/**
+ * Unit tests for {@code SqlShardRouter}.
+ *
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2022-10
+ * @since 0.1
+ * @see SqlShardRouter
+ */
+@Tag("ut")
+class SqlShardRouterTest {
+
+    /**
+     * Unit test for {@link SqlShardRouter#SqlShardRouter(com.querydsl.core.types.Path, List, java.util.function.ToIntFunction)}.
+     */
+    @Test
+    void testConstructor() {
+        final List<SQLCommonQueryFactory<? extends ProjectableSQLQuery<?, ?>, ?, ?, ?, ?>> shards =
+                Arrays.asList(mockFactory(), mockFactory());
+        final SqlShardRouter router = new SqlShardRouter(QEntity.base.id, shards);
+        assertSame(QEntity.base.id, router.getShardKey());
+        assertEquals(shards, router.getShards());
+        assertSame(shards.get(1), router.getShard(1));
+        assertNull(router.getExecutor());
+        assertThrows(NullPointerException.class, () -> {
+            new SqlShardRouter(null, shards);
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            new SqlShardRouter(QEntity.base, shards);
+        });
+        assertThrows(NullPointerException.class, () -> {
+            new SqlShardRouter(QEntity.base.id, null);
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            new SqlShardRouter(QEntity.base.id, Collections.emptyList());
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            new SqlShardRouter(QEntity.base.id, Arrays.asList(mockFactory(), null));
+        });
+    }
+
+    /**
+     * Unit test for {@link SqlShardRouter#getShardKey(com.querydsl.core.types.Path)}.
+     */
+    @Test
+    void testGetShardKey() {
+        final SqlShardRouter router = new SqlShardRouter(QEntity.base.id,
+                Collections.singletonList(mockFactory()));
+        final QEntity alias = new QEntity("alias");
+        assertEquals(alias.id, router.getShardKey(alias));
+        assertEquals(QEntity.base.id, router.getShardKey(QEntity.base));
+    }
+
+    /**
+     * Unit test for {@link SqlShardRouter#shardOf(Object)}.
+     */
+    @Test
+    void testShardOf() {
+        final SqlShardRouter router = new SqlShardRouter(QEntity.base.id,
+                Arrays.asList(mockFactory(), mockFactory(), mockFactory()));
+        assertEquals(Math.floorMod(Long.valueOf(5L).hashCode(), 3), router.shardOf(5L));
+        assertEquals(Math.floorMod(Long.valueOf(-7L).hashCode(), 3), router.shardOf(-7L));
+        assertThrows(NullPointerException.class, () -> {
+            router.shardOf(null);
+        });
+        final SqlShardRouter custom = new SqlShardRouter(QEntity.base.id,
+                Arrays.asList(mockFactory(), mockFactory()),
+                value -> ((Long) value).intValue());
+        assertEquals(1, custom.shardOf(1L));
+        assertThrows(IllegalArgumentException.class, () -> {
+            custom.shardOf(2L);
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            custom.shardOf(-1L);
+        });
+    }
+
+    /**
+     * Unit test for {@link SqlShardRouter#route(com.querydsl.core.types.Path, com.querydsl.core.types.Predicate, java.util.Map)}.
+     */
+    @Test
+    void testRoute() {
+        final SqlShardRouter router = new SqlShardRouter(QEntity.base.id,
+                Arrays.asList(mockFactory(), mockFactory(), mockFactory()),
+                value -> (int) (((Long) value) % 3));
+        final QEntity alias = new QEntity("alias");
+        assertArrayEquals(new int[] { 0, 1, 2 }, router.route(alias, null, null));
+        assertArrayEquals(new int[] { 0, 1, 2 }, router.route(alias, alias.id.gt(1L), null));
+        assertArrayEquals(new int[] { 0, 1, 2 }, router.route(alias, QEntity.base.id.eq(1L), null));
+        assertArrayEquals(new int[] { 1 }, router.route(alias, alias.id.eq(4L), null));
+        assertArrayEquals(new int[] { 1, 2 }, router.route(alias, alias.id.in(5L, 1L, 4L), null));
+        assertArrayEquals(new int[0], router.route(alias,
+                ExpressionUtils.allOf(alias.id.eq(1L), alias.id.eq(2L)), null));
+        final Param<Long> param = new Param<>(Long.class, "param");
+        assertArrayEquals(new int[] { 0, 1, 2 }, router.route(alias, alias.id.eq(param), null));
+        assertArrayEquals(new int[] { 2 }, router.route(alias, alias.id.eq(param),
+                Collections.singletonMap(param, 2L)));
+    }
+
+    /**
+     * Unit test for {@link SqlShardRouter#execute(int[], java.util.function.IntFunction)}.
+     */
+    @Test
+    void testExecute() {
+        final SqlShardRouter router = new SqlShardRouter(QEntity.base.id,
+                Arrays.asList(mockFactory(), mockFactory(), mockFactory()));
+        final List<Thread> threads = new ArrayList<>();
+        assertEquals(Arrays.asList(0, 20), router.execute(new int[] { 0, 2 }, shard -> {
+            threads.add(Thread.currentThread());
+            return shard * 10;
+        }));
+        assertEquals(Arrays.asList(Thread.currentThread(), Thread.currentThread()), threads);
+        assertThrows(NullPointerException.class, () -> {
+            router.execute(new int[] { 0 }, null);
+        });
+    }
+
+    /**
+     * Unit test for {@link SqlShardRouter#execute(int[], java.util.function.IntFunction)}.
+     */
+    @Test
+    void testExecuteConcurrent()
+    throws InterruptedException {
+        final SqlShardRouter router = new SqlShardRouter(QEntity.base.id,
+                Arrays.asList(mockFactory(), mockFactory(), mockFactory()));
+        final ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            router.setExecutor(executor);
+            assertSame(executor, router.getExecutor());
+            final CountDownLatch latch = new CountDownLatch(3);
+            assertEquals(Arrays.asList(0, 1, 2), router.execute(new int[] { 0, 1, 2 }, shard -> {
+                latch.countDown();
+                try {
+                    assertTrue(latch.await(5, TimeUnit.SECONDS));
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException(e);
+                }
+                return shard;
+            }));
+            final IllegalStateException failure = new IllegalStateException();
+            assertSame(failure, assertThrows(IllegalStateException.class, () -> {
+                router.execute(new int[] { 0, 1 }, shard -> {
+                    if (shard == 1) {
+                        throw failure;
+                    }
+                    return shard;
+                });
+            }));
+        } finally {
+            executor.shutdownNow();
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static SQLCommonQueryFactory<? extends ProjectableSQLQuery<?, ?>, ?, ?, ?, ?> mockFactory() {
+        return mock(SQLCommonQueryFactory.class);
+    }
+
+    public static class QEntity extends RelationalPathBase<Object> {
+        private static final long serialVersionUID = 1L;
+        public static final QEntity base = new QEntity("base");
+        public final NumberPath<Long> id = createNumber("id", Long.class);
+        public QEntity(String variable) {
+            super(Object.class, PathMetadataFactory.forVariable(variable), "null", "TABLE");
+        }
+    }
+}
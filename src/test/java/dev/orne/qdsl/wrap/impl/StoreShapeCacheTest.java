@@ -0,0 +1,255 @@
+package dev.orne.qdsl.wrap.impl;
+
+/*-
+ * #%L
+ * Orne Querydsl Utils
+ * %%
+ * Copyright (C) 2022 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.querydsl.core.types.Constant;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.PathMetadataFactory;
+import com.querydsl.core.types.dsl.BooleanPath;
+import com.querydsl.core.types.dsl.EntityPathBase;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.StringPath;
+
+import dev.orne.qdsl.wrap.StoredValue;
+import dev.orne.qdsl.wrap.StoredValues;
+import dev.orne.qdsl.wrap.impl.transform.ExpressionTransformers;
+
+/**
+ * Unit tests for {@code StoreShapeCache}.
+ *
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2022-10
+ * @since 0.1
+ * @see StoreShapeCache
+ */
+@Tag("ut")
+class StoreShapeCacheTest {
+
+    private static final QEntity ENTITY = new QEntity("entity");
+    private static final StringPath NAME = Expressions.stringPath("name");
+    private static final StringPath NAME_COL = Expressions.stringPath("NAME_COL");
+    private static final BooleanPath ACTIVE = Expressions.booleanPath("active");
+    private static final StringPath ACTIVE_COL = Expressions.stringPath("ACTIVE_COL");
+    private static final ExpressionTransformer TRANSFORMER = ExpressionTransformers.with(
+            ExpressionTransformers.renamePath(NAME, NAME_COL),
+            ExpressionTransformers.mapPath(ACTIVE, ACTIVE_COL, value -> value ? "Y" : "N"));
+
+    /**
+     * Unit test for {@link StoreShapeCache#StoreShapeCache(int)}.
+     */
+    @Test
+    void testConstructor() {
+        assertEquals(StoreShapeCache.DEFAULT_MAX_SHAPES, new StoreShapeCache().getMaxShapes());
+        assertEquals(10, new StoreShapeCache(10).getMaxShapes());
+        assertThrows(IllegalArgumentException.class, () -> {
+            new StoreShapeCache(0);
+        });
+    }
+
+    /**
+     * Unit test for {@link StoreShapeCache#translate(com.querydsl.core.types.EntityPath, StoredValues, UnaryOperator)}.
+     */
+    @Test
+    void testTranslate() {
+        final StoreShapeCache cache = new StoreShapeCache();
+        final AtomicInteger calls = new AtomicInteger();
+        final UnaryOperator<StoredValues> translation = values -> {
+            calls.incrementAndGet();
+            return TRANSFORMER.translateStoredValues(values);
+        };
+        final StoredValues first = createRow("a", true);
+        final StoredValues firstResult = cache.translate(ENTITY, first, translation);
+        assertEquals(createTranslatedRow("a", "Y"), firstResult);
+        assertEquals(createRow("a", true), first);
+        assertEquals(1, cache.size());
+        final int translations = calls.get();
+        final StoredValues second = createRow("b", false);
+        assertEquals(createTranslatedRow("b", "N"), cache.translate(ENTITY, second, translation));
+        assertEquals(translations, calls.get());
+        assertEquals(1, cache.size());
+        final StoredValues withNull = new StoredValues();
+        withNull.add(NAME, (String) null);
+        withNull.add(ACTIVE, true);
+        final StoredValues expectedNull = new StoredValues();
+        expectedNull.add(NAME_COL, (String) null);
+        expectedNull.add(ACTIVE_COL, "Y");
+        assertEquals(expectedNull, cache.translate(ENTITY, withNull, translation));
+        assertEquals(2, cache.size());
+        assertEquals(expectedNull, cache.translate(ENTITY, withNull, translation));
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+
+    /**
+     * Unit test for {@link StoreShapeCache#translate(com.querydsl.core.types.EntityPath, StoredValues, UnaryOperator)}.
+     */
+    @Test
+    void testTranslateEntities() {
+        final StoreShapeCache cache = new StoreShapeCache();
+        final UnaryOperator<StoredValues> translation = TRANSFORMER::translateStoredValues;
+        cache.translate(ENTITY, createRow("a", true), translation);
+        cache.translate(new QEntity("other"), createRow("a", true), translation);
+        assertEquals(2, cache.size());
+    }
+
+    /**
+     * Unit test for {@link StoreShapeCache#translate(com.querydsl.core.types.EntityPath, StoredValues, UnaryOperator)}.
+     */
+    @Test
+    void testTranslateExpressions() {
+        final StoreShapeCache cache = new StoreShapeCache();
+        final AtomicInteger calls = new AtomicInteger();
+        final UnaryOperator<StoredValues> translation = values -> {
+            calls.incrementAndGet();
+            return TRANSFORMER.translateStoredValues(values);
+        };
+        final StoredValues values = StoredValues.with(StoredValue.of(NAME, NAME.concat("x")));
+        final StoredValues expected = TRANSFORMER.translateStoredValues(values.clone());
+        assertEquals(expected, cache.translate(ENTITY, values, translation));
+        assertEquals(expected, cache.translate(ENTITY, values, translation));
+        assertEquals(2, calls.get());
+        assertEquals(0, cache.size());
+    }
+
+    /**
+     * Unit test for {@link StoreShapeCache#translate(com.querydsl.core.types.EntityPath, StoredValues, UnaryOperator)}.
+     */
+    @Test
+    void testTranslateNotTemplatable() {
+        final StoreShapeCache cache = new StoreShapeCache();
+        final AtomicInteger calls = new AtomicInteger();
+        final UnaryOperator<StoredValues> translation = values -> {
+            calls.incrementAndGet();
+            final StoredValues result = new StoredValues();
+            result.add(NAME_COL, Expressions.stringTemplate("upper({0})", values.get(NAME)));
+            return result;
+        };
+        final StoredValues values = StoredValues.with(StoredValue.of(NAME, "a"));
+        cache.translate(ENTITY, values, translation);
+        assertEquals(1, cache.size());
+        final int translations = calls.get();
+        final StoredValues expected = new StoredValues();
+        expected.add(NAME_COL, Expressions.stringTemplate("upper({0})", Expressions.constant("b")));
+        assertEquals(expected, cache.translate(ENTITY, StoredValues.with(StoredValue.of(NAME, "b")), translation));
+        assertEquals(translations + 1, calls.get());
+    }
+
+    /**
+     * Unit test for {@link StoreShapeCache#translate(com.querydsl.core.types.EntityPath, StoredValues, UnaryOperator)}.
+     */
+    @Test
+    void testTranslateTemplateMismatch() {
+        final StoreShapeCache cache = new StoreShapeCache();
+        final AtomicInteger calls = new AtomicInteger();
+        final UnaryOperator<StoredValues> translation = values -> {
+            calls.incrementAndGet();
+            final StoredValues result = new StoredValues();
+            final Expression<String> value = values.get(NAME);
+            if (value instanceof Constant) {
+                result.add(NAME_COL, ((String) ((Constant<?>) value).getConstant()).toUpperCase());
+            } else {
+                result.add(NAME_COL, value);
+            }
+            return result;
+        };
+        assertEquals(
+                StoredValues.with(StoredValue.of(NAME_COL, "A")),
+                cache.translate(ENTITY, StoredValues.with(StoredValue.of(NAME, "a")), translation));
+        final int translations = calls.get();
+        assertEquals(
+                StoredValues.with(StoredValue.of(NAME_COL, "B")),
+                cache.translate(ENTITY, StoredValues.with(StoredValue.of(NAME, "b")), translation));
+        assertEquals(translations + 1, calls.get());
+    }
+
+    /**
+     * Unit test for {@link StoreShapeCache#translate(com.querydsl.core.types.EntityPath, StoredValues, UnaryOperator)}.
+     */
+    @Test
+    void testTranslateMaxShapes() {
+        final StoreShapeCache cache = new StoreShapeCache(1);
+        final UnaryOperator<StoredValues> translation = TRANSFORMER::translateStoredValues;
+        cache.translate(ENTITY, createRow("a", true), translation);
+        assertEquals(
+                StoredValues.with(StoredValue.of(NAME_COL, "b")),
+                cache.translate(ENTITY, StoredValues.with(StoredValue.of(NAME, "b")), translation));
+        assertEquals(1, cache.size());
+    }
+
+    /**
+     * Unit test for {@link StoreShapeCache#scope(com.querydsl.core.types.EntityPath)}.
+     */
+    @Test
+    void testScope() {
+        final StoreShapeCache cache = new StoreShapeCache();
+        final StoreShapeCache.Scope scope = cache.scope(ENTITY);
+        assertSame(cache, scope.getCache());
+        assertSame(ENTITY, scope.getEntity());
+        assertEquals(
+                createTranslatedRow("a", "Y"),
+                scope.translate(createRow("a", true), TRANSFORMER::translateStoredValues));
+        assertEquals(1, cache.size());
+    }
+
+    /**
+     * Unit test for {@link StoreShapeCache.ValueKind#of(Expression)}.
+     */
+    @Test
+    void testValueKind() {
+        assertSame(StoreShapeCache.ValueKind.NULL, StoreShapeCache.ValueKind.of(null));
+        assertSame(StoreShapeCache.ValueKind.CONSTANT, StoreShapeCache.ValueKind.of(Expressions.constant("a")));
+        assertSame(StoreShapeCache.ValueKind.EXPRESSION, StoreShapeCache.ValueKind.of(NAME));
+    }
+
+    private static StoredValues createRow(
+            final String name,
+            final boolean active) {
+        final StoredValues result = new StoredValues();
+        result.add(NAME, name);
+        result.add(ACTIVE, active);
+        return result;
+    }
+
+    private static StoredValues createTranslatedRow(
+            final String name,
+            final String active) {
+        final StoredValues result = new StoredValues();
+        result.add(NAME_COL, name);
+        result.add(ACTIVE_COL, active);
+        return result;
+    }
+
+    private static class QEntity extends EntityPathBase<Object> {
+        private static final long serialVersionUID = 1L;
+        public QEntity(String variable) {
+            super(Object.class, PathMetadataFactory.forVariable(variable));
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package dev.orne.qdsl.wrap.impl;
+
+/*-
+ * #%L
+ * Orne Querydsl Utils
+ * %%
+ * Copyright (C) 2022 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.Projections;
+import com.querydsl.core.types.QTuple;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.core.types.dsl.StringPath;
+
+/**
+ * Unit tests for {@code TupleOrderComparator}.
+ *
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2022-10
+ * @since 0.1
+ * @see TupleOrderComparator
+ */
+@Tag("ut")
+class TupleOrderComparatorTest {
+
+    private static final StringPath PATH = Expressions.stringPath("path");
+    private static final NumberPath<Long> NUM_PATH = Expressions.numberPath(Long.class, "num");
+    private static final QTuple TUPLE = Projections.tuple(Expressions.ONE, PATH, NUM_PATH);
+
+    /**
+     * Unit test for {@link TupleOrderComparator#TupleOrderComparator(List, int)}.
+     */
+    @Test
+    void testConstructor() {
+        final List<OrderSpecifier<?>> orders = Arrays.asList(PATH.asc(), NUM_PATH.desc());
+        final TupleOrderComparator comparator = new TupleOrderComparator(orders, 1);
+        assertEquals(orders, comparator.getOrders());
+        assertEquals(1, comparator.getOffset());
+        assertThrows(NullPointerException.class, () -> {
+            new TupleOrderComparator(null, 0);
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            new TupleOrderComparator(Collections.singletonList(null), 0);
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            new TupleOrderComparator(orders, -1);
+        });
+    }
+
+    /**
+     * Unit test for {@link TupleOrderComparator#compare(Tuple, Tuple)}.
+     */
+    @Test
+    void testCompare() {
+        final TupleOrderComparator comparator = new TupleOrderComparator(
+                Arrays.asList(PATH.asc(), NUM_PATH.desc()), 1);
+        assertEquals(0, comparator.compare(tuple("a", 1L), tuple("a", 1L)));
+        assertTrue(comparator.compare(tuple("a", 1L), tuple("b", 1L)) < 0);
+        assertTrue(comparator.compare(tuple("b", 1L), tuple("a", 1L)) > 0);
+        assertTrue(comparator.compare(tuple("a", 2L), tuple("a", 1L)) < 0);
+        assertTrue(comparator.compare(tuple("a", 1L), tuple("a", 2L)) > 0);
+    }
+
+    /**
+     * Unit test for {@link TupleOrderComparator#compare(Tuple, Tuple)}.
+     */
+    @Test
+    void testCompareNulls() {
+        assertTrue(new TupleOrderComparator(Arrays.asList(PATH.asc()), 1)
+                .compare(tuple(null, 1L), tuple("a", 1L)) > 0);
+        assertTrue(new TupleOrderComparator(Arrays.asList(PATH.desc()), 1)
+                .compare(tuple(null, 1L), tuple("a", 1L)) < 0);
+        assertTrue(new TupleOrderComparator(Arrays.asList(PATH.asc().nullsFirst()), 1)
+                .compare(tuple(null, 1L), tuple("a", 1L)) < 0);
+        assertTrue(new TupleOrderComparator(Arrays.asList(PATH.desc().nullsLast()), 1)
+                .compare(tuple(null, 1L), tuple("a", 1L)) > 0);
+        assertEquals(0, new TupleOrderComparator(Arrays.asList(PATH.asc()), 1)
+                .compare(tuple(null, 1L), tuple(null, 1L)));
+    }
+
+    /**
+     * Unit test for {@link TupleOrderComparator#withExplicitNullHandling(List)}.
+     */
+    @Test
+    void testWithExplicitNullHandling() {
+        final OrderSpecifier<?> explicit = PATH.asc().nullsFirst();
+        final List<OrderSpecifier<?>> result = TupleOrderComparator.withExplicitNullHandling(
+                Arrays.asList(PATH.asc(), NUM_PATH.desc(), explicit));
+        assertEquals(Arrays.asList(
+                PATH.asc().nullsLast(),
+                NUM_PATH.desc().nullsFirst(),
+                explicit),
+                result);
+        assertSame(explicit, result.get(2));
+        final TupleOrderComparator comparator = new TupleOrderComparator(
+                Arrays.asList(PATH.asc(), NUM_PATH.desc()), 1);
+        final TupleOrderComparator explicitComparator = new TupleOrderComparator(
+                result.subList(0, 2), 1);
+        assertEquals(
+                comparator.compare(tuple(null, 1L), tuple("a", 1L)),
+                explicitComparator.compare(tuple(null, 1L), tuple("a", 1L)));
+        assertEquals(
+                comparator.compare(tuple("a", null), tuple("a", 1L)),
+                explicitComparator.compare(tuple("a", null), tuple("a", 1L)));
+    }
+
+    private static Tuple tuple(
+            final String value,
+            final Long num) {
+        return TUPLE.newInstance(1, value, num);
+    }
+}
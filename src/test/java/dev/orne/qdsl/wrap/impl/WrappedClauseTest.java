@@ -26,6 +26,9 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.BDDMockito.*;
 import static org.mockito.Mockito.mock;
 
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
 import javax.validation.constraints.NotNull;
 
 import org.apache.commons.lang3.RandomUtils;
@@ -36,9 +39,13 @@ import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import com.mysema.commons.lang.CloseableIterator;
 import com.querydsl.core.types.Expression;
 import com.querydsl.core.types.Predicate;
 
+import dev.orne.qdsl.wrap.CancelHandle;
+import dev.orne.qdsl.wrap.ConcurrencyLimitExceededException;
+import dev.orne.qdsl.wrap.QueryCancelledException;
 import dev.orne.qdsl.wrap.StoredValues;
 
 /**
@@ -91,6 +98,167 @@ class WrappedClauseTest {
         then(transformer).shouldHaveNoInteractions();
     }
 
+    /**
+     * Unit test for {@link WrappedClause#setResultCacheScope(QueryResultCache.Scope)}.
+     */
+    @Test
+    void testResultCacheScope() {
+        final WrappedClause<?> clause = getClause();
+        assertNull(clause.getResultCacheScope());
+        final QueryResultCache.Scope scope = mock(QueryResultCache.Scope.class);
+        clause.setResultCacheScope(scope);
+        assertSame(scope, clause.getResultCacheScope());
+        clause.setResultCacheScope(null);
+        assertNull(clause.getResultCacheScope());
+        then(scope).shouldHaveNoInteractions();
+    }
+
+    /**
+     * Unit test for {@link WrappedClause#invalidateCachedResults()}.
+     */
+    @Test
+    void testInvalidateCachedResults() {
+        final WrappedClause<?> clause = getClause();
+        assertDoesNotThrow(() -> clause.invalidateCachedResults());
+        final QueryResultCache.Scope scope = mock(QueryResultCache.Scope.class);
+        clause.setResultCacheScope(scope);
+        clause.invalidateCachedResults();
+        then(scope).should().invalidate();
+        then(scope).shouldHaveNoMoreInteractions();
+    }
+
+    /**
+     * Unit test for {@link WrappedClause#timeout(long, TimeUnit)} and
+     * {@link WrappedClause#cancelHandle(CancelHandle)}.
+     */
+    @Test
+    void testExecutionBounds() {
+        final WrappedClause<?> clause = getClause();
+        final ExecutionBounds bounds = clause.getExecutionBounds();
+        assertNotNull(bounds);
+        assertFalse(bounds.isBounded());
+        assertSame(clause, clause.timeout(2, TimeUnit.SECONDS));
+        assertEquals(2000L, bounds.getTimeout());
+        final CancelHandle handle = new CancelHandle();
+        assertSame(clause, clause.cancelHandle(handle));
+        assertSame(handle, bounds.getCancelHandle());
+        assertThrows(IllegalArgumentException.class, () -> {
+            clause.timeout(-1, TimeUnit.SECONDS);
+        });
+        assertThrows(NullPointerException.class, () -> {
+            clause.timeout(1, null);
+        });
+        final ExecutionBounds other = new ExecutionBounds();
+        clause.setExecutionBounds(other);
+        assertSame(other, clause.getExecutionBounds());
+        assertThrows(NullPointerException.class, () -> {
+            clause.setExecutionBounds(null);
+        });
+    }
+
+    /**
+     * Unit test for {@link WrappedClause#executeBounded(Supplier)}.
+     */
+    @Test
+    void testExecuteBounded() {
+        final WrappedClause<?> clause = spy(getClause());
+        final Object expected = new Object();
+        @SuppressWarnings("unchecked")
+        final Supplier<Object> execution = mock(Supplier.class);
+        given(execution.get()).willReturn(expected);
+        assertSame(expected, clause.executeBounded(execution));
+        then(clause).should(never()).applyExecutionBounds();
+        clause.timeout(1, TimeUnit.SECONDS);
+        assertSame(expected, clause.executeBounded(execution));
+        then(clause).should().applyExecutionBounds();
+        then(execution).should(times(2)).get();
+        final CancelHandle handle = new CancelHandle();
+        clause.cancelHandle(handle);
+        handle.cancel();
+        assertThrows(QueryCancelledException.class, () -> {
+            clause.executeBounded(execution);
+        });
+        then(execution).shouldHaveNoMoreInteractions();
+    }
+
+    /**
+     * Unit test for {@link WrappedClause#executeBounded(Supplier)}.
+     */
+    @Test
+    void testExecuteBoundedConcurrencyLimiter() {
+        final WrappedClause<?> clause = getClause();
+        assertNull(clause.getConcurrencyLimiter());
+        final ConcurrencyLimiter limiter = new ConcurrencyLimiter(1);
+        clause.setConcurrencyLimiter(limiter);
+        assertSame(limiter, clause.getConcurrencyLimiter());
+        final Object expected = new Object();
+        assertSame(expected, clause.executeBounded(() -> {
+            assertEquals(1, limiter.getInFlightCount());
+            assertThrows(ConcurrencyLimitExceededException.class, () -> {
+                clause.executeBounded(Object::new);
+            });
+            return expected;
+        }));
+        assertEquals(0, limiter.getInFlightCount());
+        assertEquals(1, limiter.getRejectedCount());
+    }
+
+    /**
+     * Unit test for {@link WrappedClause#executeWithinPermit(Supplier)}.
+     */
+    @Test
+    void testExecuteWithinPermit() {
+        final WrappedClause<?> clause = spy(getClause());
+        final ConcurrencyLimiter limiter = new ConcurrencyLimiter(1);
+        clause.setConcurrencyLimiter(limiter);
+        final Object expected = new Object();
+        assertSame(expected, clause.executeBounded(() -> clause.executeWithinPermit(() -> {
+            assertEquals(1, limiter.getInFlightCount());
+            return expected;
+        })));
+        assertEquals(0, limiter.getRejectedCount());
+        then(clause).should(never()).applyExecutionBounds();
+        clause.timeout(1, TimeUnit.SECONDS);
+        assertSame(expected, clause.executeWithinPermit(() -> expected));
+        then(clause).should().applyExecutionBounds();
+        assertEquals(0, limiter.getInFlightCount());
+        final CancelHandle handle = new CancelHandle();
+        clause.cancelHandle(handle);
+        handle.cancel();
+        assertThrows(QueryCancelledException.class, () -> {
+            clause.executeWithinPermit(Object::new);
+        });
+    }
+
+    /**
+     * Unit test for {@link WrappedClause#iterateBounded(Supplier)}.
+     */
+    @Test
+    void testIterateBoundedConcurrencyLimiter() {
+        final WrappedClause<?> clause = getClause();
+        @SuppressWarnings("unchecked")
+        final CloseableIterator<Object> iterator = mock(CloseableIterator.class);
+        assertSame(iterator, clause.iterateBounded(() -> iterator));
+        final ConcurrencyLimiter limiter = new ConcurrencyLimiter(1);
+        clause.setConcurrencyLimiter(limiter);
+        final CloseableIterator<Object> result = clause.iterateBounded(() -> iterator);
+        assertNotSame(iterator, result);
+        assertEquals(1, limiter.getInFlightCount());
+        assertThrows(ConcurrencyLimitExceededException.class, () -> {
+            clause.executeBounded(Object::new);
+        });
+        result.close();
+        then(iterator).should().close();
+        assertEquals(0, limiter.getInFlightCount());
+        final CancelHandle handle = new CancelHandle();
+        clause.cancelHandle(handle);
+        handle.cancel();
+        assertThrows(QueryCancelledException.class, () -> {
+            clause.iterateBounded(() -> iterator);
+        });
+        assertEquals(0, limiter.getInFlightCount());
+    }
+
     /**
      * Unit test for {@link WrappedClause#getPreFetchedExtractor()}.
      */
@@ -27,7 +27,16 @@ import static org.mockito.BDDMockito.*;
 
 import java.io.Serializable;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.validation.constraints.NotNull;
 
@@ -38,16 +47,25 @@ import org.mockito.InOrder;
 import org.mockito.Mock;
 
 import com.querydsl.collections.CollQuery;
+import com.querydsl.collections.DefaultQueryEngine;
 import com.querydsl.collections.QueryEngine;
 import com.querydsl.core.JoinType;
 import com.querydsl.core.QueryMetadata;
 import com.querydsl.core.Tuple;
 import com.querydsl.core.support.ExtendedSubQuery;
 import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
 import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Projections;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.Param;
 import com.querydsl.core.types.dsl.PathBuilder;
+import com.querydsl.core.types.dsl.StringPath;
 
 import dev.orne.qdsl.TestTypes;
+import dev.orne.qdsl.wrap.CancelHandle;
+import dev.orne.qdsl.wrap.QueryCancelledException;
+import dev.orne.qdsl.wrap.ReferenceProjection;
 
 /**
  * Unit tests for {@code WrappedCollQueryClause}.
@@ -297,6 +315,222 @@ extends WrappedQueryClauseTest {
         then(newDelegate).shouldHaveNoInteractions();
     }
 
+    /**
+     * Unit test for {@link WrappedCollQueryClause#copy()}.
+     */
+    @Test
+    @Override
+    void testCopy() {
+        final WrappedCollQueryClause<?> clause = getClause();
+        assertThrows(UnsupportedOperationException.class, () -> {
+            clause.copy();
+        });
+        final StringPath source = Expressions.stringPath("source");
+        final Param<String> param = new Param<>(String.class, "param");
+        final WrappedCollQueryClause<String> baseClause = new WrappedCollQueryClause<>(
+                source,
+                DefaultQueryEngine.getDefault(),
+                "a", "b", "c")
+                .where(source.goe(param));
+        final WrappedCollQueryClause<String> result = baseClause.copy();
+        assertNotSame(baseClause, result);
+        assertNotSame(baseClause.getDelegate(), result.getDelegate());
+        assertNotSame(baseClause.getMetadata(), result.getMetadata());
+        assertEquals(baseClause.getMetadata(), result.getMetadata());
+        assertSame(String.class, result.getType());
+        assertEquals(Arrays.asList("b", "c"), result.set(param, "b").fetch());
+        assertTrue(baseClause.getMetadata().getParams().isEmpty());
+        final WrappedCollQueryClause<Integer> projected = baseClause.select(source.length());
+        assertEquals(Arrays.asList(1, 1), projected.copy().set(param, "b").fetch());
+    }
+
+    /**
+     * Unit test for {@link WrappedCollQueryClause#fetchByReferences(Collection)}.
+     */
+    @Test
+    void testFetchByReferences() {
+        final StringPath source = Expressions.stringPath("source");
+        final WrappedCollQueryClause<String> baseClause = new WrappedCollQueryClause<>(
+                source,
+                DefaultQueryEngine.getDefault(),
+                "a", "bb", "ccc", "dddd");
+        assertThrows(IllegalStateException.class, () -> {
+            baseClause.fetchByReferences(Arrays.asList("a"));
+        });
+        final WrappedCollQueryClause<String> clause = baseClause
+                .where(source.ne("bb"))
+                .limit(1)
+                .select(ReferenceProjection.of(source.upper(), source));
+        final Map<String, String> expected = new HashMap<>();
+        expected.put("a", "A");
+        expected.put("ccc", "CCC");
+        assertEquals(expected, clause.fetchByReferences(Arrays.asList("a", "bb", "ccc", "a", "zz")));
+        assertEquals(expected, clause.fetchByReferences(Arrays.asList("a", "bb", "ccc", "zz"), Runnable::run));
+        assertTrue(clause.fetchByReferences(Collections.emptyList()).isEmpty());
+        assertThrows(NullPointerException.class, () -> {
+            clause.fetchByReferences(null);
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            clause.fetchByReferences(Arrays.asList("a", null));
+        });
+        assertNull(clause.select(source).getReferenceProjection());
+    }
+
+    /**
+     * Unit test for {@link WrappedCollQueryClause#isConcurrentCopySupported()}.
+     */
+    @Test
+    @Override
+    void testIsConcurrentCopySupported() {
+        assertTrue(getClause().isConcurrentCopySupported());
+    }
+
+    /**
+     * Unit test for {@link WrappedCollQueryClause#fetchByReferences(Collection, Executor)}.
+     */
+    @Test
+    void testFetchByReferencesComposed() {
+        final StringPath source = Expressions.stringPath("source");
+        final FactoryExpression<Tuple> reference = Projections.tuple(source, source.length());
+        final WrappedCollQueryClause<String> clause = spy(new WrappedCollQueryClause<>(
+                source,
+                DefaultQueryEngine.getDefault(),
+                "a", "bb", "ccc", "dddd")
+                .select(ReferenceProjection.of(source.upper(), reference)));
+        given(clause.getReferenceChunkSize()).willReturn(1);
+        final Map<Tuple, String> expected = new HashMap<>();
+        expected.put(reference.newInstance("a", 1), "A");
+        expected.put(reference.newInstance("ccc", 3), "CCC");
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            assertEquals(expected, clause.fetchByReferences(Arrays.asList(
+                    reference.newInstance("a", 1),
+                    reference.newInstance("bb", 1),
+                    reference.newInstance("ccc", 3)),
+                    executor));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Unit test for {@link WrappedCollQueryClause#exists()} and
+     * {@link WrappedCollQueryClause#fetchByReferences(Collection, Executor)}
+     * with a saturated concurrency limiter.
+     */
+    @Test
+    void testConcurrencyLimiterNestedExecutions() {
+        final StringPath source = Expressions.stringPath("source");
+        final ConcurrencyLimiter limiter = new ConcurrencyLimiter(1);
+        final WrappedCollQueryClause<String> baseClause = new WrappedCollQueryClause<>(
+                source,
+                DefaultQueryEngine.getDefault(),
+                "a", "bb", "ccc", "dddd");
+        baseClause.setConcurrencyLimiter(limiter);
+        assertTrue(baseClause.exists());
+        assertFalse(baseClause.copy().where(source.length().gt(4)).exists());
+        final WrappedCollQueryClause<String> clause = spy(baseClause.copy()
+                .select(ReferenceProjection.of(source.upper(), source)));
+        given(clause.getReferenceChunkSize()).willReturn(1);
+        final Map<String, String> expected = new HashMap<>();
+        expected.put("a", "A");
+        expected.put("ccc", "CCC");
+        assertEquals(expected, clause.fetchByReferences(Arrays.asList("a", "ccc", "zz")));
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            assertEquals(expected, clause.fetchByReferences(Arrays.asList("a", "ccc", "zz"), executor));
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(0, limiter.getInFlightCount());
+        assertEquals(0, limiter.getRejectedCount());
+    }
+
+    /**
+     * Unit test for {@link WrappedCollQueryClause#exists()}.
+     */
+    @Test
+    void testExistsCollection() {
+        final StringPath source = Expressions.stringPath("source");
+        final List<String> data = Arrays.asList("a", "bb", "ccc", "dddd");
+        final AtomicInteger visited = new AtomicInteger();
+        final WrappedCollQueryClause<String> clause = new WrappedCollQueryClause<>(
+                source,
+                DefaultQueryEngine.getDefault(),
+                () -> data.stream().peek(value -> visited.incrementAndGet()).iterator());
+        visited.set(0);
+        assertTrue(clause.exists());
+        assertEquals(1, visited.get());
+        visited.set(0);
+        assertTrue(clause.copy().where(source.length().goe(2)).exists());
+        assertEquals(2, visited.get());
+        visited.set(0);
+        assertFalse(clause.copy().where(source.length().gt(4)).exists());
+        assertEquals(4, visited.get());
+        final Param<String> param = new Param<>(String.class, "param");
+        final WrappedCollQueryClause<Integer> projected = clause.copy()
+                .where(source.goe(param))
+                .orderBy(source.desc())
+                .select(source.length());
+        assertTrue(projected.copy().set(param, "c").exists());
+        assertFalse(projected.copy().set(param, "e").exists());
+        assertTrue(clause.copy().where(source.length().goe(2)).offset(2).exists());
+        assertFalse(clause.copy().where(source.length().goe(2)).offset(3).exists());
+        assertFalse(new WrappedCollQueryClause<>(
+                source,
+                DefaultQueryEngine.getDefault(),
+                Collections.<String>emptyList())
+                .exists());
+    }
+
+    /**
+     * Unit test for {@link WrappedCollQueryClause#executeBounded(java.util.function.Supplier)}.
+     */
+    @Test
+    void testExecuteBoundedCollection() {
+        final StringPath source = Expressions.stringPath("source");
+        final List<String> data = Arrays.asList("a", "bb", "ccc", "dddd");
+        final CancelHandle handle = new CancelHandle();
+        final AtomicInteger visited = new AtomicInteger(-10);
+        final WrappedCollQueryClause<String> clause = new WrappedCollQueryClause<>(
+                source,
+                DefaultQueryEngine.getDefault(),
+                () -> data.stream().peek(value -> {
+                    if (visited.incrementAndGet() == 2) {
+                        handle.cancel();
+                    }
+                }).iterator())
+                .where(source.length().goe(1));
+        visited.set(-10);
+        assertEquals(data, clause.fetch());
+        clause.cancelHandle(handle);
+        visited.set(0);
+        assertThrows(QueryCancelledException.class, () -> {
+            clause.fetch();
+        });
+        assertEquals(2, visited.get());
+        clause.cancelHandle(null);
+        assertEquals(data, clause.fetch());
+        final WrappedCollQueryClause<String> slow = new WrappedCollQueryClause<>(
+                source,
+                DefaultQueryEngine.getDefault(),
+                () -> data.stream().peek(value -> {
+                    try {
+                        Thread.sleep(20);
+                    } catch (final InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }).iterator())
+                .timeout(5, TimeUnit.MILLISECONDS);
+        assertThrows(QueryCancelledException.class, () -> {
+            slow.where(source.length().goe(1)).fetch();
+        });
+        assertThrows(QueryCancelledException.class, () -> {
+            slow.copy().where(source.length().gt(10)).exists();
+        });
+        assertEquals(data, slow.timeout(0, TimeUnit.MILLISECONDS).fetch());
+    }
+
     /**
      * Unit test for {@link WrappedCollQueryClause#select(Expression)}.
      */
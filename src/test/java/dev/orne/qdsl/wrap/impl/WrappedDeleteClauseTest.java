@@ -25,15 +25,28 @@ package dev.orne.qdsl.wrap.impl;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.BDDMockito.*;
 
+import java.util.Collections;
+import java.util.function.Supplier;
+
 import javax.validation.constraints.NotNull;
 
 import org.apache.commons.lang3.RandomUtils;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 
 import com.querydsl.core.dml.DeleteClause;
+import com.querydsl.core.types.ExpressionUtils;
 import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.sql.ProjectableSQLQuery;
+import com.querydsl.sql.dml.AbstractSQLDeleteClause;
+
+import dev.orne.qdsl.wrap.CancelHandle;
+import dev.orne.qdsl.wrap.ChunkedExecution;
+import dev.orne.qdsl.wrap.QueryCancelledException;
 
 /**
  * Unit tests for {@code WrappedDeleteClause}.
@@ -122,4 +135,173 @@ extends WrappedClauseTest {
         assertEquals(expected, result);
         then(delegate).should().execute();
     }
+
+    /**
+     * Unit test for {@link WrappedDeleteClause#execute()}.
+     */
+    @Test
+    void testExecuteInvalidatesCachedResults() {
+        final WrappedDeleteClause clause = getClause();
+        final QueryResultCache.Scope scope = mock(QueryResultCache.Scope.class);
+        clause.setResultCacheScope(scope);
+        final long expected = RandomUtils.nextLong();
+        given(delegate.execute()).willReturn(expected);
+        final InOrder order = inOrder(delegate, scope);
+        final long result = clause.execute();
+        assertEquals(expected, result);
+        then(delegate).should(order).execute();
+        then(scope).should(order).invalidate();
+    }
+
+    /**
+     * Unit test for {@link WrappedDeleteClause#where(Predicate...)}.
+     */
+    @Test
+    void testWhereTautology() {
+        final WrappedDeleteClause clause = spy(getClause());
+        final Predicate expr = mock(Predicate.class);
+        final Predicate[] exprs = new Predicate[] { expr };
+        final Predicate texpr = Expressions.stringPath("other").eq("value");
+        willReturn(exprs).given(clause).extractPreFetched(exprs);
+        final Predicate[] texprs = new Predicate[] {
+                Expressions.TRUE,
+                ExpressionUtils.and(texpr, Expressions.TRUE) };
+        given(transformer.translatePredicates(exprs)).willReturn(texprs);
+        clause.where(exprs);
+        assertFalse(clause.isUnsatisfiable());
+        then(delegate).should().where(texpr);
+    }
+
+    /**
+     * Unit test for {@link WrappedDeleteClause#execute()}.
+     */
+    @Test
+    void testExecuteUnsatisfiable() {
+        final WrappedDeleteClause clause = spy(getClause());
+        final QueryResultCache.Scope scope = mock(QueryResultCache.Scope.class);
+        clause.setResultCacheScope(scope);
+        final Predicate[] exprs = new Predicate[] { mock(Predicate.class) };
+        willReturn(exprs).given(clause).extractPreFetched(exprs);
+        final Predicate[] texprs = new Predicate[] {
+                Expressions.stringPath("path").in(Collections.emptyList()) };
+        given(transformer.translatePredicates(exprs)).willReturn(texprs);
+        clause.where(exprs);
+        assertTrue(clause.isUnsatisfiable());
+        assertEquals(0, clause.execute());
+        then(delegate).should(never()).execute();
+        then(scope).shouldHaveNoInteractions();
+    }
+
+    /**
+     * Unit test for {@link WrappedDeleteClause#execute()}.
+     */
+    @Test
+    void testExecuteCancelled() {
+        final WrappedDeleteClause clause = getClause();
+        final QueryResultCache.Scope scope = mock(QueryResultCache.Scope.class);
+        clause.setResultCacheScope(scope);
+        final CancelHandle handle = new CancelHandle();
+        clause.cancelHandle(handle);
+        handle.cancel();
+        assertThrows(QueryCancelledException.class, () -> {
+            clause.execute();
+        });
+        then(delegate).shouldHaveNoInteractions();
+        then(scope).shouldHaveNoInteractions();
+    }
+
+    /**
+     * Unit test for {@link WrappedDeleteClause#setChunkStatements(Supplier, Supplier)}.
+     */
+    @Test
+    void testSetChunkStatements() {
+        final WrappedDeleteClause clause = getClause();
+        assertNull(clause.getChunkStatements());
+        assertNull(clause.getChunkQueries());
+        final Supplier<AbstractSQLDeleteClause<?>> statements = () -> null;
+        final Supplier<ProjectableSQLQuery<?, ?>> queries = () -> null;
+        clause.setChunkStatements(statements, queries);
+        assertSame(statements, clause.getChunkStatements());
+        assertSame(queries, clause.getChunkQueries());
+        clause.setChunkStatements(null, null);
+        assertNull(clause.getChunkStatements());
+        assertNull(clause.getChunkQueries());
+    }
+
+    /**
+     * Unit test for {@link WrappedDeleteClause#executeChunked(ChunkedExecution)}.
+     */
+    @Test
+    void testExecuteChunked() {
+        final NumberPath<Long> path = Expressions.numberPath(Long.class, "id");
+        final Predicate filter = path.goe(2L);
+        final Predicate tfilter = path.goe(3L);
+        given(transformer.translatePredicates(filter)).willReturn(new Predicate[] { tfilter });
+        final WrappedDeleteClause clause = getClause();
+        final QueryResultCache.Scope scope = mock(QueryResultCache.Scope.class);
+        clause.setResultCacheScope(scope);
+        final AbstractSQLDeleteClause<?> statement = mock(AbstractSQLDeleteClause.class);
+        given(statement.execute()).willReturn(2L, 2L, 1L);
+        clause.setChunkStatements(() -> statement, null);
+        clause.where(filter);
+        final ChunkedExecution execution = new ChunkedExecution(2);
+        assertEquals(5, clause.executeChunked(execution));
+        then(statement).should(times(3)).where(new Predicate[] { tfilter });
+        then(statement).should(times(3)).limit(2);
+        then(statement).should(times(3)).execute();
+        then(delegate).should(never()).execute();
+        then(scope).should().invalidate();
+        assertThrows(NullPointerException.class, () -> {
+            clause.executeChunked(null);
+        });
+    }
+
+    /**
+     * Unit test for {@link WrappedDeleteClause#executeChunked(ChunkedExecution)}.
+     */
+    @Test
+    void testExecuteChunkedUnsupported() {
+        final WrappedDeleteClause clause = getClause();
+        final ChunkedExecution execution = new ChunkedExecution(2);
+        assertThrows(UnsupportedOperationException.class, () -> {
+            clause.executeChunked(execution);
+        });
+        then(delegate).should(never()).execute();
+    }
+
+    /**
+     * Unit test for {@link WrappedDeleteClause#executeChunked(ChunkedExecution)}.
+     */
+    @Test
+    void testExecuteChunkedUnsatisfiable() {
+        final Predicate filter = Expressions.stringPath("path").eq("value");
+        given(transformer.translatePredicates(filter)).willReturn(new Predicate[] {
+                Expressions.stringPath("path").in(Collections.emptyList()) });
+        final WrappedDeleteClause clause = getClause();
+        final AbstractSQLDeleteClause<?> statement = mock(AbstractSQLDeleteClause.class);
+        clause.setChunkStatements(() -> statement, null);
+        clause.where(filter);
+        assertEquals(0, clause.executeChunked(new ChunkedExecution(2)));
+        then(statement).shouldHaveNoInteractions();
+    }
+
+    /**
+     * Unit test for {@link WrappedDeleteClause#executeChunked(ChunkedExecution)}.
+     */
+    @Test
+    void testExecuteChunkedCancelled() {
+        final WrappedDeleteClause clause = getClause();
+        final QueryResultCache.Scope scope = mock(QueryResultCache.Scope.class);
+        clause.setResultCacheScope(scope);
+        final AbstractSQLDeleteClause<?> statement = mock(AbstractSQLDeleteClause.class);
+        clause.setChunkStatements(() -> statement, null);
+        final CancelHandle handle = new CancelHandle();
+        clause.cancelHandle(handle);
+        handle.cancel();
+        assertThrows(QueryCancelledException.class, () -> {
+            clause.executeChunked(new ChunkedExecution(2));
+        });
+        then(statement).shouldHaveNoInteractions();
+        then(scope).should().invalidate();
+    }
 }
@@ -0,0 +1,212 @@
+package dev.orne.qdsl.wrap.impl;
+
+/*-
+ * #%L
+ * Orne Querydsl Utils
+ * %%
+ * Copyright (C) 2022 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.concurrent.TimeUnit;
+
+import javax.validation.constraints.NotNull;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.PathMetadataFactory;
+import com.querydsl.core.types.dsl.EntityPathBase;
+import com.querydsl.core.types.dsl.StringPath;
+import com.querydsl.sql.ColumnMetadata;
+import com.querydsl.sql.Configuration;
+import com.querydsl.sql.RelationalPathBase;
+import com.querydsl.sql.SQLQueryFactory;
+import com.querydsl.sql.SQLiteTemplates;
+
+import dev.orne.qdsl.wrap.ExtendedInsertClause;
+import dev.orne.qdsl.wrap.impl.transform.ExpressionTransformers;
+
+/**
+ * Benchmark of the insertion modes of {@code WrappedInsertClause} over the
+ * SQLite test database.
+ * <p>
+ * Compares the insertion of the same rows with a statement per row,
+ * with JDBC batches and with multi-row insert statements. The elapsed
+ * times are logged.
+ *
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2022-10
+ * @since 0.1
+ * @see WrappedInsertClause
+ */
+@Tag("it")
+class WrappedInsertClauseBenchmarkIT {
+
+    private static final Logger LOG = LoggerFactory.getLogger(WrappedInsertClauseBenchmarkIT.class);
+    private static final int ROWS = 10000;
+    private static final int WARMUP_ROWS = 1000;
+    private static final int SQLITE_MAX_PARAMETERS = 999;
+
+    private Path database;
+    private Connection connection;
+    private TestProvider provider;
+
+    @BeforeEach
+    void openDatabase()
+    throws IOException, SQLException {
+        this.database = Files.createTempFile("qdsl-benchmark", ".db");
+        Files.copy(
+                Paths.get("src", "test", "resources", "test.db"),
+                this.database,
+                StandardCopyOption.REPLACE_EXISTING);
+        this.connection = DriverManager.getConnection("jdbc:sqlite:" + this.database);
+        this.connection.setAutoCommit(false);
+        this.provider = new TestProvider(new SQLQueryFactory(
+                new Configuration(new SQLiteTemplates()),
+                () -> this.connection));
+    }
+
+    @AfterEach
+    void closeDatabase()
+    throws IOException, SQLException {
+        this.connection.close();
+        Files.deleteIfExists(this.database);
+    }
+
+    /**
+     * Benchmark of {@link WrappedInsertClause#execute()} insertion modes.
+     */
+    @Test
+    void benchmarkInsertModes()
+    throws SQLException {
+        final long perRow = run("per row", -1);
+        final long batch = run("JDBC batch", 0);
+        final long multiRow = run("multi-row", SQLITE_MAX_PARAMETERS);
+        LOG.info("Inserted {} rows: per row {} ms, JDBC batch {} ms, multi-row {} ms",
+                ROWS, perRow, batch, multiRow);
+    }
+
+    private long run(
+            final @NotNull String mode,
+            final int maxParameters)
+    throws SQLException {
+        insert("W", WARMUP_ROWS, maxParameters);
+        final long start = System.nanoTime();
+        insert("R", ROWS, maxParameters);
+        final long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertEquals(ROWS, this.provider.getQueryFactory().select(QTypes.base.code)
+                .from(QTypes.base)
+                .where(QTypes.base.code.startsWith("R"))
+                .fetchCount(), mode);
+        this.provider.getQueryFactory().delete(QTypes.base)
+                .where(QTypes.base.code.startsWith("R").or(QTypes.base.code.startsWith("W")))
+                .execute();
+        this.connection.commit();
+        LOG.debug("Inserted {} rows with {} mode in {} ms", ROWS, mode, elapsed);
+        return elapsed;
+    }
+
+    private void insert(
+            final @NotNull String prefix,
+            final int rows,
+            final int maxParameters)
+    throws SQLException {
+        this.provider.setMultiRowMaxParameters(Math.max(0, maxParameters));
+        long result = 0;
+        if (maxParameters < 0) {
+            for (int i = 0; i < rows; i++) {
+                result += this.provider.insert(QBenchType.base)
+                        .set(QBenchType.base.code, prefix + i)
+                        .set(QBenchType.base.name, "Benchmark type " + i)
+                        .execute();
+            }
+        } else {
+            final ExtendedInsertClause<?> clause = this.provider.insert(QBenchType.base);
+            for (int i = 0; i < rows; i++) {
+                clause.set(QBenchType.base.code, prefix + i)
+                        .set(QBenchType.base.name, "Benchmark type " + i)
+                        .addBatch();
+            }
+            result = clause.execute();
+        }
+        this.connection.commit();
+        assertEquals(rows, result);
+    }
+
+    private static class TestProvider
+    extends AbstractWrappedSqlClauseProvider {
+        private final SQLQueryFactory queryFactory;
+        public TestProvider(
+                final @NotNull SQLQueryFactory queryFactory) {
+            super(QTypes.base, QBenchType.base);
+            this.queryFactory = queryFactory;
+        }
+        @Override
+        protected @NotNull SQLQueryFactory getQueryFactory() {
+            return this.queryFactory;
+        }
+        @Override
+        protected ExpressionTransformer getTransformer(
+                final @NotNull EntityPath<?> entity) {
+            return ExpressionTransformers.with(
+                    ExpressionTransformers.renamePath(QBenchType.base.code, QTypes.base.code),
+                    ExpressionTransformers.renamePath(QBenchType.base.name, QTypes.base.name));
+        }
+    }
+
+    public static class QBenchType
+    extends EntityPathBase<Object> {
+        private static final long serialVersionUID = 1L;
+        public static final QBenchType base = new QBenchType("types");
+        public final StringPath code = createString("code");
+        public final StringPath name = createString("name");
+        public QBenchType(String variable) {
+            super(Object.class, PathMetadataFactory.forVariable(variable));
+        }
+    }
+
+    public static class QTypes
+    extends RelationalPathBase<Tuple> {
+        private static final long serialVersionUID = 1L;
+        public static final QTypes base = new QTypes("types");
+        public final StringPath code = createString("code");
+        public final StringPath name = createString("name");
+        public QTypes(String variable) {
+            super(Tuple.class, PathMetadataFactory.forVariable(variable), null, "TYPES");
+            addMetadata(code, ColumnMetadata.named("CODE").withIndex(1).ofType(Types.VARCHAR).withSize(4).notNull());
+            addMetadata(name, ColumnMetadata.named("NAME").withIndex(3).ofType(Types.VARCHAR).notNull());
+        }
+    }
+}
@@ -29,15 +29,19 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 import javax.validation.constraints.NotNull;
 
 import org.apache.commons.lang3.RandomUtils;
+import org.apache.commons.lang3.StringUtils;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.mockito.InOrder;
 import org.mockito.Mock;
 
+import com.querydsl.collections.DefaultQueryEngine;
 import com.querydsl.core.QueryMetadata;
 import com.querydsl.core.Tuple;
 import com.querydsl.core.dml.DeleteClause;
@@ -48,10 +52,25 @@ import com.querydsl.core.types.FactoryExpression;
 import com.querydsl.core.types.Path;
 import com.querydsl.core.types.Projections;
 import com.querydsl.core.types.SubQueryExpression;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.core.types.dsl.StringPath;
+import com.querydsl.sql.Configuration;
+import com.querydsl.sql.RelationalPathBase;
+import com.querydsl.sql.SQLBindings;
+import com.querydsl.sql.SQLiteTemplates;
+import com.querydsl.sql.dml.AbstractSQLInsertClause;
+import com.querydsl.sql.dml.SQLInsertClause;
 
 import dev.orne.qdsl.TestTypes;
+import dev.orne.qdsl.test.model.Item;
+import dev.orne.qdsl.wrap.BatchExecutionException;
+import dev.orne.qdsl.wrap.CancelHandle;
+import dev.orne.qdsl.wrap.QueryCancelledException;
 import dev.orne.qdsl.wrap.StoredValue;
 import dev.orne.qdsl.wrap.StoredValues;
+import dev.orne.qdsl.wrap.impl.transform.ConvertedProjection;
+import dev.orne.qdsl.wrap.impl.transform.ValueTransformer;
 
 /**
  * Unit tests for {@code WrappedInsertClause}.
@@ -104,6 +123,405 @@ extends WrappedStoreClauseTest {
         return new WrappedInsertClause(delegate, transformer);
     }
 
+    /**
+     * Unit test for {@link WrappedInsertClause#setBatchChunkSize(int)}.
+     */
+    @Test
+    void testSetBatchChunkSize() {
+        final WrappedInsertClause clause = getClause();
+        assertEquals(WrappedInsertClause.DEFAULT_BATCH_CHUNK_SIZE, clause.getBatchChunkSize());
+        clause.setBatchChunkSize(10);
+        assertEquals(10, clause.getBatchChunkSize());
+        assertThrows(IllegalArgumentException.class, () -> {
+            clause.setBatchChunkSize(0);
+        });
+    }
+
+    /**
+     * Unit test for {@link WrappedInsertClause#addBatch()}.
+     */
+    @Test
+    void testAddBatch() {
+        final WrappedInsertClause clause = getClause();
+        assertThrows(IllegalStateException.class, () -> {
+            clause.addBatch();
+        });
+        final StoredValues row1 = createRow(1);
+        final StoredValues row2 = createRow(2);
+        final StoredValues trow1 = createRow(3);
+        final StoredValues trow2 = createRow(4);
+        given(transformer.translateStoredValues(row1)).willReturn(trow1);
+        given(transformer.translateStoredValues(row2)).willReturn(trow2);
+        assertSame(clause, clause.set(row1).addBatch());
+        assertTrue(clause.isEmpty());
+        assertSame(clause, clause.set(row2).addBatch());
+        assertEquals(Arrays.asList(trow1, trow2), clause.getBatch());
+        assertThrows(IllegalStateException.class, () -> {
+            clause.addBatch();
+        });
+        then(delegate).shouldHaveNoInteractions();
+        then(transformer).should(times(2)).translateStoredValues(any());
+    }
+
+    /**
+     * Unit test for {@link WrappedInsertClause#execute()}.
+     */
+    @Test
+    void testExecuteBatch() {
+        final AbstractSQLInsertClause<?> sqlDelegate = mock(AbstractSQLInsertClause.class);
+        final WrappedInsertClause clause = new WrappedInsertClause(sqlDelegate, transformer);
+        final QueryResultCache.Scope scope = mock(QueryResultCache.Scope.class);
+        clause.setResultCacheScope(scope);
+        clause.setBatchChunkSize(2);
+        given(transformer.translateStoredValues(any())).willAnswer(inv -> inv.getArgument(0));
+        given(sqlDelegate.execute()).willReturn(2L, 2L, 1L);
+        for (int i = 0; i < 4; i++) {
+            clause.set(createRow(i)).addBatch();
+        }
+        clause.set(createRow(4));
+        assertEquals(5, clause.execute());
+        then(transformer).should(times(5)).translateStoredValues(any());
+        then(sqlDelegate).should(times(5)).addBatch();
+        then(sqlDelegate).should(times(3)).execute();
+        then(sqlDelegate).should(times(3)).clear();
+        then(scope).should().invalidate();
+        assertTrue(clause.getBatch().isEmpty());
+        assertTrue(clause.isEmpty());
+        assertEquals(0, clause.execute());
+    }
+
+    /**
+     * Unit test for {@link WrappedInsertClause#execute()}.
+     */
+    @Test
+    void testExecuteBatchNotSql() {
+        final WrappedInsertClause clause = getClause();
+        given(transformer.translateStoredValues(any())).willAnswer(inv -> inv.getArgument(0));
+        given(delegate.execute()).willReturn(1L);
+        for (int i = 0; i < 3; i++) {
+            clause.set(createRow(i)).addBatch();
+        }
+        assertEquals(3, clause.execute());
+        then(delegate).should(times(3)).execute();
+    }
+
+    /**
+     * Unit test for {@link WrappedInsertClause#execute()}.
+     */
+    @Test
+    void testExecuteBatchCollStore() {
+        final CollStoreDmlClauseTest.QItem entity = new CollStoreDmlClauseTest.QItem("item");
+        final CollValueStore<Item> store = spy(new CollValueStore<>(Item::new));
+        final CollStoreDmlClause<Item> collDelegate = spy(new CollStoreDmlClause<>(
+                store, entity, DefaultQueryEngine.getDefault(), CollStoreDmlClause.Type.INSERT));
+        final WrappedInsertClause clause = new WrappedInsertClause(collDelegate, transformer);
+        clause.setBatchChunkSize(2);
+        given(transformer.translateStoredValues(any())).willAnswer(inv -> inv.getArgument(0));
+        for (long i = 0; i < 5; i++) {
+            clause.set(entity.id, i).set(entity.code, "c" + i).addBatch();
+        }
+        assertEquals(5, clause.execute());
+        then(collDelegate).should(times(5)).addBatch();
+        then(collDelegate).should(times(3)).execute();
+        then(collDelegate).should(times(3)).clear();
+        then(store).should(times(3)).addAll(any());
+        then(store).should(never()).add(any());
+        final List<Item> values = store.snapshot();
+        assertEquals(5, values.size());
+        for (int i = 0; i < 5; i++) {
+            assertEquals(Long.valueOf(i), values.get(i).getId());
+            assertEquals("c" + i, values.get(i).getCode());
+        }
+    }
+
+    /**
+     * Unit test for {@link WrappedInsertClause#execute()}.
+     */
+    @Test
+    void testExecuteBatchChunkFailure() {
+        final AbstractSQLInsertClause<?> sqlDelegate = mock(AbstractSQLInsertClause.class);
+        final WrappedInsertClause clause = new WrappedInsertClause(sqlDelegate, transformer);
+        clause.setBatchChunkSize(2);
+        given(transformer.translateStoredValues(any())).willAnswer(inv -> inv.getArgument(0));
+        final RuntimeException failure = new RuntimeException();
+        given(sqlDelegate.execute()).willReturn(2L).willThrow(failure).willReturn(1L);
+        for (int i = 0; i < 5; i++) {
+            clause.set(createRow(i)).addBatch();
+        }
+        final BatchExecutionException result = assertThrows(BatchExecutionException.class, () -> {
+            clause.execute();
+        });
+        assertEquals(3, result.getAffectedRows());
+        assertSame(failure, result.getCause());
+        assertEquals(1, result.getFailures().size());
+        assertEquals(2, result.getFailures().get(0).getOffset());
+        assertEquals(2, result.getFailures().get(0).getSize());
+        assertSame(failure, result.getFailures().get(0).getCause());
+        then(sqlDelegate).should(times(3)).execute();
+        then(sqlDelegate).should(times(3)).clear();
+        assertTrue(clause.getBatch().isEmpty());
+    }
+
+    /**
+     * Unit test for {@link WrappedInsertClause#execute()}.
+     */
+    @Test
+    void testExecuteBatchCancelled() {
+        final AbstractSQLInsertClause<?> sqlDelegate = mock(AbstractSQLInsertClause.class);
+        final WrappedInsertClause clause = new WrappedInsertClause(sqlDelegate, transformer);
+        final CancelHandle handle = new CancelHandle();
+        clause.cancelHandle(handle);
+        clause.setBatchChunkSize(1);
+        given(transformer.translateStoredValues(any())).willAnswer(inv -> inv.getArgument(0));
+        given(sqlDelegate.execute()).willAnswer(inv -> {
+            handle.cancel();
+            return 1L;
+        });
+        clause.set(createRow(0)).addBatch();
+        clause.set(createRow(1)).addBatch();
+        assertThrows(QueryCancelledException.class, () -> {
+            clause.execute();
+        });
+        then(sqlDelegate).should(times(1)).execute();
+    }
+
+    /**
+     * Unit test for {@link WrappedInsertClause#executeWithKeys(Path)}.
+     */
+    @Test
+    void testExecuteWithKeys() {
+        final AbstractSQLInsertClause<?> sqlDelegate = mock(AbstractSQLInsertClause.class);
+        final WrappedInsertClause clause = new WrappedInsertClause(sqlDelegate, transformer);
+        final QueryResultCache.Scope scope = mock(QueryResultCache.Scope.class);
+        clause.setResultCacheScope(scope);
+        final StringPath key = Expressions.stringPath("key");
+        final NumberPath<Long> column = Expressions.numberPath(Long.class, "column");
+        willReturn(new ConvertedProjection<Long, String>(String.class, column, ValueTransformer.NUMBER_TO_STR::apply))
+                .given(transformer).translateKeyPath(key);
+        given(transformer.translateStoredValues(any())).willAnswer(inv -> inv.getArgument(0));
+        willReturn(Arrays.asList(12L, 13L)).given(sqlDelegate).executeWithKeys(column);
+        assertTrue(clause.executeWithKeys(key).isEmpty());
+        then(sqlDelegate).shouldHaveNoInteractions();
+        final StoredValues row = createRow(1);
+        clause.set(row);
+        assertEquals(Arrays.asList("12", "13"), clause.executeWithKeys(key));
+        then(sqlDelegate).should().set(Expressions.numberPath(Integer.class, "id"), row.get(Expressions.numberPath(Integer.class, "id")));
+        then(sqlDelegate).should().executeWithKeys(column);
+        then(sqlDelegate).should(never()).execute();
+        then(scope).should().invalidate();
+        assertEquals("12", clause.executeWithKey(key));
+        willReturn(Collections.emptyList()).given(sqlDelegate).executeWithKeys(column);
+        assertNull(clause.executeWithKey(key));
+    }
+
+    /**
+     * Unit test for {@link WrappedInsertClause#executeWithKeys(Path)}.
+     * <p>
+     * Verifies that untransformed key paths are retrieved as is.
+     */
+    @Test
+    void testExecuteWithKeysPath() {
+        final AbstractSQLInsertClause<?> sqlDelegate = mock(AbstractSQLInsertClause.class);
+        final WrappedInsertClause clause = new WrappedInsertClause(sqlDelegate, transformer);
+        final NumberPath<Long> key = Expressions.numberPath(Long.class, "key");
+        final NumberPath<Long> column = Expressions.numberPath(Long.class, "column");
+        willReturn(column).given(transformer).translateKeyPath(key);
+        given(transformer.translateStoredValues(any())).willAnswer(inv -> inv.getArgument(0));
+        willReturn(Collections.singletonList(12L)).given(sqlDelegate).executeWithKeys(column);
+        clause.set(createRow(1));
+        assertEquals(12L, clause.executeWithKey(key));
+    }
+
+    /**
+     * Unit test for {@link WrappedInsertClause#executeWithKeys(Path)}.
+     * <p>
+     * Verifies that unsupported delegate clauses and key projections
+     * are rejected.
+     */
+    @Test
+    void testExecuteWithKeysUnsupported() {
+        final NumberPath<Long> key = Expressions.numberPath(Long.class, "key");
+        final WrappedInsertClause clause = getClause();
+        clause.set(createRow(1));
+        assertThrows(UnsupportedOperationException.class, () -> {
+            clause.executeWithKeys(key);
+        });
+        assertThrows(UnsupportedOperationException.class, () -> {
+            clause.executeWithKey(key);
+        });
+        then(delegate).shouldHaveNoInteractions();
+        final AbstractSQLInsertClause<?> sqlDelegate = mock(AbstractSQLInsertClause.class);
+        final WrappedInsertClause sqlClause = new WrappedInsertClause(sqlDelegate, transformer);
+        willReturn(Expressions.constant(12L)).given(transformer).translateKeyPath(key);
+        given(transformer.translateStoredValues(any())).willAnswer(inv -> inv.getArgument(0));
+        sqlClause.set(createRow(1));
+        assertThrows(ExpressionTransformationException.class, () -> {
+            sqlClause.executeWithKeys(key);
+        });
+        then(sqlDelegate).should(never()).executeWithKeys(any(Path.class));
+        assertThrows(NullPointerException.class, () -> {
+            sqlClause.executeWithKeys(null);
+        });
+    }
+
+    /**
+     * Unit test for {@link WrappedInsertClause#executeWithKeys(Path)}
+     * with batched rows.
+     */
+    @Test
+    void testExecuteWithKeysBatch() {
+        final AbstractSQLInsertClause<?> sqlDelegate = mock(AbstractSQLInsertClause.class);
+        final WrappedInsertClause clause = new WrappedInsertClause(sqlDelegate, transformer);
+        final QueryResultCache.Scope scope = mock(QueryResultCache.Scope.class);
+        clause.setResultCacheScope(scope);
+        clause.setBatchChunkSize(2);
+        clause.setMultiRowValues(100, () -> mock(AbstractSQLInsertClause.class));
+        final StringPath key = Expressions.stringPath("key");
+        final NumberPath<Long> column = Expressions.numberPath(Long.class, "column");
+        willReturn(new ConvertedProjection<Long, String>(String.class, column, ValueTransformer.NUMBER_TO_STR::apply))
+                .given(transformer).translateKeyPath(key);
+        given(transformer.translateStoredValues(any())).willAnswer(inv -> inv.getArgument(0));
+        willReturn(Arrays.asList(1L, 2L), Arrays.asList(3L, 4L), Arrays.asList(5L))
+                .given(sqlDelegate).executeWithKeys(column);
+        for (int i = 0; i < 4; i++) {
+            clause.set(createRow(i)).addBatch();
+        }
+        clause.set(createRow(4));
+        assertEquals(Arrays.asList("1", "2", "3", "4", "5"), clause.executeWithKeys(key));
+        then(sqlDelegate).should(times(5)).addBatch();
+        then(sqlDelegate).should(times(3)).executeWithKeys(column);
+        then(sqlDelegate).should(times(3)).clear();
+        then(sqlDelegate).should(never()).execute();
+        then(scope).should().invalidate();
+        assertTrue(clause.getBatch().isEmpty());
+        assertTrue(clause.isEmpty());
+    }
+
+    /**
+     * Unit test for {@link WrappedInsertClause#executeWithKeys(Path)}
+     * with batched rows.
+     * <p>
+     * Verifies that chunk failures are reported after executing the
+     * remaining chunks.
+     */
+    @Test
+    void testExecuteWithKeysBatchChunkFailure() {
+        final AbstractSQLInsertClause<?> sqlDelegate = mock(AbstractSQLInsertClause.class);
+        final WrappedInsertClause clause = new WrappedInsertClause(sqlDelegate, transformer);
+        clause.setBatchChunkSize(2);
+        final NumberPath<Long> key = Expressions.numberPath(Long.class, "key");
+        willReturn(key).given(transformer).translateKeyPath(key);
+        given(transformer.translateStoredValues(any())).willAnswer(inv -> inv.getArgument(0));
+        final RuntimeException failure = new RuntimeException();
+        willReturn(Arrays.asList(1L, 2L)).willThrow(failure).willReturn(Arrays.asList(5L))
+                .given(sqlDelegate).executeWithKeys(key);
+        for (int i = 0; i < 5; i++) {
+            clause.set(createRow(i)).addBatch();
+        }
+        final BatchExecutionException result = assertThrows(BatchExecutionException.class, () -> {
+            clause.executeWithKeys(key);
+        });
+        assertEquals(3, result.getAffectedRows());
+        assertEquals(1, result.getFailures().size());
+        assertEquals(2, result.getFailures().get(0).getOffset());
+        assertSame(failure, result.getFailures().get(0).getCause());
+        then(sqlDelegate).should(times(3)).executeWithKeys(key);
+        then(sqlDelegate).should(times(3)).clear();
+    }
+
+    /**
+     * Unit test for {@link WrappedInsertClause#setMultiRowValues(int, Supplier)}.
+     */
+    @Test
+    void testSetMultiRowValues() {
+        final WrappedInsertClause clause = getClause();
+        assertEquals(0, clause.getMultiRowMaxParameters());
+        assertNull(clause.getMultiRowClauses());
+        assertFalse(clause.isMultiRowEnabled());
+        final Supplier<AbstractSQLInsertClause<?>> clauses = () -> null;
+        clause.setMultiRowValues(10, clauses);
+        assertEquals(10, clause.getMultiRowMaxParameters());
+        assertSame(clauses, clause.getMultiRowClauses());
+        assertTrue(clause.isMultiRowEnabled());
+        clause.setMultiRowValues(0, clauses);
+        assertFalse(clause.isMultiRowEnabled());
+        clause.setMultiRowValues(10, null);
+        assertFalse(clause.isMultiRowEnabled());
+        assertThrows(IllegalArgumentException.class, () -> {
+            clause.setMultiRowValues(-1, clauses);
+        });
+    }
+
+    /**
+     * Unit test for {@link WrappedInsertClause#execute()}.
+     */
+    @Test
+    void testExecuteBatchMultiRow() {
+        final List<SQLBindings> statements = new ArrayList<>();
+        final WrappedInsertClause clause = getClause();
+        final QueryResultCache.Scope scope = mock(QueryResultCache.Scope.class);
+        clause.setResultCacheScope(scope);
+        clause.setBatchChunkSize(4);
+        clause.setMultiRowValues(5, () -> new RecordingInsertClause(statements));
+        given(transformer.translateStoredValues(any())).willAnswer(inv -> inv.getArgument(0));
+        for (int i = 0; i < 5; i++) {
+            clause.set(createRow(i)).addBatch();
+        }
+        assertEquals(5, clause.execute());
+        then(delegate).should(never()).execute();
+        then(scope).should().invalidate();
+        final String columns = getColumnNames(createRow(0));
+        assertEquals(3, statements.size());
+        assertEquals("insert into TEST (" + columns + ")\nvalues (?, ?), (?, ?)",
+                statements.get(0).getSQL());
+        assertEquals(getBindings(createRow(0), createRow(1)),
+                statements.get(0).getNullFriendlyBindings());
+        assertEquals("insert into TEST (" + columns + ")\nvalues (?, ?), (?, ?)",
+                statements.get(1).getSQL());
+        assertEquals(getBindings(createRow(2), createRow(3)),
+                statements.get(1).getNullFriendlyBindings());
+        assertEquals("insert into TEST (" + columns + ")\nvalues (?, ?)",
+                statements.get(2).getSQL());
+        assertEquals(getBindings(createRow(4)),
+                statements.get(2).getNullFriendlyBindings());
+        assertTrue(clause.getBatch().isEmpty());
+    }
+
+    /**
+     * Unit test for {@link WrappedInsertClause#execute()}.
+     */
+    @Test
+    void testExecuteBatchMultiRowMixedColumns() {
+        final List<SQLBindings> statements = new ArrayList<>();
+        final WrappedInsertClause clause = getClause();
+        clause.setMultiRowValues(100, () -> new RecordingInsertClause(statements));
+        given(transformer.translateStoredValues(any())).willAnswer(inv -> inv.getArgument(0));
+        final StoredValues nameless = new StoredValues();
+        nameless.add(Expressions.numberPath(Integer.class, "id"), 2);
+        final StoredValues reversed = new StoredValues();
+        reversed.add(Expressions.stringPath("name"), (String) null);
+        reversed.add(Expressions.numberPath(Integer.class, "id"), 4);
+        clause.set(createRow(0)).addBatch();
+        clause.set(createRow(1)).addBatch();
+        clause.set(nameless).addBatch();
+        clause.set(createRow(3)).addBatch();
+        clause.set(reversed).addBatch();
+        assertEquals(5, clause.execute());
+        final String columns = getColumnNames(createRow(0));
+        assertEquals(3, statements.size());
+        assertEquals("insert into TEST (" + columns + ")\nvalues (?, ?), (?, ?)",
+                statements.get(0).getSQL());
+        assertEquals("insert into TEST (id)\nvalues (?)",
+                statements.get(1).getSQL());
+        assertEquals(Arrays.asList(2),
+                statements.get(1).getNullFriendlyBindings());
+        assertEquals("insert into TEST (" + columns + ")\nvalues (?, ?), "
+                + (columns.startsWith("id") ? "(?, null)" : "(null, ?)"),
+                statements.get(2).getSQL());
+        assertEquals(getBindings(createRow(3), reversed),
+                statements.get(2).getNullFriendlyBindings());
+    }
+
     /**
      * Unit test for {@link WrappedInsertClause#columns(Path...)}.
      */
@@ -477,4 +895,50 @@ extends WrappedStoreClauseTest {
             clause.select(null);
         });
     }
+
+    private static StoredValues createRow(
+            final int id) {
+        final StoredValues result = new StoredValues();
+        result.add(Expressions.numberPath(Integer.class, "id"), id);
+        result.add(Expressions.stringPath("name"), "Row " + id);
+        return result;
+    }
+
+    static String getColumnNames(
+            final StoredValues row) {
+        return row.paths().stream()
+                .map(path -> path.getMetadata().getName())
+                .collect(Collectors.joining(", "));
+    }
+
+    private static List<Object> getBindings(
+            final StoredValues... rows) {
+        final List<Object> result = new ArrayList<>();
+        for (final StoredValues row : rows) {
+            for (final Path<?> path : rows[0].paths()) {
+                if (row.get(path) != null) {
+                    result.add(((Constant<?>) row.get(path)).getConstant());
+                }
+            }
+        }
+        return result;
+    }
+
+    private static class RecordingInsertClause
+    extends SQLInsertClause {
+        private static final RelationalPathBase<Object> TABLE =
+                new RelationalPathBase<>(Object.class, "test", null, "TEST");
+        private final List<SQLBindings> statements;
+        public RecordingInsertClause(
+                final List<SQLBindings> statements) {
+            super(() -> null, new Configuration(new SQLiteTemplates()), TABLE);
+            this.statements = statements;
+        }
+        @Override
+        public long execute() {
+            final SQLBindings bindings = getSQL().get(0);
+            this.statements.add(bindings);
+            return StringUtils.countMatches(bindings.getSQL(), '(') - 1;
+        }
+    }
 }
@@ -25,6 +25,8 @@ package dev.orne.qdsl.wrap.impl;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.BDDMockito.*;
 
+import java.util.concurrent.TimeUnit;
+
 import javax.validation.constraints.NotNull;
 
 import org.apache.commons.lang3.RandomUtils;
@@ -34,7 +36,9 @@ import org.junit.jupiter.api.Test;
 import com.querydsl.core.Tuple;
 import com.querydsl.core.types.Expression;
 import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.JPAQueryBase;
 import com.querydsl.jpa.JPQLQuery;
+import com.querydsl.jpa.impl.AbstractJPAQuery;
 
 /**
  * Unit tests for {@code WrappedJpaQueryClause}.
@@ -69,6 +73,34 @@ extends WrappedQueryClauseTest {
         assertSame(delegate, result.getDelegate());
     }
 
+    /**
+     * Unit test for {@link WrappedJpaQueryClause#copy()}.
+     */
+    @Test
+    @Override
+    void testCopy() {
+        final WrappedJpaQueryClause<?> clause = getClause();
+        assertThrows(UnsupportedOperationException.class, () -> {
+            clause.copy();
+        });
+        final JPAQueryBase<?, ?> delegate = mock(JPAQueryBase.class);
+        final JPAQueryBase<?, ?> newDelegate = mock(JPAQueryBase.class);
+        final QueryResultCache.Scope scope = mock(QueryResultCache.Scope.class);
+        final WrappedJpaQueryClause<?> baseClause = new WrappedJpaQueryClause<>(
+                transformer,
+                delegate);
+        baseClause.setResultCacheScope(scope);
+        willReturn(newDelegate).given(delegate).clone();
+        final WrappedJpaQueryClause<?> result = baseClause.copy();
+        assertNotSame(baseClause, result);
+        assertSame(newDelegate, result.getDelegate());
+        assertSame(transformer, result.getTransformer());
+        assertSame(scope, result.getResultCacheScope());
+        then(delegate).should().clone();
+        then(delegate).shouldHaveNoMoreInteractions();
+        then(newDelegate).shouldHaveNoInteractions();
+    }
+
     /**
      * Unit test for {@link WrappedJpaQueryClause#select(Expression...)}.
      */
@@ -186,4 +218,24 @@ extends WrappedQueryClauseTest {
         assertSame(delegate, clause.asSubQuery());
         then(delegate).shouldHaveNoInteractions();
     }
+
+    /**
+     * Unit test for {@link WrappedJpaQueryClause#applyExecutionBounds()}.
+     */
+    @Test
+    void testApplyExecutionBounds() {
+        final AbstractJPAQuery<?, ?> delegate = mock(AbstractJPAQuery.class);
+        final WrappedJpaQueryClause<?> clause = new WrappedJpaQueryClause<>(
+                transformer,
+                delegate);
+        clause.applyExecutionBounds();
+        then(delegate).shouldHaveNoInteractions();
+        clause.timeout(2, TimeUnit.SECONDS);
+        clause.applyExecutionBounds();
+        then(delegate).should().setHint(WrappedJpaQueryClause.TIMEOUT_HINT, 2000);
+        final WrappedJpaQueryClause<?> other = getClause();
+        other.timeout(2, TimeUnit.SECONDS);
+        other.applyExecutionBounds();
+        then(other.getDelegate()).shouldHaveNoInteractions();
+    }
 }
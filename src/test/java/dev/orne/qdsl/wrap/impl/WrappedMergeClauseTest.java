@@ -0,0 +1,354 @@
+package dev.orne.qdsl.wrap.impl;
+
+/*-
+ * #%L
+ * Orne Querydsl Utils
+ * %%
+ * Copyright (C) 2022 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import javax.validation.constraints.NotNull;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.querydsl.core.dml.StoreClause;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.core.types.dsl.StringPath;
+import com.querydsl.sql.Configuration;
+import com.querydsl.sql.RelationalPathBase;
+import com.querydsl.sql.SQLiteTemplates;
+import com.querydsl.sql.dml.SQLInsertClause;
+import com.querydsl.sql.dml.SQLMergeClause;
+
+import dev.orne.qdsl.wrap.BatchExecutionException;
+import dev.orne.qdsl.wrap.StoredValues;
+
+/**
+ * Unit tests for {@code WrappedMergeClause}.
+ *
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2022-10
+ * @since 0.1
+ * @see WrappedMergeClause
+ */
+@Tag("ut")
+class WrappedMergeClauseTest
+extends WrappedClauseTest {
+
+    private static final NumberPath<Integer> ID = Expressions.numberPath(Integer.class, "id");
+    private static final StringPath NAME = Expressions.stringPath("name");
+
+    @Override
+    protected @NotNull WrappedMergeClause getClause() {
+        return new WrappedMergeClause(mock(SQLMergeClause.class), transformer);
+    }
+
+    /**
+     * Unit test for {@link WrappedMergeClause#WrappedMergeClause(StoreClause)}.
+     */
+    @Test
+    void testConstructor() {
+        final SQLMergeClause delegate = mock(SQLMergeClause.class);
+        final WrappedMergeClause clause = new WrappedMergeClause(delegate);
+        assertSame(delegate, clause.getDelegate());
+        assertSame(ExpressionTransformer.NOP, clause.getTransformer());
+        assertNull(clause.getKeys());
+        assertTrue(clause.getBatch().isEmpty());
+        assertThrows(NullPointerException.class, () -> {
+            new WrappedMergeClause(null);
+        });
+    }
+
+    /**
+     * Unit test for {@link WrappedMergeClause#WrappedMergeClause(StoreClause, ExpressionTransformer)}.
+     */
+    @Test
+    void testTransformerConstructor() {
+        final SQLInsertClause delegate = mock(SQLInsertClause.class);
+        final WrappedMergeClause clause = new WrappedMergeClause(delegate, transformer);
+        assertSame(delegate, clause.getDelegate());
+        assertSame(transformer, clause.getTransformer());
+        assertThrows(NullPointerException.class, () -> {
+            new WrappedMergeClause(null, transformer);
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            new WrappedMergeClause(mock(StoreClause.class), transformer);
+        });
+        final WrappedMergeClause nullTransformerClause = new WrappedMergeClause(delegate, null);
+        assertSame(ExpressionTransformer.NOP, nullTransformerClause.getTransformer());
+    }
+
+    /**
+     * Unit test for {@link WrappedMergeClause#setBatchChunkSize(int)}.
+     */
+    @Test
+    void testSetBatchChunkSize() {
+        final WrappedMergeClause clause = getClause();
+        assertEquals(WrappedMergeClause.DEFAULT_BATCH_CHUNK_SIZE, clause.getBatchChunkSize());
+        clause.setBatchChunkSize(10);
+        assertEquals(10, clause.getBatchChunkSize());
+        assertThrows(IllegalArgumentException.class, () -> {
+            clause.setBatchChunkSize(0);
+        });
+    }
+
+    /**
+     * Unit test for {@link WrappedMergeClause#keys(Path...)}.
+     */
+    @Test
+    void testKeys() {
+        final WrappedMergeClause clause = getClause();
+        final Path<?>[] keys = new Path<?>[] { ID };
+        assertSame(clause, clause.keys(keys));
+        keys[0] = NAME;
+        assertArrayEquals(new Path<?>[] { ID }, clause.getKeys());
+        assertThrows(NullPointerException.class, () -> {
+            clause.keys((Path<?>[]) null);
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            clause.keys();
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            clause.keys(ID, null);
+        });
+    }
+
+    /**
+     * Unit test for {@link WrappedMergeClause#addBatch()}.
+     */
+    @Test
+    void testAddBatch() {
+        final WrappedMergeClause clause = getClause();
+        final StoredValues trow = createRow(1);
+        given(transformer.translateStoredValues(any())).willReturn(trow);
+        assertThrows(IllegalStateException.class, () -> {
+            clause.addBatch();
+        });
+        assertSame(clause, clause.set(createRow(0)).addBatch());
+        assertEquals(Arrays.asList(trow), clause.getBatch());
+        assertTrue(clause.isEmpty());
+        then(clause.getDelegate()).shouldHaveNoInteractions();
+    }
+
+    /**
+     * Unit test for {@link WrappedMergeClause#addBatch()}.
+     */
+    @Test
+    void testAddBatchOnConflictColumns() {
+        final WrappedMergeClause clause = new WrappedMergeClause(
+                mock(SQLInsertClause.class), transformer);
+        given(transformer.translateStoredValues(any())).willAnswer(inv -> inv.getArgument(0));
+        clause.set(createRow(0)).addBatch();
+        clause.set(createRow(1)).addBatch();
+        final StoredValues other = new StoredValues();
+        other.add(ID, 2);
+        clause.set(other);
+        assertThrows(IllegalStateException.class, () -> {
+            clause.addBatch();
+        });
+        assertEquals(2, clause.getBatch().size());
+    }
+
+    /**
+     * Unit test for {@link WrappedMergeClause#execute()}.
+     */
+    @Test
+    void testExecuteNoKeys() {
+        final WrappedMergeClause clause = getClause();
+        clause.set(ID, 0);
+        assertThrows(IllegalStateException.class, () -> {
+            clause.execute();
+        });
+        then(clause.getDelegate()).shouldHaveNoInteractions();
+    }
+
+    /**
+     * Unit test for {@link WrappedMergeClause#execute()}.
+     */
+    @Test
+    void testExecuteEmpty() {
+        final WrappedMergeClause clause = getClause();
+        clause.keys(ID);
+        assertEquals(0, clause.execute());
+        then(clause.getDelegate()).shouldHaveNoInteractions();
+        then(transformer).shouldHaveNoInteractions();
+    }
+
+    /**
+     * Unit test for {@link WrappedMergeClause#execute()}.
+     */
+    @Test
+    void testExecuteMerge() {
+        final SQLMergeClause delegate = mock(SQLMergeClause.class);
+        final WrappedMergeClause clause = new WrappedMergeClause(delegate, transformer);
+        final QueryResultCache.Scope scope = mock(QueryResultCache.Scope.class);
+        clause.setResultCacheScope(scope);
+        clause.setBatchChunkSize(2);
+        final NumberPath<Integer> tid = Expressions.numberPath(Integer.class, "tid");
+        given(transformer.translateGroupByExpressions(ID)).willReturn(new Expression<?>[] { tid });
+        given(transformer.translateStoredValues(any())).willAnswer(inv -> inv.getArgument(0));
+        given(delegate.execute()).willReturn(2L, 1L);
+        clause.keys(ID);
+        clause.set(createRow(0)).addBatch();
+        clause.set(createRow(1)).addBatch();
+        clause.set(createRow(2));
+        assertEquals(3, clause.execute());
+        then(delegate).should(times(3)).keys(tid);
+        then(delegate).should(times(3)).addBatch();
+        then(delegate).should(times(2)).execute();
+        then(delegate).should(times(2)).clear();
+        then(scope).should().invalidate();
+        assertTrue(clause.getBatch().isEmpty());
+        assertTrue(clause.isEmpty());
+    }
+
+    /**
+     * Unit test for {@link WrappedMergeClause#execute()}.
+     */
+    @Test
+    void testExecuteMergeNotNative() {
+        final SQLMergeClause delegate = mock(SQLMergeClause.class);
+        final WrappedMergeClause clause = new WrappedMergeClause(delegate, transformer);
+        given(transformer.translateGroupByExpressions(ID)).willReturn(new Expression<?>[] { ID });
+        given(transformer.translateStoredValues(any())).willAnswer(inv -> inv.getArgument(0));
+        given(delegate.addBatch()).willThrow(IllegalStateException.class);
+        given(delegate.execute()).willReturn(1L);
+        clause.keys(ID);
+        clause.set(createRow(0)).addBatch();
+        clause.set(createRow(1)).addBatch();
+        clause.set(createRow(2));
+        assertEquals(3, clause.execute());
+        then(delegate).should(times(1)).addBatch();
+        then(delegate).should(times(3)).execute();
+    }
+
+    /**
+     * Unit test for {@link WrappedMergeClause#execute()}.
+     */
+    @Test
+    void testExecuteChunkFailure() {
+        final SQLMergeClause delegate = mock(SQLMergeClause.class);
+        final WrappedMergeClause clause = new WrappedMergeClause(delegate, transformer);
+        clause.setBatchChunkSize(1);
+        given(transformer.translateGroupByExpressions(ID)).willReturn(new Expression<?>[] { ID });
+        given(transformer.translateStoredValues(any())).willAnswer(inv -> inv.getArgument(0));
+        final RuntimeException failure = new RuntimeException();
+        given(delegate.execute()).willThrow(failure).willReturn(1L);
+        clause.keys(ID);
+        clause.set(createRow(0)).addBatch();
+        clause.set(createRow(1));
+        final BatchExecutionException result = assertThrows(BatchExecutionException.class, () -> {
+            clause.execute();
+        });
+        assertEquals(1, result.getAffectedRows());
+        assertEquals(1, result.getFailures().size());
+        assertEquals(0, result.getFailures().get(0).getOffset());
+        assertSame(failure, result.getCause());
+    }
+
+    /**
+     * Unit test for {@link WrappedMergeClause#translateKeys()}.
+     */
+    @Test
+    void testTranslateKeysNotPath() {
+        final WrappedMergeClause clause = getClause();
+        given(transformer.translateGroupByExpressions(ID)).willReturn(new Expression<?>[] { ID.add(1) });
+        clause.keys(ID);
+        assertThrows(ExpressionTransformationException.class, () -> {
+            clause.translateKeys();
+        });
+    }
+
+    /**
+     * Unit test for {@link WrappedMergeClause#execute()}.
+     */
+    @Test
+    void testExecuteOnConflict() {
+        final List<String> statements = new ArrayList<>();
+        final WrappedMergeClause clause = new WrappedMergeClause(
+                new RecordingInsertClause(statements), transformer);
+        given(transformer.translateGroupByExpressions(ID)).willReturn(new Expression<?>[] { ID });
+        given(transformer.translateStoredValues(any())).willAnswer(inv -> inv.getArgument(0));
+        clause.keys(ID);
+        clause.set(createRow(0)).addBatch();
+        clause.set(createRow(1));
+        assertEquals(2, clause.execute());
+        clause.set(createRow(2));
+        assertEquals(1, clause.execute());
+        assertEquals(2, statements.size());
+        final String columns = WrappedInsertClauseTest.getColumnNames(createRow(0));
+        final String expected = "insert into TEST (" + columns + ")\nvalues (?, ?)\n"
+                + "on conflict (id) do update set name = excluded.name";
+        assertEquals(expected, statements.get(0));
+        assertEquals(expected, statements.get(1));
+        final StoredValues other = new StoredValues();
+        other.add(ID, 3);
+        clause.set(other);
+        assertThrows(IllegalStateException.class, () -> {
+            clause.execute();
+        });
+    }
+
+    /**
+     * Unit test for {@link WrappedMergeClause#createConflictClause(Path[], java.util.Set)}.
+     */
+    @Test
+    void testCreateConflictClauseKeysOnly() {
+        final Expression<?> result = WrappedMergeClause.createConflictClause(
+                new Path<?>[] { ID, NAME },
+                new HashSet<>(Arrays.asList(ID, NAME)));
+        assertEquals("\non conflict (id, name) do nothing", result.toString());
+    }
+
+    private static StoredValues createRow(
+            final int id) {
+        final StoredValues result = new StoredValues();
+        result.add(ID, id);
+        result.add(NAME, "Row " + id);
+        return result;
+    }
+
+    private static class RecordingInsertClause
+    extends SQLInsertClause {
+        private static final RelationalPathBase<Object> TABLE =
+                new RelationalPathBase<>(Object.class, "test", null, "TEST");
+        private final List<String> statements;
+        public RecordingInsertClause(
+                final List<String> statements) {
+            super(() -> null, new Configuration(new SQLiteTemplates()), TABLE);
+            this.statements = statements;
+        }
+        @Override
+        public long execute() {
+            this.statements.add(getSQL().get(0).getSQL());
+            return getBatchCount();
+        }
+    }
+}
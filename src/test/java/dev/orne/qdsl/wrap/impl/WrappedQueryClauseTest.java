@@ -25,8 +25,13 @@ package dev.orne.qdsl.wrap.impl;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.BDDMockito.*;
 
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 import javax.validation.constraints.NotNull;
 
@@ -34,10 +39,14 @@ import org.apache.commons.lang3.NotImplementedException;
 import org.apache.commons.lang3.RandomUtils;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 
 import com.mysema.commons.lang.CloseableIterator;
+import com.querydsl.core.DefaultQueryMetadata;
 import com.querydsl.core.FetchableQuery;
 import com.querydsl.core.NonUniqueResultException;
+import com.querydsl.core.QueryMetadata;
 import com.querydsl.core.QueryModifiers;
 import com.querydsl.core.QueryResults;
 import com.querydsl.core.ResultTransformer;
@@ -45,11 +54,24 @@ import com.querydsl.core.Tuple;
 import com.querydsl.core.support.ExtendedSubQuery;
 import com.querydsl.core.support.QueryBase;
 import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.FactoryExpression;
 import com.querydsl.core.types.OrderSpecifier;
 import com.querydsl.core.types.ParamExpression;
 import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.Projections;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.core.types.dsl.Param;
+import com.querydsl.core.types.dsl.StringPath;
 
 import dev.orne.qdsl.TestTypes;
+import dev.orne.qdsl.wrap.CancelHandle;
+import dev.orne.qdsl.wrap.QueryCancelledException;
+import dev.orne.qdsl.wrap.ReferenceProjection;
+import dev.orne.qdsl.wrap.ResultPublisher;
+import dev.orne.qdsl.wrap.impl.transform.ConvertedParam;
+import dev.orne.qdsl.wrap.impl.transform.ValueTransformer;
 
 /**
  * Unit tests for {@code WrappedQueryClause}.
@@ -155,6 +177,69 @@ extends WrappedClauseTest {
         then(delegate).shouldHaveNoMoreInteractions();
     }
 
+    /**
+     * Unit test for {@link WrappedQueryClause#where(Predicate...)}.
+     */
+    @Test
+    void testWhereUnsatisfiable() {
+        final WrappedQueryClause<?, ?> clause = spy(getClause());
+        final FetchableQuery<?, ?> delegate = clause.getDelegate();
+        final QueryMetadata metadata = new DefaultQueryMetadata();
+        metadata.setProjection(Expressions.stringPath("path"));
+        willReturn(metadata).given(clause).getMetadata();
+        final Predicate[] exprs = new Predicate[] { mock(Predicate.class), mock(Predicate.class) };
+        final Predicate texpr = Expressions.stringPath("other").eq("value");
+        final Predicate empty = Expressions.stringPath("path").in(Collections.emptyList());
+        willReturn(exprs).given(clause).extractPreFetched(exprs);
+        final Predicate[] texprs = new Predicate[] {
+                ExpressionUtils.and(texpr, Expressions.TRUE),
+                empty };
+        given(transformer.translatePredicates(exprs)).willReturn(texprs);
+        assertFalse(clause.isUnsatisfiable());
+        assertFalse(clause.isProvablyEmpty());
+        clause.where(exprs);
+        assertTrue(clause.isUnsatisfiable());
+        assertTrue(clause.isProvablyEmpty());
+        then(delegate).should().where(texpr, empty);
+        assertEquals(Collections.emptyList(), clause.fetch());
+        assertNull(clause.fetchFirst());
+        assertNull(clause.fetchOne());
+        assertEquals(0L, clause.fetchCount());
+        assertTrue(clause.fetchResults().isEmpty());
+        assertFalse(clause.iterate().hasNext());
+        then(delegate).shouldHaveNoMoreInteractions();
+    }
+
+    /**
+     * Unit test for {@link WrappedQueryClause#isProvablyEmpty()}.
+     */
+    @Test
+    void testIsProvablyEmpty() {
+        final WrappedQueryClause<?, ?> clause = spy(getClause());
+        final FetchableQuery<?, ?> delegate = clause.getDelegate();
+        assertFalse(clause.isProvablyEmpty());
+        clause.setUnsatisfiable(true);
+        willThrow(UnsupportedOperationException.class).given(clause).getMetadata();
+        assertFalse(clause.isProvablyEmpty());
+        final QueryMetadata metadata = new DefaultQueryMetadata();
+        final StringPath path = Expressions.stringPath("path");
+        metadata.setProjection(Projections.tuple(path, path.count()));
+        willReturn(metadata).given(clause).getMetadata();
+        assertFalse(clause.isProvablyEmpty());
+        final List<?> expected = mock(List.class);
+        willReturn(expected).given(delegate).fetch();
+        assertSame(expected, clause.fetch());
+        metadata.addGroupBy(path);
+        assertTrue(clause.isProvablyEmpty());
+        final QueryMetadata plainMetadata = new DefaultQueryMetadata();
+        plainMetadata.setProjection(path);
+        willReturn(plainMetadata).given(clause).getMetadata();
+        assertTrue(clause.isProvablyEmpty());
+        final WrappedQueryClause<?, ?> derived = getClause();
+        clause.configureDerived(derived);
+        assertTrue(derived.isUnsatisfiable());
+    }
+
     /**
      * Unit test for {@link WrappedQueryClause#orderBy(OrderSpecifier...)}.
      */
@@ -193,6 +278,42 @@ extends WrappedClauseTest {
         then(delegate).shouldHaveNoMoreInteractions();
     }
 
+    /**
+     * Unit test for {@link WrappedQueryClause#set(ParamExpression, Object)}.
+     */
+    @Test
+    void testSetConverted() {
+        final WrappedQueryClause<?, ?> clause = spy(getClause());
+        final FetchableQuery<?, ?> delegate = clause.getDelegate();
+        final Param<String> param = new Param<>(String.class, "param");
+        final ConvertedParam<String, Long> converted = new ConvertedParam<>(
+                Long.class, param, ValueTransformer.STR_TO_LONG);
+        final Predicate[] exprs = new Predicate[] { mock(Predicate.class) };
+        final Predicate[] texprs = new Predicate[] {
+                Expressions.numberPath(Long.class, "target").eq(converted) };
+        willReturn(exprs).given(clause).extractPreFetched(exprs);
+        given(transformer.translatePredicates(exprs)).willReturn(texprs);
+        clause.where(exprs);
+        assertEquals(Collections.singleton(converted), clause.getConvertedParams());
+        final WrappedQueryClause<?, ?> result = clause.set(param, "12");
+        assertSame(clause, result);
+        then(delegate).should().where(texprs);
+        then(delegate).should().set(param, "12");
+        then(delegate).should().set(converted, 12L);
+        then(delegate).shouldHaveNoMoreInteractions();
+    }
+
+    /**
+     * Unit test for {@link WrappedQueryClause#copy()}.
+     */
+    @Test
+    void testCopy() {
+        final WrappedQueryClause<?, ?> clause = getClause();
+        assertThrows(UnsupportedOperationException.class, () -> {
+            clause.copy();
+        });
+    }
+
     /**
      * Unit test for {@link WrappedQueryClause#fetch()}.
      */
@@ -208,6 +329,259 @@ extends WrappedClauseTest {
         then(delegate).shouldHaveNoMoreInteractions();
     }
 
+    /**
+     * Unit test for {@link WrappedQueryClause#fetch()}.
+     */
+    @Test
+    void testFetchCached() {
+        final WrappedQueryClause<?, ?> clause = spy(getClause());
+        final FetchableQuery<?, ?> delegate = clause.getDelegate();
+        final QueryMetadata metadata = mock(QueryMetadata.class);
+        final QueryResultCache.Scope scope = mock(QueryResultCache.Scope.class);
+        final List<?> expected = mock(List.class);
+        willReturn(metadata).given(clause).getMetadata();
+        clause.setResultCacheScope(scope);
+        willReturn(expected).given(scope).get(same(QueryKey.Operation.FETCH), same(metadata), any());
+        final List<?> result = clause.fetch();
+        assertSame(expected, result);
+        then(scope).should().get(same(QueryKey.Operation.FETCH), same(metadata), any());
+        then(delegate).shouldHaveNoInteractions();
+    }
+
+    /**
+     * Unit test for {@link WrappedQueryClause#fetchCount()}.
+     */
+    @Test
+    void testFetchCountCached() {
+        final WrappedQueryClause<?, ?> clause = spy(getClause());
+        final FetchableQuery<?, ?> delegate = clause.getDelegate();
+        final QueryMetadata metadata = mock(QueryMetadata.class);
+        final QueryResultCache.Scope scope = mock(QueryResultCache.Scope.class);
+        final long expected = RandomUtils.nextLong();
+        willReturn(metadata).given(clause).getMetadata();
+        clause.setResultCacheScope(scope);
+        willReturn(expected).given(scope).get(same(QueryKey.Operation.FETCH_COUNT), same(metadata), any());
+        final long result = clause.fetchCount();
+        assertEquals(expected, result);
+        then(delegate).shouldHaveNoInteractions();
+    }
+
+    /**
+     * Unit test for {@link WrappedQueryClause#execute(QueryKey.Operation, Supplier)}.
+     */
+    @Test
+    void testExecuteCacheMiss() {
+        final WrappedQueryClause<?, ?> clause = spy(getClause());
+        final FetchableQuery<?, ?> delegate = clause.getDelegate();
+        final QueryMetadata metadata = mock(QueryMetadata.class);
+        final QueryResultCache.Scope scope = mock(QueryResultCache.Scope.class);
+        final List<?> expected = mock(List.class);
+        willReturn(metadata).given(clause).getMetadata();
+        willReturn(expected).given(delegate).fetch();
+        clause.setResultCacheScope(scope);
+        given(scope.get(any(), any(), any())).willAnswer(
+                inv -> inv.getArgument(2, Supplier.class).get());
+        final List<?> result = clause.fetch();
+        assertSame(expected, result);
+        then(delegate).should().fetch();
+    }
+
+    /**
+     * Unit test for {@link WrappedQueryClause#configureDerived(WrappedQueryClause)}.
+     */
+    @Test
+    void testConfigureDerived() {
+        final WrappedQueryClause<?, ?> clause = getClause();
+        final QueryResultCache.Scope scope = mock(QueryResultCache.Scope.class);
+        clause.setResultCacheScope(scope);
+        final ConvertedParam<String, Long> converted = new ConvertedParam<>(
+                Long.class, new Param<>(String.class, "param"), ValueTransformer.STR_TO_LONG);
+        clause.getConvertedParams().add(converted);
+        final WrappedQueryClause<?, ?> derived = getClause();
+        assertSame(derived, clause.configureDerived(derived));
+        assertSame(scope, derived.getResultCacheScope());
+        assertEquals(Collections.singleton(converted), derived.getConvertedParams());
+        assertNull(derived.getSingleFlightScope());
+        final SingleFlightGroup.Scope flightScope = mock(SingleFlightGroup.Scope.class);
+        clause.setSingleFlightScope(flightScope);
+        final WrappedQueryClause<?, ?> other = getClause();
+        assertSame(other, clause.configureDerived(other));
+        assertSame(flightScope, other.getSingleFlightScope());
+    }
+
+    /**
+     * Unit test for {@link WrappedQueryClause#execute(QueryKey.Operation, Supplier)}.
+     */
+    @Test
+    void testExecuteSingleFlight() {
+        final WrappedQueryClause<?, ?> clause = spy(getClause());
+        final FetchableQuery<?, ?> delegate = clause.getDelegate();
+        final QueryMetadata metadata = mock(QueryMetadata.class);
+        final SingleFlightGroup.Scope flightScope = mock(SingleFlightGroup.Scope.class);
+        final ExecutionBounds bounds = clause.getExecutionBounds();
+        final List<?> expected = mock(List.class);
+        willReturn(metadata).given(clause).getMetadata();
+        willReturn(expected).given(delegate).fetch();
+        clause.setSingleFlightScope(flightScope);
+        given(flightScope.execute(any(), any(), any(), any())).willAnswer(
+                inv -> inv.getArgument(3, Supplier.class).get());
+        final List<?> result = clause.fetch();
+        assertSame(expected, result);
+        then(flightScope).should().execute(same(QueryKey.Operation.FETCH), same(metadata),
+                same(bounds), any());
+        then(delegate).should().fetch();
+    }
+
+    /**
+     * Unit test for {@link WrappedQueryClause#execute(QueryKey.Operation, Supplier)}.
+     */
+    @Test
+    void testExecuteCachedSingleFlight() {
+        final WrappedQueryClause<?, ?> clause = spy(getClause());
+        final FetchableQuery<?, ?> delegate = clause.getDelegate();
+        final QueryMetadata metadata = mock(QueryMetadata.class);
+        final QueryResultCache.Scope scope = mock(QueryResultCache.Scope.class);
+        final SingleFlightGroup.Scope flightScope = mock(SingleFlightGroup.Scope.class);
+        final ExecutionBounds bounds = clause.getExecutionBounds();
+        final long expected = RandomUtils.nextLong();
+        willReturn(metadata).given(clause).getMetadata();
+        willReturn(expected).given(delegate).fetchCount();
+        clause.setResultCacheScope(scope);
+        clause.setSingleFlightScope(flightScope);
+        given(scope.get(any(), any(), any())).willAnswer(
+                inv -> inv.getArgument(2, Supplier.class).get());
+        given(flightScope.execute(any(), any(), any(), any())).willAnswer(
+                inv -> inv.getArgument(3, Supplier.class).get());
+        final InOrder order = inOrder(scope, flightScope, delegate);
+        assertEquals(expected, clause.fetchCount());
+        then(scope).should(order).get(same(QueryKey.Operation.FETCH_COUNT), same(metadata), any());
+        then(flightScope).should(order).execute(same(QueryKey.Operation.FETCH_COUNT), same(metadata),
+                same(bounds), any());
+        then(delegate).should(order).fetchCount();
+    }
+
+    /**
+     * Unit test for {@link WrappedQueryClause#configureDerived(WrappedQueryClause, Expression)}.
+     */
+    @Test
+    void testConfigureDerivedProjection() {
+        final WrappedQueryClause<?, ?> clause = getClause();
+        final QueryResultCache.Scope scope = mock(QueryResultCache.Scope.class);
+        clause.setResultCacheScope(scope);
+        final StringPath path = Expressions.stringPath("path");
+        final ReferenceProjection<String, String> projection = ReferenceProjection.of(path.upper(), path);
+        final WrappedQueryClause<?, ?> derived = getClause();
+        assertSame(derived, clause.configureDerived(derived, projection));
+        assertSame(scope, derived.getResultCacheScope());
+        assertSame(projection, derived.getReferenceProjection());
+        final WrappedQueryClause<?, ?> copy = getClause();
+        assertSame(copy, derived.configureDerived(copy));
+        assertSame(projection, copy.getReferenceProjection());
+        final WrappedQueryClause<?, ?> plain = getClause();
+        assertSame(plain, derived.configureDerived(plain, path));
+        assertNull(plain.getReferenceProjection());
+        assertSame(plain, derived.configureDerived(plain, null));
+        assertNull(plain.getReferenceProjection());
+    }
+
+    /**
+     * Unit test for {@link WrappedQueryClause#isConcurrentCopySupported()}.
+     */
+    @Test
+    void testIsConcurrentCopySupported() {
+        assertFalse(getClause().isConcurrentCopySupported());
+    }
+
+    /**
+     * Unit test for {@link WrappedQueryClause#fetchByReferences(Collection, Executor)}.
+     */
+    @Test
+    void testFetchByReferencesNoReferenceProjection() {
+        final WrappedQueryClause<?, ?> clause = getClause();
+        assertNull(clause.getReferenceProjection());
+        assertEquals(WrappedQueryClause.DEFAULT_REFERENCE_CHUNK_SIZE, clause.getReferenceChunkSize());
+        assertThrows(IllegalStateException.class, () -> {
+            clause.fetchByReferences(Collections.singleton("a"));
+        });
+        assertThrows(IllegalStateException.class, () -> {
+            clause.fetchByReferences(Collections.singleton("a"), Runnable::run);
+        });
+        then(clause.getDelegate()).shouldHaveNoInteractions();
+    }
+
+    /**
+     * Unit test for {@link WrappedQueryClause#createReferencesPredicate(Expression, Collection)}.
+     */
+    @Test
+    void testCreateReferencesPredicate() {
+        final WrappedQueryClause<?, ?> clause = getClause();
+        final StringPath path = Expressions.stringPath("path");
+        final NumberPath<Long> other = Expressions.numberPath(Long.class, "other");
+        assertEquals(
+                path.in("a", "b"),
+                clause.createReferencesPredicate(path, Arrays.asList("a", "b")));
+        final FactoryExpression<Tuple> composed = Projections.tuple(path, other);
+        assertEquals(
+                ExpressionUtils.anyOf(
+                        path.eq("a").and(other.eq(1L)),
+                        path.eq("b").and(other.eq(2L))),
+                clause.createReferencesPredicate(composed, Arrays.asList(
+                        composed.newInstance("a", 1L),
+                        composed.newInstance("b", 2L))));
+    }
+
+    /**
+     * Unit test for {@link WrappedQueryClause#configureDerived(WrappedQueryClause)}.
+     */
+    @Test
+    void testConfigureDerivedExecutionBounds() {
+        final WrappedQueryClause<?, ?> clause = getClause();
+        clause.timeout(1, TimeUnit.SECONDS);
+        final WrappedQueryClause<?, ?> derived = getClause();
+        clause.configureDerived(derived);
+        assertSame(clause.getExecutionBounds(), derived.getExecutionBounds());
+        final CancelHandle handle = new CancelHandle();
+        derived.cancelHandle(handle);
+        assertSame(handle, clause.getExecutionBounds().getCancelHandle());
+    }
+
+    /**
+     * Unit test for {@link WrappedQueryClause#configureDerived(WrappedQueryClause)}.
+     */
+    @Test
+    void testConfigureDerivedConcurrencyLimiter() {
+        final WrappedQueryClause<?, ?> clause = getClause();
+        final ConcurrencyLimiter limiter = new ConcurrencyLimiter(1);
+        clause.setConcurrencyLimiter(limiter);
+        final WrappedQueryClause<?, ?> derived = getClause();
+        clause.configureDerived(derived);
+        assertSame(limiter, derived.getConcurrencyLimiter());
+    }
+
+    /**
+     * Unit test for {@link WrappedQueryClause#fetch()}.
+     */
+    @Test
+    void testFetchCancelled() {
+        final WrappedQueryClause<?, ?> clause = spy(getClause());
+        final FetchableQuery<?, ?> delegate = clause.getDelegate();
+        final CancelHandle handle = new CancelHandle();
+        clause.cancelHandle(handle);
+        final List<?> expected = mock(List.class);
+        willReturn(expected).given(delegate).fetch();
+        assertSame(expected, clause.fetch());
+        then(clause).should().applyExecutionBounds();
+        handle.cancel();
+        assertThrows(QueryCancelledException.class, () -> {
+            clause.fetch();
+        });
+        assertThrows(QueryCancelledException.class, () -> {
+            clause.iterate();
+        });
+        then(delegate).should().fetch();
+        then(delegate).shouldHaveNoMoreInteractions();
+    }
+
     /**
      * Unit test for {@link WrappedQueryClause#fetchFirst()}.
      */
@@ -280,6 +654,81 @@ extends WrappedClauseTest {
         then(delegate).shouldHaveNoMoreInteractions();
     }
 
+    /**
+     * Unit test for {@link WrappedQueryClause#iterate()}.
+     */
+    @Test
+    void testIterateConcurrencyLimiter() {
+        final WrappedQueryClause<?, ?> clause = spy(getClause());
+        final FetchableQuery<?, ?> delegate = clause.getDelegate();
+        final ConcurrencyLimiter limiter = new ConcurrencyLimiter(1);
+        clause.setConcurrencyLimiter(limiter);
+        final CloseableIterator<?> iterator = mock(CloseableIterator.class);
+        willReturn(iterator).given(delegate).iterate();
+        final CloseableIterator<?> result = clause.iterate();
+        assertEquals(1, limiter.getInFlightCount());
+        result.hasNext();
+        then(iterator).should().hasNext();
+        result.close();
+        then(iterator).should().close();
+        assertEquals(0, limiter.getInFlightCount());
+    }
+
+    /**
+     * Unit test for {@link WrappedQueryClause#publish()}.
+     */
+    @Test
+    void testPublish() {
+        final WrappedQueryClause<?, ?> clause = spy(getClause());
+        final FetchableQuery<?, ?> delegate = clause.getDelegate();
+        final ResultPublisher<?> result = clause.publish();
+        assertNotNull(result);
+        assertTrue(result instanceof IteratorResultPublisher);
+        assertNull(((IteratorResultPublisher<?>) result).getExecutor());
+        then(delegate).shouldHaveNoInteractions();
+    }
+
+    /**
+     * Unit test for {@link WrappedQueryClause#publish(Executor)}.
+     */
+    @Test
+    void testPublishExecutor() {
+        final WrappedQueryClause<?, ?> clause = spy(getClause());
+        final FetchableQuery<?, ?> delegate = clause.getDelegate();
+        final Executor executor = mock(Executor.class);
+        final ResultPublisher<?> result = clause.publish(executor);
+        assertNotNull(result);
+        assertTrue(result instanceof IteratorResultPublisher);
+        assertSame(executor, ((IteratorResultPublisher<?>) result).getExecutor());
+        then(delegate).shouldHaveNoInteractions();
+    }
+
+    /**
+     * Unit test for {@link WrappedQueryClause#publish()}.
+     */
+    @Test
+    void testPublishIterate() {
+        final WrappedQueryClause<?, ?> clause = spy(getClause());
+        final FetchableQuery<?, ?> delegate = clause.getDelegate();
+        final CloseableIterator<?> iterator = mock(CloseableIterator.class);
+        willReturn(iterator).given(delegate).iterate();
+        @SuppressWarnings("unchecked")
+        final ResultPublisher.Subscriber<Object> subscriber = mock(ResultPublisher.Subscriber.class);
+        @SuppressWarnings("unchecked")
+        final ResultPublisher<Object> publisher = (ResultPublisher<Object>) clause.publish();
+        publisher.subscribe(subscriber);
+        final ArgumentCaptor<ResultPublisher.Subscription> subscription =
+                ArgumentCaptor.forClass(ResultPublisher.Subscription.class);
+        then(subscriber).should().onSubscribe(subscription.capture());
+        then(delegate).shouldHaveNoInteractions();
+        subscription.getValue().request(1);
+        then(delegate).should().iterate();
+        then(iterator).should().hasNext();
+        then(iterator).should().close();
+        then(subscriber).should().onComplete();
+        then(delegate).shouldHaveNoMoreInteractions();
+    }
+
     /**
      * Unit test for {@link WrappedQueryClause#fetchResults()}.
      */
@@ -310,6 +759,54 @@ extends WrappedClauseTest {
         then(delegate).shouldHaveNoMoreInteractions();
     }
 
+    /**
+     * Unit test for {@link WrappedQueryClause#exists()}.
+     */
+    @Test
+    void testExistsNoCopy() {
+        final WrappedQueryClause<?, ?> clause = spy(getClause());
+        final FetchableQuery<?, ?> delegate = clause.getDelegate();
+        willThrow(UnsupportedOperationException.class).given(clause).copy();
+        willReturn(3L, 0L).given(delegate).fetchCount();
+        assertTrue(clause.exists());
+        assertFalse(clause.exists());
+        then(delegate).should(times(2)).fetchCount();
+        then(delegate).shouldHaveNoMoreInteractions();
+        clause.setUnsatisfiable(true);
+        willReturn(new DefaultQueryMetadata()).given(clause).getMetadata();
+        assertFalse(clause.exists());
+        then(delegate).shouldHaveNoMoreInteractions();
+    }
+
+    /**
+     * Unit test for {@link WrappedQueryClause#fetchExists()}.
+     */
+    @Test
+    void testFetchExists() {
+        final WrappedQueryClause<?, ?> clause = spy(getClause());
+        final WrappedQueryClause<?, ?> copy = spy(getClause());
+        final FetchableQuery<?, ?> copyDelegate = copy.getDelegate();
+        final StringPath path = Expressions.stringPath("path");
+        final QueryMetadata metadata = new DefaultQueryMetadata();
+        metadata.setProjection(path);
+        metadata.addOrderBy(path.asc());
+        willReturn(copy).given(clause).copy();
+        willReturn(metadata).given(copy).getMetadata();
+        willReturn(copyDelegate).given(copyDelegate).select(Expressions.ONE);
+        willReturn(copyDelegate).given(copyDelegate).limit(1);
+        willReturn(Collections.singletonList(1), Collections.emptyList()).given(copyDelegate).fetch();
+        assertTrue(clause.fetchExists());
+        assertTrue(metadata.getOrderBy().isEmpty());
+        assertFalse(clause.fetchExists());
+        then(copyDelegate).should(times(2)).select(Expressions.ONE);
+        then(copyDelegate).should(times(2)).limit(1);
+        final QueryMetadata aggregated = new DefaultQueryMetadata();
+        aggregated.setProjection(path.count());
+        willReturn(aggregated).given(copy).getMetadata();
+        assertTrue(clause.fetchExists());
+        then(copyDelegate).should(times(2)).select(Expressions.ONE);
+    }
+
     /**
      * Unit test for {@link WrappedQueryClause#transform(ResultTransformer)}.
      */
@@ -0,0 +1,276 @@
+package dev.orne.qdsl.wrap.impl;
+
+/*-
+ * #%L
+ * Orne Querydsl Utils
+ * %%
+ * Copyright (C) 2022 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.*;
+
+import java.util.List;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.lang3.RandomUtils;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.sql.ProjectableSQLQuery;
+import com.querydsl.sql.SQLListener;
+
+import dev.orne.qdsl.wrap.CancelHandle;
+import dev.orne.qdsl.wrap.QueryCancelledException;
+
+/**
+ * Unit tests for {@code WrappedShardedSqlQueryClause}.
+ *
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2022-10
+ * @since 0.1
+ * @see WrappedShardedSqlQueryClause
+ */
+@Tag("ut")
+class WrappedShardedSqlQueryClauseTest
+extends WrappedQueryClauseTest {
+
+    @Override
+    protected @NotNull WrappedShardedSqlQueryClause<?> getClause() {
+        @SuppressWarnings("unchecked")
+        final WrappedShardedSqlQueryClause<?> result = new WrappedShardedSqlQueryClause<>(
+                transformer,
+                mock(ShardedSqlQuery.class));
+        return result;
+    }
+
+    /**
+     * Unit test for {@link WrappedShardedSqlQueryClause#getDelegate()}.
+     */
+    @Test
+    void testGetDelegate() {
+        final ShardedSqlQuery<?> delegate = mock(ShardedSqlQuery.class);
+        final WrappedShardedSqlQueryClause<?> result = new WrappedShardedSqlQueryClause<>(
+                transformer,
+                delegate);
+        assertSame(delegate, result.getDelegate());
+        assertThrows(NullPointerException.class, () -> {
+            new WrappedShardedSqlQueryClause<>(transformer, null);
+        });
+    }
+
+    /**
+     * Unit test for {@link WrappedShardedSqlQueryClause#getMetadata()}.
+     */
+    @Test
+    void testGetMetadata() {
+        final WrappedShardedSqlQueryClause<?> clause = getClause();
+        final QueryMetadata metadata = mock(QueryMetadata.class);
+        given(clause.getDelegate().getMetadata()).willReturn(metadata);
+        assertSame(metadata, clause.getMetadata());
+    }
+
+    /**
+     * Unit test for {@link WrappedShardedSqlQueryClause#copy()}.
+     */
+    @Test
+    @Override
+    void testCopy() {
+        final WrappedShardedSqlQueryClause<?> clause = getClause();
+        final ShardedSqlQuery<?> delegate = clause.getDelegate();
+        final ShardedSqlQuery<?> newDelegate = mock(ShardedSqlQuery.class);
+        final QueryResultCache.Scope scope = mock(QueryResultCache.Scope.class);
+        clause.setResultCacheScope(scope);
+        willReturn(newDelegate).given(delegate).clone();
+        final WrappedShardedSqlQueryClause<?> result = clause.copy();
+        assertNotSame(clause, result);
+        assertSame(newDelegate, result.getDelegate());
+        assertSame(transformer, result.getTransformer());
+        assertSame(scope, result.getResultCacheScope());
+        then(delegate).should().clone();
+        then(delegate).shouldHaveNoMoreInteractions();
+        then(newDelegate).shouldHaveNoInteractions();
+    }
+
+    /**
+     * Unit test for {@link WrappedShardedSqlQueryClause#select(Expression)}.
+     */
+    @Test
+    void testSelectProjection() {
+        final WrappedShardedSqlQueryClause<?> clause = spy(getClause());
+        final ShardedSqlQuery<?> delegate = clause.getDelegate();
+        final ShardedSqlQuery<?> newDelegate = mock(ShardedSqlQuery.class);
+        final Expression<?> expr = mock(Expression.class);
+        final Expression<?> eexpr = mock(Expression.class);
+        final Expression<?> texpr = mock(Expression.class);
+        willReturn(eexpr).given(clause).extractPreFetched(expr);
+        willReturn(texpr).given(transformer).translateProjection(eexpr);
+        willReturn(newDelegate).given(delegate).select(texpr);
+        final WrappedShardedSqlQueryClause<?> result = clause.select(expr);
+        assertNotSame(clause, result);
+        assertSame(newDelegate, result.getDelegate());
+        then(delegate).should().select(texpr);
+        then(delegate).shouldHaveNoMoreInteractions();
+        then(newDelegate).shouldHaveNoInteractions();
+    }
+
+    /**
+     * Unit test for {@link WrappedShardedSqlQueryClause#select(Expression...)}.
+     */
+    @Test
+    void testSelectTuple() {
+        final WrappedShardedSqlQueryClause<?> clause = spy(getClause());
+        final ShardedSqlQuery<?> delegate = clause.getDelegate();
+        @SuppressWarnings("unchecked")
+        final ShardedSqlQuery<Tuple> newDelegate = mock(ShardedSqlQuery.class);
+        final int count = RandomUtils.nextInt(2, 10);
+        final Expression<?>[] exprs = new Expression<?>[count];
+        final Expression<?>[] eexprs = new Expression<?>[count];
+        final Expression<?>[] texprs = new Expression<?>[count];
+        for (int i = 0; i < count; i++) {
+            exprs[i] = mock(Expression.class);
+            eexprs[i] = mock(Expression.class);
+            texprs[i] = mock(Expression.class);
+        }
+        willReturn(eexprs).given(clause).extractPreFetched(exprs);
+        given(transformer.translateProjections(eexprs)).willReturn(texprs);
+        willReturn(newDelegate).given(delegate).select(texprs);
+        final WrappedShardedSqlQueryClause<Tuple> result = clause.select(exprs);
+        assertNotSame(clause, result);
+        assertSame(newDelegate, result.getDelegate());
+        then(delegate).should().select(texprs);
+        then(delegate).shouldHaveNoMoreInteractions();
+        then(newDelegate).shouldHaveNoInteractions();
+    }
+
+    /**
+     * Unit test for {@link WrappedShardedSqlQueryClause#groupBy(Expression...)}.
+     */
+    @Test
+    void testGroupBy() {
+        final WrappedShardedSqlQueryClause<?> clause = spy(getClause());
+        final ShardedSqlQuery<?> delegate = clause.getDelegate();
+        final Expression<?>[] exprs = new Expression<?>[] { mock(Expression.class) };
+        final Expression<?>[] eexprs = new Expression<?>[] { mock(Expression.class) };
+        final Expression<?>[] texprs = new Expression<?>[] { mock(Expression.class) };
+        willReturn(eexprs).given(clause).extractPreFetched(exprs);
+        given(transformer.translateGroupByExpressions(eexprs)).willReturn(texprs);
+        assertSame(clause, clause.groupBy(exprs));
+        then(delegate).should().groupBy(texprs);
+        then(delegate).shouldHaveNoMoreInteractions();
+    }
+
+    /**
+     * Unit test for {@link WrappedShardedSqlQueryClause#having(Predicate...)}.
+     */
+    @Test
+    void testHaving() {
+        final WrappedShardedSqlQueryClause<?> clause = spy(getClause());
+        final ShardedSqlQuery<?> delegate = clause.getDelegate();
+        final Predicate[] exprs = new Predicate[] { mock(Predicate.class) };
+        final Predicate[] eexprs = new Predicate[] { mock(Predicate.class) };
+        final Predicate[] texprs = new Predicate[] { mock(Predicate.class) };
+        willReturn(eexprs).given(clause).extractPreFetched(exprs);
+        given(transformer.translatePredicates(eexprs)).willReturn(texprs);
+        assertSame(clause, clause.having(exprs));
+        then(delegate).should().having(texprs);
+        then(delegate).shouldHaveNoMoreInteractions();
+    }
+
+    /**
+     * Unit test for {@link WrappedShardedSqlQueryClause#asSubQuery()}.
+     */
+    @Test
+    void testAsSubQuery() {
+        final WrappedShardedSqlQueryClause<?> clause = getClause();
+        final ProjectableSQLQuery<?, ?> template = mock(ProjectableSQLQuery.class);
+        willReturn(template).given(clause.getDelegate()).getTemplate();
+        assertSame(template, clause.asSubQuery());
+        then(template).shouldHaveNoInteractions();
+    }
+
+    /**
+     * Unit test for {@link WrappedShardedSqlQueryClause#applyExecutionBounds()}.
+     */
+    @Test
+    void testApplyExecutionBounds() {
+        final WrappedShardedSqlQueryClause<?> clause = getClause();
+        final ShardedSqlQuery<?> delegate = clause.getDelegate();
+        clause.applyExecutionBounds();
+        clause.applyExecutionBounds();
+        final ArgumentCaptor<SQLListener> captor = ArgumentCaptor.forClass(SQLListener.class);
+        then(delegate).should().addListener(captor.capture());
+        then(delegate).shouldHaveNoMoreInteractions();
+        assertTrue(captor.getValue() instanceof SqlExecutionBoundsListener);
+        assertSame(clause.getExecutionBounds(),
+                ((SqlExecutionBoundsListener) captor.getValue()).getBounds());
+    }
+
+    /**
+     * Unit test for {@link WrappedShardedSqlQueryClause#applyExecutionBounds()}
+     * on copies of clauses with execution bounds applied.
+     */
+    @Test
+    void testApplyExecutionBoundsCopy() {
+        final WrappedShardedSqlQueryClause<?> clause = getClause();
+        final ShardedSqlQuery<?> delegate = clause.getDelegate();
+        final ShardedSqlQuery<?> beforeDelegate = mock(ShardedSqlQuery.class);
+        final ShardedSqlQuery<?> afterDelegate = mock(ShardedSqlQuery.class);
+        willReturn(beforeDelegate, afterDelegate).given(delegate).clone();
+        final WrappedShardedSqlQueryClause<?> before = clause.copy();
+        clause.applyExecutionBounds();
+        final WrappedShardedSqlQueryClause<?> after = clause.copy();
+        before.applyExecutionBounds();
+        after.applyExecutionBounds();
+        then(delegate).should().addListener(any(SqlExecutionBoundsListener.class));
+        then(beforeDelegate).should().addListener(any(SqlExecutionBoundsListener.class));
+        then(afterDelegate).shouldHaveNoInteractions();
+    }
+
+    /**
+     * Unit test for {@link WrappedShardedSqlQueryClause#fetch()}.
+     */
+    @Test
+    @Override
+    void testFetchCancelled() {
+        final WrappedShardedSqlQueryClause<?> clause = spy(getClause());
+        final ShardedSqlQuery<?> delegate = clause.getDelegate();
+        final CancelHandle handle = new CancelHandle();
+        clause.cancelHandle(handle);
+        final List<?> expected = mock(List.class);
+        willReturn(expected).given(delegate).fetch();
+        assertSame(expected, clause.fetch());
+        then(clause).should().applyExecutionBounds();
+        handle.cancel();
+        assertThrows(QueryCancelledException.class, () -> {
+            clause.fetch();
+        });
+        assertThrows(QueryCancelledException.class, () -> {
+            clause.iterate();
+        });
+        then(delegate).should().addListener(any(SqlExecutionBoundsListener.class));
+        then(delegate).should().fetch();
+        then(delegate).shouldHaveNoMoreInteractions();
+    }
+}
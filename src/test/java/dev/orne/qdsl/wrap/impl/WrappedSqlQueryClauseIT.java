@@ -0,0 +1,255 @@
+package dev.orne.qdsl.wrap.impl;
+
+/*-
+ * #%L
+ * Orne Querydsl Utils
+ * %%
+ * Copyright (C) 2022 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.validation.constraints.NotNull;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.sqlite.SQLiteDataSource;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.PathMetadataFactory;
+import com.querydsl.core.types.Projections;
+import com.querydsl.core.types.dsl.EntityPathBase;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.core.types.dsl.Param;
+import com.querydsl.core.types.dsl.StringPath;
+import com.querydsl.sql.ColumnMetadata;
+import com.querydsl.sql.Configuration;
+import com.querydsl.sql.RelationalPathBase;
+import com.querydsl.sql.SQLQueryFactory;
+import com.querydsl.sql.SQLiteTemplates;
+
+import dev.orne.qdsl.wrap.ExtendedQueryClause;
+import dev.orne.qdsl.wrap.ReferenceProjection;
+import dev.orne.qdsl.wrap.impl.transform.ExpressionTransformers;
+import dev.orne.qdsl.wrap.impl.transform.ValueTransformer;
+
+/**
+ * Integration tests for {@code WrappedSqlQueryClause} over the SQLite test
+ * database, with a query factory backed by a data source.
+ *
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2022-10
+ * @since 0.1
+ * @see WrappedSqlQueryClause
+ */
+@Tag("it")
+class WrappedSqlQueryClauseIT {
+
+    private static final QItem ITEM = QItem.base;
+
+    private Path database;
+    private TestProvider provider;
+
+    @BeforeEach
+    void openDatabase()
+    throws IOException {
+        this.database = Files.createTempFile("qdsl-query", ".db");
+        Files.copy(
+                Paths.get("src", "test", "resources", "test.db"),
+                this.database,
+                StandardCopyOption.REPLACE_EXISTING);
+        final SQLiteDataSource dataSource = new SQLiteDataSource();
+        dataSource.setUrl("jdbc:sqlite:" + this.database);
+        this.provider = new TestProvider(new SQLQueryFactory(
+                new Configuration(new SQLiteTemplates()),
+                dataSource));
+    }
+
+    @AfterEach
+    void closeDatabase()
+    throws IOException {
+        Files.deleteIfExists(this.database);
+    }
+
+    /**
+     * Integration test for {@link WrappedSqlQueryClause#copy()}.
+     */
+    @Test
+    void testCopy() {
+        final WrappedSqlQueryClause<Long> query = createQuery();
+        query.where(ITEM.category.eq(2L));
+        assertEquals(Arrays.asList(3L, 4L), query.copy().fetch());
+        assertEquals(Arrays.asList(3L, 4L), query.copy().fetch());
+        query.copy();
+        assertEquals(Arrays.asList(3L, 4L), query.fetch());
+    }
+
+    /**
+     * Integration test for {@link WrappedSqlQueryClause#exists()}.
+     */
+    @Test
+    void testExists() {
+        assertTrue(createQuery().where(ITEM.category.eq(2L)).exists());
+        assertTrue(createQuery().where(ITEM.code.eq("4004")).exists());
+        assertFalse(createQuery().where(ITEM.category.eq(5L)).exists());
+        assertFalse(createQuery().where(ITEM.category.eq(3L)).offset(1).exists());
+        final WrappedSqlQueryClause<Long> query = createQuery();
+        query.where(ITEM.category.eq(2L)).offset(1);
+        assertTrue(query.exists());
+        assertEquals(Arrays.asList(4L), query.fetch());
+    }
+
+    /**
+     * Integration test for {@link PreparedWrappedQuery} over data source
+     * backed queries.
+     */
+    @Test
+    void testPreparedQuery() {
+        final Param<Long> category = new Param<>(Long.class, "category");
+        final WrappedSqlQueryClause<Long> query = createQuery();
+        query.where(ITEM.category.eq(category));
+        final PreparedWrappedQuery<Long> prepared = PreparedWrappedQuery.of(query);
+        assertEquals(Arrays.asList(3L, 4L), prepared.bind(category, 2L).fetch());
+        assertEquals(Arrays.asList(6L, 7L, 8L, 9L), prepared.bind(category, 4L).fetch());
+        assertEquals(1, prepared.bind(category, 3L).fetchCount());
+    }
+
+    /**
+     * Integration test for {@link WrappedSqlQueryClause#fetchByReferences(Collection, Executor)}
+     * with value mapped references.
+     */
+    @Test
+    void testFetchByReferences() {
+        final Map<Integer, String> expected = new LinkedHashMap<>();
+        expected.put(2001, "Item B1");
+        expected.put(4003, "Item D3");
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final Map<Integer, String> result = this.provider.query(ITEM)
+                    .select(ReferenceProjection.of(ITEM.name, ITEM.number))
+                    .fetchByReferences(Arrays.asList(2001, 4003, 9999, 2001), executor);
+            assertEquals(expected, result);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Integration test for {@link WrappedSqlQueryClause#fetchByReferences(Collection)}
+     * with value mapped composed references.
+     */
+    @Test
+    void testFetchByReferencesComposed() {
+        final Tuple reference = Projections.tuple(ITEM.category, ITEM.number)
+                .newInstance(4L, 4002);
+        final Map<Tuple, String> result = this.provider.query(ITEM)
+                .select(ReferenceProjection.of(
+                        ITEM.name,
+                        Projections.tuple(ITEM.category, ITEM.number)))
+                .fetchByReferences(Arrays.asList(
+                        reference,
+                        Projections.tuple(ITEM.category, ITEM.number).newInstance(1L, 4002)));
+        assertEquals(1, result.size());
+        final Map.Entry<Tuple, String> entry = result.entrySet().iterator().next();
+        assertEquals(4L, entry.getKey().get(ITEM.category));
+        assertEquals(4002, entry.getKey().get(ITEM.number));
+        assertEquals("Item D2", entry.getValue());
+    }
+
+    private WrappedSqlQueryClause<Long> createQuery() {
+        final ExtendedQueryClause<Long, ?> query = this.provider.query(ITEM)
+                .select(ITEM.id)
+                .orderBy(ITEM.id.asc());
+        return assertInstanceOf(WrappedSqlQueryClause.class, query);
+    }
+
+    private static class TestProvider
+    extends AbstractWrappedSqlClauseProvider {
+        private final SQLQueryFactory queryFactory;
+        public TestProvider(
+                final @NotNull SQLQueryFactory queryFactory) {
+            super(QItems.base, QItem.base);
+            this.queryFactory = queryFactory;
+        }
+        @Override
+        protected @NotNull SQLQueryFactory getQueryFactory() {
+            return this.queryFactory;
+        }
+        @Override
+        protected ExpressionTransformer getTransformer(
+                final @NotNull EntityPath<?> entity) {
+            return ExpressionTransformers.with(
+                    ExpressionTransformers.renamePath(QItem.base.id, QItems.base.id),
+                    ExpressionTransformers.renamePath(QItem.base.code, QItems.base.code),
+                    ExpressionTransformers.renamePath(QItem.base.name, QItems.base.name),
+                    ExpressionTransformers.renamePath(QItem.base.category, QItems.base.category),
+                    ExpressionTransformers.mapPath(
+                            QItem.base.number,
+                            QItems.base.code,
+                            ValueTransformer.NUMBER_TO_STR::apply,
+                            ValueTransformer.STR_TO_INT));
+        }
+    }
+
+    public static class QItem
+    extends EntityPathBase<Object> {
+        private static final long serialVersionUID = 1L;
+        public static final QItem base = new QItem("items");
+        public final NumberPath<Long> id = createNumber("id", Long.class);
+        public final StringPath code = createString("code");
+        public final StringPath name = createString("name");
+        public final NumberPath<Long> category = createNumber("category", Long.class);
+        public final NumberPath<Integer> number = createNumber("number", Integer.class);
+        public QItem(String variable) {
+            super(Object.class, PathMetadataFactory.forVariable(variable));
+        }
+    }
+
+    public static class QItems
+    extends RelationalPathBase<Tuple> {
+        private static final long serialVersionUID = 1L;
+        public static final QItems base = new QItems("items");
+        public final NumberPath<Long> id = createNumber("id", Long.class);
+        public final StringPath code = createString("code");
+        public final StringPath name = createString("name");
+        public final NumberPath<Long> category = createNumber("category", Long.class);
+        public QItems(String variable) {
+            super(Tuple.class, PathMetadataFactory.forVariable(variable), null, "ITEMS");
+            addMetadata(id, ColumnMetadata.named("ID").withIndex(1).ofType(Types.INTEGER).notNull());
+            addMetadata(code, ColumnMetadata.named("CODE").withIndex(2).ofType(Types.VARCHAR).withSize(4).notNull());
+            addMetadata(name, ColumnMetadata.named("NAME").withIndex(3).ofType(Types.VARCHAR).notNull());
+            addMetadata(category, ColumnMetadata.named("CATEGORY").withIndex(4).ofType(Types.INTEGER).notNull());
+        }
+    }
+}
@@ -25,16 +25,23 @@ package dev.orne.qdsl.wrap.impl;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.BDDMockito.*;
 
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.function.Supplier;
+
 import javax.validation.constraints.NotNull;
 
 import org.apache.commons.lang3.RandomUtils;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 
 import com.querydsl.core.Tuple;
 import com.querydsl.core.types.Expression;
 import com.querydsl.core.types.Predicate;
+import com.querydsl.sql.AbstractSQLQuery;
 import com.querydsl.sql.ProjectableSQLQuery;
+import com.querydsl.sql.SQLListener;
 
 /**
  * Unit tests for {@code WrappedSqlQueryClause}.
@@ -69,6 +76,124 @@ extends WrappedQueryClauseTest {
         assertSame(delegate, result.getDelegate());
     }
 
+    /**
+     * Unit test for {@link WrappedSqlQueryClause#copy()}.
+     */
+    @Test
+    @Override
+    void testCopy() {
+        final WrappedSqlQueryClause<?> clause = getClause();
+        final ProjectableSQLQuery<?, ?> delegate = clause.getDelegate();
+        final ProjectableSQLQuery<?, ?> newDelegate = mock(ProjectableSQLQuery.class);
+        final QueryResultCache.Scope scope = mock(QueryResultCache.Scope.class);
+        clause.setResultCacheScope(scope);
+        willReturn(newDelegate).given(delegate).clone();
+        final WrappedSqlQueryClause<?> result = clause.copy();
+        assertNotSame(clause, result);
+        assertSame(newDelegate, result.getDelegate());
+        assertSame(transformer, result.getTransformer());
+        assertSame(scope, result.getResultCacheScope());
+        then(delegate).should().clone();
+        then(delegate).shouldHaveNoMoreInteractions();
+        then(newDelegate).shouldHaveNoInteractions();
+    }
+
+    /**
+     * Unit test for {@link WrappedSqlQueryClause#copy(Connection)}.
+     */
+    @Test
+    void testCopyConnection() {
+        final Connection connection = mock(Connection.class);
+        final AbstractSQLQuery<?, ?> delegate = mock(AbstractSQLQuery.class);
+        final AbstractSQLQuery<?, ?> newDelegate = mock(AbstractSQLQuery.class);
+        final WrappedSqlQueryClause<?> clause = new WrappedSqlQueryClause<>(
+                transformer,
+                delegate);
+        final QueryResultCache.Scope scope = mock(QueryResultCache.Scope.class);
+        clause.setResultCacheScope(scope);
+        willReturn(newDelegate).given(delegate).clone(connection);
+        final WrappedSqlQueryClause<?> result = clause.copy(connection);
+        assertNotSame(clause, result);
+        assertSame(newDelegate, result.getDelegate());
+        assertSame(transformer, result.getTransformer());
+        assertSame(scope, result.getResultCacheScope());
+        then(delegate).should().clone(connection);
+        then(delegate).shouldHaveNoMoreInteractions();
+        assertThrows(NullPointerException.class, () -> {
+            clause.copy(null);
+        });
+        assertThrows(UnsupportedOperationException.class, () -> {
+            getClause().copy(connection);
+        });
+        then(connection).shouldHaveNoInteractions();
+    }
+
+    /**
+     * Unit test for {@link WrappedSqlQueryClause#copy()} with a connection
+     * source.
+     */
+    @Test
+    void testCopyConnectionSource()
+    throws SQLException {
+        final Connection connection = mock(Connection.class);
+        @SuppressWarnings("unchecked")
+        final Supplier<Connection> source = mock(Supplier.class);
+        given(source.get()).willReturn(connection);
+        final AbstractSQLQuery<?, ?> delegate = mock(AbstractSQLQuery.class);
+        final AbstractSQLQuery<?, ?> newDelegate = mock(AbstractSQLQuery.class);
+        final WrappedSqlQueryClause<?> clause = new WrappedSqlQueryClause<>(
+                transformer,
+                delegate);
+        assertNull(clause.getConnectionSource());
+        clause.setConnectionSource(source);
+        assertSame(source, clause.getConnectionSource());
+        final ArgumentCaptor<Connection> captor = ArgumentCaptor.forClass(Connection.class);
+        willReturn(newDelegate).given(delegate).clone(captor.capture());
+        final WrappedSqlQueryClause<?> result = clause.copy();
+        assertSame(newDelegate, result.getDelegate());
+        assertSame(source, result.getConnectionSource());
+        then(delegate).should(never()).clone();
+        then(source).shouldHaveNoInteractions();
+        final Connection lazy = captor.getValue();
+        assertNotSame(connection, lazy);
+        assertFalse(lazy.isClosed());
+        lazy.close();
+        then(source).shouldHaveNoInteractions();
+        lazy.commit();
+        lazy.close();
+        then(source).should(times(1)).get();
+        then(connection).should().commit();
+        then(connection).should().close();
+        final WrappedSqlQueryClause<?> other = getClause();
+        other.setConnectionSource(source);
+        willReturn(mock(ProjectableSQLQuery.class)).given(other.getDelegate()).clone();
+        other.copy();
+        then(other.getDelegate()).should().clone();
+    }
+
+    /**
+     * Unit test for {@link WrappedSqlQueryClause#lazyConnection(Supplier)}.
+     */
+    @Test
+    void testLazyConnection()
+    throws SQLException {
+        final SQLException expected = new SQLException();
+        final Connection connection = mock(Connection.class);
+        willThrow(expected).given(connection).commit();
+        final Connection lazy = WrappedSqlQueryClause.lazyConnection(() -> connection);
+        assertEquals(lazy, lazy);
+        assertNotEquals(lazy, connection);
+        assertEquals(System.identityHashCode(lazy), lazy.hashCode());
+        assertNotNull(lazy.toString());
+        then(connection).shouldHaveNoInteractions();
+        assertSame(expected, assertThrows(SQLException.class, lazy::commit));
+        final Connection failing = WrappedSqlQueryClause.lazyConnection(() -> null);
+        assertThrows(NullPointerException.class, failing::commit);
+        assertThrows(NullPointerException.class, () -> {
+            WrappedSqlQueryClause.lazyConnection(null);
+        });
+    }
+
     /**
      * Unit test for {@link WrappedSqlQueryClause#select(Expression...)}.
      */
@@ -186,4 +311,50 @@ extends WrappedQueryClauseTest {
         assertSame(delegate, clause.asSubQuery());
         then(delegate).shouldHaveNoInteractions();
     }
+
+    /**
+     * Unit test for {@link WrappedSqlQueryClause#applyExecutionBounds()}.
+     */
+    @Test
+    void testApplyExecutionBounds() {
+        final AbstractSQLQuery<?, ?> delegate = mock(AbstractSQLQuery.class);
+        final WrappedSqlQueryClause<?> clause = new WrappedSqlQueryClause<>(
+                transformer,
+                delegate);
+        clause.applyExecutionBounds();
+        clause.applyExecutionBounds();
+        final ArgumentCaptor<SQLListener> captor = ArgumentCaptor.forClass(SQLListener.class);
+        then(delegate).should().addListener(captor.capture());
+        then(delegate).shouldHaveNoMoreInteractions();
+        assertTrue(captor.getValue() instanceof SqlExecutionBoundsListener);
+        assertSame(clause.getExecutionBounds(),
+                ((SqlExecutionBoundsListener) captor.getValue()).getBounds());
+        final WrappedSqlQueryClause<?> other = getClause();
+        other.applyExecutionBounds();
+        then(other.getDelegate()).shouldHaveNoInteractions();
+    }
+
+    /**
+     * Unit test for {@link WrappedSqlQueryClause#applyExecutionBounds()}
+     * on copies of clauses with execution bounds applied.
+     */
+    @Test
+    void testApplyExecutionBoundsCopy() {
+        final Connection connection = mock(Connection.class);
+        final AbstractSQLQuery<?, ?> delegate = mock(AbstractSQLQuery.class);
+        final AbstractSQLQuery<?, ?> beforeDelegate = mock(AbstractSQLQuery.class);
+        final AbstractSQLQuery<?, ?> afterDelegate = mock(AbstractSQLQuery.class);
+        final WrappedSqlQueryClause<?> clause = new WrappedSqlQueryClause<>(
+                transformer,
+                delegate);
+        willReturn(beforeDelegate, afterDelegate).given(delegate).clone(connection);
+        final WrappedSqlQueryClause<?> before = clause.copy(connection);
+        clause.applyExecutionBounds();
+        final WrappedSqlQueryClause<?> after = clause.copy(connection);
+        before.applyExecutionBounds();
+        after.applyExecutionBounds();
+        then(delegate).should().addListener(any(SqlExecutionBoundsListener.class));
+        then(beforeDelegate).should().addListener(any(SqlExecutionBoundsListener.class));
+        then(afterDelegate).shouldHaveNoInteractions();
+    }
 }
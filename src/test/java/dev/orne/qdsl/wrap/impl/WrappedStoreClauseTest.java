@@ -25,6 +25,12 @@ package dev.orne.qdsl.wrap.impl;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.BDDMockito.*;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToLongFunction;
+
 import javax.validation.constraints.NotNull;
 
 import org.apache.commons.lang3.RandomUtils;
@@ -38,6 +44,9 @@ import com.querydsl.core.types.Expression;
 import com.querydsl.core.types.Path;
 
 import dev.orne.qdsl.TestTypes;
+import dev.orne.qdsl.wrap.BatchExecutionException;
+import dev.orne.qdsl.wrap.CancelHandle;
+import dev.orne.qdsl.wrap.QueryCancelledException;
 import dev.orne.qdsl.wrap.StoredValue;
 import dev.orne.qdsl.wrap.StoredValues;
 
@@ -228,6 +237,29 @@ extends WrappedClauseTest {
         then(delegate).shouldHaveNoMoreInteractions();
     }
 
+    /**
+     * Unit test for {@link WrappedStoreClause#execute()}.
+     */
+    @Test
+    void testExecuteInvalidatesCachedResults() {
+        final StoredValues tvalues = mock(StoredValues.class);
+        final WrappedStoreClause<?> clause = spy(getClause());
+        final QueryResultCache.Scope scope = mock(QueryResultCache.Scope.class);
+        clause.setResultCacheScope(scope);
+        final StoredValues rvalues = clause.getAssignments();
+        clause.set(TestTypes.randomStoredValues());
+        willReturn(rvalues).given(clause).extractPreFetched(rvalues);
+        final StoreClause<?> delegate = clause.getDelegate();
+        final long expected = RandomUtils.nextLong();
+        given(transformer.translateStoredValues(any())).willReturn(tvalues);
+        given(delegate.execute()).willReturn(expected);
+        final InOrder order = inOrder(delegate, scope);
+        final long result = clause.execute();
+        assertEquals(expected, result);
+        then(delegate).should(order).execute();
+        then(scope).should(order).invalidate();
+    }
+
     /**
      * Unit test for {@link WrappedInsertClause#execute()}.
      */
@@ -241,6 +273,125 @@ extends WrappedClauseTest {
         then(transformer).shouldHaveNoInteractions();
     }
 
+    /**
+     * Unit test for {@link WrappedStoreClause#execute()}.
+     */
+    @Test
+    void testExecuteUnsatisfiable() {
+        final WrappedStoreClause<?> clause = getClause();
+        clause.set(TestTypes.randomStoredValues());
+        final QueryResultCache.Scope scope = mock(QueryResultCache.Scope.class);
+        clause.setResultCacheScope(scope);
+        clause.setUnsatisfiable(true);
+        final StoreClause<?> delegate = clause.getDelegate();
+        final long result = clause.execute();
+        assertEquals(0, result);
+        then(delegate).shouldHaveNoInteractions();
+        then(transformer).shouldHaveNoInteractions();
+        then(scope).shouldHaveNoInteractions();
+    }
+
+    /**
+     * Unit test for {@link WrappedStoreClause#execute()}.
+     */
+    @Test
+    void testExecuteCancelled() {
+        final WrappedStoreClause<?> clause = getClause();
+        clause.set(TestTypes.randomStoredValues());
+        final QueryResultCache.Scope scope = mock(QueryResultCache.Scope.class);
+        clause.setResultCacheScope(scope);
+        final CancelHandle handle = new CancelHandle();
+        clause.cancelHandle(handle);
+        handle.cancel();
+        final StoreClause<?> delegate = clause.getDelegate();
+        assertThrows(QueryCancelledException.class, () -> {
+            clause.execute();
+        });
+        then(delegate).shouldHaveNoInteractions();
+        then(transformer).shouldHaveNoInteractions();
+        then(scope).shouldHaveNoInteractions();
+    }
+
+    /**
+     * Unit test for {@link WrappedStoreClause#execute()}.
+     */
+    @Test
+    void testExecuteStoreShapeScope() {
+        final StoredValues tvalues = mock(StoredValues.class);
+        final WrappedStoreClause<?> clause = getClause();
+        final StoreShapeCache.Scope scope = mock(StoreShapeCache.Scope.class);
+        assertNull(clause.getStoreShapeScope());
+        clause.setStoreShapeScope(scope);
+        assertSame(scope, clause.getStoreShapeScope());
+        final StoredValues values = TestTypes.randomStoredValues();
+        clause.set(values);
+        final StoreClause<?> delegate = clause.getDelegate();
+        given(scope.translate(eq(values), any())).willReturn(tvalues);
+        given(delegate.execute()).willReturn(1L);
+        assertEquals(1L, clause.execute());
+        then(scope).should().translate(eq(values), any());
+        then(tvalues).should().apply(delegate);
+        then(transformer).shouldHaveNoInteractions();
+    }
+
+    /**
+     * Unit test for {@link WrappedStoreClause#executeChunks(List, int, ToLongFunction)}.
+     */
+    @Test
+    void testExecuteChunks() {
+        final WrappedStoreClause<?> clause = getClause();
+        final QueryResultCache.Scope scope = mock(QueryResultCache.Scope.class);
+        clause.setResultCacheScope(scope);
+        final List<StoredValues> rows = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            rows.add(TestTypes.randomStoredValues());
+        }
+        final RuntimeException failure = new RuntimeException();
+        final List<List<StoredValues>> chunks = new ArrayList<>();
+        final BatchExecutionException result = assertThrows(BatchExecutionException.class, () -> {
+            clause.executeChunks(rows, 2, chunk -> {
+                chunks.add(new ArrayList<>(chunk));
+                if (chunks.size() == 2) {
+                    throw failure;
+                }
+                return chunk.size();
+            });
+        });
+        assertEquals(Arrays.asList(rows.subList(0, 2), rows.subList(2, 4), rows.subList(4, 5)), chunks);
+        assertEquals(3, result.getAffectedRows());
+        assertSame(failure, result.getCause());
+        assertEquals(1, result.getFailures().size());
+        assertEquals(2, result.getFailures().get(0).getOffset());
+        assertEquals(2, result.getFailures().get(0).getSize());
+        then(scope).should().invalidate();
+        assertEquals(5, clause.executeChunks(rows, 10, List::size));
+    }
+
+    /**
+     * Unit test for {@link WrappedStoreClause#executeChunks(List, int, ToLongFunction)}.
+     */
+    @Test
+    void testExecuteChunksCancelled() {
+        final WrappedStoreClause<?> clause = getClause();
+        final QueryResultCache.Scope scope = mock(QueryResultCache.Scope.class);
+        clause.setResultCacheScope(scope);
+        final CancelHandle handle = new CancelHandle();
+        clause.cancelHandle(handle);
+        final List<StoredValues> rows = Arrays.asList(
+                TestTypes.randomStoredValues(),
+                TestTypes.randomStoredValues());
+        final AtomicInteger calls = new AtomicInteger();
+        assertThrows(QueryCancelledException.class, () -> {
+            clause.executeChunks(rows, 1, chunk -> {
+                calls.incrementAndGet();
+                handle.cancel();
+                return 1L;
+            });
+        });
+        assertEquals(1, calls.get());
+        then(scope).should().invalidate();
+    }
+
     private class TestWrappedClause
     extends WrappedStoreClause<TestWrappedClause> {
         private final @NotNull StoreClause<?> delegate;
@@ -26,7 +26,10 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.BDDMockito.*;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.Supplier;
 
 import javax.validation.constraints.NotNull;
 
@@ -34,6 +37,7 @@ import org.apache.commons.lang3.RandomUtils;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
+import org.mockito.invocation.Invocation;
 
 import com.querydsl.core.dml.DeleteClause;
 import com.querydsl.core.dml.UpdateClause;
@@ -41,8 +45,14 @@ import com.querydsl.core.types.Expression;
 import com.querydsl.core.types.Path;
 import com.querydsl.core.types.Predicate;
 import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.core.types.dsl.StringPath;
+import com.querydsl.sql.ProjectableSQLQuery;
+import com.querydsl.sql.dml.AbstractSQLUpdateClause;
 
 import dev.orne.qdsl.TestTypes;
+import dev.orne.qdsl.wrap.ChunkedExecution;
+import dev.orne.qdsl.wrap.StoredValues;
 
 /**
  * Unit tests for {@code WrappedUpdateClause}.
@@ -56,6 +66,9 @@ import dev.orne.qdsl.TestTypes;
 class WrappedUpdateClauseTest
 extends WrappedStoreClauseTest {
 
+    private static final NumberPath<Integer> ID = Expressions.numberPath(Integer.class, "id");
+    private static final StringPath NAME = Expressions.stringPath("name");
+
     protected @Mock UpdateClause<?> delegate;
 
     /**
@@ -227,4 +240,202 @@ extends WrappedStoreClauseTest {
         then(transformer).should().translatePredicates(exprs);
         then(delegate).should().where(texprs);
     }
+
+    /**
+     * Unit test for {@link WrappedUpdateClause#where(Predicate...)}.
+     */
+    @Test
+    void testWhereUnsatisfiable() {
+        final Predicate expr = mock(Predicate.class);
+        willReturn(expr).given(expr).accept(PreFetchedSubQueryExtractor.INSTANCE, null);
+        final Predicate truePredicate = Expressions.TRUE;
+        final Predicate falsePredicate = Expressions.FALSE;
+        final Predicate[] texprs = new Predicate[] { truePredicate, falsePredicate };
+        given(transformer.translatePredicates(expr)).willReturn(texprs);
+        final WrappedUpdateClause clause = getClause();
+        assertFalse(clause.isUnsatisfiable());
+        assertSame(clause, clause.where(expr));
+        assertTrue(clause.isUnsatisfiable());
+        then(delegate).should().where(falsePredicate);
+    }
+
+    /**
+     * Unit test for {@link WrappedUpdateClause#addBatch()}.
+     */
+    @Test
+    void testAddBatchNotSql() {
+        final WrappedUpdateClause clause = getClause();
+        clause.set(ID, 1);
+        assertThrows(UnsupportedOperationException.class, () -> {
+            clause.addBatch();
+        });
+        then(delegate).shouldHaveNoInteractions();
+    }
+
+    /**
+     * Unit test for {@link WrappedUpdateClause#addBatch()}.
+     */
+    @Test
+    void testAddBatch() {
+        final AbstractSQLUpdateClause<?> sqlDelegate = mock(AbstractSQLUpdateClause.class);
+        final WrappedUpdateClause clause = new WrappedUpdateClause(sqlDelegate, transformer);
+        given(transformer.translateStoredValues(any())).willAnswer(inv -> inv.getArgument(0));
+        given(transformer.translatePredicates(ID.eq(1), Expressions.FALSE))
+                .willReturn(new Predicate[] { ID.eq(1), Expressions.FALSE });
+        given(transformer.translatePredicates(ID.eq(2)))
+                .willReturn(new Predicate[] { ID.eq(2) });
+        assertThrows(IllegalStateException.class, () -> {
+            clause.addBatch();
+        });
+        clause.set(NAME, "a").set(ID, 1).where(ID.eq(1), Expressions.FALSE);
+        assertTrue(clause.isUnsatisfiable());
+        assertSame(clause, clause.addBatch());
+        assertFalse(clause.isUnsatisfiable());
+        assertTrue(clause.getAssignments().isEmpty());
+        assertEquals(1, clause.getBatchSize());
+        assertFalse(clause.isEmpty());
+        final StoredValues row = new StoredValues();
+        row.add(ID, 2);
+        row.add(NAME, "b");
+        clause.set(row).where(ID.eq(2)).addBatch();
+        assertEquals(2, clause.getBatchSize());
+        final List<String> calls = new ArrayList<>();
+        final List<Path<?>> paths = new ArrayList<>();
+        for (final Invocation invocation : mockingDetails(sqlDelegate).getInvocations()) {
+            final String name = invocation.getMethod().getName();
+            if ("set".equals(name)) {
+                paths.add(invocation.getArgument(0));
+            }
+            if ("set".equals(name) || "addBatch".equals(name)) {
+                calls.add(name);
+            }
+        }
+        assertEquals(Arrays.asList("set", "set", "addBatch", "set", "set", "addBatch"), calls);
+        assertEquals(paths.subList(0, 2), paths.subList(2, 4));
+        assertTrue(paths.containsAll(Arrays.asList(ID, NAME)));
+        then(sqlDelegate).should(never()).execute();
+    }
+
+    /**
+     * Unit test for {@link WrappedUpdateClause#execute()}.
+     */
+    @Test
+    void testExecuteBatch() {
+        final AbstractSQLUpdateClause<?> sqlDelegate = mock(AbstractSQLUpdateClause.class);
+        final WrappedUpdateClause clause = new WrappedUpdateClause(sqlDelegate, transformer);
+        final QueryResultCache.Scope scope = mock(QueryResultCache.Scope.class);
+        clause.setResultCacheScope(scope);
+        given(transformer.translateStoredValues(any())).willAnswer(inv -> inv.getArgument(0));
+        given(sqlDelegate.execute()).willReturn(3L);
+        clause.set(NAME, "a").where(ID.eq(1)).addBatch();
+        clause.set(NAME, "b").where(ID.eq(2)).addBatch();
+        clause.set(NAME, "c").where(ID.eq(3));
+        assertEquals(3, clause.execute());
+        then(sqlDelegate).should(times(3)).addBatch();
+        then(sqlDelegate).should().execute();
+        then(sqlDelegate).should().clear();
+        then(scope).should().invalidate();
+        assertEquals(0, clause.getBatchSize());
+        assertTrue(clause.isEmpty());
+        assertEquals(0, clause.execute());
+        then(sqlDelegate).should().execute();
+    }
+
+    /**
+     * Unit test for {@link WrappedUpdateClause#setChunkStatements(Supplier, Supplier)}.
+     */
+    @Test
+    void testSetChunkStatements() {
+        final WrappedUpdateClause clause = getClause();
+        assertNull(clause.getChunkStatements());
+        assertNull(clause.getChunkQueries());
+        final Supplier<AbstractSQLUpdateClause<?>> statements = () -> null;
+        final Supplier<ProjectableSQLQuery<?, ?>> queries = () -> null;
+        clause.setChunkStatements(statements, queries);
+        assertSame(statements, clause.getChunkStatements());
+        assertSame(queries, clause.getChunkQueries());
+        clause.setChunkStatements(null, null);
+        assertNull(clause.getChunkStatements());
+        assertNull(clause.getChunkQueries());
+    }
+
+    /**
+     * Unit test for {@link WrappedUpdateClause#executeChunked(ChunkedExecution)}.
+     */
+    @Test
+    void testExecuteChunked() {
+        given(transformer.translateStoredValues(any())).willAnswer(inv -> inv.getArgument(0));
+        given(transformer.translatePredicates(ID.goe(2))).willReturn(new Predicate[] { ID.goe(3) });
+        final WrappedUpdateClause clause = getClause();
+        final QueryResultCache.Scope scope = mock(QueryResultCache.Scope.class);
+        clause.setResultCacheScope(scope);
+        final AbstractSQLUpdateClause<?> statement = mock(AbstractSQLUpdateClause.class);
+        given(statement.execute()).willReturn(2L, 1L);
+        clause.setChunkStatements(() -> statement, null);
+        clause.set(NAME, "a").where(ID.goe(2));
+        assertEquals(3, clause.executeChunked(new ChunkedExecution(2)));
+        final List<Path<?>> assigned = new ArrayList<>();
+        for (final Invocation invocation : mockingDetails(statement).getInvocations()) {
+            if ("set".equals(invocation.getMethod().getName())) {
+                assigned.add(invocation.getArgument(0));
+            }
+        }
+        assertEquals(Arrays.asList(NAME, NAME), assigned);
+        then(statement).should(times(2)).where(new Predicate[] { ID.goe(3) });
+        then(statement).should(times(2)).limit(2);
+        then(statement).should(times(2)).execute();
+        then(delegate).should(never()).execute();
+        then(scope).should().invalidate();
+        assertThrows(NullPointerException.class, () -> {
+            clause.executeChunked(null);
+        });
+    }
+
+    /**
+     * Unit test for {@link WrappedUpdateClause#executeChunked(ChunkedExecution)}.
+     */
+    @Test
+    void testExecuteChunkedUnsupported() {
+        final WrappedUpdateClause clause = getClause();
+        clause.set(NAME, "a");
+        assertThrows(UnsupportedOperationException.class, () -> {
+            clause.executeChunked(new ChunkedExecution(2));
+        });
+        then(delegate).should(never()).execute();
+    }
+
+    /**
+     * Unit test for {@link WrappedUpdateClause#executeChunked(ChunkedExecution)}.
+     */
+    @Test
+    void testExecuteChunkedEmpty() {
+        given(transformer.translatePredicates(ID.eq(1))).willReturn(new Predicate[] {
+                ID.in(Collections.emptyList()) });
+        final WrappedUpdateClause clause = getClause();
+        final AbstractSQLUpdateClause<?> statement = mock(AbstractSQLUpdateClause.class);
+        clause.setChunkStatements(() -> statement, null);
+        assertEquals(0, clause.executeChunked(new ChunkedExecution(2)));
+        clause.set(NAME, "a").where(ID.eq(1));
+        assertTrue(clause.isUnsatisfiable());
+        assertEquals(0, clause.executeChunked(new ChunkedExecution(2)));
+        then(statement).shouldHaveNoInteractions();
+    }
+
+    /**
+     * Unit test for {@link WrappedUpdateClause#executeChunked(ChunkedExecution)}.
+     */
+    @Test
+    void testExecuteChunkedBatch() {
+        given(transformer.translateStoredValues(any())).willAnswer(inv -> inv.getArgument(0));
+        final AbstractSQLUpdateClause<?> sqlDelegate = mock(AbstractSQLUpdateClause.class);
+        final WrappedUpdateClause clause = new WrappedUpdateClause(sqlDelegate, transformer);
+        final AbstractSQLUpdateClause<?> statement = mock(AbstractSQLUpdateClause.class);
+        clause.setChunkStatements(() -> statement, null);
+        clause.set(NAME, "a").addBatch();
+        clause.set(NAME, "b");
+        assertThrows(IllegalStateException.class, () -> {
+            clause.executeChunked(new ChunkedExecution(2));
+        });
+        then(statement).shouldHaveNoInteractions();
+    }
 }
@@ -44,6 +44,10 @@ import com.querydsl.core.types.OrderSpecifier;
 import com.querydsl.core.types.Path;
 import com.querydsl.core.types.Predicate;
 import com.querydsl.core.types.Visitor;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.core.types.dsl.PathBuilder;
+import com.querydsl.core.types.dsl.StringPath;
 
 import dev.orne.qdsl.TestTypes;
 import dev.orne.qdsl.wrap.ReferenceProjection;
@@ -498,6 +502,84 @@ class ChainedExpressionTransformerTest {
         });
     }
 
+    /**
+     * Unit test for {@link ChainedExpressionTransformer#translateKeyPath(Path)}.
+     */
+    @Test
+    void testTranslateKeyPath() {
+        final PathBuilder<Object> entity = new PathBuilder<>(Object.class, "entity");
+        final StringPath source = entity.getString("source");
+        final StringPath renamed = entity.getString("renamed");
+        final NumberPath<Long> target = entity.getNumber("target", Long.class);
+        final StringPath other = entity.getString("other");
+        final ValueTransformer<Long, String> inverse = ValueTransformer.NUMBER_TO_STR::apply;
+        final ChainedExpressionTransformer translator = ExpressionTransformers.with(
+                ExpressionTransformers.renamePath(source, renamed),
+                ExpressionTransformers.with(
+                        ExpressionTransformers.mapPath(renamed, target, ValueTransformer.STR_TO_LONG, inverse)));
+        final Expression<String> result = translator.translateKeyPath(source);
+        assertEquals(new ConvertedProjection<>(String.class, target, inverse), result);
+        assertEquals("12", ((ConvertedProjection<?, ?>) result).newInstance(12L));
+        assertEquals(other, translator.translateKeyPath(other));
+        assertEquals(source, new ChainedExpressionTransformer().translateKeyPath(source));
+    }
+
+    /**
+     * Unit test for {@link ChainedExpressionTransformer#translateKeyPath(Path)}.
+     * <p>
+     * Verifies that the sources of converted projections are translated
+     * by the following transformers, preserving the value conversion.
+     */
+    @Test
+    void testTranslateKeyPathConvertedSource() {
+        final PathBuilder<Object> entity = new PathBuilder<>(Object.class, "entity");
+        final StringPath source = entity.getString("source");
+        final NumberPath<Long> target = entity.getNumber("target", Long.class);
+        final NumberPath<Long> renamed = entity.getNumber("renamed", Long.class);
+        final StringPath stored = entity.getString("stored");
+        final ValueTransformer<Long, String> inverse = ValueTransformer.NUMBER_TO_STR::apply;
+        final ChainedExpressionTransformer translator = ExpressionTransformers.with(
+                ExpressionTransformers.mapPath(source, target, ValueTransformer.STR_TO_LONG, inverse),
+                ExpressionTransformers.renamePath(target, renamed));
+        final Expression<String> result = translator.translateKeyPath(source);
+        assertEquals(new ConvertedProjection<>(String.class, renamed, inverse), result);
+        final ChainedExpressionTransformer composed = ExpressionTransformers.with(
+                ExpressionTransformers.mapPath(source, target, ValueTransformer.STR_TO_LONG, inverse),
+                ExpressionTransformers.mapPath(target, stored, ValueTransformer.NUMBER_TO_STR::apply,
+                        ValueTransformer.STR_TO_LONG));
+        final Expression<String> composedResult = composed.translateKeyPath(source);
+        assertTrue(composedResult instanceof ConvertedProjection);
+        assertEquals(stored, ((ConvertedProjection<?, ?>) composedResult).getSource());
+        assertEquals("12", ((ConvertedProjection<?, ?>) composedResult).newInstance("12"));
+    }
+
+    /**
+     * Unit test for {@link ChainedExpressionTransformer#translateKeyPath(Path)}.
+     * <p>
+     * Verifies that when the resulting expression is not a path or the
+     * values of a value mapped path cannot be converted back an
+     * {@code ExpressionTransformationException} is thrown.
+     */
+    @Test
+    void testTranslateKeyPathWrongResult() {
+        final PathBuilder<Object> entity = new PathBuilder<>(Object.class, "entity");
+        final StringPath source = entity.getString("source");
+        final NumberPath<Long> target = entity.getNumber("target", Long.class);
+        final ChainedExpressionTransformer expression = ExpressionTransformers.with(
+                ExpressionTransformers.fromPath(source)
+                    .toExpression(Expressions.stringTemplate("upper({0})", target.stringValue()))
+                    .withDisallowedStorage()
+                    .build());
+        assertThrows(ExpressionTransformationException.class, () -> {
+            expression.translateKeyPath(source);
+        });
+        final ChainedExpressionTransformer noInverse = ExpressionTransformers.with(
+                ExpressionTransformers.mapPath(source, target, ValueTransformer.STR_TO_LONG));
+        assertThrows(ExpressionTransformationException.class, () -> {
+            noInverse.translateKeyPath(source);
+        });
+    }
+
     /**
      * Unit test for {@link ChainedExpressionTransformer#translateProjections(Expression...)}.
      */
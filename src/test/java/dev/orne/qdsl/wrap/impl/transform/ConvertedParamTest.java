@@ -0,0 +1,150 @@
+package dev.orne.qdsl.wrap.impl.transform;
+
+/*-
+ * #%L
+ * Orne Querydsl Utils
+ * %%
+ * Copyright (C) 2022 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.core.types.dsl.Param;
+import com.querydsl.core.types.dsl.PathBuilder;
+import com.querydsl.core.types.dsl.StringPath;
+import com.querydsl.jpa.JPAExpressions;
+
+/**
+ * Unit tests for {@code ConvertedParam}.
+ *
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2022-10
+ * @since 0.1
+ * @see ConvertedParam
+ */
+@Tag("ut")
+class ConvertedParamTest {
+
+    private static final PathBuilder<Object> ENTITY_PATH =
+            new PathBuilder<Object>(Object.class, "entity");
+    private static final StringPath SOURCE_PATH =
+            ENTITY_PATH.getString("source");
+    private static final NumberPath<Long> TARGET_PATH =
+            ENTITY_PATH.getNumber("target", Long.class);
+    private static final Param<String> PARAM =
+            new Param<>(String.class, "param");
+
+    /**
+     * Unit test for {@link ConvertedParam#ConvertedParam(Class, com.querydsl.core.types.ParamExpression, ValueTransformer)}.
+     */
+    @Test
+    void testConstructor() {
+        assertThrows(NullPointerException.class, () -> {
+            new ConvertedParam<>(null, PARAM, ValueTransformer.STR_TO_LONG);
+        });
+        assertThrows(NullPointerException.class, () -> {
+            new ConvertedParam<String, Long>(Long.class, null, ValueTransformer.STR_TO_LONG);
+        });
+        assertThrows(NullPointerException.class, () -> {
+            new ConvertedParam<>(Long.class, PARAM, null);
+        });
+        final ConvertedParam<String, Long> result = new ConvertedParam<>(
+                Long.class, PARAM, ValueTransformer.STR_TO_LONG);
+        assertEquals(Long.class, result.getType());
+        assertSame(PARAM, result.getSource());
+        assertSame(ValueTransformer.STR_TO_LONG, result.getValueTransformer());
+        assertEquals(PARAM.getName(), result.getName());
+        assertEquals(PARAM.isAnon(), result.isAnon());
+        assertEquals(PARAM.getNotSetMessage(), result.getNotSetMessage());
+        assertNotNull(result.toString());
+    }
+
+    /**
+     * Unit test for {@link ConvertedParam#convert(Object)}.
+     */
+    @Test
+    void testConvert() {
+        final ConvertedParam<String, Long> param = new ConvertedParam<>(
+                Long.class, PARAM, ValueTransformer.STR_TO_LONG);
+        assertEquals(12L, param.convert("12"));
+        assertNull(param.convert(null));
+        assertEquals(12L, param.convertUnchecked("12"));
+        assertThrows(ClassCastException.class, () -> {
+            param.convertUnchecked(12);
+        });
+    }
+
+    /**
+     * Unit test for {@link ConvertedParam#equals(Object)}.
+     */
+    @Test
+    void testEquals() {
+        final ConvertedParam<String, Long> param = new ConvertedParam<>(
+                Long.class, PARAM, ValueTransformer.STR_TO_LONG);
+        final ConvertedParam<String, Long> other = new ConvertedParam<>(
+                Long.class, new Param<>(String.class, "param"), ValueTransformer.STR_TO_LONG);
+        assertEquals(param, param);
+        assertEquals(param, other);
+        assertEquals(param.hashCode(), other.hashCode());
+        assertNotEquals(param, null);
+        assertNotEquals(param, PARAM);
+        assertNotEquals(param, new ConvertedParam<>(
+                Long.class, new Param<>(String.class, "other"), ValueTransformer.STR_TO_LONG));
+        assertNotEquals(param, new ConvertedParam<String, Long>(
+                Long.class, PARAM, s -> 0L));
+        assertNotEquals(param, new ConvertedParam<String, Number>(
+                Integer.class, PARAM, s -> 0));
+    }
+
+    /**
+     * Unit test for {@link ConvertedParam#collect(com.querydsl.core.types.Expression, java.util.Collection)}.
+     */
+    @Test
+    void testCollect() {
+        final ConvertedParam<String, Long> param = new ConvertedParam<>(
+                Long.class, PARAM, ValueTransformer.STR_TO_LONG);
+        final ConvertedParam<String, Long> other = new ConvertedParam<>(
+                Long.class, new Param<>(String.class, "other"), ValueTransformer.STR_TO_LONG);
+        final List<ConvertedParam<?, ?>> result = new ArrayList<>();
+        ConvertedParam.collect(null, result);
+        assertTrue(result.isEmpty());
+        ConvertedParam.collect(TARGET_PATH.eq(param).and(SOURCE_PATH.eq(PARAM)), result);
+        assertEquals(1, result.size());
+        assertSame(param, result.get(0));
+        result.clear();
+        ConvertedParam.collect(Expressions.booleanTemplate("{0} = {1}", TARGET_PATH, other), result);
+        assertEquals(1, result.size());
+        assertSame(other, result.get(0));
+        result.clear();
+        ConvertedParam.collect(
+                TARGET_PATH.in(JPAExpressions.select(TARGET_PATH)
+                        .from(ENTITY_PATH)
+                        .where(TARGET_PATH.gt(other))),
+                result);
+        assertEquals(1, result.size());
+        assertSame(other, result.get(0));
+    }
+}
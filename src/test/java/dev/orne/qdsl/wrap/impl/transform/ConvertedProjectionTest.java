@@ -0,0 +1,150 @@
+package dev.orne.qdsl.wrap.impl.transform;
+
+/*-
+ * #%L
+ * Orne Querydsl Utils
+ * %%
+ * Copyright (C) 2022 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Collections;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.core.types.dsl.PathBuilder;
+import com.querydsl.core.types.dsl.StringPath;
+
+import dev.orne.qdsl.wrap.impl.ExpressionTransformationException;
+
+/**
+ * Unit tests for {@code ConvertedProjection}.
+ *
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2022-10
+ * @since 0.1
+ * @see ConvertedProjection
+ */
+@Tag("ut")
+class ConvertedProjectionTest {
+
+    private static final PathBuilder<Object> ENTITY_PATH =
+            new PathBuilder<Object>(Object.class, "entity");
+    private static final NumberPath<Long> SOURCE_PATH =
+            ENTITY_PATH.getNumber("source", Long.class);
+    private static final StringPath OTHER_PATH =
+            ENTITY_PATH.getString("other");
+    private static final ValueTransformer<Long, String> LONG_TO_STR =
+            n -> n == null ? null : n.toString();
+
+    /**
+     * Unit test for {@link ConvertedProjection#ConvertedProjection(Class, com.querydsl.core.types.Path, ValueTransformer)}.
+     */
+    @Test
+    void testConstructor() {
+        assertThrows(NullPointerException.class, () -> {
+            new ConvertedProjection<>(null, SOURCE_PATH, LONG_TO_STR);
+        });
+        assertThrows(NullPointerException.class, () -> {
+            new ConvertedProjection<Long, String>(String.class, null, LONG_TO_STR);
+        });
+        assertThrows(NullPointerException.class, () -> {
+            new ConvertedProjection<>(String.class, SOURCE_PATH, null);
+        });
+        final ConvertedProjection<Long, String> result = new ConvertedProjection<>(
+                String.class, SOURCE_PATH, LONG_TO_STR);
+        assertEquals(String.class, result.getType());
+        assertSame(SOURCE_PATH, result.getSource());
+        assertSame(LONG_TO_STR, result.getValueTransformer());
+        assertEquals(Collections.singletonList(SOURCE_PATH), result.getArgs());
+        assertNotNull(result.toString());
+    }
+
+    /**
+     * Unit test for {@link ConvertedProjection#convert(Object)} and
+     * {@link ConvertedProjection#newInstance(Object...)}.
+     */
+    @Test
+    void testConvert() {
+        final ConvertedProjection<Long, String> projection = new ConvertedProjection<>(
+                String.class, SOURCE_PATH, LONG_TO_STR);
+        assertEquals("12", projection.convert(12L));
+        assertNull(projection.convert(null));
+        assertEquals("12", projection.newInstance(12L));
+        assertNull(projection.newInstance((Object) null));
+        assertThrows(ClassCastException.class, () -> {
+            projection.newInstance("12");
+        });
+    }
+
+    /**
+     * Unit test for {@link ConvertedProjection#withSource(com.querydsl.core.types.Expression)}.
+     */
+    @Test
+    void testWithSource() {
+        final ConvertedProjection<Long, String> projection = new ConvertedProjection<>(
+                String.class, SOURCE_PATH, LONG_TO_STR);
+        assertThrows(NullPointerException.class, () -> {
+            projection.withSource(null);
+        });
+        assertSame(projection, projection.withSource(SOURCE_PATH));
+        final NumberPath<Long> renamed = ENTITY_PATH.getNumber("renamed", Long.class);
+        final ConvertedProjection<?, String> result = projection.withSource(renamed);
+        assertEquals(String.class, result.getType());
+        assertEquals(renamed, result.getSource());
+        assertEquals("12", result.newInstance(12L));
+        final ConvertedProjection<String, Long> inner = new ConvertedProjection<>(
+                Long.class, OTHER_PATH, ValueTransformer.STR_TO_LONG);
+        final ConvertedProjection<?, String> composed = projection.withSource(inner);
+        assertEquals(String.class, composed.getType());
+        assertEquals(OTHER_PATH, composed.getSource());
+        assertEquals("12", composed.newInstance("12"));
+        assertThrows(ExpressionTransformationException.class, () -> {
+            projection.withSource(OTHER_PATH);
+        });
+        assertThrows(ExpressionTransformationException.class, () -> {
+            projection.withSource(Expressions.constant(12L));
+        });
+    }
+
+    /**
+     * Unit test for {@link ConvertedProjection#equals(Object)}.
+     */
+    @Test
+    void testEquals() {
+        final ConvertedProjection<Long, String> projection = new ConvertedProjection<>(
+                String.class, SOURCE_PATH, LONG_TO_STR);
+        final ConvertedProjection<Long, String> other = new ConvertedProjection<>(
+                String.class, ENTITY_PATH.getNumber("source", Long.class), LONG_TO_STR);
+        assertEquals(projection, projection);
+        assertEquals(projection, other);
+        assertEquals(projection.hashCode(), other.hashCode());
+        assertNotEquals(projection, null);
+        assertNotEquals(projection, SOURCE_PATH);
+        assertNotEquals(projection, new ConvertedProjection<>(
+                String.class, ENTITY_PATH.getNumber("other", Long.class), LONG_TO_STR));
+        assertNotEquals(projection, new ConvertedProjection<Long, String>(
+                String.class, SOURCE_PATH, n -> ""));
+        assertNotEquals(projection, new ConvertedProjection<Long, Object>(
+                Object.class, SOURCE_PATH, n -> ""));
+    }
+}
@@ -0,0 +1,179 @@
+package dev.orne.qdsl.wrap.impl.transform;
+
+/*-
+ * #%L
+ * Orne Querydsl Utils
+ * %%
+ * Copyright (C) 2022 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.core.types.dsl.PathBuilder;
+import com.querydsl.core.types.dsl.StringPath;
+
+/**
+ * Unit tests for {@code InListBucketingTransformer}.
+ *
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2022-10
+ * @since 0.1
+ * @see InListBucketingTransformer
+ */
+@Tag("ut")
+class InListBucketingTransformerTest {
+
+    private static final PathBuilder<Object> ENTITY_PATH =
+            new PathBuilder<Object>(Object.class, "entity");
+    private static final NumberPath<Long> ID_PATH =
+            ENTITY_PATH.getNumber("id", Long.class);
+    private static final StringPath NAME_PATH =
+            ENTITY_PATH.getString("name");
+
+    private static List<Long> range(
+            final int size) {
+        return LongStream.rangeClosed(1, size)
+                .boxed()
+                .collect(Collectors.toList());
+    }
+
+    private static List<Long> padded(
+            final int size,
+            final int bucketSize) {
+        final List<Long> result = range(size);
+        while (result.size() < bucketSize) {
+            result.add((long) size);
+        }
+        return result;
+    }
+
+    /**
+     * Unit test for {@link InListBucketingTransformer#InListBucketingTransformer(int...)}.
+     */
+    @Test
+    void testConstructor() {
+        assertThrows(NullPointerException.class, () -> {
+            new InListBucketingTransformer((int[]) null);
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            new InListBucketingTransformer();
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            new InListBucketingTransformer(0, 4);
+        });
+        final int[] sizes = new int[] { 8, 2 };
+        final InListBucketingTransformer result = new InListBucketingTransformer(sizes);
+        assertArrayEquals(new int[] { 2, 8 }, result.getBucketSizes());
+        assertArrayEquals(new int[] { 8, 2 }, sizes);
+        assertArrayEquals(
+                InListBucketingTransformer.DEFAULT_BUCKET_SIZES,
+                InListBucketingTransformer.DEFAULT.getBucketSizes());
+        assertNotNull(result.toString());
+    }
+
+    /**
+     * Unit test for {@link InListBucketingTransformer#getBucketSize(int)}.
+     */
+    @Test
+    void testGetBucketSize() {
+        final InListBucketingTransformer transformer = InListBucketingTransformer.DEFAULT;
+        assertEquals(1, transformer.getBucketSize(1));
+        assertEquals(4, transformer.getBucketSize(2));
+        assertEquals(4, transformer.getBucketSize(4));
+        assertEquals(16, transformer.getBucketSize(5));
+        assertEquals(64, transformer.getBucketSize(17));
+        assertEquals(256, transformer.getBucketSize(200));
+        assertEquals(1024, transformer.getBucketSize(1000));
+        assertEquals(2048, transformer.getBucketSize(1025));
+        assertEquals(2048, transformer.getBucketSize(2048));
+    }
+
+    /**
+     * Unit test for {@link InListBucketingTransformer#visit(com.querydsl.core.types.Operation, Void)}.
+     */
+    @Test
+    void testIn() {
+        final InListBucketingTransformer transformer = InListBucketingTransformer.DEFAULT;
+        assertEquals(
+                ID_PATH.in(padded(3, 4)),
+                ID_PATH.in(range(3)).accept(transformer, null));
+        assertEquals(
+                ID_PATH.in(range(4)),
+                ID_PATH.in(range(4)).accept(transformer, null));
+        assertEquals(
+                ID_PATH.in(padded(10, 16)),
+                ID_PATH.in(range(10)).accept(transformer, null));
+        assertEquals(
+                ID_PATH.eq(1L),
+                ID_PATH.in(range(1)).accept(transformer, null));
+    }
+
+    /**
+     * Unit test for {@link InListBucketingTransformer#visit(com.querydsl.core.types.Operation, Void)}.
+     */
+    @Test
+    void testNotIn() {
+        final InListBucketingTransformer transformer = InListBucketingTransformer.DEFAULT;
+        assertEquals(
+                ID_PATH.notIn(padded(5, 16)),
+                ID_PATH.notIn(range(5)).accept(transformer, null));
+    }
+
+    /**
+     * Unit test for {@link InListBucketingTransformer#visit(com.querydsl.core.types.Operation, Void)}.
+     */
+    @Test
+    void testNested() {
+        final InListBucketingTransformer transformer = InListBucketingTransformer.DEFAULT;
+        final Expression<?> result = ID_PATH.in(range(2))
+                .and(NAME_PATH.in(Arrays.asList("a", "b", "c")).or(NAME_PATH.isNull()))
+                .accept(transformer, null);
+        assertEquals(
+                ID_PATH.in(padded(2, 4))
+                    .and(NAME_PATH.in(Arrays.asList("a", "b", "c", "c")).or(NAME_PATH.isNull())),
+                result);
+    }
+
+    /**
+     * Unit test for {@link InListBucketingTransformer#visit(com.querydsl.core.types.Operation, Void)}.
+     */
+    @Test
+    void testUnmodified() {
+        final InListBucketingTransformer transformer = InListBucketingTransformer.DEFAULT;
+        assertEquals(
+                ID_PATH.eq(3L),
+                ID_PATH.eq(3L).accept(transformer, null));
+        assertEquals(
+                ID_PATH.in(Collections.emptyList()),
+                ID_PATH.in(Collections.emptyList()).accept(transformer, null));
+        assertEquals(
+                ID_PATH.in(ENTITY_PATH.getNumber("other", Long.class)),
+                ID_PATH.in(ENTITY_PATH.getNumber("other", Long.class)).accept(transformer, null));
+    }
+}
@@ -32,6 +32,7 @@ import com.querydsl.core.types.Expression;
 import com.querydsl.core.types.Path;
 import com.querydsl.core.types.Visitor;
 import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.Param;
 import com.querydsl.core.types.dsl.PathBuilder;
 
 import dev.orne.qdsl.TestTypes;
@@ -265,6 +266,33 @@ class StoredValuesTransformerTest {
         then(exprTranslator).shouldHaveNoInteractions();
     }
 
+    /**
+     * Test for {@link StoredValuesTransformer#replace(Path, Path, ValueTransformer, SimpleExpressionTransformer)}.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void replaceCompositeParamTest() {
+        final Path<TestTypes.SimpleType> source = builder.getSimple("source", TestTypes.SimpleType.class);
+        final Path<TestTypes.UnrelatedType> target = builder.getSimple("target", TestTypes.UnrelatedType.class);
+        final Param<TestTypes.SimpleType> param = new Param<>(TestTypes.SimpleType.class, "param");
+        final ValueTransformer<TestTypes.SimpleType, TestTypes.UnrelatedType> valueTranslator =
+                mock(ValueTransformer.class);
+        final SimpleExpressionTransformer<TestTypes.SimpleType, TestTypes.UnrelatedType> exprTranslator =
+                mock(SimpleExpressionTransformer.class);
+        final StoredValuesTransformer transformer = StoredValuesTransformer.replace(source, target, valueTranslator, exprTranslator);
+        final StoredValues values = StoredValues.with(StoredValue.of(source, param));
+        transformer.visit(values, null);
+        assertEquals(1, values.size());
+        final Expression<?> result = values.get(target);
+        assertInstanceOf(ConvertedParam.class, result);
+        final ConvertedParam<?, ?> converted = (ConvertedParam<?, ?>) result;
+        assertSame(param, converted.getSource());
+        assertSame(valueTranslator, converted.getValueTransformer());
+        assertEquals(TestTypes.UnrelatedType.class, converted.getType());
+        then(valueTranslator).shouldHaveNoInteractions();
+        then(exprTranslator).shouldHaveNoInteractions();
+    }
+
     /**
      * Test for {@link StoredValueTransformer#translateFromComponents(StoredValue, Visitor)}.
      */
@@ -0,0 +1,226 @@
+package dev.orne.qdsl.wrap.impl.transform;
+
+/*-
+ * #%L
+ * Orne Querydsl Utils
+ * %%
+ * Copyright (C) 2022 Orne Developments
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.core.types.dsl.Param;
+import com.querydsl.core.types.dsl.PathBuilder;
+import com.querydsl.core.types.dsl.StringPath;
+
+import dev.orne.qdsl.wrap.StoredValue;
+import dev.orne.qdsl.wrap.StoredValues;
+import dev.orne.qdsl.wrap.impl.ExpressionTransformationException;
+
+/**
+ * Unit tests for {@code ValueMappedPathTransformer}.
+ *
+ * @author <a href="mailto:wamphiry@orne.dev">(w) Iker Hernaez</a>
+ * @version 1.0, 2022-10
+ * @since 0.1
+ * @see ValueMappedPathTransformer
+ */
+@Tag("ut")
+class ValueMappedPathTransformerTest {
+
+    private static final PathBuilder<Object> ENTITY_PATH =
+            new PathBuilder<Object>(Object.class, "entity");
+    private static final StringPath SOURCE_PATH =
+            ENTITY_PATH.getString("source");
+    private static final NumberPath<Long> TARGET_PATH =
+            ENTITY_PATH.getNumber("target", Long.class);
+    private static final StringPath OTHER_PATH =
+            ENTITY_PATH.getString("other");
+
+    private static ValueMappedPathTransformer<String, Long> createTransformer() {
+        return ExpressionTransformers.mapPath(
+                SOURCE_PATH,
+                TARGET_PATH,
+                ValueTransformer.STR_TO_LONG);
+    }
+
+    /**
+     * Unit test for {@link ValueMappedPathTransformer#ValueMappedPathTransformer(com.querydsl.core.types.Path, com.querydsl.core.types.Path, ValueTransformer)}.
+     */
+    @Test
+    void testConstructor() {
+        assertThrows(NullPointerException.class, () -> {
+            new ValueMappedPathTransformer<>(null, TARGET_PATH, ValueTransformer.STR_TO_LONG);
+        });
+        assertThrows(NullPointerException.class, () -> {
+            new ValueMappedPathTransformer<>(SOURCE_PATH, null, ValueTransformer.STR_TO_LONG);
+        });
+        assertThrows(NullPointerException.class, () -> {
+            new ValueMappedPathTransformer<>(SOURCE_PATH, TARGET_PATH, null);
+        });
+        final ValueMappedPathTransformer<String, Long> result = createTransformer();
+        assertSame(SOURCE_PATH, result.getSource());
+        assertSame(TARGET_PATH, result.getTarget());
+        assertSame(ValueTransformer.STR_TO_LONG, result.getValueTransformer());
+        assertNotNull(result.toString());
+    }
+
+    /**
+     * Unit test for {@link ValueMappedPathTransformer#ValueMappedPathTransformer(com.querydsl.core.types.Path, com.querydsl.core.types.Path, ValueTransformer, ValueTransformer)}.
+     */
+    @Test
+    void testInverseConstructor() {
+        final ValueTransformer<Long, String> inverse = ValueTransformer.NUMBER_TO_STR::apply;
+        assertNull(createTransformer().getInverseTransformer());
+        final ValueMappedPathTransformer<String, Long> result = new ValueMappedPathTransformer<>(
+                SOURCE_PATH, TARGET_PATH, ValueTransformer.STR_TO_LONG, null);
+        assertNull(result.getInverseTransformer());
+        final ValueMappedPathTransformer<String, Long> inversible = ExpressionTransformers.mapPath(
+                SOURCE_PATH, TARGET_PATH, ValueTransformer.STR_TO_LONG, inverse);
+        assertSame(SOURCE_PATH, inversible.getSource());
+        assertSame(TARGET_PATH, inversible.getTarget());
+        assertSame(ValueTransformer.STR_TO_LONG, inversible.getValueTransformer());
+        assertSame(inverse, inversible.getInverseTransformer());
+        assertThrows(NullPointerException.class, () -> {
+            ExpressionTransformers.mapPath(SOURCE_PATH, TARGET_PATH, ValueTransformer.STR_TO_LONG, null);
+        });
+    }
+
+    /**
+     * Unit test for {@link ValueMappedPathTransformer#translateKeyPath(Expression)}.
+     */
+    @Test
+    void testTranslateKeyPath() {
+        final ValueTransformer<Long, String> inverse = ValueTransformer.NUMBER_TO_STR::apply;
+        final ValueMappedPathTransformer<String, Long> transformer = ExpressionTransformers.mapPath(
+                SOURCE_PATH, TARGET_PATH, ValueTransformer.STR_TO_LONG, inverse);
+        final Expression<?> result = transformer.translateKeyPath(SOURCE_PATH);
+        assertEquals(new ConvertedProjection<>(String.class, TARGET_PATH, inverse), result);
+        assertEquals("12", ((ConvertedProjection<?, ?>) result).newInstance(12L));
+        assertEquals(OTHER_PATH, transformer.translateKeyPath(OTHER_PATH));
+        assertThrows(ExpressionTransformationException.class, () -> {
+            createTransformer().translateKeyPath(SOURCE_PATH);
+        });
+        assertEquals(OTHER_PATH, createTransformer().translateKeyPath(OTHER_PATH));
+    }
+
+    /**
+     * Unit test for {@link ValueMappedPathTransformer#visit(com.querydsl.core.types.Path, Void)}.
+     */
+    @Test
+    void testPath() {
+        final ValueMappedPathTransformer<String, Long> transformer = createTransformer();
+        assertSame(TARGET_PATH, SOURCE_PATH.accept(transformer, null));
+        assertEquals(OTHER_PATH, OTHER_PATH.accept(transformer, null));
+        final OrderSpecifier<?>[] orders = ExpressionTransformers.with(transformer)
+                .translateOrderSpecifiers(SOURCE_PATH.asc());
+        assertArrayEquals(new OrderSpecifier<?>[] { TARGET_PATH.asc() }, orders);
+    }
+
+    /**
+     * Unit test for {@link ValueMappedPathTransformer#visit(com.querydsl.core.types.Operation, Void)}.
+     */
+    @Test
+    void testConstantComparison() {
+        final ValueMappedPathTransformer<String, Long> transformer = createTransformer();
+        final Predicate source = SOURCE_PATH.eq("12").and(OTHER_PATH.eq("12"));
+        final Expression<?> result = source.accept(transformer, null);
+        assertEquals(TARGET_PATH.eq(12L).and(OTHER_PATH.eq("12")), result);
+        assertEquals(TARGET_PATH.isNull(), SOURCE_PATH.isNull().accept(transformer, null));
+    }
+
+    /**
+     * Unit test for {@link ValueMappedPathTransformer#visit(com.querydsl.core.types.Operation, Void)}.
+     */
+    @Test
+    void testCollectionComparison() {
+        final ValueMappedPathTransformer<String, Long> transformer = createTransformer();
+        final Predicate source = SOURCE_PATH.in("12", "34", "56");
+        final Expression<?> result = source.accept(transformer, null);
+        assertEquals(TARGET_PATH.in(Arrays.asList(12L, 34L, 56L)), result);
+    }
+
+    /**
+     * Unit test for {@link ValueMappedPathTransformer#visit(com.querydsl.core.types.Operation, Void)}.
+     */
+    @Test
+    void testParamComparison() {
+        final ValueMappedPathTransformer<String, Long> transformer = createTransformer();
+        final Param<String> param = new Param<>(String.class, "param");
+        final Predicate source = SOURCE_PATH.eq(param);
+        final Expression<?> result = source.accept(transformer, null);
+        final ConvertedParam<String, Long> expectedParam = new ConvertedParam<>(
+                Long.class, param, ValueTransformer.STR_TO_LONG);
+        assertEquals(TARGET_PATH.eq(expectedParam), result);
+    }
+
+    /**
+     * Unit test for {@link ValueMappedPathTransformer#visit(com.querydsl.core.types.Operation, Void)}.
+     */
+    @Test
+    void testUnsupportedOperations() {
+        final ValueMappedPathTransformer<String, Long> transformer = createTransformer();
+        assertThrows(ExpressionTransformationException.class, () -> {
+            SOURCE_PATH.eq(OTHER_PATH).accept(transformer, null);
+        });
+        assertThrows(ExpressionTransformationException.class, () -> {
+            SOURCE_PATH.concat("x").eq("12").accept(transformer, null);
+        });
+        assertThrows(ExpressionTransformationException.class, () -> {
+            SOURCE_PATH.eq(Expressions.stringTemplate("lower({0})", new Param<>(String.class, "param")))
+                    .accept(transformer, null);
+        });
+    }
+
+    /**
+     * Unit test for {@link ValueMappedPathTransformer#visit(StoredValues, Void)}.
+     */
+    @Test
+    void testStoredValues() {
+        final ValueMappedPathTransformer<String, Long> transformer = createTransformer();
+        final Param<String> param = new Param<>(String.class, "param");
+        final StoredValues values = StoredValues.with(
+                StoredValue.of(SOURCE_PATH, "12"),
+                StoredValue.of(OTHER_PATH, "12"));
+        assertSame(values, transformer.visit(values, null));
+        assertEquals(2, values.size());
+        assertEquals(Expressions.constant(12L), values.get(TARGET_PATH));
+        assertEquals(Expressions.constant("12"), values.get(OTHER_PATH));
+        final StoredValues paramValues = StoredValues.with(
+                StoredValue.of(SOURCE_PATH, param));
+        transformer.visit(paramValues, null);
+        assertEquals(
+                new ConvertedParam<>(Long.class, param, ValueTransformer.STR_TO_LONG),
+                paramValues.get(TARGET_PATH));
+        final StoredValues pathValues = StoredValues.with(
+                StoredValue.of(SOURCE_PATH, OTHER_PATH));
+        assertThrows(ExpressionTransformationException.class, () -> {
+            transformer.visit(pathValues, null);
+        });
+    }
+}